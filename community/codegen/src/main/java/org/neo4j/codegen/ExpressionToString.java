@@ -293,6 +293,13 @@ class ExpressionToString implements ExpressionVisitor
         expression.accept( this );
     }
 
+    @Override
+    public void intToLong( Expression expression )
+    {
+        result.append( "(long)" );
+        expression.accept( this );
+    }
+
     @Override
     public void pop( Expression expression )
     {
@@ -470,6 +470,12 @@ class MethodSourceWriter implements MethodEmitter, ExpressionVisitor
         cast( TypeReference.typeReference( double.class ), expression );
     }
 
+    @Override
+    public void intToLong( Expression expression )
+    {
+        cast( TypeReference.typeReference( long.class ), expression );
+    }
+
     @Override
     public void pop( Expression expression )
     {
@@ -68,6 +68,7 @@ import static org.neo4j.codegen.Expression.or;
 import static org.neo4j.codegen.Expression.subtractDoubles;
 import static org.neo4j.codegen.Expression.subtractLongs;
 import static org.neo4j.codegen.Expression.ternary;
+import static org.neo4j.codegen.Expression.toLong;
 import static org.neo4j.codegen.ExpressionTemplate.cast;
 import static org.neo4j.codegen.ExpressionTemplate.load;
 import static org.neo4j.codegen.ExpressionTemplate.self;
@@ -1198,6 +1199,30 @@ public class CodeGenerationTest
         assertThat( subtractForType( double.class, 19D, 18D ), equalTo( 1D ) );
     }
 
+    @Test
+    public void shouldWidenIntToLong() throws Throwable
+    {
+        // given
+        createGenerator();
+        ClassHandle handle;
+        try ( ClassGenerator simple = generateClass( "SimpleClass" ) )
+        {
+            try ( CodeBlock block = simple.generateMethod( long.class, "widen",
+                    param( int.class, "a" ), param( long.class, "b" ) ) )
+            {
+                block.returns( addLongs( toLong( block.load( "a" ) ), block.load( "b" ) ) );
+            }
+
+            handle = simple.handle();
+        }
+
+        // when
+        MethodHandle widen = instanceMethod( handle.newInstance(), "widen", int.class, long.class );
+
+        // then
+        assertThat( widen.invoke( Integer.MAX_VALUE, 1L ), equalTo( Integer.MAX_VALUE + 1L ) );
+    }
+
     @SuppressWarnings( "unchecked" )
     private <T> T addForType( Class<T> clazz, T lhs, T rhs ) throws Throwable
     {
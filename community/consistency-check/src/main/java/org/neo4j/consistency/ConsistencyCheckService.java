@@ -35,6 +35,7 @@ import org.neo4j.consistency.statistics.Statistics;
 import org.neo4j.consistency.statistics.VerboseStatistics;
 import org.neo4j.function.Suppliers;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings.LabelIndex;
 import org.neo4j.helpers.collection.MapUtil;
 import org.neo4j.helpers.progress.ProgressMonitorFactory;
 import org.neo4j.index.lucene.LuceneLabelScanStoreBuilder;
@@ -50,11 +51,14 @@ import org.neo4j.kernel.api.labelscan.LabelScanStore;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.configuration.Settings;
 import org.neo4j.kernel.impl.api.index.IndexStoreView;
+import org.neo4j.kernel.impl.api.scan.LabelScanStoreProvider.FullStoreChangeStream;
+import org.neo4j.kernel.impl.index.labelscan.NativeLabelScanStore;
 import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.pagecache.ConfiguringPageCacheFactory;
 import org.neo4j.kernel.impl.store.NeoStores;
 import org.neo4j.kernel.impl.store.StoreAccess;
 import org.neo4j.kernel.impl.store.StoreFactory;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
 import org.neo4j.kernel.impl.store.id.DefaultIdGeneratorFactory;
 import org.neo4j.kernel.impl.transaction.state.NeoStoreIndexStoreView;
 import org.neo4j.logging.DuplicatingLog;
@@ -145,9 +149,8 @@ public class ConsistencyCheckService
             try
             {
                 IndexStoreView indexStoreView = new NeoStoreIndexStoreView( LockService.NO_LOCK_SERVICE, neoStores );
-                labelScanStore = new LuceneLabelScanStoreBuilder(
-                        storeDir, fullStoreLabelUpdateStream( () -> indexStoreView ),
-                        fileSystem, logProvider ).build();
+                labelScanStore = labelScanStore( storeDir, tuningConfiguration,
+                        fullStoreLabelUpdateStream( () -> indexStoreView ), fileSystem, pageCache, logProvider );
                 SchemaIndexProvider indexes = new LuceneSchemaIndexProvider(
                         fileSystem,
                         DirectoryFactory.PERSISTENT,
@@ -196,6 +199,32 @@ public class ConsistencyCheckService
         return Result.SUCCESS;
     }
 
+    /**
+     * Opens the label scan store that the database is configured to use, see {@link GraphDatabaseSettings#label_index},
+     * so that it's the store the database actually keeps up to date that is checked.
+     */
+    private static LabelScanStore labelScanStore( File storeDir, Config config, FullStoreChangeStream fullStoreStream,
+            FileSystemAbstraction fileSystem, PageCache pageCache, LogProvider logProvider )
+    {
+        if ( config.get( GraphDatabaseSettings.label_index ) == LabelIndex.LUCENE )
+        {
+            return new LuceneLabelScanStoreBuilder( storeDir, fullStoreStream, fileSystem, logProvider ).build();
+        }
+
+        NativeLabelScanStore labelScanStore = new NativeLabelScanStore( pageCache, fileSystem, storeDir,
+                fullStoreStream, logProvider, NativeLabelScanStore.Monitor.EMPTY );
+        try
+        {
+            labelScanStore.init();
+            labelScanStore.start();
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+        return labelScanStore;
+    }
+
     private File chooseReportPath( Config tuningConfiguration, File storeDir )
     {
         if ( tuningConfiguration.get( GraphDatabaseSettings.neo4j_home ) == null )
@@ -41,10 +41,18 @@ import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.factory.GraphDatabaseBuilder;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings.LabelIndex;
 import org.neo4j.helpers.progress.ProgressMonitorFactory;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.api.exceptions.TransactionFailureException;
+import org.neo4j.kernel.api.labelscan.LabelScanWriter;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.configuration.Settings;
+import org.neo4j.kernel.impl.index.labelscan.NativeLabelScanStore;
+import org.neo4j.kernel.impl.pagecache.StandalonePageCacheFactory;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.logging.NullLogProvider;
 import org.neo4j.test.TestGraphDatabaseFactory;
@@ -176,6 +184,50 @@ public class ConsistencyCheckServiceIntegrationTest
         assertEquals( ConsistencyCheckService.Result.SUCCESS, result );
     }
 
+    @Test
+    public void shouldCheckTheNativeLabelScanStoreOfTheDatabase() throws Exception
+    {
+        // given a database with a labeled node, using the native label index
+        GraphDatabaseService db = new GraphDatabaseFactory().newEmbeddedDatabaseBuilder( testDirectory.absolutePath() )
+                .setConfig( settings( GraphDatabaseSettings.label_index.name(), LabelIndex.NATIVE.name() ) )
+                .newGraphDatabase();
+        long nodeId;
+        try ( Transaction tx = db.beginTx() )
+        {
+            nodeId = db.createNode( Label.label( "L" ) ).getId();
+            tx.success();
+        }
+        db.shutdown();
+
+        // and a native label scan store which has lost track of that node
+        FileSystemAbstraction fs = new DefaultFileSystemAbstraction();
+        try ( PageCache pageCache = StandalonePageCacheFactory.createPageCache( fs ) )
+        {
+            NativeLabelScanStore labelScanStore = new NativeLabelScanStore( pageCache, fs,
+                    testDirectory.absolutePath(), writer -> 0, NullLogProvider.getInstance(),
+                    NativeLabelScanStore.Monitor.EMPTY );
+            labelScanStore.init();
+            labelScanStore.start();
+            try ( LabelScanWriter writer = labelScanStore.newWriter() )
+            {
+                writer.write( NodeLabelUpdate.labelChanges( nodeId, new long[]{0}, new long[0] ) );
+            }
+            labelScanStore.shutdown();
+        }
+
+        // when
+        ConsistencyCheckService service = new ConsistencyCheckService();
+        Config configuration = new Config(
+                settings( GraphDatabaseSettings.logs_directory.name(), testDirectory.directory().getPath(),
+                        GraphDatabaseSettings.label_index.name(), LabelIndex.NATIVE.name() ),
+                GraphDatabaseSettings.class, ConsistencyCheckSettings.class );
+        Result result = service.runFullConsistencyCheck( testDirectory.absolutePath(), configuration,
+                ProgressMonitorFactory.NONE, NullLogProvider.getInstance(), false );
+
+        // then
+        assertEquals( ConsistencyCheckService.Result.FAILURE, result );
+    }
+
     private GraphDatabaseService getGraphDatabaseService()
     {
         GraphDatabaseBuilder builder =
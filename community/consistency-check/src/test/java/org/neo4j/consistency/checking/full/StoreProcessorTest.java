@@ -81,7 +81,18 @@ public class StoreProcessorTest
             @Override
             public RecordCursor<NodeRecord> newRecordCursor( NodeRecord record )
             {
-                return new RecordCursor.Delegator<NodeRecord>( super.newRecordCursor( record ) )
+                return stopProcessorAtNodeThree( super.newRecordCursor( record ) );
+            }
+
+            @Override
+            public RecordCursor<NodeRecord> newSequentialRecordCursor( NodeRecord record )
+            {
+                return stopProcessorAtNodeThree( super.newSequentialRecordCursor( record ) );
+            }
+
+            private RecordCursor<NodeRecord> stopProcessorAtNodeThree( RecordCursor<NodeRecord> cursor )
+            {
+                return new RecordCursor.Delegator<NodeRecord>( cursor )
                 {
                     @Override
                     public boolean next( long id )
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.cypher.acceptance
+
+import org.neo4j.cypher.internal.compiler.v3_1.executionplan.InternalExecutionResult
+import org.neo4j.cypher.{ExecutionEngineFunSuite, NewPlannerTestSupport}
+
+class ParallelRuntimeAcceptanceTest extends ExecutionEngineFunSuite with NewPlannerTestSupport {
+
+  // More than one morsel of node ids, so that the scans are split between workers
+  private val nodes = 25000
+
+  override protected def initTest() {
+    super.initTest()
+    innerExecute(
+      s"""UNWIND range(1, $nodes) AS i
+         |CREATE (a:Person {value: i, group: i % 10})
+         |WITH a, i WHERE i % 1000 = 0
+         |CREATE (a)-[:KNOWS]->(:Friend {value: i})""".stripMargin)
+  }
+
+  test("should count all nodes in parallel") {
+    val result = executeInParallel("MATCH (n) WHERE n.value % 3 = 0 RETURN count(*) AS c")
+
+    result.toList should equal(List(Map("c" -> (nodes / 3 + 8))))
+  }
+
+  test("should aggregate the nodes of a label scan in parallel") {
+    val result = executeInParallel("MATCH (n:Person) RETURN n.group AS g, count(*) AS c, min(n.value) AS min, max(n.value) AS max")
+
+    result.toList should have size 10
+  }
+
+  test("should take the top nodes of a label scan in parallel") {
+    val result = executeInParallel("MATCH (n:Person) RETURN n.value AS v ORDER BY v DESC LIMIT 10")
+
+    result.columnAs[Long]("v").toList should equal((24991L to 25000L).reverse.toList)
+  }
+
+  test("should expand from the nodes of a label scan in parallel") {
+    val result = executeInParallel("MATCH (n:Person)-[:KNOWS]->(f:Friend) RETURN count(f) AS c, sum(f.value) AS s")
+
+    result.toList should equal(List(Map("c" -> 25, "s" -> (1 to 25).map(_ * 1000).sum)))
+  }
+
+  test("should see the changes of its own transaction") {
+    graph.inTx {
+      innerExecute("CREATE (:Person {value: -1, group: -1})")
+
+      val result = innerExecute("CYPHER runtime=parallel MATCH (n:Person) RETURN count(*) AS c")
+
+      result.toList should equal(List(Map("c" -> (nodes + 1))))
+    }
+  }
+
+  private def executeInParallel(query: String): InternalExecutionResult = {
+    val expected = innerExecute(s"CYPHER runtime=interpreted $query").toComparableResult
+    val result = executeWithCostPlannerOnly(s"CYPHER runtime=parallel $query")
+
+    if (Runtime.getRuntime.availableProcessors() > 1)
+      result should use("Parallel")
+    if (query.contains("ORDER BY"))
+      result.toComparableResult should contain theSameElementsInOrderAs expected
+    else
+      result.toComparableResult should contain theSameElementsAs expected
+    result
+  }
+}
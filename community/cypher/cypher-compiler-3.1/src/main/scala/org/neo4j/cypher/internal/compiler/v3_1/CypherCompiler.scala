@@ -19,6 +19,7 @@
  */
 package org.neo4j.cypher.internal.compiler.v3_1
 
+import java.io.File
 import java.time.Clock
 
 import org.neo4j.cypher.internal.compiler.v3_1.CompilationPhaseTracer.CompilationPhase.{AST_REWRITE, PARSING, SEMANTIC_CHECK}
@@ -67,7 +68,9 @@ case class CypherCompilerConfiguration(queryCacheSize: Int,
                                        idpMaxTableSize: Int,
                                        idpIterationDuration: Long,
                                        errorIfShortestPathFallbackUsedAtRuntime: Boolean,
-                                       nonIndexedLabelWarningThreshold: Long)
+                                       nonIndexedLabelWarningThreshold: Long,
+                                       queryMemoryBudget: Long = 0L,
+                                       spillDirectory: Option[File] = None)
 
 object CypherCompilerFactory {
   val monitorTag = "cypher3.1"
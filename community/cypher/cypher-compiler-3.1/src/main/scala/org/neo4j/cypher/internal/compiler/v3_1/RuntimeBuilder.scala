@@ -29,11 +29,13 @@ import org.neo4j.cypher.internal.compiler.v3_1.executionplan.ExecutionPlanBuilde
 import org.neo4j.cypher.internal.compiler.v3_1.executionplan.InterpretedExecutionPlanBuilder.interpretedToExecutionPlan
 import org.neo4j.cypher.internal.compiler.v3_1.executionplan._
 import org.neo4j.cypher.internal.compiler.v3_1.helpers._
+import org.neo4j.cypher.internal.compiler.v3_1.parallel.ParallelPipes
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription.Arguments
 import org.neo4j.cypher.internal.compiler.v3_1.planner.execution.{PipeExecutionBuilderContext, PipeExecutionPlanBuilder}
 import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans.LogicalPlan
 import org.neo4j.cypher.internal.compiler.v3_1.planner.{CantCompileQueryException, PeriodicCommit}
+import org.neo4j.cypher.internal.compiler.v3_1.slotted.SlotAllocation
 import org.neo4j.cypher.internal.compiler.v3_1.spi.{GraphStatistics, PlanContext, QueryContext}
 import org.neo4j.cypher.internal.frontend.v3_1.notification.{InternalNotification, RuntimeUnsupportedNotification}
 import org.neo4j.cypher.internal.frontend.v3_1.{InternalException, InvalidArgumentException, SemanticTable}
@@ -44,6 +46,8 @@ object RuntimeBuilder {
     case None | Some(InterpretedRuntimeName) => InterpretedRuntimeBuilder(interpretedProducer)
     case Some(CompiledRuntimeName) if useErrorsOverWarnings => ErrorReportingRuntimeBuilder(compiledProducer)
     case Some(CompiledRuntimeName) => WarningFallbackRuntimeBuilder(interpretedProducer, compiledProducer)
+    case Some(SlottedRuntimeName) => SlottedRuntimeBuilder(interpretedProducer)
+    case Some(ParallelRuntimeName) => ParallelRuntimeBuilder(interpretedProducer)
   }
 }
 trait RuntimeBuilder {
@@ -101,6 +105,36 @@ case class InterpretedRuntimeBuilder(interpretedProducer: InterpretedPlanBuilder
   override def fallback(preparedQuery: PreparedQuerySemantics) = throw new InternalException("This should never be called")
 }
 
+case class SlottedRuntimeBuilder(interpretedProducer: InterpretedPlanBuilder) extends RuntimeBuilder {
+  override def apply(periodicCommit: Option[PeriodicCommit], logicalPlan: LogicalPlan, pipeBuildContext: PipeExecutionBuilderContext,
+                     planContext: PlanContext, tracer: CompilationPhaseTracer, semanticTable: SemanticTable,
+                     monitor: NewRuntimeSuccessRateMonitor, plannerName: PlannerName,
+                     preparedQuery: PreparedQuerySemantics,
+                     createFingerprintReference: Option[PlanFingerprint] => PlanFingerprintReference,
+                     config: CypherCompilerConfiguration): ExecutionPlan =
+    interpretedProducer(periodicCommit, logicalPlan, pipeBuildContext, planContext, tracer, preparedQuery, createFingerprintReference, config,
+                        slotted = true)
+
+  override def compiledProducer = throw new InternalException("This should never be called")
+
+  override def fallback(preparedQuery: PreparedQuerySemantics) = throw new InternalException("This should never be called")
+}
+
+case class ParallelRuntimeBuilder(interpretedProducer: InterpretedPlanBuilder) extends RuntimeBuilder {
+  override def apply(periodicCommit: Option[PeriodicCommit], logicalPlan: LogicalPlan, pipeBuildContext: PipeExecutionBuilderContext,
+                     planContext: PlanContext, tracer: CompilationPhaseTracer, semanticTable: SemanticTable,
+                     monitor: NewRuntimeSuccessRateMonitor, plannerName: PlannerName,
+                     preparedQuery: PreparedQuerySemantics,
+                     createFingerprintReference: Option[PlanFingerprint] => PlanFingerprintReference,
+                     config: CypherCompilerConfiguration): ExecutionPlan =
+    interpretedProducer(periodicCommit, logicalPlan, pipeBuildContext, planContext, tracer, preparedQuery, createFingerprintReference, config,
+                        parallel = true)
+
+  override def compiledProducer = throw new InternalException("This should never be called")
+
+  override def fallback(preparedQuery: PreparedQuerySemantics) = throw new InternalException("This should never be called")
+}
+
 case class ErrorReportingRuntimeBuilder(compiledProducer: CompiledPlanBuilder) extends RuntimeBuilder {
 
   override def interpretedProducer = throw new InternalException("This should never be called")
@@ -114,11 +148,17 @@ case class InterpretedPlanBuilder(clock: Clock, monitors: Monitors, publicTypeCo
   def apply(periodicCommit: Option[PeriodicCommit], logicalPlan: LogicalPlan, pipeBuildContext: PipeExecutionBuilderContext,
             planContext: PlanContext, tracer: CompilationPhaseTracer, preparedQuery: PreparedQuerySemantics,
             createFingerprintReference: Option[PlanFingerprint] => PlanFingerprintReference,
-            config: CypherCompilerConfiguration) =
+            config: CypherCompilerConfiguration, slotted: Boolean = false, parallel: Boolean = false) =
     closing(tracer.beginPhase(PIPE_BUILDING)) {
-      interpretedToExecutionPlan(new PipeExecutionPlanBuilder(clock, monitors)
-                                   .build(periodicCommit, logicalPlan)(pipeBuildContext, planContext),
-                                 planContext, preparedQuery, createFingerprintReference, config, publicTypeConverter)
+      val slots = if (slotted) Some(SlotAllocation.allocate(logicalPlan)) else None
+      val pipeInfo = new PipeExecutionPlanBuilder(clock, monitors).build(periodicCommit, logicalPlan)(pipeBuildContext, planContext)
+      // only plans that just read can be split over several transactions
+      val runsInParallel = parallel && !pipeInfo.updating && pipeInfo.periodicCommit.isEmpty
+      val runtimeName =
+        if (runsInParallel) ParallelRuntimeName else if (slotted) SlottedRuntimeName else InterpretedRuntimeName
+      interpretedToExecutionPlan(if (runsInParallel) pipeInfo.copy(pipe = ParallelPipes.rewrite(pipeInfo.pipe)) else pipeInfo,
+                                 planContext, preparedQuery, createFingerprintReference, config, publicTypeConverter, slots,
+                                 runtimeName)
     }
 }
 
@@ -45,6 +45,11 @@ case object LongsToCountTable extends CountingJoinTableType
 case class LongToListTable(structure: Map[String, CodeGenType], localMap: Map[String, String]) extends RecordingJoinTableType
 case class LongsToListTable(structure: Map[String, CodeGenType], localMap: Map[String, String]) extends RecordingJoinTableType
 
+/**
+  * Describes the rows stored in a sort table and the direction of each sort key.
+  */
+case class SortTableDescriptor(structure: Map[String, CodeGenType], ascending: Seq[Boolean])
+
 /**
   * Describes the SPI for generating a method.
   *
@@ -75,6 +80,12 @@ trait MethodStructure[E] {
   def updateProbeTableCount(tableVar: String, tableType: CountingJoinTableType, keyVar: Seq[String]): Unit
   def allocateProbeTable(tableVar: String, tableType: JoinTableType): Unit
   def invokeMethod(resultType: JoinTableType, resultVar: String, methodName: String)(block: MethodStructure[E]=>Unit): Unit
+  def iterateCountingTable(tableVar: String, keyVar: String, countVar: String)(block: MethodStructure[E]=>Unit): Unit
+  def declareCount(name: String): Unit
+  def incrementCount(name: String): Unit
+  def allocateSortTable(tableVar: String, tableType: SortTableDescriptor, limit: Option[E]): Unit
+  def sortTableAdd(tableVar: String, tableType: SortTableDescriptor, keys: Seq[E], value: E): Unit
+  def sortTableIterate(tableVar: String, tableType: SortTableDescriptor, localMap: Map[String, String])(block: MethodStructure[E]=>Unit): Unit
   def coerceToBoolean(propertyExpression: E): E
 
   // expressions
@@ -89,6 +100,8 @@ trait MethodStructure[E] {
 
   def castToCollection(value: E): E
 
+  def asTraversable(value: E): E
+
   def loadVariable(varName: String): E
 
   // arithmetic
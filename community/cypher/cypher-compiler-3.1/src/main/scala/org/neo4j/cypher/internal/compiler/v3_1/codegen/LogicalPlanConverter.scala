@@ -23,8 +23,9 @@ import org.neo4j.cypher.internal.compiler.v3_1.codegen.ir._
 import org.neo4j.cypher.internal.compiler.v3_1.codegen.ir.expressions._
 import org.neo4j.cypher.internal.compiler.v3_1.commands.{ManyQueryExpression, QueryExpression, RangeQueryExpression, SingleQueryExpression}
 import org.neo4j.cypher.internal.compiler.v3_1.planner.CantCompileQueryException
-import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans
 import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans._
+import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.{Ascending, Descending, plans}
+import org.neo4j.cypher.internal.frontend.v3_1.Foldable._
 import org.neo4j.cypher.internal.frontend.v3_1.ast.Expression
 import org.neo4j.cypher.internal.frontend.v3_1.helpers.Eagerly
 import org.neo4j.cypher.internal.frontend.v3_1.{InternalException, ast, symbols}
@@ -45,6 +46,9 @@ object LogicalPlanConverter {
     case p: plans.Limit => limitAsCodeGenPlan(p)
     case p: ProduceResult => produceResultsAsCodeGenPlan(p)
     case p: plans.Projection => projectionAsCodeGenPlan(p)
+    case p: Aggregation => aggregationAsCodeGenPlan(p)
+    case p: Sort => sortAsCodeGenPlan(p)
+    case p: UnwindCollection => unwindAsCodeGenPlan(p)
 
     case _ =>
       throw new CantCompileQueryException(s"$logicalPlan is not yet supported")
@@ -415,10 +419,19 @@ object LogicalPlanConverter {
     }
   }
 
-  private def limitAsCodeGenPlan(limit: plans.Limit) = new CodeGenPlan with SingleChildPlan {
+  private def limitAsCodeGenPlan(limit: plans.Limit) = new CodeGenPlan {
 
     override val logicalPlan: LogicalPlan = limit
 
+    override def produce(context: CodeGenContext): (Option[JoinTableMethod], Seq[Instruction]) = {
+      context.pushParent(this)
+      limit match {
+        // only keep the rows that can make it past the limit while sorting
+        case plans.Limit(sort: Sort, count, DoNotIncludeTies) => sortAsCodeGenPlan(sort, Some(count)).produce(context)
+        case _ => asCodeGenPlan(limit.left).produce(context)
+      }
+    }
+
     override def consume(context: CodeGenContext, child: CodeGenPlan): (Option[JoinTableMethod], Instruction) = {
       val opName = context.registerOperator(limit)
       val count = ExpressionConverter.createExpression(limit.count)(context)
@@ -431,6 +444,142 @@ object LogicalPlanConverter {
     }
   }
 
+  private def unwindAsCodeGenPlan(unwind: UnwindCollection) = new CodeGenPlan with SingleChildPlan {
+
+    override val logicalPlan: LogicalPlan = unwind
+
+    override def consume(context: CodeGenContext, child: CodeGenPlan): (Option[JoinTableMethod], Instruction) = {
+      val variableName = unwind.variable.name
+      // the elements are not stored as primitive ids, so they can not be used where nodes or relationships are expected
+      val unwound = ast.Variable(variableName)(unwind.expression.position)
+      val semanticTable = context.semanticTable
+      if (semanticTable.seen(unwound) && (semanticTable.isNode(unwound) || semanticTable.isRelationship(unwound)))
+        throw new CantCompileQueryException(s"Unwinding nodes or relationships is not yet supported")
+
+      val opName = context.registerOperator(unwind)
+      val expression = ExpressionConverter.createProjection(unwind.expression)(context)
+      val variable = Variable(context.namer.newVarName(), CodeGenType(symbols.CTAny, ReferenceType), nullable = true)
+      context.addVariable(variableName, variable)
+
+      val (methodHandle, action) = context.popParent().consume(context, this)
+
+      (methodHandle, UnwindInstruction(opName, variable, expression, action))
+    }
+  }
+
+  /*
+   * Aggregation and sort need to see all rows before they can produce any. The instructions of the plan below them
+   * fill a table, and the instructions of the plans above them run when iterating over that table afterwards.
+   */
+  private def aggregationAsCodeGenPlan(aggregation: Aggregation) = new CodeGenPlan {
+
+    override val logicalPlan: LogicalPlan = aggregation
+
+    private var countVar: Variable = _
+    private var tableVar: String = _
+    private var groupingVariable: Option[(String, Variable)] = None
+
+    override def produce(context: CodeGenContext): (Option[JoinTableMethod], Seq[Instruction]) = {
+      failOnNestedLimit(aggregation)
+      val opName = context.registerOperator(aggregation)
+      countVar = Variable(context.namer.newVarName(), CodeGenType.primitiveInt)
+      tableVar = context.namer.newVarName()
+
+      context.pushParent(this)
+      val (_, source) = asCodeGenPlan(aggregation.left).produce(context)
+
+      val (countColumn, _) = aggregation.aggregationExpression.head
+      context.addVariable(countColumn, countVar)
+      groupingVariable match {
+        case None =>
+          val (methodHandle, action) = context.popParent().consume(context, this)
+          (methodHandle, Seq(CountRows(opName, countVar, source, action)))
+
+        case Some((column, incoming)) =>
+          val keyVar = Variable(context.namer.newVarName(), incoming.codeGenType)
+          context.addVariable(column, keyVar)
+          val (methodHandle, action) = context.popParent().consume(context, this)
+          (methodHandle, Seq(CountRowsPerKey(opName, tableVar, keyVar, countVar, source, action)))
+      }
+    }
+
+    override def consume(context: CodeGenContext, child: CodeGenPlan): (Option[JoinTableMethod], Instruction) = {
+      val opName = context.registerOperator(aggregation)
+      def nonNullable(name: String) =
+        context.variableQueryVariables().contains(name) && !context.getVariable(name).nullable
+
+      // only count(*), or counting a variable that is never null, is supported
+      aggregation.aggregationExpression.toSeq match {
+        case Seq((_, _: ast.CountStar)) =>
+        case Seq((_, f@ast.FunctionInvocation(_, false, IndexedSeq(ast.Variable(name)))))
+          if f.function.contains(ast.functions.Count) && nonNullable(name) =>
+        case _ => throw new CantCompileQueryException(s"Aggregation $aggregation is not yet supported")
+      }
+
+      // grouping is supported on at most one node or relationship
+      groupingVariable = aggregation.groupingExpressions.toSeq match {
+        case Seq() => None
+        case Seq((column, ast.Variable(name))) if nonNullable(name) && isPrimitiveEntity(context.getVariable(name)) =>
+          Some(column -> context.getVariable(name))
+        case _ => throw new CantCompileQueryException(s"Grouping on ${aggregation.groupingExpressions} is not yet supported")
+      }
+
+      groupingVariable match {
+        case None => (None, IncrementCount(opName, countVar))
+        case Some((_, incoming)) => (None, IncrementCountForKey(opName, tableVar, incoming))
+      }
+    }
+  }
+
+  private def sortAsCodeGenPlan(sort: Sort, limit: Option[Expression] = None) = new CodeGenPlan {
+
+    override val logicalPlan: LogicalPlan = sort
+
+    private var sortTable: BuildSortTable = _
+
+    override def produce(context: CodeGenContext): (Option[JoinTableMethod], Seq[Instruction]) = {
+      failOnNestedLimit(sort)
+      context.pushParent(this)
+      val (_, source) = asCodeGenPlan(sort.left).produce(context)
+
+      val opName = context.registerOperator(sort)
+      val sortTableInfo = sortTable.sortTableInfo
+      sortTableInfo.fieldToVariableInfo.values.foreach(info => context.addVariable(info.variable, info.outgoing))
+      val limitExpression = limit.map(ExpressionConverter.createExpression(_)(context))
+      val (methodHandle, action) = context.popParent().consume(context, this)
+
+      (methodHandle, Seq(GetSortedResult(opName, sortTableInfo, limitExpression, source, action)))
+    }
+
+    override def consume(context: CodeGenContext, child: CodeGenPlan): (Option[JoinTableMethod], Instruction) = {
+      val opName = context.registerOperator(sort)
+      val columns = sort.left.availableSymbols.map(_.name) intersect context.variableQueryVariables()
+      val sortKeys = sort.sortItems.map {
+        case Ascending(id) => SortKey(id.name, ascending = true)
+        case Descending(id) => SortKey(id.name, ascending = false)
+      }
+      sortKeys.foreach {
+        case SortKey(name, _) if !columns.contains(name) || isPrimitiveEntity(context.getVariable(name)) =>
+          throw new CantCompileQueryException(s"Sorting on $name is not yet supported")
+        case _ =>
+      }
+
+      sortTable = BuildSortTable(opName, context.namer.newVarName(),
+                                 columns.map(c => c -> context.getVariable(c)).toMap, sortKeys)(context)
+      (None, sortTable)
+    }
+  }
+
+  // a limit below a table building plan would end the whole query instead of only the input to the table
+  private def failOnNestedLimit(plan: LogicalPlan) =
+    if (plan.lhs.get.exists { case _: plans.Limit => true })
+      throw new CantCompileQueryException(s"Limit below ${plan.getClass.getSimpleName} is not yet supported")
+
+  private def isPrimitiveEntity(variable: Variable) = variable.codeGenType match {
+    case CodeGenType(symbols.CTNode, IntType) | CodeGenType(symbols.CTRelationship, IntType) => true
+    case _ => false
+  }
+
   trait SingleChildPlan extends CodeGenPlan {
 
     final override def produce(context: CodeGenContext): (Option[JoinTableMethod], Seq[Instruction]) = {
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.codegen.ir
+
+import org.neo4j.cypher.internal.compiler.v3_1.codegen._
+
+case class BuildSortTable(opName: String, tableName: String, columnVariables: Map[String, Variable],
+                          sortKeys: Seq[SortKey])(implicit context: CodeGenContext)
+  extends Instruction {
+
+  override def body[E](generator: MethodStructure[E])(implicit ignored: CodeGenContext): Unit = {
+    val value = generator.newTableValue(context.namer.newVarName(), tableDescriptor.structure)
+    fieldToVariableInfo.foreach {
+      case (fieldName, info) =>
+        generator.putField(tableDescriptor.structure, value, info.incoming.codeGenType, fieldName, info.incoming.name)
+    }
+    val keys = sortKeys.map { key =>
+      val variable = columnVariables(key.queryVariable)
+      generator.box(generator.loadVariable(variable.name), variable.codeGenType)
+    }
+    generator.sortTableAdd(tableName, tableDescriptor, keys, value)
+  }
+
+  override protected def operatorId = Set(opName)
+
+  override protected def children = Seq.empty
+
+  private val fieldToVariableInfo = columnVariables.map {
+    case (queryVariable, incoming) =>
+      (context.namer.newVarName(), VariableData(queryVariable, incoming, incoming.copy(name = context.namer.newVarName())))
+  }
+
+  private val outgoingVariableNameToFieldName = fieldToVariableInfo.map {
+    case (fieldName, info) => info.outgoing.name -> fieldName
+  }
+
+  val tableDescriptor = SortTableDescriptor(fieldToVariableInfo.map {
+    case (fieldName, info) => fieldName -> info.outgoing.codeGenType
+  }, sortKeys.map(_.ascending))
+
+  val sortTableInfo = SortTableInfo(tableName, fieldToVariableInfo, outgoingVariableNameToFieldName, tableDescriptor)
+}
+
+case class SortKey(queryVariable: String, ascending: Boolean)
+
+case class SortTableInfo(tableVar: String, fieldToVariableInfo: Map[String, VariableData],
+                         outgoingVariableNameToFieldName: Map[String, String], tableDescriptor: SortTableDescriptor)
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.codegen.ir
+
+import org.neo4j.cypher.internal.compiler.v3_1.codegen.{CodeGenContext, LongToCountTable, MethodStructure, Variable}
+
+/**
+  * Counts all rows produced by the source instructions and feeds the single resulting row to the action.
+  */
+case class CountRows(opName: String, countVar: Variable, source: Seq[Instruction], action: Instruction)
+  extends Instruction {
+
+  override def body[E](generator: MethodStructure[E])(implicit context: CodeGenContext) = {
+    generator.declareCount(countVar.name)
+    source.foreach(_.body(generator))
+    generator.trace(opName) { body =>
+      body.incrementRows()
+      action.body(body)
+    }
+  }
+
+  override protected def children = source :+ action
+
+  override protected def operatorId = Set(opName)
+}
+
+case class IncrementCount(opName: String, countVar: Variable) extends Instruction {
+
+  override def body[E](generator: MethodStructure[E])(implicit context: CodeGenContext) =
+    generator.incrementCount(countVar.name)
+
+  override protected def children = Seq.empty
+
+  override protected def operatorId = Set(opName)
+}
+
+/**
+  * Counts the rows produced by the source instructions per grouping node or relationship, and feeds one row per
+  * group to the action.
+  */
+case class CountRowsPerKey(opName: String, tableVar: String, keyVar: Variable, countVar: Variable,
+                           source: Seq[Instruction], action: Instruction) extends Instruction {
+
+  override def body[E](generator: MethodStructure[E])(implicit context: CodeGenContext) = {
+    generator.allocateProbeTable(tableVar, LongToCountTable)
+    source.foreach(_.body(generator))
+    generator.trace(opName) { body =>
+      body.iterateCountingTable(tableVar, keyVar.name, countVar.name) { loopBody =>
+        loopBody.incrementRows()
+        action.body(loopBody)
+      }
+    }
+  }
+
+  override protected def children = source :+ action
+
+  override protected def operatorId = Set(opName)
+}
+
+case class IncrementCountForKey(opName: String, tableVar: String, keyVar: Variable) extends Instruction {
+
+  override def body[E](generator: MethodStructure[E])(implicit context: CodeGenContext) =
+    generator.updateProbeTableCount(tableVar, LongToCountTable, Seq(keyVar.name))
+
+  override protected def children = Seq.empty
+
+  override protected def operatorId = Set(opName)
+}
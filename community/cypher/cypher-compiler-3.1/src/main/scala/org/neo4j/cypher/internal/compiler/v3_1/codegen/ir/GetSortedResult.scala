@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.codegen.ir
+
+import org.neo4j.cypher.internal.compiler.v3_1.codegen.ir.expressions.CodeGenExpression
+import org.neo4j.cypher.internal.compiler.v3_1.codegen.{CodeGenContext, MethodStructure}
+
+/**
+  * Fills the sort table by running the instructions of the sorted plan, then feeds the sorted rows to the action.
+  * When a limit is given only that many rows are kept in the table.
+  */
+case class GetSortedResult(opName: String, sortTableInfo: SortTableInfo, limit: Option[CodeGenExpression],
+                           source: Seq[Instruction], action: Instruction) extends Instruction {
+
+  override def init[E](generator: MethodStructure[E])(implicit context: CodeGenContext) = {
+    limit.foreach(_.init(generator))
+    super.init(generator)
+  }
+
+  override def body[E](generator: MethodStructure[E])(implicit context: CodeGenContext) = {
+    generator.allocateSortTable(sortTableInfo.tableVar, sortTableInfo.tableDescriptor,
+                                limit.map(e => generator.box(e.generateExpression(generator), e.codeGenType)))
+    source.foreach(_.body(generator))
+    generator.trace(opName) { body =>
+      body.sortTableIterate(sortTableInfo.tableVar, sortTableInfo.tableDescriptor,
+                            sortTableInfo.outgoingVariableNameToFieldName) { loopBody =>
+        loopBody.incrementRows()
+        action.body(loopBody)
+      }
+    }
+  }
+
+  override protected def children = source :+ action
+
+  override protected def operatorId = Set(opName)
+}
@@ -24,7 +24,7 @@ import org.neo4j.cypher.internal.compiler.v3_1.codegen.ir.functions.functionConv
 import org.neo4j.cypher.internal.compiler.v3_1.codegen.{CodeGenContext, MethodStructure}
 import org.neo4j.cypher.internal.compiler.v3_1.planner.CantCompileQueryException
 import org.neo4j.cypher.internal.frontend.v3_1.symbols.{CTBoolean, CTNode, CTRelationship}
-import org.neo4j.cypher.internal.frontend.v3_1.{InternalException, ast}
+import org.neo4j.cypher.internal.frontend.v3_1.ast
 
 object ExpressionConverter {
 
@@ -93,10 +93,10 @@ object ExpressionConverter {
 
     val variable = context.getVariable(variableQueryVariable)
 
-    variable.codeGenType.ct match {
-      case CTNode => NodeProjection(variable)
-      case CTRelationship => RelationshipProjection(variable)
-      case _ => throw new InternalException("The compiled runtime only handles variables pointing to rels and nodes at this time")
+    variable.codeGenType match {
+      case CodeGenType(CTNode, IntType) => NodeProjection(variable)
+      case CodeGenType(CTRelationship, IntType) => RelationshipProjection(variable)
+      case _ => LoadVariable(variable)
     }
   }
 
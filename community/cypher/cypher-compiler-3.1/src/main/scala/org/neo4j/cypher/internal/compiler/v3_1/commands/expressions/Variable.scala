@@ -21,14 +21,17 @@ package org.neo4j.cypher.internal.compiler.v3_1.commands.expressions
 
 import org.neo4j.cypher.internal.compiler.v3_1._
 import org.neo4j.cypher.internal.compiler.v3_1.pipes.QueryState
+import org.neo4j.cypher.internal.compiler.v3_1.slotted.SlotLookup
 import org.neo4j.cypher.internal.compiler.v3_1.symbols.{SymbolTable, Typed}
 import org.neo4j.cypher.internal.frontend.v3_1.symbols._
 import org.neo4j.graphdb.NotFoundException
 
 case class Variable(entityName: String) extends Expression with Typed {
 
+  private val lookup = new SlotLookup(entityName)
+
   def apply(ctx: ExecutionContext)(implicit state: QueryState): Any =
-    ctx.getOrElse(entityName, throw new NotFoundException("Unknown variable `%s`.".format(entityName)))
+    lookup.getOrElse(ctx, throw new NotFoundException("Unknown variable `%s`.".format(entityName)))
 
   override def toString: String = entityName
 
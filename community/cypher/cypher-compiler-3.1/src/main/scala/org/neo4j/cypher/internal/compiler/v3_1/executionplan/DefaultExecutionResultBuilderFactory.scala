@@ -19,15 +19,23 @@
  */
 package org.neo4j.cypher.internal.compiler.v3_1.executionplan
 
+import java.io.File
+
 import org.neo4j.cypher.internal.compiler.v3_1.pipes._
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.QueryMemoryTracker
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription
+import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription.Arguments
+import org.neo4j.cypher.internal.compiler.v3_1.slotted.SlotConfiguration
 import org.neo4j.cypher.internal.compiler.v3_1.spi.{CSVResources, QueryContext}
-import org.neo4j.cypher.internal.compiler.v3_1.{ExecutionMode, ExplainMode, _}
+import org.neo4j.cypher.internal.compiler.v3_1.{ExecutionMode, ExplainMode, ProfileMode, _}
 import org.neo4j.cypher.internal.frontend.v3_1.CypherException
 
 import scala.collection.mutable
 
-case class DefaultExecutionResultBuilderFactory(pipeInfo: PipeInfo, columns: List[String], publicTypeConverter: Any => Any) extends ExecutionResultBuilderFactory {
+case class DefaultExecutionResultBuilderFactory(pipeInfo: PipeInfo, columns: List[String], publicTypeConverter: Any => Any,
+                                                slots: Option[SlotConfiguration] = None,
+                                                queryMemoryBudget: Long = 0L,
+                                                spillDirectory: Option[File] = None) extends ExecutionResultBuilderFactory {
   def create(): ExecutionResultBuilder =
     ExecutionWorkflowBuilder()
 
@@ -58,9 +66,11 @@ case class DefaultExecutionResultBuilderFactory(pipeInfo: PipeInfo, columns: Lis
 
     def build(queryId: AnyRef, planType: ExecutionMode, params: Map[String, Any], notificationLogger: InternalNotificationLogger): InternalExecutionResult = {
       taskCloser.addTask(queryContext.transactionalContext.close)
+      val memory = QueryMemoryTracker(queryMemoryBudget, pipeInfo.updating, spillDirectory)
+      taskCloser.addTask(_ => memory.close())
       val state = new QueryState(queryContext, externalResource, params, pipeDecorator, queryId = queryId,
                                  triadicState = mutable.Map.empty, repeatableReads = mutable.Map.empty,
-                                 publicTypeConverter = publicTypeConverter)
+                                 publicTypeConverter = publicTypeConverter, slots = slots, memory = memory)
       try {
         try {
           createResults(state, planType, notificationLogger)
@@ -95,7 +105,9 @@ case class DefaultExecutionResultBuilderFactory(pipeInfo: PipeInfo, columns: Lis
       } else {
         val results = pipeInfo.pipe.createResults(state)
         val resultIterator = buildResultIterator(results, pipeInfo.updating)
-        val descriptor = buildDescriptor(pipeInfo.pipe, resultIterator.wasMaterialized)
+        val descriptor =
+          if (planType == ProfileMode) buildProfileDescriptor(pipeInfo.pipe, state.memory, resultIterator.wasMaterialized)
+          else buildDescriptor(pipeInfo.pipe, resultIterator.wasMaterialized)
         new PipeExecutionResult(resultIterator, columns, state, descriptor, planType, queryType)
       }
     }
@@ -110,5 +122,12 @@ case class DefaultExecutionResultBuilderFactory(pipeInfo: PipeInfo, columns: Lis
 
     private def buildDescriptor(pipe: Pipe, isProfileReady: => Boolean): () => InternalPlanDescription =
       () => pipeDecorator.decorate(pipe.planDescription, isProfileReady)
+
+    private def buildProfileDescriptor(pipe: Pipe, memory: QueryMemoryTracker, isProfileReady: => Boolean): () => InternalPlanDescription =
+      () => pipeDecorator.decorate(pipe.planDescription, isProfileReady) map {
+        plan =>
+          val spilled = memory.spilledBytes(plan.id)
+          if (spilled > 0) plan.addArgument(Arguments.SpilledBytes(spilled)) else plan
+      }
   }
 }
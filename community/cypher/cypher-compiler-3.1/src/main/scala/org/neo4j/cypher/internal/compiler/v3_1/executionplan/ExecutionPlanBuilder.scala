@@ -31,6 +31,7 @@ import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescr
 import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans.LogicalPlan
 import org.neo4j.cypher.internal.compiler.v3_1.planner.{CantCompileQueryException, CantHandleQueryException}
 import org.neo4j.cypher.internal.compiler.v3_1.profiler.Profiler
+import org.neo4j.cypher.internal.compiler.v3_1.slotted.SlotConfiguration
 import org.neo4j.cypher.internal.compiler.v3_1.spi._
 import org.neo4j.cypher.internal.compiler.v3_1.{ExecutionMode, ProfileMode, _}
 import org.neo4j.cypher.internal.frontend.v3_1.PeriodicCommitInOpenTransactionException
@@ -110,10 +111,14 @@ object InterpretedExecutionPlanBuilder {
   def interpretedToExecutionPlan(pipeInfo: PipeInfo, planContext: PlanContext, inputQuery: PreparedQuerySemantics,
                                  createFingerprintReference:Option[PlanFingerprint]=>PlanFingerprintReference,
                                  config: CypherCompilerConfiguration,
-                                 publicTypeConverter: Any => Any) = {
+                                 publicTypeConverter: Any => Any,
+                                 slots: Option[SlotConfiguration] = None,
+                                 runtimeName: RuntimeName = InterpretedRuntimeName) = {
     val PipeInfo(pipe, updating, periodicCommitInfo, fp, planner) = pipeInfo
     val columns = inputQuery.statement.returnColumns
-    val resultBuilderFactory = new DefaultExecutionResultBuilderFactory(pipeInfo, columns, publicTypeConverter = publicTypeConverter)
+    val resultBuilderFactory = new DefaultExecutionResultBuilderFactory(pipeInfo, columns, publicTypeConverter = publicTypeConverter, slots = slots,
+                                                                queryMemoryBudget = config.queryMemoryBudget,
+                                                                spillDirectory = config.spillDirectory)
     val func = getExecutionPlanFunction(periodicCommitInfo, inputQuery.queryText, updating, resultBuilderFactory, inputQuery
       .notificationLogger)
     new ExecutionPlan {
@@ -126,7 +131,7 @@ object InterpretedExecutionPlanBuilder {
       override def plannerUsed = planner
       override def isStale(lastTxId: () => Long, statistics: GraphStatistics) = fingerprint.isStale(lastTxId, statistics)
 
-      override def runtimeUsed = InterpretedRuntimeName
+      override def runtimeUsed = runtimeName
 
       override def notifications(planContext: PlanContext) = checkForNotifications(pipe, planContext, config)
     }
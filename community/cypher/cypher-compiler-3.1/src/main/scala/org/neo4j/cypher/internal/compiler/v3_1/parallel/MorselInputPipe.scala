@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.parallel
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.executionplan.Effects
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.{Pipe, PipeMonitor, QueryState}
+import org.neo4j.cypher.internal.frontend.v3_1.InternalException
+
+/**
+ * Takes the place of the leaf of a pipeline that is run by a ParallelPipe. Instead of reading from the graph it
+ * produces the rows of the morsels handed to the worker running it. It describes itself as the leaf it replaces.
+ */
+case class MorselInputPipe(leaf: Pipe)(implicit pipeMonitor: PipeMonitor) extends Pipe {
+
+  protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] =
+    state.morselInput.getOrElse(throw new InternalException("Morsel input is only available below a parallel pipe"))
+
+  def exists(predicate: Pipe => Boolean): Boolean = predicate(this) || leaf.exists(predicate)
+
+  def planDescription = leaf.planDescription
+
+  def symbols = leaf.symbols
+
+  override def monitor = pipeMonitor
+
+  override def localEffects: Effects = leaf.localEffects
+
+  def dup(sources: List[Pipe]): Pipe = {
+    require(sources.isEmpty)
+    this
+  }
+
+  def sources: Seq[Pipe] = Seq.empty
+}
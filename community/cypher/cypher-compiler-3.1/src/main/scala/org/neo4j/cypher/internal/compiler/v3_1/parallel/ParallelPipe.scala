@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.parallel
+
+import java.util.concurrent._
+import java.util.concurrent.atomic.AtomicLong
+import java.util.function.Supplier
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.executionplan.Effects
+import org.neo4j.cypher.internal.compiler.v3_1.pipes._
+import org.neo4j.cypher.internal.compiler.v3_1.spi.QueryContext
+import org.neo4j.graphdb.TransactionTerminatedException
+
+import scala.collection.mutable
+
+/**
+ * Runs a pipeline on several threads at once. Every worker runs the pipeline, whose leaf is a MorselInputPipe, over
+ * all the morsels it manages to take, in a transaction of its own. Scans of all nodes are split into ranges of node
+ * ids of the size of a morsel, which the workers read themselves. The rows of any other leaf, label scans included,
+ * are read on the calling thread and handed out to the workers in morsels of consecutive rows. The rows of all workers
+ * are returned together once the leaf is exhausted, so the pipeline is expected to end in an operator that reduces
+ * its input, and the pipe above to merge the partial results.
+ *
+ * The pipeline runs on the calling thread instead when profiling, or when the transaction has changes of its own that
+ * the transactions of the workers would not see.
+ */
+case class ParallelPipe(source: Pipe, leaf: Pipe, parallelism: Int, morselSize: Int)
+                       (val estimatedCardinality: Option[Double] = None)(implicit pipeMonitor: PipeMonitor)
+  extends Pipe with RonjaPipe {
+
+  protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] =
+    state.query.workerContextFactory match {
+      case Some(newContext) if parallelism > 1 && state.decorator == NullPipeDecorator =>
+        val dispatcher = new MorselDispatcher(source, state, newContext, parallelism)
+        leaf match {
+          case scan: NodeIdRangeScan => dispatcher.runOnIdRanges(scan, state.query.nodeHighId, morselSize)
+          case _ => dispatcher.run(leaf.createResults(state).grouped(morselSize))
+        }
+
+      case _ =>
+        source.createResults(state.withMorselInput(leaf.createResults(state)))
+    }
+
+  def exists(predicate: Pipe => Boolean): Boolean = predicate(this) || source.exists(predicate)
+
+  def planDescriptionWithoutCardinality = source.planDescription.andThen(this.id, "Parallel", variables)
+
+  def symbols = source.symbols
+
+  override def monitor = pipeMonitor
+
+  override def localEffects = Effects()
+
+  override def effects = source.effects
+
+  def dup(sources: List[Pipe]): Pipe = {
+    val (head :: Nil) = sources
+    copy(source = head)(estimatedCardinality)
+  }
+
+  def sources: Seq[Pipe] = Seq(source)
+
+  def withEstimatedCardinality(estimated: Double) = copy()(Some(estimated))
+}
+
+object ParallelPipe {
+  // Workers block while they wait for morsels, so they are kept off the common pool
+  lazy val pool = new ForkJoinPool(Runtime.getRuntime.availableProcessors())
+
+  // How long the calling thread and the workers wait at a time, before they check whether they should stop
+  val pollMillis = 10L
+}
+
+/*
+ * Runs the workers of one execution of a parallel pipeline. The calling thread never waits on the workers for more
+ * than a poll at a time, so that it notices when its own transaction is terminated, or a worker fails. The workers
+ * are then stopped, and their transactions terminated, before the failure is rethrown.
+ */
+private class MorselDispatcher(pipeline: Pipe, state: QueryState, newContext: () => QueryContext, parallelism: Int) {
+
+  import ParallelPipe.pollMillis
+
+  // The contexts of the workers that are running; guarded by this
+  private val running = mutable.Set[QueryContext]()
+  @volatile private var stopped = false
+
+  /*
+   * Every worker reads the ranges of node ids it takes itself.
+   */
+  def runOnIdRanges(scan: NodeIdRangeScan, highId: Long, rangeSize: Int): Iterator[ExecutionContext] = {
+    val nextRange = new AtomicLong()
+    execute { workerState =>
+      Iterator.continually(nextRange.getAndAdd(rangeSize)).takeWhile(from => from < highId && !stopped).flatMap {
+        from => scan.createResultsInIdRange(workerState, from, math.min(from + rangeSize, highId))
+      }
+    } { _ => }
+  }
+
+  /*
+   * The leaf is read on the calling thread. The queue is bounded so that the leaf is never read far ahead of the
+   * workers; an empty morsel tells a worker that the input is exhausted.
+   */
+  def run(morsels: Iterator[Seq[ExecutionContext]]): Iterator[ExecutionContext] = {
+    val queue = new ArrayBlockingQueue[Seq[ExecutionContext]](parallelism * 2)
+    execute { _ =>
+      Iterator.continually(take(queue)).takeWhile(_.nonEmpty).flatten
+    } { workers =>
+      morsels.foreach(hand(queue, _, workers))
+      workers.foreach(_ => hand(queue, Seq.empty, workers))
+    }
+  }
+
+  private def execute(input: QueryState => Iterator[ExecutionContext])
+                     (feed: Seq[CompletableFuture[Seq[ExecutionContext]]] => Unit): Iterator[ExecutionContext] = {
+    val workers = (1 to parallelism).map(_ => CompletableFuture.supplyAsync(newWorker(input), ParallelPipe.pool))
+    try {
+      feed(workers)
+      workers.flatMap(await(_, workers)).iterator
+    } catch {
+      case e: Throwable =>
+        // None of the results of the workers will be used
+        stop()
+        throw e
+    }
+  }
+
+  private def newWorker(input: QueryState => Iterator[ExecutionContext]) = new Supplier[Seq[ExecutionContext]] {
+    override def get(): Seq[ExecutionContext] = {
+      val query = newContext()
+      started(query)
+      var success = false
+      try {
+        val workerState = state.forWorker(query)
+        val result = pipeline.createResults(workerState.withMorselInput(input(workerState))).toIndexedSeq
+        success = true
+        result
+      } finally {
+        finished(query)
+        query.transactionalContext.close(success)
+      }
+    }
+  }
+
+  private def started(query: QueryContext): Unit = synchronized {
+    running += query
+    if (stopped)
+      query.transactionalContext.terminate()
+  }
+
+  private def finished(query: QueryContext): Unit = synchronized {
+    running -= query
+  }
+
+  private def stop(): Unit = synchronized {
+    stopped = true
+    running.foreach(_.transactionalContext.terminate())
+  }
+
+  private def take(queue: BlockingQueue[Seq[ExecutionContext]]): Seq[ExecutionContext] = {
+    var morsel = queue.poll(pollMillis, TimeUnit.MILLISECONDS)
+    while (morsel == null && !stopped)
+      morsel = queue.poll(pollMillis, TimeUnit.MILLISECONDS)
+    if (morsel == null) Seq.empty else morsel
+  }
+
+  private def hand(queue: BlockingQueue[Seq[ExecutionContext]], morsel: Seq[ExecutionContext],
+                   workers: Seq[CompletableFuture[Seq[ExecutionContext]]]) =
+    while (!queue.offer(morsel, pollMillis, TimeUnit.MILLISECONDS)) {
+      assertNotTerminated()
+      // a worker only finishes before the end of the input when it fails, so this rethrows its failure
+      workers.filter(_.isDone).foreach(await(_, workers))
+    }
+
+  private def await(worker: Future[Seq[ExecutionContext]],
+                    workers: Seq[CompletableFuture[Seq[ExecutionContext]]]): Seq[ExecutionContext] = {
+    var result: Seq[ExecutionContext] = null
+    while (result == null) {
+      try {
+        result = worker.get(pollMillis, TimeUnit.MILLISECONDS)
+      } catch {
+        case _: TimeoutException =>
+          assertNotTerminated()
+          workers.find(_.isCompletedExceptionally).foreach(failed => await(failed, workers))
+        case e: ExecutionException =>
+          throw e.getCause
+      }
+    }
+    result
+  }
+
+  private def assertNotTerminated(): Unit =
+    if (state.query.transactionalContext.isTerminated)
+      throw new TransactionTerminatedException()
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.parallel
+
+import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions._
+import org.neo4j.cypher.internal.compiler.v3_1.pipes._
+
+/**
+ * Rewrites a read-only pipe tree so that its scans run on several threads. A chain of streaming pipes over a node
+ * scan is run by a ParallelPipe where it feeds an operator that reduces rows: an aggregation of counts, sums, minimums
+ * or maximums, a distinct or a top. The operator is also applied on every worker, so that only its partial results
+ * are held until the workers are done, and merged on the calling thread. Sorts are not run in parallel, since the
+ * workers would have to hold every row they read.
+ */
+object ParallelPipes {
+
+  val defaultMorselSize = 10000
+
+  def rewrite(pipe: Pipe, parallelism: Int = Runtime.getRuntime.availableProcessors(),
+              morselSize: Int = defaultMorselSize): Pipe = {
+
+    def parallel(pipeline: Pipe): Pipe = {
+      val leaf = leafOf(pipeline)
+      ParallelPipe(withMorselInput(pipeline), leaf, parallelism, morselSize)()(pipeline.monitor)
+    }
+
+    def visit(current: Pipe): Pipe = current match {
+      case p: EagerAggregationPipe if isScanPipeline(p.source) && mergeable(p.aggregations) =>
+        val merging = p.aggregations.map {
+          case (name, aggregation) => name -> mergeAggregation(aggregation, Variable(name))
+        }
+        EagerAggregationPipe(parallel(p), p.keyExpressions, merging)(p.estimatedCardinality)(p.monitor)
+
+      case p: DistinctPipe if isScanPipeline(p.source) =>
+        val merging: Map[String, Expression] = p.expressions.map { case (name, _) => name -> Variable(name) }
+        DistinctPipe(parallel(p), merging)(p.estimatedCardinality)(p.monitor)
+
+      case p: TopPipe if isScanPipeline(p.sources.head) =>
+        p.dup(List(parallel(p)))
+
+      case _ =>
+        val sources = current.sources.map(visit)
+        if (sources.corresponds(current.sources)(_ eq _)) current else current.dup(sources.toList)
+    }
+
+    if (parallelism > 1) visit(pipe) else pipe
+  }
+
+  private def isScanPipeline(pipe: Pipe): Boolean = pipe match {
+    case _: AllNodesScanPipe | _: NodeByLabelScanPipe | _: NodeIndexScanPipe =>
+      true
+
+    case _: FilterPipe | _: ProjectionPipe | _: ExpandAllPipe | _: ExpandIntoPipe | _: OptionalExpandAllPipe |
+         _: OptionalExpandIntoPipe | _: VarLengthExpandPipe | _: UnwindPipe =>
+      isScanPipeline(pipe.sources.head)
+
+    case _ =>
+      false
+  }
+
+  private def leafOf(pipe: Pipe): Pipe =
+    if (pipe.sources.isEmpty) pipe else leafOf(pipe.sources.head)
+
+  private def withMorselInput(pipe: Pipe): Pipe =
+    if (pipe.sources.isEmpty) MorselInputPipe(pipe)(pipe.monitor)
+    else pipe.dup(List(withMorselInput(pipe.sources.head)))
+
+  private def mergeable(aggregations: Map[String, AggregationExpression]) = aggregations.values.forall {
+    case _: Count | _: CountStar | _: Sum | _: Min | _: Max => true
+    case _ => false
+  }
+
+  // The aggregation that combines the partial results of the given aggregation
+  private def mergeAggregation(aggregation: AggregationExpression, partial: Expression): AggregationExpression =
+    aggregation match {
+      case _: Count | _: CountStar | _: Sum => Sum(partial)
+      case _: Min => Min(partial)
+      case _: Max => Max(partial)
+    }
+}
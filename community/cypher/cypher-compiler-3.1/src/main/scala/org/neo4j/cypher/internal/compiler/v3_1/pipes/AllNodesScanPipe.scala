@@ -26,13 +26,18 @@ import org.neo4j.cypher.internal.compiler.v3_1.symbols.SymbolTable
 import org.neo4j.cypher.internal.frontend.v3_1.symbols._
 
 case class AllNodesScanPipe(ident: String)(val estimatedCardinality: Option[Double] = None)
-                           (implicit pipeMonitor: PipeMonitor) extends Pipe with RonjaPipe {
+                           (implicit pipeMonitor: PipeMonitor) extends Pipe with RonjaPipe with NodeIdRangeScan {
 
   protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] = {
-    val baseContext = state.initialContext.getOrElse(ExecutionContext.empty)
+    val baseContext = state.initialContext.getOrElse(state.newExecutionContext())
     state.query.nodeOps.all.map(n => baseContext.newWith1(ident, n))
   }
 
+  def createResultsInIdRange(state: QueryState, fromId: Long, toId: Long): Iterator[ExecutionContext] = {
+    val baseContext = state.initialContext.getOrElse(state.newExecutionContext())
+    state.query.nodesInIdRange(fromId, toId).map(n => baseContext.newWith1(ident, n))
+  }
+
   def exists(predicate: Pipe => Boolean): Boolean = predicate(this)
 
   def planDescriptionWithoutCardinality = PlanDescriptionImpl(this.id, "AllNodesScan", NoChildren, Seq(), variables)
@@ -24,6 +24,7 @@ import org.neo4j.cypher.internal.compiler.v3_1.executionplan.{Effects, ReadsAllN
 import org.neo4j.cypher.internal.compiler.v3_1.helpers.CollectionSupport
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription.Arguments
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.{NoChildren, PlanDescriptionImpl}
+import org.neo4j.cypher.internal.compiler.v3_1.slotted.{SlotLookup, SlottedRow}
 import org.neo4j.cypher.internal.compiler.v3_1.symbols.SymbolTable
 import org.neo4j.cypher.internal.frontend.v3_1.symbols._
 
@@ -33,15 +34,30 @@ case class DirectedRelationshipByIdSeekPipe(ident: String, relIdExpr: SeekArgs,
   extends Pipe
   with CollectionSupport
   with RonjaPipe {
+
+  private val identLookup = new SlotLookup(ident)
+  private val fromLookup = new SlotLookup(fromNode)
+  private val toLookup = new SlotLookup(toNode)
+
   protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] = {
     //register as parent so that stats are associated with this pipe
     state.decorator.registerParentPipe(this)
 
-    val ctx = state.initialContext.getOrElse(ExecutionContext.empty)
+    val ctx = state.initialContext.getOrElse(state.newExecutionContext())
     val relIds = relIdExpr.expressions(ctx, state).flatMap(Option(_))
-    new DirectedRelationshipIdSeekIterator(ident, fromNode, toNode, ctx, state.query.relationshipOps, relIds.iterator)
+    ctx.m match {
+      case slotted: SlottedRow if hasLongSlots(slotted) =>
+        new SlottedRelationshipIdSeekIterator(identLookup.longOffset(slotted), fromLookup.longOffset(slotted),
+                                              toLookup.longOffset(slotted), undirected = false, ctx, slotted,
+                                              state.query.relationshipOps, relIds.iterator)
+      case _ =>
+        new DirectedRelationshipIdSeekIterator(ident, fromNode, toNode, ctx, state.query.relationshipOps, relIds.iterator)
+    }
   }
 
+  private def hasLongSlots(row: SlottedRow) =
+    identLookup.longOffset(row) >= 0 && fromLookup.longOffset(row) >= 0 && toLookup.longOffset(row) >= 0
+
   def exists(predicate: Pipe => Boolean): Boolean = predicate(this)
 
   def planDescriptionWithoutCardinality = new PlanDescriptionImpl(
@@ -51,18 +51,24 @@ case class DistinctPipe(source: Pipe, expressions: Map[String, Expression])(val
      * The filtering is done by extracting from the context the values of all return expressions, and keeping them
      * in a set.
      */
-    var seen = mutable.Set[Equivalent]()
+    if (keyNames.size == 1) {
+      val keyName = keyNames.head
+      val seen = new SingleValueSet
+      result.filter(ctx => seen.add(ctx(keyName)))
+    } else {
+      var seen = mutable.Set[Equivalent]()
 
-    result.filter {
-       case ctx =>
-         val values = Equivalent(keyNames.map(ctx))
+      result.filter {
+         case ctx =>
+           val values = Equivalent(keyNames.map(ctx))
 
-         if (seen.contains(values)) {
-           false
-         } else {
-           seen += values
-           true
-         }
+           if (seen.contains(values)) {
+             false
+           } else {
+             seen += values
+             true
+           }
+      }
     }
   }
 
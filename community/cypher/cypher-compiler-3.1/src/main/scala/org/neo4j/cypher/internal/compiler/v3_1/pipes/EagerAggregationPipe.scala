@@ -23,12 +23,14 @@ import org.neo4j.cypher.internal.compiler.v3_1._
 import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.AggregationExpression
 import org.neo4j.cypher.internal.compiler.v3_1.commands.predicates.Equivalent
 import org.neo4j.cypher.internal.compiler.v3_1.pipes.aggregation.AggregationFunction
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.{QueryMemoryTracker, SpillFile}
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription.Arguments
 import org.neo4j.cypher.internal.frontend.v3_1.symbols._
 import org.neo4j.cypher.internal.compiler.v3_1.symbols.SymbolTable
 
 import scala.collection.GenTraversableOnce
 import scala.collection.mutable.{ArrayBuffer, Map => MutableMap}
+import scala.util.hashing.MurmurHash3
 
 // Eager aggregation means that this pipe will eagerly load the whole resulting sub graphs before starting
 // to emit aggregated results.
@@ -39,6 +41,9 @@ case class EagerAggregationPipe(source: Pipe, keyExpressions: Set[String], aggre
 
   val symbols: SymbolTable = createSymbols()
 
+  // Number of spill files that the rows of groups beyond the memory budget are partitioned into
+  private val SpillPartitions = 16
+
   private def createSymbols() = {
     val keyVariables = keyExpressions.map(id => id -> source.symbols.evaluateType(id, CTAny)).toMap
     val aggrVariables = aggregations.map {
@@ -78,7 +83,7 @@ case class EagerAggregationPipe(source: Pipe, keyExpressions: Set[String], aggre
       //add key values
       keyNamesSize match {
         case 1 =>
-          newMap += keyNames.head -> key.asInstanceOf[Equivalent].originalValue
+          newMap += keyNames.head -> key
         case 2 =>
           val t2 = key.asInstanceOf[(Equivalent, Equivalent)]
           newMap += keyNames.head -> t2._1.originalValue +=
@@ -99,26 +104,105 @@ case class EagerAggregationPipe(source: Pipe, keyExpressions: Set[String], aggre
       ExecutionContext(newMap)
     }
 
-    input.foreach(ctx => {
-      val groupValues: Equals = keyNamesSize match {
-        case 1 => Equivalent(ctx(keyNames.head))
-        case 2 => (Equivalent(ctx(keyNames.head)),Equivalent(ctx(keyNames.last)))
-        case 3 => (Equivalent(ctx(keyNames.head)),Equivalent(ctx(keyNames.tail.head)),Equivalent(ctx(keyNames.last)))
-        case _ => keyNames.map( k => Equivalent(ctx(k)))
-      }
-      val functions = result.getOrElseUpdate(groupValues, {
-        val aggregateFunctions: Seq[AggregationFunction] = aggregations.map(_._2.createAggregationFunction).toSeq
-        aggregateFunctions
+    def createAggregationFunctions(): Seq[AggregationFunction] =
+      aggregations.map(_._2.createAggregationFunction).toSeq
+
+    def heldBytes(functions: Seq[AggregationFunction]): Long = {
+      var bytes = 0L
+      functions.foreach(bytes += _.heldBytes)
+      bytes
+    }
+
+    def groupKey(ctx: ExecutionContext): Equals = keyNamesSize match {
+      case 1 => Equivalent(ctx(keyNames.head))
+      case 2 => (Equivalent(ctx(keyNames.head)),Equivalent(ctx(keyNames.last)))
+      case 3 => (Equivalent(ctx(keyNames.head)),Equivalent(ctx(keyNames.tail.head)),Equivalent(ctx(keyNames.last)))
+      case _ => keyNames.map( k => Equivalent(ctx(k)))
+    }
+
+    // Aggregates the groups that fit in the memory budget of the query on the heap. The rows of groups that do not fit
+    // are partitioned on their key into spill files, which are aggregated one at a time once the input has been read.
+    // State that grows with the input, like that of collect(), DISTINCT or percentiles, is charged as it grows. A group
+    // already kept cannot be spilled half way, so it keeps growing past the budget, but then no new groups are kept.
+    def aggregateWithinBudget(rows: Iterator[ExecutionContext], depth: Int): Iterator[ExecutionContext] = {
+      val memory = state.memory
+      val groups = MutableMap[Equals, Seq[AggregationFunction]]()
+      var groupBytes = 0L
+      var partitions: Array[SpillFile] = null
+
+      rows.foreach(ctx => {
+        val groupValues = groupKey(ctx)
+        var functions = groups.getOrElse(groupValues, null)
+        if (functions == null && partitions == null) {
+          val size = keyNames.foldLeft(64L * (1 + aggregationNames.size)) {
+            (acc, k) => acc + QueryMemoryTracker.estimateSize(ctx(k))
+          }
+          val fits = memory.tryAllocate(size)
+          // The first group is always kept, so that every pass over a partition makes progress
+          if (fits || groups.isEmpty) {
+            if (!fits)
+              memory.allocate(size)
+            functions = createAggregationFunctions()
+            groups(groupValues) = functions
+            groupBytes += size
+          } else
+            partitions = Array.fill(SpillPartitions)(memory.newSpillFile(this, state))
+        }
+        if (functions != null) {
+          val heldBefore = heldBytes(functions)
+          functions.foreach(func => func(ctx)(state))
+          val grown = heldBytes(functions) - heldBefore
+          if (grown > 0) {
+            if (!memory.tryAllocate(grown)) {
+              memory.allocate(grown)
+              if (partitions == null)
+                partitions = Array.fill(SpillPartitions)(memory.newSpillFile(this, state))
+            }
+            groupBytes += grown
+          }
+        } else {
+          val hash = MurmurHash3.finalizeHash(MurmurHash3.mix(depth, groupValues.hashCode()), 1)
+          partitions(hash & (SpillPartitions - 1)).write(ctx)
+        }
       })
-      functions.foreach(func => func(ctx)(state))
-    })
 
-    if (result.isEmpty && keyNames.isEmpty) {
-      createEmptyResult(state.params)
-    } else {
-      result.map {
+      val aggregated = QueryMemoryTracker.releasingAtEnd(groups.iterator.map {
+        case (key, aggregator) =>
+          createResults(if (keyNamesSize == 1) key.asInstanceOf[Equivalent].originalValue else key, aggregator)
+      }, memory, groupBytes)
+
+      if (partitions == null) aggregated
+      else aggregated ++ partitions.iterator.flatMap(partition => aggregateWithinBudget(partition.read(), depth + 1))
+    }
+
+    if (keyNamesSize > 0 && state.memory.isBounded) {
+      aggregateWithinBudget(input, 0)
+    } else if (keyNamesSize == 1) {
+      // A single grouping key is looked up by its value, which for nodes and relationships is their id
+      val keyName = keyNames.head
+      val table = new SingleValueTable[Seq[AggregationFunction]]
+      input.foreach(ctx => {
+        val functions = table.getOrElseUpdate(ctx(keyName), createAggregationFunctions())
+        functions.foreach(func => func(ctx)(state))
+      })
+
+      table.iterator.map {
         case (key, aggregator) => createResults(key, aggregator)
-      }.toIterator
+      }
+    } else {
+      input.foreach(ctx => {
+        val groupValues = groupKey(ctx)
+        val functions = result.getOrElseUpdate(groupValues, createAggregationFunctions())
+        functions.foreach(func => func(ctx)(state))
+      })
+
+      if (result.isEmpty && keyNames.isEmpty) {
+        createEmptyResult(state.params)
+      } else {
+        result.map {
+          case (key, aggregator) => createResults(key, aggregator)
+        }.toIterator
+      }
     }
   }
 
@@ -21,6 +21,7 @@ package org.neo4j.cypher.internal.compiler.v3_1.pipes
 
 import org.neo4j.cypher.internal.compiler.v3_1._
 import org.neo4j.cypher.internal.compiler.v3_1.executionplan.Effects
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.{QueryMemoryTracker, SpillFile}
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription
 import org.neo4j.cypher.internal.compiler.v3_1.symbols.SymbolTable
 
@@ -39,7 +40,33 @@ case class EagerPipe(src: Pipe)(val estimatedCardinality: Option[Double] = None)
   override def planDescription = src.planDescription.andThen(this.id, "Eager", variables)
 
   protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] =
-    input.toVector.toIterator
+    if (state.memory.isBounded) bounded(input, state)
+    else input.toVector.toIterator
+
+  // Keeps rows on the heap while they fit in the memory budget of the query, and writes the rest to a spill file
+  private def bounded(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
+    val memory = state.memory
+    val buffer = Vector.newBuilder[ExecutionContext]
+    var bufferBytes = 0L
+    var spilled: SpillFile = null
+
+    input.foreach { row =>
+      if (spilled == null) {
+        val size = QueryMemoryTracker.estimateSize(row)
+        if (memory.tryAllocate(size)) {
+          buffer += row
+          bufferBytes += size
+        } else
+          spilled = memory.newSpillFile(this, state)
+      }
+      if (spilled != null)
+        spilled.write(row)
+    }
+
+    val rows = buffer.result().iterator
+    val all = if (spilled == null) rows else rows ++ spilled.read()
+    QueryMemoryTracker.releasingAtEnd(all, memory, bufferBytes)
+  }
 
   override def planDescriptionWithoutCardinality: InternalPlanDescription = src.planDescription.andThen(this.id, "Eager", variables)
 
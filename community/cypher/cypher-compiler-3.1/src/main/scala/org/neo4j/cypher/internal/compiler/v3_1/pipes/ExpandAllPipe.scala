@@ -22,9 +22,11 @@ package org.neo4j.cypher.internal.compiler.v3_1.pipes
 import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
 import org.neo4j.cypher.internal.compiler.v3_1.executionplan.{Effects, ReadsAllNodes, ReadsAllRelationships}
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription.Arguments.ExpandExpression
+import org.neo4j.cypher.internal.compiler.v3_1.slotted.{SlotLookup, SlottedRow}
 import org.neo4j.cypher.internal.frontend.v3_1.symbols._
 import org.neo4j.cypher.internal.frontend.v3_1.{InternalException, SemanticDirection}
 import org.neo4j.graphdb.{Node, Relationship}
+import org.neo4j.kernel.impl.api.RelationshipVisitor
 
 case class ExpandAllPipe(source: Pipe,
                          fromName: String,
@@ -35,28 +37,72 @@ case class ExpandAllPipe(source: Pipe,
                         (implicit pipeMonitor: PipeMonitor)
   extends PipeWithSource(source, pipeMonitor) with RonjaPipe {
 
+  private val fromLookup = new SlotLookup(fromName)
+  private val relLookup = new SlotLookup(relName)
+  private val toLookup = new SlotLookup(toName)
+
   protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
     input.flatMap {
       row =>
-        getFromNode(row) match {
-          case n: Node =>
-            val relationships: Iterator[Relationship] = state.query.getRelationshipsForIds(n, dir, types.types(state.query))
-            relationships.map {
-              case r =>
-                row.newWith2(relName, r, toName, r.getOtherNode(n))
-            }
+        row.m match {
+          case slotted: SlottedRow if fromLookup.longOffset(slotted) >= 0 =>
+            expandSlotted(row, slotted, state)
+
+          case _ =>
+            expand(row, state)
+        }
+    }
+  }
+
+  private def expand(row: ExecutionContext, state: QueryState): Iterator[ExecutionContext] =
+    getFromNode(row) match {
+      case n: Node =>
+        val relationships: Iterator[Relationship] = state.query.getRelationshipsForIds(n, dir, types.types(state.query))
+        relationships.map {
+          case r =>
+            row.newWith2(relName, r, toName, r.getOtherNode(n))
+        }
+
+      case null => Iterator.empty
+
+      case value => throw new InternalException(s"Expected to find a node at $fromName but found $value instead")
+    }
+
+  /*
+   * Expands from the node id in the long slot of the row, and writes relationship and node ids to their long slots
+   * without creating entity proxies. Rows where the slot holds no node id are left to the general case.
+   */
+  private def expandSlotted(row: ExecutionContext, slotted: SlottedRow, state: QueryState): Iterator[ExecutionContext] = {
+    val fromNode = slotted.getLongAt(fromLookup.longOffset(slotted))
+    val relOffset = relLookup.longOffset(slotted)
+    val toOffset = toLookup.longOffset(slotted)
+    if (fromNode < 0 || relOffset < 0 || toOffset < 0) expand(row, state)
+    else {
+      val relationships = state.query.getRelationshipsForIdsPrimitive(fromNode, dir, types.types(state.query))
+      new Iterator[ExecutionContext] with RelationshipVisitor[RuntimeException] {
+        private var otherNode = -1L
+
+        override def visit(relationshipId: Long, typeId: Int, startNode: Long, endNode: Long): Unit =
+          otherNode = if (startNode == fromNode) endNode else startNode
 
-          case null => None
+        override def hasNext: Boolean = relationships.hasNext
 
-          case value => throw new InternalException(s"Expected to find a node at $fromName but found $value instead")
+        override def next(): ExecutionContext = {
+          val relationship = relationships.next()
+          relationships.relationshipVisit(relationship, this)
+          val next = slotted.clone()
+          next.setLongAt(relOffset, relationship)
+          next.setLongAt(toOffset, otherNode)
+          row.copy(m = next)
         }
+      }
     }
   }
 
   def typeNames = types.names
 
   def getFromNode(row: ExecutionContext): Any =
-    row.getOrElse(fromName, throw new InternalException(s"Expected to find a node at $fromName but found nothing"))
+    fromLookup.getOrElse(row, throw new InternalException(s"Expected to find a node at $fromName but found nothing"))
 
   def planDescriptionWithoutCardinality =
     source.planDescription.andThen(this.id, "Expand(All)", variables, ExpandExpression(fromName, relName, typeNames, toName, dir))
@@ -21,6 +21,7 @@ package org.neo4j.cypher.internal.compiler.v3_1.pipes
 
 import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
 import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.NumericHelper
+import org.neo4j.cypher.internal.compiler.v3_1.slotted.SlottedRow
 import org.neo4j.cypher.internal.compiler.v3_1.spi.Operations
 import org.neo4j.cypher.internal.frontend.v3_1.EntityNotFoundException
 import org.neo4j.graphdb.{Node, PropertyContainer, Relationship}
@@ -114,3 +115,63 @@ final class UndirectedRelationshipIdSeekIterator(ident: String,
     }
   }
 }
+
+/*
+ * Variants of the iterators above for slotted rows, which write entity ids straight to the long slots of the variables.
+ */
+
+final class SlottedNodeIdSeekIterator(offset: Int,
+                                      baseContext: ExecutionContext,
+                                      baseRow: SlottedRow,
+                                      protected val operations: Operations[Node],
+                                      protected val entityIds: Iterator[Any])
+  extends IdSeekIterator[Node] {
+
+  def hasNext: Boolean = hasNextEntity
+
+  def next(): ExecutionContext = {
+    val row = baseRow.clone()
+    row.setLongAt(offset, nextEntity().getId)
+    baseContext.copy(m = row)
+  }
+}
+
+final class SlottedRelationshipIdSeekIterator(relOffset: Int,
+                                              fromOffset: Int,
+                                              toOffset: Int,
+                                              undirected: Boolean,
+                                              baseContext: ExecutionContext,
+                                              baseRow: SlottedRow,
+                                              protected val operations: Operations[Relationship],
+                                              protected val entityIds: Iterator[Any])
+  extends IdSeekIterator[Relationship] {
+
+  private var lastRelationship = -1L
+  private var lastStart = -1L
+  private var lastEnd = -1L
+  private var emitSibling = false
+
+  def hasNext: Boolean = emitSibling || hasNextEntity
+
+  def next(): ExecutionContext = {
+    if (emitSibling) {
+      emitSibling = false
+      newRow(lastEnd, lastStart)
+    } else {
+      emitSibling = undirected
+      val relationship = nextEntity()
+      lastRelationship = relationship.getId
+      lastStart = relationship.getStartNode.getId
+      lastEnd = relationship.getEndNode.getId
+      newRow(lastStart, lastEnd)
+    }
+  }
+
+  private def newRow(fromNode: Long, toNode: Long): ExecutionContext = {
+    val row = baseRow.clone()
+    row.setLongAt(relOffset, lastRelationship)
+    row.setLongAt(fromOffset, fromNode)
+    row.setLongAt(toOffset, toNode)
+    baseContext.copy(m = row)
+  }
+}
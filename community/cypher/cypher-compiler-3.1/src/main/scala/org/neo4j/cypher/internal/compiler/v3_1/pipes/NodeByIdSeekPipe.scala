@@ -24,6 +24,7 @@ import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.Expression
 import org.neo4j.cypher.internal.compiler.v3_1.executionplan.{ReadsAllNodes, Effects}
 import org.neo4j.cypher.internal.compiler.v3_1.helpers.{CollectionSupport, IsCollection}
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.{NoChildren, PlanDescriptionImpl}
+import org.neo4j.cypher.internal.compiler.v3_1.slotted.{SlotLookup, SlottedRow}
 import org.neo4j.cypher.internal.compiler.v3_1.symbols.SymbolTable
 import org.neo4j.cypher.internal.frontend.v3_1.symbols.CTNode
 
@@ -58,13 +59,20 @@ case class NodeByIdSeekPipe(ident: String, nodeIdsExpr: SeekArgs)
   with CollectionSupport
   with RonjaPipe {
 
+  private val identLookup = new SlotLookup(ident)
+
   protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] = {
     //register as parent so that stats are associated with this pipe
     state.decorator.registerParentPipe(this)
 
-    val ctx = state.initialContext.getOrElse(ExecutionContext.empty)
+    val ctx = state.initialContext.getOrElse(state.newExecutionContext())
     val nodeIds = nodeIdsExpr.expressions(ctx, state)
-    new NodeIdSeekIterator(ident, ctx, state.query.nodeOps, nodeIds.iterator)
+    ctx.m match {
+      case slotted: SlottedRow if identLookup.longOffset(slotted) >= 0 =>
+        new SlottedNodeIdSeekIterator(identLookup.longOffset(slotted), ctx, slotted, state.query.nodeOps, nodeIds.iterator)
+      case _ =>
+        new NodeIdSeekIterator(ident, ctx, state.query.nodeOps, nodeIds.iterator)
+    }
   }
 
   def exists(predicate: Pipe => Boolean): Boolean = predicate(this)
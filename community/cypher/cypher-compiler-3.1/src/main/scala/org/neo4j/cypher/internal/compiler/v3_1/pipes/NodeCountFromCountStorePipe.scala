@@ -31,7 +31,7 @@ case class NodeCountFromCountStorePipe(ident: String, label: Option[LazyLabel])(
                                                            (implicit pipeMonitor: PipeMonitor) extends Pipe with RonjaPipe {
 
   protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] = {
-    val baseContext = state.initialContext.getOrElse(ExecutionContext.empty)
+    val baseContext = state.initialContext.getOrElse(state.newExecutionContext())
     val count = label match {
       case Some(lazyLabel) => lazyLabel.getOptId(state.query) match {
         case Some(idOfLabel) => state.query.nodeCountByCountStore(idOfLabel)
@@ -19,6 +19,7 @@
  */
 package org.neo4j.cypher.internal.compiler.v3_1.pipes
 
+import org.neo4j.collection.primitive.Primitive
 import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
 import org.neo4j.cypher.internal.compiler.v3_1.executionplan.Effects
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription.Arguments.KeyNames
@@ -41,6 +42,9 @@ case class NodeHashJoinPipe(nodeVariables: Set[String], left: Pipe, right: Pipe)
     if (rhsIterator.isEmpty)
       return Iterator.empty
 
+    if (cachedVariables.length == 1)
+      return joinOnSingleNode(cachedVariables.head, input, rhsIterator)
+
     val table = buildProbeTable(input)
 
     if (table.isEmpty)
@@ -92,6 +96,41 @@ case class NodeHashJoinPipe(nodeVariables: Set[String], left: Pipe, right: Pipe)
 
   private val cachedVariables = nodeVariables.toIndexedSeq
 
+  // Joining on a single node is by far the most common case, and keys the table on node ids without boxing them
+  private def joinOnSingleNode(variable: String, input: Iterator[ExecutionContext],
+                               rhsIterator: Iterator[ExecutionContext]): Iterator[ExecutionContext] = {
+    val table = Primitive.longObjectMap[mutable.MutableList[ExecutionContext]]()
+
+    input.foreach { context =>
+      val nodeId = computeNodeId(context, variable)
+      if (nodeId != NO_NODE) {
+        var seq = table.get(nodeId)
+        if (seq == null) {
+          seq = mutable.MutableList.empty
+          table.put(nodeId, seq)
+        }
+        seq += context
+      }
+    }
+
+    if (table.isEmpty)
+      return Iterator.empty
+
+    rhsIterator.flatMap { context =>
+      val nodeId = computeNodeId(context, variable)
+      val seq = if (nodeId == NO_NODE) null else table.get(nodeId)
+      if (seq == null) Iterator.empty else seq.iterator.map(context ++ _)
+    }
+  }
+
+  private val NO_NODE = -1L
+
+  private def computeNodeId(context: ExecutionContext, variable: String): Long = context(variable) match {
+    case n: Node => n.getId
+    case null => NO_NODE
+    case _ => throw new CypherTypeException("Created a plan that uses non-nodes when expecting a node")
+  }
+
   private def computeKey(context: ExecutionContext): Option[Vector[Long]] = {
     val key = new Array[Long](cachedVariables.length)
 
@@ -43,7 +43,7 @@ abstract class AbstractNodeIndexStringScanPipe(ident: String,
     //register as parent so that stats are associated with this pipe
     state.decorator.registerParentPipe(this)
 
-    val baseContext = state.initialContext.getOrElse(ExecutionContext.empty)
+    val baseContext = state.initialContext.getOrElse(state.newExecutionContext())
     val value = valueExpr(baseContext)(state)
 
     val resultNodes = value match {
@@ -40,7 +40,7 @@ case class NodeIndexScanPipe(ident: String,
     //register as parent so that stats are associated with this pipe
     state.decorator.registerParentPipe(this)
 
-    val baseContext = state.initialContext.getOrElse(ExecutionContext.empty)
+    val baseContext = state.initialContext.getOrElse(state.newExecutionContext())
     val resultNodes = state.query.indexScan(descriptor)
     resultNodes.map(node => baseContext.newWith1(ident, node))
   }
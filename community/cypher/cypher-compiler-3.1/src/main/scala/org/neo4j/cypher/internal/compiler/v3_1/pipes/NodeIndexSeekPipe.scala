@@ -48,7 +48,7 @@ case class NodeIndexSeekPipe(ident: String,
     state.decorator.registerParentPipe(this)
 
     val index = indexFactory(state)
-    val baseContext = state.initialContext.getOrElse(ExecutionContext.empty)
+    val baseContext = state.initialContext.getOrElse(state.newExecutionContext())
     val resultNodes = indexQuery(valueExpr, baseContext, state, index, label.name, propertyKey.name)
     resultNodes.map(node => baseContext.newWith1(ident, node))
   }
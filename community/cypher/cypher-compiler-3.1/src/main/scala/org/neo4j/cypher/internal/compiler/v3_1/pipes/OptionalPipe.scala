@@ -28,14 +28,14 @@ case class OptionalPipe(nullableVariables: Set[String], source: Pipe)
                        (val estimatedCardinality: Option[Double] = None)(implicit pipeMonitor: PipeMonitor)
   extends PipeWithSource(source, pipeMonitor) with RonjaPipe {
 
-  private def notFoundExecutionContext(initialContext: Option[ExecutionContext]): ExecutionContext = {
-    val context = initialContext.getOrElse(ExecutionContext.empty)
+  private def notFoundExecutionContext(state: QueryState): ExecutionContext = {
+    val context = state.initialContext.getOrElse(state.newExecutionContext())
     nullableVariables.foreach(v => context += v -> null)
     context
   }
 
   protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] =
-    if (input.isEmpty) Iterator(notFoundExecutionContext(state.initialContext))
+    if (input.isEmpty) Iterator(notFoundExecutionContext(state))
     else input
 
   def planDescriptionWithoutCardinality: InternalPlanDescription =
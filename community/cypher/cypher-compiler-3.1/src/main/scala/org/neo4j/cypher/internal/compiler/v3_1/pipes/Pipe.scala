@@ -98,7 +98,7 @@ case class SingleRowPipe()(implicit val monitor: PipeMonitor) extends Pipe with
   def symbols: SymbolTable = new SymbolTable()
 
   def internalCreateResults(state: QueryState) =
-    Iterator(state.initialContext.getOrElse(ExecutionContext.empty))
+    Iterator(state.initialContext.getOrElse(state.newExecutionContext()))
 
   def exists(pred: Pipe => Boolean) = pred(this)
 
@@ -29,6 +29,8 @@ import org.neo4j.cypher.internal.frontend.v3_1.ParameterNotFoundException
 import org.neo4j.cypher.internal.compiler.v3_1._
 import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.PathValueBuilder
 import org.neo4j.cypher.internal.compiler.v3_1.commands.predicates.{InCheckContainer, SingleThreadedLRUCache}
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.{QueryMemoryTracker, UnboundedQueryMemory}
+import org.neo4j.cypher.internal.compiler.v3_1.slotted.{SlotConfiguration, SlottedRow}
 import org.neo4j.cypher.internal.compiler.v3_1.spi.QueryContext
 import org.neo4j.cypher.internal.frontend.v3_1.ParameterNotFoundException
 
@@ -45,7 +47,10 @@ class QueryState(val query: QueryContext,
                  val repeatableReads: mutable.Map[Pipe, Seq[ExecutionContext]] = mutable.Map.empty,
                  val publicTypeConverter: Any => Any = identity,
                  val cachedIn: SingleThreadedLRUCache[Any, InCheckContainer] =
-                   new SingleThreadedLRUCache(maxSize = 16)) {
+                   new SingleThreadedLRUCache(maxSize = 16),
+                 val slots: Option[SlotConfiguration] = None,
+                 val morselInput: Option[Iterator[ExecutionContext]] = None,
+                 val memory: QueryMemoryTracker = UnboundedQueryMemory) {
   private var _pathValueBuilder: PathValueBuilder = null
 
   def clearPathValueBuilder = {
@@ -57,19 +62,33 @@ class QueryState(val query: QueryContext,
 
   def readTimeStamp(): Long = timeReader.getTime
 
+  def newExecutionContext(): ExecutionContext = slots match {
+    case Some(configuration) => SlottedRow.newContext(configuration, query)
+    case None => ExecutionContext.empty
+  }
+
   def getParam(key: String): Any =
     params.getOrElse(key, throw new ParameterNotFoundException("Expected a parameter named " + key))
 
   def getStatistics = query.getOptStatistics.getOrElse(QueryState.defaultStatistics)
 
   def withDecorator(decorator: PipeDecorator) =
-    new QueryState(query, resources, params, decorator, timeReader, initialContext, queryId, triadicState, repeatableReads, publicTypeConverter, cachedIn)
+    new QueryState(query, resources, params, decorator, timeReader, initialContext, queryId, triadicState, repeatableReads, publicTypeConverter, cachedIn, slots, morselInput, memory)
 
   def withInitialContext(initialContext: ExecutionContext) =
-    new QueryState(query, resources, params, decorator, timeReader, Some(initialContext), queryId, triadicState, repeatableReads, publicTypeConverter, cachedIn)
+    new QueryState(query, resources, params, decorator, timeReader, Some(initialContext), queryId, triadicState, repeatableReads, publicTypeConverter, cachedIn, slots, morselInput, memory)
 
   def withQueryContext(query: QueryContext) =
-    new QueryState(query, resources, params, decorator, timeReader, initialContext, queryId, triadicState, repeatableReads, publicTypeConverter, cachedIn)
+    new QueryState(query, resources, params, decorator, timeReader, initialContext, queryId, triadicState, repeatableReads, publicTypeConverter, cachedIn, slots, morselInput, memory)
+
+  def withMorselInput(input: Iterator[ExecutionContext]) =
+    new QueryState(query, resources, params, decorator, timeReader, initialContext, queryId, triadicState, repeatableReads, publicTypeConverter, cachedIn, slots, Some(input), memory)
+
+  // Worker threads get caches of their own, since none of them are safe to share between threads. The memory budget
+  // is shared, since it is the budget of the whole query.
+  def forWorker(query: QueryContext) =
+    new QueryState(query, resources, params, NullPipeDecorator, timeReader, initialContext, queryId, mutable.Map.empty, mutable.Map.empty,
+                   publicTypeConverter, new SingleThreadedLRUCache(maxSize = 16), slots, None, memory)
 }
 
 object QueryState {
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes
+
+import org.neo4j.collection.primitive.{Primitive, PrimitiveLongObjectMap}
+import org.neo4j.cypher.internal.compiler.v3_1.commands.predicates.Equivalent
+import org.neo4j.graphdb.{Node, Relationship}
+
+import scala.collection.mutable
+
+/*
+ * Tables keyed on a single value, for pipes that group or deduplicate rows on one column. Nodes and relationships are
+ * kept in primitive collections keyed on their ids, so that no key or map entry is allocated per entity. All other
+ * values are compared by Equivalent in regular collections, just like multi-column keys are.
+ */
+
+/**
+ * Maps single values to the value created for them. The groups are iterated in the order they were first seen.
+ */
+final class SingleValueTable[V <: AnyRef] {
+  private val nodes = Primitive.longObjectMap[V]()
+  private val relationships = Primitive.longObjectMap[V]()
+  private val others = mutable.Map[Equivalent, V]()
+  private val groups = new mutable.ArrayBuffer[(Any, V)]
+
+  def getOrElseUpdate(key: Any, value: => V): V = key match {
+    case n: Node => getOrElseUpdate(nodes, n.getId, n, value)
+    case r: Relationship => getOrElseUpdate(relationships, r.getId, r, value)
+    case _ => others.getOrElseUpdate(Equivalent(key), add(key, value))
+  }
+
+  def isEmpty: Boolean = groups.isEmpty
+
+  def iterator: Iterator[(Any, V)] = groups.iterator
+
+  private def getOrElseUpdate(map: PrimitiveLongObjectMap[V], id: Long, key: Any, value: => V): V = {
+    val existing = map.get(id)
+    if (existing != null) existing
+    else {
+      val created = add(key, value)
+      map.put(id, created)
+      created
+    }
+  }
+
+  private def add(key: Any, value: V): V = {
+    groups += key -> value
+    value
+  }
+}
+
+/**
+ * Keeps track of which single values have been seen.
+ */
+final class SingleValueSet {
+  private val nodes = Primitive.longSet()
+  private val relationships = Primitive.longSet()
+  private val others = mutable.Set[Equivalent]()
+
+  /**
+   * Returns true if the value had not been seen before.
+   */
+  def add(value: Any): Boolean = value match {
+    case n: Node => nodes.add(n.getId)
+    case r: Relationship => relationships.add(r.getId)
+    case _ => others.add(Equivalent(value))
+  }
+}
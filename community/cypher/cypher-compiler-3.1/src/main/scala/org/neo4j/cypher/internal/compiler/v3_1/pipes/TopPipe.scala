@@ -23,8 +23,10 @@ import java.util.Comparator
 
 import org.neo4j.cypher.internal.compiler.v3_1._
 import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.Expression
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.{ExternalSort, QueryMemoryTracker}
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription.Arguments.{KeyNames, LegacyExpression}
 
+import scala.collection.mutable.ArrayBuffer
 import scala.math._
 
 /*
@@ -84,9 +86,11 @@ case class TopNPipe(source: Pipe, sortDescription: List[SortDescription], countE
 
       if (count <= 0) {
         Iterator.empty
+      } else if (state.memory.isBounded) {
+        boundedTop(first, count, input)
       } else {
 
-        var result = new Array[SortDataWithContext](count)
+        val result = new Array[SortDataWithContext](count)
         result(0) = arrayEntry(first)
         var last : Int = 0
 
@@ -95,31 +99,73 @@ case class TopNPipe(source: Pipe, sortDescription: List[SortDescription], countE
           result(last) = arrayEntry(input.next())
         }
 
-        val lessThan = new LessThanComparator(this)
         if (input.isEmpty) {
-          result.slice(0,last + 1).sorted(lessThan).iterator.map(_._2)
+          result.slice(0,last + 1).sorted(new LessThanComparator(this)).iterator.map(_._2)
         } else {
-          result = result.sorted(lessThan)
-
-          val search = binarySearch(result, lessThan) _
-          input.foreach {
-            ctx =>
-              val next = arrayEntry(ctx)
-              if (lessThan.compare(next, result(last)) < 0) {
-                val idx = search(next)
-                val insertPosition = if (idx < 0 )  - idx - 1 else idx + 1
-                if (insertPosition >= 0 && insertPosition < count) {
-                  Array.copy(result, insertPosition, result, insertPosition + 1, count - insertPosition - 1)
-                  result(insertPosition) = next
-                }
-              }
-          }
-          result.toIterator.map(_._2)
+          top(result, input)
         }
       }
     }
   }
 
+  /*
+   * Keeps the top rows on the heap when count rows the size of the first one fit in the memory budget of the query.
+   * The rows are then kept whatever the budget says later on, rather than given up half way through the input. Only
+   * when count itself is too large are all rows sorted within the budget instead, and the first ones returned.
+   */
+  private def boundedTop(first: ExecutionContext, count: Int, input: Iterator[ExecutionContext])
+                        (implicit state: QueryState): Iterator[ExecutionContext] = {
+    val memory = state.memory
+    val rows = Iterator.single(first) ++ input
+
+    val expectedBytes = count.toLong * QueryMemoryTracker.estimateSize(first)
+    if (!memory.tryAllocate(expectedBytes))
+      return ExternalSort.sort(this, rows, new InnerOrdering(sortDescription), state).take(count)
+    memory.release(expectedBytes)
+
+    val kept = new ArrayBuffer[ExecutionContext]()
+    var keptBytes = 0L
+    while (kept.size < count && rows.hasNext) {
+      val row = rows.next()
+      val size = QueryMemoryTracker.estimateSize(row)
+      memory.allocate(size)
+      kept += row
+      keptBytes += size
+    }
+
+    val result = kept.map(arrayEntry(_)).toArray
+    val topRows =
+      if (rows.isEmpty) result.sorted(new LessThanComparator(this)).iterator.map(_._2)
+      else top(result, rows)
+    QueryMemoryTracker.releasingAtEnd(topRows, memory, keptBytes)
+  }
+
+  /*
+   * Keeps the rows of the full array that remain in the top when the rest of the input has been seen.
+   */
+  private def top(full: Array[SortDataWithContext], input: Iterator[ExecutionContext])
+                 (implicit state: QueryState): Iterator[ExecutionContext] = {
+    val lessThan = new LessThanComparator(this)
+    val count = full.length
+    val last = count - 1
+    val result = full.sorted(lessThan)
+
+    val search = binarySearch(result, lessThan) _
+    input.foreach {
+      ctx =>
+        val next = arrayEntry(ctx)
+        if (lessThan.compare(next, result(last)) < 0) {
+          val idx = search(next)
+          val insertPosition = if (idx < 0 )  - idx - 1 else idx + 1
+          if (insertPosition >= 0 && insertPosition < count) {
+            Array.copy(result, insertPosition, result, insertPosition + 1, count - insertPosition - 1)
+            result(insertPosition) = next
+          }
+        }
+    }
+    result.toIterator.map(_._2)
+  }
+
   override def dup(sources: List[Pipe]): Pipe = {
     val (head :: Nil) = sources
     copy(source = head)(estimatedCardinality)
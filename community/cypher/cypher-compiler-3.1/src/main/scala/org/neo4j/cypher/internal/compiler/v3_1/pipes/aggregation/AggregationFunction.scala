@@ -37,5 +37,11 @@ abstract class AggregationFunction {
    * The aggregated result.
    */
   def result: Any
+
+  /**
+   * Rough estimate of the heap taken up by state that grows with the input, like the values kept by collect().
+   * Functions that need to look at the values to tell only do so when the query has a memory budget.
+   */
+  def heldBytes: Long = 0L
 }
 
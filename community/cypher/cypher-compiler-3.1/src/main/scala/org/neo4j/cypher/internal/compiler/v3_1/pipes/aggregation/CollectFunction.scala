@@ -22,17 +22,24 @@ package org.neo4j.cypher.internal.compiler.v3_1.pipes.aggregation
 import org.neo4j.cypher.internal.compiler.v3_1._
 import commands.expressions.Expression
 import pipes.QueryState
+import pipes.spill.QueryMemoryTracker
 import collection.mutable.ListBuffer
 
 class CollectFunction(value:Expression) extends AggregationFunction {
   val collection = new ListBuffer[Any]()
+  private var bytes = 0L
 
   def apply(data: ExecutionContext)(implicit state:QueryState) {
     value(data) match {
       case null =>
-      case v    => collection += v
+      case v    =>
+        collection += v
+        if (state.memory.isBounded)
+          bytes += 16 + QueryMemoryTracker.estimateSize(v)
     }
   }
 
   def result: Any = collection.toSeq
+
+  override def heldBytes: Long = bytes
 }
@@ -23,10 +23,12 @@ import org.neo4j.cypher.internal.compiler.v3_1._
 import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.Expression
 import org.neo4j.cypher.internal.compiler.v3_1.commands.predicates.Equivalent
 import org.neo4j.cypher.internal.compiler.v3_1.pipes.QueryState
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.QueryMemoryTracker
 
 class DistinctFunction(value: Expression, inner: AggregationFunction) extends AggregationFunction {
   private val seen = scala.collection.mutable.Set[Equivalent]()
   private var seenNull = false
+  private var bytes = 0L
 
   override def apply(ctx: ExecutionContext)(implicit state: QueryState) {
     val data = value(ctx)
@@ -40,10 +42,14 @@ class DistinctFunction(value: Expression, inner: AggregationFunction) extends Ag
       val equiValue = Equivalent(data)
       if (!seen.contains(equiValue)) {
         seen += equiValue
+        if (state.memory.isBounded)
+          bytes += 48 + QueryMemoryTracker.estimateSize(data)
         inner(ctx)
       }
     }
   }
 
   override def result = inner.result
+
+  override def heldBytes: Long = bytes + inner.heldBytes
 }
@@ -44,6 +44,9 @@ abstract class PercentileFunction(val value: Expression, val percentile: Express
       temp = temp :+ number
     })
   }
+
+  // A slot of the vector and the boxed number per value
+  override def heldBytes: Long = 32L * count
 }
 
 class PercentileContFunction(value: Expression, percentile: Expression)
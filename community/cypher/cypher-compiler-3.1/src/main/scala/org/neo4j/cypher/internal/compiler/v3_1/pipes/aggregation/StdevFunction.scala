@@ -60,4 +60,7 @@ class StdevFunction(val value: Expression, val population:Boolean)
       temp = temp :+ asDouble(number)
     })
   }
+
+  // A slot of the vector and the boxed double per value
+  override def heldBytes: Long = 32L * count
 }
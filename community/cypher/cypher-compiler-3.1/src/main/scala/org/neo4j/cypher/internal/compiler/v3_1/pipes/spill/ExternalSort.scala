@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.spill
+
+import java.util.{Comparator, PriorityQueue}
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.{Pipe, QueryState}
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * Sorts rows within the memory budget of the query. Rows are sorted on the heap until the budget runs out, at which
+ * point they are written to a spill file as a sorted run. The runs are merged when the input has been read, together
+ * with the rows still on the heap. Rows that compare equal keep their input order.
+ *
+ * A run is only written once it holds at least minRunBytes, so that a sort which finds the budget already taken by
+ * the pipes below it grows past the budget a little rather than writing a file per row. The default is the size of
+ * the buffer that a run is read back through. At most maxFanIn runs are merged at a time. When there are more,
+ * consecutive runs are first merged into longer runs, in as many passes as it takes.
+ */
+object ExternalSort {
+
+  val MinRunBytes: Long = 64 * 1024
+  val MaxFanIn: Int = 64
+
+  def sort(pipe: Pipe, input: Iterator[ExecutionContext], ordering: Ordering[ExecutionContext], state: QueryState,
+           minRunBytes: Long = MinRunBytes, maxFanIn: Int = MaxFanIn): Iterator[ExecutionContext] = {
+    require(maxFanIn >= 2, "Runs have to be merged at least two at a time")
+    val memory = state.memory
+    val buffer = new ArrayBuffer[ExecutionContext]()
+    var bufferBytes = 0L
+    var runs = Vector.empty[SpillFile]
+
+    input.foreach { row =>
+      val size = QueryMemoryTracker.estimateSize(row)
+      if (!memory.tryAllocate(size)) {
+        if (buffer.nonEmpty && bufferBytes >= minRunBytes) {
+          val run = memory.newSpillFile(pipe, state)
+          sorted(buffer, ordering).foreach(run.write)
+          runs :+= run
+          buffer.clear()
+          memory.release(bufferBytes)
+          bufferBytes = 0L
+        }
+        memory.allocate(size)
+      }
+      buffer += row
+      bufferBytes += size
+    }
+
+    // The rows on the heap take up one slot of the final merge
+    while (runs.size >= maxFanIn) {
+      runs = runs.grouped(maxFanIn).map {
+        case Seq(single) => single
+        case group =>
+          val run = memory.newSpillFile(pipe, state)
+          merge(group.map(_.read()), ordering).foreach(run.write)
+          run
+      }.toVector
+    }
+
+    val inMemory = sorted(buffer, ordering).iterator
+    val result = if (runs.isEmpty) inMemory else merge(runs.map(_.read()) :+ inMemory, ordering)
+    QueryMemoryTracker.releasingAtEnd(result, memory, bufferBytes)
+  }
+
+  private def sorted(rows: ArrayBuffer[ExecutionContext], ordering: Ordering[ExecutionContext]) = {
+    val array = rows.toArray
+    java.util.Arrays.sort(array, ordering)
+    array
+  }
+
+  private def merge(runs: Seq[Iterator[ExecutionContext]], ordering: Ordering[ExecutionContext]): Iterator[ExecutionContext] = {
+    // Ties are broken on the position of the run, since earlier runs hold rows that came earlier in the input
+    val heads = new PriorityQueue[(ExecutionContext, Int)](runs.size, new Comparator[(ExecutionContext, Int)] {
+      override def compare(a: (ExecutionContext, Int), b: (ExecutionContext, Int)): Int = {
+        val cmp = ordering.compare(a._1, b._1)
+        if (cmp != 0) cmp else Integer.compare(a._2, b._2)
+      }
+    })
+    runs.zipWithIndex.foreach {
+      case (run, i) => if (run.hasNext) heads.add(run.next() -> i)
+    }
+
+    new Iterator[ExecutionContext] {
+      def hasNext: Boolean = !heads.isEmpty
+
+      def next(): ExecutionContext = {
+        val (row, i) = heads.poll()
+        if (runs(i).hasNext)
+          heads.add(runs(i).next() -> i)
+        row
+      }
+    }
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.spill
+
+import java.io.File
+import java.nio.file.{Files, Path => FilePath}
+import java.util.concurrent.atomic.AtomicLong
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.{Pipe, QueryState}
+import org.neo4j.cypher.internal.compiler.v3_1.planDescription.Id
+import org.neo4j.graphdb.{Node, Path, Relationship}
+
+import scala.collection.mutable
+
+/**
+ * Keeps track of the memory that the eager pipes of a query hold on to. Pipes that would otherwise have to hold
+ * their whole input ask for memory before they keep another row, and write what they hold to a SpillFile when
+ * the budget of the query has run out.
+ */
+trait QueryMemoryTracker {
+
+  /**
+   * @return false if the query may use as much memory as it needs, in which case pipes need not track their rows
+   */
+  def isBounded: Boolean
+
+  /**
+   * Reserves memory, unless doing so would exceed the budget of the query.
+   *
+   * @return true if the memory was reserved
+   */
+  def tryAllocate(bytes: Long): Boolean
+
+  /**
+   * Reserves memory even if it exceeds the budget, for rows that have to be kept whatever their size.
+   */
+  def allocate(bytes: Long): Unit
+
+  def release(bytes: Long): Unit
+
+  def newSpillFile(owner: Pipe, state: QueryState): SpillFile
+
+  /**
+   * @return the number of bytes that the pipe with the given id has written to disk
+   */
+  def spilledBytes(pipe: Id): Long
+
+  /**
+   * Deletes all spill files that have not been read to the end.
+   */
+  def close(): Unit
+}
+
+object QueryMemoryTracker {
+
+  /**
+   * @param spillDirectory where spill files are written, or None for the temporary directory of the JVM
+   */
+  def apply(budgetInBytes: Long, updating: Boolean, spillDirectory: Option[File] = None): QueryMemoryTracker =
+    if (budgetInBytes > 0) new BoundedQueryMemory(budgetInBytes, keepEntitiesOnHeap = updating, spillDirectory)
+    else UnboundedQueryMemory
+
+  /**
+   * Returns the rows of the iterator, and releases the given number of bytes once they have all been read.
+   */
+  def releasingAtEnd(rows: Iterator[ExecutionContext], memory: QueryMemoryTracker, bytes: Long): Iterator[ExecutionContext] =
+    new Iterator[ExecutionContext] {
+      private var released = false
+
+      def hasNext: Boolean = {
+        val more = rows.hasNext
+        if (!more && !released) {
+          released = true
+          memory.release(bytes)
+        }
+        more
+      }
+
+      def next(): ExecutionContext = rows.next()
+    }
+
+  /**
+   * Rough estimate of the heap that a row takes up. Only meant to be good enough to decide when to spill.
+   */
+  def estimateSize(row: ExecutionContext): Long = {
+    var size = 64L
+    row.foreach {
+      case (_, value) => size += 32 + estimateSize(value)
+    }
+    size
+  }
+
+  def estimateSize(value: Any): Long = value match {
+    case null => 0
+    case s: String => 40 + 2 * s.length
+    case _: Node | _: Relationship => 32
+    case p: Path => 32 + 40 * p.length()
+    case m: scala.collection.Map[_, _] => m.foldLeft(48L) { case (acc, (_, v)) => acc + 40 + estimateSize(v) }
+    case t: Traversable[_] => t.foldLeft(32L)((acc, v) => acc + 8 + estimateSize(v))
+    case a: Array[_] => a.foldLeft(16L)((acc, v) => acc + 8 + estimateSize(v))
+    case _: java.lang.Boolean | _: java.lang.Byte | _: java.lang.Short | _: java.lang.Character => 16
+    case _: Number => 24
+    case _ => 64
+  }
+}
+
+object UnboundedQueryMemory extends QueryMemoryTracker {
+  def isBounded = false
+
+  def tryAllocate(bytes: Long) = true
+
+  def allocate(bytes: Long) {}
+
+  def release(bytes: Long) {}
+
+  def newSpillFile(owner: Pipe, state: QueryState) =
+    throw new IllegalStateException("Queries without a memory budget never spill")
+
+  def spilledBytes(pipe: Id) = 0L
+
+  def close() {}
+}
+
+/**
+ * Tracks the memory of a query against a fixed budget. The tracker is shared by all threads of a query running in
+ * the parallel runtime.
+ *
+ * Updating queries keep the nodes and relationships of spilled rows on the heap, since an entity that was deleted
+ * further up the plan cannot be looked up again by its id. All other values are written to disk.
+ */
+class BoundedQueryMemory(budgetInBytes: Long, keepEntitiesOnHeap: Boolean, spillDirectory: Option[File] = None)
+  extends QueryMemoryTracker {
+
+  import BoundedQueryMemory._
+
+  private val allocated = new AtomicLong()
+  private val spilled = mutable.Map[Id, Long]()
+  private val openFiles = mutable.Set[SpillFile]()
+  private var closed = false
+
+  def isBounded = true
+
+  def tryAllocate(bytes: Long): Boolean = {
+    var current = allocated.get()
+    while (current + bytes <= budgetInBytes) {
+      if (allocated.compareAndSet(current, current + bytes))
+        return true
+      current = allocated.get()
+    }
+    false
+  }
+
+  def allocate(bytes: Long) {
+    allocated.addAndGet(bytes)
+  }
+
+  def release(bytes: Long) {
+    allocated.addAndGet(-bytes)
+  }
+
+  def allocatedBytes: Long = allocated.get()
+
+  def newSpillFile(owner: Pipe, state: QueryState): SpillFile = synchronized {
+    if (closed)
+      throw new IllegalStateException("Query has already been closed")
+    val file = new SpillFile(this, owner.id, state, keepEntitiesOnHeap, createSpillPath())
+    openFiles += file
+    file
+  }
+
+  def spilledBytes(pipe: Id): Long = synchronized {
+    spilled.getOrElse(pipe, 0L)
+  }
+
+  def close(): Unit = synchronized {
+    closed = true
+    openFiles.toList.foreach(_.delete())
+  }
+
+  private def createSpillPath(): FilePath = spillDirectory match {
+    case Some(directory) =>
+      Files.createTempFile(Files.createDirectories(directory.toPath), SPILL_FILE_PREFIX, SPILL_FILE_SUFFIX)
+    case None =>
+      Files.createTempFile(SPILL_FILE_PREFIX, SPILL_FILE_SUFFIX)
+  }
+
+  private[spill] def written(pipe: Id, bytes: Long): Unit = synchronized {
+    spilled(pipe) = spilled.getOrElse(pipe, 0L) + bytes
+  }
+
+  private[spill] def deleted(file: SpillFile): Unit = synchronized {
+    openFiles -= file
+  }
+}
+
+object BoundedQueryMemory {
+  private val SPILL_FILE_PREFIX = "neo4j-cypher-spill"
+  private val SPILL_FILE_SUFFIX = ".tmp"
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.spill
+
+import java.io._
+import java.nio.charset.StandardCharsets
+import java.nio.file.{Files, Path => FilePath}
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.QueryState
+import org.neo4j.cypher.internal.compiler.v3_1.planDescription.Id
+import org.neo4j.cypher.internal.frontend.v3_1.EntityNotFoundException
+import org.neo4j.graphdb.{Node, Relationship}
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * A temporary file of rows, written once and then read back once in the order they were written. The file is deleted
+ * when it has been read to the end, or when the query is closed.
+ *
+ * Numbers, booleans, strings, nodes, relationships and lists and maps of those are written to the file. Nodes and
+ * relationships are written as their ids and looked up again when read. Values of any other type, such as paths, are
+ * kept on the heap and only referred to from the file.
+ *
+ * Read-only queries do not lock what they read, so a node or relationship may be deleted by another transaction
+ * while its id is on disk. Reading such a row fails with an EntityNotFoundException, as it would have had the query
+ * read a property of the deleted entity. Updating queries never write entities to disk, see BoundedQueryMemory.
+ */
+class SpillFile private[spill](memory: BoundedQueryMemory, pipe: Id, state: QueryState, keepEntitiesOnHeap: Boolean,
+                               path: FilePath) {
+
+  import SpillFile._
+
+  private var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE))
+  private var in: DataInputStream = null
+  private val onHeap = new ArrayBuffer[Any]()
+  private var heapBytes = 0L
+  private var rows = 0L
+  private var deleted = false
+
+  def rowCount: Long = rows
+
+  def write(row: ExecutionContext): Unit = {
+    if (out == null)
+      throw new IllegalStateException("Rows can not be added to a spill file that has been read")
+    out.writeInt(row.size)
+    row.foreach {
+      case (key, value) =>
+        writeString(key)
+        writeValue(value)
+    }
+    rows += 1
+  }
+
+  /**
+   * Reads the rows back in the order they were written. The file is deleted once the last row has been read.
+   */
+  def read(): Iterator[ExecutionContext] = {
+    finishWriting()
+    if (rows == 0) {
+      delete()
+      Iterator.empty
+    } else {
+      in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE))
+      new Iterator[ExecutionContext] {
+        private var remaining = rows
+
+        def hasNext: Boolean = remaining > 0
+
+        def next(): ExecutionContext = {
+          if (!hasNext)
+            Iterator.empty.next()
+          val row = readRow(in)
+          remaining -= 1
+          if (remaining == 0)
+            delete()
+          row
+        }
+      }
+    }
+  }
+
+  def delete(): Unit = if (!deleted) {
+    deleted = true
+    if (out != null) {
+      out.close()
+      out = null
+    }
+    if (in != null) {
+      in.close()
+      in = null
+    }
+    Files.deleteIfExists(path)
+    onHeap.clear()
+    memory.release(heapBytes)
+    memory.deleted(this)
+  }
+
+  private def finishWriting(): Unit = if (out != null) {
+    out.close()
+    out = null
+    memory.written(pipe, Files.size(path))
+  }
+
+  private def writeValue(value: Any): Unit = value match {
+    case null => out.writeByte(NULL)
+    case b: Boolean => out.writeByte(BOOLEAN); out.writeBoolean(b)
+    case l: Long => out.writeByte(LONG); out.writeLong(l)
+    case i: Int => out.writeByte(INT); out.writeInt(i)
+    case d: Double => out.writeByte(DOUBLE); out.writeDouble(d)
+    case f: Float => out.writeByte(FLOAT); out.writeFloat(f)
+    case s: String => out.writeByte(STRING); writeString(s)
+    case n: Node if !keepEntitiesOnHeap => out.writeByte(NODE); out.writeLong(n.getId)
+    case r: Relationship if !keepEntitiesOnHeap => out.writeByte(RELATIONSHIP); out.writeLong(r.getId)
+    case l: List[_] => writeSeq(LIST, l)
+    case v: Vector[_] => writeSeq(VECTOR, v)
+    case m: Map[_, _] if m.keys.forall(_.isInstanceOf[String]) =>
+      out.writeByte(MAP)
+      out.writeInt(m.size)
+      m.foreach {
+        case (k, v) =>
+          writeString(k.asInstanceOf[String])
+          writeValue(v)
+      }
+    case other =>
+      out.writeByte(HEAP)
+      out.writeInt(onHeap.size)
+      onHeap += other
+      val bytes = QueryMemoryTracker.estimateSize(other)
+      memory.allocate(bytes)
+      heapBytes += bytes
+  }
+
+  private def writeSeq(tag: Byte, values: Seq[_]): Unit = {
+    out.writeByte(tag)
+    out.writeInt(values.size)
+    values.foreach(writeValue)
+  }
+
+  private def writeString(s: String): Unit = {
+    val bytes = s.getBytes(StandardCharsets.UTF_8)
+    out.writeInt(bytes.length)
+    out.write(bytes)
+  }
+
+  private def readRow(in: DataInputStream): ExecutionContext = {
+    val row = state.newExecutionContext()
+    var columns = in.readInt()
+    while (columns > 0) {
+      val key = readString(in)
+      row += key -> readValue(in)
+      columns -= 1
+    }
+    row
+  }
+
+  private def readValue(in: DataInputStream): Any = in.readByte() match {
+    case NULL => null
+    case BOOLEAN => in.readBoolean()
+    case LONG => in.readLong()
+    case INT => in.readInt()
+    case DOUBLE => in.readDouble()
+    case FLOAT => in.readFloat()
+    case STRING => readString(in)
+    case NODE => readEntity(in, "Node")(state.query.nodeOps.getById)
+    case RELATIONSHIP => readEntity(in, "Relationship")(state.query.relationshipOps.getById)
+    case LIST => List.fill(in.readInt())(readValue(in))
+    case VECTOR => Vector.fill(in.readInt())(readValue(in))
+    case MAP =>
+      val size = in.readInt()
+      val builder = Map.newBuilder[String, Any]
+      var i = 0
+      while (i < size) {
+        builder += readString(in) -> readValue(in)
+        i += 1
+      }
+      builder.result()
+    case HEAP => onHeap(in.readInt())
+    case tag => throw new IllegalStateException(s"Unknown value tag $tag in spill file")
+  }
+
+  private def readEntity[T](in: DataInputStream, kind: String)(getById: Long => T): T = {
+    val id = in.readLong()
+    try {
+      getById(id)
+    } catch {
+      case e: EntityNotFoundException =>
+        throw new EntityNotFoundException(s"$kind with id $id was deleted by another transaction while the query " +
+                                          "held it in a spill file", e)
+    }
+  }
+
+  private def readString(in: DataInputStream): String = {
+    val bytes = new Array[Byte](in.readInt())
+    in.readFully(bytes)
+    new String(bytes, StandardCharsets.UTF_8)
+  }
+}
+
+object SpillFile {
+  private val BUFFER_SIZE = 64 * 1024
+
+  private final val NULL: Byte = 0
+  private final val BOOLEAN: Byte = 1
+  private final val LONG: Byte = 2
+  private final val INT: Byte = 3
+  private final val DOUBLE: Byte = 4
+  private final val FLOAT: Byte = 5
+  private final val STRING: Byte = 6
+  private final val NODE: Byte = 7
+  private final val RELATIONSHIP: Byte = 8
+  private final val LIST: Byte = 9
+  private final val VECTOR: Byte = 10
+  private final val MAP: Byte = 11
+  private final val HEAP: Byte = 12
+}
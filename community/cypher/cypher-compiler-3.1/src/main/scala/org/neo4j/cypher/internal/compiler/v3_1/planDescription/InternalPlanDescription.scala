@@ -79,6 +79,7 @@ object InternalPlanDescription {
     case class Time(value: Long) extends Argument
     case class Rows(value: Long) extends Argument
     case class DbHits(value: Long) extends Argument
+    case class SpilledBytes(value: Long) extends Argument
     case class ColumnsLeft(value: Seq[String]) extends Argument
     case class Expression(value: ast.Expression) extends Argument
     case class LegacyExpression(value: commands.expressions.Expression) extends Argument
@@ -31,10 +31,11 @@ object renderAsTreeTable extends (InternalPlanDescription => String) {
   private val ROWS = "Rows"
   private val HITS = "DB Hits"
   private val TIME = "Time (ms)"
+  private val SPILLED = "Spilled (bytes)"
   val VARIABLES = "Variables"
   val MAX_VARIABLE_COLUMN_WIDTH = 100
   private val OTHER = "Other"
-  private val HEADERS = Seq(OPERATOR, ESTIMATED_ROWS, ROWS, HITS, TIME, VARIABLES, OTHER)
+  private val HEADERS = Seq(OPERATOR, ESTIMATED_ROWS, ROWS, HITS, TIME, SPILLED, VARIABLES, OTHER)
   val newLine = System.lineSeparator()
 
   def apply(plan: InternalPlanDescription): String = {
@@ -132,6 +133,7 @@ object renderAsTreeTable extends (InternalPlanDescription => String) {
     case Rows(count) => mapping(ROWS, Right(count.toString))
     case DbHits(count) => mapping(HITS, Right(count.toString))
     case Time(nanos) => mapping(TIME, Right("%.3f".format(nanos/1000000.0)))
+    case SpilledBytes(bytes) => mapping(SPILLED, Right(bytes.toString))
     case _ => None
   }.toMap + (
     OTHER -> Left(other(description)))
@@ -155,6 +157,7 @@ object renderAsTreeTable extends (InternalPlanDescription => String) {
         !x.isInstanceOf[Runtime] &&
         !x.isInstanceOf[SourceCode] &&
         !x.isInstanceOf[Time] &&
+        !x.isInstanceOf[SpilledBytes] &&
         !x.isInstanceOf[RuntimeImpl] &&
         !x.isInstanceOf[Version] => PlanDescriptionArgumentSerializer.serialize(x)
     }
@@ -440,6 +440,12 @@ case class LogicalPlanProducer(cardinalityModel: CardinalityModel) extends Colle
     Sort(inner, descriptions)(solved)
   }
 
+  // Used when the rows of inner already come in the requested order
+  def planSortSolvedByOrder(inner: LogicalPlan, items: Seq[ast.SortItem])(implicit context: LogicalPlanningContext) = {
+    val solved = inner.solved.updateTailOrSelf(_.updateQueryProjection(_.updateShuffle(_.withSortItems(items))))
+    inner.updateSolved(solved)
+  }
+
   def planShortestPath(inner: LogicalPlan, shortestPaths: ShortestPathPattern, predicates: Seq[Expression])
                       (implicit context: LogicalPlanningContext) = {
     val solved = inner.solved.amendQueryGraph(_.addShortestPath(shortestPaths).addPredicates(predicates: _*))
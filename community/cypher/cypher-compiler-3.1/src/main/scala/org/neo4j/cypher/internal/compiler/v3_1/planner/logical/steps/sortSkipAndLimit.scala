@@ -19,11 +19,14 @@
  */
 package org.neo4j.cypher.internal.compiler.v3_1.planner.logical.steps
 
+import org.neo4j.cypher.internal.compiler.v3_1.ast.{InequalitySeekRangeWrapper, PrefixSeekRangeWrapper}
+import org.neo4j.cypher.internal.compiler.v3_1.commands.{QueryExpression, RangeQueryExpression, SingleQueryExpression}
 import org.neo4j.cypher.internal.compiler.v3_1.planner.logical._
 import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans._
 import org.neo4j.cypher.internal.compiler.v3_1.planner.{PlannerQuery, QueryProjection}
+import org.neo4j.cypher.internal.compiler.v3_1.{InequalitySeekRange, RangeBetween, RangeGreaterThan, RangeLessThan}
 import org.neo4j.cypher.internal.frontend.v3_1.ast.Variable
-import org.neo4j.cypher.internal.frontend.v3_1.{InternalException, ast}
+import org.neo4j.cypher.internal.frontend.v3_1.{Bound, InternalException, ast}
 
 object sortSkipAndLimit extends PlanTransformer[PlannerQuery] {
 
@@ -36,8 +39,11 @@ object sortSkipAndLimit extends PlanTransformer[PlannerQuery] {
 
         case (sortItems, s, l) =>
           require(sortItems.forall(_.expression.isInstanceOf[Variable]))
-          val sortDescriptions = sortItems.map(sortDescription)
-          val sortedPlan = context.logicalPlanProducer.planSort(plan, sortDescriptions, sortItems)
+          val sortedPlan =
+            if (providesOrder(plan, sortItems))
+              context.logicalPlanProducer.planSortSolvedByOrder(plan, sortItems)
+            else
+              context.logicalPlanProducer.planSort(plan, sortItems.map(sortDescription), sortItems)
 
           addLimit(l, addSkip(s, sortedPlan))
       }
@@ -47,6 +53,82 @@ object sortSkipAndLimit extends PlanTransformer[PlannerQuery] {
     case _ => plan
   }
 
+  /*
+  Rows come out of an index range seek in ascending value order when the index says so, and stay in that order
+  through operators that only filter, rename or extend each incoming row. Only a single ascending sort on a property
+  of the seeked node is recognised. Numbers too large to be told apart as doubles are put in exact order by the
+  kernel, so number ranges can be trusted too.
+   */
+  private def providesOrder(plan: LogicalPlan, sortItems: Seq[ast.SortItem])(implicit context: LogicalPlanningContext): Boolean =
+    sortItems match {
+      case Seq(ast.AscSortItem(ast.Variable(key))) =>
+        projectedProperty(plan, key).exists {
+          case (node, propertyKey) => seekOrdersBy(plan, node, propertyKey)
+        }
+      case _ =>
+        false
+    }
+
+  private def projectedProperty(plan: LogicalPlan, key: String): Option[(String, String)] = plan match {
+    case Projection(_, expressions) if expressions.contains(key) => expressions(key) match {
+      case ast.Property(ast.Variable(node), ast.PropertyKeyName(propertyKey)) => Some(node -> propertyKey)
+      case _ => None
+    }
+    case p: Projection => projectedProperty(p.left, key)
+    case p: Selection => projectedProperty(p.left, key)
+    // How the parts of a query split at a WITH are put together, before the Apply is rewritten away
+    case Apply(left, _: Argument) => projectedProperty(left, key)
+    case _ => None
+  }
+
+  private def seekOrdersBy(plan: LogicalPlan, node: String, propertyKey: String)
+                          (implicit context: LogicalPlanningContext): Boolean = plan match {
+    case NodeIndexSeek(IdName(`node`), label, ast.PropertyKeyToken(`propertyKey`, _), valueExpr, _) =>
+      indexOrders(label.name, propertyKey, valueExpr)
+    case NodeUniqueIndexSeek(IdName(`node`), label, ast.PropertyKeyToken(`propertyKey`, _), valueExpr, _) =>
+      indexOrders(label.name, propertyKey, valueExpr)
+    case Projection(left, expressions) => expressions.get(node) match {
+      case None => seekOrdersBy(left, node, propertyKey)
+      case Some(ast.Variable(source)) => seekOrdersBy(left, source, propertyKey)
+      case _ => false
+    }
+    case p: Selection => seekOrdersBy(p.left, node, propertyKey)
+    case p: Expand => seekOrdersBy(p.left, node, propertyKey)
+    case p: OptionalExpand => seekOrdersBy(p.left, node, propertyKey)
+    case p: Apply => seekOrdersBy(p.left, node, propertyKey)
+    case p: SemiApply => seekOrdersBy(p.left, node, propertyKey)
+    case p: AntiSemiApply => seekOrdersBy(p.left, node, propertyKey)
+    case p: CartesianProduct => seekOrdersBy(p.left, node, propertyKey)
+    case _ => false
+  }
+
+  private def indexOrders(labelName: String, propertyKey: String, valueExpr: QueryExpression[ast.Expression])
+                         (implicit context: LogicalPlanningContext): Boolean = {
+    lazy val order = context.planContext.getIndexOrder(labelName, propertyKey)
+    valueExpr match {
+      case SingleQueryExpression(_) =>
+        true
+      case RangeQueryExpression(_: PrefixSeekRangeWrapper) =>
+        order.ordersStrings()
+      case RangeQueryExpression(InequalitySeekRangeWrapper(range)) =>
+        val endPoints = boundsOf(range).map(_.endPoint)
+        if (endPoints.forall(_.isInstanceOf[ast.NumberLiteral]))
+          order.ordersNumbers()
+        else if (endPoints.forall(_.isInstanceOf[ast.StringLiteral]))
+          order.ordersStrings()
+        else
+          order.ordersNumbers() && order.ordersStrings()
+      case _ =>
+        false
+    }
+  }
+
+  private def boundsOf(range: InequalitySeekRange[ast.Expression]): Seq[Bound[ast.Expression]] = range match {
+    case RangeBetween(greaterThan, lessThan) => greaterThan.bounds.toSeq ++ lessThan.bounds.toSeq
+    case RangeGreaterThan(bounds) => bounds.toSeq
+    case RangeLessThan(bounds) => bounds.toSeq
+  }
+
   private def sortDescription(in: ast.SortItem): SortDescription = in match {
     case ast.AscSortItem(ast.Variable(key)) => Ascending(IdName(key))
     case ast.DescSortItem(ast.Variable(key)) => Descending(IdName(key))
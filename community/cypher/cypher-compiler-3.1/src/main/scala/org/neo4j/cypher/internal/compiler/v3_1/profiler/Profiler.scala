@@ -26,6 +26,8 @@ import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescr
 import org.neo4j.cypher.internal.compiler.v3_1.spi.{DelegatingOperations, DelegatingQueryContext, Operations, QueryContext}
 import org.neo4j.cypher.internal.frontend.v3_1.ProfilerStatisticsNotReadyException
 import org.neo4j.graphdb.{Node, PropertyContainer, Relationship}
+import org.neo4j.kernel.impl.api.RelationshipVisitor
+import org.neo4j.kernel.impl.api.store.RelationshipIterator
 
 import scala.collection.mutable
 
@@ -119,6 +121,20 @@ final class ProfilingQueryContext(inner: QueryContext, val p: Pipe)
     }
   }
 
+  override protected def manyDbHits(inner: RelationshipIterator): RelationshipIterator = new RelationshipIterator {
+    increment()
+
+    override def relationshipVisit[EXCEPTION <: Exception](relationshipId: Long, visitor: RelationshipVisitor[EXCEPTION]): Boolean =
+      inner.relationshipVisit(relationshipId, visitor)
+
+    override def next(): Long = {
+      increment()
+      inner.next()
+    }
+
+    override def hasNext: Boolean = inner.hasNext
+  }
+
   class ProfilerOperations[T <: PropertyContainer](inner: Operations[T]) extends DelegatingOperations[T](inner) {
     override protected def singleDbHit[A](value: A): A = self.singleDbHit(value)
     override protected def manyDbHits[A](value: Iterator[A]): Iterator[A] = self.manyDbHits(value)
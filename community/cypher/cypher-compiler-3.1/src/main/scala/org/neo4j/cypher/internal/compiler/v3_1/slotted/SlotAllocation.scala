@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.slotted
+
+import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans._
+import org.neo4j.cypher.internal.frontend.v3_1.symbols._
+
+import scala.collection.mutable
+
+/**
+ * Assigns every variable produced anywhere in a logical plan a fixed slot.
+ *
+ * Variables that scans, seeks and expands bind to nodes or relationships get a long slot holding the entity id, all
+ * other variables get a reference slot.
+ */
+object SlotAllocation {
+
+  def allocate(plan: LogicalPlan): SlotConfiguration = {
+    val variables = mutable.LinkedHashSet[String]()
+    val entityTypes = mutable.Map[String, CypherType]()
+    val mixedTypes = mutable.Set[String]()
+
+    def visit(current: LogicalPlan): Unit = {
+      current.lhs.foreach(visit)
+      current.rhs.foreach(visit)
+      variables ++= current.availableSymbols.map(_.name).toSeq.sorted
+      entityVariables(current).foreach {
+        case (IdName(name), typ) =>
+          if (entityTypes.getOrElseUpdate(name, typ) != typ)
+            mixedTypes += name
+      }
+    }
+
+    visit(plan)
+
+    var longs = 0
+    var refs = 0
+    val slots = variables.toIndexedSeq.map { name =>
+      entityTypes.get(name) match {
+        case Some(typ) if !mixedTypes(name) =>
+          longs += 1
+          name -> LongSlot(longs - 1, typ)
+        case _ =>
+          refs += 1
+          name -> RefSlot(refs - 1)
+      }
+    }
+    new SlotConfiguration(slots.toMap)
+  }
+
+  private def entityVariables(plan: LogicalPlan): Seq[(IdName, CypherType)] = plan match {
+    case p: AllNodesScan => Seq(p.idName -> CTNode)
+    case p: NodeByLabelScan => Seq(p.idName -> CTNode)
+    case p: NodeByIdSeek => Seq(p.idName -> CTNode)
+    case p: NodeIndexSeek => Seq(p.idName -> CTNode)
+    case p: NodeUniqueIndexSeek => Seq(p.idName -> CTNode)
+    case p: NodeIndexScan => Seq(p.idName -> CTNode)
+    case p: NodeIndexContainsScan => Seq(p.idName -> CTNode)
+    case p: NodeIndexEndsWithScan => Seq(p.idName -> CTNode)
+    case p: DirectedRelationshipByIdSeek => Seq(p.idName -> CTRelationship, p.startNode -> CTNode, p.endNode -> CTNode)
+    case p: UndirectedRelationshipByIdSeek => Seq(p.idName -> CTRelationship, p.leftNode -> CTNode, p.rightNode -> CTNode)
+    case p: Expand if p.mode == ExpandAll => Seq(p.relName -> CTRelationship, p.to -> CTNode)
+    case p: Expand => Seq(p.relName -> CTRelationship)
+    case p: OptionalExpand if p.mode == ExpandAll => Seq(p.relName -> CTRelationship, p.to -> CTNode)
+    case p: OptionalExpand => Seq(p.relName -> CTRelationship)
+    case _ => Seq.empty
+  }
+}
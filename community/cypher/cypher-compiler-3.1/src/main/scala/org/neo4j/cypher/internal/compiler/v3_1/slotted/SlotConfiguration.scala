@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.slotted
+
+import org.neo4j.cypher.internal.frontend.v3_1.symbols.CypherType
+
+/**
+ * The place a variable occupies in a slotted row.
+ */
+sealed trait Slot {
+  def offset: Int
+}
+
+/**
+ * Slot in the long array of a row, holding the id of a node or relationship unboxed.
+ */
+final case class LongSlot(offset: Int, typ: CypherType) extends Slot
+
+/**
+ * Slot in the reference array of a row, holding any other value.
+ */
+final case class RefSlot(offset: Int) extends Slot
+
+/**
+ * Fixed row layout of a slotted plan, decided once at plan time and shared by all rows of all executions of the plan.
+ */
+final class SlotConfiguration(val slots: Map[String, Slot]) {
+
+  private val lookup = new java.util.HashMap[String, Slot](slots.size * 2)
+
+  val numberOfLongs: Int = slots.values.count(_.isInstanceOf[LongSlot])
+  val numberOfReferences: Int = slots.size - numberOfLongs
+
+  private val longNames = new Array[String](numberOfLongs)
+  private val refNames = new Array[String](numberOfReferences)
+
+  slots.foreach {
+    case (name, slot) =>
+      lookup.put(name, slot)
+      slot match {
+        case LongSlot(offset, _) => longNames(offset) = name
+        case RefSlot(offset) => refNames(offset) = name
+      }
+  }
+
+  /**
+   * @return the slot of the given variable, or null if the variable has no slot in this configuration
+   */
+  def slotFor(name: String): Slot = lookup.get(name)
+
+  def longNameAt(offset: Int): String = longNames(offset)
+
+  def refNameAt(offset: Int): String = refNames(offset)
+
+  override def toString = s"SlotConfiguration(${slots.toSeq.sortBy(_._1).mkString(", ")})"
+}
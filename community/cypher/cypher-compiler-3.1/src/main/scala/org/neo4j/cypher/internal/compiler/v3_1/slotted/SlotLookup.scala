@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.slotted
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+
+/**
+ * Finds one variable in rows. The first time a slotted row is seen the variable is resolved to its slot, and rows laid
+ * out by the same slot configuration are read by offset from then on. Rows that are not slotted are read by name.
+ *
+ * Instances are shared by all executions of a cached plan; the resolved slot is published as a single immutable
+ * object, so concurrent readers at worst resolve it more than once.
+ */
+final class SlotLookup(name: String) {
+
+  import SlotLookup.Resolved
+
+  private var resolved: Resolved = SlotLookup.Unresolved
+
+  def getOrElse(row: ExecutionContext, default: => Any): Any = row.m match {
+    case slotted: SlottedRow =>
+      val slot = slotIn(slotted)
+      if (slot == null) slotted.getOrElse(name, default)
+      else slotted.getSlotOrElse(slot, default)
+
+    case map =>
+      map.getOrElse(name, default)
+  }
+
+  /**
+   * @return the offset of the long slot of the variable in rows laid out like the given row, or -1 if the variable
+   *         has no long slot there
+   */
+  def longOffset(row: SlottedRow): Int = slotIn(row) match {
+    case LongSlot(offset, _) => offset
+    case _ => -1
+  }
+
+  private def slotIn(row: SlottedRow): Slot = {
+    var current = resolved
+    if (current.slots ne row.slots) {
+      current = Resolved(row.slots, row.slots.slotFor(name))
+      resolved = current
+    }
+    current.slot
+  }
+}
+
+object SlotLookup {
+
+  private case class Resolved(slots: SlotConfiguration, slot: Slot)
+
+  private val Unresolved = Resolved(null, null)
+}
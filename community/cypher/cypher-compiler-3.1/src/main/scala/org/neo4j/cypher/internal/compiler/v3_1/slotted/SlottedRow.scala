@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.slotted
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.MutableMaps
+import org.neo4j.cypher.internal.compiler.v3_1.spi.QueryContext
+import org.neo4j.cypher.internal.frontend.v3_1.symbols._
+import org.neo4j.graphdb.{Node, Relationship}
+
+import scala.collection.mutable.{Map => MutableMap}
+
+object SlottedRow {
+
+  // Long slots hold entity ids, which are never negative, so negative values are free to mark the other states
+
+  /** The long slot holds null. */
+  val NullId: Long = -1L
+
+  // The long slot holds no value, which is different from holding null
+  private val AbsentId = -2L
+
+  // The variable of the long slot was bound to something other than an entity, which is kept in the overflow map
+  private val OverflowId = -3L
+
+  // Marks reference slots that hold no value
+  private val Absent = new AnyRef
+
+  def empty(slots: SlotConfiguration, query: QueryContext): SlottedRow = {
+    val longs = new Array[Long](slots.numberOfLongs)
+    java.util.Arrays.fill(longs, AbsentId)
+    val refs = new Array[AnyRef](slots.numberOfReferences)
+    java.util.Arrays.fill(refs, Absent)
+    new SlottedRow(slots, query, longs, refs, null)
+  }
+
+  def newContext(slots: SlotConfiguration, query: QueryContext): ExecutionContext = ExecutionContext(empty(slots, query))
+}
+
+/**
+ * Row implementation backed by a long[] and an Object[] laid out by a SlotConfiguration.
+ *
+ * Node and relationship variables are kept as unboxed ids in the long array. Pipes that know the offset of such a
+ * variable read and write the id directly; everything reading the row by name gets an entity proxy for the id.
+ * Copying a row copies the two arrays instead of rehashing every entry. Variables that were not known when the slots
+ * were allocated are kept in a regular map on the side.
+ */
+final class SlottedRow private(val slots: SlotConfiguration,
+                               query: QueryContext,
+                               private val longs: Array[Long],
+                               private val refs: Array[AnyRef],
+                               private var overflow: MutableMap[String, Any]) extends MutableMap[String, Any] {
+
+  import SlottedRow._
+
+  /**
+   * @return the entity id held by the long slot at the given offset, or a negative value if the slot does not hold
+   *         an id, which is NullId if it holds null
+   */
+  def getLongAt(offset: Int): Long = longs(offset)
+
+  def setLongAt(offset: Int, id: Long): Unit = {
+    if (longs(offset) == OverflowId)
+      overflow -= slots.longNameAt(offset)
+    longs(offset) = id
+  }
+
+  def getSlotOrElse(slot: Slot, default: => Any): Any = slot match {
+    case LongSlot(offset, typ) =>
+      longs(offset) match {
+        case AbsentId => default
+        case NullId => null
+        case OverflowId => overflow(slots.longNameAt(offset))
+        case id => entity(id, typ)
+      }
+
+    case RefSlot(offset) =>
+      val value = refs(offset)
+      if (value eq Absent) default else value
+  }
+
+  override def get(key: String): Option[Any] = {
+    val slot = slots.slotFor(key)
+    if (slot == null) {
+      if (overflow == null) None else overflow.get(key)
+    } else {
+      val value = getSlotOrElse(slot, Absent)
+      if (value.asInstanceOf[AnyRef] eq Absent) None else Some(value)
+    }
+  }
+
+  override def update(key: String, value: Any): Unit = slots.slotFor(key) match {
+    case null =>
+      putOverflow(key, value)
+
+    case LongSlot(offset, typ) =>
+      value match {
+        case null => setLongAt(offset, NullId)
+        case node: Node if typ == CTNode => setLongAt(offset, node.getId)
+        case rel: Relationship if typ == CTRelationship => setLongAt(offset, rel.getId)
+        case _ =>
+          longs(offset) = OverflowId
+          putOverflow(key, value)
+      }
+
+    case RefSlot(offset) =>
+      refs(offset) = value.asInstanceOf[AnyRef]
+  }
+
+  override def +=(kv: (String, Any)): this.type = {
+    update(kv._1, kv._2)
+    this
+  }
+
+  override def -=(key: String): this.type = {
+    slots.slotFor(key) match {
+      case null =>
+        if (overflow != null)
+          overflow -= key
+
+      case LongSlot(offset, _) =>
+        setLongAt(offset, AbsentId)
+
+      case RefSlot(offset) =>
+        refs(offset) = Absent
+    }
+    this
+  }
+
+  override def iterator: Iterator[(String, Any)] = {
+    val entities = longs.indices.iterator.collect {
+      case offset if longs(offset) != AbsentId && longs(offset) != OverflowId =>
+        val name = slots.longNameAt(offset)
+        (name, getSlotOrElse(slots.slotFor(name), null))
+    }
+    val values = refs.indices.iterator.collect {
+      case offset if refs(offset) ne Absent => (slots.refNameAt(offset), refs(offset): Any)
+    }
+    if (overflow == null) entities ++ values else entities ++ values ++ overflow.iterator
+  }
+
+  override def size: Int = {
+    var count = if (overflow == null) 0 else overflow.size
+    var offset = 0
+    while (offset < longs.length) {
+      if (longs(offset) != AbsentId && longs(offset) != OverflowId)
+        count += 1
+      offset += 1
+    }
+    offset = 0
+    while (offset < refs.length) {
+      if (refs(offset) ne Absent)
+        count += 1
+      offset += 1
+    }
+    count
+  }
+
+  override def empty: SlottedRow = SlottedRow.empty(slots, query)
+
+  override def clone(): SlottedRow =
+    new SlottedRow(slots, query, longs.clone(), refs.clone(), if (overflow == null) null else overflow.clone())
+
+  private def putOverflow(key: String, value: Any): Unit = {
+    if (overflow == null)
+      overflow = MutableMaps.empty
+    overflow.update(key, value)
+  }
+
+  private def entity(id: Long, typ: CypherType): Any =
+    if (typ == CTNode) query.newNodeProxy(id) else query.newRelationshipProxy(id)
+}
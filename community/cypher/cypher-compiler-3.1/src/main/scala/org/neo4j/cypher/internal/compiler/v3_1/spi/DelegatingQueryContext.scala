@@ -26,6 +26,7 @@ import org.neo4j.cypher.internal.compiler.v3_1.pipes.matching.PatternNode
 import org.neo4j.cypher.internal.frontend.v3_1.SemanticDirection
 import org.neo4j.graphdb.{Node, Path, PropertyContainer, Relationship}
 import org.neo4j.kernel.api.index.IndexDescriptor
+import org.neo4j.kernel.impl.api.store.RelationshipIterator
 
 import scala.collection.Iterator
 
@@ -34,6 +35,7 @@ class DelegatingQueryContext(val inner: QueryContext) extends QueryContext {
   protected def singleDbHit[A](value: A): A = value
   protected def manyDbHits[A](value: Iterator[A]): Iterator[A] = value
   protected def manyDbHits(count: Int): Int = count
+  protected def manyDbHits(value: RelationshipIterator): RelationshipIterator = value
 
   type EntityAccessor = inner.EntityAccessor
 
@@ -67,6 +69,13 @@ class DelegatingQueryContext(val inner: QueryContext) extends QueryContext {
   override def getRelationshipsForIds(node: Node, dir: SemanticDirection, types: Option[Seq[Int]]): Iterator[Relationship] =
   manyDbHits(inner.getRelationshipsForIds(node, dir, types))
 
+  override def getRelationshipsForIdsPrimitive(node: Long, dir: SemanticDirection, types: Option[Seq[Int]]): RelationshipIterator =
+    manyDbHits(inner.getRelationshipsForIdsPrimitive(node, dir, types))
+
+  override def newNodeProxy(id: Long): Node = inner.newNodeProxy(id)
+
+  override def newRelationshipProxy(id: Long): Relationship = inner.newRelationshipProxy(id)
+
   override def nodeOps = inner.nodeOps
 
   override def relationshipOps = inner.relationshipOps
@@ -130,6 +139,13 @@ class DelegatingQueryContext(val inner: QueryContext) extends QueryContext {
 
   override def withAnyOpenQueryContext[T](work: (QueryContext) => T): T = inner.withAnyOpenQueryContext(work)
 
+  override def workerContextFactory: Option[() => QueryContext] = inner.workerContextFactory
+
+  override def nodeHighId: Long = singleDbHit(inner.nodeHighId)
+
+  override def nodesInIdRange(fromId: Long, toId: Long): Iterator[Node] = manyDbHits(inner.nodesInIdRange(fromId, toId))
+
+
   override def lockingUniqueIndexSeek(index: IndexDescriptor, value: Any): Option[Node] =
     singleDbHit(inner.lockingUniqueIndexSeek(index, value))
 
@@ -243,5 +259,9 @@ class DelegatingQueryTransactionalContext(val inner: QueryTransactionalContext)
 
   override def isTopLevelTx: Boolean = inner.isTopLevelTx
 
+  override def isTerminated: Boolean = inner.isTerminated
+
+  override def terminate() { inner.terminate() }
+
   override def close(success: Boolean) { inner.close(success) }
 }
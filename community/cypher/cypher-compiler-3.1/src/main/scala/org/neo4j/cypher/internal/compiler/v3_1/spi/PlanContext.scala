@@ -24,6 +24,7 @@ import org.neo4j.cypher.internal.compiler.v3_1.pipes.matching.{ExpanderStep, Tra
 import org.neo4j.graphdb.Node
 import org.neo4j.kernel.api.constraints.UniquenessConstraint
 import org.neo4j.kernel.api.index.IndexDescriptor
+import org.neo4j.storageengine.api.schema.IndexOrder
 
 /**
  * PlanContext is an internal access layer to the graph that is solely used during plan building
@@ -40,6 +41,12 @@ trait PlanContext extends TokenContext with ProcedureSignatureResolver {
 
   def getUniqueIndexRule(labelName: String, propertyKey: String): Option[IndexDescriptor]
 
+  /**
+   * Which range seeks on the index for the given label and property return nodes in ascending value order.
+   * Returns IndexOrder.NONE if there is no such index.
+   */
+  def getIndexOrder(labelName: String, propertyKey: String): IndexOrder
+
   def getUniquenessConstraint(labelName: String, propertyKey: String): Option[UniquenessConstraint]
 
   def hasPropertyExistenceConstraint(labelName: String, propertyKey: String): Boolean
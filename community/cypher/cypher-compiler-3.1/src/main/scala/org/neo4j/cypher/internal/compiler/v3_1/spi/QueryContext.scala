@@ -28,6 +28,7 @@ import org.neo4j.cypher.internal.frontend.v3_1.SemanticDirection
 import org.neo4j.graphdb.{Node, Path, PropertyContainer, Relationship}
 import org.neo4j.kernel.api.constraints.{NodePropertyExistenceConstraint, RelationshipPropertyExistenceConstraint, UniquenessConstraint}
 import org.neo4j.kernel.api.index.IndexDescriptor
+import org.neo4j.kernel.impl.api.store.RelationshipIterator
 
 import scala.collection.Iterator
 
@@ -67,6 +68,19 @@ trait QueryContext extends TokenContext {
 
   def getRelationshipsForIds(node: Node, dir: SemanticDirection, types: Option[Seq[Int]]): Iterator[Relationship]
 
+  /**
+   * Like getRelationshipsForIds, but reads relationships as ids; the other end of each relationship can be read by
+   * visiting it through the returned iterator.
+   */
+  def getRelationshipsForIdsPrimitive(node: Long, dir: SemanticDirection, types: Option[Seq[Int]]): RelationshipIterator
+
+  /**
+   * Entity proxies for ids the query has already read, which unlike nodeOps.getById do not look the entity up.
+   */
+  def newNodeProxy(id: Long): Node
+
+  def newRelationshipProxy(id: Long): Relationship
+
   def getOrCreateLabelId(labelName: String): Int
 
   def getLabelsForNode(node: Long): Iterator[Int]
@@ -124,6 +138,21 @@ trait QueryContext extends TokenContext {
    */
   def withAnyOpenQueryContext[T](work: (QueryContext) => T): T
 
+  /**
+   * Creates contexts for reading on other threads. Each call to the returned function must be made on the thread
+   * that will use the context, and the caller closes the transactional context of it when done. Returns None when
+   * other transactions can not see the same data as this one, i.e. when this transaction has changes of its own.
+   */
+  def workerContextFactory: Option[() => QueryContext]
+
+  /**
+   * The ids of all nodes are below this one. Node scans run by the contexts of workerContextFactory are split into
+   * ranges of ids below it, which each context reads with nodesInIdRange.
+   */
+  def nodeHighId: Long
+
+  def nodesInIdRange(fromId: Long, toId: Long): Iterator[Node]
+
   def relationshipStartNode(rel: Relationship): Node
 
   def relationshipEndNode(rel: Relationship): Node
@@ -208,6 +237,13 @@ trait QueryTransactionalContext {
 
   def isTopLevelTx: Boolean
 
+  def isTerminated: Boolean
+
+  /**
+   * Terminates the transaction. Unlike the other methods, it may be called from any thread.
+   */
+  def terminate(): Unit
+
   def close(success: Boolean)
 
   def commitAndRestartTx()
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.parallel
+
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.{ConcurrentLinkedQueue, CountDownLatch, TimeUnit}
+
+import org.mockito.Matchers.anyLong
+import org.mockito.Mockito._
+import org.mockito.invocation.InvocationOnMock
+import org.mockito.stubbing.Answer
+import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions._
+import org.neo4j.cypher.internal.compiler.v3_1.commands.predicates.True
+import org.neo4j.cypher.internal.compiler.v3_1.pipes._
+import org.neo4j.cypher.internal.compiler.v3_1.spi.{QueryContext, QueryTransactionalContext}
+import org.neo4j.cypher.internal.frontend.v3_1.ArithmeticException
+import org.neo4j.cypher.internal.frontend.v3_1.symbols._
+import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
+import org.neo4j.graphdb.{Node, TransactionTerminatedException}
+
+import scala.collection.JavaConverters._
+
+class ParallelPipeTest extends CypherFunSuite {
+
+  private implicit val monitor = mock[PipeMonitor]
+
+  test("should merge the counts of several workers") {
+    // given
+    val workers = new AtomicInteger()
+    val query = newQueryContext(Some(() => {
+      workers.incrementAndGet()
+      newWorkerContext()
+    }))
+
+    // when
+    val result = getResults(countPipe(rows(25000)), query)
+
+    // then
+    result should equal(List(Map("c" -> 25000L)))
+    workers.get() should equal(4)
+  }
+
+  test("should run on the calling thread when other transactions can not see the same data") {
+    // given
+    val query = newQueryContext(None)
+
+    // when
+    val result = getResults(countPipe(rows(2500)), query)
+
+    // then
+    result should equal(List(Map("c" -> 2500L)))
+  }
+
+  test("should rethrow the failure of a worker") {
+    // given
+    val query = newQueryContext(Some(() => newWorkerContext()))
+    val leaf = rows(25000)
+    val pipeline = ProjectionPipe(MorselInputPipe(leaf), Map("y" -> Divide(Literal(1), Subtract(Variable("x"), Literal(12345)))))()
+
+    // when
+    val pipe = ParallelPipe(pipeline, leaf, parallelism = 4, morselSize = 1000)()
+
+    // then
+    an [ArithmeticException] should be thrownBy getResults(pipe, query)
+  }
+
+  test("should let the workers read the node id ranges of a scan") {
+    // given
+    val ranges = new ConcurrentLinkedQueue[(Long, Long)]()
+    val query = newQueryContext(Some(() => {
+      val context = newWorkerContext()
+      when(context.nodesInIdRange(anyLong(), anyLong())).thenAnswer(new Answer[Iterator[Node]] {
+        override def answer(invocation: InvocationOnMock): Iterator[Node] = {
+          val from = invocation.getArguments()(0).asInstanceOf[Long]
+          val to = invocation.getArguments()(1).asInstanceOf[Long]
+          ranges.add(from -> to)
+          (from until to).iterator.map(_ => mock[Node])
+        }
+      })
+      context
+    }))
+    when(query.nodeHighId).thenReturn(25500L)
+
+    // when
+    val result = getResults(countPipe(AllNodesScanPipe("n")()), query)
+
+    // then
+    result should equal(List(Map("c" -> 25500L)))
+    ranges.asScala.toList.sorted should equal((0L until 25500L by 1000L).map(from => from -> math.min(from + 1000L, 25500L)))
+    verify(query, never()).nodeOps
+  }
+
+  test("should hand the nodes of a label scan out to the workers in morsels") {
+    // given
+    val query = newQueryContext(Some(() => newWorkerContext()))
+    when(query.getOptLabelId("Person")).thenReturn(Some(0))
+    when(query.getNodesByLabel(0)).thenReturn((1 to 2500).iterator.map(_ => mock[Node]))
+
+    // when
+    val result = getResults(countPipe(NodeByLabelScanPipe("n", LazyLabel("Person"))()), query)
+
+    // then
+    result should equal(List(Map("c" -> 2500L)))
+    verify(query, never()).nodeHighId
+  }
+
+  test("should terminate the transactions of the workers when the query is terminated") {
+    // given
+    val scanning = new CountDownLatch(1)
+    val terminated = new CountDownLatch(1)
+    val workers = new ConcurrentLinkedQueue[QueryTransactionalContext]()
+    val query = newQueryContext(Some(() => {
+      val transactionalContext = mock[QueryTransactionalContext]
+      doAnswer(new Answer[Unit] {
+        override def answer(invocation: InvocationOnMock): Unit = terminated.countDown()
+      }).when(transactionalContext).terminate()
+      workers.add(transactionalContext)
+      val context = newWorkerContext(transactionalContext)
+      when(context.nodesInIdRange(anyLong(), anyLong())).thenAnswer(new Answer[Iterator[Node]] {
+        override def answer(invocation: InvocationOnMock): Iterator[Node] = {
+          // the scan of a worker only ends once it has been terminated
+          scanning.countDown()
+          terminated.await()
+          Iterator.empty
+        }
+      })
+      context
+    }))
+    when(query.nodeHighId).thenReturn(25000L)
+    when(query.transactionalContext.isTerminated).thenAnswer(new Answer[Boolean] {
+      override def answer(invocation: InvocationOnMock): Boolean = scanning.getCount == 0
+    })
+
+    // when
+    a [TransactionTerminatedException] should be thrownBy getResults(countPipe(AllNodesScanPipe("n")()), query)
+
+    // then the workers that were scanning, and those that had yet to start, are terminated
+    ParallelPipe.pool.awaitQuiescence(10, TimeUnit.SECONDS) should equal(true)
+    workers.size should equal(4)
+    workers.asScala.foreach(worker => verify(worker).terminate())
+  }
+
+  test("should run the scan below an aggregation in parallel") {
+    // given
+    val scan = AllNodesScanPipe("n")()
+    val aggregation = EagerAggregationPipe(FilterPipe(scan, True())(), Set.empty, Map("c" -> CountStar()))()
+
+    // when
+    val rewritten = ParallelPipes.rewrite(aggregation, parallelism = 4)
+
+    // then
+    rewritten match {
+      case EagerAggregationPipe(ParallelPipe(EagerAggregationPipe(FilterPipe(MorselInputPipe(leaf), _), _, partial), _, 4, _), _, merging) =>
+        leaf should be theSameInstanceAs scan
+        partial should equal(Map("c" -> CountStar()))
+        merging should equal(Map("c" -> Sum(Variable("c"))))
+    }
+  }
+
+  test("should not rewrite sorts, which would hold every row the workers read") {
+    val sort = SortPipe(FilterPipe(AllNodesScanPipe("n")(), True())(), List(Ascending("n")))()
+
+    ParallelPipes.rewrite(sort, parallelism = 4) should be theSameInstanceAs sort
+  }
+
+  test("should not rewrite aggregations that can not be merged") {
+    val aggregation = EagerAggregationPipe(AllNodesScanPipe("n")(), Set.empty, Map("a" -> Collect(Variable("n"))))()
+
+    ParallelPipes.rewrite(aggregation, parallelism = 4) should be theSameInstanceAs aggregation
+  }
+
+  test("should not rewrite scans that do not feed an operator that merges rows") {
+    val filter = FilterPipe(AllNodesScanPipe("n")(), True())()
+
+    ParallelPipes.rewrite(filter, parallelism = 4) should be theSameInstanceAs filter
+  }
+
+  private def rows(count: Int) = new FakePipe((1 to count).map(i => Map[String, Any]("x" -> i)), "x" -> CTInteger)
+
+  private def countPipe(leaf: Pipe) = {
+    val partial = EagerAggregationPipe(MorselInputPipe(leaf), Set.empty, Map("c" -> CountStar()))()
+    val parallel = ParallelPipe(partial, leaf, parallelism = 4, morselSize = 1000)()
+    EagerAggregationPipe(parallel, Set.empty, Map("c" -> Sum(Variable("c"))))()
+  }
+
+  private def newWorkerContext(transactionalContext: QueryTransactionalContext = mock[QueryTransactionalContext]) = {
+    val context = mock[QueryContext]
+    when(context.transactionalContext).thenReturn(transactionalContext)
+    context
+  }
+
+  private def newQueryContext(workerContextFactory: Option[() => QueryContext]) = {
+    val context = mock[QueryContext]
+    when(context.workerContextFactory).thenReturn(workerContextFactory)
+    when(context.transactionalContext).thenReturn(mock[QueryTransactionalContext])
+    context
+  }
+
+  private def getResults(pipe: Pipe, query: QueryContext) =
+    pipe.createResults(QueryStateHelper.emptyWith(query = query)).map(_.m.toMap).toList
+}
@@ -19,9 +19,11 @@
  */
 package org.neo4j.cypher.internal.compiler.v3_1.pipes
 
+import org.mockito.Mockito._
 import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.{Expression, Variable, Literal, Multiply}
 import org.neo4j.cypher.internal.frontend.v3_1.symbols._
 import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
+import org.neo4j.graphdb.Node
 
 class DistinctPipeTest extends CypherFunSuite {
 
@@ -75,6 +77,36 @@ class DistinctPipeTest extends CypherFunSuite {
     result.head("x").asInstanceOf[Map[String,Array[String]]].apply("prop").toSeq should equal(Seq("a", "b"))
   }
 
+  test("distinct compares nodes by id") {
+    //GIVEN
+    val node = newMockedNode(1)
+    val pipe = createDistinctPipe(List(Map("x" -> node), Map("x" -> newMockedNode(1)), Map("x" -> newMockedNode(2))))
+
+    //WHEN
+    val result = pipe.createResults(QueryStateHelper.empty).toList
+
+    //THEN
+    result.map(_("x").asInstanceOf[Node].getId) should equal(List(1L, 2L))
+    result.head("x").asInstanceOf[AnyRef] should be theSameInstanceAs node
+  }
+
+  test("distinct keeps nodes apart from other values") {
+    //GIVEN
+    val pipe = createDistinctPipe(List(Map("x" -> newMockedNode(1)), Map("x" -> 1), Map("x" -> 1.0), Map("x" -> null), Map("x" -> null)))
+
+    //WHEN
+    val result = pipe.createResults(QueryStateHelper.empty).toList
+
+    //THEN
+    result should have size 3
+  }
+
+  private def newMockedNode(id: Int) = {
+    val node = mock[Node]
+    when(node.getId).thenReturn(id)
+    node
+  }
+
   def createDistinctPipe(input: List[Map[String, Any]], expressions: Map[String, Expression] = Map("x" -> Variable("x"))) = {
     val source = new FakePipe(input, "x" -> CTNumber)
     new DistinctPipe(source, expressions)()
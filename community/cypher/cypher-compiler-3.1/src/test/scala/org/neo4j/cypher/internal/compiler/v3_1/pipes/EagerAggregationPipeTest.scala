@@ -19,12 +19,15 @@
  */
 package org.neo4j.cypher.internal.compiler.v3_1.pipes
 
+import org.mockito.Mockito._
 import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions._
 import org.neo4j.cypher.internal.compiler.v3_1.commands.predicates.Equivalent
 import org.neo4j.cypher.internal.compiler.v3_1.commands.values.TokenType.PropertyKey
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.{BoundedQueryMemory, QueryMemoryTracker}
 import org.neo4j.cypher.internal.frontend.v3_1.SyntaxException
 import org.neo4j.cypher.internal.frontend.v3_1.symbols._
 import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
+import org.neo4j.graphdb.Node
 
 class EagerAggregationPipeTest extends CypherFunSuite {
 
@@ -127,6 +130,25 @@ class EagerAggregationPipeTest extends CypherFunSuite {
     )
   }
 
+  test("should group on nodes by id") {
+    val a = newMockedNode(1)
+    val b = newMockedNode(2)
+    val source = new FakePipe(List(
+      Map[String, Any]("n" -> a),
+      Map[String, Any]("n" -> newMockedNode(1)),
+      Map[String, Any]("n" -> b),
+      Map[String, Any]("n" -> a)), createSymbolTableFor("n"))
+
+    val returnItems = createReturnItemsFor("n")
+    val grouping = Map("count(*)" -> CountStar())
+    val aggregationPipe = new EagerAggregationPipe(source, returnItems, grouping)()
+
+    getResults(aggregationPipe) should equal(List(
+      Map[String, Any]("n" -> a, "count(*)" -> 3),
+      Map[String, Any]("n" -> b, "count(*)" -> 1)
+    ))
+  }
+
   test("shouldReturnZeroForEmptyInput") {
     val source = new FakePipe(List(), createSymbolTableFor("name"))
 
@@ -162,6 +184,49 @@ class EagerAggregationPipeTest extends CypherFunSuite {
     getResults(aggregationPipe) should equal(List(Map("count(name)" -> 3)))
   }
 
+  test("should aggregate more groups than fit in the memory budget") {
+    val source = new FakePipe((0 until 1000).map(i => Map[String, Any]("name" -> s"name ${i % 200}", "age" -> i)),
+                              "name" -> CTString, "age" -> CTInteger)
+
+    val grouping = Map("count(*)" -> CountStar(), "sum(age)" -> Sum(Variable("age")))
+    val aggregationPipe = new EagerAggregationPipe(source, createReturnItemsFor("name"), grouping)()
+    val memory = QueryMemoryTracker(budgetInBytes = 4096, updating = false)
+
+    val result = aggregationPipe.createResults(QueryStateHelper.emptyWith(memory = memory)).map(_.m.toMap).toList
+
+    result should contain theSameElementsAs (0 until 200).map { i =>
+      Map[String, Any]("name" -> s"name $i", "count(*)" -> 5, "sum(age)" -> (0 until 5).map(_ * 200 + i).sum)
+    }
+    memory.spilledBytes(aggregationPipe.id) should be > 0L
+    memory.close()
+  }
+
+  test("should charge growing aggregation state to the memory budget") {
+    val value = "x" * 100
+    val source = new FakePipe((0 until 1000).map(i => Map[String, Any]("name" -> s"name ${i / 100}", "value" -> value)),
+                              "name" -> CTString, "value" -> CTString)
+
+    val grouping = Map("collect(value)" -> Collect(Variable("value")))
+    val aggregationPipe = new EagerAggregationPipe(source, createReturnItemsFor("name"), grouping)()
+    val memory = QueryMemoryTracker(budgetInBytes = 16384, updating = false)
+
+    val result = aggregationPipe.createResults(QueryStateHelper.emptyWith(memory = memory)).map(_.m.toMap).toList
+
+    result should contain theSameElementsAs (0 until 10).map { i =>
+      Map[String, Any]("name" -> s"name $i", "collect(value)" -> List.fill(100)(value))
+    }
+    // Ten small groups fit in the budget, but not what they collect
+    memory.spilledBytes(aggregationPipe.id) should be > 0L
+    memory.asInstanceOf[BoundedQueryMemory].allocatedBytes should equal(0L)
+    memory.close()
+  }
+
+  private def newMockedNode(id: Int) = {
+    val node = mock[Node]
+    when(node.getId).thenReturn(id)
+    node
+  }
+
   private def createSymbolTableFor(name: String): (String, CypherType) = name -> CTNode
 
   private def getResults(p: Pipe) = p.createResults(QueryStateHelper.empty).map(_.m.toMap).toList
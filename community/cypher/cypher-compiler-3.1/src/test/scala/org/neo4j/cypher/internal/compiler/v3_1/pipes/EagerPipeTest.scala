@@ -20,6 +20,8 @@
 package org.neo4j.cypher.internal.compiler.v3_1.pipes
 
 import org.neo4j.cypher.internal.compiler.v3_1._
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.QueryMemoryTracker
+import org.neo4j.cypher.internal.frontend.v3_1.symbols._
 import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
 
 class EagerPipeTest extends CypherFunSuite {
@@ -39,4 +41,17 @@ class EagerPipeTest extends CypherFunSuite {
     lazyIterator shouldBe empty
     resultIterator should not be empty
   }
+
+  test("should keep the order of rows that do not fit in the memory budget") {
+    val src = new FakePipe((0 until 1000).map(i => Map[String, Any]("a" -> i, "b" -> List[Any](i, i.toString))), "a" -> CTInteger, "b" -> CTList(CTAny))
+    val eager = new EagerPipe(src)()
+    val memory = QueryMemoryTracker(budgetInBytes = 4096, updating = false)
+
+    val result = eager.createResults(QueryStateHelper.emptyWith(memory = memory)).toList
+
+    result.map(_("a")) should equal(0 until 1000)
+    result.map(_("b")) should equal((0 until 1000).map(i => List(i, i.toString)))
+    memory.spilledBytes(eager.id) should be > 0L
+    memory.close()
+  }
 }
@@ -25,12 +25,15 @@ import org.mockito.Mockito._
 import org.mockito.invocation.InvocationOnMock
 import org.mockito.stubbing.Answer
 import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.slotted.{LongSlot, RefSlot, SlotConfiguration, SlottedRow}
 import org.neo4j.cypher.internal.compiler.v3_1.spi.QueryContext
 import org.neo4j.cypher.internal.compiler.v3_1.symbols.SymbolTable
 import org.neo4j.cypher.internal.frontend.v3_1.SemanticDirection
 import org.neo4j.cypher.internal.frontend.v3_1.symbols._
 import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
 import org.neo4j.graphdb.{Node, Relationship}
+import org.neo4j.kernel.impl.api.RelationshipVisitor
+import org.neo4j.kernel.impl.api.store.RelationshipIterator
 
 class ExpandAllPipeTest extends CypherFunSuite {
 
@@ -140,8 +143,46 @@ class ExpandAllPipeTest extends CypherFunSuite {
     single.m should equal(Map("a" -> startNode, "r" -> relationship1, "b" -> endNode1))
   }
 
+  test("should expand slotted rows by entity ids") {
+    // given
+    val query = mock[QueryContext]
+    val slots = new SlotConfiguration(Map("a" -> LongSlot(0, CTNode), "r" -> LongSlot(1, CTRelationship),
+                                          "b" -> LongSlot(2, CTNode), "x" -> RefSlot(0)))
+    when(query.getRelationshipsForIdsPrimitive(1, SemanticDirection.BOTH, None)).thenReturn(
+      relationshipIds((10, 1, 2), (11, 3, 1), (12, 1, 1)))
+    val left = newMockedPipe("a", SlottedRow.newContext(slots, query).newWith2("a", startNode, "x", "y"))
+
+    // when
+    val result = ExpandAllPipe(left, "a", "r", "b", SemanticDirection.BOTH, LazyTypes.empty)()
+      .createResults(QueryStateHelper.emptyWith(query = query)).toList
+
+    // then
+    val rows = result.map(_.m.asInstanceOf[SlottedRow])
+    rows.map(row => (row.getLongAt(0), row.getLongAt(1), row.getLongAt(2))) should equal(
+      List((1, 10, 2), (1, 11, 3), (1, 12, 1)))
+    result.map(_("x")) should equal(List("y", "y", "y"))
+    verify(query, never()).getRelationshipsForIds(any(), any(), any())
+    verify(query, never()).newNodeProxy(anyLong())
+    verify(query, never()).newRelationshipProxy(anyLong())
+  }
+
   private def row(values: (String, Any)*) = ExecutionContext.from(values: _*)
 
+  private def relationshipIds(relationships: (Long, Long, Long)*): RelationshipIterator = new RelationshipIterator.BaseIterator {
+    private val remaining = relationships.iterator
+    private var current: (Long, Long, Long) = null
+
+    override def fetchNext(): Boolean = remaining.hasNext && {
+      current = remaining.next()
+      next(current._1)
+    }
+
+    override def relationshipVisit[EXCEPTION <: Exception](relationshipId: Long, visitor: RelationshipVisitor[EXCEPTION]): Boolean = {
+      visitor.visit(relationshipId, 0, current._2, current._3)
+      false
+    }
+  }
+
   private def mockRelationships(rels: Relationship*) {
     when(query.getRelationshipsForIds(any(), any(), any())).thenAnswer(new Answer[Iterator[Relationship]] {
       def answer(invocation: InvocationOnMock): Iterator[Relationship] = rels.iterator
@@ -19,7 +19,9 @@
  */
 package org.neo4j.cypher.internal.compiler.v3_1.pipes
 
+import org.neo4j.cypher.internal.compiler.v3_1.slotted.{LongSlot, SlotConfiguration, SlottedRow}
 import org.neo4j.cypher.internal.compiler.v3_1.spi.{Operations, QueryContext}
+import org.neo4j.cypher.internal.frontend.v3_1.symbols.CTNode
 import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
 import org.neo4j.graphdb.Node
 import org.mockito.Mockito
@@ -65,4 +67,20 @@ class NodeByIdSeekPipeTest extends CypherFunSuite {
     // then
     result.map(_("a")).toList should equal(List(node1, node2, node3))
   }
+
+  test("should write the ids of sought nodes to their slots") {
+    // given
+    val node = mock[Node]
+    when(node.getId).thenReturn(17)
+    val nodeOps = when(mock[Operations[Node]].getById(17)).thenReturn(node).getMock[Operations[Node]]
+    val query = when(mock[QueryContext].nodeOps).thenReturn(nodeOps).getMock[QueryContext]
+    val slots = new SlotConfiguration(Map("a" -> LongSlot(0, CTNode)))
+    val queryState = QueryStateHelper.emptyWith(query = query, initialContext = Some(SlottedRow.newContext(slots, query)))
+
+    // when
+    val result = NodeByIdSeekPipe("a", SingleSeekArg(Literal(17)))().createResults(queryState)
+
+    // then
+    result.map(_.m.asInstanceOf[SlottedRow].getLongAt(0)).toList should equal(List(17))
+  }
 }
@@ -20,6 +20,7 @@
 package org.neo4j.cypher.internal.compiler.v3_1.pipes
 
 import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.{QueryMemoryTracker, UnboundedQueryMemory}
 import org.neo4j.cypher.internal.compiler.v3_1.spi.QueryContext
 
 import scala.collection.mutable
@@ -29,7 +30,8 @@ object QueryStateHelper {
 
   def emptyWith(query: QueryContext = null, resources: ExternalCSVResource = null,
                 params: Map[String, Any] = Map.empty, decorator: PipeDecorator = NullPipeDecorator,
-                initialContext: Option[ExecutionContext] = None) =
+                initialContext: Option[ExecutionContext] = None, memory: QueryMemoryTracker = UnboundedQueryMemory) =
     new QueryState(query = query, resources = resources, params = params, decorator = decorator,
-      initialContext = initialContext, triadicState = mutable.Map.empty, repeatableReads = mutable.Map.empty)
+      initialContext = initialContext, triadicState = mutable.Map.empty, repeatableReads = mutable.Map.empty,
+      memory = memory)
 }
@@ -20,11 +20,14 @@
 package org.neo4j.cypher.internal.compiler.v3_1.pipes
 
 import org.junit.Assert._
+import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.{CountStar, Sum, Variable}
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.QueryMemoryTracker
 import org.neo4j.cypher.internal.frontend.v3_1.symbols._
 import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
 import org.scalatest.mock.MockitoSugar
 
 import scala.collection.mutable.{Map => MutableMap}
+import scala.util.Random
 
 class SortPipeTest extends CypherFunSuite with MockitoSugar {
 
@@ -91,4 +94,35 @@ class SortPipeTest extends CypherFunSuite with MockitoSugar {
       MutableMap("y" -> 2),
       MutableMap("y" -> null)), sortPipe.createResults(QueryStateHelper.empty).toList)
   }
+
+  test("should sort more rows than fit in the memory budget") {
+    val values = (0 until 1000).map(_ => Random.nextInt(100))
+    val source = new FakePipe(values.map(v => MutableMap[String, Any]("x" -> v, "y" -> s"value $v")), "x" -> CTNumber, "y" -> CTString)
+    val sortPipe = new SortPipe(source, List(Descending("x")))()
+    val memory = QueryMemoryTracker(budgetInBytes = 4096, updating = false)
+
+    val result = sortPipe.createResults(QueryStateHelper.emptyWith(memory = memory)).toList
+
+    result.map(_("x")) should equal(values.sorted.reverse)
+    result.map(_("y")) should equal(values.sorted.reverse.map(v => s"value $v"))
+    memory.spilledBytes(sortPipe.id) should be > 0L
+    memory.close()
+  }
+
+  test("should sort the output of an aggregation that has used up the memory budget without spilling each row") {
+    val source = new FakePipe((0 until 1000).map(i => Map[String, Any]("name" -> s"name ${i % 200}", "age" -> i)),
+                              "name" -> CTString, "age" -> CTInteger)
+    val grouping = Map("count(*)" -> CountStar(), "sum(age)" -> Sum(Variable("age")))
+    val aggregationPipe = new EagerAggregationPipe(source, Set("name"), grouping)()
+    val sortPipe = new SortPipe(aggregationPipe, List(Descending("sum(age)")))()
+    val memory = QueryMemoryTracker(budgetInBytes = 4096, updating = false)
+
+    val result = sortPipe.createResults(QueryStateHelper.emptyWith(memory = memory)).toList
+
+    result.map(_("name")) should equal((0 until 200).reverse.map(i => s"name $i"))
+    result.map(_("count(*)")).distinct should equal(List(5))
+    memory.spilledBytes(aggregationPipe.id) should be > 0L
+    memory.spilledBytes(sortPipe.id) should equal(0L)
+    memory.close()
+  }
 }
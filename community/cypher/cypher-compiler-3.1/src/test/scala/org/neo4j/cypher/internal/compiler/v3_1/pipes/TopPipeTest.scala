@@ -20,6 +20,7 @@
 package org.neo4j.cypher.internal.compiler.v3_1.pipes
 
 import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.Literal
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.QueryMemoryTracker
 import org.neo4j.cypher.internal.frontend.v3_1.symbols._
 import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
 
@@ -189,6 +190,29 @@ class TopPipeTest extends CypherFunSuite {
     result should equal(List(10,null))
   }
 
+  test("top n should return the top rows when they do not fit in the memory budget") {
+    val input = createFakePipeWith(1000)
+    val pipe = new TopNPipe(input, List(Descending("a")), Literal(500))()
+    val memory = QueryMemoryTracker(budgetInBytes = 4096, updating = false)
+
+    val result = pipe.createResults(QueryStateHelper.emptyWith(memory = memory)).map(ctx => ctx("a")).toList
+
+    result should equal((500 until 1000).reverse)
+    memory.spilledBytes(pipe.id) should be > 0L
+    memory.close()
+  }
+
+  test("top n should keep the top rows on the heap when they fit in the memory budget") {
+    val input = createFakePipeWith(1000)
+    val pipe = new TopNPipe(input, List(Ascending("a")), Literal(5))()
+    val memory = QueryMemoryTracker(budgetInBytes = 4096, updating = false)
+
+    val result = pipe.createResults(QueryStateHelper.emptyWith(memory = memory)).map(ctx => ctx("a")).toList
+
+    result should equal(List(0, 1, 2, 3, 4))
+    memory.spilledBytes(pipe.id) should equal(0L)
+  }
+
   private def createFakePipeWith(count: Int): FakePipe = {
 
     val r = new Random(1337)
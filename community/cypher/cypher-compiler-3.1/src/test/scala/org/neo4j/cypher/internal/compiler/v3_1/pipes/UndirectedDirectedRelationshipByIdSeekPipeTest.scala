@@ -19,7 +19,9 @@
  */
 package org.neo4j.cypher.internal.compiler.v3_1.pipes
 
+import org.neo4j.cypher.internal.compiler.v3_1.slotted.{LongSlot, SlotConfiguration, SlottedRow}
 import org.neo4j.cypher.internal.compiler.v3_1.spi.{Operations, QueryContext}
+import org.neo4j.cypher.internal.frontend.v3_1.symbols.{CTNode, CTRelationship}
 import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
 import org.neo4j.graphdb.{Node, Relationship}
 import org.mockito.Mockito
@@ -98,6 +100,26 @@ class UndirectedDirectedRelationshipByIdSeekPipeTest extends CypherFunSuite {
     result.toList should be(empty)
   }
 
+  test("should write the ids of sought relationships and their nodes to their slots, in both directions") {
+    // given
+    val (startNode, rel, endNode) = getRelWithNodes
+    when(rel.getId).thenReturn(17)
+    when(startNode.getId).thenReturn(1)
+    when(endNode.getId).thenReturn(2)
+    val relOps = when(mock[Operations[Relationship]].getById(17)).thenReturn(rel).getMock[Operations[Relationship]]
+    val query = when(mock[QueryContext].relationshipOps).thenReturn(relOps).getMock[QueryContext]
+    val slots = new SlotConfiguration(Map("a" -> LongSlot(0, CTRelationship), "from" -> LongSlot(1, CTNode),
+                                          "to" -> LongSlot(2, CTNode)))
+    val queryState = QueryStateHelper.emptyWith(query = query, initialContext = Some(SlottedRow.newContext(slots, query)))
+
+    // when
+    val result = UndirectedRelationshipByIdSeekPipe("a", SingleSeekArg(Literal(17)), "to", "from")().createResults(queryState)
+
+    // then
+    val rows = result.map(_.m.asInstanceOf[SlottedRow]).toList
+    rows.map(row => (row.getLongAt(0), row.getLongAt(1), row.getLongAt(2))) should equal(List((17, 1, 2), (17, 2, 1)))
+  }
+
   private def getRelWithNodes:(Node,Relationship,Node) = {
     val rel = mock[Relationship]
     val startNode = mock[Node]
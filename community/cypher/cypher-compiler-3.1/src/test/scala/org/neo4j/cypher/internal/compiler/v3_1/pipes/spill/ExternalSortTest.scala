@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.spill
+
+import java.nio.file.Files
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.{FakePipe, QueryStateHelper}
+import org.neo4j.cypher.internal.frontend.v3_1.symbols._
+import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
+import org.neo4j.io.fs.FileUtils
+
+import scala.util.Random
+
+class ExternalSortTest extends CypherFunSuite {
+
+  private val byX = Ordering.by[ExecutionContext, Int](_("x").asInstanceOf[Int])
+
+  test("should merge more runs than the fan in allows in several passes and keep equal rows in input order") {
+    val values = (0 until 200).map(_ => Random.nextInt(10))
+    val source = new FakePipe(values.zipWithIndex.map { case (x, i) => Map[String, Any]("x" -> x, "i" -> i) },
+                              "x" -> CTInteger, "i" -> CTInteger)
+    val directory = Files.createTempDirectory("external-sort-test").toFile
+    val memory = QueryMemoryTracker(budgetInBytes = 1, updating = false, spillDirectory = Some(directory))
+    val state = QueryStateHelper.emptyWith(memory = memory)
+
+    try {
+      val sorted = ExternalSort.sort(source, source.createResults(state), byX, state, minRunBytes = 0, maxFanIn = 3)
+      directory.list().length should be <= 2
+
+      val result = sorted.toList
+
+      result.map(row => (row("x"), row("i"))) should equal(values.zipWithIndex.sortBy(_._1))
+      memory.spilledBytes(source.id) should be > 0L
+      directory.list() shouldBe empty
+    } finally {
+      memory.close()
+      FileUtils.deleteRecursively(directory)
+    }
+  }
+
+  test("should not write runs smaller than the minimum run size") {
+    val values = (0 until 200).map(_ => Random.nextInt(100))
+    val source = new FakePipe(values.map(x => Map[String, Any]("x" -> x)), "x" -> CTInteger)
+    val memory = QueryMemoryTracker(budgetInBytes = 1, updating = false)
+    val state = QueryStateHelper.emptyWith(memory = memory)
+
+    val result = ExternalSort.sort(source, source.createResults(state), byX, state).toList
+
+    result.map(_("x")) should equal(values.sorted)
+    memory.spilledBytes(source.id) should equal(0L)
+  }
+}
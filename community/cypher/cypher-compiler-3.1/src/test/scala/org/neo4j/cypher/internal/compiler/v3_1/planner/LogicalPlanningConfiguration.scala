@@ -25,6 +25,7 @@ import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans.LogicalPlan
 import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.{Cost, _}
 import org.neo4j.cypher.internal.compiler.v3_1.spi.GraphStatistics
 import org.neo4j.cypher.internal.frontend.v3_1.{SemanticTable, PropertyKeyId, LabelId}
+import org.neo4j.storageengine.api.schema.IndexOrder
 
 trait LogicalPlanningConfiguration {
   def updateSemanticTableWithTokens(in: SemanticTable): SemanticTable
@@ -33,6 +34,7 @@ trait LogicalPlanningConfiguration {
   def graphStatistics: GraphStatistics
   def indexes: Set[(String, String)]
   def uniqueIndexes: Set[(String, String)]
+  def indexOrders: Map[(String, String), IndexOrder]
   def labelCardinality: Map[String, Cardinality]
   def knownLabels: Set[String]
   def qg: QueryGraph
@@ -48,6 +50,7 @@ class DelegatingLogicalPlanningConfiguration(val parent: LogicalPlanningConfigur
   override def graphStatistics = parent.graphStatistics
   override def indexes = parent.indexes
   override def uniqueIndexes = parent.uniqueIndexes
+  override def indexOrders = parent.indexOrders
   override def labelCardinality = parent.labelCardinality
   override def knownLabels = parent.knownLabels
   override def qg = parent.qg
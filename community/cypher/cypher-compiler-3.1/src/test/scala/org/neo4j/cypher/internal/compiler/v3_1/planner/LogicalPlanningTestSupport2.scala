@@ -43,6 +43,7 @@ import org.neo4j.helpers.collection.Visitable
 import org.neo4j.kernel.api.constraints.UniquenessConstraint
 import org.neo4j.kernel.api.index.IndexDescriptor
 import org.neo4j.kernel.impl.util.dbstructure.DbStructureVisitor
+import org.neo4j.storageengine.api.schema.IndexOrder
 import org.scalatest.matchers.{BeMatcher, MatchResult}
 
 import scala.language.reflectiveCalls
@@ -116,6 +117,9 @@ trait LogicalPlanningTestSupport2 extends CypherTestSupport with AstConstruction
         else
           None
 
+      def getIndexOrder(labelName: String, propertyKey: String): IndexOrder =
+        config.indexOrders.getOrElse((labelName, propertyKey), IndexOrder.NONE)
+
       def hasIndexRule(labelName: String): Boolean =
         config.indexes.exists(_._1 == labelName) || config.uniqueIndexes.exists(_._1 == labelName)
 
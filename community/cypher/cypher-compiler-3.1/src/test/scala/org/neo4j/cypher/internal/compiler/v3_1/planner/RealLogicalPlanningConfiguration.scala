@@ -46,6 +46,7 @@ case class RealLogicalPlanningConfiguration()
   override def graphStatistics: GraphStatistics = HardcodedGraphStatistics
   override def indexes = Set.empty
   override def uniqueIndexes = Set.empty
+  override def indexOrders = Map.empty
   override def labelCardinality = Map.empty
   override def knownLabels = Set.empty
 
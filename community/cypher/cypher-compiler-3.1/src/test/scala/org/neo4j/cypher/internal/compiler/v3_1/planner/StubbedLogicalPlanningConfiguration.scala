@@ -25,6 +25,7 @@ import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans.{IdName, Lo
 import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.{Cardinality, Cost, Selectivity}
 import org.neo4j.cypher.internal.compiler.v3_1.spi.GraphStatistics
 import org.neo4j.cypher.internal.frontend.v3_1.{SemanticTable, LabelId}
+import org.neo4j.storageengine.api.schema.IndexOrder
 
 class StubbedLogicalPlanningConfiguration(parent: LogicalPlanningConfiguration)
   extends LogicalPlanningConfiguration with LogicalPlanningConfigurationAdHocSemanticTable {
@@ -41,6 +42,7 @@ class StubbedLogicalPlanningConfiguration(parent: LogicalPlanningConfiguration)
 
   var indexes: Set[(String, String)] = Set.empty
   var uniqueIndexes: Set[(String, String)] = Set.empty
+  var indexOrders: Map[(String, String), IndexOrder] = Map.empty
 
   def indexOn(label: String, property: String) {
     indexes = indexes + (label -> property)
@@ -50,6 +52,11 @@ class StubbedLogicalPlanningConfiguration(parent: LogicalPlanningConfiguration)
     uniqueIndexes = uniqueIndexes + (label -> property)
   }
 
+  def orderedIndexOn(label: String, property: String, order: IndexOrder = IndexOrder.NUMBERS_AND_STRINGS) {
+    indexOn(label, property)
+    indexOrders = indexOrders + ((label, property) -> order)
+  }
+
   def costModel() = cost.orElse(parent.costModel())
 
   def cardinalityModel(queryGraphCardinalityModel: QueryGraphCardinalityModel): CardinalityModel = {
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.planner.logical
+
+import org.neo4j.cypher.internal.compiler.v3_1.planner.LogicalPlanningTestSupport2
+import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.Metrics.QueryGraphSolverInput
+import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans._
+import org.neo4j.cypher.internal.frontend.v3_1.Foldable._
+import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
+import org.neo4j.storageengine.api.schema.IndexOrder
+
+class OrderedIndexSeekPlanningIntegrationTest extends CypherFunSuite with LogicalPlanningTestSupport2 {
+
+  test("should not sort the result of a numeric range seek on an index ordering numbers") {
+    val plan = (new given {
+      orderedIndexOn("Person", "age", IndexOrder.NUMBERS)
+      cost = nodeIndexSeekCost
+    } planFor "MATCH (a:Person) WHERE a.age > 40 RETURN a ORDER BY a.age").plan
+
+    sorts(plan) shouldBe empty
+    seeks(plan) should have size 1
+  }
+
+  test("should not sort the result of a prefix seek on an index ordering strings") {
+    val plan = (new given {
+      orderedIndexOn("Person", "name")
+      cost = nodeIndexSeekCost
+    } planFor "MATCH (a:Person) WHERE a.name STARTS WITH 'Al' RETURN a.name AS name ORDER BY name").plan
+
+    sorts(plan) shouldBe empty
+  }
+
+  test("should not sort when the ordered seek is followed by an expand") {
+    val plan = (new given {
+      orderedIndexOn("Person", "age")
+      cost = nodeIndexSeekCost
+    } planFor "MATCH (a:Person)-[:KNOWS]->(b) WHERE a.age < 12 RETURN b ORDER BY a.age LIMIT 10").plan
+
+    sorts(plan) shouldBe empty
+  }
+
+  test("should sort the result of a string range seek on an index only ordering numbers") {
+    val plan = (new given {
+      orderedIndexOn("Person", "name", IndexOrder.NUMBERS)
+      cost = nodeIndexSeekCost
+    } planFor "MATCH (a:Person) WHERE a.name >= 'Cinderella' RETURN a ORDER BY a.name").plan
+
+    sorts(plan) should have size 1
+  }
+
+  test("should sort the result of a range seek on an index not declaring any order") {
+    val plan = (new given {
+      indexOn("Person", "age")
+      cost = nodeIndexSeekCost
+    } planFor "MATCH (a:Person) WHERE a.age > 40 RETURN a ORDER BY a.age").plan
+
+    sorts(plan) should have size 1
+  }
+
+  test("should sort descending even when the index is ordered") {
+    val plan = (new given {
+      orderedIndexOn("Person", "age")
+      cost = nodeIndexSeekCost
+    } planFor "MATCH (a:Person) WHERE a.age > 40 RETURN a ORDER BY a.age DESC").plan
+
+    sorts(plan) should have size 1
+  }
+
+  test("should sort by a property of another node than the seeked one") {
+    val plan = (new given {
+      orderedIndexOn("Person", "age")
+      cost = nodeIndexSeekCost
+    } planFor "MATCH (a:Person)-[:KNOWS]->(b) WHERE a.age > 40 RETURN b ORDER BY b.age").plan
+
+    sorts(plan) should have size 1
+  }
+
+  private def sorts(plan: LogicalPlan) = plan.findByAllClass[Sort]
+
+  private def seeks(plan: LogicalPlan) = plan.findByAllClass[NodeIndexSeek]
+
+  private val nodeIndexSeekCost: PartialFunction[(LogicalPlan, QueryGraphSolverInput), Cost] = {
+    case (_: AllNodesScan, _) => 1000.0
+    case (_: NodeByLabelScan, _) => 50.0
+    case (_: NodeIndexScan, _) => 10.0
+    case (_: NodeIndexSeek, _) => 1.0
+    case (Selection(_, plan), input) if nodeIndexSeekCost.isDefinedAt((plan, input)) => nodeIndexSeekCost((plan, input))
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.slotted
+
+import org.mockito.Matchers._
+import org.mockito.Mockito._
+import org.mockito.invocation.InvocationOnMock
+import org.mockito.stubbing.Answer
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.Variable
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.QueryStateHelper
+import org.neo4j.cypher.internal.compiler.v3_1.planner.LogicalPlanningTestSupport
+import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans.{AllNodesScan, Expand, IdName, Projection}
+import org.neo4j.cypher.internal.compiler.v3_1.spi.QueryContext
+import org.neo4j.cypher.internal.frontend.v3_1.SemanticDirection
+import org.neo4j.cypher.internal.frontend.v3_1.symbols._
+import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
+import org.neo4j.graphdb.Node
+
+class SlottedRowTest extends CypherFunSuite with LogicalPlanningTestSupport {
+
+  val slots = new SlotConfiguration(Map("a" -> LongSlot(0, CTNode), "b" -> RefSlot(0)))
+
+  // Nodes are compared by identity, so every id has the one node that proxies for it
+  private val nodes = (0L to 50L).map(id => id -> newMockedNode(id)).toMap
+
+  val query = mock[QueryContext]
+  when(query.newNodeProxy(anyLong())).thenAnswer(new Answer[Node] {
+    override def answer(invocation: InvocationOnMock): Node = nodes(invocation.getArguments()(0).asInstanceOf[Long])
+  })
+
+  test("should read and write variables through their slots") {
+    // given
+    val node = newNode(42)
+    val row = SlottedRow.empty(slots, query)
+
+    // when
+    row.put("a", node)
+    row.put("b", "hello")
+
+    // then
+    row.getLongAt(0) should equal(42)
+    row.get("a") should equal(Some(node))
+    row.get("b") should equal(Some("hello"))
+    row.size should equal(2)
+    row.toMap should equal(Map("a" -> node, "b" -> "hello"))
+  }
+
+  test("should read entities written by id through their slots") {
+    // given
+    val row = SlottedRow.empty(slots, query)
+
+    // when
+    row.setLongAt(0, 7)
+
+    // then
+    row.get("a") should equal(Some(newNode(7)))
+  }
+
+  test("should tell absent variables apart from null variables") {
+    // given
+    val row = SlottedRow.empty(slots, query)
+
+    // when
+    row.put("a", null)
+
+    // then
+    row.getLongAt(0) should equal(SlottedRow.NullId)
+    row.get("a") should equal(Some(null))
+    row.get("b") should equal(None)
+    row.size should equal(1)
+  }
+
+  test("should keep variables without a slot on the side") {
+    // given
+    val row = SlottedRow.empty(slots, query)
+
+    // when
+    row.put("b", 1)
+    row.put("c", 2)
+    row -= "b"
+
+    // then
+    row.get("b") should equal(None)
+    row.get("c") should equal(Some(2))
+    row.toMap should equal(Map("c" -> 2))
+  }
+
+  test("should keep values that are no entities aside when written to a long slot") {
+    // given
+    val row = SlottedRow.empty(slots, query)
+
+    // when
+    row.put("a", "not a node")
+
+    // then
+    row.getLongAt(0) should be < 0L
+    row.get("a") should equal(Some("not a node"))
+    row.toMap should equal(Map("a" -> "not a node"))
+
+    // when
+    row.put("a", newNode(3))
+
+    // then
+    row.get("a") should equal(Some(newNode(3)))
+    row.size should equal(1)
+  }
+
+  test("should not share state between a row and its copies") {
+    // given
+    val node1 = newNode(1)
+    val node2 = newNode(2)
+    val original = SlottedRow.newContext(slots, query).newWith2("a", node1, "c", "x")
+
+    // when
+    val copy = original.newWith2("a", node2, "c", "y")
+
+    // then
+    original("a") should equal(node1)
+    original("c") should equal("x")
+    copy("a") should equal(node2)
+    copy("c") should equal("y")
+  }
+
+  test("should allocate slots for all variables of a plan") {
+    // given
+    val plan = newMockedLogicalPlan("a", "b")
+
+    // when
+    val configuration = SlotAllocation.allocate(plan)
+
+    // then
+    configuration.numberOfReferences should equal(2)
+    configuration.slotFor("a") shouldBe a[RefSlot]
+    configuration.slotFor("b") shouldBe a[RefSlot]
+    configuration.slotFor("c") shouldBe null
+  }
+
+  test("should allocate long slots for the nodes and relationships of scans and expands") {
+    // given
+    val scan = AllNodesScan(IdName("a"), Set.empty)(solved)
+    val expand = Expand(scan, IdName("a"), SemanticDirection.OUTGOING, Seq.empty, IdName("b"), IdName("r"))(solved)
+    val plan = Projection(expand, Map("x" -> literalInt(1)))(solved)
+
+    // when
+    val configuration = SlotAllocation.allocate(plan)
+
+    // then
+    configuration.numberOfLongs should equal(3)
+    configuration.numberOfReferences should equal(1)
+    configuration.slotFor("a") should matchPattern { case LongSlot(_, CTNode) => }
+    configuration.slotFor("b") should matchPattern { case LongSlot(_, CTNode) => }
+    configuration.slotFor("r") should matchPattern { case LongSlot(_, CTRelationship) => }
+    configuration.slotFor("x") should equal(RefSlot(0))
+    Seq("a", "b", "r").map(configuration.slotFor(_).offset).sorted should equal(Seq(0, 1, 2))
+  }
+
+  test("variables should read slotted and map backed rows alike") {
+    // given
+    implicit val state = QueryStateHelper.empty
+    val slottedRow = SlottedRow.newContext(slots, query).newWith2("a", newNode(5), "b", "slotted")
+    val mapRow = ExecutionContext.from("b" -> "map")
+
+    // then
+    Variable("b")(slottedRow) should equal("slotted")
+    Variable("b")(mapRow) should equal("map")
+    Variable("b")(slottedRow) should equal("slotted")
+    Variable("a")(slottedRow) should equal(newNode(5))
+  }
+
+  private def newNode(id: Long) = nodes(id)
+
+  private def newMockedNode(id: Long) = {
+    val node = mock[Node]
+    when(node.getId).thenReturn(id)
+    node
+  }
+}
@@ -27,6 +27,7 @@ import org.neo4j.cypher.internal.frontend.v3_1.SemanticDirection
 import org.neo4j.graphdb.{Node, Path, PropertyContainer, Relationship}
 import org.neo4j.kernel.api.constraints.{NodePropertyExistenceConstraint, RelationshipPropertyExistenceConstraint, UniquenessConstraint}
 import org.neo4j.kernel.api.index.IndexDescriptor
+import org.neo4j.kernel.impl.api.store.RelationshipIterator
 
 trait QueryContextAdaptation {
   self: QueryContext =>
@@ -58,6 +59,13 @@ trait QueryContextAdaptation {
     */
   override def withAnyOpenQueryContext[T](work: (QueryContext) => T): T = ???
 
+  override def workerContextFactory: Option[() => QueryContext] = ???
+
+  override def nodeHighId: Long = ???
+
+  override def nodesInIdRange(fromId: Long, toId: Long): scala.Iterator[Node] = ???
+
+
   // Legacy dependency between kernel and compiler
   override def variableLengthPathExpand(node: PatternNode, realNode: Node, minHops: Option[Int], maxHops: Option[Int], direction: SemanticDirection, relTypes: Seq[String]): scala.Iterator[Path] = ???
 
@@ -75,6 +83,12 @@ trait QueryContextAdaptation {
 
   override def getRelationshipsForIds(node: Node, dir: SemanticDirection, types: Option[Seq[Int]]): scala.Iterator[Relationship] = ???
 
+  override def getRelationshipsForIdsPrimitive(node: Long, dir: SemanticDirection, types: Option[Seq[Int]]): RelationshipIterator = ???
+
+  override def newNodeProxy(id: Long): Node = ???
+
+  override def newRelationshipProxy(id: Long): Relationship = ???
+
   override def callReadOnlyProcedure(name: QualifiedProcedureName, args: Seq[Any]): scala.Iterator[Array[AnyRef]] = ???
 
   override def relationshipStartNode(rel: Relationship): Node = ???
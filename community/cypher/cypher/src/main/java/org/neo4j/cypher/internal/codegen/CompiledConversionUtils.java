@@ -20,11 +20,13 @@
 package org.neo4j.cypher.internal.codegen;
 
 import java.lang.reflect.Array;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.neo4j.cypher.internal.frontend.v3_1.CypherTypeException;
 import org.neo4j.cypher.internal.frontend.v3_1.IncomparableValuesException;
@@ -66,6 +68,34 @@ public abstract class CompiledConversionUtils
         throw new CypherTypeException( "Don't know how to create an iterable out of " + value.getClass().getSimpleName(), null );
     }
 
+    public static Iterable<?> makeTraversable( Object value )
+    {
+        if ( value == null )
+        {
+            return Collections.emptyList();
+        }
+        if ( value instanceof Map<?,?> )
+        {
+            return Collections.singletonList( value );
+        }
+        if ( value instanceof Iterable<?> )
+        {
+            return (Iterable<?>) value;
+        }
+        if ( value.getClass().isArray() )
+        {
+            int length = Array.getLength( value );
+            List<Object> list = new ArrayList<>( length );
+            for ( int i = 0; i < length; i++ )
+            {
+                list.add( Array.get( value, i ) );
+            }
+            return list;
+        }
+
+        return Collections.singletonList( value );
+    }
+
     public static CompositeKey compositeKey( long... keys )
     {
         return new CompositeKey( keys );
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.codegen;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.neo4j.cypher.internal.frontend.v3_1.IncomparableValuesException;
+import org.neo4j.kernel.impl.api.PropertyValueComparison;
+
+/**
+ * Collects the rows of a compiled sort and hands them back ordered by their sort keys.
+ * <p>
+ * Rows that compare equal keep the order in which they were added, just like the sort of the interpreted runtime.
+ * When created with a limit only the first {@code limit} rows are kept, using a bounded heap, so that
+ * {@code ORDER BY ... LIMIT n} does not have to hold on to every row.
+ *
+ * @param <T> the type of the rows
+ */
+public class CompiledSortTable<T> implements Iterable<T>
+{
+    private final boolean[] ascending;
+    private final int limit;
+    private final Comparator<Entry<T>> order;
+    private final List<Entry<T>> entries;
+    private final PriorityQueue<Entry<T>> top;
+    private long sequence;
+
+    public CompiledSortTable( boolean[] ascending )
+    {
+        this( ascending, -1 );
+    }
+
+    /**
+     * @param ascending the direction of each sort key
+     * @param limit the maximum number of rows to keep, or a negative number for no limit
+     */
+    public CompiledSortTable( boolean[] ascending, int limit )
+    {
+        this.ascending = ascending;
+        this.limit = limit;
+        this.order = this::compare;
+        if ( limit < 0 )
+        {
+            this.entries = new ArrayList<>();
+            this.top = null;
+        }
+        else
+        {
+            this.entries = null;
+            this.top = new PriorityQueue<>( Math.max( 1, Math.min( limit, 1024 ) ), order.reversed() );
+        }
+    }
+
+    public void add( Object[] keys, T row )
+    {
+        Entry<T> entry = new Entry<>( keys, row, sequence++ );
+        if ( top == null )
+        {
+            entries.add( entry );
+        }
+        else if ( top.size() < limit )
+        {
+            top.add( entry );
+        }
+        else if ( limit > 0 && compare( entry, top.peek() ) < 0 )
+        {
+            top.poll();
+            top.add( entry );
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator()
+    {
+        List<Entry<T>> sorted = top == null ? entries : new ArrayList<>( top );
+        Collections.sort( sorted, order );
+        Iterator<Entry<T>> inner = sorted.iterator();
+        return new Iterator<T>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return inner.hasNext();
+            }
+
+            @Override
+            public T next()
+            {
+                return inner.next().row;
+            }
+        };
+    }
+
+    private int compare( Entry<T> lhs, Entry<T> rhs )
+    {
+        for ( int i = 0; i < ascending.length; i++ )
+        {
+            int result = ascending[i] ? compareValues( lhs.keys[i], rhs.keys[i] )
+                                      : compareValues( rhs.keys[i], lhs.keys[i] );
+            if ( result != 0 )
+            {
+                return result;
+            }
+        }
+        return Long.compare( lhs.sequence, rhs.sequence );
+    }
+
+    // nulls sort last, and only strings, numbers and booleans can be compared among themselves
+    static int compareValues( Object lhs, Object rhs )
+    {
+        if ( lhs == null )
+        {
+            return rhs == null ? 0 : 1;
+        }
+        if ( rhs == null )
+        {
+            return -1;
+        }
+        if ( (isString( lhs ) && isString( rhs )) || (lhs instanceof Number && rhs instanceof Number) ||
+             (lhs instanceof Boolean && rhs instanceof Boolean) )
+        {
+            try
+            {
+                return PropertyValueComparison.COMPARE_VALUES.compare( lhs, rhs );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                // fall through to the error below
+            }
+        }
+        throw new IncomparableValuesException( lhs.getClass().getSimpleName(), rhs.getClass().getSimpleName() );
+    }
+
+    private static boolean isString( Object value )
+    {
+        return value instanceof String || value instanceof Character;
+    }
+
+    private static class Entry<T>
+    {
+        private final Object[] keys;
+        private final T row;
+        private final long sequence;
+
+        Entry( Object[] keys, T row, long sequence )
+        {
+            this.keys = keys;
+            this.row = row;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -19,6 +19,7 @@
  */
 package org.neo4j.cypher.internal
 
+import java.io.File
 import java.time.Clock
 
 import org.neo4j.cypher.internal.compatibility.exceptionHandlerFor3_1
@@ -29,6 +30,7 @@ import org.neo4j.graphdb.factory.GraphDatabaseSettings
 import org.neo4j.kernel.GraphDatabaseQueryService
 import org.neo4j.kernel.api.KernelAPI
 import org.neo4j.kernel.configuration.Config
+import org.neo4j.kernel.impl.factory.GraphDatabaseFacade
 import org.neo4j.kernel.monitoring.{Monitors => KernelMonitors}
 import org.neo4j.logging.{Log, LogProvider}
 
@@ -38,6 +40,8 @@ object CypherCompiler {
   val CLOCK = Clock.systemUTC()
   val DEFAULT_STATISTICS_DIVERGENCE_THRESHOLD = 0.5
   val DEFAULT_NON_INDEXED_LABEL_WARNING_THRESHOLD = 10000
+  val DEFAULT_QUERY_MEMORY_BUDGET = 0L
+  val SPILL_DIRECTORY_NAME = "cypher-spill"
 }
 
 case class PreParsedQuery(statement: String, rawStatement: String, version: CypherVersion,
@@ -85,14 +89,19 @@ class CypherCompiler(graph: GraphDatabaseQueryService,
     idpMaxTableSize = idpMaxTableSize,
     idpIterationDuration = idpIterationDuration,
     errorIfShortestPathFallbackUsedAtRuntime = errorIfShortestPathFallbackUsedAtRuntime,
-    nonIndexedLabelWarningThreshold = getNonIndexedLabelWarningThreshold
+    nonIndexedLabelWarningThreshold = getNonIndexedLabelWarningThreshold,
+    queryMemoryBudget = getQueryMemoryBudget,
+    spillDirectory = getSpillDirectory
   )
 
   private val factory = new PlannerFactory(graph, kernelAPI, kernelMonitors, log, config)
   private val planners: PlannerCache = new PlannerCache(factory)
 
 
-  private final val ILLEGAL_PLANNER_RUNTIME_COMBINATIONS: Set[(CypherPlanner, CypherRuntime)] = Set((CypherPlanner.rule, CypherRuntime.compiled))
+  private final val ILLEGAL_PLANNER_RUNTIME_COMBINATIONS: Set[(CypherPlanner, CypherRuntime)] = Set(
+    (CypherPlanner.rule, CypherRuntime.compiled),
+    (CypherPlanner.rule, CypherRuntime.slotted),
+    (CypherPlanner.rule, CypherRuntime.parallel))
 
   @throws(classOf[SyntaxException])
   def preParseQuery(queryText: String): PreParsedQuery = exceptionHandlerFor3_1.runSafely{
@@ -156,6 +165,20 @@ class CypherCompiler(graph: GraphDatabaseQueryService,
     getSetting(graph, setting, DEFAULT_NON_INDEXED_LABEL_WARNING_THRESHOLD)
   }
 
+  private def getQueryMemoryBudget: Long = {
+    val setting: (Config) => Long = config => config.get(GraphDatabaseSettings.cypher_query_memory_budget).longValue()
+    getSetting(graph, setting, DEFAULT_QUERY_MEMORY_BUDGET)
+  }
+
+  private def getSpillDirectory: Option[File] = graph match {
+    case (gdbApi: GraphDatabaseQueryService) =>
+      val resolver = gdbApi.getDependencyResolver
+      val configured = Option(resolver.resolveDependency(classOf[Config]).get(GraphDatabaseSettings.cypher_spill_directory))
+      configured.orElse(Option(resolver.resolveDependency(classOf[GraphDatabaseFacade]))
+                          .map(db => new File(db.getStoreDir, SPILL_DIRECTORY_NAME)))
+    case _ => None
+  }
+
   private def getMinimumTimeBeforeReplanning: Long = {
     val setting: (Config) => Long = config => config.get(GraphDatabaseSettings.cypher_min_replan_interval).longValue()
     getSetting(graph, setting, DEFAULT_QUERY_PLAN_TTL)
@@ -443,6 +443,8 @@ case class CompatibilityFor2_3Cost(graph: GraphDatabaseQueryService,
       case CypherRuntime.default => None
       case CypherRuntime.interpreted => Some(InterpretedRuntimeName)
       case CypherRuntime.compiled => throw new IllegalArgumentException("Compiled runtime is not supported in Cypher 2.3")
+      case CypherRuntime.slotted => throw new IllegalArgumentException("Slotted runtime is not supported in Cypher 2.3")
+      case CypherRuntime.parallel => throw new IllegalArgumentException("Parallel runtime is not supported in Cypher 2.3")
     }
 
     val nodeManager = graph.getDependencyResolver.resolveDependency(classOf[NodeManager])
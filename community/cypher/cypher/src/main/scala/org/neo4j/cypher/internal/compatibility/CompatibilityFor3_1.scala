@@ -527,6 +527,8 @@ case class CompatibilityFor3_1Cost(graph: GraphDatabaseQueryService,
       case CypherRuntime.default => None
       case CypherRuntime.interpreted => Some(InterpretedRuntimeName)
       case CypherRuntime.compiled => Some(CompiledRuntimeName)
+      case CypherRuntime.slotted => Some(SlottedRuntimeName)
+      case CypherRuntime.parallel => Some(ParallelRuntimeName)
     }
     val updateStrategy = strategy match {
       case CypherUpdateStrategy.eager => Some(eagerUpdateStrategy)
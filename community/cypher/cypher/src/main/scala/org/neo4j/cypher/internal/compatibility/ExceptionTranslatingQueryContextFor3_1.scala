@@ -147,6 +147,16 @@ class ExceptionTranslatingQueryContextFor3_1(val inner: QueryContext) extends Qu
         work(new ExceptionTranslatingQueryContextFor3_1(qc))
       ))
 
+  override def workerContextFactory: Option[() => QueryContext] =
+    inner.workerContextFactory.map(newContext => () => new ExceptionTranslatingQueryContextFor3_1(translateException(newContext())))
+
+  override def nodeHighId: Long =
+    translateException(inner.nodeHighId)
+
+  override def nodesInIdRange(fromId: Long, toId: Long): Iterator[Node] =
+    translateException(inner.nodesInIdRange(fromId, toId))
+
+
   override def isLabelSetOnNode(label: Int, node: Long): Boolean =
     translateException(inner.isLabelSetOnNode(label, node))
 
@@ -177,6 +187,15 @@ class ExceptionTranslatingQueryContextFor3_1(val inner: QueryContext) extends Qu
   override def getRelationshipsForIds(node: Node, dir: SemanticDirection, types: Option[Seq[Int]]) =
     translateException(inner.getRelationshipsForIds(node, dir, types))
 
+  override def getRelationshipsForIdsPrimitive(node: Long, dir: SemanticDirection, types: Option[Seq[Int]]) =
+    translateException(inner.getRelationshipsForIdsPrimitive(node, dir, types))
+
+  override def newNodeProxy(id: Long) =
+    translateException(inner.newNodeProxy(id))
+
+  override def newRelationshipProxy(id: Long) =
+    translateException(inner.newRelationshipProxy(id))
+
   override def indexSeekByRange(index: IndexDescriptor, value: Any) =
     translateException(inner.indexSeekByRange(index, value))
 
@@ -37,6 +37,8 @@ case class TransactionalContextWrapperv3_1(tc: TransactionalContext) extends Que
 
   def provideContext(): TransactionalContextWrapperv3_1 = TransactionalContextWrapperv3_1(tc.provideContext())
 
+  def beginInNewThread(): TransactionalContextWrapperv3_1 = TransactionalContextWrapperv3_1(tc.beginInNewThread())
+
   def isOpen: Boolean = tc.isOpen
 
   def graph: GraphDatabaseQueryService = tc.graph()
@@ -60,6 +62,10 @@ case class TransactionalContextWrapperv3_1(tc: TransactionalContext) extends Que
 
   override def close(success: Boolean) { tc.close(success) }
 
+  override def isTerminated: Boolean = tc.isTerminated
+
+  override def terminate() { tc.terminate() }
+
   def restrictCurrentTransaction(accessMode: AccessMode): Revertable = tc.restrictCurrentTransaction(accessMode)
 
   def accessMode: AccessMode = tc.accessMode
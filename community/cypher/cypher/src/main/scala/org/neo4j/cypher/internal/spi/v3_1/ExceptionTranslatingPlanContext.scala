@@ -25,6 +25,7 @@ import org.neo4j.cypher.internal.compiler.v3_1.spi.{GraphStatistics, PlanContext
 import org.neo4j.graphdb.Node
 import org.neo4j.kernel.api.constraints.UniquenessConstraint
 import org.neo4j.kernel.api.index.IndexDescriptor
+import org.neo4j.storageengine.api.schema.IndexOrder
 
 class ExceptionTranslatingPlanContext(inner: PlanContext) extends PlanContext with ExceptionTranslationSupport {
 
@@ -34,6 +35,9 @@ class ExceptionTranslatingPlanContext(inner: PlanContext) extends PlanContext wi
   override def getUniqueIndexRule(labelName: String, propertyKey: String): Option[IndexDescriptor] =
     translateException(inner.getUniqueIndexRule(labelName, propertyKey))
 
+  override def getIndexOrder(labelName: String, propertyKey: String): IndexOrder =
+    translateException(inner.getIndexOrder(labelName, propertyKey))
+
   override def statistics: GraphStatistics =
     translateException(inner.statistics)
 
@@ -34,6 +34,7 @@ import org.neo4j.kernel.api.exceptions.schema.SchemaKernelException
 import org.neo4j.kernel.api.index.{IndexDescriptor, InternalIndexState}
 import org.neo4j.kernel.api.proc.Neo4jTypes.AnyType
 import org.neo4j.kernel.api.proc.{Neo4jTypes, ProcedureSignature => KernelProcedureSignature}
+import org.neo4j.storageengine.api.schema.IndexOrder
 
 import scala.collection.JavaConverters._
 
@@ -65,6 +66,15 @@ class TransactionBoundPlanContext(tc: TransactionalContextWrapperv3_1)
     Some(tc.statement.readOperations().uniqueIndexGetForLabelAndPropertyKey(labelId, propertyKeyId))
   }
 
+  def getIndexOrder(labelName: String, propertyKey: String): IndexOrder =
+    getIndexRule(labelName, propertyKey).orElse(getUniqueIndexRule(labelName, propertyKey)).map { descriptor =>
+      try {
+        tc.statement.readOperations().indexGetRangeSeekOrder(descriptor)
+      } catch {
+        case _: KernelException => IndexOrder.NONE
+      }
+    }.getOrElse(IndexOrder.NONE)
+
   private def evalOrNone[T](f: => Option[T]): Option[T] =
     try { f } catch { case _: SchemaKernelException => None }
 
@@ -20,10 +20,10 @@
 package org.neo4j.cypher.internal.spi.v3_1
 
 import java.net.URL
-import java.util.function.Predicate
+import java.util.function.{LongPredicate, Predicate}
 
 import org.neo4j.collection.RawIterator
-import org.neo4j.collection.primitive.PrimitiveLongIterator
+import org.neo4j.collection.primitive.{PrimitiveLongCollections, PrimitiveLongIterator}
 import org.neo4j.collection.primitive.base.Empty.EMPTY_PRIMITIVE_LONG_COLLECTION
 import org.neo4j.cypher.internal.compiler.v3_1.MinMaxOrdering.{BY_NUMBER, BY_STRING, BY_VALUE}
 import org.neo4j.cypher.internal.compiler.v3_1._
@@ -51,8 +51,10 @@ import org.neo4j.kernel.api.constraints.{NodePropertyExistenceConstraint, Relati
 import org.neo4j.kernel.api.exceptions.ProcedureException
 import org.neo4j.kernel.api.exceptions.schema.{AlreadyConstrainedException, AlreadyIndexedException}
 import org.neo4j.kernel.api.index.{IndexDescriptor, InternalIndexState}
+import org.neo4j.kernel.impl.api.store.RelationshipIterator
 import org.neo4j.kernel.impl.core.NodeManager
 import org.neo4j.kernel.impl.locking.ResourceTypes
+import org.neo4j.kernel.impl.store.id.{IdGeneratorFactory, IdType}
 
 import scala.collection.Iterator
 import scala.collection.JavaConverters._
@@ -87,6 +89,22 @@ final class TransactionBoundQueryContext(val transactionalContext: Transactional
     }
   }
 
+  override def workerContextFactory: Option[() => QueryContext] =
+    if (transactionalContext.stateView.hasTxStateWithChanges) None
+    else Some(() => new TransactionBoundQueryContext(transactionalContext.beginInNewThread()))
+
+  override def nodeHighId: Long =
+    transactionalContext.graph.getDependencyResolver.resolveDependency(classOf[IdGeneratorFactory]).get(IdType.NODE).getHighId
+
+  // The kernel API can not read the node store from a given id, so the ids of the range are looked up one by one
+  override def nodesInIdRange(fromId: Long, toId: Long): Iterator[Node] = {
+    val readOperations = transactionalContext.statement.readOperations()
+    val ids = PrimitiveLongCollections.filter(PrimitiveLongCollections.range(fromId, toId - 1), new LongPredicate {
+      override def test(id: Long): Boolean = readOperations.nodeExists(id)
+    })
+    JavaConversionSupport.mapToScalaENFXSafe(ids)(nodeOps.getById)
+  }
+
   override def createNode(): Node =
     transactionalContext.graph.createNode()
 
@@ -133,6 +151,18 @@ final class TransactionBoundQueryContext(val transactionalContext: Transactional
     new BeansAPIRelationshipIterator(relationships, entityAccessor)
   }
 
+  override def getRelationshipsForIdsPrimitive(node: Long, dir: SemanticDirection, types: Option[Seq[Int]]): RelationshipIterator =
+    types match {
+      case None =>
+        transactionalContext.statement.readOperations().nodeGetRelationships(node, toGraphDb(dir))
+      case Some(typeIds) =>
+        transactionalContext.statement.readOperations().nodeGetRelationships(node, toGraphDb(dir), typeIds: _*)
+    }
+
+  override def newNodeProxy(id: Long): Node = entityAccessor.newNodeProxyById(id)
+
+  override def newRelationshipProxy(id: Long): Relationship = entityAccessor.newRelationshipProxyById(id)
+
   override def indexSeek(index: IndexDescriptor, value: Any) = {
     indexSearchMonitor.indexSeek(index, value)
     JavaConversionSupport.mapToScalaENFXSafe(transactionalContext.statement.readOperations().nodesGetFromIndexSeek(index, value))(nodeOps.getById)
@@ -411,6 +411,8 @@ case class GeneratedMethodStructure(fields: Fields, generator: CodeBlock, aux: A
 
   override def castToCollection(value: Expression) = invoke(Methods.toCollection, value)
 
+  override def asTraversable(value: Expression) = invoke(Methods.makeTraversable, value)
+
   override def asMap(map: Map[String, Expression]) = {
     invoke(Methods.createMap,
            newArray(typeRef[Object], map.flatMap {
@@ -429,6 +431,57 @@ case class GeneratedMethodStructure(fields: Fields, generator: CodeBlock, aux: A
     }
   }
 
+  override def iterateCountingTable(tableVar: String, keyVar: String, countVar: String)
+                                   (block: MethodStructure[Expression] => Unit) = {
+    val iterator = generator.declare(typeRef[PrimitiveLongIterator], context.namer.newVarName())
+    generator.assign(iterator, invoke(generator.load(tableVar), countingTableIterator))
+    using(generator.whileLoop(invoke(iterator, hasNextLong))) { body =>
+      body.assign(typeRef[Long], keyVar, invoke(iterator, nextLong))
+      body.assign(typeRef[Long], countVar, toLong(invoke(body.load(tableVar), countingTableGet, body.load(keyVar))))
+      block(copy(generator = body))
+    }
+  }
+
+  override def declareCount(name: String) = {
+    val localVariable = generator.declare(typeRef[Long], name)
+    locals += (name -> localVariable)
+    generator.assign(localVariable, constant(0L))
+  }
+
+  override def incrementCount(name: String) = {
+    val local = locals(name)
+    generator.assign(local, addLongs(local, constant(1L)))
+  }
+
+  override def allocateSortTable(tableVar: String, tableType: SortTableDescriptor, limit: Option[Expression]) =
+    generator.assign(sortTableType(tableType), tableVar,
+                     createNewInstance(sortTableType(tableType),
+                                       (typeRef[Array[Boolean]],
+                                         newArray(typeRef[Boolean], tableType.ascending.map(a => constant(a)): _*)),
+                                       (typeRef[Int], limit.map(l => invoke(mathCastToInt, l)).getOrElse(constant(-1)))))
+
+  override def sortTableAdd(tableVar: String, tableType: SortTableDescriptor, keys: Seq[Expression],
+                            value: Expression) =
+    generator.expression(invoke(generator.load(tableVar), Methods.sortTableAdd,
+                                newArray(typeRef[Object], keys: _*), value))
+
+  override def sortTableIterate(tableVar: String, tableType: SortTableDescriptor, localMap: Map[String, String])
+                               (block: MethodStructure[Expression] => Unit) = {
+    val structure = tableType.structure
+    val elementName = context.namer.newVarName()
+    using(generator.forEach(Parameter.param(aux.typeReference(structure), elementName),
+                            generator.load(tableVar))) { forEach =>
+      localMap.foreach {
+        case (l, f) =>
+          forEach.assign(lowerType(structure(f)), l, get(forEach.load(elementName), field(structure, structure(f), f)))
+      }
+      block(copy(generator = forEach))
+    }
+  }
+
+  private def sortTableType(tableType: SortTableDescriptor): TypeReference =
+    parameterizedType(classOf[CompiledSortTable[_]], aux.typeReference(tableType.structure))
+
   override def allocateProbeTable(tableVar: String, tableType: JoinTableType) =
     generator.assign(joinTableType(tableType), tableVar, allocate(tableType))
 
@@ -42,6 +42,7 @@ object Methods {
   val countingTablePut = method[PrimitiveLongIntMap, Int]("put", typeRef[Long], typeRef[Int])
   val countingTableCompositeKeyPut = method[util.HashMap[CompositeKey, Integer], Object]("put", typeRef[Object], typeRef[Object])
   val countingTableGet = method[PrimitiveLongIntMap, Int]("get", typeRef[Long])
+  val countingTableIterator = method[PrimitiveLongIntMap, PrimitiveLongIterator]("iterator")
   val countingTableCompositeKeyGet = method[util.HashMap[CompositeKey, Integer], Object]("get", typeRef[Object])
   val compositeKey = method[CompiledConversionUtils, CompositeKey]("compositeKey", typeRef[Array[Long]])
   val hasNextLong = method[PrimitiveLongIterator, Boolean]("hasNext")
@@ -68,6 +69,8 @@ object Methods {
   val propertyKeyGetForName = method[ReadOperations, Int]("propertyKeyGetForName", typeRef[String])
   val coerceToPredicate = method[CompiledConversionUtils, Boolean]("coerceToPredicate", typeRef[Object])
   val toCollection = method[CompiledConversionUtils, java.util.Collection[Object]]("toCollection", typeRef[Object])
+  val makeTraversable = method[CompiledConversionUtils, java.lang.Iterable[Object]]("makeTraversable", typeRef[Object])
+  val sortTableAdd = method[CompiledSortTable[_], Unit]("add", typeRef[Array[Object]], typeRef[Object])
   val ternaryEquals = method[CompiledConversionUtils, java.lang.Boolean]("equals", typeRef[Object], typeRef[Object])
   val equals = method[Object, Boolean]("equals", typeRef[Object])
   val or = method[CompiledConversionUtils, java.lang.Boolean]("or", typeRef[Object], typeRef[Object])
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.codegen;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.cypher.internal.frontend.v3_1.IncomparableValuesException;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class CompiledSortTableTest
+{
+    @Test
+    public void shouldSortAscendingWithNullsLast()
+    {
+        // given
+        CompiledSortTable<String> table = new CompiledSortTable<>( new boolean[]{true} );
+
+        // when
+        table.add( keys( 3L ), "c" );
+        table.add( keys( (Object) null ), "null" );
+        table.add( keys( 1.5 ), "b" );
+        table.add( keys( 1L ), "a" );
+
+        // then
+        assertEquals( asList( "a", "b", "c", "null" ), rows( table ) );
+    }
+
+    @Test
+    public void shouldSortDescendingWithNullsFirst()
+    {
+        // given
+        CompiledSortTable<String> table = new CompiledSortTable<>( new boolean[]{false} );
+
+        // when
+        table.add( keys( "a" ), "a" );
+        table.add( keys( (Object) null ), "null" );
+        table.add( keys( "c" ), "c" );
+        table.add( keys( "b" ), "b" );
+
+        // then
+        assertEquals( asList( "null", "c", "b", "a" ), rows( table ) );
+    }
+
+    @Test
+    public void shouldUseLaterKeysToBreakTiesAndKeepInsertionOrderOtherwise()
+    {
+        // given
+        CompiledSortTable<String> table = new CompiledSortTable<>( new boolean[]{true, false} );
+
+        // when
+        table.add( keys( 1L, "x" ), "first" );
+        table.add( keys( 0L, "x" ), "second" );
+        table.add( keys( 1L, "y" ), "third" );
+        table.add( keys( 1L, "x" ), "fourth" );
+
+        // then
+        assertEquals( asList( "second", "third", "first", "fourth" ), rows( table ) );
+    }
+
+    @Test
+    public void shouldOnlyKeepTheTopRowsWhenLimited()
+    {
+        // given
+        CompiledSortTable<Long> table = new CompiledSortTable<>( new boolean[]{true}, 3 );
+
+        // when
+        for ( long i = 10; i > 0; i-- )
+        {
+            table.add( keys( i % 5 ), i );
+        }
+
+        // then
+        assertEquals( asList( 10L, 5L, 6L ), rows( table ) );
+    }
+
+    @Test
+    public void shouldKeepNothingWithALimitOfZero()
+    {
+        // given
+        CompiledSortTable<String> table = new CompiledSortTable<>( new boolean[]{true}, 0 );
+
+        // when
+        table.add( keys( 1L ), "a" );
+
+        // then
+        assertEquals( new ArrayList<String>(), rows( table ) );
+    }
+
+    @Test
+    public void shouldFailOnIncomparableValues()
+    {
+        // given
+        CompiledSortTable<String> table = new CompiledSortTable<>( new boolean[]{true} );
+        table.add( keys( 1L ), "a" );
+        table.add( keys( "b" ), "b" );
+
+        // when
+        try
+        {
+            rows( table );
+            fail( "expected exception" );
+        }
+        // then
+        catch ( IncomparableValuesException e )
+        {
+            // expected
+        }
+    }
+
+    private static Object[] keys( Object... keys )
+    {
+        return keys;
+    }
+
+    private static <T> List<T> rows( CompiledSortTable<T> table )
+    {
+        List<T> rows = new ArrayList<>();
+        for ( T row : table )
+        {
+            rows.add( row );
+        }
+        return rows;
+    }
+}
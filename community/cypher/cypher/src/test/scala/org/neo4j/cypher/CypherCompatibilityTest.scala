@@ -110,7 +110,7 @@ class CypherCompatibilityTest extends ExecutionEngineFunSuite with RunWithConfig
 
   private val queryThatCannotRunWithCostPlanner = "MATCH (a), (b) CREATE UNIQUE (a)-[r:X]->(b)"
 
-  private val querySupportedByCostButNotCompiledRuntime = "MATCH (n:Movie)--(b), (a:A)--(c:C)--(d:D) RETURN count(*)"
+  private val querySupportedByCostButNotCompiledRuntime = "MATCH (n:Movie)--(b), (a:A)--(c:C)--(d:D) RETURN collect(n)"
 
   test("should not fail if cypher allowed to choose planner or we specify RULE for update query") {
     runWithConfig(GraphDatabaseSettings.cypher_hints_error -> "true") {
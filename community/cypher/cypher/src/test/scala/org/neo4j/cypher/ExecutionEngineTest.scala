@@ -528,7 +528,7 @@ order by a.COL1""")
   }
 
   test("zero matching subgraphs yield correct count star") {
-    val result = executeWithAllPlannersAndCompatibilityMode("match (n) where 1 = 0 return count(*)")
+    val result = executeWithAllPlannersAndRuntimesAndCompatibilityMode("match (n) where 1 = 0 return count(*)")
     result.toList should equal(List(Map("count(*)" -> 0)))
   }
 
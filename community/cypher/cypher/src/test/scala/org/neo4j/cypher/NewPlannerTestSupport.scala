@@ -179,15 +179,18 @@ trait NewPlannerTestSupport extends CypherTestSupport {
     //run with compiled to find new queries that are able to run with compiled runtime
     //we cannot set it to default at the db-level since we cannot combine compiled and rule
     val idpResult = executeWithCostPlannerOnly(s"CYPHER runtime=compiled $queryText", params: _*)
+    val slottedResult = executeWithCostPlannerOnly(s"CYPHER runtime=slotted $queryText", params: _*)
 
     if (enableCompatibility) {
       assertResultsAreSame(compatibilityResult, idpResult, queryText, "Diverging results between compatibility and current")
     }
     assertResultsAreSame(ruleResult, idpResult, queryText, "Diverging results between rule and cost planners")
+    assertResultsAreSame(slottedResult, idpResult, queryText, "Diverging results between slotted and other runtimes")
     if (enableCompatibility) {
       compatibilityResult.close()
     }
     ruleResult.close()
+    slottedResult.close()
     idpResult
   }
 
@@ -256,14 +259,17 @@ trait NewPlannerTestSupport extends CypherTestSupport {
     val compatibilityResult = innerExecute(s"CYPHER 2.3 $queryText", params: _*)
     val ruleResult = innerExecute(s"CYPHER planner=rule $queryText", params: _*)
     val interpretedResult = innerExecute(s"CYPHER runtime=interpreted $queryText", params: _*)
+    val slottedResult = executeWithCostPlannerOnly(s"CYPHER runtime=slotted $queryText", params: _*)
     val compiledResult = monitoringNewPlanner(innerExecute(s"CYPHER runtime=compiled $queryText", params: _*))(failedToUseNewPlanner(queryText))(failedToUseNewRuntime(queryText))
 
     assertResultsAreSame(interpretedResult, compiledResult, queryText, "Diverging results between interpreted and compiled runtime")
+    assertResultsAreSame(interpretedResult, slottedResult, queryText, "Diverging results between interpreted and slotted runtime")
     assertResultsAreSame(compatibilityResult, interpretedResult, queryText, "Diverging results between compatibility and current")
     assertResultsAreSame(ruleResult, interpretedResult, queryText, "Diverging results between rule planner and interpreted runtime")
     compatibilityResult.close()
     ruleResult.close()
     interpretedResult.close()
+    slottedResult.close()
     compiledResult
   }
 
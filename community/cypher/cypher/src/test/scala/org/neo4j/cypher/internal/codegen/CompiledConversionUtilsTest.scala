@@ -67,6 +67,23 @@ class CompiledConversionUtilsTest extends CypherFunSuite {
     CompiledConversionUtils.toCollection(null) shouldBe empty
   }
 
+  test("should make traversables out of collections, arrays and single values") {
+    import scala.collection.JavaConverters._
+
+    CompiledConversionUtils.makeTraversable(List("a", "b").asJava).asScala.toSeq should equal(Seq("a", "b"))
+    CompiledConversionUtils.makeTraversable(Array(1, 2)).asScala.toSeq should equal(Seq(1, 2))
+    CompiledConversionUtils.makeTraversable("a").asScala.toSeq should equal(Seq("a"))
+    CompiledConversionUtils.makeTraversable(null).asScala shouldBe empty
+  }
+
+  test("should treat a map as a single value when making a traversable") {
+    import scala.collection.JavaConverters._
+
+    val map = util.Collections.singletonMap("key", "value")
+
+    CompiledConversionUtils.makeTraversable(map).asScala.toSeq should equal(Seq(map))
+  }
+
   test("should be able to use a composite key in a hash map") {
     //given
     val theKey = CompiledConversionUtils.compositeKey(1l, 2L, 11L)
@@ -28,6 +28,7 @@ import org.neo4j.cypher.internal.compiler.v3_1.executionplan.ExecutionPlanBuilde
 import org.neo4j.cypher.internal.compiler.v3_1.executionplan.InternalExecutionResult
 import org.neo4j.cypher.internal.compiler.v3_1.planner.LogicalPlanningTestSupport
 import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans._
+import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.{Ascending, Descending, plans}
 import org.neo4j.cypher.internal.compiler.v3_1.spi.{InternalResultRow, InternalResultVisitor, QueryContext}
 import org.neo4j.cypher.internal.compiler.v3_1.{CostBasedPlannerName, NormalMode, TaskCloser}
 import org.neo4j.cypher.internal.frontend.v3_1.ast._
@@ -563,6 +564,130 @@ class CodeGeneratorTest extends CypherFunSuite with LogicalPlanningTestSupport {
     ))
   }
 
+  test("count all nodes") { // MATCH (a) RETURN count(*) AS c
+    //given
+    val plan = ProduceResult(List("c"),
+      Aggregation(AllNodesScan(IdName("a"), Set.empty)(solved), Map.empty, Map("c" -> CountStar()(pos)))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getResult(compiled, "c")
+    result should equal(List(Map("c" -> 9)))
+  }
+
+  test("count with no input rows") { // MATCH (a) WHERE false RETURN count(*) AS c
+    //given
+    val selection = Selection(Seq(False()(pos)), AllNodesScan(IdName("a"), Set.empty)(solved))(solved)
+    val plan = ProduceResult(List("c"), Aggregation(selection, Map.empty, Map("c" -> CountStar()(pos)))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getResult(compiled, "c")
+    result should equal(List(Map("c" -> 0)))
+  }
+
+  test("count grouped by node") { // MATCH (a)-[r]->(b) RETURN b, count(*) AS c
+    //given
+    val expand = Expand(AllNodesScan(IdName("a"), Set.empty)(solved), IdName("a"),
+                        SemanticDirection.OUTGOING, Seq.empty, IdName("b"), IdName("r"), ExpandAll)(solved)
+    val plan = ProduceResult(List("b", "c"),
+      Aggregation(expand, Map("b" -> varFor("b")), Map("c" -> CountStar()(pos)))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getResult(compiled, "b", "c")
+    result.toSet should equal(Set(
+      Map("b" -> dNode, "c" -> 3),
+      Map("b" -> eNode, "c" -> 2),
+      Map("b" -> hNode, "c" -> 1),
+      Map("b" -> iNode, "c" -> 1)))
+  }
+
+  test("unwind a literal collection") { // UNWIND [3, 1, 2] AS x RETURN x
+    //given
+    val plan = ProduceResult(List("x"), UnwindCollection(SingleRow()(solved), IdName("x"), literalCollection(3, 1, 2))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getResult(compiled, "x")
+    result should equal(List(Map("x" -> 3), Map("x" -> 1), Map("x" -> 2)))
+  }
+
+  test("unwind null") { // UNWIND null AS x RETURN x
+    //given
+    val plan = ProduceResult(List("x"), UnwindCollection(SingleRow()(solved), IdName("x"), Null()(pos))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    getResult(compiled, "x") shouldBe empty
+  }
+
+  test("sort ascending") { // UNWIND [3, 1, 2] AS x RETURN x ORDER BY x
+    //given
+    val unwind = UnwindCollection(SingleRow()(solved), IdName("x"), literalCollection(3, 1, 2))(solved)
+    val plan = ProduceResult(List("x"), Sort(unwind, Seq(Ascending(IdName("x"))))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getResult(compiled, "x")
+    result should equal(List(Map("x" -> 1), Map("x" -> 2), Map("x" -> 3)))
+  }
+
+  test("sort descending") { // UNWIND [3, 1, 2] AS x RETURN x ORDER BY x DESC
+    //given
+    val unwind = UnwindCollection(SingleRow()(solved), IdName("x"), literalCollection(3, 1, 2))(solved)
+    val plan = ProduceResult(List("x"), Sort(unwind, Seq(Descending(IdName("x"))))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getResult(compiled, "x")
+    result should equal(List(Map("x" -> 3), Map("x" -> 2), Map("x" -> 1)))
+  }
+
+  test("sort with limit") { // UNWIND [3, 1, 4, 2] AS x RETURN x ORDER BY x LIMIT 2
+    //given
+    val unwind = UnwindCollection(SingleRow()(solved), IdName("x"), literalCollection(3, 1, 4, 2))(solved)
+    val sort = Sort(unwind, Seq(Ascending(IdName("x"))))(solved)
+    val plan = ProduceResult(List("x"), plans.Limit(sort, SignedDecimalIntegerLiteral("2")(pos), DoNotIncludeTies)(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getResult(compiled, "x")
+    result should equal(List(Map("x" -> 1), Map("x" -> 2)))
+  }
+
+  test("sort on count keeps the grouping node") { // MATCH (a)-[r]->(b) RETURN b, count(*) AS c ORDER BY c
+    //given
+    val expand = Expand(AllNodesScan(IdName("a"), Set.empty)(solved), IdName("a"),
+                        SemanticDirection.OUTGOING, Seq.empty, IdName("b"), IdName("r"), ExpandAll)(solved)
+    val aggregation = Aggregation(expand, Map("b" -> varFor("b")), Map("c" -> CountStar()(pos)))(solved)
+    val plan = ProduceResult(List("b", "c"), Sort(aggregation, Seq(Descending(IdName("c"))))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getResult(compiled, "b", "c")
+    result.take(2) should equal(List(Map("b" -> dNode, "c" -> 3), Map("b" -> eNode, "c" -> 2)))
+    result.drop(2).toSet should equal(Set(Map("b" -> hNode, "c" -> 1), Map("b" -> iNode, "c" -> 1)))
+  }
+
   test("project literal") {
     val plan = ProduceResult(List("a"), Projection(SingleRow()(solved), Map("a" -> SignedDecimalIntegerLiteral("1")(pos)))(solved))
     val compiled = compileAndExecute(plan)
@@ -888,6 +1013,9 @@ class CodeGeneratorTest extends CypherFunSuite with LogicalPlanningTestSupport {
     result.toSet should equal(Set(Map(name -> 1)))
   }
 
+  private def literalCollection(values: Int*) =
+    Collection(values.map(v => SignedDecimalIntegerLiteral(v.toString)(pos)))(pos)
+
   private def compile(plan: LogicalPlan) = {
     generator.generate(plan, newMockedPlanContext, semanticTable, CostBasedPlannerName.default)
   }
@@ -109,6 +109,51 @@ class GeneratedMethodStructureTest extends CypherFunSuite {
          m.probe("table", table, Seq("a", "b")) { inner =>
            inner.allNodesScan("foo")
          }
+       }),
+       Operation("count rows per node", m => {
+         m.declare("a", CodeGenType.primitiveNode)
+         m.allocateProbeTable("table", LongToCountTable)
+         m.updateProbeTableCount("table", LongToCountTable, Seq("a"))
+         m.iterateCountingTable("table", "key", "count") { inner =>
+           inner.allNodesScan("foo")
+         }
+       }),
+       Operation("count rows", m => {
+         m.declareCount("count")
+         m.allNodesScan("foo")
+         m.whileLoop(m.hasNextNode("foo")) { inner =>
+           inner.nextNode("node", "foo")
+           inner.incrementCount("count")
+         }
+       }),
+       Operation("use a sort table", m => {
+         val table = SortTableDescriptor(Map("a" -> CodeGenType.primitiveNode, "b" -> CodeGenType.Any), Seq(false))
+         m.declare("a", CodeGenType.primitiveNode)
+         m.declare("b", CodeGenType.Any)
+         m.allocateSortTable("table", table, None)
+         val value: Expression = m.newTableValue("value", table.structure)
+         m.putField(table.structure, value, CodeGenType.primitiveNode, "a", "a")
+         m.putField(table.structure, value, CodeGenType.Any, "b", "b")
+         m.sortTableAdd("table", table, Seq(m.loadVariable("b")), value)
+         m.sortTableIterate("table", table, Map("aa" -> "a", "bb" -> "b")) { inner =>
+           inner.allNodesScan("foo")
+         }
+       }),
+       Operation("use a sort table with a limit", m => {
+         val table = SortTableDescriptor(Map("a" -> CodeGenType.primitiveInt), Seq(true))
+         m.declareCount("a")
+         m.allocateSortTable("table", table, Some(m.box(Expression.constant(10L), CodeGenType.primitiveInt)))
+         val value: Expression = m.newTableValue("value", table.structure)
+         m.putField(table.structure, value, CodeGenType.primitiveInt, "a", "a")
+         m.sortTableAdd("table", table, Seq(m.box(m.loadVariable("a"), CodeGenType.primitiveInt)), value)
+         m.sortTableIterate("table", table, Map("aa" -> "a")) { inner =>
+           inner.allNodesScan("foo")
+         }
+       }),
+       Operation("unwind a value", m => {
+         m.forEach("element", CodeGenType.Any, m.asTraversable(Expression.constant("hello"))) { inner =>
+           inner.allNodesScan("foo")
+         }
        }),
         Operation("Method invocation", m => {
           m.invokeMethod(LongToCountTable, "v1", "inner") { inner => {
@@ -33,6 +33,8 @@ import java.io.Reader;
 import java.io.Writer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.CopyOption;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
@@ -138,6 +140,12 @@ public class DefaultFileSystemAbstraction implements FileSystemAbstraction
         return FileUtils.renameFile( from, to );
     }
 
+    @Override
+    public void renameFile( File from, File to, CopyOption... copyOptions ) throws IOException
+    {
+        Files.move( from.toPath(), to.toPath(), copyOptions );
+    }
+
     @Override
     public File[] listFiles( File directory )
     {
@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
+import java.util.List;
 
 /**
  * A page caching mechanism that allows caching multiple files and accessing their data
@@ -61,6 +62,18 @@ public interface PageCache extends AutoCloseable
      */
     PagedFile map( File file, int pageSize, OpenOption... openOptions ) throws IOException;
 
+    /**
+     * List a snapshot of the current file mappings.
+     * <p>
+     * The mappings can change as soon as this method returns. The returned {@link PagedFile}s do not count as
+     * mappings of their own, so they must not be closed, and they may be unmapped by their owners at any time.
+     * Map the files again with {@link #map(File, int, OpenOption...)} if they need to be kept mapped for a while.
+     *
+     * @return The list of {@link PagedFile}s that are currently mapped by this page cache.
+     * @throws IOException if the page cache has been closed.
+     */
+    List<PagedFile> listExistingMappings() throws IOException;
+
     /** Flush all dirty pages */
     void flushAndForce() throws IOException;
 
@@ -58,17 +58,25 @@ public interface PagedFile extends AutoCloseable
     int PF_NO_GROW = 1 << 2;
     /**
      * Read-ahead hint for sequential forward scanning.
+     * <p>
+     * When the cursor has to fault in a page, it will also try to fault in the following pages, that are not already
+     * in memory, with a single vectored read. The extra pages are taken only from the pages that are already free,
+     * and they are given a low priority by the eviction policy, until they are actually accessed.
      */
-    int PF_READ_AHEAD = 1 << 3; // TBD
+    int PF_READ_AHEAD = 1 << 3;
     /**
-     * Do not load in the page if it is not loaded already. Only useful with
-     * exclusive locking when you want to overwrite the whole page anyway.
+     * Do not load in the page if it is not loaded already. If the page is not in memory, then the cursor will not be
+     * bound to any page, and {@link PageCursor#getCurrentPageId()} will return {@link PageCursor#UNBOUND_PAGE_ID}.
+     * This is useful for finding out which pages are in memory, without disturbing the cache.
+     * <p>
+     * This flag is currently only supported together with {@link #PF_SHARED_READ_LOCK}.
      */
-    int PF_NO_FAULT = 1 << 4; // TBD
+    int PF_NO_FAULT = 1 << 4;
     /**
-     * Do not update page access statistics.
+     * Do not update page access statistics. Pages that are only accessed with this flag will not be kept in memory
+     * by the eviction policy on account of these accesses.
      */
-    int PF_TRANSIENT = 1 << 5; // TBD
+    int PF_TRANSIENT = 1 << 5;
 
     /**
      * Initiate an IO interaction with the contents of the paged file.
@@ -130,6 +138,11 @@ public interface PagedFile extends AutoCloseable
      */
     int pageSize();
 
+    /**
+     * Get the file that this paged file is a mapping of.
+     */
+    File file();
+
     /**
      * Flush all dirty pages into the file channel, and force the file channel to disk.
      */
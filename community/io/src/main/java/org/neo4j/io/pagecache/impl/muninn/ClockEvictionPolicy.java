@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.tracing.PageFaultEvent;
+
+/**
+ * The classic clock eviction policy, where every pin bumps the usage counter of the page, and every pass of the
+ * clock arm decays it. Pages are evicted when their usage counter reaches zero.
+ */
+final class ClockEvictionPolicy implements EvictionPolicy
+{
+    @Override
+    public void pageFaulted( MuninnPage page, PageSwapper swapper, long filePageId, PageFaultEvent faultEvent )
+    {
+        // The pin that follows the page fault is going to count as the first usage of the page.
+    }
+
+    @Override
+    public void pageReadAhead( MuninnPage page )
+    {
+        // The page will be evicted by the next pass of the clock arm, unless it is pinned before then.
+        page.setUsageStamp( (byte) 0 );
+    }
+
+    @Override
+    public void pagePinned( MuninnPage page )
+    {
+        page.incrementUsage();
+    }
+
+    @Override
+    public boolean sweep( MuninnPage page )
+    {
+        return page.decrementUsage();
+    }
+
+    @Override
+    public void pageEvicted( MuninnPage page )
+    {
+    }
+}
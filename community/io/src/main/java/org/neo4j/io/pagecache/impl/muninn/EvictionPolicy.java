@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.tracing.PageFaultEvent;
+
+/**
+ * The eviction policy decides how page accesses are accounted for, and which pages the clock sweep should pick as
+ * victims when the page cache needs to free up memory.
+ *
+ * All methods are called on hot paths, and implementations are allowed to be benignly racy, since they only
+ * influence the quality of the eviction decisions; never the correctness of the page cache.
+ *
+ * @see EvictionPolicies
+ */
+interface EvictionPolicy
+{
+    /**
+     * The given page has just been faulted in, and is about to be published to the translation table.
+     * <p>
+     * NOTE: This method is called while holding the exclusive lock on the page.
+     */
+    void pageFaulted( MuninnPage page, PageSwapper swapper, long filePageId, PageFaultEvent faultEvent );
+
+    /**
+     * The given page has just been faulted in by a read-ahead, and nobody has asked for it yet.
+     * <p>
+     * NOTE: This method is called while holding the exclusive lock on the page.
+     */
+    void pageReadAhead( MuninnPage page );
+
+    /**
+     * The given page has been pinned by a cursor. This also happens right after the page has been faulted in.
+     */
+    void pagePinned( MuninnPage page );
+
+    /**
+     * The clock arm of an eviction sweep has reached the given loaded page.
+     *
+     * @return {@code true} if the page should be evicted, if it can be locked.
+     */
+    boolean sweep( MuninnPage page );
+
+    /**
+     * The given page is about to be evicted.
+     * <p>
+     * NOTE: This method is called while holding the exclusive lock on the page.
+     */
+    void pageEvicted( MuninnPage page );
+}
@@ -20,22 +20,32 @@
 package org.neo4j.io.pagecache.impl.muninn;
 
 /**
- * This Runnable runs the eviction algorithm. Only one is expected for each page cache.
+ * This Runnable runs the eviction algorithm for one freelist stripe. One is expected for each stripe of each page
+ * cache.
  *
  * Interrupting the thread running this runnable, will be interpreted as a shutdown signal.
  *
- * @see MuninnPageCache#continuouslySweepPages()
+ * @see MuninnPageCache#continuouslySweepPages(FreelistStripe)
  */
 final class EvictionTask extends BackgroundTask
 {
-    public EvictionTask( MuninnPageCache pageCache )
+    private final FreelistStripe stripe;
+
+    public EvictionTask( MuninnPageCache pageCache, FreelistStripe stripe )
     {
         super( pageCache );
+        this.stripe = stripe;
+    }
+
+    @Override
+    protected String taskName()
+    {
+        return stripe.index == 0 ? super.taskName() : super.taskName() + "-" + stripe.index;
     }
 
     @Override
     protected void run( MuninnPageCache pageCache )
     {
-        pageCache.continuouslySweepPages();
+        pageCache.continuouslySweepPages( stripe );
     }
 }
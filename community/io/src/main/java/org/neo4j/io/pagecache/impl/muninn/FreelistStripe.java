@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.util.concurrent.locks.LockSupport;
+
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * One stripe of the striped freelist in the MuninnPageCache.
+ *
+ * Each stripe owns a contiguous range of the cache pages, and has its own freelist head and its own background
+ * eviction thread, which only ever puts pages from that range back on this stripe. Page faulting threads take pages
+ * from the stripe they are assigned to first, and only steal from the other stripes when their own is empty. This
+ * way, concurrent page faults on different stripes don't contend on the same freelist head.
+ *
+ * Review the comment on the {@code MuninnPageCache.grabFreeAndExclusivelyLockedPage} method before making changes
+ * to how the freelist is accessed.
+ */
+final class FreelistStripe
+{
+    // The field offset to unsafely access the freelist field.
+    private static final long freelistOffset =
+            UnsafeUtil.getFieldOffset( FreelistStripe.class, "freelist" );
+
+    // The stripes are allocated one after the other, so we pad the hot freelist field to keep it from sharing a
+    // cache line with the freelist field of a neighbouring stripe.
+    @SuppressWarnings( "unused" )
+    private long p0, p1, p2, p3, p4, p5, p6, p7;
+
+    // See the MuninnPageCache.grabFreeAndExclusivelyLockedPage method for how this list works.
+    @SuppressWarnings( "unused" ) // This field is accessed via Unsafe.
+    private volatile Object freelist;
+
+    @SuppressWarnings( "unused" )
+    private long q0, q1, q2, q3, q4, q5, q6, q7;
+
+    final int index;
+    final int firstPage;
+    final int endPage;
+    final int keepFree;
+
+    // The thread that runs the eviction algorithm for this stripe. We unpark this when we've run out of free pages
+    // to grab.
+    volatile Thread evictionThread;
+    // True if the eviction thread is currently parked, without someone having signalled it to wake up. This is used
+    // as a weak guard for unparking the eviction thread, because calling unpark too much (from many page faulting
+    // threads) can cause contention on the locks protecting that threads scheduling meta-data in the OS kernel.
+    private volatile boolean evictorParked;
+
+    FreelistStripe( int index, int firstPage, int endPage, int keepFree )
+    {
+        this.index = index;
+        this.firstPage = firstPage;
+        this.endPage = endPage;
+        this.keepFree = keepFree;
+    }
+
+    Object getFreelistHead()
+    {
+        return UnsafeUtil.getObjectVolatile( this, freelistOffset );
+    }
+
+    boolean compareAndSetFreelistHead( Object expected, Object update )
+    {
+        return UnsafeUtil.compareAndSwapObject( this, freelistOffset, expected, update );
+    }
+
+    Object getAndSetFreelistHead( Object newFreelistHead )
+    {
+        return UnsafeUtil.getAndSetObject( this, freelistOffset, newFreelistHead );
+    }
+
+    void setFreelistHead( Object freelistHead )
+    {
+        UnsafeUtil.putObjectVolatile( this, freelistOffset, freelistHead );
+    }
+
+    void unparkEvictor()
+    {
+        if ( evictorParked )
+        {
+            evictorParked = false;
+            LockSupport.unpark( evictionThread );
+        }
+    }
+
+    void parkEvictor( Object blocker, long parkNanos )
+    {
+        // Only called from the background eviction thread of this stripe!
+        evictorParked = true;
+        LockSupport.parkNanos( blocker, parkNanos );
+        evictorParked = false;
+    }
+}
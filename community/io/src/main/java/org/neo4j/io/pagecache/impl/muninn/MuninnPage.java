@@ -48,6 +48,7 @@ final class MuninnPage extends SequenceLock implements Page
     private long pointer;
 
     // Optimistically incremented; occasionally truncated to a max of 4.
+    // The high bits are reserved for the EvictionPolicy.
     // accessed through unsafe
     @SuppressWarnings( "unused" )
     private volatile byte usageStamp;
@@ -131,6 +132,18 @@ final class MuninnPage extends SequenceLock implements Page
         return UnsafeUtil.getByteVolatile( this, usageStampOffset );
     }
 
+    /** Get the raw usage stamp, including any bits that the eviction policy keeps above the usage counter. */
+    byte getUsageStamp()
+    {
+        return getUsageCounter();
+    }
+
+    /** Overwrite the raw usage stamp. This is intentionally left benignly racy, like the other usage updates. */
+    void setUsageStamp( byte usage )
+    {
+        UnsafeUtil.putByteVolatile( this, usageStampOffset, usage );
+    }
+
     /**
      * NOTE: This method must be called while holding an exclusive lock on the page.
      */
@@ -171,15 +184,7 @@ final class MuninnPage extends SequenceLock implements Page
             long filePageId,
             PageFaultEvent faultEvent ) throws IOException
     {
-        if ( this.swapper != null || this.filePageId != PageCursor.UNBOUND_PAGE_ID )
-        {
-            String msg = format(
-                    "Cannot fault page {filePageId = %s, swapper = %s} into " +
-                    "cache page %s. Already bound to {filePageId = " +
-                    "%s, swapper = %s}.",
-                    filePageId, swapper, getCachePageId(), this.filePageId, this.swapper );
-            throw new IllegalStateException( msg );
-        }
+        assertNotBound( swapper, filePageId );
 
         // Note: It is important that we assign the filePageId before we swap
         // the page in. If the swapping fails, the page will be considered
@@ -195,6 +200,49 @@ final class MuninnPage extends SequenceLock implements Page
         this.swapper = swapper; // Page now considered isBoundTo( swapper, filePageId )
     }
 
+    /**
+     * Fault the given run of consecutive file pages into the given pages, with a single vectored read.
+     * <p>
+     * NOTE: This method MUST be called while holding the exclusive lock on all of the given pages.
+     */
+    static void fault(
+            PageSwapper swapper,
+            long startFilePageId,
+            MuninnPage[] pages,
+            int length,
+            PageFaultEvent faultEvent ) throws IOException
+    {
+        for ( int i = 0; i < length; i++ )
+        {
+            pages[i].assertNotBound( swapper, startFilePageId + i );
+        }
+        // See the note in the single page fault method, about the order of these assignments.
+        for ( int i = 0; i < length; i++ )
+        {
+            pages[i].filePageId = startFilePageId + i;
+        }
+        long bytesRead = swapper.read( startFilePageId, pages, 0, length );
+        faultEvent.addBytesRead( bytesRead );
+        faultEvent.setCachePageId( pages[0].getCachePageId() );
+        for ( int i = 0; i < length; i++ )
+        {
+            pages[i].swapper = swapper;
+        }
+    }
+
+    private void assertNotBound( PageSwapper swapper, long filePageId )
+    {
+        if ( this.swapper != null || this.filePageId != PageCursor.UNBOUND_PAGE_ID )
+        {
+            String msg = format(
+                    "Cannot fault page {filePageId = %s, swapper = %s} into " +
+                    "cache page %s. Already bound to {filePageId = " +
+                    "%s, swapper = %s}.",
+                    filePageId, swapper, getCachePageId(), this.filePageId, this.swapper );
+            throw new IllegalStateException( msg );
+        }
+    }
+
     /**
      * NOTE: This method MUST be called while holding the page write lock.
      */
@@ -244,6 +292,14 @@ final class MuninnPage extends SequenceLock implements Page
         return filePageId;
     }
 
+    /**
+     * NOTE: The swapper is {@code null} if the page is not bound, or if the last page fault threw an exception.
+     */
+    PageSwapper getSwapper()
+    {
+        return swapper;
+    }
+
     @Override
     public String toString()
     {
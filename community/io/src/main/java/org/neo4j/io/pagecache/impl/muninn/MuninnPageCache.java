@@ -23,13 +23,13 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.LockSupport;
 
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
@@ -108,20 +108,27 @@ public class MuninnPageCache implements PageCache
     private static final int pagesToKeepFree = getInteger(
             MuninnPageCache.class, "pagesToKeepFree", 30 );
 
+    // The number of stripes the freelist is split into. Each stripe owns an equal share of the cache pages, and has
+    // its own background eviction thread. The default is one stripe per 8 cores. Caches that are too small to keep
+    // pagesToKeepFree pages free in every stripe get fewer stripes.
+    private static final int freelistStripes = getInteger(
+            MuninnPageCache.class, "freelistStripes", Math.max( 1, Runtime.getRuntime().availableProcessors() / 8 ) );
+
     // This is how many times that, during cooperative eviction, we'll iterate through the entire set of pages looking
     // for a page to evict, before we give up and throw CacheLiveLockException. This MUST be greater than 1.
     private static final int cooperativeEvictionLiveLockThreshold = getInteger(
             MuninnPageCache.class, "cooperativeEvictionLiveLockThreshold", 100 );
 
+    // The policy that decides which pages are evicted. The SCAN_RESISTANT policy protects frequently used pages from
+    // being pushed out of the cache by large scans.
+    private static final EvictionPolicies defaultEvictionPolicy = flag(
+            MuninnPageCache.class, "evictionPolicy", EvictionPolicies.CLOCK );
+
     // This is a pre-allocated constant, so we can throw it without allocating any objects:
     @SuppressWarnings( "ThrowableInstanceNeverThrown" )
     private static final IOException oomException = new IOException(
             "OutOfMemoryError encountered in the page cache background eviction thread" );
 
-    // The field offset to unsafely access the freelist field.
-    private static final long freelistOffset =
-            UnsafeUtil.getFieldOffset( MuninnPageCache.class, "freelist" );
-
     // This is used as a poison-pill signal in the freelist, to inform any
     // page faulting thread that it is now no longer possible to queue up and
     // wait for more pages to be evicted, because the page cache has been shut
@@ -145,14 +152,14 @@ public class MuninnPageCache implements PageCache
     private final int pageCacheId;
     private final PageSwapperFactory swapperFactory;
     private final int cachePageSize;
-    private final int keepFree;
     private final PageCacheTracer tracer;
     private final MuninnPage[] pages;
+    final EvictionPolicy evictionPolicy;
     // All PageCursors are initialised with their pointers pointing to the victim page. This way, we can do branch-free
     // bounds checking of page accesses without fear of segfaulting newly allocated cursors.
     final long victimPage;
 
-    // The freelist is a thread-safe linked-list of 2 types of objects. A link
+    // Each freelist is a thread-safe linked-list of 2 types of objects. A link
     // can either be a MuninnPage or a FreePage.
     // Initially, most of the links are MuninnPages that are ready for the
     // taking. Then towards the end, we have the last bunch of pages linked
@@ -164,21 +171,13 @@ public class MuninnPageCache implements PageCache
     // exhibit the ABA-problem. In other words, eviction will never add
     // MuninnPages to the freelist; it will only add free pages through a new
     // FreePage object.
-    @SuppressWarnings( "unused" ) // This field is accessed via Unsafe.
-    private volatile Object freelist;
+    // The freelist is striped, such that concurrent page faults don't all
+    // contend on the same list head. See FreelistStripe.
+    private final FreelistStripe[] freelists;
 
     // Linked list of mappings - guarded by synchronized(this)
     private volatile FileMapping mappedFiles;
 
-    // The thread that runs the eviction algorithm. We unpark this when we've run out of
-    // free pages to grab.
-    private volatile Thread evictionThread;
-    // True if the eviction thread is currently parked, without someone having
-    // signalled it to wake up. This is used as a weak guard for unparking the
-    // eviction thread, because calling unpark too much (from many page
-    // faulting threads) can cause contention on the locks protecting that
-    // threads scheduling meta-data in the OS kernel.
-    private volatile boolean evictorParked;
     private volatile IOException evictorException;
 
     // Flag for when page cache is closed - writes guarded by synchronized(this), reads can be unsynchronized
@@ -195,6 +194,27 @@ public class MuninnPageCache implements PageCache
             int maxPages,
             int cachePageSize,
             PageCacheTracer tracer )
+    {
+        this( swapperFactory, maxPages, cachePageSize, tracer, defaultEvictionPolicy.create( maxPages ) );
+    }
+
+    MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            int maxPages,
+            int cachePageSize,
+            PageCacheTracer tracer,
+            EvictionPolicy evictionPolicy )
+    {
+        this( swapperFactory, maxPages, cachePageSize, tracer, evictionPolicy, freelistStripes );
+    }
+
+    MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            int maxPages,
+            int cachePageSize,
+            PageCacheTracer tracer,
+            EvictionPolicy evictionPolicy,
+            int freelistStripes )
     {
         verifyHacks();
         verifyCachePageSizeIsPowerOfTwo( cachePageSize );
@@ -203,43 +223,63 @@ public class MuninnPageCache implements PageCache
         this.pageCacheId = pageCacheIdCounter.incrementAndGet();
         this.swapperFactory = swapperFactory;
         this.cachePageSize = cachePageSize;
-        this.keepFree = Math.min( pagesToKeepFree, maxPages / 2 );
         this.tracer = tracer;
         this.pages = new MuninnPage[maxPages];
+        this.evictionPolicy = evictionPolicy;
         this.printExceptionsOnClose = true;
 
         long alignment = swapperFactory.getRequiredBufferAlignment();
         long expectedMaxMemory = ((long) maxPages) * cachePageSize; // cast to long prevents overflow
         MemoryManager memoryManager = new MemoryManager( expectedMaxMemory, alignment );
         this.victimPage = VictimPageReference.getVictimPage( cachePageSize );
-        Object pageList = null;
-        int pageIndex = maxPages;
-        while ( pageIndex --> 0 )
+        this.freelists = createFreelistStripes( maxPages, freelistStripes );
+        for ( FreelistStripe stripe : freelists )
         {
-            MuninnPage page = new MuninnPage( cachePageSize, memoryManager );
-            page.tryExclusiveLock(); // All pages in the free-list are exclusively locked, and unlocked by page fault.
-            pages[pageIndex] = page;
-
-            if ( pageList == null )
-            {
-                FreePage freePage = new FreePage( page );
-                freePage.setNext( null );
-                pageList = freePage;
-            }
-            else if ( pageList instanceof FreePage
-                    && ((FreePage) pageList).count < keepFree )
-            {
-                FreePage freePage = new FreePage( page );
-                freePage.setNext( (FreePage) pageList );
-                pageList = freePage;
-            }
-            else
+            Object pageList = null;
+            int pageIndex = stripe.endPage;
+            while ( pageIndex --> stripe.firstPage )
             {
-                page.nextFree = pageList;
-                pageList = page;
+                MuninnPage page = new MuninnPage( cachePageSize, memoryManager );
+                page.tryExclusiveLock(); // All pages in the free-list are exclusively locked, and unlocked by page fault.
+                pages[pageIndex] = page;
+
+                if ( pageList == null )
+                {
+                    FreePage freePage = new FreePage( page );
+                    freePage.setNext( null );
+                    pageList = freePage;
+                }
+                else if ( pageList instanceof FreePage
+                        && ((FreePage) pageList).count < stripe.keepFree )
+                {
+                    FreePage freePage = new FreePage( page );
+                    freePage.setNext( (FreePage) pageList );
+                    pageList = freePage;
+                }
+                else
+                {
+                    page.nextFree = pageList;
+                    pageList = page;
+                }
             }
+            stripe.setFreelistHead( pageList );
         }
-        UnsafeUtil.putObjectVolatile( this, freelistOffset, pageList );
+    }
+
+    private static FreelistStripe[] createFreelistStripes( int maxPages, int freelistStripes )
+    {
+        int stripeCount = Math.max( 1, Math.min( freelistStripes, maxPages / (2 * Math.max( 1, pagesToKeepFree )) ) );
+        FreelistStripe[] stripes = new FreelistStripe[stripeCount];
+        int pagesPerStripe = maxPages / stripeCount;
+        for ( int i = 0; i < stripeCount; i++ )
+        {
+            int firstPage = i * pagesPerStripe;
+            // The last stripe also takes the remainder of the pages.
+            int endPage = i == stripeCount - 1 ? maxPages : firstPage + pagesPerStripe;
+            int keepFree = Math.min( pagesToKeepFree, (endPage - firstPage) / 2 );
+            stripes[i] = new FreelistStripe( i, firstPage, endPage, keepFree );
+        }
+        return stripes;
     }
 
     private static void verifyHacks()
@@ -394,7 +434,10 @@ public class MuninnPageCache implements PageCache
 
         try
         {
-            backgroundThreadExecutor.execute( new EvictionTask( this ) );
+            for ( FreelistStripe stripe : freelists )
+            {
+                backgroundThreadExecutor.execute( new EvictionTask( this, stripe ) );
+            }
         }
         catch ( Exception e )
         {
@@ -510,6 +553,20 @@ public class MuninnPageCache implements PageCache
         }
     }
 
+    @Override
+    public synchronized List<PagedFile> listExistingMappings() throws IOException
+    {
+        assertNotClosed();
+        List<PagedFile> list = new ArrayList<>();
+        FileMapping current = mappedFiles;
+        while ( current != null )
+        {
+            list.add( current.pagedFile );
+            current = current.next;
+        }
+        return list;
+    }
+
     void syncDevice() throws IOException
     {
         swapperFactory.syncDevice();
@@ -547,8 +604,11 @@ public class MuninnPageCache implements PageCache
             pages[i] = null;
         }
 
-        interrupt( evictionThread );
-        evictionThread = null;
+        for ( FreelistStripe stripe : freelists )
+        {
+            interrupt( stripe.evictionThread );
+            stripe.evictionThread = null;
+        }
     }
 
     private void interrupt( Thread thread )
@@ -603,9 +663,12 @@ public class MuninnPageCache implements PageCache
 
     MuninnPage grabFreeAndExclusivelyLockedPage( PageFaultEvent faultEvent ) throws IOException
     {
-        // Review the comment on the freelist field before making changes to
+        // Review the comment on the freelists field before making changes to
         // this part of the code.
-        // Whatever the case, we're going to the head-pointer of the freelist,
+        // We first look at the freelist stripe that the current thread is
+        // assigned to, and only steal pages from the other stripes if that one
+        // is empty.
+        // Whatever the case, we're going to the head-pointer of a freelist,
         // and in doing so, we can discover a number of things.
         // We can discover a MuninnPage object, in which case we can try to
         // CAS the freelist pointer to the value of the MuninnPage.nextFree
@@ -623,20 +686,81 @@ public class MuninnPageCache implements PageCache
         // to check and see if it is the shutdownSignal instance. If that's the
         // case, then the page cache has been shut down, and we should throw an
         // exception from our page fault routine.
+        assertHealthy();
+        FreelistStripe localStripe = localFreelistStripe();
+        MuninnPage page = grabFreePage( localStripe );
+        if ( page == null )
+        {
+            return cooperativelyEvict( faultEvent );
+        }
+        return page;
+    }
+
+    /**
+     * Grab a free page from the freelist, but without doing any eviction of our own if the freelist is empty.
+     * This is used for read-ahead, which is only worth doing when there are free pages to spare.
+     * @return An exclusively locked free page, or {@code null} if the freelist is empty.
+     */
+    MuninnPage tryGrabFreeAndExclusivelyLockedPage()
+    {
+        return grabFreePage( localFreelistStripe() );
+    }
+
+    private FreelistStripe localFreelistStripe()
+    {
+        FreelistStripe[] stripes = freelists;
+        if ( stripes.length == 1 )
+        {
+            return stripes[0];
+        }
+        // We have no way of telling which core or NUMA node a thread runs on, so we spread the threads over the
+        // stripes by their id. Long lived threads, like the ones in the thread pools we run transactions and
+        // queries on, will keep using the same stripe.
+        return stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+    }
+
+    /**
+     * Grab a free page from the given stripe, or steal one from the other stripes if that one is empty. The eviction
+     * threads of any stripes that turn out to be empty will be woken up.
+     * @return An exclusively locked free page, or {@code null} if all the freelists are empty.
+     */
+    private MuninnPage grabFreePage( FreelistStripe localStripe )
+    {
+        MuninnPage page = grabFreePageFromStripe( localStripe );
+        if ( page != null )
+        {
+            return page;
+        }
+        localStripe.unparkEvictor();
+
+        FreelistStripe[] stripes = freelists;
+        for ( int i = 1; i < stripes.length; i++ )
+        {
+            FreelistStripe stripe = stripes[(localStripe.index + i) % stripes.length];
+            page = grabFreePageFromStripe( stripe );
+            if ( page != null )
+            {
+                return page;
+            }
+            stripe.unparkEvictor();
+        }
+        return null;
+    }
+
+    private MuninnPage grabFreePageFromStripe( FreelistStripe stripe )
+    {
         Object current;
         for (;;)
         {
-            assertHealthy();
-            current = getFreelistHead();
+            current = stripe.getFreelistHead();
             if ( current == null )
             {
-                unparkEvictor();
-                return cooperativelyEvict( faultEvent );
+                return null;
             }
             else if ( current instanceof MuninnPage )
             {
                 MuninnPage page = (MuninnPage) current;
-                if ( compareAndSetFreelistHead( page, page.nextFree ) )
+                if ( stripe.compareAndSetFreelistHead( page, page.nextFree ) )
                 {
                     return page;
                 }
@@ -649,7 +773,7 @@ public class MuninnPageCache implements PageCache
                     throw new IllegalStateException( "The PageCache has been shut down." );
                 }
 
-                if ( compareAndSetFreelistHead( freePage, freePage.next ) )
+                if ( stripe.compareAndSetFreelistHead( freePage, freePage.next ) )
                 {
                     return freePage.page;
                 }
@@ -684,7 +808,7 @@ public class MuninnPageCache implements PageCache
                         "The PageCache has been shut down" );
             }
 
-            if ( page.isLoaded() && page.decrementUsage() )
+            if ( page.isLoaded() && evictionPolicy.sweep( page ) )
             {
                 if ( page.tryExclusiveLock() )
                 {
@@ -723,80 +847,49 @@ public class MuninnPageCache implements PageCache
                 "your database." );
     }
 
-    private void unparkEvictor()
-    {
-        if ( evictorParked )
-        {
-            evictorParked = false;
-            LockSupport.unpark( evictionThread );
-        }
-    }
-
-    private void parkEvictor( long parkNanos )
-    {
-        // Only called from the background eviction thread!
-        evictorParked = true;
-        LockSupport.parkNanos( this, parkNanos );
-        evictorParked = false;
-    }
-
-    private Object getFreelistHead()
-    {
-        return UnsafeUtil.getObjectVolatile( this, freelistOffset );
-    }
-
-    private boolean compareAndSetFreelistHead( Object expected, Object update )
-    {
-        return UnsafeUtil.compareAndSwapObject(
-                this, freelistOffset, expected, update );
-    }
-
-    private Object getAndSetFreelistHead( Object newFreelistHead )
-    {
-        return UnsafeUtil.getAndSetObject(
-                this, freelistOffset, newFreelistHead );
-    }
-
     /**
-     * Scan through all the pages, one by one, and decrement their usage stamps.
-     * If a usage reaches zero, we try-write-locking it, and if we get that lock,
+     * Scan through the pages of the given freelist stripe, one by one, and let the eviction policy decrement their
+     * usage stamps.
+     * If the policy decides that a page should be evicted, we try-write-locking it, and if we get that lock,
      * we evict the page. If we don't, we move on to the next page.
      * Once we have enough free pages, we park our thread. Page-faulting will
      * unpark our thread as needed.
      */
-    void continuouslySweepPages()
+    void continuouslySweepPages( FreelistStripe stripe )
     {
-        evictionThread = Thread.currentThread();
-        int clockArm = 0;
+        stripe.evictionThread = Thread.currentThread();
+        int clockArm = stripe.firstPage;
 
         while ( !closed )
         {
-            int pageCountToEvict = parkUntilEvictionRequired( keepFree );
+            int pageCountToEvict = parkUntilEvictionRequired( stripe );
             try ( EvictionRunEvent evictionRunEvent = tracer.beginPageEvictions( pageCountToEvict ) )
             {
-                clockArm = evictPages( pageCountToEvict, clockArm, evictionRunEvent );
+                clockArm = evictPages( pageCountToEvict, clockArm, stripe.firstPage, stripe.endPage,
+                        evictionRunEvent );
             }
         }
 
         // The last thing we do, is signalling the shutdown of the cache via
         // the freelist. This signal is looked out for in grabFreePage.
-        getAndSetFreelistHead( shutdownSignal );
+        stripe.getAndSetFreelistHead( shutdownSignal );
     }
 
-    private int parkUntilEvictionRequired( int keepFree )
+    private int parkUntilEvictionRequired( FreelistStripe stripe )
     {
         // Park until we're either interrupted, or the number of free pages drops
         // bellow keepFree.
+        int keepFree = stripe.keepFree;
         long parkNanos = TimeUnit.MILLISECONDS.toNanos( 10 );
         for (;;)
         {
-            parkEvictor( parkNanos );
+            stripe.parkEvictor( this, parkNanos );
             if ( Thread.interrupted() || closed )
             {
                 return 0;
             }
 
-            Object freelistHead = getFreelistHead();
+            Object freelistHead = stripe.getFreelistHead();
 
             if ( freelistHead == null )
             {
@@ -814,12 +907,23 @@ public class MuninnPageCache implements PageCache
     }
 
     int evictPages( int pageCountToEvict, int clockArm, EvictionRunEvent evictionRunEvent )
+    {
+        return evictPages( pageCountToEvict, clockArm, 0, pages.length, evictionRunEvent );
+    }
+
+    /**
+     * Evict pages in the range from {@code firstPage}, inclusive, to {@code endPage}, exclusive, starting at the
+     * given clock arm position. The evicted pages are put on the freelist stripe that owns them.
+     * @return The new position of the clock arm.
+     */
+    private int evictPages( int pageCountToEvict, int clockArm, int firstPage, int endPage,
+            EvictionRunEvent evictionRunEvent )
     {
         while ( pageCountToEvict > 0 && !closed )
         {
-            if ( clockArm == pages.length )
+            if ( clockArm == endPage )
             {
-                clockArm = 0;
+                clockArm = firstPage;
             }
             MuninnPage page = pages[clockArm];
 
@@ -829,7 +933,7 @@ public class MuninnPageCache implements PageCache
                 return 0;
             }
 
-            if ( page.isLoaded() && page.decrementUsage() )
+            if ( page.isLoaded() && evictionPolicy.sweep( page ) )
             {
                 if ( page.tryExclusiveLock() )
                 {
@@ -851,18 +955,19 @@ public class MuninnPageCache implements PageCache
                         pageEvicted = page.isLoaded() && evictPage( page, evictionEvent );
                         if ( pageEvicted )
                         {
+                            FreelistStripe stripe = freelistStripeOf( clockArm );
                             Object current;
                             Object nextListHead;
                             FreePage freePage = null;
                             do
                             {
-                                current = getFreelistHead();
+                                current = stripe.getFreelistHead();
                                 freePage = freePage == null?
                                            new FreePage( page ) : freePage;
                                 freePage.setNext( (FreePage) current );
                                 nextListHead = freePage;
                             }
-                            while ( !compareAndSetFreelistHead( current, nextListHead ) );
+                            while ( !stripe.compareAndSetFreelistHead( current, nextListHead ) );
                         }
                     }
                     finally
@@ -884,6 +989,14 @@ public class MuninnPageCache implements PageCache
         return clockArm;
     }
 
+    private FreelistStripe freelistStripeOf( int pageIndex )
+    {
+        FreelistStripe[] stripes = freelists;
+        // All stripes but the last own the same number of pages, and the last stripe also owns the remainder.
+        int index = Math.min( pageIndex / stripes[0].endPage, stripes.length - 1 );
+        return stripes[index];
+    }
+
     /**
      * Evict the given page, or return {@code false} if the eviction failed for any reason.
      * This method will never throw an exception!
@@ -893,6 +1006,7 @@ public class MuninnPageCache implements PageCache
         //noinspection TryWithIdenticalCatches - this warning is a false positive; bug in Intellij inspection
         try
         {
+            evictionPolicy.pageEvicted( page );
             page.evict( evictionEvent );
             clearEvictorException();
             return true;
@@ -27,12 +27,14 @@ import org.neo4j.concurrent.BinaryLatch;
 import org.neo4j.io.pagecache.CursorException;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
 import org.neo4j.io.pagecache.tracing.PinEvent;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
 import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.flag;
+import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.getInteger;
 
 abstract class MuninnPageCursor extends PageCursor
 {
@@ -44,6 +46,9 @@ abstract class MuninnPageCursor extends PageCursor
 
     private static final boolean boundsCheck = flag( MuninnPageCursor.class, "boundsCheck", true );
 
+    // The maximum number of pages, including the one being faulted, that a PF_READ_AHEAD page fault will read.
+    private static final int readAheadPages = Math.max( 1, getInteger( MuninnPageCursor.class, "readAheadPages", 16 ) );
+
     // Size of the respective primitive types in bytes.
     private static final int SIZE_OF_BYTE = Byte.BYTES;
     private static final int SIZE_OF_SHORT = Short.BYTES;
@@ -54,6 +59,7 @@ abstract class MuninnPageCursor extends PageCursor
     protected MuninnPagedFile pagedFile;
     protected PageSwapper swapper;
     protected PageCacheTracer tracer;
+    protected EvictionPolicy evictionPolicy;
     protected MuninnPage page;
     protected PinEvent pinEvent;
     protected long pageId;
@@ -70,6 +76,9 @@ abstract class MuninnPageCursor extends PageCursor
     // CursorExceptionWithPreciseStackTrace with the message and stack trace pointing more or less directly at the
     // offending code.
     private Object cursorException;
+    // Scratch space for read-ahead page faults. These are only allocated if the cursor is used with PF_READ_AHEAD.
+    private MuninnPage[] readAheadPageBuffer;
+    private BinaryLatch[] readAheadLatchBuffer;
 
     MuninnPageCursor( long victimPage )
     {
@@ -81,6 +90,7 @@ abstract class MuninnPageCursor extends PageCursor
     {
         this.swapper = pagedFile.swapper;
         this.tracer = pagedFile.tracer;
+        this.evictionPolicy = pagedFile.pageCache.evictionPolicy;
     }
 
     final void initialiseFlags( MuninnPagedFile pagedFile, long pageId, int pf_flags )
@@ -237,6 +247,7 @@ abstract class MuninnPageCursor extends PageCursor
                 boolean locked = tryLockPage( page );
                 if ( locked & page.isBoundTo( swapper, filePageId ) )
                 {
+                    pinEvent.hit();
                     pinCursorToPage( page, filePageId, swapper );
                     return;
                 }
@@ -246,6 +257,12 @@ abstract class MuninnPageCursor extends PageCursor
                 }
                 item = null;
             }
+            else if ( (pf_flags & PagedFile.PF_NO_FAULT) != 0 )
+            {
+                // The page is not in memory, and we have been asked not to fault it in. The cursor is left unbound.
+                pinEvent.done();
+                return;
+            }
             else
             {
                 item = uncommonPin( item, filePageId, chunkOffset, chunk );
@@ -331,9 +348,17 @@ abstract class MuninnPageCursor extends PageCursor
             // here, so the unmapping would have already happened. We do this
             // check before page.fault(), because that would otherwise reopen
             // the file channel.
-            assertPagedFileStillMappedAndGetIdOfLastPage();
+            long lastPageId = assertPagedFileStillMappedAndGetIdOfLastPage();
             page.initBuffer();
-            page.fault( swapper, filePageId, faultEvent );
+            if ( (pf_flags & PagedFile.PF_READ_AHEAD) != 0 && filePageId < lastPageId )
+            {
+                faultWithReadAhead( page, filePageId, lastPageId, faultEvent );
+            }
+            else
+            {
+                page.fault( swapper, filePageId, faultEvent );
+            }
+            evictionPolicy.pageFaulted( page, swapper, filePageId, faultEvent );
         }
         catch ( Throwable throwable )
         {
@@ -354,6 +379,122 @@ abstract class MuninnPageCursor extends PageCursor
         return page;
     }
 
+    /**
+     * Fault in the given page, along with as many of the immediately following pages as we can claim, using a single
+     * vectored read. The following pages are only claimed if they are not already in the translation table, and only
+     * if there are free pages readily available. We do not evict anything for the sake of read-ahead.
+     */
+    private void faultWithReadAhead( MuninnPage page, long filePageId, long lastPageId, PageFaultEvent faultEvent )
+            throws IOException
+    {
+        if ( readAheadPageBuffer == null )
+        {
+            readAheadPageBuffer = new MuninnPage[readAheadPages];
+            readAheadLatchBuffer = new BinaryLatch[readAheadPages];
+        }
+        MuninnPage[] pages = readAheadPageBuffer;
+        BinaryLatch[] latches = readAheadLatchBuffer;
+        pages[0] = page;
+        int length = 1 + claimReadAheadPages( filePageId, lastPageId, pages, latches );
+        try
+        {
+            MuninnPage.fault( swapper, filePageId, pages, length, faultEvent );
+        }
+        catch ( Throwable throwable )
+        {
+            abortReadAhead( filePageId, pages, latches, length );
+            throw throwable;
+        }
+        for ( int i = 1; i < length; i++ )
+        {
+            MuninnPage readAheadPage = pages[i];
+            long readAheadPageId = filePageId + i;
+            evictionPolicy.pageReadAhead( readAheadPage );
+            // Same as for the page we are faulting for: publish to the translation table before unlocking.
+            Object[] chunk = pagedFile.translationTable[MuninnPagedFile.computeChunkId( readAheadPageId )];
+            UnsafeUtil.putObjectVolatile( chunk, MuninnPagedFile.computeChunkOffset( readAheadPageId ), readAheadPage );
+            readAheadPage.unlockExclusive();
+            latches[i].release();
+            pages[i] = null;
+            latches[i] = null;
+        }
+        pages[0] = null;
+    }
+
+    /**
+     * Claim the translation table slots following the given file page id, by injecting page fault latches into
+     * them, and grab a free page for each of them. We stop at the first slot that is already taken, since that page
+     * is either in memory, or being faulted in by someone else.
+     * @return The number of pages claimed, which will be in the array slots starting at index 1.
+     */
+    private int claimReadAheadPages( long filePageId, long lastPageId, MuninnPage[] pages, BinaryLatch[] latches )
+    {
+        long maxPageId = Math.min( lastPageId, filePageId + pages.length - 1 );
+        int claimed = 0;
+        for ( long readAheadPageId = filePageId + 1; readAheadPageId <= maxPageId; readAheadPageId++ )
+        {
+            int chunkId = MuninnPagedFile.computeChunkId( readAheadPageId );
+            Object[][] tt = pagedFile.translationTable;
+            if ( tt.length <= chunkId )
+            {
+                tt = expandTranslationTableCapacity( chunkId );
+            }
+            Object[] chunk = tt[chunkId];
+            long chunkOffset = MuninnPagedFile.computeChunkOffset( readAheadPageId );
+            if ( UnsafeUtil.getObjectVolatile( chunk, chunkOffset ) != null )
+            {
+                break;
+            }
+            BinaryLatch latch = new BinaryLatch();
+            if ( !UnsafeUtil.compareAndSwapObject( chunk, chunkOffset, null, latch ) )
+            {
+                break;
+            }
+            MuninnPage freePage;
+            try
+            {
+                freePage = pagedFile.tryGrabFreeAndExclusivelyLockedPage();
+                if ( freePage != null )
+                {
+                    freePage.initBuffer();
+                }
+            }
+            catch ( Throwable throwable )
+            {
+                UnsafeUtil.putObjectVolatile( chunk, chunkOffset, null );
+                latch.release();
+                abortReadAhead( filePageId, pages, latches, 1 + claimed );
+                throw throwable;
+            }
+            if ( freePage == null )
+            {
+                UnsafeUtil.putObjectVolatile( chunk, chunkOffset, null );
+                latch.release();
+                break;
+            }
+            claimed++;
+            pages[claimed] = freePage;
+            latches[claimed] = latch;
+        }
+        return claimed;
+    }
+
+    private void abortReadAhead( long filePageId, MuninnPage[] pages, BinaryLatch[] latches, int length )
+    {
+        for ( int i = 1; i < length; i++ )
+        {
+            long readAheadPageId = filePageId + i;
+            // Let the eviction thread pick up our trash, just like when a normal page fault fails.
+            pages[i].unlockExclusive();
+            Object[] chunk = pagedFile.translationTable[MuninnPagedFile.computeChunkId( readAheadPageId )];
+            UnsafeUtil.putObjectVolatile( chunk, MuninnPagedFile.computeChunkOffset( readAheadPageId ), null );
+            latches[i].release();
+            pages[i] = null;
+            latches[i] = null;
+        }
+        pages[0] = null;
+    }
+
     private void abortPageFault( Throwable throwable, Object[] chunk, long chunkOffset,
                                  BinaryLatch latch,
                                  PageFaultEvent faultEvent ) throws IOException
@@ -369,6 +510,14 @@ abstract class MuninnPageCursor extends PageCursor
         return pagedFile.getLastPageId();
     }
 
+    final void countPageUsage( MuninnPage page )
+    {
+        if ( (pf_flags & PagedFile.PF_TRANSIENT) == 0 )
+        {
+            evictionPolicy.pagePinned( page );
+        }
+    }
+
     protected abstract void unpinCurrentPage();
 
     protected abstract void convertPageFaultLock( MuninnPage page );
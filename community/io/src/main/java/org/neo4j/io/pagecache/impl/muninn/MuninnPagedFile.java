@@ -155,6 +155,11 @@ final class MuninnPagedFile implements PagedFile
             throw new IllegalArgumentException(
                     "Cannot specify both PF_SHARED_WRITE_LOCK and PF_SHARED_READ_LOCK" );
         }
+        if ( (pf_flags & (PF_NO_FAULT | PF_SHARED_WRITE_LOCK)) == (PF_NO_FAULT | PF_SHARED_WRITE_LOCK) )
+        {
+            throw new IllegalArgumentException(
+                    "Cannot specify PF_NO_FAULT together with PF_SHARED_WRITE_LOCK" );
+        }
         MuninnPageCursor cursor;
         if ( (pf_flags & PF_SHARED_READ_LOCK) == 0 )
         {
@@ -175,7 +180,8 @@ final class MuninnPagedFile implements PagedFile
         return filePageSize;
     }
 
-    File file()
+    @Override
+    public File file()
     {
         return swapper.file();
     }
@@ -493,6 +499,15 @@ final class MuninnPagedFile implements PagedFile
         return pageCache.grabFreeAndExclusivelyLockedPage( faultEvent );
     }
 
+    /**
+     * Grab a free page for read-ahead, if one is readily available.
+     * @return An exclusively locked free page, or {@code null} if there are no free pages.
+     */
+    MuninnPage tryGrabFreeAndExclusivelyLockedPage()
+    {
+        return pageCache.tryGrabFreeAndExclusivelyLockedPage();
+    }
+
     /**
      * Remove the mapping of the given filePageId from the translation table, and return the evicted page object.
      * @param filePageId The id of the file page to evict.
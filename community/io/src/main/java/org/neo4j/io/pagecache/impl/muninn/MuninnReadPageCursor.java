@@ -58,7 +58,8 @@ final class MuninnReadPageCursor extends MuninnPageCursor
             return false;
         }
         pin( nextPageId, false );
-        currentPageId = nextPageId;
+        // With PF_NO_FAULT, the pin might have left us without a page, in which case the cursor stays unbound.
+        currentPageId = page == null ? UNBOUND_PAGE_ID : nextPageId;
         nextPageId++;
         return true;
     }
@@ -79,7 +80,7 @@ final class MuninnReadPageCursor extends MuninnPageCursor
     protected void pinCursorToPage( MuninnPage page, long filePageId, PageSwapper swapper )
     {
         reset( page );
-        page.incrementUsage();
+        countPageUsage( page );
     }
 
     @Override
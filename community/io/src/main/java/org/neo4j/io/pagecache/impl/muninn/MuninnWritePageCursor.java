@@ -99,7 +99,7 @@ final class MuninnWritePageCursor extends MuninnPageCursor
         // after the reset() call, which means that if we throw, the cursor will
         // be closed and the page lock will be released.
         assertPagedFileStillMappedAndGetIdOfLastPage();
-        page.incrementUsage();
+        countPageUsage( page );
     }
 
     @Override
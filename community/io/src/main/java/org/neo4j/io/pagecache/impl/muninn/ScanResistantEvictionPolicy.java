@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.tracing.PageFaultEvent;
+
+/**
+ * A scan resistant variant of the clock eviction policy, in the spirit of 2Q and CLOCK-Pro.
+ * <p>
+ * Pages that are faulted in for the first time are admitted as <em>cold</em> pages. Cold pages ignore the usage they
+ * get while they are resident, because a page that is read by a scan typically gets a burst of correlated accesses
+ * right after it is faulted in, and then never again. A cold page survives one pass of the clock arm, and is evicted
+ * on the next. This way, a large scan only cycles through the cold pages, and leaves the <em>hot</em> pages alone.
+ * <p>
+ * When a page is evicted, we remember its file page in a fixed-size table of "ghost" entries. If a page is faulted
+ * in while we still have a ghost entry for it, then the page was evicted too early, and is admitted as a hot page.
+ * Hot pages use the normal usage counter of the clock algorithm. Such page faults are reported to the
+ * {@link PageFaultEvent#refault() page cache tracer} as refaults.
+ * <p>
+ * The ghost table is lossy: entries are overwritten by colliding entries, and updates are intentionally left
+ * benignly racy. This can only cause pages to be admitted as cold when they could have been hot, or vice versa.
+ */
+final class ScanResistantEvictionPolicy implements EvictionPolicy
+{
+    // The usage stamp of hot pages only use the low 4 bits. These are the flags we put in the high bits of the usage
+    // stamps of cold pages.
+    static final byte COLD = 0x40;
+    static final byte SECOND_CHANCE = 0x20;
+
+    private static final int MIN_GHOST_TABLE_SIZE = 64;
+
+    private final long[] ghosts;
+    private final int ghostMask;
+
+    ScanResistantEvictionPolicy( int maxPages )
+    {
+        // Keep roughly as many ghost entries as we have pages in the cache, as ARC does.
+        int size = Math.max( MIN_GHOST_TABLE_SIZE, Integer.highestOneBit( maxPages ) );
+        ghosts = new long[size];
+        ghostMask = size - 1;
+    }
+
+    @Override
+    public void pageFaulted( MuninnPage page, PageSwapper swapper, long filePageId, PageFaultEvent faultEvent )
+    {
+        if ( removeGhost( ghostKey( swapper, filePageId ) ) )
+        {
+            // The pin that follows will bump the usage counter, like it does for all hot pages.
+            page.setUsageStamp( (byte) 1 );
+            faultEvent.refault();
+        }
+        else
+        {
+            page.setUsageStamp( (byte) (COLD | SECOND_CHANCE) );
+        }
+    }
+
+    @Override
+    public void pageReadAhead( MuninnPage page )
+    {
+        // Cold, but without the second chance that faulted pages get.
+        page.setUsageStamp( COLD );
+    }
+
+    @Override
+    public void pagePinned( MuninnPage page )
+    {
+        if ( (page.getUsageStamp() & COLD) == 0 )
+        {
+            page.incrementUsage();
+        }
+    }
+
+    @Override
+    public boolean sweep( MuninnPage page )
+    {
+        byte stamp = page.getUsageStamp();
+        if ( (stamp & COLD) != 0 )
+        {
+            if ( (stamp & SECOND_CHANCE) != 0 )
+            {
+                page.setUsageStamp( COLD );
+                return false;
+            }
+            return true;
+        }
+        return page.decrementUsage();
+    }
+
+    @Override
+    public void pageEvicted( MuninnPage page )
+    {
+        PageSwapper swapper = page.getSwapper();
+        if ( swapper != null )
+        {
+            long key = ghostKey( swapper, page.getFilePageId() );
+            ghosts[slot( key )] = key;
+        }
+    }
+
+    boolean isGhost( PageSwapper swapper, long filePageId )
+    {
+        long key = ghostKey( swapper, filePageId );
+        return ghosts[slot( key )] == key;
+    }
+
+    private boolean removeGhost( long key )
+    {
+        int slot = slot( key );
+        if ( ghosts[slot] == key )
+        {
+            ghosts[slot] = 0;
+            return true;
+        }
+        return false;
+    }
+
+    private int slot( long key )
+    {
+        return (int) (key >>> 32) & ghostMask;
+    }
+
+    private static long ghostKey( PageSwapper swapper, long filePageId )
+    {
+        long key = filePageId * 0x9E3779B97F4A7C15L + System.identityHashCode( swapper );
+        key ^= key >>> 29;
+        key *= 0xBF58476D1CE4E5B9L;
+        key ^= key >>> 32;
+        // Zero marks an empty slot in the ghost table.
+        return key == 0 ? 1 : key;
+    }
+}
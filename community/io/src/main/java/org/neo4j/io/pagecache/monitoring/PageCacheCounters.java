@@ -40,6 +40,11 @@ public interface PageCacheCounters
      */
     long pins();
 
+    /**
+     * @return The number of page pins that found the page already in memory thus far.
+     */
+    long hits();
+
     /**
      * @return The number of page unpins observed thus far.
      */
@@ -74,4 +79,9 @@ public interface PageCacheCounters
      * @return The number of page evictions that have thrown exceptions thus far.
      */
     long evictionExceptions();
+
+    /**
+     * @return The number of page faults of pages that were recently evicted, thus far.
+     */
+    long refaults();
 }
@@ -104,7 +104,7 @@
  *     +---------------[ PageCache ]-----------------------------------+
  *     |                                                               |
  *     |  * PageSwapperFactory{ FileSystemAbstraction }                |
- *     |  * evictionThread                                             |
+ *     |  * evictionThread per freelist stripe                         |
  *     |  * a large collection of Page objects:                        |
  *     |                                                               |
  *     |  +---------------[ Page ]----------------------------------+  |
@@ -85,6 +85,7 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     protected final AtomicLong faults = new AtomicLong();
     protected final AtomicLong evictions = new AtomicLong();
     protected final AtomicLong pins = new AtomicLong();
+    protected final AtomicLong hits = new AtomicLong();
     protected final AtomicLong unpins = new AtomicLong();
     protected final AtomicLong flushes = new AtomicLong();
     protected final AtomicLong bytesRead = new AtomicLong();
@@ -92,6 +93,7 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     protected final AtomicLong filesMapped = new AtomicLong();
     protected final AtomicLong filesUnmapped = new AtomicLong();
     protected final AtomicLong evictionExceptions = new AtomicLong();
+    protected final AtomicLong refaults = new AtomicLong();
 
     private final FlushEvent flushEvent = new FlushEvent()
     {
@@ -208,6 +210,12 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         public void setCachePageId( int cachePageId )
         {
         }
+
+        @Override
+        public void refault()
+        {
+            refaults.getAndIncrement();
+        }
     };
 
     private final PinEvent pinTracingEvent = new PinEvent()
@@ -217,6 +225,12 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         {
         }
 
+        @Override
+        public void hit()
+        {
+            hits.getAndIncrement();
+        }
+
         @Override
         public PageFaultEvent beginPageFault()
         {
@@ -237,6 +251,11 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         {
         }
 
+        @Override
+        public void hit()
+        {
+        }
+
         @Override
         public PageFaultEvent beginPageFault()
         {
@@ -325,6 +344,13 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         return majorFlushEvent;
     }
 
+    @Override
+    public WarmupEvent beginWarmup( File file, long pagesToLoad )
+    {
+        // The page faults of the warmup are already counted as they happen.
+        return WarmupEvent.NULL;
+    }
+
     @Override
     public long faults()
     {
@@ -343,6 +369,12 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         return pins.get();
     }
 
+    @Override
+    public long hits()
+    {
+        return hits.get();
+    }
+
     @Override
     public long unpins()
     {
@@ -384,4 +416,10 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     {
         return evictionExceptions.get();
     }
+
+    @Override
+    public long refaults()
+    {
+        return refaults.get();
+    }
 }
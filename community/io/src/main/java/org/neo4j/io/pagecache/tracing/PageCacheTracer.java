@@ -70,6 +70,12 @@ public interface PageCacheTracer extends PageCacheCounters
             return MajorFlushEvent.NULL;
         }
 
+        @Override
+        public WarmupEvent beginWarmup( File file, long pagesToLoad )
+        {
+            return WarmupEvent.NULL;
+        }
+
         @Override
         public long faults()
         {
@@ -88,6 +94,12 @@ public interface PageCacheTracer extends PageCacheCounters
             return 0;
         }
 
+        @Override
+        public long hits()
+        {
+            return 0;
+        }
+
         @Override
         public long unpins()
         {
@@ -130,6 +142,12 @@ public interface PageCacheTracer extends PageCacheCounters
             return 0;
         }
 
+        @Override
+        public long refaults()
+        {
+            return 0;
+        }
+
         @Override
         public String toString()
         {
@@ -170,4 +188,10 @@ public interface PageCacheTracer extends PageCacheCounters
      * The PageCache wants to flush all its bound pages.
      */
     MajorFlushEvent beginCacheFlush();
+
+    /**
+     * The given file is being warmed up, by loading the given number of pages that were in memory, according to an
+     * earlier profile of the page cache.
+     */
+    WarmupEvent beginWarmup( File file, long pagesToLoad );
 }
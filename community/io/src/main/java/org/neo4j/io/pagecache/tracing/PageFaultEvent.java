@@ -54,6 +54,11 @@ public interface PageFaultEvent
         public void setCachePageId( int cachePageId )
         {
         }
+
+        @Override
+        public void refault()
+        {
+        }
     };
 
     /**
@@ -66,6 +71,12 @@ public interface PageFaultEvent
      */
     void setCachePageId( int cachePageId );
 
+    /**
+     * The page being faulted in was recently evicted, as far as the eviction policy can tell.
+     * A high rate of refaults means that pages are evicted too early, for instance because of large scans.
+     */
+    void refault();
+
     /**
      * The page fault completed successfully.
      */
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.tracing;
+
+/**
+ * The page cache is being warmed up, by loading the pages of a file that were found to be in memory by an earlier
+ * profiling of the page cache.
+ */
+public interface WarmupEvent extends AutoCloseablePageCacheTracerEvent
+{
+    /**
+     * A WarmupEvent that does nothing.
+     */
+    WarmupEvent NULL = new WarmupEvent()
+    {
+        @Override
+        public void pagesLoaded( long pageCount )
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    };
+
+    /**
+     * The given number of additional pages, out of the pages to load for this warmup, have been loaded into memory.
+     */
+    void pagesLoaded( long pageCount );
+}
@@ -26,6 +26,8 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 import org.neo4j.adversaries.Adversary;
@@ -88,6 +90,18 @@ public class AdversarialPageCache implements PageCache
         delegate.close();
     }
 
+    @Override
+    public List<PagedFile> listExistingMappings() throws IOException
+    {
+        adversary.injectFailure( IOException.class, SecurityException.class );
+        List<PagedFile> list = new ArrayList<>();
+        for ( PagedFile pagedFile : delegate.listExistingMappings() )
+        {
+            list.add( new AdversarialPagedFile( pagedFile, adversary ) );
+        }
+        return list;
+    }
+
     @Override
     public int pageSize()
     {
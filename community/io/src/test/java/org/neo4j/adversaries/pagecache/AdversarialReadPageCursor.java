@@ -413,7 +413,8 @@ class AdversarialReadPageCursor extends PageCursor
         state.injectFailure( IndexOutOfBoundsException.class );
         if ( !state.isInconsistent() )
         {
-            delegate.copyTo( sourceOffset, targetCursor, targetOffset, lengthInBytes );
+            delegate.copyTo( sourceOffset, AdversarialWritePageCursor.unwrap( targetCursor ), targetOffset,
+                    lengthInBytes );
         }
         return lengthInBytes;
     }
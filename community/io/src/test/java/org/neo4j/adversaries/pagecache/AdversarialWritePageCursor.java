@@ -264,7 +264,17 @@ class AdversarialWritePageCursor extends PageCursor
     public int copyTo( int sourceOffset, PageCursor targetCursor, int targetOffset, int lengthInBytes )
     {
         adversary.injectFailure( IndexOutOfBoundsException.class );
-        return delegate.copyTo( sourceOffset, targetCursor, targetOffset, lengthInBytes );
+        return delegate.copyTo( sourceOffset, unwrap( targetCursor ), targetOffset, lengthInBytes );
+    }
+
+    /**
+     * The cursor implementation copied to may require a target cursor of its own kind, so give it the one
+     * an adversarial target cursor wraps.
+     */
+    static PageCursor unwrap( PageCursor targetCursor )
+    {
+        return targetCursor instanceof AdversarialWritePageCursor
+               ? ((AdversarialWritePageCursor) targetCursor).delegate : targetCursor;
     }
 
     @Override
@@ -27,6 +27,7 @@ import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.nio.charset.Charset;
+import java.nio.file.CopyOption;
 import java.util.function.Function;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
@@ -84,6 +85,12 @@ public class DelegatingFileSystemAbstraction implements FileSystemAbstraction
         return delegate.renameFile( from, to );
     }
 
+    @Override
+    public void renameFile( File from, File to, CopyOption... copyOptions ) throws IOException
+    {
+        delegate.renameFile( from, to, copyOptions );
+    }
+
     @Override
     public StoreChannel create( File fileName ) throws IOException
     {
@@ -40,6 +40,9 @@ import java.nio.channels.OverlappingFileLockException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.file.CopyOption;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -385,6 +388,22 @@ public class EphemeralFileSystemAbstraction implements FileSystemAbstraction
         return true;
     }
 
+    @Override
+    public void renameFile( File from, File to, CopyOption... copyOptions ) throws IOException
+    {
+        from = canonicalFile( from );
+        to = canonicalFile( to );
+        if ( !files.containsKey( from ) )
+        {
+            throw new FileNotFoundException( "'" + from + "' doesn't exist" );
+        }
+        if ( files.containsKey( to ) && !asList( copyOptions ).contains( StandardCopyOption.REPLACE_EXISTING ) )
+        {
+            throw new FileAlreadyExistsException( to.getPath() );
+        }
+        files.put( to, files.remove( from ) );
+    }
+
     @Override
     public File[] listFiles( File directory )
     {
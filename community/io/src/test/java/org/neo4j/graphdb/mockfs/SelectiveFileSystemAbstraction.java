@@ -27,6 +27,7 @@ import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.nio.charset.Charset;
+import java.nio.file.CopyOption;
 import java.util.function.Function;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
@@ -130,6 +131,12 @@ public class SelectiveFileSystemAbstraction implements FileSystemAbstraction
         return chooseFileSystem( from ).renameFile( from, to );
     }
 
+    @Override
+    public void renameFile( File from, File to, CopyOption... copyOptions ) throws IOException
+    {
+        chooseFileSystem( from ).renameFile( from, to, copyOptions );
+    }
+
     @Override
     public File[] listFiles( File directory )
     {
@@ -22,6 +22,7 @@ package org.neo4j.io.pagecache;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.OpenOption;
+import java.util.List;
 
 public class DelegatingPageCache implements PageCache
 {
@@ -37,6 +38,11 @@ public class DelegatingPageCache implements PageCache
         return delegate.map( file, pageSize, openOptions );
     }
 
+    public List<PagedFile> listExistingMappings() throws IOException
+    {
+        return delegate.listExistingMappings();
+    }
+
     public int pageSize()
     {
         return delegate.pageSize();
@@ -37,9 +37,11 @@ import java.nio.channels.WritableByteChannel;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
@@ -801,6 +803,62 @@ public abstract class PageCacheTest<T extends PageCache> extends PageCacheTestSu
         }
     }
 
+    @Test( timeout = SHORT_TIMEOUT_MILLIS, expected = IllegalArgumentException.class )
+    public void specifyingNoFaultWithWriteLockMustThrow() throws IOException
+    {
+        PageCache cache = getPageCache( fs, maxPages, pageCachePageSize, PageCacheTracer.NULL );
+        try ( PagedFile pagedFile = cache.map( file( "a" ), filePageSize ) )
+        {
+            pagedFile.io( 0, PF_SHARED_WRITE_LOCK | PF_NO_FAULT ); // this must throw
+        }
+    }
+
+    @Test( timeout = SHORT_TIMEOUT_MILLIS )
+    public void noFaultCursorMustOnlyBindToPagesThatAreAlreadyInMemory() throws IOException
+    {
+        generateFileWithRecords( file( "a" ), recordCount, recordSize );
+        PageCache cache = getPageCache( fs, maxPages, pageCachePageSize, PageCacheTracer.NULL );
+        try ( PagedFile pagedFile = cache.map( file( "a" ), filePageSize ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 1, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+            {
+                assertTrue( cursor.next() );
+                assertThat( cursor.getCurrentPageId(), is( PageCursor.UNBOUND_PAGE_ID ) );
+                assertTrue( cursor.next() );
+                assertThat( cursor.getCurrentPageId(), is( 1L ) );
+                verifyRecordsMatchExpected( cursor );
+                assertTrue( cursor.next() );
+                assertThat( cursor.getCurrentPageId(), is( PageCursor.UNBOUND_PAGE_ID ) );
+            }
+        }
+    }
+
+    @Test( timeout = SHORT_TIMEOUT_MILLIS )
+    public void listExistingMappingsMustReturnCurrentlyMappedFiles() throws IOException
+    {
+        PageCache cache = getPageCache( fs, maxPages, pageCachePageSize, PageCacheTracer.NULL );
+        assertThat( cache.listExistingMappings().size(), is( 0 ) );
+        try ( PagedFile a = cache.map( file( "a" ), filePageSize );
+              PagedFile b = cache.map( file( "b" ), filePageSize ) )
+        {
+            List<PagedFile> mappings = cache.listExistingMappings();
+            assertThat( mappings.size(), is( 2 ) );
+            Set<File> files = new HashSet<>();
+            for ( PagedFile mapping : mappings )
+            {
+                files.add( mapping.file().getCanonicalFile() );
+            }
+            assertTrue( files.contains( a.file().getCanonicalFile() ) );
+            assertTrue( files.contains( b.file().getCanonicalFile() ) );
+        }
+        assertThat( cache.listExistingMappings().size(), is( 0 ) );
+    }
+
     @Test( timeout = SHORT_TIMEOUT_MILLIS )
     public void mustNotPinPagesAfterNextReturnsFalse() throws Exception
     {
@@ -37,6 +37,7 @@ import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
 import org.neo4j.io.pagecache.tracing.PinEvent;
+import org.neo4j.io.pagecache.tracing.WarmupEvent;
 
 public class RecordingPageCacheTracer implements PageCacheTracer
 {
@@ -120,6 +121,11 @@ public class RecordingPageCacheTracer implements PageCacheTracer
             {
             }
 
+            @Override
+            public void hit()
+            {
+            }
+
             @Override
             public PageFaultEvent beginPageFault()
             {
@@ -151,6 +157,11 @@ public class RecordingPageCacheTracer implements PageCacheTracer
                     public void setCachePageId( int cachePageId )
                     {
                     }
+
+                    @Override
+                    public void refault()
+                    {
+                    }
                 };
             }
 
@@ -174,6 +185,12 @@ public class RecordingPageCacheTracer implements PageCacheTracer
         return MajorFlushEvent.NULL;
     }
 
+    @Override
+    public WarmupEvent beginWarmup( File file, long pagesToLoad )
+    {
+        return WarmupEvent.NULL;
+    }
+
     @Override
     public long faults()
     {
@@ -192,6 +209,12 @@ public class RecordingPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long hits()
+    {
+        return 0;
+    }
+
     @Override
     public long unpins()
     {
@@ -234,6 +257,12 @@ public class RecordingPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long refaults()
+    {
+        return 0;
+    }
+
     public <T extends Event> T observe( Class<T> type ) throws InterruptedException
     {
         return type.cast( record.take() );
@@ -19,6 +19,7 @@
  */
 package org.neo4j.io.pagecache;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
@@ -53,6 +54,12 @@ public class StubPagedFile implements PagedFile
         return exposedPageSize;
     }
 
+    @Override
+    public File file()
+    {
+        return new File( "stub" );
+    }
+
     @Override
     public void flushAndForce() throws IOException
     {
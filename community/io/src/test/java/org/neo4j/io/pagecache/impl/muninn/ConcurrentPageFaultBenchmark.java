@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+
+/**
+ * Measures how many page faults per second concurrent threads can do, when the working set is much larger than the
+ * page cache, such that nearly every page access is a page fault.
+ *
+ * The {@code freelistStripes} parameter controls how many stripes the page cache freelist is split into, where a
+ * single stripe is the same as the design with one shared freelist head.
+ *
+ * Run the main method with the test classpath of this module. By default, the benchmark uses as many threads as
+ * there are cores.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 10 )
+@Fork( 1 )
+public class ConcurrentPageFaultBenchmark
+{
+    private static final int PAGE_SIZE = 8192;
+    private static final int CACHE_PAGES = 4096;
+    private static final int FILE_PAGES = CACHE_PAGES * 16;
+
+    @Param( {"1", "2", "4", "8"} )
+    public int freelistStripes;
+
+    private File directory;
+    private FileSystemAbstraction fs;
+    private MuninnPageCache pageCache;
+    private PagedFile pagedFile;
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        directory = Files.createTempDirectory( "page-fault-benchmark" ).toFile();
+        fs = new DefaultFileSystemAbstraction();
+        File file = new File( directory, "a" );
+        try ( StoreChannel channel = fs.create( file ) )
+        {
+            ByteBuffer buffer = ByteBuffer.allocate( PAGE_SIZE );
+            for ( int i = 0; i < FILE_PAGES; i++ )
+            {
+                buffer.clear();
+                buffer.putLong( 0, i );
+                channel.writeAll( buffer );
+            }
+        }
+
+        SingleFilePageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.setFileSystemAbstraction( fs );
+        pageCache = new MuninnPageCache( swapperFactory, CACHE_PAGES, PAGE_SIZE, PageCacheTracer.NULL,
+                EvictionPolicies.CLOCK.create( CACHE_PAGES ), freelistStripes );
+        pagedFile = pageCache.map( file, PAGE_SIZE );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException
+    {
+        pagedFile.close();
+        pageCache.close();
+        fs.deleteRecursively( directory );
+    }
+
+    @Benchmark
+    @Threads( Threads.MAX )
+    public long randomPageFaults() throws IOException
+    {
+        long pageId = ThreadLocalRandom.current().nextInt( FILE_PAGES );
+        try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_READ_LOCK ) )
+        {
+            long value;
+            cursor.next();
+            do
+            {
+                value = cursor.getLong();
+            }
+            while ( cursor.shouldRetry() );
+            return value;
+        }
+    }
+
+    public static void main( String[] args ) throws RunnerException
+    {
+        new Runner( new OptionsBuilder().include( ConcurrentPageFaultBenchmark.class.getSimpleName() ).build() ).run();
+    }
+}
@@ -35,6 +35,8 @@ import org.neo4j.io.pagecache.PageCacheTest;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.RecordingPageCacheTracer;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.DelegatingPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
@@ -48,6 +50,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_GROW;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.io.pagecache.RecordingPageCacheTracer.Evict;
 import static org.neo4j.io.pagecache.RecordingPageCacheTracer.Fault;
@@ -115,6 +118,102 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         channel.close();
     }
 
+    @Test
+    public void readAheadMustFaultInFollowingPagesWithSinglePageFault() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+
+        MuninnPageCache pageCache = createPageCache( fs, 4, 8, blockCacheFlush( tracer ) );
+        PagedFile pagedFile = pageCache.map( file( "a" ), 8 );
+
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+        {
+            assertTrue( cursor.next() );
+            assertThat( cursor.getLong(), is( x ) );
+            assertTrue( cursor.next() );
+            assertThat( cursor.getLong(), is( y ) );
+            assertFalse( cursor.next() );
+        }
+        assertThat( tracer.faults(), is( 1L ) );
+        assertThat( tracer.hits(), is( 1L ) );
+        assertThat( tracer.bytesRead(), is( 16L ) );
+        pagedFile.close();
+    }
+
+    @Test
+    public void readAheadMustStopAtPagesAlreadyInMemory() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+
+        MuninnPageCache pageCache = createPageCache( fs, 4, 8, blockCacheFlush( tracer ) );
+        PagedFile pagedFile = pageCache.map( file( "a" ), 8 );
+
+        try ( PageCursor cursor = pagedFile.io( 1, PF_SHARED_READ_LOCK ) )
+        {
+            assertTrue( cursor.next() );
+        }
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+        {
+            // Page 1 is already in memory, so there is nothing to read ahead.
+            assertTrue( cursor.next() );
+            assertThat( cursor.getLong(), is( x ) );
+            assertTrue( cursor.next() );
+            assertThat( cursor.getLong(), is( y ) );
+        }
+        assertThat( tracer.faults(), is( 2L ) );
+        assertThat( tracer.hits(), is( 1L ) );
+        pagedFile.close();
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void mustStealFreePagesFromOtherStripesWhenLocalStripeIsEmpty() throws Exception
+    {
+        int maxPages = 240;
+        SingleFilePageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.setFileSystemAbstraction( fs );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        MuninnPageCache pageCache = new MuninnPageCache(
+                swapperFactory, maxPages, 8, tracer, EvictionPolicies.CLOCK.create( maxPages ), 4 );
+        try
+        {
+            try ( PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+            {
+                try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+                {
+                    for ( int i = 0; i < maxPages; i++ )
+                    {
+                        assertTrue( cursor.next() );
+                        cursor.putLong( i );
+                    }
+                }
+                // A single thread only has one local stripe, so most of these pages must have been stolen from the
+                // other stripes.
+                assertThat( tracer.faults(), is( (long) maxPages ) );
+
+                try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+                {
+                    for ( int i = 0; i < maxPages; i++ )
+                    {
+                        assertTrue( cursor.next() );
+                        long value;
+                        do
+                        {
+                            value = cursor.getLong();
+                        }
+                        while ( cursor.shouldRetry() );
+                        assertThat( value, is( (long) i ) );
+                    }
+                }
+            }
+        }
+        finally
+        {
+            pageCache.close();
+        }
+    }
+
     @Test
     public void mustFlushDirtyPagesOnEvictingFirstPage() throws Exception
     {
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.tracing.DummyPageSwapper;
+import org.neo4j.io.pagecache.tracing.EvictionEvent;
+import org.neo4j.io.pagecache.tracing.PageFaultEvent;
+import org.neo4j.unsafe.impl.internal.dragons.MemoryManager;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class ScanResistantEvictionPolicyTest
+{
+    private static final int CACHE_PAGE_SIZE = 8192;
+
+    private final MemoryManager memoryManager = new MemoryManager( CACHE_PAGE_SIZE * 4, 1 );
+    private final ScanResistantEvictionPolicy policy = new ScanResistantEvictionPolicy( 4 );
+    private final PageSwapper swapper = new DummyPageSwapper( "a" );
+
+    @Test
+    public void newPagesMustSurviveOneSweepAndThenBeEvicted() throws Exception
+    {
+        MuninnPage page = faultIn( 0, PageFaultEvent.NULL );
+
+        assertFalse( policy.sweep( page ) );
+        assertTrue( policy.sweep( page ) );
+    }
+
+    @Test
+    public void pinsMustNotProtectNewPages() throws Exception
+    {
+        MuninnPage page = faultIn( 0, PageFaultEvent.NULL );
+        for ( int i = 0; i < 10; i++ )
+        {
+            policy.pagePinned( page );
+        }
+
+        assertFalse( policy.sweep( page ) );
+        assertTrue( policy.sweep( page ) );
+    }
+
+    @Test
+    public void evictedPagesMustBeRememberedAsGhosts() throws Exception
+    {
+        MuninnPage page = faultIn( 1, PageFaultEvent.NULL );
+        assertFalse( policy.isGhost( swapper, 1 ) );
+
+        evict( page );
+
+        assertTrue( policy.isGhost( swapper, 1 ) );
+        assertFalse( policy.isGhost( swapper, 2 ) );
+        assertFalse( policy.isGhost( new DummyPageSwapper( "b" ), 1 ) );
+    }
+
+    @Test
+    public void refaultedPagesMustBeAdmittedAsHotPages() throws Exception
+    {
+        MuninnPage page = faultIn( 1, PageFaultEvent.NULL );
+        evict( page );
+
+        PageFaultEvent faultEvent = mock( PageFaultEvent.class );
+        page = faultIn( 1, faultEvent );
+        verify( faultEvent ).refault();
+        assertFalse( policy.isGhost( swapper, 1 ) );
+
+        // A hot page with some usage survives more than one sweep
+        policy.pagePinned( page );
+        policy.pagePinned( page );
+        assertFalse( policy.sweep( page ) );
+        assertFalse( policy.sweep( page ) );
+    }
+
+    @Test
+    public void pagesFaultedForTheFirstTimeMustNotBeReportedAsRefaults() throws Exception
+    {
+        PageFaultEvent faultEvent = mock( PageFaultEvent.class );
+        faultIn( 1, faultEvent );
+        verify( faultEvent, never() ).refault();
+    }
+
+    @Test
+    public void hotPagesMustBeEvictedOnceTheirUsageHasDecayed() throws Exception
+    {
+        MuninnPage page = faultIn( 1, PageFaultEvent.NULL );
+        evict( page );
+        page = faultIn( 1, PageFaultEvent.NULL );
+        policy.pagePinned( page );
+
+        boolean evicted = false;
+        for ( int i = 0; i < 8 && !evicted; i++ )
+        {
+            evicted = policy.sweep( page );
+        }
+        assertTrue( evicted );
+    }
+
+    private MuninnPage faultIn( long filePageId, PageFaultEvent faultEvent ) throws IOException
+    {
+        MuninnPage page = new MuninnPage( CACHE_PAGE_SIZE, memoryManager );
+        page.tryExclusiveLock();
+        page.initBuffer();
+        page.fault( swapper, filePageId, faultEvent );
+        policy.pageFaulted( page, swapper, filePageId, faultEvent );
+        page.unlockExclusive();
+        policy.pagePinned( page );
+        return page;
+    }
+
+    private void evict( MuninnPage page ) throws IOException
+    {
+        assertTrue( page.tryExclusiveLock() );
+        policy.pageEvicted( page );
+        page.evict( EvictionEvent.NULL );
+        page.unlockExclusive();
+    }
+}
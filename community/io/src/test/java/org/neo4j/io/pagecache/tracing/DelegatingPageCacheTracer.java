@@ -62,11 +62,21 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         return delegate.unpins();
     }
 
+    public long hits()
+    {
+        return delegate.hits();
+    }
+
     public MajorFlushEvent beginCacheFlush()
     {
         return delegate.beginCacheFlush();
     }
 
+    public WarmupEvent beginWarmup( File file, long pagesToLoad )
+    {
+        return delegate.beginWarmup( file, pagesToLoad );
+    }
+
     public long bytesWritten()
     {
         return delegate.bytesWritten();
@@ -97,6 +107,11 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         return delegate.evictionExceptions();
     }
 
+    public long refaults()
+    {
+        return delegate.refaults();
+    }
+
     public long filesMapped()
     {
         return delegate.filesMapped();
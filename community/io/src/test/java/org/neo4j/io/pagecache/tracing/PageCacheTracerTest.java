@@ -85,6 +85,23 @@ public abstract class PageCacheTracerTest
         assertCounts( 1, 1, 2, 0, 0, 0, 84, 0, 0, 0 );
     }
 
+    @Test
+    public void mustCountHitsAndRefaults()
+    {
+        PinEvent pinEvent = tracer.beginPin( false, 0, swapper );
+        pinEvent.hit();
+        pinEvent.done();
+        pinEvent = tracer.beginPin( false, 1, swapper );
+        PageFaultEvent pageFaultEvent = pinEvent.beginPageFault();
+        pageFaultEvent.refault();
+        pageFaultEvent.done();
+        pinEvent.done();
+
+        assertCounts( 2, 2, 1, 0, 0, 0, 0, 0, 0, 0 );
+        assertThat( "hits", tracer.hits(), is( 1L ) );
+        assertThat( "refaults", tracer.refaults(), is( 1L ) );
+    }
+
     @Test
     public void mustCountEvictions()
     {
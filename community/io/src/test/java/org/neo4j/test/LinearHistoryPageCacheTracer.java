@@ -43,6 +43,7 @@ import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
 import org.neo4j.io.pagecache.tracing.PinEvent;
+import org.neo4j.io.pagecache.tracing.WarmupEvent;
 
 /**
  * This PageCacheTracer records a linearized history of the internal page cache events.
@@ -373,6 +374,11 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
             this.cachePageId = cachePageId;
         }
 
+        @Override
+        public void hit()
+        {
+        }
+
         @Override
         public PageFaultEvent beginPageFault()
         {
@@ -403,6 +409,7 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         private int bytesRead;
         private int cachePageId;
         private boolean pageEvictedByFaulter;
+        private boolean refault;
         private Throwable exception;
 
         @Override
@@ -437,6 +444,12 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
             return add( new EvictionHEvent() );
         }
 
+        @Override
+        public void refault()
+        {
+            refault = true;
+        }
+
         @Override
         void printBody( PrintStream out, String exceptionLinePrefix )
         {
@@ -446,6 +459,8 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
             out.print( bytesRead );
             out.print( ", pageEvictedByFaulter:" );
             out.print( pageEvictedByFaulter );
+            out.print( ", refault:" );
+            out.print( refault );
             print( out, exception, exceptionLinePrefix );
         }
     }
@@ -564,6 +579,12 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         return add( new MajorFlushHEvent( null ) );
     }
 
+    @Override
+    public WarmupEvent beginWarmup( File file, long pagesToLoad )
+    {
+        return WarmupEvent.NULL;
+    }
+
     @Override
     public long faults()
     {
@@ -582,6 +603,12 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long hits()
+    {
+        return 0;
+    }
+
     @Override
     public long unpins()
     {
@@ -624,6 +651,12 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long refaults()
+    {
+        return 0;
+    }
+
     private class HistoryPrinter implements Consumer<HEvent>
     {
         private final List<HEvent> concurrentIntervals;
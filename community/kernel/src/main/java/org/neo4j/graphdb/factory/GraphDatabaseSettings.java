@@ -147,7 +147,19 @@ public abstract class GraphDatabaseSettings
     @Internal
     public static final Setting<String> cypher_runtime = setting(
             "unsupported.cypher.runtime",
-            options( "INTERPRETED", "COMPILED", DEFAULT ), DEFAULT );
+            options( "INTERPRETED", "COMPILED", "SLOTTED", "PARALLEL", DEFAULT ), DEFAULT );
+
+    @Description( "The amount of memory that the sorts, aggregations and other eager operators of a single Cypher " +
+                  "query may use before they write rows to temporary files. Zero means that queries are not limited." )
+    @Internal
+    public static final Setting<Long> cypher_query_memory_budget = setting(
+            "unsupported.cypher.query_memory_budget", BYTES, "0", min( 0L ) );
+
+    @Description( "The directory that Cypher queries write their temporary files to when they run out of memory " +
+                  "budget. Defaults to a directory in the store directory of the database." )
+    @Internal
+    public static final Setting<File> cypher_spill_directory =
+            pathSetting( "unsupported.cypher.spill_directory", NO_DEFAULT );
 
     @Description( "Enable tracing of compilation in cypher." )
     @Internal
@@ -228,6 +240,13 @@ public abstract class GraphDatabaseSettings
     public static final Setting<Long> counts_store_rotation_timeout =
             setting( "unsupported.dbms.counts_store_rotation_timeout", DURATION, "10m" );
 
+    @Description( "Largest number of changed counts, in percent of the number of counts in the compacted counts store, " +
+                  "that a checkpoint writes to a counts store delta file instead of rewriting the whole counts store. " +
+                  "A checkpoint that would exceed the threshold compacts the counts store. 0 disables delta files." )
+    @Internal
+    public static final Setting<Integer> counts_store_delta_threshold =
+            setting( "unsupported.dbms.counts_store_delta_threshold", INTEGER, "0", min( 0 ) );
+
     @Description( "Minimum time interval after last rotation of the debug log before it may be rotated again." )
     public static final Setting<Long> store_internal_log_rotation_delay =
             setting("dbms.logs.debug.rotation.delay", DURATION, "300s" );
@@ -317,6 +336,40 @@ public abstract class GraphDatabaseSettings
     public static final Setting<Integer> index_sampling_update_percentage =
             setting("dbms.index_sampling.update_percentage", INTEGER, "5", min( 0 ) );
 
+    @Description("Enable or disable incremental index sampling. When enabled, committed index updates are summarized " +
+                 "in per index sketches and background sampling estimates samples from these instead of reading " +
+                 "whole indexes. Each index is still fully sampled once after startup, when forced to and when more " +
+                 "entries have been updated than the index held at its last full sample.")
+    public static final Setting<Boolean> index_sampling_incremental_enabled =
+            setting("dbms.index_sampling.incremental_enabled", BOOLEAN, FALSE );
+
+    @Description( "Backing store of the label scan store, which maps labels to the nodes having them. The `LUCENE` " +
+                  "store keeps this mapping in a Lucene index. The `NATIVE` store keeps it in a file of its own, " +
+                  "accessed through the page cache. Changing this setting rebuilds the selected store from the " +
+                  "node store on the next startup, if it isn't up to date." )
+    public static final Setting<LabelIndex> label_index = setting( "dbms.label_index", options( LabelIndex.class ),
+            LabelIndex.LUCENE.name() );
+
+    public enum LabelIndex
+    {
+        NATIVE,
+        LUCENE
+    }
+
+    @Description( "Provider of new schema indexes. The `LUCENE_NATIVE` provider keeps numbers and strings of up to " +
+                  "54 bytes in native indexes, accessed through the page cache, and other values in Lucene " +
+                  "indexes. The `LUCENE` provider keeps all values in Lucene indexes. A database can only use " +
+                  "existing schema indexes created by the selected provider, so indexes created by the other " +
+                  "provider have to be dropped before changing this setting." )
+    public static final Setting<SchemaIndex> default_schema_provider = setting( "dbms.index.default_schema_provider",
+            options( SchemaIndex.class ), SchemaIndex.LUCENE.name() );
+
+    public enum SchemaIndex
+    {
+        LUCENE_NATIVE,
+        LUCENE
+    }
+
     // Lucene settings
     @Description( "The maximum number of open Lucene index searchers." )
     public static Setting<Integer> lucene_searcher_cache_size = setting("dbms.index_searcher_cache_size",INTEGER, Integer.toString( Integer.MAX_VALUE ), min( 1 ));
@@ -339,11 +392,63 @@ public abstract class GraphDatabaseSettings
                   "`0` means that no rotation will automatically occur based on file size. " )
     public static final Setting<Long> logical_log_rotation_threshold = setting( "dbms.tx_log.rotation.size", BYTES, "250M", min( 1024*1024L /*1Mb*/ ) );
 
+    @Description( "Enable adaptive group commit. When enabled, the thread that forces the transaction log to disk will " +
+                  "hold the force back for a short, self-tuning window, so that more concurrently committing " +
+                  "transactions can be covered by the same force. The window is based on the observed rate of " +
+                  "committing transactions, and the observed latency of forcing the transaction log." )
+    public static final Setting<Boolean> tx_log_group_commit_adaptive =
+            setting( "dbms.tx_log.group_commit.adaptive.enabled", BOOLEAN, FALSE );
+
+    @Description( "The maximum number of microseconds that adaptive group commit will hold back a force of the " +
+                  "transaction log, in order to let more transactions join the batch." )
+    public static final Setting<Integer> tx_log_group_commit_max_window =
+            setting( "dbms.tx_log.group_commit.adaptive.max_window", INTEGER, "1000", min( 1 ) );
+
+    @Description( "Pre-allocate transaction log files to the size of `dbms.tx_log.rotation.size`, reuse pruned " +
+                  "log files instead of deleting them, and append to the log through a direct buffer. This " +
+                  "keeps file growth and allocation off the commit path. Pruned files are zero-filled when they " +
+                  "are pruned; a rotation that finds no such file ready lets the new log file grow as usual." )
+    public static final Setting<Boolean> tx_log_preallocate =
+            setting( "dbms.tx_log.preallocate.enabled", BOOLEAN, FALSE );
+
+    @Description( "The maximum number of pruned transaction log files to keep around for reuse, when transaction " +
+                  "log pre-allocation is enabled." )
+    public static final Setting<Integer> tx_log_preallocate_recycled_files =
+            setting( "dbms.tx_log.preallocate.recycled_files", INTEGER, "2", min( 0 ) );
+
+    @Description( "The number of threads applying the record changes of recovered transactions, when recovering " +
+                  "after a crash. Changes to different records are applied concurrently, with the end result " +
+                  "being the same as when applying them one transaction at a time. `1` means serial recovery." )
+    public static final Setting<Integer> recovery_parallel_workers =
+            setting( "dbms.recovery.parallel_workers", INTEGER, "1", min( 1 ) );
+
+    @Description( "The number of exclusive locks of one kind, e.g. node locks, that a transaction can hold before " +
+                  "it escalates to locking whole ranges of entity ids at a time. This bounds the memory used for " +
+                  "the locks of large bulk updating transactions, at the cost of blocking other transactions " +
+                  "touching the same ranges until the transaction completes. `0` means locks are never escalated. " +
+                  "Only honored by the `forseti` lock manager." )
+    public static final Setting<Integer> lock_escalation_threshold =
+            setting( "dbms.lock.escalation_threshold", INTEGER, "0", min( 0 ) );
+
+    @Description( "The number of created or deleted nodes or relationships, or nodes with changed labels, that a " +
+                  "transaction can track on the Java heap before moving them to off-heap memory. Keeping the state " +
+                  "of very large transactions off heap reduces garbage collection pauses, at the cost of somewhat " +
+                  "slower access to that state. `0` means transaction state is always kept on heap." )
+    public static final Setting<Integer> tx_state_off_heap_threshold =
+            setting( "dbms.tx_state.off_heap_threshold", INTEGER, "0", min( 0 ) );
+
     @Description("Use a quick approach for rebuilding the ID generators. This give quicker recovery time, " +
             "but will limit the ability to reuse the space of deleted entities.")
     @Internal
     public static final Setting<Boolean> rebuild_idgenerators_fast = setting("unsupported.dbms.id_generator_fast_rebuild_enabled", BOOLEAN, TRUE );
 
+    @Description("Restore ID generators that were not shut down cleanly from the free IDs they have written to their " +
+            "files and the IDs freed during recovery, instead of rebuilding them. Free IDs are then kept, without " +
+            "scanning the stores for unused records. ID generators are always rebuilt when IDs are handed out in " +
+            "thread local batches, since unused IDs in those batches can't be restored.")
+    @Internal
+    public static final Setting<Boolean> restore_idgenerators = setting("unsupported.dbms.id_generator_restore_enabled", BOOLEAN, TRUE );
+
     // Store memory settings
     @Description("Target size for pages of mapped memory. If set to 0, then a reasonable default is chosen, " +
                  "depending on the storage device used.")
@@ -400,6 +505,16 @@ public abstract class GraphDatabaseSettings
         return "2g";
     }
 
+    @Description( "Page cache warmup periodically writes a profile of the pages that are in memory to a file in the " +
+                  "store directory, and when the database starts, it loads those pages into memory again before the " +
+                  "database becomes available. This way the page cache does not start out cold after a restart." )
+    public static final Setting<Boolean> pagecache_warmup_enabled =
+            setting( "dbms.memory.pagecache.warmup.enable", BOOLEAN, FALSE );
+
+    @Description( "The interval at which the page cache profile is written, when page cache warmup is enabled." )
+    public static final Setting<Long> pagecache_warmup_profiling_interval =
+            setting( "dbms.memory.pagecache.warmup.profile.interval", DURATION, "1m", min( 1000L ) );
+
     @Description( "Specify which page swapper to use for doing paged IO. " +
                   "This is only used when integrating with proprietary storage technology." )
     public static final Setting<String> pagecache_swapper =
@@ -458,6 +573,26 @@ public abstract class GraphDatabaseSettings
     @Description( "Relationship count threshold for considering a node to be dense" )
     public static final Setting<Integer> dense_node_threshold = setting( "dbms.relationship_grouping_threshold", INTEGER, "50", min(1) );
 
+    @Description( "Relationship chain ordering goes through the dense nodes in the background, and relinks the " +
+                  "relationship chains of the nodes whose chains are scattered across the relationship store, so " +
+                  "that traversing a chain reads the store pages it touches in order, and each of them only once. " +
+                  "No records are moved, so relationship ids do not change." )
+    public static final Setting<Boolean> relationship_chain_ordering_enabled =
+            setting( "dbms.relationship_chain_ordering.enable", BOOLEAN, FALSE );
+
+    @Description( "The interval at which relationship chain ordering looks at the next batch of nodes." )
+    public static final Setting<Long> relationship_chain_ordering_interval =
+            setting( "dbms.relationship_chain_ordering.interval", DURATION, "1s", min( 10L ) );
+
+    @Description( "The number of node ids that relationship chain ordering looks at in each interval." )
+    public static final Setting<Integer> relationship_chain_ordering_batch_size =
+            setting( "dbms.relationship_chain_ordering.batch_size", INTEGER, "10000", min( 1 ) );
+
+    @Description( "The length of the longest relationship chain that relationship chain ordering relinks. The chains " +
+                  "of a node are relinked in a single transaction, which changes every record in them." )
+    public static final Setting<Integer> relationship_chain_ordering_max_chain_length =
+            setting( "dbms.relationship_chain_ordering.max_chain_length", INTEGER, "10000", min( 2 ) );
+
     @Description( "Log executed queries that takes longer than the configured threshold. "
             + "_NOTE: This feature is only available in the Neo4j Enterprise Edition_." )
     public static final Setting<Boolean> log_queries = setting("dbms.logs.query.enabled", BOOLEAN, FALSE );
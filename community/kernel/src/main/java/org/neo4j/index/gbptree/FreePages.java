@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.gbptree;
+
+import java.util.Arrays;
+
+/**
+ * Keeps track of pages in a {@link GBPTree} that are no longer part of the tree, so that they can be reused.
+ * <p>
+ * A page which was replaced by a copy, or removed, in generation {@code G} may still be looked at by readers of
+ * older generations, and may still be part of the tree as of the last checkpoint. It can only be reused when there
+ * are neither readers of older generations nor a checkpoint older than {@code G} left. Pages which were created
+ * and freed within the same, still unpublished, generation have never been visible to anyone and can be reused
+ * right away.
+ * <p>
+ * Free pages are only tracked in memory. When opening a tree, pages not reachable from its root are free.
+ * <p>
+ * Not thread safe, only used by the single writer of a tree.
+ */
+class FreePages
+{
+    private long[] reusable = new long[16];
+    private int reusableCount;
+
+    // Ring buffer of [pageId, freedInGeneration], in order of ascending generation
+    private long[] released = new long[32];
+    private int releasedHead;
+    private int releasedCount;
+
+    /**
+     * Frees a page that can be reused right away.
+     */
+    void freeNow( long pageId )
+    {
+        if ( reusableCount == reusable.length )
+        {
+            reusable = Arrays.copyOf( reusable, reusableCount * 2 );
+        }
+        reusable[reusableCount++] = pageId;
+    }
+
+    /**
+     * Frees a page that can be reused once nothing is looking at generations older than {@code generation}.
+     */
+    void free( long pageId, long generation )
+    {
+        if ( releasedCount * 2 == released.length )
+        {
+            long[] grown = new long[released.length * 2];
+            for ( int i = 0; i < releasedCount; i++ )
+            {
+                int index = ((releasedHead + i) * 2) % released.length;
+                grown[i * 2] = released[index];
+                grown[i * 2 + 1] = released[index + 1];
+            }
+            released = grown;
+            releasedHead = 0;
+        }
+        int index = ((releasedHead + releasedCount) * 2) % released.length;
+        released[index] = pageId;
+        released[index + 1] = generation;
+        releasedCount++;
+    }
+
+    /**
+     * @param oldestVisibleGeneration the oldest generation which is still either looked at by a reader
+     * or referenced by the last checkpoint.
+     * @return a page which can be reused, or {@code -1} if there is none.
+     */
+    long take( long oldestVisibleGeneration )
+    {
+        if ( reusableCount > 0 )
+        {
+            return reusable[--reusableCount];
+        }
+        if ( releasedCount > 0 )
+        {
+            int index = releasedHead * 2;
+            if ( released[index + 1] <= oldestVisibleGeneration )
+            {
+                releasedHead = (releasedHead + 1) % (released.length / 2);
+                releasedCount--;
+                return released[index];
+            }
+        }
+        return -1;
+    }
+
+    int size()
+    {
+        return reusableCount + releasedCount;
+    }
+}
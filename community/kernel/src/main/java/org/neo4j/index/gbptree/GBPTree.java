@@ -0,0 +1,805 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.gbptree;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.graphdb.Resource;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+
+import static org.neo4j.index.gbptree.TreeNode.childPositionForSearchResult;
+import static org.neo4j.index.gbptree.TreeNode.searchFound;
+import static org.neo4j.index.gbptree.TreeNode.searchPosition;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+/**
+ * A generation-aware B+tree (GB+Tree) implementation directly atop a {@link PageCache} with no caching in between.
+ * Additionally internal and leaf nodes on same level are not linked, instead readers keep track of their path
+ * from the root, see {@link SeekCursor}.
+ * <p>
+ * Keys and values are fixed size, as given by the {@link Layout}, which also decides how they are compared and
+ * how they are represented as bytes.
+ * <p>
+ * The tree has one {@link #writer() writer} at a time and any number of concurrent {@link #seek(Object, Object)
+ * readers}. A writer never changes a page that is visible to readers, or that is part of the tree as of the last
+ * {@link #checkpoint() checkpoint}. Such pages are copied on first write and the copy, of the new generation, is
+ * changed instead. When the writer is closed the new root is published, all at once, to readers created after that
+ * point, which is what makes reads repeatable and the tree always consistent on disk.
+ * <p>
+ * Changes made after the last checkpoint are not visible after a crash, or after closing the tree without
+ * a checkpoint. The tree then opens with its contents as of the last checkpoint and it is up to the user of the
+ * tree to redo changes made after that, e.g. by replaying a log. Pages which were written after the last
+ * checkpoint are then reused. A tree which has never been checkpointed cannot be opened again, which lets users
+ * of the tree tell a tree that was completely built apart from one that wasn't.
+ * <p>
+ * Since pages of the last checkpoint are never overwritten, a copy of the file taken while checkpoints are
+ * {@link #pauseCheckpoints() paused} opens as the tree as of that checkpoint.
+ *
+ * @param <KEY> type of keys
+ * @param <VALUE> type of values
+ */
+public class GBPTree<KEY,VALUE> implements Closeable
+{
+    /**
+     * First page which can be used for tree nodes, the ones before it are {@link TreeState state pages}.
+     */
+    static final long FIRST_TREE_PAGE = 2;
+
+    private static final ValueMerger OVERWRITE = ( existingValue, newValue ) -> newValue;
+
+    private final PagedFile pagedFile;
+    private final Layout<KEY,VALUE> layout;
+    private final TreeNode<KEY,VALUE> bTreeNode;
+    private final int pageSize;
+
+    // Which root and generation readers see. Guarded by publishLock, as are the activeReaders.
+    private final Object publishLock = new Object();
+    private long publishedRoot;
+    private long publishedGeneration;
+    // Generation --> number of readers of that generation
+    private final TreeMap<Long,int[]> activeReaders = new TreeMap<>();
+
+    // Which root and generation was last written to a state page
+    private final Object checkpointLock = new Object();
+    private volatile long checkpointedGeneration;
+    private TreeState lastCheckpointState;
+    private int checkpointPauses;
+
+    // Not a lock, since that would let the thread holding the writer acquire it again
+    private final AtomicBoolean writerTaken = new AtomicBoolean();
+    private final FreePages freePages = new FreePages();
+    private final SingleWriter writer;
+    private long nextPageId;
+
+    /**
+     * Opens the tree in the given file, creating it if it doesn't exist.
+     *
+     * @param pageCache {@link PageCache} to map the tree file in.
+     * @param indexFile file to store the tree in.
+     * @param layout {@link Layout} of the keys and values in the tree.
+     * @throws IOException on page cache error.
+     * @throws MetadataMismatchException if the tree exists, but was written with a different layout or page size,
+     * or was never checkpointed.
+     */
+    public GBPTree( PageCache pageCache, File indexFile, Layout<KEY,VALUE> layout ) throws IOException
+    {
+        this.layout = layout;
+        this.pageSize = pageCache.pageSize();
+        this.bTreeNode = new TreeNode<>( pageSize, layout );
+        this.writer = new SingleWriter();
+
+        PagedFile file;
+        boolean created = false;
+        try
+        {
+            file = pageCache.map( indexFile, pageSize );
+        }
+        catch ( NoSuchFileException e )
+        {
+            file = pageCache.map( indexFile, pageSize, StandardOpenOption.CREATE );
+            created = true;
+        }
+        this.pagedFile = file;
+
+        try
+        {
+            if ( created )
+            {
+                create();
+            }
+            else
+            {
+                open();
+            }
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            pagedFile.close();
+            throw e;
+        }
+    }
+
+    private void create() throws IOException
+    {
+        long generation = 1;
+        long rootId = FIRST_TREE_PAGE;
+        try ( PageCursor cursor = pagedFile.io( rootId, PF_SHARED_WRITE_LOCK ) )
+        {
+            cursor.next();
+            bTreeNode.initializeLeaf( cursor, generation );
+        }
+        nextPageId = rootId + 1;
+        publishedRoot = rootId;
+        publishedGeneration = generation;
+    }
+
+    private void open() throws IOException
+    {
+        TreeState state = TreeState.selectNewest(
+                TreeState.read( pagedFile, TreeState.STATE_PAGE_A ),
+                TreeState.read( pagedFile, TreeState.STATE_PAGE_B ) );
+        if ( state == null )
+        {
+            throw new MetadataMismatchException( "No checkpointed state found in tree file %s", pagedFile );
+        }
+        state.verify( layout, pageSize );
+
+        lastCheckpointState = state;
+        checkpointedGeneration = state.generation();
+        publishedRoot = state.rootId();
+        publishedGeneration = state.generation();
+        nextPageId = Math.max( FIRST_TREE_PAGE, pagedFile.getLastPageId() + 1 );
+        freeUnreachablePages( state.rootId() );
+    }
+
+    /**
+     * Pages not reachable from the root, e.g. ones written after the last checkpoint, are free.
+     */
+    private void freeUnreachablePages( long rootId ) throws IOException
+    {
+        long pageCount = nextPageId;
+        long[] reachable = new long[(int) ((pageCount >>> 6) + 1)];
+        long[] stack = new long[16];
+        int stackSize = 0;
+        stack[stackSize++] = rootId;
+        try ( PageCursor cursor = pagedFile.io( rootId, PF_SHARED_READ_LOCK ) )
+        {
+            while ( stackSize > 0 )
+            {
+                long pageId = stack[--stackSize];
+                if ( pageId < FIRST_TREE_PAGE || pageId >= pageCount )
+                {
+                    throw new MetadataMismatchException( "Tree in %s points to page %d, which doesn't exist",
+                            pagedFile, pageId );
+                }
+                long bit = 1L << (pageId & 63);
+                if ( (reachable[(int) (pageId >>> 6)] & bit) != 0 )
+                {
+                    // Every page but the root has exactly one parent, so this is a cycle or a shared child
+                    throw new MetadataMismatchException( "Tree in %s reaches page %d more than once",
+                            pagedFile, pageId );
+                }
+                reachable[(int) (pageId >>> 6)] |= bit;
+                if ( !cursor.next( pageId ) )
+                {
+                    continue;
+                }
+                long[] children;
+                do
+                {
+                    children = null;
+                    if ( bTreeNode.isInternal( cursor ) )
+                    {
+                        int keyCount = bTreeNode.keyCount( cursor );
+                        if ( keyCount >= 0 && keyCount <= bTreeNode.internalMaxKeyCount() )
+                        {
+                            children = new long[keyCount + 1];
+                            for ( int i = 0; i <= keyCount; i++ )
+                            {
+                                children[i] = bTreeNode.childAt( cursor, i );
+                            }
+                        }
+                    }
+                }
+                while ( cursor.shouldRetry() );
+
+                if ( children != null )
+                {
+                    if ( stackSize + children.length > stack.length )
+                    {
+                        stack = Arrays.copyOf( stack, (stackSize + children.length) * 2 );
+                    }
+                    for ( long child : children )
+                    {
+                        stack[stackSize++] = child;
+                    }
+                }
+            }
+        }
+
+        for ( long pageId = FIRST_TREE_PAGE; pageId < pageCount; pageId++ )
+        {
+            if ( (reachable[(int) (pageId >>> 6)] & (1L << (pageId & 63))) == 0 )
+            {
+                freePages.freeNow( pageId );
+            }
+        }
+    }
+
+    /**
+     * Seeks hits in this tree, given a key range. Hits are iterated over using the returned {@link RawCursor}.
+     * If {@code fromInclusive} is smaller than, or equal to, {@code toExclusive} the hits are returned in
+     * ascending key order, otherwise in descending key order, from {@code fromInclusive} down to, but not
+     * including, {@code toExclusive}.
+     * <p>
+     * The returned cursor sees the tree as it was at the time of this call and must be
+     * {@link RawCursor#close() closed} after use, since it holds on to that version of the tree.
+     *
+     * @param fromInclusive lower bound, or upper bound for a descending seek, of the range to seek, inclusive.
+     * @param toExclusive upper bound, or lower bound for a descending seek, of the range to seek, exclusive.
+     * @return a {@link RawCursor} used to iterate over the hits within the specified key range.
+     * @throws IOException on error reading from index.
+     */
+    public RawCursor<Hit<KEY,VALUE>,IOException> seek( KEY fromInclusive, KEY toExclusive ) throws IOException
+    {
+        long rootId;
+        long generation;
+        synchronized ( publishLock )
+        {
+            rootId = publishedRoot;
+            generation = publishedGeneration;
+            activeReaders.computeIfAbsent( generation, g -> new int[1] )[0]++;
+        }
+        Runnable release = () -> releaseReader( generation );
+        try
+        {
+            return new SeekCursor<>( pagedFile.io( rootId, PF_SHARED_READ_LOCK ), layout, bTreeNode, rootId,
+                    fromInclusive, toExclusive, release );
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            release.run();
+            throw e;
+        }
+    }
+
+    private void releaseReader( long generation )
+    {
+        synchronized ( publishLock )
+        {
+            int[] count = activeReaders.get( generation );
+            if ( --count[0] == 0 )
+            {
+                activeReaders.remove( generation );
+            }
+        }
+    }
+
+    /**
+     * Returns the single {@link Writer} of this tree, which must be {@link Writer#close() closed} after use.
+     * Changes made by the writer become visible to readers when it is closed.
+     *
+     * @return the {@link Writer} of this tree.
+     * @throws IllegalStateException if the writer is already in use.
+     * @throws IOException on error accessing the index.
+     */
+    public Writer<KEY,VALUE> writer() throws IOException
+    {
+        if ( !writerTaken.compareAndSet( false, true ) )
+        {
+            throw new IllegalStateException( "Writer for " + pagedFile + " is already acquired by someone else" );
+        }
+        try
+        {
+            return writer.initialize();
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            writerTaken.set( false );
+            throw e;
+        }
+    }
+
+    /**
+     * Forces all changes published by closed writers to disk, so that they are seen when opening the tree again.
+     * Changes made by a currently open writer are not part of the checkpoint. Waits for checkpoints to be
+     * resumed if they are {@link #pauseCheckpoints() paused}.
+     *
+     * @throws IOException on error flushing to the page cache, or if interrupted while waiting.
+     */
+    public void checkpoint() throws IOException
+    {
+        synchronized ( checkpointLock )
+        {
+            while ( checkpointPauses > 0 )
+            {
+                try
+                {
+                    checkpointLock.wait();
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException( "Interrupted while waiting for checkpoints of " + pagedFile +
+                            " to be resumed" );
+                }
+            }
+            long rootId;
+            long generation;
+            synchronized ( publishLock )
+            {
+                rootId = publishedRoot;
+                generation = publishedGeneration;
+            }
+
+            // Make sure all pages of the tree are on disk before the state pointing to it is
+            pagedFile.flushAndForce();
+            long statePageId = lastCheckpointState == null || lastCheckpointState.pageId() == TreeState.STATE_PAGE_B
+                    ? TreeState.STATE_PAGE_A : TreeState.STATE_PAGE_B;
+            try ( PageCursor cursor = pagedFile.io( statePageId, PF_SHARED_WRITE_LOCK ) )
+            {
+                cursor.next();
+                TreeState.write( cursor, generation, rootId, layout, pageSize );
+            }
+            pagedFile.flushAndForce();
+
+            lastCheckpointState = new TreeState( statePageId, generation, rootId, layout.identifier(),
+                    layout.majorVersion(), layout.minorVersion(), pageSize, true );
+            checkpointedGeneration = generation;
+        }
+    }
+
+    /**
+     * Keeps {@link #checkpoint() checkpoints} from happening until the returned {@link Resource} is closed, waiting
+     * for one in progress to complete first. While paused, the file of the tree can be copied as is, e.g. by a
+     * backup, and the copy opens as the tree as of the last checkpoint.
+     *
+     * @return {@link Resource} which resumes checkpoints when closed.
+     */
+    public Resource pauseCheckpoints()
+    {
+        synchronized ( checkpointLock )
+        {
+            checkpointPauses++;
+        }
+        AtomicBoolean resumed = new AtomicBoolean();
+        return () ->
+        {
+            if ( resumed.compareAndSet( false, true ) )
+            {
+                synchronized ( checkpointLock )
+                {
+                    checkpointPauses--;
+                    checkpointLock.notifyAll();
+                }
+            }
+        };
+    }
+
+    /**
+     * Closes the tree. Changes made after the last {@link #checkpoint()} will not be seen when opening it again.
+     *
+     * @throws IOException on error closing the page cache mapping.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        pagedFile.close();
+    }
+
+    /**
+     * @return the oldest generation that is still either looked at by readers or part of the last checkpoint.
+     */
+    private long oldestVisibleGeneration()
+    {
+        long oldest = checkpointedGeneration;
+        synchronized ( publishLock )
+        {
+            if ( !activeReaders.isEmpty() )
+            {
+                oldest = Math.min( oldest, activeReaders.firstKey() );
+            }
+        }
+        return oldest;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "GB+Tree[file:" + pagedFile + ", layout:" + layout + ", generation:" + publishedGeneration + "]";
+    }
+
+    private class SingleWriter implements Writer<KEY,VALUE>
+    {
+        private static final int MAX_DEPTH = 64;
+
+        private PageCursor cursor;
+        private PageCursor siblingCursor;
+        private final byte[] tmp = new byte[pageSize];
+        private final KEY readKey = layout.newKey();
+        private final VALUE readValue = layout.newValue();
+        private final VALUE removedValue = layout.newValue();
+
+        private final long[] pathPages = new long[MAX_DEPTH];
+        private final int[] pathChildPositions = new int[MAX_DEPTH];
+        private int depth;
+
+        private long root;
+        private long writeGeneration;
+        private boolean changed;
+        private boolean failed;
+        private long[] releasedPages = new long[16];
+        private int releasedPageCount;
+
+        SingleWriter initialize() throws IOException
+        {
+            synchronized ( publishLock )
+            {
+                root = publishedRoot;
+                writeGeneration = publishedGeneration + 1;
+            }
+            changed = false;
+            failed = false;
+            releasedPageCount = 0;
+            cursor = pagedFile.io( root, PF_SHARED_WRITE_LOCK );
+            siblingCursor = pagedFile.io( root, PF_SHARED_WRITE_LOCK );
+            return this;
+        }
+
+        @Override
+        @SuppressWarnings( "unchecked" )
+        public void put( KEY key, VALUE value ) throws IOException
+        {
+            merge( key, value, OVERWRITE );
+        }
+
+        @Override
+        public void merge( KEY key, VALUE value, ValueMerger<VALUE> valueMerger ) throws IOException
+        {
+            try
+            {
+                descendForWrite( key );
+                int keyCount = bTreeNode.keyCount( cursor );
+                int searchResult = bTreeNode.search( cursor, key, readKey, keyCount );
+                int pos = searchPosition( searchResult );
+                if ( searchFound( searchResult ) )
+                {
+                    VALUE merged = valueMerger.merge( bTreeNode.valueAt( cursor, readValue, pos ), value );
+                    if ( merged == null )
+                    {
+                        removeFromLeaf( pos, keyCount );
+                    }
+                    else
+                    {
+                        bTreeNode.setValueAt( cursor, merged, pos );
+                    }
+                }
+                else
+                {
+                    VALUE merged = valueMerger.merge( null, value );
+                    if ( merged != null )
+                    {
+                        insertInLeaf( key, merged, pos, keyCount );
+                    }
+                }
+            }
+            catch ( IOException | RuntimeException e )
+            {
+                failed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public VALUE remove( KEY key ) throws IOException
+        {
+            try
+            {
+                descendForWrite( key );
+                int keyCount = bTreeNode.keyCount( cursor );
+                int searchResult = bTreeNode.search( cursor, key, readKey, keyCount );
+                if ( !searchFound( searchResult ) )
+                {
+                    return null;
+                }
+                int pos = searchPosition( searchResult );
+                bTreeNode.valueAt( cursor, removedValue, pos );
+                removeFromLeaf( pos, keyCount );
+                return removedValue;
+            }
+            catch ( IOException | RuntimeException e )
+            {
+                failed = true;
+                throw e;
+            }
+        }
+
+        /**
+         * Goes from the root down to the leaf where {@code key} belongs, making all nodes on the way writable,
+         * i.e. of the current generation, and remembering the path. Leaves the cursor at the leaf.
+         */
+        private void descendForWrite( KEY key ) throws IOException
+        {
+            depth = 0;
+            root = ensureWritable( root );
+            long pageId = root;
+            goTo( cursor, pageId );
+            while ( bTreeNode.isInternal( cursor ) )
+            {
+                int keyCount = bTreeNode.keyCount( cursor );
+                int childPos = childPositionForSearchResult( bTreeNode.search( cursor, key, readKey, keyCount ) );
+                long child = bTreeNode.childAt( cursor, childPos );
+                if ( depth == MAX_DEPTH )
+                {
+                    throw new IllegalStateException( "Tree deeper than " + MAX_DEPTH + " levels, it's likely corrupt" );
+                }
+                pathPages[depth] = pageId;
+                pathChildPositions[depth] = childPos;
+                depth++;
+
+                long writableChild = ensureWritable( child );
+                if ( writableChild != child )
+                {
+                    goTo( cursor, pageId );
+                    bTreeNode.setChildAt( cursor, writableChild, childPos );
+                }
+                pageId = writableChild;
+                goTo( cursor, pageId );
+            }
+        }
+
+        /**
+         * @return the given page if it's of the current generation, otherwise a copy of it, which is.
+         */
+        private long ensureWritable( long pageId ) throws IOException
+        {
+            goTo( siblingCursor, pageId );
+            if ( bTreeNode.generation( siblingCursor ) == writeGeneration )
+            {
+                return pageId;
+            }
+            long copyId = allocate();
+            goTo( cursor, copyId );
+            siblingCursor.copyTo( 0, cursor, 0, pageSize );
+            bTreeNode.setGeneration( cursor, writeGeneration );
+            release( pageId );
+            return copyId;
+        }
+
+        private void insertInLeaf( KEY key, VALUE value, int pos, int keyCount ) throws IOException
+        {
+            changed = true;
+            if ( keyCount < bTreeNode.leafMaxKeyCount() )
+            {
+                bTreeNode.insertKeyAt( cursor, key, pos, keyCount, tmp );
+                bTreeNode.insertValueAt( cursor, value, pos, keyCount, tmp );
+                bTreeNode.setKeyCount( cursor, keyCount + 1 );
+                return;
+            }
+
+            // Split the leaf, the upper half goes into a new right sibling
+            long leftId = cursor.getCurrentPageId();
+            long rightId = allocate();
+            goTo( siblingCursor, rightId );
+            bTreeNode.initializeLeaf( siblingCursor, writeGeneration );
+            int splitPos = keyCount / 2;
+            bTreeNode.moveUpperHalf( cursor, siblingCursor, splitPos, keyCount, true );
+            bTreeNode.setKeyCount( cursor, splitPos );
+            int rightKeyCount = keyCount - splitPos;
+            bTreeNode.setKeyCount( siblingCursor, rightKeyCount );
+
+            if ( pos <= splitPos )
+            {
+                bTreeNode.insertKeyAt( cursor, key, pos, splitPos, tmp );
+                bTreeNode.insertValueAt( cursor, value, pos, splitPos, tmp );
+                bTreeNode.setKeyCount( cursor, splitPos + 1 );
+            }
+            else
+            {
+                int rightPos = pos - splitPos;
+                bTreeNode.insertKeyAt( siblingCursor, key, rightPos, rightKeyCount, tmp );
+                bTreeNode.insertValueAt( siblingCursor, value, rightPos, rightKeyCount, tmp );
+                bTreeNode.setKeyCount( siblingCursor, rightKeyCount + 1 );
+            }
+
+            KEY separator = bTreeNode.keyAt( siblingCursor, layout.newKey(), 0 );
+            insertInParent( depth - 1, leftId, separator, rightId );
+        }
+
+        /**
+         * Inserts {@code key} with {@code rightChild} to the right of it in the parent at path level
+         * {@code level}, splitting the parent too if it's full.
+         */
+        private void insertInParent( int level, long leftChild, KEY key, long rightChild ) throws IOException
+        {
+            if ( level < 0 )
+            {
+                // Split the root, the tree grows one level
+                long newRoot = allocate();
+                goTo( cursor, newRoot );
+                bTreeNode.initializeInternal( cursor, writeGeneration );
+                bTreeNode.setKeyAt( cursor, key, 0 );
+                bTreeNode.setChildAt( cursor, leftChild, 0 );
+                bTreeNode.setChildAt( cursor, rightChild, 1 );
+                bTreeNode.setKeyCount( cursor, 1 );
+                root = newRoot;
+                return;
+            }
+
+            long parentId = pathPages[level];
+            int childPos = pathChildPositions[level];
+            goTo( cursor, parentId );
+            int keyCount = bTreeNode.keyCount( cursor );
+            if ( keyCount < bTreeNode.internalMaxKeyCount() )
+            {
+                bTreeNode.insertKeyAt( cursor, key, childPos, keyCount, tmp );
+                bTreeNode.insertChildAt( cursor, rightChild, childPos + 1, keyCount, tmp );
+                bTreeNode.setKeyCount( cursor, keyCount + 1 );
+                return;
+            }
+
+            // Split the internal node, the middle key moves up to the parent and the keys and children
+            // to the right of it move to a new right sibling
+            int splitPos = keyCount / 2;
+            KEY promoted = bTreeNode.keyAt( cursor, layout.newKey(), splitPos );
+            long rightId = allocate();
+            goTo( siblingCursor, rightId );
+            bTreeNode.initializeInternal( siblingCursor, writeGeneration );
+            bTreeNode.moveUpperHalf( cursor, siblingCursor, splitPos + 1, keyCount, false );
+            int rightKeyCount = keyCount - splitPos - 1;
+            bTreeNode.setKeyCount( siblingCursor, rightKeyCount );
+            bTreeNode.setKeyCount( cursor, splitPos );
+
+            if ( childPos <= splitPos )
+            {
+                bTreeNode.insertKeyAt( cursor, key, childPos, splitPos, tmp );
+                bTreeNode.insertChildAt( cursor, rightChild, childPos + 1, splitPos, tmp );
+                bTreeNode.setKeyCount( cursor, splitPos + 1 );
+            }
+            else
+            {
+                int rightPos = childPos - splitPos - 1;
+                bTreeNode.insertKeyAt( siblingCursor, key, rightPos, rightKeyCount, tmp );
+                bTreeNode.insertChildAt( siblingCursor, rightChild, rightPos + 1, rightKeyCount, tmp );
+                bTreeNode.setKeyCount( siblingCursor, rightKeyCount + 1 );
+            }
+
+            insertInParent( level - 1, parentId, promoted, rightId );
+        }
+
+        private void removeFromLeaf( int pos, int keyCount ) throws IOException
+        {
+            changed = true;
+            bTreeNode.removeKeyAt( cursor, pos, keyCount, tmp );
+            bTreeNode.removeValueAt( cursor, pos, keyCount, tmp );
+            bTreeNode.setKeyCount( cursor, keyCount - 1 );
+            if ( keyCount - 1 == 0 && depth > 0 )
+            {
+                // Empty leaves, other than the root, are removed from the tree. Nodes are otherwise not merged.
+                freePages.freeNow( cursor.getCurrentPageId() );
+                removeFromParent( depth - 1 );
+            }
+        }
+
+        /**
+         * Removes the child, which has been emptied, at path level {@code level} from its parent.
+         */
+        private void removeFromParent( int level ) throws IOException
+        {
+            long parentId = pathPages[level];
+            int childPos = pathChildPositions[level];
+            goTo( cursor, parentId );
+            int keyCount = bTreeNode.keyCount( cursor );
+            if ( keyCount == 0 )
+            {
+                // That was the only child, so this node is empty too
+                if ( level == 0 )
+                {
+                    bTreeNode.initializeLeaf( cursor, writeGeneration );
+                }
+                else
+                {
+                    freePages.freeNow( parentId );
+                    removeFromParent( level - 1 );
+                }
+                return;
+            }
+
+            bTreeNode.removeChildAt( cursor, childPos, keyCount, tmp );
+            bTreeNode.removeKeyAt( cursor, childPos > 0 ? childPos - 1 : 0, keyCount, tmp );
+            bTreeNode.setKeyCount( cursor, keyCount - 1 );
+            if ( level == 0 && keyCount - 1 == 0 )
+            {
+                // The root has a single child left, which becomes the new root
+                root = bTreeNode.childAt( cursor, 0 );
+                freePages.freeNow( parentId );
+            }
+        }
+
+        private long allocate()
+        {
+            changed = true;
+            long pageId = freePages.take( oldestVisibleGeneration() );
+            return pageId != -1 ? pageId : nextPageId++;
+        }
+
+        /**
+         * Releases a page from an older generation, which becomes free for reuse once this writer has published
+         * its changes and no one is looking at the older generations anymore.
+         */
+        private void release( long pageId )
+        {
+            if ( releasedPageCount == releasedPages.length )
+            {
+                releasedPages = Arrays.copyOf( releasedPages, releasedPageCount * 2 );
+            }
+            releasedPages[releasedPageCount++] = pageId;
+        }
+
+        private void goTo( PageCursor cursor, long pageId ) throws IOException
+        {
+            if ( !cursor.next( pageId ) )
+            {
+                throw new IllegalStateException( "Could not go to page " + pageId );
+            }
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            try
+            {
+                cursor.close();
+                siblingCursor.close();
+                if ( changed && !failed )
+                {
+                    for ( int i = 0; i < releasedPageCount; i++ )
+                    {
+                        freePages.free( releasedPages[i], writeGeneration );
+                    }
+                    synchronized ( publishLock )
+                    {
+                        publishedRoot = root;
+                        publishedGeneration = writeGeneration;
+                    }
+                }
+            }
+            finally
+            {
+                cursor = null;
+                siblingCursor = null;
+                writerTaken.set( false );
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.gbptree;
+
+/**
+ * Key/value pair returned by {@link GBPTree#seek(Object, Object)}. Instances are reused between calls to
+ * {@link org.neo4j.cursor.RawCursor#next()}, so contents must be copied if needed beyond that.
+ *
+ * @param <KEY> type of key
+ * @param <VALUE> type of value
+ */
+public interface Hit<KEY,VALUE>
+{
+    /**
+     * @return key of this hit.
+     */
+    KEY key();
+
+    /**
+     * @return value of this hit.
+     */
+    VALUE value();
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.gbptree;
+
+import java.io.IOException;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.io.pagecache.PageCursor;
+
+import static org.neo4j.index.gbptree.TreeNode.childPositionForSearchResult;
+import static org.neo4j.index.gbptree.TreeNode.searchFound;
+import static org.neo4j.index.gbptree.TreeNode.searchPosition;
+
+/**
+ * {@link RawCursor} over the key/value pairs of a {@link GBPTree} within a range, in ascending or descending
+ * key order. The cursor reads the tree as it was when the cursor was created, regardless of any changes made
+ * by writers after that point, since writers never change pages visible to existing readers.
+ * <p>
+ * Instead of sibling pointers the cursor keeps the path from the root down to the current leaf,
+ * to find the next leaf to read from when reaching the end of the current one.
+ *
+ * @param <KEY> type of keys
+ * @param <VALUE> type of values
+ */
+class SeekCursor<KEY,VALUE> implements RawCursor<Hit<KEY,VALUE>,IOException>, Hit<KEY,VALUE>
+{
+    private static final int MAX_DEPTH = 64;
+
+    private final PageCursor cursor;
+    private final Layout<KEY,VALUE> layout;
+    private final TreeNode<KEY,VALUE> bTreeNode;
+    private final KEY toExclusive;
+    private final boolean forward;
+    private final Runnable onClose;
+    private final KEY key;
+    private final VALUE value;
+
+    private final long[] pathPages = new long[MAX_DEPTH];
+    private final int[] pathPositions = new int[MAX_DEPTH];
+    private int depth;
+
+    private int keyCount;
+    private int pos;
+    private boolean exhausted;
+    private boolean closed;
+
+    SeekCursor( PageCursor cursor, Layout<KEY,VALUE> layout, TreeNode<KEY,VALUE> bTreeNode, long rootId,
+            KEY fromInclusive, KEY toExclusive, Runnable onClose ) throws IOException
+    {
+        this.cursor = cursor;
+        this.layout = layout;
+        this.bTreeNode = bTreeNode;
+        this.toExclusive = toExclusive;
+        this.forward = layout.compare( fromInclusive, toExclusive ) <= 0;
+        this.onClose = onClose;
+        this.key = layout.newKey();
+        this.value = layout.newValue();
+        positionAt( rootId, fromInclusive );
+    }
+
+    private void positionAt( long rootId, KEY fromInclusive ) throws IOException
+    {
+        long pageId = rootId;
+        while ( true )
+        {
+            goTo( pageId );
+            boolean leaf;
+            int searchResult;
+            long child;
+            do
+            {
+                leaf = bTreeNode.isLeaf( cursor );
+                keyCount = bTreeNode.keyCount( cursor );
+                searchResult = bTreeNode.search( cursor, fromInclusive, key, keyCount );
+                child = leaf ? -1 : bTreeNode.childAt( cursor, childPositionForSearchResult( searchResult ) );
+            }
+            while ( cursor.shouldRetry() );
+            checkOutOfBounds();
+
+            if ( leaf )
+            {
+                int position = searchPosition( searchResult );
+                pos = forward || searchFound( searchResult ) ? position : position - 1;
+                return;
+            }
+            push( pageId, childPositionForSearchResult( searchResult ) );
+            pageId = child;
+        }
+    }
+
+    @Override
+    public boolean next() throws IOException
+    {
+        while ( !exhausted )
+        {
+            if ( forward ? pos < keyCount : pos >= 0 )
+            {
+                do
+                {
+                    bTreeNode.keyAt( cursor, key, pos );
+                    bTreeNode.valueAt( cursor, value, pos );
+                }
+                while ( cursor.shouldRetry() );
+                checkOutOfBounds();
+                pos += forward ? 1 : -1;
+
+                int comparison = layout.compare( key, toExclusive );
+                if ( forward ? comparison >= 0 : comparison <= 0 )
+                {
+                    exhausted = true;
+                    return false;
+                }
+                return true;
+            }
+            if ( !moveToSiblingLeaf() )
+            {
+                exhausted = true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Goes up the path until there's a sibling subtree in the direction of this seek, then down its
+     * nearest edge to a leaf.
+     */
+    private boolean moveToSiblingLeaf() throws IOException
+    {
+        while ( depth > 0 )
+        {
+            depth--;
+            long parent = pathPages[depth];
+            int childPos = pathPositions[depth] + (forward ? 1 : -1);
+            goTo( parent );
+            int parentKeyCount;
+            do
+            {
+                parentKeyCount = bTreeNode.keyCount( cursor );
+            }
+            while ( cursor.shouldRetry() );
+
+            if ( childPos >= 0 && childPos <= parentKeyCount )
+            {
+                push( parent, childPos );
+                descendToEdge( childAt( childPos ) );
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void descendToEdge( long pageId ) throws IOException
+    {
+        while ( true )
+        {
+            goTo( pageId );
+            boolean leaf;
+            do
+            {
+                leaf = bTreeNode.isLeaf( cursor );
+                keyCount = bTreeNode.keyCount( cursor );
+            }
+            while ( cursor.shouldRetry() );
+            checkOutOfBounds();
+
+            if ( leaf )
+            {
+                pos = forward ? 0 : keyCount - 1;
+                return;
+            }
+            int childPos = forward ? 0 : keyCount;
+            push( pageId, childPos );
+            pageId = childAt( childPos );
+        }
+    }
+
+    private long childAt( int childPos ) throws IOException
+    {
+        long child;
+        do
+        {
+            child = bTreeNode.childAt( cursor, childPos );
+        }
+        while ( cursor.shouldRetry() );
+        return child;
+    }
+
+    private void push( long pageId, int childPos )
+    {
+        if ( depth == MAX_DEPTH )
+        {
+            throw new IllegalStateException( "Tree deeper than " + MAX_DEPTH + " levels, it's likely corrupt" );
+        }
+        pathPages[depth] = pageId;
+        pathPositions[depth] = childPos;
+        depth++;
+    }
+
+    private void goTo( long pageId ) throws IOException
+    {
+        if ( !cursor.next( pageId ) )
+        {
+            throw new IllegalStateException( "Could not go to page " + pageId );
+        }
+    }
+
+    private void checkOutOfBounds()
+    {
+        if ( cursor.checkAndClearBoundsFlag() )
+        {
+            throw new IllegalStateException( "Read out of bounds in page " + cursor.getCurrentPageId() +
+                    " of " + cursor.getCurrentFile() + ", tree is likely corrupt" );
+        }
+    }
+
+    @Override
+    public Hit<KEY,VALUE> get()
+    {
+        return this;
+    }
+
+    @Override
+    public KEY key()
+    {
+        return key;
+    }
+
+    @Override
+    public VALUE value()
+    {
+        return value;
+    }
+
+    @Override
+    public void close()
+    {
+        if ( !closed )
+        {
+            closed = true;
+            cursor.close();
+            onClose.run();
+        }
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.gbptree;
+
+import org.neo4j.io.pagecache.PageCursor;
+
+/**
+ * Methods to manipulate single tree node such as set and get header fields,
+ * insert and fetch keys, values and children.
+ * <p>
+ * DESIGN
+ * <p>
+ * Using Separate design the internal nodes should look like
+ * <pre>
+ * # = empty space
+ *
+ * [                                   HEADER   16B                     ]|[  KEYS   ]|[     CHILDREN      ]
+ * [TYPE][  ][  ][  ][  KEYCOUNT  ][             GENERATION            ]|[[K0][K1]##]|[[C0][C1][C2]######]
+ *  0     1   2   3   4  5  6  7   8  9  10  11  12  13  14  15
+ * </pre>
+ * Calc offset for key i (starting from 0)
+ * HEADER_LENGTH + i * SIZE_KEY
+ * <p>
+ * Calc offset for child i
+ * HEADER_LENGTH + SIZE_KEY * MAX_KEY_COUNT_INTERNAL + i * SIZE_CHILD
+ * <p>
+ * Using Separate design the leaf nodes should look like
+ *
+ * <pre>
+ * [                                   HEADER   16B                     ]|[    KEYS  ]|[   VALUES   ]
+ * [TYPE][  ][  ][  ][  KEYCOUNT  ][             GENERATION            ]|[[K0][K1]###]|[[V0][V1]####]
+ *  0     1   2   3   4  5  6  7   8  9  10  11  12  13  14  15
+ * </pre>
+ *
+ * Calc offset for key i (starting from 0)
+ * HEADER_LENGTH + i * SIZE_KEY
+ * <p>
+ * Calc offset for value i
+ * HEADER_LENGTH + SIZE_KEY * MAX_KEY_COUNT_LEAF + i * SIZE_VALUE
+ * <p>
+ * The generation is the generation of the {@link GBPTree} that created the node. A writer may only change
+ * nodes of its own generation in place, all other nodes are copied first, since readers may still look at them.
+ *
+ * @param <KEY> type of key
+ * @param <VALUE> type of value
+ */
+class TreeNode<KEY,VALUE>
+{
+    static final int BYTE_POS_TYPE = 0;
+    static final int BYTE_POS_KEYCOUNT = 4;
+    static final int BYTE_POS_GENERATION = 8;
+    static final int HEADER_LENGTH = 16;
+    static final int SIZE_CHILD = Long.BYTES;
+
+    static final byte LEAF_FLAG = 1;
+    static final byte INTERNAL_FLAG = 2;
+
+    private static final int FOUND_FLAG = 1 << 31;
+
+    private final int pageSize;
+    private final int internalMaxKeyCount;
+    private final int leafMaxKeyCount;
+    private final Layout<KEY,VALUE> layout;
+    private final int keySize;
+    private final int valueSize;
+
+    TreeNode( int pageSize, Layout<KEY,VALUE> layout )
+    {
+        this.pageSize = pageSize;
+        this.layout = layout;
+        this.keySize = layout.keySize();
+        this.valueSize = layout.valueSize();
+        this.internalMaxKeyCount = Math.floorDiv( pageSize - (HEADER_LENGTH + SIZE_CHILD), keySize + SIZE_CHILD );
+        this.leafMaxKeyCount = Math.floorDiv( pageSize - HEADER_LENGTH, keySize + valueSize );
+
+        if ( internalMaxKeyCount < 2 )
+        {
+            throw new IllegalArgumentException( "For layout " + layout + " a page size of " + pageSize +
+                    " would only fit " + internalMaxKeyCount + " internal keys, minimum is 2" );
+        }
+        if ( leafMaxKeyCount < 2 )
+        {
+            throw new IllegalArgumentException( "A page size of " + pageSize + " would only fit " +
+                    leafMaxKeyCount + " leaf keys, minimum is 2" );
+        }
+    }
+
+    void initializeLeaf( PageCursor cursor, long generation )
+    {
+        initialize( cursor, LEAF_FLAG, generation );
+    }
+
+    void initializeInternal( PageCursor cursor, long generation )
+    {
+        initialize( cursor, INTERNAL_FLAG, generation );
+    }
+
+    private void initialize( PageCursor cursor, byte type, long generation )
+    {
+        cursor.putByte( BYTE_POS_TYPE, type );
+        cursor.putInt( BYTE_POS_KEYCOUNT, 0 );
+        cursor.putLong( BYTE_POS_GENERATION, generation );
+    }
+
+    // HEADER METHODS
+
+    boolean isLeaf( PageCursor cursor )
+    {
+        return cursor.getByte( BYTE_POS_TYPE ) == LEAF_FLAG;
+    }
+
+    boolean isInternal( PageCursor cursor )
+    {
+        return cursor.getByte( BYTE_POS_TYPE ) == INTERNAL_FLAG;
+    }
+
+    int keyCount( PageCursor cursor )
+    {
+        return cursor.getInt( BYTE_POS_KEYCOUNT );
+    }
+
+    void setKeyCount( PageCursor cursor, int count )
+    {
+        cursor.putInt( BYTE_POS_KEYCOUNT, count );
+    }
+
+    long generation( PageCursor cursor )
+    {
+        return cursor.getLong( BYTE_POS_GENERATION );
+    }
+
+    void setGeneration( PageCursor cursor, long generation )
+    {
+        cursor.putLong( BYTE_POS_GENERATION, generation );
+    }
+
+    // BODY METHODS
+
+    KEY keyAt( PageCursor cursor, KEY into, int pos )
+    {
+        cursor.setOffset( keyOffset( pos ) );
+        layout.readKey( cursor, into );
+        return into;
+    }
+
+    void setKeyAt( PageCursor cursor, KEY key, int pos )
+    {
+        cursor.setOffset( keyOffset( pos ) );
+        layout.writeKey( cursor, key );
+    }
+
+    void insertKeyAt( PageCursor cursor, KEY key, int pos, int keyCount, byte[] tmp )
+    {
+        insertSlotAt( cursor, pos, keyCount, keyOffset( 0 ), keySize, tmp );
+        setKeyAt( cursor, key, pos );
+    }
+
+    void removeKeyAt( PageCursor cursor, int pos, int keyCount, byte[] tmp )
+    {
+        removeSlotAt( cursor, pos, keyCount, keyOffset( 0 ), keySize, tmp );
+    }
+
+    VALUE valueAt( PageCursor cursor, VALUE value, int pos )
+    {
+        cursor.setOffset( valueOffset( pos ) );
+        layout.readValue( cursor, value );
+        return value;
+    }
+
+    void setValueAt( PageCursor cursor, VALUE value, int pos )
+    {
+        cursor.setOffset( valueOffset( pos ) );
+        layout.writeValue( cursor, value );
+    }
+
+    void insertValueAt( PageCursor cursor, VALUE value, int pos, int keyCount, byte[] tmp )
+    {
+        insertSlotAt( cursor, pos, keyCount, valueOffset( 0 ), valueSize, tmp );
+        setValueAt( cursor, value, pos );
+    }
+
+    void removeValueAt( PageCursor cursor, int pos, int keyCount, byte[] tmp )
+    {
+        removeSlotAt( cursor, pos, keyCount, valueOffset( 0 ), valueSize, tmp );
+    }
+
+    long childAt( PageCursor cursor, int pos )
+    {
+        return cursor.getLong( childOffset( pos ) );
+    }
+
+    void setChildAt( PageCursor cursor, long child, int pos )
+    {
+        cursor.putLong( childOffset( pos ), child );
+    }
+
+    void insertChildAt( PageCursor cursor, long child, int pos, int keyCount, byte[] tmp )
+    {
+        insertSlotAt( cursor, pos, keyCount + 1, childOffset( 0 ), SIZE_CHILD, tmp );
+        setChildAt( cursor, child, pos );
+    }
+
+    void removeChildAt( PageCursor cursor, int pos, int keyCount, byte[] tmp )
+    {
+        removeSlotAt( cursor, pos, keyCount + 1, childOffset( 0 ), SIZE_CHILD, tmp );
+    }
+
+    /**
+     * Moves the keys, and values or children, from position {@code fromPos} and up in the node at {@code cursor}
+     * to the beginning of the empty node at {@code rightCursor}.
+     */
+    void moveUpperHalf( PageCursor cursor, PageCursor rightCursor, int fromPos, int keyCount, boolean leaf )
+    {
+        int movedKeys = keyCount - fromPos;
+        cursor.copyTo( keyOffset( fromPos ), rightCursor, keyOffset( 0 ), movedKeys * keySize );
+        if ( leaf && valueSize > 0 )
+        {
+            // Layouts may have empty values, and copying zero bytes would flag the cursor as out of bounds
+            cursor.copyTo( valueOffset( fromPos ), rightCursor, valueOffset( 0 ), movedKeys * valueSize );
+        }
+        else if ( !leaf )
+        {
+            // The right node gets the children to the right of the moved keys, i.e. one more than there are keys
+            cursor.copyTo( childOffset( fromPos ), rightCursor, childOffset( 0 ), (movedKeys + 1) * SIZE_CHILD );
+        }
+    }
+
+    int internalMaxKeyCount()
+    {
+        return internalMaxKeyCount;
+    }
+
+    int leafMaxKeyCount()
+    {
+        return leafMaxKeyCount;
+    }
+
+    int pageSize()
+    {
+        return pageSize;
+    }
+
+    /**
+     * Binary search for the position of {@code key} among the keys of the node at {@code cursor}.
+     *
+     * @return position of the first key which is greater than or equal to {@code key}, or {@code keyCount}
+     * if all keys are smaller. Whether or not the key at the position is equal to {@code key} is left
+     * for the caller to check, by comparing it to {@code readKey}, which holds the key at the returned position
+     * if {@link #searchFound(int)} says so.
+     */
+    int search( PageCursor cursor, KEY key, KEY readKey, int keyCount )
+    {
+        int lower = 0;
+        int upper = keyCount;
+        boolean found = false;
+        // Keep the key count within reason, if the page contents are inconsistent the caller will retry anyway
+        if ( upper < 0 || upper > Math.max( leafMaxKeyCount, internalMaxKeyCount ) )
+        {
+            return 0;
+        }
+        while ( lower < upper )
+        {
+            int mid = (lower + upper) >>> 1;
+            int comparison = layout.compare( keyAt( cursor, readKey, mid ), key );
+            if ( comparison < 0 )
+            {
+                lower = mid + 1;
+            }
+            else
+            {
+                upper = mid;
+                if ( comparison == 0 )
+                {
+                    found = true;
+                }
+            }
+        }
+        if ( found )
+        {
+            // The last exact match was the lower bound, make sure readKey holds it
+            keyAt( cursor, readKey, lower );
+        }
+        return found ? lower | FOUND_FLAG : lower;
+    }
+
+    static boolean searchFound( int searchResult )
+    {
+        return (searchResult & FOUND_FLAG) != 0;
+    }
+
+    static int searchPosition( int searchResult )
+    {
+        return searchResult & ~FOUND_FLAG;
+    }
+
+    /**
+     * @return which child, of an internal node, a search for a key should continue in, given the result of
+     * {@link #search(PageCursor, Object, Object, int)} for that key in the node.
+     */
+    static int childPositionForSearchResult( int searchResult )
+    {
+        int position = searchPosition( searchResult );
+        return searchFound( searchResult ) ? position + 1 : position;
+    }
+
+    int keyOffset( int pos )
+    {
+        return HEADER_LENGTH + pos * keySize;
+    }
+
+    int valueOffset( int pos )
+    {
+        return HEADER_LENGTH + leafMaxKeyCount * keySize + pos * valueSize;
+    }
+
+    int childOffset( int pos )
+    {
+        return HEADER_LENGTH + internalMaxKeyCount * keySize + pos * SIZE_CHILD;
+    }
+
+    private static void insertSlotAt( PageCursor cursor, int pos, int slotCount, int baseOffset, int slotSize,
+            byte[] tmp )
+    {
+        int length = (slotCount - pos) * slotSize;
+        if ( length > 0 )
+        {
+            cursor.setOffset( baseOffset + pos * slotSize );
+            cursor.getBytes( tmp, 0, length );
+            cursor.setOffset( baseOffset + (pos + 1) * slotSize );
+            cursor.putBytes( tmp, 0, length );
+        }
+    }
+
+    private static void removeSlotAt( PageCursor cursor, int pos, int slotCount, int baseOffset, int slotSize,
+            byte[] tmp )
+    {
+        int length = (slotCount - pos - 1) * slotSize;
+        if ( length > 0 )
+        {
+            cursor.setOffset( baseOffset + (pos + 1) * slotSize );
+            cursor.getBytes( tmp, 0, length );
+            cursor.setOffset( baseOffset + pos * slotSize );
+            cursor.putBytes( tmp, 0, length );
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TreeNode[pageSize:" + pageSize + ", internalMax:" + internalMaxKeyCount +
+                ", leafMax:" + leafMaxKeyCount + ", keySize:" + keySize + ", valueSize:" + valueSize + "]";
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.gbptree;
+
+import java.io.IOException;
+
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+
+/**
+ * Reads and writes the state of a {@link GBPTree}, i.e. which root and generation it was last checkpointed at,
+ * together with meta data about its {@link Layout}. There are two state pages, which are written alternately,
+ * so that a crash while writing one of them always leaves the other one intact.
+ */
+class TreeState
+{
+    static final long STATE_PAGE_A = 0;
+    static final long STATE_PAGE_B = 1;
+
+    private final long pageId;
+    private final long generation;
+    private final long rootId;
+    private final long layoutIdentifier;
+    private final int layoutMajorVersion;
+    private final int layoutMinorVersion;
+    private final int pageSize;
+    private final boolean valid;
+
+    TreeState( long pageId, long generation, long rootId, long layoutIdentifier, int layoutMajorVersion,
+            int layoutMinorVersion, int pageSize, boolean valid )
+    {
+        this.pageId = pageId;
+        this.generation = generation;
+        this.rootId = rootId;
+        this.layoutIdentifier = layoutIdentifier;
+        this.layoutMajorVersion = layoutMajorVersion;
+        this.layoutMinorVersion = layoutMinorVersion;
+        this.pageSize = pageSize;
+        this.valid = valid;
+    }
+
+    long pageId()
+    {
+        return pageId;
+    }
+
+    long generation()
+    {
+        return generation;
+    }
+
+    long rootId()
+    {
+        return rootId;
+    }
+
+    boolean isValid()
+    {
+        return valid;
+    }
+
+    void verify( Layout<?,?> layout, int pageSize )
+    {
+        if ( layoutIdentifier != layout.identifier() ||
+             layoutMajorVersion != layout.majorVersion() || layoutMinorVersion != layout.minorVersion() )
+        {
+            throw new MetadataMismatchException( "Tree was written with layout identifier:%d, version:%d.%d, " +
+                    "but is opened with %s", layoutIdentifier, layoutMajorVersion, layoutMinorVersion, layout );
+        }
+        if ( this.pageSize != pageSize )
+        {
+            throw new MetadataMismatchException( "Tree was written with page size %d, but is opened with %d",
+                    this.pageSize, pageSize );
+        }
+    }
+
+    static void write( PageCursor cursor, long generation, long rootId, Layout<?,?> layout, int pageSize )
+    {
+        cursor.setOffset( 0 );
+        cursor.putLong( generation );
+        cursor.putLong( rootId );
+        cursor.putLong( layout.identifier() );
+        cursor.putInt( layout.majorVersion() );
+        cursor.putInt( layout.minorVersion() );
+        cursor.putInt( pageSize );
+        cursor.putLong( checksum( generation, rootId, layout.identifier(), layout.majorVersion(),
+                layout.minorVersion(), pageSize ) );
+    }
+
+    static TreeState read( PagedFile pagedFile, long pageId ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( pageId, PagedFile.PF_SHARED_READ_LOCK ) )
+        {
+            if ( !cursor.next() )
+            {
+                return new TreeState( pageId, 0, 0, 0, 0, 0, 0, false );
+            }
+            long generation;
+            long rootId;
+            long layoutIdentifier;
+            int majorVersion;
+            int minorVersion;
+            int pageSize;
+            long checksum;
+            do
+            {
+                cursor.setOffset( 0 );
+                generation = cursor.getLong();
+                rootId = cursor.getLong();
+                layoutIdentifier = cursor.getLong();
+                majorVersion = cursor.getInt();
+                minorVersion = cursor.getInt();
+                pageSize = cursor.getInt();
+                checksum = cursor.getLong();
+            }
+            while ( cursor.shouldRetry() );
+            boolean valid = generation > 0 &&
+                    checksum == checksum( generation, rootId, layoutIdentifier, majorVersion, minorVersion, pageSize );
+            return new TreeState( pageId, generation, rootId, layoutIdentifier, majorVersion, minorVersion,
+                    pageSize, valid );
+        }
+    }
+
+    /**
+     * @return the newest valid of the two states, or {@code null} if none of them are valid.
+     */
+    static TreeState selectNewest( TreeState stateA, TreeState stateB )
+    {
+        if ( stateA.isValid() && stateB.isValid() )
+        {
+            return stateA.generation() >= stateB.generation() ? stateA : stateB;
+        }
+        return stateA.isValid() ? stateA : stateB.isValid() ? stateB : null;
+    }
+
+    private static long checksum( long generation, long rootId, long layoutIdentifier, int majorVersion,
+            int minorVersion, int pageSize )
+    {
+        long checksum = 0xDEADCAFEL;
+        checksum = checksum * 31 + generation;
+        checksum = checksum * 31 + rootId;
+        checksum = checksum * 31 + layoutIdentifier;
+        checksum = checksum * 31 + majorVersion;
+        checksum = checksum * 31 + minorVersion;
+        checksum = checksum * 31 + pageSize;
+        return checksum;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TreeState[page:" + pageId + ", generation:" + generation + ", root:" + rootId +
+                ", valid:" + valid + "]";
+    }
+}
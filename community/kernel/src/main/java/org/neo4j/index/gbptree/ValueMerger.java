@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.gbptree;
+
+/**
+ * Decides what to do when inserting a key into a {@link GBPTree}, given what is already stored for that key.
+ *
+ * @param <VALUE> type of value
+ */
+public interface ValueMerger<VALUE>
+{
+    /**
+     * Merges an existing value with a new value, returning the value to store for the key.
+     *
+     * @param existingValue value currently stored for the key, or {@code null} if there is no such key in the tree.
+     * @param newValue value given to {@link Writer#merge(Object, Object, ValueMerger)}.
+     * @return the value to store for the key, or {@code null} to remove the key, or not insert it if it didn't
+     * exist. The returned instance is written to the tree before this merger is called again.
+     */
+    VALUE merge( VALUE existingValue, VALUE newValue );
+}
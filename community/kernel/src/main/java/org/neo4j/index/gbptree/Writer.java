@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.gbptree;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Able to {@link #merge(Object, Object, ValueMerger)} and {@link #remove(Object)} key/value pairs
+ * into a {@link GBPTree}. After all modifications have taken place the writer must be {@link #close() closed},
+ * which makes the changes visible to readers created after that point, all at once.
+ *
+ * @param <KEY> type of keys
+ * @param <VALUE> type of values
+ */
+public interface Writer<KEY,VALUE> extends Closeable
+{
+    /**
+     * Associates {@code value} with {@code key}, overwriting any existing value.
+     *
+     * @param key key to associate with value
+     * @param value value to associate with key
+     * @throws IOException on page cache access error.
+     */
+    void put( KEY key, VALUE value ) throws IOException;
+
+    /**
+     * If the {@code key} doesn't already exist in the tree, {@code value} is offered to the {@code valueMerger},
+     * together with {@code null} as existing value. Otherwise the existing value is merged with {@code value},
+     * and the outcome of the merge is stored, or the key removed if the merger returned {@code null}.
+     *
+     * @param key key for which to merge values.
+     * @param value value to merge with currently associated value for the {@code key}.
+     * @param valueMerger {@link ValueMerger} to consult when deciding what to store.
+     * @throws IOException on page cache access error.
+     */
+    void merge( KEY key, VALUE value, ValueMerger<VALUE> valueMerger ) throws IOException;
+
+    /**
+     * Removes the key/value pair with the given {@code key}, if it exists.
+     *
+     * @param key key to remove.
+     * @return value which was associated with the removed key, or {@code null} if the key didn't exist.
+     * The returned instance is reused between calls.
+     * @throws IOException on page cache access error.
+     */
+    VALUE remove( KEY key ) throws IOException;
+}
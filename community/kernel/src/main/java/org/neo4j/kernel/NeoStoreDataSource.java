@@ -81,9 +81,11 @@ import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.ReentrantLockService;
 import org.neo4j.kernel.impl.logging.LogService;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmer;
 import org.neo4j.kernel.impl.proc.Procedures;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
 import org.neo4j.kernel.impl.store.MetaDataStore;
+import org.neo4j.kernel.impl.store.NeoStores;
 import org.neo4j.kernel.impl.store.StoreId;
 import org.neo4j.kernel.impl.store.UnderlyingStorageException;
 import org.neo4j.kernel.impl.store.format.RecordFormatPropertyConfigurator;
@@ -96,6 +98,7 @@ import org.neo4j.kernel.impl.storemigration.participant.StoreMigrator;
 import org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory;
 import org.neo4j.kernel.impl.transaction.TransactionMonitor;
 import org.neo4j.kernel.impl.transaction.log.BatchingTransactionAppender;
+import org.neo4j.kernel.impl.transaction.log.GroupCommitWindow;
 import org.neo4j.kernel.impl.transaction.log.LogFile;
 import org.neo4j.kernel.impl.transaction.log.LogFileInformation;
 import org.neo4j.kernel.impl.transaction.log.LogFileRecoverer;
@@ -111,6 +114,7 @@ import org.neo4j.kernel.impl.transaction.log.PhysicalLogFiles;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogicalTransactionStore;
 import org.neo4j.kernel.impl.transaction.log.ReadableClosablePositionAwareChannel;
 import org.neo4j.kernel.impl.transaction.log.ReadableLogChannel;
+import org.neo4j.kernel.impl.transaction.log.RecycledLogFiles;
 import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
 import org.neo4j.kernel.impl.transaction.log.TransactionMetadataCache;
@@ -134,6 +138,7 @@ import org.neo4j.kernel.impl.transaction.log.rotation.LogRotation;
 import org.neo4j.kernel.impl.transaction.log.rotation.LogRotationImpl;
 import org.neo4j.kernel.impl.transaction.state.NeoStoreFileListing;
 import org.neo4j.kernel.impl.transaction.state.RecoveryVisitor;
+import org.neo4j.kernel.impl.transaction.state.RelationshipChainOrdering;
 import org.neo4j.kernel.impl.util.Dependencies;
 import org.neo4j.kernel.impl.util.IdOrderingQueue;
 import org.neo4j.kernel.impl.util.JobScheduler;
@@ -480,6 +485,26 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
             dependencies.satisfyDependency( logEntryReader );
             dependencies.satisfyDependency( storageEngine );
             satisfyDependencies( kernelModule );
+
+            if ( config.get( GraphDatabaseSettings.pagecache_warmup_enabled ) && !readOnly )
+            {
+                // Added last, so the warmup happens after recovery, and the final profile is written before the
+                // store files are unmapped.
+                life.add( new PageCacheWarmer( fs, pageCache, scheduler, storeDir,
+                        config.get( GraphDatabaseSettings.pagecache_warmup_profiling_interval ),
+                        tracers.pageCacheTracer, logProvider.getLog( PageCacheWarmer.class ) ) );
+            }
+
+            if ( config.get( GraphDatabaseSettings.relationship_chain_ordering_enabled ) && !readOnly )
+            {
+                life.add( new RelationshipChainOrdering( dependencies.resolveDependency( NeoStores.class ),
+                        kernelModule.kernelAPI(), scheduler,
+                        config.get( GraphDatabaseSettings.relationship_chain_ordering_interval ),
+                        config.get( GraphDatabaseSettings.relationship_chain_ordering_batch_size ),
+                        config.get( GraphDatabaseSettings.relationship_chain_ordering_max_chain_length ),
+                        monitors.newMonitor( RelationshipChainOrdering.Monitor.class ),
+                        logProvider.getLog( RelationshipChainOrdering.class ) ) );
+            }
         }
         catch ( Throwable e )
         {
@@ -602,10 +627,15 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
         final PhysicalLogFiles logFiles = new PhysicalLogFiles( storeDir, PhysicalLogFile.DEFAULT_NAME,
                 fileSystemAbstraction );
 
+        final long rotateAtSize = config.get( GraphDatabaseSettings.logical_log_rotation_threshold );
+        final boolean preallocate = config.get( GraphDatabaseSettings.tx_log_preallocate );
+        final RecycledLogFiles recycledLogFiles = preallocate
+                ? new RecycledLogFiles( fileSystemAbstraction, storeDir, PhysicalLogFile.DEFAULT_NAME, rotateAtSize,
+                        config.get( GraphDatabaseSettings.tx_log_preallocate_recycled_files ) )
+                : RecycledLogFiles.none( fileSystemAbstraction );
         final PhysicalLogFile logFile = life.add( new PhysicalLogFile( fileSystemAbstraction, logFiles,
-                config.get( GraphDatabaseSettings.logical_log_rotation_threshold ),
-                transactionIdStore::getLastCommittedTransactionId, logVersionRepository, physicalLogMonitor,
-                logHeaderCache ) );
+                rotateAtSize, transactionIdStore::getLastCommittedTransactionId, logVersionRepository,
+                physicalLogMonitor, logHeaderCache, preallocate, recycledLogFiles ) );
 
         final PhysicalLogFileInformation.LogVersionToTimestamp
                 logInformation = new PhysicalLogFileInformation.LogVersionToTimestamp()
@@ -636,16 +666,20 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
                 ? GraphDatabaseFacadeFactory.Configuration.ephemeral_keep_logical_logs
                 : GraphDatabaseSettings.keep_logical_logs );
 
-        LogPruneStrategy logPruneStrategy = fromConfigValue( fs, logFileInformation, logFiles, pruningConf );
+        LogPruneStrategy logPruneStrategy =
+                fromConfigValue( fs, logFileInformation, logFiles, pruningConf, recycledLogFiles );
 
         final LogPruning logPruning = new LogPruningImpl( logPruneStrategy, logProvider );
 
         final LogRotation logRotation =
                 new LogRotationImpl( monitors.newMonitor( LogRotation.Monitor.class ), logFile, databaseHealth );
 
+        final GroupCommitWindow groupCommitWindow = config.get( GraphDatabaseSettings.tx_log_group_commit_adaptive )
+                ? new GroupCommitWindow( config.get( GraphDatabaseSettings.tx_log_group_commit_max_window ) )
+                : GroupCommitWindow.DISABLED;
         final TransactionAppender appender = life.add( new BatchingTransactionAppender(
                 logFile, logRotation, transactionMetadataCache, transactionIdStore, legacyIndexTransactionOrdering,
-                databaseHealth ) );
+                databaseHealth, groupCommitWindow ) );
         final LogicalTransactionStore logicalTransactionStore =
                 new PhysicalLogicalTransactionStore( logFile, transactionMetadataCache, logEntryReader );
 
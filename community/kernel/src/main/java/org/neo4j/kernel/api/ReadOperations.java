@@ -52,6 +52,7 @@ import org.neo4j.storageengine.api.NodeItem;
 import org.neo4j.storageengine.api.RelationshipItem;
 import org.neo4j.storageengine.api.Token;
 import org.neo4j.storageengine.api.lock.ResourceType;
+import org.neo4j.storageengine.api.schema.IndexOrder;
 import org.neo4j.storageengine.api.schema.PopulationProgress;
 
 /**
@@ -144,6 +145,14 @@ public interface ReadOperations
     PrimitiveLongIterator nodesGetFromIndexRangeSeekByString( IndexDescriptor index, String lower, boolean includeLower, String upper, boolean includeUpper )
             throws IndexNotFoundKernelException;
 
+    /**
+     * Declares which of the range seeks of an index return nodes in ascending order of their values. They do so
+     * also when this transaction has made changes to the index.
+     *
+     * @throws org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException if no such index found.
+     */
+    IndexOrder indexGetRangeSeekOrder( IndexDescriptor index ) throws IndexNotFoundKernelException;
+
     /**
      * Returns an iterator with the matched nodes.
      *
@@ -20,6 +20,7 @@
 package org.neo4j.kernel.api.index;
 
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.storageengine.api.schema.IndexOrder;
 import org.neo4j.storageengine.api.schema.IndexReader;
 import org.neo4j.storageengine.api.schema.IndexSampler;
 
@@ -87,6 +88,12 @@ public class DelegatingIndexReader implements IndexReader
         return delegate.createSampler();
     }
 
+    @Override
+    public IndexOrder rangeSeekOrder()
+    {
+        return delegate.rangeSeekOrder();
+    }
+
     @Override
     public void close()
     {
@@ -68,6 +68,8 @@ public interface TransactionState extends ReadableTransactionState
 
     void nodeDoRemoveLabel( int labelId, long nodeId );
 
+    void nodeDoOrderRelationshipChains( long nodeId );
+
     // TOKEN RELATED
 
     void labelDoCreateForName( String labelName, int id );
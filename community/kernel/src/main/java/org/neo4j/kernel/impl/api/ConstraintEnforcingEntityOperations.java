@@ -61,6 +61,7 @@ import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.storageengine.api.LabelItem;
 import org.neo4j.storageengine.api.NodeItem;
 import org.neo4j.storageengine.api.RelationshipItem;
+import org.neo4j.storageengine.api.schema.IndexOrder;
 
 import static org.neo4j.kernel.api.StatementConstants.NO_SUCH_NODE;
 import static org.neo4j.kernel.impl.locking.ResourceTypes.INDEX_ENTRY;
@@ -295,6 +296,13 @@ public class ConstraintEnforcingEntityOperations implements EntityOperations, Sc
                 includeUpper );
     }
 
+    @Override
+    public IndexOrder indexGetRangeSeekOrder( KernelStatement statement, IndexDescriptor index )
+            throws IndexNotFoundKernelException
+    {
+        return entityReadOperations.indexGetRangeSeekOrder( statement, index );
+    }
+
     @Override
     public PrimitiveLongIterator nodesGetFromIndexRangeSeekByPrefix( KernelStatement state,
             IndexDescriptor index, String prefix )
@@ -34,7 +34,7 @@ import org.neo4j.kernel.impl.transaction.tracing.TransactionEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionTracer;
 import org.neo4j.kernel.impl.util.JobScheduler;
 
-public class DefaultTransactionTracer implements TransactionTracer, LogRotationMonitor
+public class DefaultTransactionTracer implements TransactionTracer, LogRotationMonitor, LogForceMonitor
 {
     public interface Monitor
     {
@@ -47,6 +47,9 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
 
     private final AtomicLong counter = new AtomicLong();
     private final AtomicLong accumulatedTotalTimeNanos = new AtomicLong();
+    private final AtomicLong logForceCounter = new AtomicLong();
+    private final AtomicLong accumulatedLogForceBatchSize = new AtomicLong();
+    private volatile long lastGroupCommitWindowMicros;
 
     private long startTimeNanos;
 
@@ -59,6 +62,27 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
         }
     };
 
+    private final LogForceEvent logForceEvent = new LogForceEvent()
+    {
+        @Override
+        public void close()
+        {
+            logForceCounter.incrementAndGet();
+        }
+
+        @Override
+        public void setBatchSize( int batchSize )
+        {
+            accumulatedLogForceBatchSize.addAndGet( batchSize );
+        }
+
+        @Override
+        public void setGroupCommitWindow( long windowMicros )
+        {
+            lastGroupCommitWindowMicros = windowMicros;
+        }
+    };
+
     private final LogAppendEvent logAppendEvent = new LogAppendEvent()
     {
         @Override
@@ -94,7 +118,7 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
         @Override
         public LogForceEvent beginLogForce()
         {
-            return LogForceEvent.NULL;
+            return logForceEvent;
         }
     };
 
@@ -183,6 +207,24 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
         return TimeUnit.NANOSECONDS.toMillis( accumulatedTotalTimeNanos.get() );
     }
 
+    @Override
+    public long numberOfLogForceEvents()
+    {
+        return logForceCounter.get();
+    }
+
+    @Override
+    public long logForceAccumulatedBatchSize()
+    {
+        return accumulatedLogForceBatchSize.get();
+    }
+
+    @Override
+    public long lastGroupCommitWindowMicros()
+    {
+        return lastGroupCommitWindowMicros;
+    }
+
     private void updateCountersAndNotifyListeners()
     {
         counter.incrementAndGet();
@@ -37,6 +37,7 @@ import org.neo4j.kernel.impl.api.operations.EntityReadOperations;
 import org.neo4j.kernel.impl.api.operations.EntityWriteOperations;
 import org.neo4j.storageengine.api.NodeItem;
 import org.neo4j.storageengine.api.RelationshipItem;
+import org.neo4j.storageengine.api.schema.IndexOrder;
 
 public class GuardingStatementOperations implements
         EntityWriteOperations,
@@ -203,6 +204,14 @@ public class GuardingStatementOperations implements
                 includeUpper );
     }
 
+    @Override
+    public IndexOrder indexGetRangeSeekOrder( KernelStatement state, IndexDescriptor index )
+            throws IndexNotFoundKernelException
+    {
+        guard.check();
+        return entityReadDelegate.indexGetRangeSeekOrder( state, index );
+    }
+
     @Override
     public PrimitiveLongIterator nodesGetFromIndexRangeSeekByPrefix( KernelStatement state, IndexDescriptor index,
             String prefix ) throws IndexNotFoundKernelException
@@ -126,6 +126,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
     private final Pool<KernelTransactionImplementation> pool;
     private final Supplier<LegacyIndexTransactionState> legacyIndexTxStateSupplier;
     private final boolean txTerminationAwareLocks;
+    private final int txStateOffHeapThreshold;
 
     // For committing
     private final TransactionHeaderInformationFactory headerInformationFactory;
@@ -136,7 +137,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
 
     // State that needs to be reset between uses. Most of these should be cleared or released in #release(),
     // whereas others, such as timestamp or txId when transaction starts, even locks, needs to be set in #initialize().
-    private TransactionState txState;
+    private TxState txState;
     private LegacyIndexTransactionState legacyIndexTransactionState;
     private TransactionWriteState writeState;
     private TransactionHooks.TransactionHooksState hooksState;
@@ -177,7 +178,8 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
                                             Clock clock,
                                             TransactionTracer tracer,
                                             StorageEngine storageEngine,
-                                            boolean txTerminationAwareLocks )
+                                            boolean txTerminationAwareLocks,
+                                            int txStateOffHeapThreshold )
     {
         this.operations = operations;
         this.schemaWriteGuard = schemaWriteGuard;
@@ -195,6 +197,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         this.storageStatement = storeLayer.newStatement();
         this.currentStatement = new KernelStatement( this, this, operations, storageStatement, procedures );
         this.txTerminationAwareLocks = txTerminationAwareLocks;
+        this.txStateOffHeapThreshold = txStateOffHeapThreshold;
     }
 
     /**
@@ -335,7 +338,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         if ( txState == null )
         {
             transactionMonitor.upgradeToWriteTransaction();
-            txState = new TxState();
+            txState = new TxState( txStateOffHeapThreshold );
         }
         return txState;
     }
@@ -650,7 +653,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
             accessMode = null;
             transactionEvent = null;
             legacyIndexTransactionState = null;
-            txState = null;
+            releaseTxState();
             hooksState = null;
             closeListener = null;
             reuseCount++;
@@ -662,6 +665,16 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         }
     }
 
+    private void releaseTxState()
+    {
+        if ( txState != null )
+        {
+            transactionMonitor.transactionStateReleased( txState.changedEntityCount(), txState.isOffHeap() );
+            txState.close();
+            txState = null;
+        }
+    }
+
     /**
      * Transaction can be terminated only when it is not closed and not already terminated.
      * Otherwise termination does not make sense.
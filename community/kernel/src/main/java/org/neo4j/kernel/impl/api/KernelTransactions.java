@@ -49,6 +49,7 @@ import org.neo4j.kernel.monitoring.tracing.Tracers;
 import org.neo4j.storageengine.api.StorageEngine;
 
 import static java.util.Collections.newSetFromMap;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.tx_state_off_heap_threshold;
 import static org.neo4j.kernel.configuration.Settings.setting;
 
 /**
@@ -69,6 +70,7 @@ public class KernelTransactions extends LifecycleAdapter
 
     private final Locks locks;
     private final boolean txTerminationAwareLocks;
+    private final int txStateOffHeapThreshold;
     private final ConstraintIndexCreator constraintIndexCreator;
     private final StatementOperationParts statementOperations;
     private final SchemaWriteGuard schemaWriteGuard;
@@ -117,6 +119,7 @@ public class KernelTransactions extends LifecycleAdapter
     {
         this.locks = locks;
         this.txTerminationAwareLocks = config.get( tx_termination_aware_locks );
+        this.txStateOffHeapThreshold = config.get( tx_state_off_heap_threshold );
         this.constraintIndexCreator = constraintIndexCreator;
         this.statementOperations = statementOperations;
         this.schemaWriteGuard = schemaWriteGuard;
@@ -145,7 +148,7 @@ public class KernelTransactions extends LifecycleAdapter
                     statementOperations, schemaWriteGuard, hooks, constraintIndexCreator, procedures,
                     transactionHeaderInformationFactory, transactionCommitProcess, transactionMonitor,
                     legacyIndexTxStateSupplier, localTxPool, Clock.SYSTEM_CLOCK, tracers.transactionTracer,
-                    storageEngine, txTerminationAwareLocks );
+                    storageEngine, txTerminationAwareLocks, txStateOffHeapThreshold );
 
             allTransactions.add( tx );
             return tx;
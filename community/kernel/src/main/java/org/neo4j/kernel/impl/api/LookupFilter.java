@@ -19,6 +19,7 @@
  */
 package org.neo4j.kernel.impl.api;
 
+import java.util.Arrays;
 import java.util.function.LongPredicate;
 
 import org.neo4j.collection.primitive.PrimitiveLongCollections;
@@ -79,6 +80,20 @@ public class LookupFilter
                 propertyKeyId, lower, includeLower, upper, includeUpper ) );
     }
 
+    /**
+     * Like {@link #exactRangeMatches(EntityOperations, KernelStatement, PrimitiveLongIterator, int, Number, boolean,
+     * Number, boolean)}, for index results which are in order of the double values of the numbers. Integral numbers
+     * too large to be told apart as doubles come in node id order amongst themselves, so each run of such numbers is
+     * put in order of the exact values.
+     */
+    public static PrimitiveLongIterator exactRangeMatchesInValueOrder( EntityOperations operations,
+            KernelStatement state, PrimitiveLongIterator indexedNodeIds, int propertyKeyId,
+            Number lower, boolean includeLower, Number upper, boolean includeUpper )
+    {
+        return new ValueOrderedRangeMatches( indexedNodeIds, new NumericRangeMatchPredicate( operations, state,
+                propertyKeyId, lower, includeLower, upper, includeUpper ) );
+    }
+
     private static boolean isNumberOrArray( Object value )
     {
         return value instanceof Number || value.getClass().isArray();
@@ -190,10 +205,23 @@ public class LookupFilter
 
         @Override
         public boolean test( long nodeId )
+        {
+            return valueInRange( nodeId ) != null;
+        }
+
+        /**
+         * @return the value of the node, if it's within the range, otherwise {@code null}.
+         */
+        Number valueInRange( long nodeId )
         {
             try ( Cursor<NodeItem> node = readOperations.nodeCursor( state, nodeId ) )
             {
-                return node.next() && inRange( node.get().getProperty( propertyKeyId ) );
+                if ( !node.next() )
+                {
+                    return null;
+                }
+                Object value = node.get().getProperty( propertyKeyId );
+                return inRange( value ) ? (Number) value : null;
             }
         }
 
@@ -228,4 +256,105 @@ public class LookupFilter
             return true;
         }
     }
+
+    /**
+     * Filters nodes by {@link NumericRangeMatchPredicate}, putting each run of nodes whose values have the same
+     * double value in order of the exact values. Doubles tell apart all numbers of a smaller magnitude than
+     * 2<sup>53</sup>, so only runs beyond that are buffered.
+     */
+    static class ValueOrderedRangeMatches extends PrimitiveLongCollections.PrimitiveLongBaseIterator
+    {
+        private static final double EXACT_DOUBLE_LIMIT = 1L << 53;
+
+        private final PrimitiveLongIterator indexedNodeIds;
+        private final NumericRangeMatchPredicate predicate;
+        private long[] runNodeIds = new long[8];
+        private Number[] runValues = new Number[8];
+        private int runSize;
+        private int runPosition;
+        // First node of the next run, read while looking for the end of the current one
+        private long pendingNodeId;
+        private Number pendingValue;
+
+        ValueOrderedRangeMatches( PrimitiveLongIterator indexedNodeIds, NumericRangeMatchPredicate predicate )
+        {
+            this.indexedNodeIds = indexedNodeIds;
+            this.predicate = predicate;
+        }
+
+        @Override
+        protected boolean fetchNext()
+        {
+            if ( runPosition == runSize && !nextRun() )
+            {
+                return false;
+            }
+            return next( runNodeIds[runPosition++] );
+        }
+
+        private boolean nextRun()
+        {
+            runSize = runPosition = 0;
+            if ( pendingValue != null )
+            {
+                append( pendingNodeId, pendingValue );
+                pendingValue = null;
+            }
+            while ( indexedNodeIds.hasNext() )
+            {
+                long nodeId = indexedNodeIds.next();
+                Number value = predicate.valueInRange( nodeId );
+                if ( value == null )
+                {
+                    continue;
+                }
+                if ( runSize > 0 && Double.compare( runValues[0].doubleValue(), value.doubleValue() ) != 0 )
+                {
+                    pendingNodeId = nodeId;
+                    pendingValue = value;
+                    break;
+                }
+                append( nodeId, value );
+                if ( Math.abs( value.doubleValue() ) < EXACT_DOUBLE_LIMIT )
+                {
+                    break;
+                }
+            }
+            sortRun();
+            return runSize > 0;
+        }
+
+        private void append( long nodeId, Number value )
+        {
+            if ( runSize == runNodeIds.length )
+            {
+                runNodeIds = Arrays.copyOf( runNodeIds, runSize * 2 );
+                runValues = Arrays.copyOf( runValues, runSize * 2 );
+            }
+            runNodeIds[runSize] = nodeId;
+            runValues[runSize] = value;
+            runSize++;
+        }
+
+        /**
+         * Insertion sort, which keeps the node id order of equal values and is linear for a run which is already
+         * in order, the common case.
+         */
+        private void sortRun()
+        {
+            for ( int i = 1; i < runSize; i++ )
+            {
+                long nodeId = runNodeIds[i];
+                Number value = runValues[i];
+                int j = i - 1;
+                for ( ; j >= 0 && PropertyValueComparison.COMPARE_NUMBERS.compare( runValues[j], value ) > 0; j-- )
+                {
+                    runNodeIds[j + 1] = runNodeIds[j];
+                    runValues[j + 1] = runValues[j];
+                }
+                runNodeIds[j + 1] = nodeId;
+                runValues[j + 1] = value;
+            }
+        }
+    }
 }
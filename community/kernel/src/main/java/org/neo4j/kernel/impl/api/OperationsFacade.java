@@ -89,6 +89,7 @@ import org.neo4j.storageengine.api.NodeItem;
 import org.neo4j.storageengine.api.RelationshipItem;
 import org.neo4j.storageengine.api.Token;
 import org.neo4j.storageengine.api.lock.ResourceType;
+import org.neo4j.storageengine.api.schema.IndexOrder;
 import org.neo4j.storageengine.api.schema.PopulationProgress;
 
 public class OperationsFacade implements ReadOperations, DataWriteOperations, SchemaWriteOperations
@@ -223,6 +224,13 @@ public class OperationsFacade implements ReadOperations, DataWriteOperations, Sc
                 includeUpper );
     }
 
+    @Override
+    public IndexOrder indexGetRangeSeekOrder( IndexDescriptor index ) throws IndexNotFoundKernelException
+    {
+        statement.assertOpen();
+        return dataRead().indexGetRangeSeekOrder( statement, index );
+    }
+
     @Override
     public PrimitiveLongIterator nodesGetFromIndexRangeSeekByPrefix( IndexDescriptor index, String prefix )
             throws IndexNotFoundKernelException
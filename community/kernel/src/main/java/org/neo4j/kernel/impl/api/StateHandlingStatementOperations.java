@@ -19,6 +19,7 @@
  */
 package org.neo4j.kernel.impl.api;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.function.Predicate;
@@ -89,6 +90,7 @@ import org.neo4j.storageengine.api.StorageProperty;
 import org.neo4j.storageengine.api.StorageStatement;
 import org.neo4j.storageengine.api.StoreReadLayer;
 import org.neo4j.storageengine.api.Token;
+import org.neo4j.storageengine.api.schema.IndexOrder;
 import org.neo4j.storageengine.api.schema.IndexReader;
 import org.neo4j.storageengine.api.schema.PopulationProgress;
 import org.neo4j.storageengine.api.schema.SchemaRule;
@@ -99,6 +101,7 @@ import static org.neo4j.helpers.collection.Iterators.iterator;
 import static org.neo4j.helpers.collection.Iterators.singleOrNull;
 import static org.neo4j.kernel.api.StatementConstants.NO_SUCH_NODE;
 import static org.neo4j.kernel.impl.api.PropertyValueComparison.COMPARE_NUMBERS;
+import static org.neo4j.kernel.impl.api.PropertyValueComparison.COMPARE_VALUES;
 import static org.neo4j.register.Registers.newDoubleLongRegister;
 import static org.neo4j.storageengine.api.txstate.TxStateVisitor.EMPTY;
 
@@ -799,13 +802,17 @@ public class StateHandlingStatementOperations implements
 
     {
         StorageStatement storeStatement = state.getStoreStatement();
+        IndexReader reader = storeStatement.getIndexReader( index );
         PrimitiveLongIterator committed = COMPARE_NUMBERS.isEmptyRange( lower, includeLower, upper, includeUpper )
                 ? PrimitiveLongCollections.emptyIterator()
-                : storeStatement.getIndexReader( index ).rangeSeekByNumberInclusive( lower, upper );
-        PrimitiveLongIterator exactMatches = filterExactRangeMatches( state, index, committed, lower, includeLower,
-                upper, includeUpper );
+                : reader.rangeSeekByNumberInclusive( lower, upper );
+        boolean ordered = reader.rangeSeekOrder().ordersNumbers();
+        PrimitiveLongIterator exactMatches = ordered
+                ? LookupFilter.exactRangeMatchesInValueOrder( this, state, committed, index.getPropertyKeyId(),
+                        lower, includeLower, upper, includeUpper )
+                : filterExactRangeMatches( state, index, committed, lower, includeLower, upper, includeUpper );
         return filterIndexStateChangesForRangeSeekByNumber( state, index, lower, includeLower, upper, includeUpper,
-                exactMatches );
+                ordered, exactMatches );
     }
 
     @Override
@@ -818,7 +825,7 @@ public class StateHandlingStatementOperations implements
         IndexReader reader = storeStatement.getIndexReader( index );
         PrimitiveLongIterator committed = reader.rangeSeekByString( lower, includeLower, upper, includeUpper );
         return filterIndexStateChangesForRangeSeekByString( state, index, lower, includeLower, upper, includeUpper,
-                committed );
+                reader.rangeSeekOrder().ordersStrings(), committed );
     }
 
     @Override
@@ -828,7 +835,8 @@ public class StateHandlingStatementOperations implements
         StorageStatement storeStatement = state.getStoreStatement();
         IndexReader reader = storeStatement.getIndexReader( index );
         PrimitiveLongIterator committed = reader.rangeSeekByPrefix( prefix );
-        return filterIndexStateChangesForRangeSeekByPrefix( state, index, prefix, committed );
+        return filterIndexStateChangesForRangeSeekByPrefix( state, index, prefix,
+                reader.rangeSeekOrder().ordersStrings(), committed );
     }
 
     @Override
@@ -901,7 +909,7 @@ public class StateHandlingStatementOperations implements
             IndexDescriptor index,
             Number lower, boolean includeLower,
             Number upper, boolean includeUpper,
-            PrimitiveLongIterator nodeIds )
+            boolean ordered, PrimitiveLongIterator nodeIds )
     {
         if ( state.hasTxStateWithChanges() )
         {
@@ -910,7 +918,10 @@ public class StateHandlingStatementOperations implements
             ReadableDiffSets<Long> nodes = state.txState().addedAndRemovedNodes();
 
             // Apply to actual index lookup
-            return nodes.augmentWithRemovals( labelPropertyChangesForNumber.augment( nodeIds ) );
+            PrimitiveLongIterator augmented = nodes.augmentWithRemovals( labelPropertyChangesForNumber.augment( nodeIds ) );
+            return ordered && !labelPropertyChangesForNumber.getAdded().isEmpty()
+                   ? sortedByPropertyValue( state, index.getPropertyKeyId(), augmented )
+                   : augmented;
         }
         return nodeIds;
 
@@ -920,7 +931,7 @@ public class StateHandlingStatementOperations implements
             IndexDescriptor index,
             String lower, boolean includeLower,
             String upper, boolean includeUpper,
-            PrimitiveLongIterator nodeIds )
+            boolean ordered, PrimitiveLongIterator nodeIds )
     {
         if ( state.hasTxStateWithChanges() )
         {
@@ -929,7 +940,10 @@ public class StateHandlingStatementOperations implements
             ReadableDiffSets<Long> nodes = state.txState().addedAndRemovedNodes();
 
             // Apply to actual index lookup
-            return nodes.augmentWithRemovals( labelPropertyChangesForString.augment( nodeIds ) );
+            PrimitiveLongIterator augmented = nodes.augmentWithRemovals( labelPropertyChangesForString.augment( nodeIds ) );
+            return ordered && !labelPropertyChangesForString.getAdded().isEmpty()
+                   ? sortedByPropertyValue( state, index.getPropertyKeyId(), augmented )
+                   : augmented;
         }
         return nodeIds;
 
@@ -938,7 +952,7 @@ public class StateHandlingStatementOperations implements
     private PrimitiveLongIterator filterIndexStateChangesForRangeSeekByPrefix( KernelStatement state,
             IndexDescriptor index,
             String prefix,
-            PrimitiveLongIterator nodeIds )
+            boolean ordered, PrimitiveLongIterator nodeIds )
     {
         if ( state.hasTxStateWithChanges() )
         {
@@ -947,11 +961,54 @@ public class StateHandlingStatementOperations implements
             ReadableDiffSets<Long> nodes = state.txState().addedAndRemovedNodes();
 
             // Apply to actual index lookup
-            return nodes.augmentWithRemovals( labelPropertyChangesForPrefix.augment( nodeIds ) );
+            PrimitiveLongIterator augmented = nodes.augmentWithRemovals( labelPropertyChangesForPrefix.augment( nodeIds ) );
+            return ordered && !labelPropertyChangesForPrefix.getAdded().isEmpty()
+                   ? sortedByPropertyValue( state, index.getPropertyKeyId(), augmented )
+                   : augmented;
         }
         return nodeIds;
     }
 
+    /**
+     * Nodes added to the index in this transaction are appended after the committed ones by the diff sets,
+     * which breaks the value order of an ordered range seek. Put them back in place, ties broken by node id.
+     */
+    private PrimitiveLongIterator sortedByPropertyValue( KernelStatement state, int propertyKeyId,
+            PrimitiveLongIterator nodeIds )
+    {
+        long[] ids = PrimitiveLongCollections.asArray( nodeIds );
+        Object[] values = new Object[ids.length];
+        Integer[] positions = new Integer[ids.length];
+        for ( int i = 0; i < ids.length; i++ )
+        {
+            try ( Cursor<NodeItem> node = nodeCursor( state, ids[i] ) )
+            {
+                values[i] = node.next() ? node.get().getProperty( propertyKeyId ) : null;
+            }
+            positions[i] = i;
+        }
+        Arrays.sort( positions, ( a, b ) ->
+        {
+            int result = values[a] == null || values[b] == null
+                         ? Boolean.compare( values[a] == null, values[b] == null )
+                         : COMPARE_VALUES.compare( values[a], values[b] );
+            return result != 0 ? result : Long.compare( ids[a], ids[b] );
+        } );
+        long[] sorted = new long[ids.length];
+        for ( int i = 0; i < positions.length; i++ )
+        {
+            sorted[i] = ids[positions[i]];
+        }
+        return PrimitiveLongCollections.iterator( sorted );
+    }
+
+    @Override
+    public IndexOrder indexGetRangeSeekOrder( KernelStatement state, IndexDescriptor index )
+            throws IndexNotFoundKernelException
+    {
+        return state.getStoreStatement().getIndexReader( index ).rangeSeekOrder();
+    }
+
     @Override
     public Property nodeSetProperty( KernelStatement state, long nodeId, DefinedProperty property )
             throws EntityNotFoundException, InvalidTransactionTypeKernelException, AutoIndexingKernelException
@@ -24,6 +24,7 @@ import java.util.function.IntSupplier;
 
 import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
+import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
 import org.neo4j.collection.primitive.PrimitiveIntSet;
 import org.neo4j.cursor.Cursor;
 import org.neo4j.cursor.GenericCursor;
@@ -161,13 +162,15 @@ public abstract class TxAbstractNodeCursor
         }
 
         // Augment with types stored on disk, minus any types where all rels of that type are deleted
-        // in current tx.
-        try ( Cursor<IntSupplier> storeTypes = cursor.get().relationshipTypes() )
+        // in current tx. The stored degrees of all types are read in a single pass, rather than looking
+        // up the degree of each type separately, which walks the relationship groups of a dense node again.
+        try ( Cursor<DegreeItem> storeDegrees = cursor.get().degrees() )
         {
-            while ( storeTypes.next() )
+            while ( storeDegrees.next() )
             {
-                int current = storeTypes.get().getAsInt();
-                if ( !types.contains( current ) && degree( Direction.BOTH, current ) > 0 )
+                DegreeItem degree = storeDegrees.get();
+                int current = degree.type();
+                if ( !types.contains( current ) && (augmentedOutgoing( degree ) > 0 || augmentedIncoming( degree ) > 0) )
                 {
                     types.add( current );
                 }
@@ -176,6 +179,16 @@ public abstract class TxAbstractNodeCursor
         return new RelationshipTypeCursor( types.iterator() );
     }
 
+    private int augmentedOutgoing( DegreeItem degree )
+    {
+        return nodeState.augmentDegree( Direction.OUTGOING, (int) degree.outgoing(), degree.type() );
+    }
+
+    private int augmentedIncoming( DegreeItem degree )
+    {
+        return nodeState.augmentDegree( Direction.INCOMING, (int) degree.incoming(), degree.type() );
+    }
+
     @Override
     public int degree( Direction direction )
     {
@@ -192,7 +205,38 @@ public abstract class TxAbstractNodeCursor
     @Override
     public Cursor<DegreeItem> degrees()
     {
-        return new DegreeCursor( relationshipTypes() );
+        if ( nodeIsAddedInThisTx )
+        {
+            return new DegreeCursor( relationshipTypes() );
+        }
+
+        // Augment the stored degrees, read in a single pass, with the degrees of the types
+        // that only have relationships added in the current tx.
+        PrimitiveIntObjectMap<int[]> degrees = Primitive.intObjectMap();
+        try ( Cursor<DegreeItem> storeDegrees = cursor.get().degrees() )
+        {
+            while ( storeDegrees.next() )
+            {
+                DegreeItem degree = storeDegrees.get();
+                int outgoing = augmentedOutgoing( degree ), incoming = augmentedIncoming( degree );
+                if ( outgoing > 0 || incoming > 0 )
+                {
+                    degrees.put( degree.type(), new int[]{outgoing, incoming} );
+                }
+            }
+        }
+        PrimitiveIntIterator typesInTx = nodeState.relationshipTypes();
+        while ( typesInTx.hasNext() )
+        {
+            int type = typesInTx.next();
+            if ( !degrees.containsKey( type ) )
+            {
+                degrees.put( type, new int[]{
+                        nodeState.augmentDegree( Direction.OUTGOING, 0, type ),
+                        nodeState.augmentDegree( Direction.INCOMING, 0, type )} );
+            }
+        }
+        return new DegreeCursor( new RelationshipTypeCursor( degrees.iterator() ), degrees );
     }
 
     @Override
@@ -230,13 +274,20 @@ public abstract class TxAbstractNodeCursor
     private class DegreeCursor implements Cursor<DegreeItem>, DegreeItem
     {
         private final Cursor<IntSupplier> relTypeCursor;
+        private final PrimitiveIntObjectMap<int[]> degrees;
         private int type;
         private long outgoing;
         private long incoming;
 
         public DegreeCursor( Cursor<IntSupplier> relTypeCursor )
+        {
+            this( relTypeCursor, null );
+        }
+
+        public DegreeCursor( Cursor<IntSupplier> relTypeCursor, PrimitiveIntObjectMap<int[]> degrees )
         {
             this.relTypeCursor = relTypeCursor;
+            this.degrees = degrees;
         }
 
         @Override
@@ -245,8 +296,17 @@ public abstract class TxAbstractNodeCursor
             if ( relTypeCursor.next() )
             {
                 type = relTypeCursor.get().getAsInt();
-                outgoing = degree( Direction.OUTGOING, type );
-                incoming = degree( Direction.INCOMING, type );
+                if ( degrees != null )
+                {
+                    int[] degree = degrees.get( type );
+                    outgoing = degree[0];
+                    incoming = degree[1];
+                }
+                else
+                {
+                    outgoing = degree( Direction.OUTGOING, type );
+                    incoming = degree( Direction.INCOMING, type );
+                }
 
                 return true;
             }
@@ -26,8 +26,13 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadFactory;
@@ -35,10 +40,12 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
 import java.util.function.Supplier;
 
 import org.neo4j.function.Predicates;
 import org.neo4j.helpers.Exceptions;
+import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
 import org.neo4j.kernel.api.exceptions.index.IndexPopulationFailedKernelException;
 import org.neo4j.kernel.api.index.IndexConfiguration;
@@ -64,6 +71,12 @@ import static org.neo4j.helpers.NamedThreadFactory.daemon;
  * concurrent updates are flushed after the store scan in {@link #flipAfterPopulation()}.
  * <p>
  * Inner {@link ExecutorService executor} is shut down after the store scan completes.
+ * <p>
+ * Stores with at least two times {@link #SCAN_PARTITION_SIZE} nodes are scanned by up to {@link #SCAN_PARTITIONS}
+ * threads, each visiting its own node id range and batching its own updates. Concurrent updates of nodes in a range
+ * that is still being scanned are queued for that range and applied by its scan thread, just like the single queue
+ * above. Updates of nodes in finished ranges go to the shared queue, which is applied in
+ * {@link #flipAfterPopulation()}, so updates of any single node are always applied in the order they were queued.
  */
 public class BatchingMultipleIndexPopulator extends MultipleIndexPopulator
 {
@@ -71,20 +84,33 @@ public class BatchingMultipleIndexPopulator extends MultipleIndexPopulator
     static final String TASK_QUEUE_SIZE_NAME = "task_queue_size";
     static final String AWAIT_TIMEOUT_MINUTES_NAME = "await_timeout_minutes";
     static final String BATCH_SIZE_NAME = "batch_size";
+    static final String SCAN_PARTITIONS_NAME = "scan_partitions";
+    static final String SCAN_PARTITION_SIZE_NAME = "scan_partition_size";
 
     private static final String EOL = System.lineSeparator();
     private static final String FLUSH_THREAD_NAME_PREFIX = "Index Population Flush Thread";
+    private static final String SCAN_THREAD_NAME_PREFIX = "Index Population Scan Thread";
 
     private final int QUEUE_THRESHOLD = FeatureToggles.getInteger( getClass(), QUEUE_THRESHOLD_NAME, 20_000 );
     private final int TASK_QUEUE_SIZE = FeatureToggles.getInteger( getClass(), TASK_QUEUE_SIZE_NAME,
             getNumberOfPopulationWorkers() * 2 );
     private final int AWAIT_TIMEOUT_MINUTES = FeatureToggles.getInteger( getClass(), AWAIT_TIMEOUT_MINUTES_NAME, 30 );
     private final int BATCH_SIZE = FeatureToggles.getInteger( getClass(), BATCH_SIZE_NAME, 10_000 );
+    private final int SCAN_PARTITIONS = FeatureToggles.getInteger( getClass(), SCAN_PARTITIONS_NAME,
+            getNumberOfPopulationWorkers() );
+    private final int SCAN_PARTITION_SIZE = FeatureToggles.getInteger( getClass(), SCAN_PARTITION_SIZE_NAME,
+            1_000_000 );
 
     private final AtomicLong activeTasks = new AtomicLong();
     private final ExecutorService executor;
     private final Map<IndexPopulation,List<NodePropertyUpdate>> batchedUpdates = new HashMap<>();
 
+    // Populators sample updates one at a time, so partition flushes and queue drains take turns sampling
+    private final Object sampleLock = new Object();
+    // Guards routing of concurrent updates to the queues of the scan partitions
+    private final Object routingLock = new Object();
+    private PartitionedStoreScan routingScan;
+
     /**
      * Creates a new multi-threaded populator for the given store view.
      *
@@ -115,10 +141,26 @@ public class BatchingMultipleIndexPopulator extends MultipleIndexPopulator
     @Override
     public StoreScan<IndexPopulationFailedKernelException> indexAllNodes()
     {
-        StoreScan<IndexPopulationFailedKernelException> storeScan = super.indexAllNodes();
+        long highId = storeView.nodeHighId();
+        int partitions = (int) Math.min( SCAN_PARTITIONS, highId / SCAN_PARTITION_SIZE );
+        StoreScan<IndexPopulationFailedKernelException> storeScan = partitions > 1
+                                                                    ? new PartitionedStoreScan( partitions, highId )
+                                                                    : super.indexAllNodes();
         return new BatchingStoreScan<>( storeScan );
     }
 
+    @Override
+    public void queue( NodePropertyUpdate update )
+    {
+        synchronized ( routingLock )
+        {
+            if ( routingScan == null || !routingScan.route( update ) )
+            {
+                super.queue( update );
+            }
+        }
+    }
+
     @Override
     protected IndexPopulation createPopulation( IndexPopulator populator,
             IndexDescriptor descriptor, IndexConfiguration config, SchemaIndexProvider.Descriptor providerDescriptor,
@@ -135,7 +177,7 @@ public class BatchingMultipleIndexPopulator extends MultipleIndexPopulator
         {
             log.debug( "Populating from queue." + EOL + this );
             flushAll();
-            awaitCompletion();
+            awaitCompletion( activeTasks );
             super.populateFromQueue( currentlyIndexedNodeId );
             log.debug( "Drained queue and all batched updates." + EOL + this );
         }
@@ -157,16 +199,17 @@ public class BatchingMultipleIndexPopulator extends MultipleIndexPopulator
      * Awaits {@link #AWAIT_TIMEOUT_MINUTES} minutes for all previously submitted batch-flush tasks to complete.
      * Restores the interrupted status and exits normally when interrupted during waiting.
      *
+     * @param tasks the counter of active tasks to wait for.
      * @throws IllegalStateException if tasks did not complete in {@link #AWAIT_TIMEOUT_MINUTES} minutes.
      */
-    private void awaitCompletion()
+    private void awaitCompletion( AtomicLong tasks )
     {
         try
         {
             log.debug( "Waiting " + AWAIT_TIMEOUT_MINUTES + " minutes for all submitted and active " +
                        "flush tasks to complete." + EOL + this );
 
-            Supplier<Boolean> allSubmittedTasksCompleted = () -> activeTasks.get() == 0;
+            Supplier<Boolean> allSubmittedTasksCompleted = () -> tasks.get() == 0;
             Predicates.await( allSubmittedTasksCompleted, AWAIT_TIMEOUT_MINUTES, TimeUnit.MINUTES );
         }
         catch ( TimeoutException e )
@@ -235,11 +278,35 @@ public class BatchingMultipleIndexPopulator extends MultipleIndexPopulator
      */
     private void flush( IndexPopulation population, List<NodePropertyUpdate> batch )
     {
-        activeTasks.incrementAndGet();
+        flush( population, batch, activeTasks, false );
+    }
+
+    /**
+     * Insert the given batch of updates into the index, optionally including the updates in the index sample first.
+     *
+     * @param population the index population.
+     * @param batch the list of updates to insert.
+     * @param tasks the counter of active tasks to account the flush to.
+     * @param sample <code>true</code> if the updates have not been included in the index sample yet.
+     */
+    private void flush( IndexPopulation population, List<NodePropertyUpdate> batch, AtomicLong tasks,
+            boolean sample )
+    {
+        tasks.incrementAndGet();
 
         executor.execute( () -> {
             try
             {
+                if ( sample )
+                {
+                    synchronized ( sampleLock )
+                    {
+                        for ( NodePropertyUpdate update : batch )
+                        {
+                            population.populator.includeSample( update );
+                        }
+                    }
+                }
                 population.populator.add( batch );
             }
             catch ( Throwable failure )
@@ -248,7 +315,7 @@ public class BatchingMultipleIndexPopulator extends MultipleIndexPopulator
             }
             finally
             {
-                activeTasks.decrementAndGet();
+                tasks.decrementAndGet();
             }
         } );
     }
@@ -361,6 +428,217 @@ public class BatchingMultipleIndexPopulator extends MultipleIndexPopulator
         }
     }
 
+    /**
+     * A {@link StoreScan} that splits the node id space into {@link ScanPartition partitions} and scans them from
+     * separate threads. The last partition is open ended, so that it also visits nodes created during the scan.
+     * A failing partition stops the others and fails the scan.
+     */
+    private class PartitionedStoreScan implements StoreScan<IndexPopulationFailedKernelException>
+    {
+        private final ScanPartition[] partitions;
+        private final long partitionSize;
+
+        PartitionedStoreScan( int partitionCount, long highId )
+        {
+            IntPredicate labelIdFilter = labelIdFilter();
+            IntPredicate propertyKeyIdFilter = propertyKeyIdFilter();
+            this.partitionSize = (highId + partitionCount - 1) / partitionCount;
+            this.partitions = new ScanPartition[partitionCount];
+            for ( int i = 0; i < partitionCount; i++ )
+            {
+                long fromNodeId = i * partitionSize;
+                long toNodeId = i == partitionCount - 1 ? Long.MAX_VALUE : fromNodeId + partitionSize;
+                partitions[i] = new ScanPartition( labelIdFilter, propertyKeyIdFilter, fromNodeId, toNodeId );
+            }
+        }
+
+        @Override
+        public void run() throws IndexPopulationFailedKernelException
+        {
+            synchronized ( routingLock )
+            {
+                // Nothing has been scanned yet, so the partitions will see the effects of all queued updates
+                routingScan = this;
+                queue.clear();
+            }
+
+            ExecutorService scanExecutor = Executors.newFixedThreadPool( partitions.length,
+                    daemon( SCAN_THREAD_NAME_PREFIX ) );
+            try
+            {
+                List<Future<Void>> scans = new ArrayList<>( partitions.length );
+                for ( ScanPartition partition : partitions )
+                {
+                    scans.add( scanExecutor.submit( partition ) );
+                }
+
+                Throwable failure = null;
+                for ( Future<Void> scan : scans )
+                {
+                    try
+                    {
+                        scan.get();
+                    }
+                    catch ( ExecutionException | InterruptedException e )
+                    {
+                        Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                        if ( failure == null )
+                        {
+                            failure = cause;
+                            stop();
+                        }
+                        else
+                        {
+                            failure.addSuppressed( cause );
+                        }
+                        if ( e instanceof InterruptedException )
+                        {
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                    }
+                }
+                if ( failure != null )
+                {
+                    throw Exceptions.launderedException( IndexPopulationFailedKernelException.class, failure );
+                }
+            }
+            finally
+            {
+                scanExecutor.shutdown();
+                synchronized ( routingLock )
+                {
+                    routingScan = null;
+                }
+            }
+        }
+
+        /**
+         * Queues the given update for the partition containing its node, unless that partition is done scanning.
+         *
+         * @return <code>true</code> if the update was queued, otherwise <code>false</code>.
+         */
+        boolean route( NodePropertyUpdate update )
+        {
+            ScanPartition partition = partitions[(int) Math.min( update.getNodeId() / partitionSize,
+                    partitions.length - 1 )];
+            if ( partition.finished )
+            {
+                return false;
+            }
+            partition.queuedUpdates.add( update );
+            return true;
+        }
+
+        @Override
+        public void stop()
+        {
+            for ( ScanPartition partition : partitions )
+            {
+                partition.scan.stop();
+            }
+        }
+
+        @Override
+        public PopulationProgress getProgress()
+        {
+            long completed = 0;
+            long total = 0;
+            for ( ScanPartition partition : partitions )
+            {
+                PopulationProgress progress = partition.scan.getProgress();
+                completed += progress.getCompleted();
+                total += progress.getTotal();
+            }
+            return new PopulationProgress( completed, total );
+        }
+    }
+
+    /**
+     * A single node id range of a {@link PartitionedStoreScan}. Batches applicable updates from its range and flushes
+     * them using the {@link ExecutorService executor}. Concurrent updates of nodes in its range are drained the same
+     * way the shared queue is, once there are {@link #QUEUE_THRESHOLD} of them and when the range has been scanned.
+     */
+    private class ScanPartition implements Visitor<NodePropertyUpdates,IndexPopulationFailedKernelException>,
+            Callable<Void>
+    {
+        final StoreScan<IndexPopulationFailedKernelException> scan;
+        final Queue<NodePropertyUpdate> queuedUpdates = new LinkedBlockingQueue<>();
+        // Guarded by routingLock
+        boolean finished;
+
+        private final Map<IndexPopulation,List<NodePropertyUpdate>> partitionBatches = new HashMap<>();
+        private final AtomicLong partitionTasks = new AtomicLong();
+
+        ScanPartition( IntPredicate labelIdFilter, IntPredicate propertyKeyIdFilter, long fromNodeId,
+                long toNodeId )
+        {
+            this.scan = storeView.visitNodes( labelIdFilter, propertyKeyIdFilter, this, fromNodeId, toNodeId );
+        }
+
+        @Override
+        public Void call() throws IndexPopulationFailedKernelException
+        {
+            scan.run();
+            synchronized ( routingLock )
+            {
+                finished = true;
+            }
+            drain( Long.MAX_VALUE );
+            return null;
+        }
+
+        @Override
+        public boolean visit( NodePropertyUpdates updates )
+        {
+            forEachPopulation( population -> batchUpdate( population, updates.getPropertyUpdates() ) );
+            if ( queuedUpdates.size() >= QUEUE_THRESHOLD )
+            {
+                drain( updates.getNodeId() );
+            }
+            return false;
+        }
+
+        private void batchUpdate( IndexPopulation population, Collection<NodePropertyUpdate> updates )
+        {
+            List<NodePropertyUpdate> batch = null;
+            for ( NodePropertyUpdate update : updates )
+            {
+                if ( population.isApplicable( update ) )
+                {
+                    if ( batch == null )
+                    {
+                        batch = partitionBatches.computeIfAbsent( population, key -> newBatch() );
+                    }
+                    batch.add( update );
+                }
+            }
+            if ( batch != null && batch.size() >= BATCH_SIZE )
+            {
+                partitionBatches.remove( population );
+                flush( population, batch, partitionTasks, true );
+            }
+        }
+
+        /**
+         * Flushes all batches of this partition, waits for them to be inserted and then applies the queued updates
+         * of nodes up to the given node id.
+         */
+        private void drain( long currentlyIndexedNodeId )
+        {
+            for ( Map.Entry<IndexPopulation,List<NodePropertyUpdate>> entry : partitionBatches.entrySet() )
+            {
+                flush( entry.getKey(), entry.getValue(), partitionTasks, true );
+            }
+            partitionBatches.clear();
+            awaitCompletion( partitionTasks );
+            synchronized ( sampleLock )
+            {
+                populateFromQueue( queuedUpdates, currentlyIndexedNodeId );
+            }
+        }
+    }
+
     /**
      * A delegating {@link StoreScan} implementation that flushes all pending updates and terminates the executor after
      * the delegate store scan completes.
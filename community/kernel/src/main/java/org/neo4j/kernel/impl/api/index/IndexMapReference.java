@@ -21,10 +21,25 @@ package org.neo4j.kernel.impl.api.index;
 
 import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.impl.api.index.sampling.IndexUpdateSketches;
 
 public class IndexMapReference implements IndexMapSnapshotProvider
 {
     private volatile IndexMap indexMap = new IndexMap();
+    private final IndexUpdateSketches sketches;
+
+    public IndexMapReference()
+    {
+        this( null );
+    }
+
+    /**
+     * @param sketches sketches to summarize all index updates in, or {@code null} if updates are not sketched.
+     */
+    public IndexMapReference( IndexUpdateSketches sketches )
+    {
+        this.sketches = sketches;
+    }
 
     @Override
     public IndexMap indexMapSnapshot()
@@ -95,6 +110,6 @@ public class IndexMapReference implements IndexMapSnapshotProvider
 
     public IndexUpdaterMap createIndexUpdaterMap( IndexUpdateMode mode )
     {
-        return new IndexUpdaterMap( indexMap, mode );
+        return new IndexUpdaterMap( indexMap, mode, sketches );
     }
 }
@@ -47,6 +47,23 @@ public interface IndexStoreView extends PropertyAccessor
             Visitor<NodePropertyUpdates, FAILURE> propertyUpdateVisitor,
             Visitor<NodeLabelUpdate, FAILURE> labelUpdateVisitor );
 
+    /**
+     * Like {@link #visitNodes(IntPredicate, IntPredicate, Visitor, Visitor)}, but only visits nodes with ids in
+     * {@code [fromNodeId, toNodeId)}. Scans of disjoint ranges may run concurrently. Passing {@link Long#MAX_VALUE}
+     * as {@code toNodeId} also visits nodes created beyond the high id during the scan.
+     *
+     * @return a {@link StoreScan} to start and to stop the scan.
+     */
+    <FAILURE extends Exception> StoreScan<FAILURE> visitNodes(
+            IntPredicate labelIdFilter, IntPredicate propertyKeyIdFilter,
+            Visitor<NodePropertyUpdates, FAILURE> propertyUpdateVisitor,
+            long fromNodeId, long toNodeId );
+
+    /**
+     * @return the high id of the node store, i.e. an upper bound of the node ids a full scan would visit.
+     */
+    long nodeHighId();
+
     /**
      * Produces {@link NodePropertyUpdate} objects from reading node {@code nodeId}, its labels and properties
      * and puts those updates into {@code target}.
@@ -99,6 +116,20 @@ public interface IndexStoreView extends PropertyAccessor
             return EMPTY_SCAN;
         }
 
+        @Override
+        public <FAILURE extends Exception> StoreScan<FAILURE> visitNodes( IntPredicate labelIdFilter,
+                IntPredicate propertyKeyIdFilter, Visitor<NodePropertyUpdates,FAILURE> propertyUpdateVisitor,
+                long fromNodeId, long toNodeId )
+        {
+            return EMPTY_SCAN;
+        }
+
+        @Override
+        public long nodeHighId()
+        {
+            return 0;
+        }
+
         @Override
         public void replaceIndexCounts( IndexDescriptor descriptor, long uniqueElements, long maxUniqueElements,
                 long indexSize )
@@ -31,6 +31,7 @@ import org.neo4j.helpers.collection.PrefetchingIterator;
 import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
 import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.impl.api.index.sampling.IndexUpdateSketches;
 import org.neo4j.kernel.impl.store.MultipleUnderlyingStorageExceptions;
 import org.neo4j.kernel.impl.store.UnderlyingStorageException;
 
@@ -48,12 +49,23 @@ public class IndexUpdaterMap implements AutoCloseable, Iterable<IndexUpdater>
     private final IndexUpdateMode indexUpdateMode;
     private final IndexMap indexMap;
     private final Map<IndexDescriptor, IndexUpdater> updaterMap;
+    private final IndexUpdateSketches sketches;
 
     public IndexUpdaterMap( IndexMap indexMap, IndexUpdateMode indexUpdateMode )
+    {
+        this( indexMap, indexUpdateMode, null );
+    }
+
+    /**
+     * @param sketches sketches to summarize the updates of all updaters in, for incremental index sampling,
+     * or {@code null} if updates are not sketched.
+     */
+    public IndexUpdaterMap( IndexMap indexMap, IndexUpdateMode indexUpdateMode, IndexUpdateSketches sketches )
     {
         this.indexUpdateMode = indexUpdateMode;
         this.indexMap = indexMap;
         this.updaterMap = new HashMap<>();
+        this.sketches = sketches;
     }
 
     public IndexUpdater getUpdater( IndexDescriptor descriptor )
@@ -65,6 +77,10 @@ public class IndexUpdaterMap implements AutoCloseable, Iterable<IndexUpdater>
             if ( null != indexProxy )
             {
                 updater = indexProxy.newUpdater( indexUpdateMode );
+                if ( sketches != null )
+                {
+                    updater = sketches.sketchingUpdater( descriptor, updater );
+                }
                 updaterMap.put( descriptor, updater );
             }
         }
@@ -25,6 +25,7 @@ import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingController;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingControllerFactory;
+import org.neo4j.kernel.impl.api.index.sampling.IndexUpdateSketches;
 import org.neo4j.kernel.impl.store.record.IndexRule;
 import org.neo4j.kernel.impl.util.JobScheduler;
 import org.neo4j.logging.LogProvider;
@@ -53,9 +54,10 @@ public class IndexingServiceFactory
 
         IndexSamplingConfig samplingConfig = new IndexSamplingConfig( config );
         MultiPopulatorFactory multiPopulatorFactory = MultiPopulatorFactory.forConfig( config );
-        IndexMapReference indexMapRef = new IndexMapReference();
-        IndexSamplingControllerFactory factory =
-                new IndexSamplingControllerFactory( samplingConfig, storeView, scheduler, tokenNameLookup, logProvider );
+        IndexUpdateSketches sketches = samplingConfig.incrementalSampling() ? new IndexUpdateSketches() : null;
+        IndexMapReference indexMapRef = new IndexMapReference( sketches );
+        IndexSamplingControllerFactory factory = new IndexSamplingControllerFactory( samplingConfig, storeView,
+                scheduler, tokenNameLookup, logProvider, sketches );
         IndexSamplingController indexSamplingController = factory.create( indexMapRef );
         IndexProxyCreator proxySetup = new IndexProxyCreator(
                 samplingConfig, storeView, providerMap, tokenNameLookup, logProvider);
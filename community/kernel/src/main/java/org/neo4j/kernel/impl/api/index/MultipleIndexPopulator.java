@@ -90,7 +90,7 @@ public class MultipleIndexPopulator implements IndexPopulator
     // Failed populations are removed from this list while iterating over it.
     private final List<IndexPopulation> populations = new CopyOnWriteArrayList<>();
 
-    private final IndexStoreView storeView;
+    protected final IndexStoreView storeView;
     private final LogProvider logProvider;
     protected final Log log;
 
@@ -150,13 +150,20 @@ public class MultipleIndexPopulator implements IndexPopulator
     }
 
     public StoreScan<IndexPopulationFailedKernelException> indexAllNodes()
+    {
+        return storeView.visitNodes( labelIdFilter(), propertyKeyIdFilter(), new NodePopulationVisitor(), null );
+    }
+
+    protected IntPredicate labelIdFilter()
     {
         int[] labelIds = labelIds();
-        int[] propertyKeyIds = propertyKeyIds();
-        IntPredicate labelIdFilter = (labelId) -> contains( labelIds, labelId );
-        IntPredicate propertyKeyIdFilter = (propertyKeyId) -> contains( propertyKeyIds, propertyKeyId );
+        return (labelId) -> contains( labelIds, labelId );
+    }
 
-        return storeView.visitNodes( labelIdFilter, propertyKeyIdFilter, new NodePopulationVisitor(), null );
+    protected IntPredicate propertyKeyIdFilter()
+    {
+        int[] propertyKeyIds = propertyKeyIds();
+        return (propertyKeyId) -> contains( propertyKeyIds, propertyKeyId );
     }
 
     /**
@@ -317,6 +324,18 @@ public class MultipleIndexPopulator implements IndexPopulator
     }
 
     private void populateFromQueueIfAvailable( long currentlyIndexedNodeId )
+    {
+        populateFromQueue( queue, currentlyIndexedNodeId );
+    }
+
+    /**
+     * Applies and removes all updates in the given queue, skipping updates of nodes that the scan feeding
+     * this populator has not reached yet since the scan will see their effects in the store anyway.
+     *
+     * @param queue updates to apply, only ever emptied by the calling thread.
+     * @param currentlyIndexedNodeId id of the node the scan is currently at.
+     */
+    protected void populateFromQueue( Queue<NodePropertyUpdate> queue, long currentlyIndexedNodeId )
     {
         if ( !queue.isEmpty() )
         {
@@ -337,7 +356,7 @@ public class MultipleIndexPopulator implements IndexPopulator
         }
     }
 
-    private void forEachPopulation( ThrowingConsumer<IndexPopulation,Exception> action )
+    protected void forEachPopulation( ThrowingConsumer<IndexPopulation,Exception> action )
     {
         for ( IndexPopulation population : populations )
         {
@@ -489,7 +508,7 @@ public class MultipleIndexPopulator implements IndexPopulator
             populator.add( updates );
         }
 
-        private boolean isApplicable( NodePropertyUpdate update )
+        boolean isApplicable( NodePropertyUpdate update )
         {
             return update.forLabel( descriptor.getLabelId() ) &&
                    update.getPropertyKeyId() == descriptor.getPropertyKeyId();
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index.sampling;
+
+import java.util.Arrays;
+
+/**
+ * A HyperLogLog sketch estimating the number of distinct 64-bit hashes added to it, using {@code 2^precision}
+ * one byte registers. The standard error of the estimate is about {@code 1.04 / sqrt(2^precision)}.
+ * <p>
+ * Not thread safe.
+ */
+class HyperLogLog
+{
+    private final int precision;
+    private final byte[] registers;
+
+    HyperLogLog( int precision )
+    {
+        if ( precision < 4 || precision > 18 )
+        {
+            throw new IllegalArgumentException( "Precision must be in [4, 18], not " + precision );
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    void add( long hash )
+    {
+        int index = (int) (hash >>> (Long.SIZE - precision));
+        // the marker bit bounds the rank when all remaining bits are zero
+        long remainder = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros( remainder ) + 1);
+        if ( rank > registers[index] )
+        {
+            registers[index] = rank;
+        }
+    }
+
+    long estimate()
+    {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for ( byte register : registers )
+        {
+            sum += 1.0 / (1L << register);
+            if ( register == 0 )
+            {
+                zeros++;
+            }
+        }
+        double estimate = alpha( m ) * m * m / sum;
+        if ( estimate <= 2.5 * m && zeros > 0 )
+        {
+            // linear counting is more accurate for small cardinalities
+            estimate = m * Math.log( (double) m / zeros );
+        }
+        return Math.round( estimate );
+    }
+
+    /**
+     * Adds all hashes added to the other sketch, which must have the same precision, to this one.
+     */
+    void addAll( HyperLogLog other )
+    {
+        if ( other.precision != precision )
+        {
+            throw new IllegalArgumentException( "Precision " + other.precision + " does not match " + precision );
+        }
+        for ( int i = 0; i < registers.length; i++ )
+        {
+            if ( other.registers[i] > registers[i] )
+            {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    void clear()
+    {
+        Arrays.fill( registers, (byte) 0 );
+    }
+
+    private static double alpha( int m )
+    {
+        switch ( m )
+        {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index.sampling;
+
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.impl.api.index.IndexProxy;
+import org.neo4j.kernel.impl.api.index.IndexStoreView;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.LogProvider;
+import org.neo4j.register.Register.DoubleLongRegister;
+import org.neo4j.storageengine.api.schema.IndexSample;
+
+import static java.lang.String.format;
+import static org.neo4j.kernel.api.index.InternalIndexState.ONLINE;
+import static org.neo4j.register.Registers.newDoubleLongRegister;
+
+/**
+ * Samples an index by estimating the sample from the {@link IndexUpdateSketch sketch} of its updates since the last
+ * stored sample, falling back to a full sample when the sketch can't tell.
+ */
+class IncrementalIndexSamplingJob implements IndexSamplingJob
+{
+    private final IndexDescriptor indexDescriptor;
+    private final IndexProxy indexProxy;
+    private final IndexStoreView storeView;
+    private final IndexUpdateSketch sketch;
+    private final IndexSamplingJob fullSampling;
+    private final Log log;
+    private final String indexUserDescription;
+
+    IncrementalIndexSamplingJob( IndexProxy indexProxy, IndexStoreView storeView, IndexUpdateSketch sketch,
+            IndexSamplingJob fullSampling, String indexUserDescription, LogProvider logProvider )
+    {
+        this.indexDescriptor = indexProxy.getDescriptor();
+        this.indexProxy = indexProxy;
+        this.storeView = storeView;
+        this.sketch = sketch;
+        this.fullSampling = fullSampling;
+        this.log = logProvider.getLog( getClass() );
+        this.indexUserDescription = indexUserDescription;
+    }
+
+    @Override
+    public IndexDescriptor descriptor()
+    {
+        return indexDescriptor;
+    }
+
+    @Override
+    public void run()
+    {
+        IndexSample sample = indexProxy.getState() == ONLINE
+                             ? sketch.estimate( storedSample(), indexProxy.config().isUnique() )
+                             : null;
+        if ( sample == null )
+        {
+            fullSampling.run();
+            return;
+        }
+
+        storeView.replaceIndexCounts( indexDescriptor, sample.uniqueValues(), sample.sampleSize(),
+                sample.indexSize() );
+        log.info( format( "Incrementally sampled index %s with an estimate of %d unique values among %d entries",
+                indexUserDescription, sample.uniqueValues(), sample.indexSize() ) );
+    }
+
+    private IndexSample storedSample()
+    {
+        DoubleLongRegister register = newDoubleLongRegister();
+        storeView.indexSample( indexDescriptor, register );
+        long uniqueValues = register.readFirst();
+        long sampleSize = register.readSecond();
+        storeView.indexUpdatesAndSize( indexDescriptor, register );
+        long indexSize = register.readSecond();
+        return new IndexSample( indexSize, uniqueValues, sampleSize );
+    }
+}
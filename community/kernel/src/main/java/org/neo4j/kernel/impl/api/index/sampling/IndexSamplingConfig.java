@@ -27,12 +27,14 @@ public class IndexSamplingConfig
     private final int sampleSizeLimit;
     private final double updateRatio;
     private final boolean backgroundSampling;
+    private final boolean incrementalSampling;
 
     public IndexSamplingConfig( Config config )
     {
         this.sampleSizeLimit = config.get( GraphDatabaseSettings.index_sample_size_limit );
         this.updateRatio = ((double) config.get( GraphDatabaseSettings.index_sampling_update_percentage )) / 100.0d;
         this.backgroundSampling = config.get( GraphDatabaseSettings.index_background_sampling_enabled );
+        this.incrementalSampling = config.get( GraphDatabaseSettings.index_sampling_incremental_enabled );
     }
 
     public int sampleSizeLimit()
@@ -55,6 +57,11 @@ public class IndexSamplingConfig
         return backgroundSampling;
     }
 
+    public boolean incrementalSampling()
+    {
+        return incrementalSampling;
+    }
+
     @Override
     public boolean equals( Object o )
     {
@@ -71,6 +78,7 @@ public class IndexSamplingConfig
         IndexSamplingConfig that = (IndexSamplingConfig) o;
 
         return backgroundSampling == that.backgroundSampling &&
+               incrementalSampling == that.incrementalSampling &&
                sampleSizeLimit == that.sampleSizeLimit &&
                Double.compare( that.updateRatio, updateRatio ) == 0;
     }
@@ -82,6 +90,7 @@ public class IndexSamplingConfig
         long temp = Double.doubleToLongBits( updateRatio );
         result = 31 * result + (int) (temp ^ (temp >>> 32));
         result = 31 * result + (backgroundSampling ? 1 : 0);
+        result = 31 * result + (incrementalSampling ? 1 : 0);
         return result;
     }
 }
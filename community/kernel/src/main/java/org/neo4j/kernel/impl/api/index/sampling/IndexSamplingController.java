@@ -46,6 +46,7 @@ public class IndexSamplingController
     private final JobScheduler scheduler;
     private final Predicate<IndexDescriptor> indexRecoveryCondition;
     private final boolean backgroundSampling;
+    private final IndexUpdateSketches sketches;
     private final Lock samplingLock = new ReentrantLock( true );
 
     private JobHandle backgroundSamplingHandle;
@@ -59,6 +60,20 @@ public class IndexSamplingController
                              JobScheduler scheduler,
                              Predicate<IndexDescriptor> indexRecoveryCondition )
     {
+        this( config, jobFactory, jobQueue, jobTracker, indexMapSnapshotProvider, scheduler, indexRecoveryCondition,
+                null );
+    }
+
+    IndexSamplingController( IndexSamplingConfig config,
+                             IndexSamplingJobFactory jobFactory,
+                             IndexSamplingJobQueue<IndexDescriptor> jobQueue,
+                             IndexSamplingJobTracker jobTracker,
+                             IndexMapSnapshotProvider indexMapSnapshotProvider,
+                             JobScheduler scheduler,
+                             Predicate<IndexDescriptor> indexRecoveryCondition,
+                             IndexUpdateSketches sketches )
+    {
+        this.sketches = sketches;
         this.backgroundSampling = config.backgroundSampling();
         this.jobFactory = jobFactory;
         this.indexMapSnapshotProvider = indexMapSnapshotProvider;
@@ -71,6 +86,10 @@ public class IndexSamplingController
     public void sampleIndexes( IndexSamplingMode mode )
     {
         IndexMap indexMap = indexMapSnapshotProvider.indexMapSnapshot();
+        if ( !mode.sampleOnlyIfUpdated && sketches != null )
+        {
+            indexMap.descriptors().forEachRemaining( sketches::discard );
+        }
         jobQueue.addAll( !mode.sampleOnlyIfUpdated, indexMap.descriptors() );
         scheduleSampling( mode, indexMap );
     }
@@ -78,6 +97,11 @@ public class IndexSamplingController
     public void sampleIndex( IndexDescriptor descriptor, IndexSamplingMode mode )
     {
         IndexMap indexMap = indexMapSnapshotProvider.indexMapSnapshot();
+        if ( !mode.sampleOnlyIfUpdated && sketches != null )
+        {
+            // a forced resample reads the whole index rather than trusting the sketch of its updates
+            sketches.discard( descriptor );
+        }
         jobQueue.add( !mode.sampleOnlyIfUpdated, descriptor );
         scheduleSampling( mode, indexMap );
     }
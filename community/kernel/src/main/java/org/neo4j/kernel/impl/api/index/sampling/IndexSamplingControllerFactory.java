@@ -39,28 +39,37 @@ public class IndexSamplingControllerFactory
     private final JobScheduler scheduler;
     private final TokenNameLookup tokenNameLookup;
     private final LogProvider logProvider;
+    private final IndexUpdateSketches sketches;
 
     public IndexSamplingControllerFactory( IndexSamplingConfig config, IndexStoreView storeView,
                                            JobScheduler scheduler, TokenNameLookup tokenNameLookup,
                                            LogProvider logProvider )
+    {
+        this( config, storeView, scheduler, tokenNameLookup, logProvider, null );
+    }
+
+    public IndexSamplingControllerFactory( IndexSamplingConfig config, IndexStoreView storeView,
+                                           JobScheduler scheduler, TokenNameLookup tokenNameLookup,
+                                           LogProvider logProvider, IndexUpdateSketches sketches )
     {
         this.config = config;
         this.storeView = storeView;
         this.scheduler = scheduler;
         this.tokenNameLookup = tokenNameLookup;
         this.logProvider = logProvider;
+        this.sketches = sketches;
     }
 
     public IndexSamplingController create( IndexMapSnapshotProvider snapshotProvider )
     {
         OnlineIndexSamplingJobFactory jobFactory =
-                new OnlineIndexSamplingJobFactory( storeView, tokenNameLookup, logProvider );
+                new OnlineIndexSamplingJobFactory( storeView, tokenNameLookup, logProvider, sketches );
         Predicate<IndexDescriptor> samplingUpdatePredicate = createSamplingPredicate();
         IndexSamplingJobQueue<IndexDescriptor> jobQueue = new IndexSamplingJobQueue<>( samplingUpdatePredicate );
         IndexSamplingJobTracker jobTracker = new IndexSamplingJobTracker( config, scheduler );
         Predicate<IndexDescriptor> indexRecoveryCondition = createIndexRecoveryCondition( logProvider, tokenNameLookup );
         return new IndexSamplingController(
-                config, jobFactory, jobQueue, jobTracker, snapshotProvider, scheduler, indexRecoveryCondition
+                config, jobFactory, jobQueue, jobTracker, snapshotProvider, scheduler, indexRecoveryCondition, sketches
         );
     }
 
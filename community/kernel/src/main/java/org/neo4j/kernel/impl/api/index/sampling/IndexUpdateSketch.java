@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index.sampling;
+
+import java.lang.reflect.Array;
+
+import org.neo4j.storageengine.api.schema.IndexSample;
+
+/**
+ * Summarizes the committed updates of a single index since its sample was last stored in the counts store: the
+ * number of added and removed entries and a {@link HyperLogLog} of the added values. Together with the stored sample
+ * this is enough to estimate a fresh sample without reading the index, see {@link #estimate(IndexSample, boolean)}.
+ * <p>
+ * A sketch only knows about the updates since it was {@link #seed(IndexSample) seeded} with a sample taken from the
+ * whole index, which means that the first sample of an index after startup has to be a full one. Updates that are
+ * committed while such a sample is being taken, between {@link #beginSeeding()} and {@link #seed(IndexSample)}, are
+ * set aside and summarized on top of the new sample, since the sample may not have seen them.
+ */
+class IndexUpdateSketch
+{
+    private static final int PRECISION = 14;
+
+    private final Updates updates = new Updates();
+    private final Updates updatesWhileSeeding = new Updates();
+    private boolean seeding;
+    private IndexSample baseline;
+
+    synchronized void include( long[] valueHashes, int count, long additions, long removals )
+    {
+        (seeding ? updatesWhileSeeding : updates).include( valueHashes, count, additions, removals );
+    }
+
+    /**
+     * Sets aside updates included from now on, until the sample that is about to be taken from the whole index is
+     * {@link #seed(IndexSample) seeded}, or until {@link #endSeeding() seeding ends} without a sample.
+     */
+    synchronized void beginSeeding()
+    {
+        seeding = true;
+    }
+
+    /**
+     * Starts summarizing updates on top of the given sample, taken from the whole index, including the updates set
+     * aside since {@link #beginSeeding()}.
+     */
+    synchronized void seed( IndexSample sample )
+    {
+        updates.clear();
+        baseline = sample;
+        endSeeding();
+    }
+
+    /**
+     * Stops setting updates aside and summarizes the ones set aside so far, which is all there is to do if the
+     * sample that was being taken turned out not to be stored. Does nothing if not seeding.
+     */
+    synchronized void endSeeding()
+    {
+        if ( seeding )
+        {
+            updates.addAll( updatesWhileSeeding );
+            updatesWhileSeeding.clear();
+            seeding = false;
+        }
+    }
+
+    /**
+     * Estimates the current sample of the index from the given stored sample and the updates summarized since, and
+     * continues summarizing on top of the estimate. Removed entries are assumed to take a proportional share of the
+     * distinct values with them, while distinct added values are assumed to be new to the index.
+     *
+     * @param stored the sample currently in the counts store.
+     * @param unique whether the index is a unique one, where all values are distinct.
+     * @return the estimated sample, or {@code null} if a full sample is needed since the stored sample is not the one
+     * this sketch was seeded with or more entries have been updated than there were in the index.
+     */
+    synchronized IndexSample estimate( IndexSample stored, boolean unique )
+    {
+        if ( baseline == null || !baseline.equals( stored ) ||
+             updates.additions + updates.removals > stored.indexSize() )
+        {
+            return null;
+        }
+
+        long retained = stored.indexSize() - updates.removals;
+        long indexSize = retained + updates.additions;
+        long uniqueValues;
+        if ( unique )
+        {
+            uniqueValues = indexSize;
+        }
+        else
+        {
+            double selectivity = stored.sampleSize() == 0 ? 0 : (double) stored.uniqueValues() / stored.sampleSize();
+            long estimatedUniqueValues = Math.round( selectivity * retained ) + updates.addedValues.estimate();
+            uniqueValues = Math.min( indexSize, estimatedUniqueValues );
+        }
+
+        IndexSample sample = new IndexSample( indexSize, uniqueValues, indexSize );
+        updates.clear();
+        baseline = sample;
+        return sample;
+    }
+
+    synchronized void discard()
+    {
+        updates.clear();
+        baseline = null;
+    }
+
+    /**
+     * Hashes property values such that values considered equal by indexes, like numbers of different types with
+     * the same numeric value, get the same hash.
+     */
+    static long hash( Object value )
+    {
+        long hash;
+        if ( value instanceof Number )
+        {
+            // adding 0.0 turns -0.0 into 0.0
+            hash = Double.doubleToLongBits( ((Number) value).doubleValue() + 0.0 );
+        }
+        else if ( value instanceof String || value instanceof Character )
+        {
+            hash = hash( value.toString() );
+        }
+        else if ( value instanceof Boolean )
+        {
+            hash = (Boolean) value ? 1231 : 1237;
+        }
+        else if ( value != null && value.getClass().isArray() )
+        {
+            hash = 1;
+            for ( int i = 0, length = Array.getLength( value ); i < length; i++ )
+            {
+                hash = 31 * hash + hash( Array.get( value, i ) );
+            }
+        }
+        else
+        {
+            hash = value == null ? 0 : value.hashCode();
+        }
+        return mix( hash );
+    }
+
+    private static long hash( String value )
+    {
+        // FNV-1a, since the 32 bits of String#hashCode collide too often for large indexes
+        long hash = 0xcbf29ce484222325L;
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            hash ^= value.charAt( i );
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix( long hash )
+    {
+        // finalizer of MurmurHash3, spreading the bits over the whole hash as HyperLogLog requires
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static class Updates
+    {
+        private final HyperLogLog addedValues = new HyperLogLog( PRECISION );
+        private long additions;
+        private long removals;
+
+        void include( long[] valueHashes, int count, long additions, long removals )
+        {
+            for ( int i = 0; i < count; i++ )
+            {
+                addedValues.add( valueHashes[i] );
+            }
+            this.additions += additions;
+            this.removals += removals;
+        }
+
+        void addAll( Updates other )
+        {
+            addedValues.addAll( other.addedValues );
+            additions += other.additions;
+            removals += other.removals;
+        }
+
+        void clear()
+        {
+            addedValues.clear();
+            additions = 0;
+            removals = 0;
+        }
+    }
+}
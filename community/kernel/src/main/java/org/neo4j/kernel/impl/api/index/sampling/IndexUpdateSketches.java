@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index.sampling;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexUpdater;
+
+/**
+ * Sketches of the committed updates of each index, used for incremental index sampling. Updaters of all indexes
+ * are wrapped using {@link #sketchingUpdater(IndexDescriptor, IndexUpdater)} so that every committed update is
+ * summarized, and sampling jobs then estimate samples from the sketches instead of reading whole indexes.
+ */
+public class IndexUpdateSketches
+{
+    private final ConcurrentMap<IndexDescriptor,IndexUpdateSketch> sketches = new ConcurrentHashMap<>();
+
+    public IndexUpdater sketchingUpdater( IndexDescriptor descriptor, IndexUpdater updater )
+    {
+        return new SketchingIndexUpdater( sketchFor( descriptor ), updater );
+    }
+
+    /**
+     * Forgets what is known about the updates of the given index, making its next sample a full one.
+     */
+    public void discard( IndexDescriptor descriptor )
+    {
+        IndexUpdateSketch sketch = sketches.get( descriptor );
+        if ( sketch != null )
+        {
+            sketch.discard();
+        }
+    }
+
+    IndexUpdateSketch sketchFor( IndexDescriptor descriptor )
+    {
+        return sketches.computeIfAbsent( descriptor, key -> new IndexUpdateSketch() );
+    }
+}
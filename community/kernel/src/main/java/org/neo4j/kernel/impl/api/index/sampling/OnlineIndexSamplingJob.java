@@ -38,6 +38,7 @@ class OnlineIndexSamplingJob implements IndexSamplingJob
     private final IndexDescriptor indexDescriptor;
     private final IndexProxy indexProxy;
     private final IndexStoreView storeView;
+    private final IndexUpdateSketch sketch;
     private final Log log;
     private final String indexUserDescription;
 
@@ -45,10 +46,23 @@ class OnlineIndexSamplingJob implements IndexSamplingJob
             IndexStoreView storeView,
             String indexUserDescription,
             LogProvider logProvider )
+    {
+        this( indexProxy, storeView, null, indexUserDescription, logProvider );
+    }
+
+    /**
+     * @param sketch the sketch of updates to seed with the sample, or {@code null} if updates are not sketched.
+     */
+    OnlineIndexSamplingJob( IndexProxy indexProxy,
+            IndexStoreView storeView,
+            IndexUpdateSketch sketch,
+            String indexUserDescription,
+            LogProvider logProvider )
     {
         this.indexDescriptor = indexProxy.getDescriptor();
         this.indexProxy = indexProxy;
         this.storeView = storeView;
+        this.sketch = sketch;
         this.log = logProvider.getLog( getClass() );
         this.indexUserDescription = indexUserDescription;
     }
@@ -66,6 +80,10 @@ class OnlineIndexSamplingJob implements IndexSamplingJob
         {
             try
             {
+                if ( sketch != null )
+                {
+                    sketch.beginSeeding();
+                }
                 try ( IndexReader reader = indexProxy.newReader() )
                 {
                     IndexSampler sampler = reader.createSampler();
@@ -76,6 +94,10 @@ class OnlineIndexSamplingJob implements IndexSamplingJob
                     {
                         storeView.replaceIndexCounts( indexDescriptor, sample.uniqueValues(), sample.sampleSize(),
                                 sample.indexSize() );
+                        if ( sketch != null )
+                        {
+                            sketch.seed( sample );
+                        }
                         durationLogger.markAsFinished();
                         log.info(
                                 format( "Sampled index %s with %d unique values in sample of avg size %d taken from " +
@@ -94,6 +116,13 @@ class OnlineIndexSamplingJob implements IndexSamplingJob
                 durationLogger.markAsAborted(
                         "Attempted to sample missing/already deleted index " + indexUserDescription );
             }
+            finally
+            {
+                if ( sketch != null )
+                {
+                    sketch.endSeeding();
+                }
+            }
         }
     }
 
@@ -29,18 +29,39 @@ public class OnlineIndexSamplingJobFactory implements IndexSamplingJobFactory
     private final IndexStoreView storeView;
     private final LogProvider logProvider;
     private final TokenNameLookup nameLookup;
+    private final IndexUpdateSketches sketches;
 
     public OnlineIndexSamplingJobFactory( IndexStoreView storeView, TokenNameLookup nameLookup, LogProvider logProvider )
+    {
+        this( storeView, nameLookup, logProvider, null );
+    }
+
+    /**
+     * @param sketches sketches of index updates to sample incrementally from, or {@code null} to always
+     * sample whole indexes.
+     */
+    public OnlineIndexSamplingJobFactory( IndexStoreView storeView, TokenNameLookup nameLookup,
+            LogProvider logProvider, IndexUpdateSketches sketches )
     {
         this.storeView = storeView;
         this.logProvider = logProvider;
         this.nameLookup = nameLookup;
+        this.sketches = sketches;
     }
 
     @Override
     public IndexSamplingJob create( IndexProxy indexProxy )
     {
         final String indexUserDescription = indexProxy.getDescriptor().userDescription( nameLookup );
-        return new OnlineIndexSamplingJob( indexProxy, storeView, indexUserDescription, logProvider );
+        if ( sketches == null )
+        {
+            return new OnlineIndexSamplingJob( indexProxy, storeView, indexUserDescription, logProvider );
+        }
+
+        IndexUpdateSketch sketch = sketches.sketchFor( indexProxy.getDescriptor() );
+        IndexSamplingJob fullSampling =
+                new OnlineIndexSamplingJob( indexProxy, storeView, sketch, indexUserDescription, logProvider );
+        return new IncrementalIndexSamplingJob( indexProxy, storeView, sketch, fullSampling, indexUserDescription,
+                logProvider );
     }
 }
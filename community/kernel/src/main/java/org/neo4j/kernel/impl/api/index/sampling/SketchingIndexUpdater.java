@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index.sampling;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+import org.neo4j.kernel.impl.api.index.updater.DelegatingIndexUpdater;
+
+/**
+ * Collects the updates going through it and includes them in an {@link IndexUpdateSketch} when closed, so that the
+ * sketch is only synchronized on once per updater.
+ */
+class SketchingIndexUpdater extends DelegatingIndexUpdater
+{
+    private final IndexUpdateSketch sketch;
+    private long[] valueHashes = new long[8];
+    private int count;
+    private long additions;
+    private long removals;
+
+    SketchingIndexUpdater( IndexUpdateSketch sketch, IndexUpdater delegate )
+    {
+        super( delegate );
+        this.sketch = sketch;
+    }
+
+    @Override
+    public void process( NodePropertyUpdate update ) throws IOException, IndexEntryConflictException
+    {
+        delegate.process( update );
+        switch ( update.getUpdateMode() )
+        {
+            case ADDED:
+                added( update.getValueAfter() );
+                break;
+            case CHANGED:
+                removals++;
+                added( update.getValueAfter() );
+                break;
+            case REMOVED:
+                removals++;
+                break;
+            default:
+                throw new IllegalStateException( "Unknown update mode " + update.getUpdateMode() );
+        }
+    }
+
+    @Override
+    public void remove( PrimitiveLongSet nodeIds ) throws IOException
+    {
+        delegate.remove( nodeIds );
+        removals += nodeIds.size();
+    }
+
+    @Override
+    public void close() throws IOException, IndexEntryConflictException
+    {
+        delegate.close();
+        sketch.include( valueHashes, count, additions, removals );
+    }
+
+    private void added( Object value )
+    {
+        if ( count == valueHashes.length )
+        {
+            valueHashes = Arrays.copyOf( valueHashes, count * 2 );
+        }
+        valueHashes[count++] = IndexUpdateSketch.hash( value );
+        additions++;
+    }
+}
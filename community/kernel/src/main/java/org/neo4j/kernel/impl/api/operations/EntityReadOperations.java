@@ -30,6 +30,7 @@ import org.neo4j.kernel.impl.api.KernelStatement;
 import org.neo4j.kernel.impl.api.RelationshipVisitor;
 import org.neo4j.storageengine.api.NodeItem;
 import org.neo4j.storageengine.api.RelationshipItem;
+import org.neo4j.storageengine.api.schema.IndexOrder;
 
 public interface EntityReadOperations
 {
@@ -73,6 +74,14 @@ public interface EntityReadOperations
             boolean includeUpper )
             throws IndexNotFoundKernelException;
 
+    /**
+     * Returns which range seeks of the index return nodes in value order.
+     *
+     * @throws IndexNotFoundKernelException if no such index found.
+     */
+    IndexOrder indexGetRangeSeekOrder( KernelStatement state, IndexDescriptor index )
+            throws IndexNotFoundKernelException;
+
     /**
      * Returns an iterable with the matched nodes.
      *
@@ -19,6 +19,9 @@
  */
 package org.neo4j.kernel.impl.api.state;
 
+import java.util.Set;
+import java.util.function.Supplier;
+
 import org.neo4j.kernel.api.constraints.NodePropertyConstraint;
 import org.neo4j.kernel.api.index.IndexDescriptor;
 import org.neo4j.kernel.impl.util.diffsets.DiffSets;
@@ -71,11 +74,11 @@ public abstract class LabelState
             return ReadableDiffSets.Empty.ifNull( nodeDiffSets );
         }
 
-        public DiffSets<Long> getOrCreateNodeDiffSets()
+        public DiffSets<Long> getOrCreateNodeDiffSets( Supplier<Set<Long>> nodeIdSets )
         {
             if ( nodeDiffSets == null )
             {
-                nodeDiffSets = new DiffSets<>();
+                nodeDiffSets = new DiffSets<>( nodeIdSets );
             }
             return nodeDiffSets;
         }
@@ -19,12 +19,15 @@
  */
 package org.neo4j.kernel.impl.api.state;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
@@ -57,8 +60,10 @@ import org.neo4j.kernel.impl.api.cursor.TxSinglePropertyCursor;
 import org.neo4j.kernel.impl.api.cursor.TxSingleRelationshipCursor;
 import org.neo4j.kernel.impl.api.store.RelationshipIterator;
 import org.neo4j.kernel.impl.util.InstanceCache;
+import org.neo4j.kernel.impl.util.VersionedHashMap;
 import org.neo4j.kernel.impl.util.diffsets.DiffSets;
 import org.neo4j.kernel.impl.util.diffsets.RelationshipDiffSets;
+import org.neo4j.kernel.impl.util.diffsets.SpillingLongSet;
 import org.neo4j.storageengine.api.Direction;
 import org.neo4j.storageengine.api.LabelItem;
 import org.neo4j.storageengine.api.NodeItem;
@@ -74,6 +79,7 @@ import org.neo4j.storageengine.api.txstate.ReadableTransactionState;
 import org.neo4j.storageengine.api.txstate.RelationshipState;
 import org.neo4j.storageengine.api.txstate.TxStateVisitor;
 
+import static java.util.Collections.newSetFromMap;
 import static org.neo4j.collection.primitive.PrimitiveLongCollections.toPrimitiveIterator;
 import static org.neo4j.helpers.collection.Iterables.map;
 import static org.neo4j.kernel.api.properties.Property.numberProperty;
@@ -90,6 +96,11 @@ import static org.neo4j.kernel.impl.api.PropertyValueComparison.SuperType.STRING
  * This class is very large, as it has been used as a gathering point to consolidate all transaction state knowledge
  * into one component. Now that that work is done, this class should be refactored to increase transparency in how it
  * works.
+ * <p>
+ * Given an off-heap threshold, the sets of node and relationship ids that can grow as large as the transaction itself,
+ * i.e. created and deleted entities and nodes with added or removed labels, are
+ * {@link SpillingLongSet spilled} to off-heap memory once they hold more ids than that. This memory is released
+ * in {@link #close()}.
  */
 public final class TxState implements TransactionState, RelationshipVisitor.Home
 {
@@ -164,6 +175,9 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     private PrimitiveLongSet nodesDeletedInTx;
     private PrimitiveLongSet relationshipsDeletedInTx;
 
+    // Nodes whose relationship chains are to be relinked in record id order when this transaction commits
+    private PrimitiveLongSet nodesWithOrderedRelationshipChains;
+
     private Map<UniquenessConstraint, Long> createdConstraintIndexesByConstraint;
 
     private PrimitiveIntObjectMap<Map<DefinedProperty, DiffSets<Long>>> indexUpdates;
@@ -180,8 +194,22 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
 
     private boolean hasChanges, hasDataChanges;
 
+    private final int offHeapThreshold;
+    private final Supplier<Set<Long>> idSets = this::newIdSet;
+    private List<SpillingLongSet> spillingIdSets;
+
     public TxState()
     {
+        this( 0 );
+    }
+
+    /**
+     * @param offHeapThreshold number of ids a set of node or relationship ids can hold before it moves them to
+     * off-heap memory, or {@code 0} to keep all state on heap.
+     */
+    public TxState( int offHeapThreshold )
+    {
+        this.offHeapThreshold = offHeapThreshold;
         singleNodeCursor = new InstanceCache<TxSingleNodeCursor>()
         {
             @Override
@@ -274,6 +302,15 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
             nodes.accept( deletedNodesVisitor( visitor ) );
         }
 
+        if ( nodesWithOrderedRelationshipChains != null )
+        {
+            PrimitiveLongIterator nodeIds = nodesWithOrderedRelationshipChains.iterator();
+            while ( nodeIds.hasNext() )
+            {
+                visitor.visitOrderedRelationshipChains( nodeIds.next() );
+            }
+        }
+
         for ( NodeState node : modifiedNodes() )
         {
             node.accept( nodeVisitor( visitor ) );
@@ -509,7 +546,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
 
     private DiffSets<Long> getOrCreateLabelStateNodeDiffSets( int labelId )
     {
-        return LABEL_STATE.getOrCreate( this, labelId ).getOrCreateNodeDiffSets();
+        return LABEL_STATE.getOrCreate( this, labelId ).getOrCreateNodeDiffSets( idSets );
     }
 
     @Override
@@ -756,6 +793,18 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
         dataChanged();
     }
 
+    @Override
+    public void nodeDoOrderRelationshipChains( long nodeId )
+    {
+        if ( nodesWithOrderedRelationshipChains == null )
+        {
+            nodesWithOrderedRelationshipChains = Primitive.longSet();
+        }
+        nodesWithOrderedRelationshipChains.add( nodeId );
+        // Only the linkage of the records changes, which is not a change to the data of the graph
+        changed();
+    }
+
     @Override
     public void labelDoCreateForName( String labelName, int id )
     {
@@ -999,7 +1048,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     {
         if ( nodes == null )
         {
-            nodes = new DiffSets<>();
+            nodes = new DiffSets<>( idSets );
         }
         return nodes;
     }
@@ -1032,7 +1081,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     {
         if ( relationships == null )
         {
-            relationships = new RelationshipDiffSets<>( this );
+            relationships = new RelationshipDiffSets<>( this, idSets );
         }
         return relationships;
     }
@@ -1544,6 +1593,65 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
         return hasDataChanges;
     }
 
+    /**
+     * @return the number of entries tracking created, deleted and modified nodes and relationships in this state.
+     */
+    public long changedEntityCount()
+    {
+        return (nodes == null ? 0 : nodes.getAdded().size() + nodes.getRemoved().size()) +
+               (relationships == null ? 0 : relationships.getAdded().size() + relationships.getRemoved().size()) +
+               (nodeStatesMap == null ? 0 : nodeStatesMap.size()) +
+               (relationshipStatesMap == null ? 0 : relationshipStatesMap.size());
+    }
+
+    /**
+     * @return whether or not any part of this state has been moved to off-heap memory.
+     */
+    public boolean isOffHeap()
+    {
+        if ( spillingIdSets != null )
+        {
+            for ( SpillingLongSet set : spillingIdSets )
+            {
+                if ( set.isOffHeap() )
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Releases any off-heap memory held by this state. The state must not be used after this call.
+     */
+    public void close()
+    {
+        if ( spillingIdSets != null )
+        {
+            for ( SpillingLongSet set : spillingIdSets )
+            {
+                set.close();
+            }
+            spillingIdSets = null;
+        }
+    }
+
+    private Set<Long> newIdSet()
+    {
+        if ( offHeapThreshold == 0 )
+        {
+            return newSetFromMap( new VersionedHashMap<>() );
+        }
+        if ( spillingIdSets == null )
+        {
+            spillingIdSets = new ArrayList<>();
+        }
+        SpillingLongSet set = new SpillingLongSet( offHeapThreshold );
+        spillingIdSets.add( set );
+        return set;
+    }
+
     private void recordNodeDeleted( long id )
     {
         if ( nodesDeletedInTx == null )
@@ -25,6 +25,7 @@ import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.graphdb.Resource;
 import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.RecordCursor;
 import org.neo4j.kernel.impl.store.RecordCursors;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 
@@ -37,6 +38,7 @@ import static org.neo4j.kernel.impl.store.record.RecordLoad.CHECK;
 public class StoreIteratorNodeCursor extends StoreAbstractNodeCursor
 {
     private PrimitiveLongIterator iterator;
+    private RecordCursor<NodeRecord> recordCursor;
     private final Consumer<StoreIteratorNodeCursor> instanceCache;
 
     public StoreIteratorNodeCursor( NodeRecord nodeRecord,
@@ -51,8 +53,19 @@ public class StoreIteratorNodeCursor extends StoreAbstractNodeCursor
     }
 
     public StoreIteratorNodeCursor init( PrimitiveLongIterator iterator )
+    {
+        return init( iterator, cursors.node() );
+    }
+
+    /**
+     * @param iterator the node ids to read.
+     * @param recordCursor the cursor to read the node records with, for instance one that reads ahead when the ids
+     * are known to come in increasing order.
+     */
+    public StoreIteratorNodeCursor init( PrimitiveLongIterator iterator, RecordCursor<NodeRecord> recordCursor )
     {
         this.iterator = iterator;
+        this.recordCursor = recordCursor;
         return this;
     }
 
@@ -61,7 +74,7 @@ public class StoreIteratorNodeCursor extends StoreAbstractNodeCursor
     {
         while ( iterator != null && iterator.hasNext() )
         {
-            if ( cursors.node().next( iterator.next(), nodeRecord, CHECK ) )
+            if ( recordCursor.next( iterator.next(), nodeRecord, CHECK ) )
             {
                 return true;
             }
@@ -78,6 +91,7 @@ public class StoreIteratorNodeCursor extends StoreAbstractNodeCursor
             ((Resource) iterator).close();
         }
         iterator = null;
+        recordCursor = null;
 
         instanceCache.accept( this );
     }
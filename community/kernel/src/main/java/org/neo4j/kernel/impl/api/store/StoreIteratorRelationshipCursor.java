@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.api.store;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.graphdb.Resource;
 import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.store.RecordCursor;
 import org.neo4j.kernel.impl.store.RecordCursors;
 import org.neo4j.kernel.impl.store.record.RelationshipRecord;
 import org.neo4j.kernel.impl.util.InstanceCache;
@@ -34,6 +35,7 @@ import static org.neo4j.kernel.impl.store.record.RecordLoad.CHECK;
 public class StoreIteratorRelationshipCursor extends StoreAbstractRelationshipCursor
 {
     private PrimitiveLongIterator iterator;
+    private RecordCursor<RelationshipRecord> recordCursor;
     private final InstanceCache<StoreIteratorRelationshipCursor> instanceCache;
 
     public StoreIteratorRelationshipCursor( RelationshipRecord relationshipRecord,
@@ -46,8 +48,20 @@ public class StoreIteratorRelationshipCursor extends StoreAbstractRelationshipCu
     }
 
     public StoreIteratorRelationshipCursor init( PrimitiveLongIterator iterator )
+    {
+        return init( iterator, relationshipRecordCursor );
+    }
+
+    /**
+     * @param iterator the relationship ids to read.
+     * @param recordCursor the cursor to read the relationship records with, for instance one that reads ahead when
+     * the ids are known to come in increasing order.
+     */
+    public StoreIteratorRelationshipCursor init( PrimitiveLongIterator iterator,
+            RecordCursor<RelationshipRecord> recordCursor )
     {
         this.iterator = iterator;
+        this.recordCursor = recordCursor;
         return this;
     }
 
@@ -56,7 +70,7 @@ public class StoreIteratorRelationshipCursor extends StoreAbstractRelationshipCu
     {
         while ( iterator != null && iterator.hasNext() )
         {
-            if ( relationshipRecordCursor.next( iterator.next(), relationshipRecord, CHECK ) )
+            if ( recordCursor.next( iterator.next(), relationshipRecord, CHECK ) )
             {
                 return true;
             }
@@ -73,6 +87,7 @@ public class StoreIteratorRelationshipCursor extends StoreAbstractRelationshipCu
             ((Resource) iterator).close();
         }
         iterator = null;
+        recordCursor = null;
 
         instanceCache.accept( this );
     }
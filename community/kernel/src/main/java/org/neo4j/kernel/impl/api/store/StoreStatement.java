@@ -153,13 +153,16 @@ public class StoreStatement implements StorageStatement
     @Override
     public Cursor<NodeItem> nodesGetAllCursor()
     {
-        return acquireIteratorNodeCursor( new AllStoreIdIterator( nodeStore ) );
+        neoStores.assertOpen();
+        return iteratorNodeCursor.get().init( new AllStoreIdIterator( nodeStore ), recordCursors.nodeScan() );
     }
 
     @Override
     public Cursor<RelationshipItem> relationshipsGetAllCursor()
     {
-        return acquireIteratorRelationshipCursor( new AllStoreIdIterator( relationshipStore ) );
+        neoStores.assertOpen();
+        return iteratorRelationshipCursor.get().init( new AllStoreIdIterator( relationshipStore ),
+                recordCursors.relationshipScan() );
     }
 
     @Override
@@ -28,4 +28,9 @@ public interface InternalTransaction extends Transaction
     KernelTransaction.Type transactionType();
     AccessMode mode();
     KernelTransaction.Revertable restrict( AccessMode mode );
+
+    /**
+     * @return {@code true} if the transaction has been {@link #terminate() terminated}, otherwise {@code false}.
+     */
+    boolean isTerminated();
 }
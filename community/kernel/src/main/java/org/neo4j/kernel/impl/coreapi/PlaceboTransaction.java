@@ -46,6 +46,12 @@ public class PlaceboTransaction implements InternalTransaction
         currentTransaction.get().markForTermination();
     }
 
+    @Override
+    public boolean isTerminated()
+    {
+        return currentTransaction.get().shouldBeTerminated();
+    }
+
     @Override
     public void failure()
     {
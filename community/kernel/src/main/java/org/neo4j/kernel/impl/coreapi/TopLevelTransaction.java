@@ -66,6 +66,12 @@ public class TopLevelTransaction implements InternalTransaction
         this.transaction.markForTermination();
     }
 
+    @Override
+    public boolean isTerminated()
+    {
+        return transaction.shouldBeTerminated();
+    }
+
     @Override
     public void close()
     {
@@ -190,13 +190,13 @@ public class CommunityEditionModule extends EditionModule
             String candidateId = candidate.getKeys().iterator().next();
             if ( candidateId.equals( key ) )
             {
-                return candidate.newInstance( ResourceTypes.values() );
+                return candidate.newInstance( config, ResourceTypes.values() );
             }
             else if ( key.equals( "" ) )
             {
                 logging.getInternalLog( CommunityEditionModule.class )
                         .info( "No locking implementation specified, defaulting to '" + candidateId + "'" );
-                return candidate.newInstance( ResourceTypes.values() );
+                return candidate.newInstance( config, ResourceTypes.values() );
             }
         }
 
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.labelscan;
+
+/**
+ * Value in a {@link NativeLabelScanStore} tree, a bit set of the {@link #RANGE_SIZE} nodes in the node id range
+ * of its {@link LabelScanKey}. Bit {@code i} is set if node {@code idRange * RANGE_SIZE + i} has the label.
+ */
+class LabelScanValue
+{
+    static final int RANGE_SIZE = Long.SIZE;
+    static final int RANGE_SIZE_BITS = 6;
+
+    long bits;
+
+    static long rangeOf( long nodeId )
+    {
+        return nodeId >>> RANGE_SIZE_BITS;
+    }
+
+    static long bitOf( long nodeId )
+    {
+        return 1L << (nodeId & (RANGE_SIZE - 1));
+    }
+
+    static long baseNodeId( long idRange )
+    {
+        return idRange << RANGE_SIZE_BITS;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[bits:" + Long.toBinaryString( bits ) + "]";
+    }
+}
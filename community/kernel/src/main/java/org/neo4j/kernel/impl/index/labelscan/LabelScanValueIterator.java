@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.labelscan;
+
+import java.io.IOException;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.gbptree.Hit;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+
+import static org.neo4j.kernel.impl.index.labelscan.LabelScanValue.baseNodeId;
+
+/**
+ * Iterates over the node ids in the bit sets of the hits of a {@link RawCursor} over a {@link NativeLabelScanStore}
+ * tree, i.e. over the nodes having one label, in ascending node id order.
+ */
+class LabelScanValueIterator extends PrimitiveLongCollections.PrimitiveLongBaseIterator
+{
+    private final RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor;
+    private long baseNodeId;
+    private long bits;
+
+    LabelScanValueIterator( RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor )
+    {
+        this.cursor = cursor;
+    }
+
+    @Override
+    protected boolean fetchNext()
+    {
+        while ( bits == 0 )
+        {
+            try
+            {
+                if ( !cursor.next() )
+                {
+                    cursor.close();
+                    return false;
+                }
+            }
+            catch ( IOException e )
+            {
+                throw new UnderlyingStorageException( e );
+            }
+            Hit<LabelScanKey,LabelScanValue> hit = cursor.get();
+            baseNodeId = baseNodeId( hit.key().idRange );
+            bits = hit.value().bits;
+        }
+
+        int delta = Long.numberOfTrailingZeros( bits );
+        bits &= bits - 1;
+        return next( baseNodeId + delta );
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.labelscan;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.helpers.collection.PrefetchingIterator;
+import org.neo4j.index.gbptree.GBPTree;
+import org.neo4j.index.gbptree.Hit;
+import org.neo4j.kernel.api.labelscan.AllEntriesLabelScanReader;
+import org.neo4j.kernel.api.labelscan.NodeLabelRange;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+
+import static org.neo4j.kernel.impl.index.labelscan.LabelScanValue.RANGE_SIZE;
+import static org.neo4j.kernel.impl.index.labelscan.LabelScanValue.baseNodeId;
+
+/**
+ * {@link AllEntriesLabelScanReader} of a {@link NativeLabelScanStore}, which goes through the entries of all labels
+ * side by side, one cursor per label, to produce {@link NodeLabelRange node label ranges} in ascending
+ * node id range order.
+ */
+class NativeAllEntriesLabelScanReader implements AllEntriesLabelScanReader
+{
+    private final GBPTree<LabelScanKey,LabelScanValue> index;
+    private final List<RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException>> cursors = new ArrayList<>();
+
+    NativeAllEntriesLabelScanReader( GBPTree<LabelScanKey,LabelScanValue> index )
+    {
+        this.index = index;
+    }
+
+    @Override
+    public long maxCount()
+    {
+        long highestRange = -1;
+        try
+        {
+            for ( int labelId : labelIds() )
+            {
+                try ( RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor = index.seek(
+                        new LabelScanKey().set( labelId, Long.MAX_VALUE ), new LabelScanKey().set( labelId, -1 ) ) )
+                {
+                    if ( cursor.next() )
+                    {
+                        highestRange = Math.max( highestRange, cursor.get().key().idRange );
+                    }
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+        return highestRange + 1;
+    }
+
+    @Override
+    public Iterator<NodeLabelRange> iterator()
+    {
+        try
+        {
+            int[] labelIds = labelIds();
+            LabelCursor[] labelCursors = new LabelCursor[labelIds.length];
+            for ( int i = 0; i < labelIds.length; i++ )
+            {
+                RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor = index.seek(
+                        new LabelScanKey().set( labelIds[i], 0 ), new LabelScanKey().set( labelIds[i] + 1, 0 ) );
+                cursors.add( cursor );
+                labelCursors[i] = new LabelCursor( labelIds[i], cursor );
+            }
+            return new RangeIterator( labelCursors );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
+    /**
+     * @return ids of all labels having at least one entry, in ascending order.
+     */
+    private int[] labelIds() throws IOException
+    {
+        int[] labelIds = new int[16];
+        int count = 0;
+        int labelId = 0;
+        while ( labelId >= 0 )
+        {
+            try ( RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor = index.seek(
+                    new LabelScanKey().set( labelId, 0 ), new LabelScanKey().set( Integer.MAX_VALUE, 0 ) ) )
+            {
+                if ( !cursor.next() )
+                {
+                    break;
+                }
+                if ( count == labelIds.length )
+                {
+                    labelIds = Arrays.copyOf( labelIds, count * 2 );
+                }
+                labelIds[count++] = cursor.get().key().labelId;
+                labelId = cursor.get().key().labelId + 1;
+            }
+        }
+        return Arrays.copyOf( labelIds, count );
+    }
+
+    @Override
+    public void close() throws Exception
+    {
+        for ( RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor : cursors )
+        {
+            cursor.close();
+        }
+        cursors.clear();
+    }
+
+    private static class LabelCursor
+    {
+        private final int labelId;
+        private final RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor;
+        private long idRange = -1;
+        private long bits;
+
+        LabelCursor( int labelId, RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor )
+        {
+            this.labelId = labelId;
+            this.cursor = cursor;
+        }
+
+        /**
+         * Moves to the next entry, if this cursor is at or before {@code idRange}.
+         *
+         * @return whether or not there are more entries.
+         */
+        boolean advancePast( long idRange ) throws IOException
+        {
+            if ( this.idRange > idRange )
+            {
+                return true;
+            }
+            if ( cursor.next() )
+            {
+                Hit<LabelScanKey,LabelScanValue> hit = cursor.get();
+                this.idRange = hit.key().idRange;
+                this.bits = hit.value().bits;
+                return true;
+            }
+            this.idRange = Long.MAX_VALUE;
+            return false;
+        }
+    }
+
+    private static class RangeIterator extends PrefetchingIterator<NodeLabelRange>
+    {
+        private final LabelCursor[] labelCursors;
+        private long previousRange = -1;
+
+        RangeIterator( LabelCursor[] labelCursors )
+        {
+            this.labelCursors = labelCursors;
+        }
+
+        @Override
+        protected NodeLabelRange fetchNextOrNull()
+        {
+            long idRange = Long.MAX_VALUE;
+            try
+            {
+                for ( LabelCursor labelCursor : labelCursors )
+                {
+                    labelCursor.advancePast( previousRange );
+                    idRange = Math.min( idRange, labelCursor.idRange );
+                }
+            }
+            catch ( IOException e )
+            {
+                throw new UnderlyingStorageException( e );
+            }
+            if ( idRange == Long.MAX_VALUE )
+            {
+                return null;
+            }
+            previousRange = idRange;
+
+            long[] labelIds = new long[labelCursors.length];
+            long[] labelBits = new long[labelCursors.length];
+            int labelCount = 0;
+            long allBits = 0;
+            for ( LabelCursor labelCursor : labelCursors )
+            {
+                if ( labelCursor.idRange == idRange )
+                {
+                    labelIds[labelCount] = labelCursor.labelId;
+                    labelBits[labelCount++] = labelCursor.bits;
+                    allBits |= labelCursor.bits;
+                }
+            }
+            return new NativeNodeLabelRange( idRange, allBits, labelIds, labelBits, labelCount );
+        }
+    }
+
+    private static class NativeNodeLabelRange implements NodeLabelRange
+    {
+        private final long idRange;
+        private final long allBits;
+        private final long[] labelIds;
+        private final long[] labelBits;
+        private final int labelCount;
+
+        NativeNodeLabelRange( long idRange, long allBits, long[] labelIds, long[] labelBits, int labelCount )
+        {
+            this.idRange = idRange;
+            this.allBits = allBits;
+            this.labelIds = labelIds;
+            this.labelBits = labelBits;
+            this.labelCount = labelCount;
+        }
+
+        @Override
+        public int id()
+        {
+            return (int) idRange;
+        }
+
+        @Override
+        public long[] nodes()
+        {
+            long[] nodes = new long[Long.bitCount( allBits )];
+            long baseNodeId = baseNodeId( idRange );
+            long bits = allBits;
+            for ( int i = 0; bits != 0; i++ )
+            {
+                nodes[i] = baseNodeId + Long.numberOfTrailingZeros( bits );
+                bits &= bits - 1;
+            }
+            return nodes;
+        }
+
+        @Override
+        public long[] labels( long nodeId )
+        {
+            long baseNodeId = baseNodeId( idRange );
+            if ( nodeId < baseNodeId || nodeId >= baseNodeId + RANGE_SIZE )
+            {
+                return PrimitiveLongCollections.EMPTY_LONG_ARRAY;
+            }
+            long bit = 1L << (nodeId - baseNodeId);
+            long[] labels = new long[labelCount];
+            int count = 0;
+            for ( int i = 0; i < labelCount; i++ )
+            {
+                if ( (labelBits[i] & bit) != 0 )
+                {
+                    labels[count++] = labelIds[i];
+                }
+            }
+            return count == labels.length ? labels : Arrays.copyOf( labels, count );
+        }
+
+        @Override
+        public String toString()
+        {
+            return "NodeLabelRange[idRange:" + idRange + ", nodes:" + Arrays.toString( nodes() ) + "]";
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.labelscan;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.gbptree.GBPTree;
+import org.neo4j.index.gbptree.Hit;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+import org.neo4j.storageengine.api.schema.LabelScanReader;
+
+import static org.neo4j.kernel.impl.index.labelscan.LabelScanValue.bitOf;
+import static org.neo4j.kernel.impl.index.labelscan.LabelScanValue.rangeOf;
+
+/**
+ * {@link LabelScanReader} of a {@link NativeLabelScanStore}. Each call to {@link #nodesWithLabel(int)} sees
+ * the tree as it was when that call was made and keeps doing so until exhausted or until this reader is closed.
+ */
+class NativeLabelScanReader implements LabelScanReader
+{
+    private final GBPTree<LabelScanKey,LabelScanValue> index;
+    private final List<RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException>> openCursors = new ArrayList<>();
+
+    NativeLabelScanReader( GBPTree<LabelScanKey,LabelScanValue> index )
+    {
+        this.index = index;
+    }
+
+    @Override
+    public PrimitiveLongIterator nodesWithLabel( int labelId )
+    {
+        RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor = seek(
+                new LabelScanKey().set( labelId, 0 ), new LabelScanKey().set( labelId + 1, 0 ) );
+        openCursors.add( cursor );
+        return new LabelScanValueIterator( cursor );
+    }
+
+    @Override
+    public PrimitiveLongIterator labelsForNode( long nodeId )
+    {
+        // Keys are ordered by label first, so find the labels one by one, each seek skipping past all entries
+        // of labels that have been looked at
+        long idRange = rangeOf( nodeId );
+        long bit = bitOf( nodeId );
+        PrimitiveLongSet labels = Primitive.longSet();
+        int labelId = 0;
+        while ( labelId >= 0 )
+        {
+            try ( RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor = seek(
+                    new LabelScanKey().set( labelId, idRange ),
+                    new LabelScanKey().set( Integer.MAX_VALUE, Long.MAX_VALUE ) ) )
+            {
+                if ( !cursor.next() )
+                {
+                    break;
+                }
+                LabelScanKey key = cursor.get().key();
+                if ( key.idRange == idRange )
+                {
+                    if ( (cursor.get().value().bits & bit) != 0 )
+                    {
+                        labels.add( key.labelId );
+                    }
+                    labelId = key.labelId + 1;
+                }
+                else if ( key.idRange < idRange )
+                {
+                    // First entry of a later label, which may still have an entry for the range
+                    labelId = key.labelId;
+                }
+                else
+                {
+                    labelId = key.labelId + 1;
+                }
+            }
+            catch ( IOException e )
+            {
+                throw new UnderlyingStorageException( e );
+            }
+        }
+        return labels.iterator();
+    }
+
+    private RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> seek( LabelScanKey from, LabelScanKey to )
+    {
+        try
+        {
+            return index.seek( from, to );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        try
+        {
+            for ( RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor : openCursors )
+            {
+                cursor.close();
+            }
+            openCursors.clear();
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.labelscan;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.index.gbptree.GBPTree;
+import org.neo4j.index.gbptree.MetadataMismatchException;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.labelscan.AllEntriesLabelScanReader;
+import org.neo4j.kernel.api.labelscan.LabelScanStore;
+import org.neo4j.kernel.api.labelscan.LabelScanWriter;
+import org.neo4j.kernel.impl.api.scan.LabelScanStoreProvider.FullStoreChangeStream;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.LogProvider;
+import org.neo4j.storageengine.api.schema.LabelScanReader;
+
+import static org.neo4j.helpers.collection.Iterators.iterator;
+import static org.neo4j.helpers.collection.Iterators.resourceIterator;
+
+/**
+ * {@link LabelScanStore} which keeps label --> nodes mappings in a {@link GBPTree} of its own file,
+ * accessed through the {@link PageCache}. Tree entries map a label id and node id range to a bit set of
+ * the nodes in that range having that label, see {@link LabelScanKey} and {@link LabelScanValue}.
+ * <p>
+ * The tree is {@link GBPTree#checkpoint() checkpointed} on {@link #force()}. Changes made after the last
+ * checkpoint are lost on a crash and redone from the transaction log on recovery, which is fine since applying
+ * a change, see {@link NativeLabelScanWriter}, is idempotent. Checkpoints are paused while a
+ * {@link #snapshotStoreFiles() snapshot} is open, which keeps the file consistent for copying.
+ */
+public class NativeLabelScanStore implements LabelScanStore
+{
+    public static final String FILE_NAME = "neostore.labelscanstore.db";
+
+    private static final int WRITE_BATCH_SIZE = 1_000;
+
+    private final PageCache pageCache;
+    private final FileSystemAbstraction fs;
+    private final File indexFile;
+    // We get in a full store stream here in case we need to fully rebuild the store if it's missing or corrupted.
+    private final FullStoreChangeStream fullStoreStream;
+    private final Log log;
+    private final Monitor monitor;
+    private GBPTree<LabelScanKey,LabelScanValue> index;
+    private boolean needsRebuild;
+
+    public interface Monitor
+    {
+        Monitor EMPTY = new Monitor()
+        {
+            @Override
+            public void init()
+            {
+            }
+
+            @Override
+            public void noIndex()
+            {
+            }
+
+            @Override
+            public void corruptedIndex()
+            {
+            }
+
+            @Override
+            public void rebuilding()
+            {
+            }
+
+            @Override
+            public void rebuilt( long roughNodeCount )
+            {
+            }
+        };
+
+        void init();
+
+        void noIndex();
+
+        void corruptedIndex();
+
+        void rebuilding();
+
+        void rebuilt( long roughNodeCount );
+    }
+
+    public NativeLabelScanStore( PageCache pageCache, FileSystemAbstraction fs, File storeDir,
+            FullStoreChangeStream fullStoreStream, LogProvider logProvider, Monitor monitor )
+    {
+        this.pageCache = pageCache;
+        this.fs = fs;
+        this.indexFile = new File( storeDir, FILE_NAME );
+        this.fullStoreStream = fullStoreStream;
+        this.log = logProvider.getLog( getClass() );
+        this.monitor = monitor;
+    }
+
+    @Override
+    public LabelScanReader newReader()
+    {
+        return new NativeLabelScanReader( index );
+    }
+
+    @Override
+    public LabelScanWriter newWriter()
+    {
+        try
+        {
+            return new NativeLabelScanWriter( index.writer(), WRITE_BATCH_SIZE );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
+    @Override
+    public void force() throws UnderlyingStorageException
+    {
+        try
+        {
+            // A store which is yet to be rebuilt mustn't look complete if opened again
+            if ( index != null && !needsRebuild )
+            {
+                index.checkpoint();
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
+    @Override
+    public AllEntriesLabelScanReader allNodeLabelRanges()
+    {
+        return new NativeAllEntriesLabelScanReader( index );
+    }
+
+    @Override
+    public ResourceIterator<File> snapshotStoreFiles() throws IOException
+    {
+        // The file, as of the last checkpoint, stays intact for as long as the snapshot keeps checkpoints paused
+        return resourceIterator( iterator( indexFile ), index.pauseCheckpoints() );
+    }
+
+    @Override
+    public void init() throws IOException
+    {
+        monitor.init();
+        if ( !fs.fileExists( indexFile ) )
+        {
+            log.info( "No label scan store found, this might just be first use. Preparing to rebuild." );
+            monitor.noIndex();
+            needsRebuild = true;
+        }
+
+        try
+        {
+            index = new GBPTree<>( pageCache, indexFile, new LabelScanLayout() );
+        }
+        catch ( MetadataMismatchException e )
+        {
+            // Also the case for a store which was never completely built, since it's checkpointed
+            // for the first time after the rebuild
+            log.warn( "Label scan store could not be read. Preparing to rebuild.", e );
+            monitor.corruptedIndex();
+            fs.deleteFile( indexFile );
+            index = new GBPTree<>( pageCache, indexFile, new LabelScanLayout() );
+            needsRebuild = true;
+        }
+    }
+
+    @Override
+    public void start() throws IOException
+    {
+        if ( needsRebuild )
+        {   // we saw in init() that we need to rebuild the index, so do it here after the
+            // neostore has been properly started.
+            monitor.rebuilding();
+            log.info( "Rebuilding label scan store, this may take a while" );
+            long numberOfNodes = rebuild();
+            monitor.rebuilt( numberOfNodes );
+            log.info( "Label scan store rebuilt (roughly " + numberOfNodes + " nodes)" );
+            needsRebuild = false;
+        }
+    }
+
+    private long rebuild() throws IOException
+    {
+        long numberOfNodes;
+        try ( LabelScanWriter writer = newWriter() )
+        {
+            numberOfNodes = fullStoreStream.applyTo( writer );
+        }
+        index.checkpoint();
+        return numberOfNodes;
+    }
+
+    @Override
+    public void stop()
+    {   // Not needed
+    }
+
+    @Override
+    public void shutdown() throws IOException
+    {
+        if ( index != null )
+        {
+            if ( !needsRebuild )
+            {
+                index.checkpoint();
+            }
+            index.close();
+            index = null;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[" + indexFile + "]";
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.labelscan;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.neo4j.index.gbptree.ValueMerger;
+import org.neo4j.index.gbptree.Writer;
+import org.neo4j.kernel.api.labelscan.LabelScanWriter;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+
+import static org.neo4j.kernel.impl.index.labelscan.LabelScanValue.bitOf;
+import static org.neo4j.kernel.impl.index.labelscan.LabelScanValue.rangeOf;
+
+/**
+ * {@link LabelScanWriter} of a {@link NativeLabelScanStore}. Label changes are collected per label and node id
+ * range and applied to the tree, sorted by key, when enough of them have been collected and on {@link #close()}.
+ * A change clears and sets bits in the bit set of a tree entry, which makes applying the same change twice
+ * harmless. That is what makes it possible to redo changes from the transaction log on recovery.
+ */
+class NativeLabelScanWriter implements LabelScanWriter
+{
+    private static final Comparator<PendingChange> KEY_ORDER = ( o1, o2 ) ->
+    {
+        int labelComparison = Integer.compare( o1.labelId, o2.labelId );
+        return labelComparison != 0 ? labelComparison : Long.compare( o1.idRange, o2.idRange );
+    };
+
+    private final Writer<LabelScanKey,LabelScanValue> treeWriter;
+    private final PendingChange[] pending;
+    private int pendingCount;
+
+    private final LabelScanKey key = new LabelScanKey();
+    private final LabelScanValue value = new LabelScanValue();
+    private final BitsMerger merger = new BitsMerger();
+
+    NativeLabelScanWriter( Writer<LabelScanKey,LabelScanValue> treeWriter, int batchSize )
+    {
+        this.treeWriter = treeWriter;
+        this.pending = new PendingChange[batchSize];
+        for ( int i = 0; i < batchSize; i++ )
+        {
+            pending[i] = new PendingChange();
+        }
+    }
+
+    @Override
+    public void write( NodeLabelUpdate update ) throws IOException
+    {
+        long nodeId = update.getNodeId();
+        long[] before = update.getLabelsBefore();
+        long[] after = update.getLabelsAfter();
+        for ( long labelId : before )
+        {
+            if ( !contains( after, labelId ) )
+            {
+                change( (int) labelId, nodeId, false );
+            }
+        }
+        for ( long labelId : after )
+        {
+            if ( !contains( before, labelId ) )
+            {
+                change( (int) labelId, nodeId, true );
+            }
+        }
+    }
+
+    private void change( int labelId, long nodeId, boolean add ) throws IOException
+    {
+        long idRange = rangeOf( nodeId );
+        PendingChange change;
+        if ( pendingCount > 0 && pending[pendingCount - 1].labelId == labelId &&
+             pending[pendingCount - 1].idRange == idRange )
+        {
+            change = pending[pendingCount - 1];
+        }
+        else
+        {
+            if ( pendingCount == pending.length )
+            {
+                flushPending();
+            }
+            change = pending[pendingCount++].reset( labelId, idRange );
+        }
+        change.apply( bitOf( nodeId ), add );
+    }
+
+    private static boolean contains( long[] labels, long labelId )
+    {
+        for ( long candidate : labels )
+        {
+            if ( candidate == labelId )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void flushPending() throws IOException
+    {
+        // The sort is stable, so changes to the same entry are still in the order they were made after it
+        Arrays.sort( pending, 0, pendingCount, KEY_ORDER );
+        int i = 0;
+        while ( i < pendingCount )
+        {
+            PendingChange first = pending[i++];
+            long added = first.added;
+            long removed = first.removed;
+            while ( i < pendingCount && KEY_ORDER.compare( first, pending[i] ) == 0 )
+            {
+                PendingChange next = pending[i++];
+                added = (added & ~next.removed) | next.added;
+                removed = (removed & ~next.added) | next.removed;
+            }
+            key.set( first.labelId, first.idRange );
+            value.bits = added;
+            merger.removed = removed;
+            treeWriter.merge( key, value, merger );
+        }
+        pendingCount = 0;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            flushPending();
+        }
+        finally
+        {
+            treeWriter.close();
+        }
+    }
+
+    /**
+     * Changes to the bit set of one tree entry.
+     */
+    private static class PendingChange
+    {
+        int labelId;
+        long idRange;
+        long added;
+        long removed;
+
+        PendingChange reset( int labelId, long idRange )
+        {
+            this.labelId = labelId;
+            this.idRange = idRange;
+            this.added = 0;
+            this.removed = 0;
+            return this;
+        }
+
+        void apply( long bit, boolean add )
+        {
+            if ( add )
+            {
+                added |= bit;
+                removed &= ~bit;
+            }
+            else
+            {
+                removed |= bit;
+                added &= ~bit;
+            }
+        }
+    }
+
+    /**
+     * Sets the added bits and clears the {@link #removed} bits of an existing entry. Entries left without any
+     * bits set are removed from the tree.
+     */
+    private static class BitsMerger implements ValueMerger<LabelScanValue>
+    {
+        private final LabelScanValue merged = new LabelScanValue();
+        private long removed;
+
+        @Override
+        public LabelScanValue merge( LabelScanValue existingValue, LabelScanValue newValue )
+        {
+            long existing = existingValue == null ? 0 : existingValue.bits;
+            merged.bits = (existing & ~removed) | newValue.bits;
+            return merged.bits == 0 ? null : merged;
+        }
+    }
+}
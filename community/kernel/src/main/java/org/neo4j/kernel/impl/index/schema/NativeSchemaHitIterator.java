@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.gbptree.Hit;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+
+/**
+ * Iterates over the node ids of the hits of a {@link RawCursor} over a {@link NativeSchemaIndex} tree, i.e. in
+ * the order of the values of the hits, optionally {@link KeyFilter filtered} on their keys.
+ */
+class NativeSchemaHitIterator extends PrimitiveLongCollections.PrimitiveLongBaseIterator
+{
+    /**
+     * Decides, without allocating, what to do about a hit given its key.
+     */
+    interface KeyFilter
+    {
+        int ACCEPT = 0;
+        int SKIP = 1;
+        /**
+         * Neither this nor any later hit is accepted, i.e. the iteration is done.
+         */
+        int END = 2;
+
+        KeyFilter ALL = key -> ACCEPT;
+
+        int test( SchemaIndexKey key );
+    }
+
+    private final RawCursor<Hit<SchemaIndexKey,SchemaIndexValue>,IOException> cursor;
+    private final KeyFilter filter;
+
+    NativeSchemaHitIterator( RawCursor<Hit<SchemaIndexKey,SchemaIndexValue>,IOException> cursor, KeyFilter filter )
+    {
+        this.cursor = cursor;
+        this.filter = filter;
+    }
+
+    @Override
+    protected boolean fetchNext()
+    {
+        try
+        {
+            while ( cursor.next() )
+            {
+                SchemaIndexKey key = cursor.get().key();
+                int decision = filter.test( key );
+                if ( decision == KeyFilter.ACCEPT )
+                {
+                    return next( key.entityId );
+                }
+                if ( decision == KeyFilter.END )
+                {
+                    break;
+                }
+            }
+            cursor.close();
+            return false;
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.index.gbptree.GBPTree;
+import org.neo4j.index.gbptree.Hit;
+import org.neo4j.index.gbptree.MetadataMismatchException;
+import org.neo4j.index.gbptree.Writer;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.neo4j.helpers.collection.Iterators.iterator;
+import static org.neo4j.helpers.collection.Iterators.resourceIterator;
+
+/**
+ * The files of one native schema index: a {@link GBPTree} of {@link SchemaIndexKey keys} and, if population of
+ * the index failed, a file with the failure message, both in a directory of their own.
+ * <p>
+ * The tree is only checkpointed once population has completed, so a tree which can't be opened because it has
+ * never been checkpointed is an index which was still being populated, see {@link #isOnline()}.
+ * <p>
+ * The tree allows a single writer at a time. Writers handed out by {@link #writer()} wait for each other,
+ * rather than failing.
+ */
+class NativeSchemaIndex
+{
+    static final String TREE_FILE_NAME = "index";
+    static final String FAILURE_FILE_NAME = "failure-message";
+
+    private final PageCache pageCache;
+    private final FileSystemAbstraction fs;
+    private final File directory;
+    private final File treeFile;
+    private final File failureFile;
+    private final SchemaIndexLayout layout = new SchemaIndexLayout();
+    private final Lock writerLock = new ReentrantLock();
+    private volatile GBPTree<SchemaIndexKey,SchemaIndexValue> tree;
+
+    NativeSchemaIndex( PageCache pageCache, FileSystemAbstraction fs, File directory )
+    {
+        this.pageCache = pageCache;
+        this.fs = fs;
+        this.directory = directory;
+        this.treeFile = new File( directory, TREE_FILE_NAME );
+        this.failureFile = new File( directory, FAILURE_FILE_NAME );
+    }
+
+    /**
+     * Creates a new, empty, index, removing whatever was there before.
+     */
+    void create() throws IOException
+    {
+        close();
+        fs.deleteRecursively( directory );
+        fs.mkdirs( directory );
+        tree = new GBPTree<>( pageCache, treeFile, layout );
+    }
+
+    /**
+     * Opens an existing, online, index.
+     */
+    void open() throws IOException
+    {
+        tree = new GBPTree<>( pageCache, treeFile, layout );
+    }
+
+    /**
+     * @return whether or not there is an index which has been fully populated at some point.
+     */
+    boolean isOnline() throws IOException
+    {
+        if ( !fs.fileExists( treeFile ) )
+        {
+            return false;
+        }
+        try ( GBPTree<SchemaIndexKey,SchemaIndexValue> ignored = new GBPTree<>( pageCache, treeFile, layout ) )
+        {
+            return true;
+        }
+        catch ( MetadataMismatchException e )
+        {
+            return false;
+        }
+    }
+
+    LockedWriter writer() throws IOException
+    {
+        writerLock.lock();
+        try
+        {
+            return new LockedWriter( tree.writer() );
+        }
+        catch ( Throwable e )
+        {
+            writerLock.unlock();
+            throw e;
+        }
+    }
+
+    RawCursor<Hit<SchemaIndexKey,SchemaIndexValue>,IOException> seek( SchemaIndexKey from, SchemaIndexKey to )
+            throws IOException
+    {
+        return tree.seek( from, to );
+    }
+
+    void checkpoint() throws IOException
+    {
+        tree.checkpoint();
+    }
+
+    void close() throws IOException
+    {
+        if ( tree != null )
+        {
+            tree.close();
+            tree = null;
+        }
+    }
+
+    void drop() throws IOException
+    {
+        close();
+        fs.deleteRecursively( directory );
+    }
+
+    /**
+     * @return the tree file, which stays as of the last checkpoint, and so can be copied, until the returned
+     * iterator is closed.
+     */
+    ResourceIterator<File> snapshotFiles()
+    {
+        return resourceIterator( iterator( treeFile ), tree.pauseCheckpoints() );
+    }
+
+    void writeFailure( String failure ) throws IOException
+    {
+        fs.mkdirs( directory );
+        try ( OutputStream out = fs.openAsOutputStream( failureFile, false ) )
+        {
+            out.write( failure.getBytes( UTF_8 ) );
+        }
+    }
+
+    /**
+     * @return the stored failure message, or {@code null} if population of this index hasn't failed.
+     */
+    String readFailure() throws IOException
+    {
+        if ( !fs.fileExists( failureFile ) )
+        {
+            return null;
+        }
+        StringBuilder failure = new StringBuilder();
+        char[] chars = new char[1024];
+        try ( Reader reader = fs.openAsReader( failureFile, UTF_8 ) )
+        {
+            for ( int read; (read = reader.read( chars )) != -1; )
+            {
+                failure.append( chars, 0, read );
+            }
+        }
+        return failure.toString();
+    }
+
+    SchemaIndexLayout layout()
+    {
+        return layout;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[" + treeFile + "]";
+    }
+
+    /**
+     * Writer of a native schema index, holding the write lock of the index until closed.
+     */
+    class LockedWriter implements AutoCloseable
+    {
+        private final Writer<SchemaIndexKey,SchemaIndexValue> writer;
+
+        private LockedWriter( Writer<SchemaIndexKey,SchemaIndexValue> writer )
+        {
+            this.writer = writer;
+        }
+
+        void add( SchemaIndexKey key ) throws IOException
+        {
+            writer.put( key, SchemaIndexValue.INSTANCE );
+        }
+
+        void remove( SchemaIndexKey key ) throws IOException
+        {
+            writer.remove( key );
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            try
+            {
+                writer.close();
+            }
+            finally
+            {
+                writerLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.helpers.collection.BoundedIterable;
+import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
+import org.neo4j.storageengine.api.schema.IndexReader;
+
+/**
+ * {@link IndexAccessor} of an online {@link NativeSchemaIndex}. Updates are written straight into the tree and
+ * become durable when the tree is checkpointed by {@link #force()}. Updates applied after the last checkpoint are
+ * applied again by recovery, which is fine since adding and removing entries are idempotent.
+ */
+class NativeSchemaIndexAccessor implements IndexAccessor
+{
+    private final NativeSchemaIndex index;
+
+    NativeSchemaIndexAccessor( NativeSchemaIndex index )
+    {
+        this.index = index;
+    }
+
+    @Override
+    public void drop() throws IOException
+    {
+        index.drop();
+    }
+
+    @Override
+    public IndexUpdater newUpdater( IndexUpdateMode mode )
+    {
+        return new NativeSchemaIndexUpdater( index );
+    }
+
+    @Override
+    public void flush() throws IOException
+    {   // Updates are in the tree already, force() makes them durable
+    }
+
+    @Override
+    public void force() throws IOException
+    {
+        index.checkpoint();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        index.close();
+    }
+
+    @Override
+    public IndexReader newReader()
+    {
+        return new NativeSchemaIndexReader( index );
+    }
+
+    @Override
+    public BoundedIterable<Long> newAllEntriesReader()
+    {
+        NativeSchemaIndexReader reader = new NativeSchemaIndexReader( index );
+        return new BoundedIterable<Long>()
+        {
+            @Override
+            public long maxCount()
+            {
+                return reader.sample().indexSize();
+            }
+
+            @Override
+            public Iterator<Long> iterator()
+            {
+                return PrimitiveLongCollections.toIterator( reader.scan() );
+            }
+
+            @Override
+            public void close() throws Exception
+            {
+                reader.close();
+            }
+        };
+    }
+
+    @Override
+    public ResourceIterator<File> snapshotFiles() throws IOException
+    {
+        return index.snapshotFiles();
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[" + index + "]";
+    }
+}
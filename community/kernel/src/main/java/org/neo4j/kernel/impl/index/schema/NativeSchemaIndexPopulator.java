@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexConfiguration;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+import org.neo4j.kernel.api.index.PropertyAccessor;
+import org.neo4j.storageengine.api.schema.IndexSample;
+
+/**
+ * {@link IndexPopulator} of a {@link NativeSchemaIndex}, writing entries straight into the tree. The tree is
+ * checkpointed when population completes successfully, and not before, which is what marks the index as online.
+ * <p>
+ * The sample is taken from the populated tree itself rather than from the updates included in it, which is
+ * both cheap and exact for a tree keeping entries in value order.
+ */
+class NativeSchemaIndexPopulator implements IndexPopulator
+{
+    private final NativeSchemaIndex index;
+    private final IndexConfiguration config;
+    private final int propertyKeyId;
+
+    NativeSchemaIndexPopulator( NativeSchemaIndex index, IndexDescriptor descriptor, IndexConfiguration config )
+    {
+        this.index = index;
+        this.config = config;
+        this.propertyKeyId = descriptor.getPropertyKeyId();
+    }
+
+    @Override
+    public void create() throws IOException
+    {
+        index.create();
+    }
+
+    @Override
+    public void drop() throws IOException
+    {
+        index.drop();
+    }
+
+    @Override
+    public void add( Collection<NodePropertyUpdate> updates ) throws IndexEntryConflictException, IOException
+    {
+        try ( NativeSchemaIndexUpdater updater = new NativeSchemaIndexUpdater( index ) )
+        {
+            for ( NodePropertyUpdate update : updates )
+            {
+                updater.add( update.getNodeId(), update.getValueAfter() );
+            }
+        }
+    }
+
+    @Override
+    public void verifyDeferredConstraints( PropertyAccessor accessor ) throws IndexEntryConflictException, IOException
+    {
+        if ( config.isUnique() )
+        {
+            new NativeSchemaUniquenessVerifier( index, propertyKeyId ).verify( accessor );
+        }
+    }
+
+    @Override
+    public IndexUpdater newPopulatingUpdater( PropertyAccessor accessor ) throws IOException
+    {
+        return config.isUnique() ? new UniquePopulatingUpdater( accessor ) : new NativeSchemaIndexUpdater( index );
+    }
+
+    @Override
+    public void close( boolean populationCompletedSuccessfully ) throws IOException
+    {
+        try
+        {
+            if ( populationCompletedSuccessfully )
+            {
+                index.checkpoint();
+            }
+        }
+        finally
+        {
+            index.close();
+        }
+    }
+
+    @Override
+    public void markAsFailed( String failure ) throws IOException
+    {
+        index.writeFailure( failure );
+    }
+
+    @Override
+    public void includeSample( NodePropertyUpdate update )
+    {   // The sample is taken from the tree, see sampleResult()
+    }
+
+    @Override
+    public IndexSample sampleResult()
+    {
+        return new NativeSchemaIndexReader( index ).sample();
+    }
+
+    /**
+     * Verifies, once its updates have been written, that the values it added or changed to are still unique.
+     */
+    private class UniquePopulatingUpdater extends NativeSchemaIndexUpdater
+    {
+        private final PropertyAccessor accessor;
+        private final List<Object> updatedValues = new ArrayList<>();
+
+        UniquePopulatingUpdater( PropertyAccessor accessor )
+        {
+            super( index );
+            this.accessor = accessor;
+        }
+
+        @Override
+        public void process( NodePropertyUpdate update ) throws IOException
+        {
+            super.process( update );
+            switch ( update.getUpdateMode() )
+            {
+            case ADDED:
+            case CHANGED:
+                updatedValues.add( update.getValueAfter() );
+                break;
+            default:
+                break;
+            }
+        }
+
+        @Override
+        public void close() throws IOException, IndexEntryConflictException
+        {
+            super.close();
+            new NativeSchemaUniquenessVerifier( index, propertyKeyId ).verify( accessor, updatedValues );
+        }
+    }
+}
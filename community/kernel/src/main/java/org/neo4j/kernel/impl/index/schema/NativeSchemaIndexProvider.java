@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexConfiguration;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.InternalIndexState;
+import org.neo4j.kernel.api.index.SchemaIndexProvider;
+import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
+import org.neo4j.kernel.impl.api.scan.LabelScanStoreProvider;
+import org.neo4j.kernel.impl.storemigration.StoreMigrationParticipant;
+
+/**
+ * {@link SchemaIndexProvider} of schema indexes kept in {@link org.neo4j.index.gbptree.GBPTree trees} in the
+ * page cache, one tree per index, see {@link NativeSchemaIndex}.
+ * <p>
+ * Only numbers and strings short enough to fit in a {@link SchemaIndexKey} can be kept in these indexes, other
+ * values are silently ignored. This provider is therefore not meant to be used on its own, but as part of a
+ * {@link org.neo4j.kernel.impl.index.schema.fusion.FusionSchemaIndexProvider} which routes the other values to
+ * another provider, see {@link #accepts(Object)}.
+ */
+public class NativeSchemaIndexProvider extends SchemaIndexProvider
+{
+    public static final String KEY = "native";
+    public static final Descriptor PROVIDER_DESCRIPTOR = new Descriptor( KEY, "1.0" );
+
+    private final PageCache pageCache;
+    private final FileSystemAbstraction fs;
+    private final File rootDirectory;
+
+    public NativeSchemaIndexProvider( PageCache pageCache, FileSystemAbstraction fs, File storeDir )
+    {
+        super( PROVIDER_DESCRIPTOR, 0 );
+        this.pageCache = pageCache;
+        this.fs = fs;
+        this.rootDirectory = getSchemaIndexStoreDirectory( storeDir );
+    }
+
+    /**
+     * @param value property value.
+     * @return whether or not indexes of this provider can keep the given value.
+     */
+    public static boolean accepts( Object value )
+    {
+        return SchemaIndexKey.accepts( value );
+    }
+
+    @Override
+    public IndexPopulator getPopulator( long indexId, IndexDescriptor descriptor, IndexConfiguration config,
+            IndexSamplingConfig samplingConfig )
+    {
+        return new NativeSchemaIndexPopulator( index( indexId ), descriptor, config );
+    }
+
+    @Override
+    public IndexAccessor getOnlineAccessor( long indexId, IndexConfiguration config,
+            IndexSamplingConfig samplingConfig ) throws IOException
+    {
+        NativeSchemaIndex index = index( indexId );
+        index.open();
+        return new NativeSchemaIndexAccessor( index );
+    }
+
+    @Override
+    public String getPopulationFailure( long indexId ) throws IllegalStateException
+    {
+        String failure;
+        try
+        {
+            failure = index( indexId ).readFailure();
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( e );
+        }
+        if ( failure == null )
+        {
+            throw new IllegalStateException( "Index " + indexId + " isn't failed" );
+        }
+        return failure;
+    }
+
+    @Override
+    public InternalIndexState getInitialState( long indexId )
+    {
+        try
+        {
+            NativeSchemaIndex index = index( indexId );
+            if ( index.readFailure() != null )
+            {
+                return InternalIndexState.FAILED;
+            }
+            return index.isOnline() ? InternalIndexState.ONLINE : InternalIndexState.POPULATING;
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( e );
+        }
+    }
+
+    @Override
+    public StoreMigrationParticipant storeMigrationParticipant( FileSystemAbstraction fs, PageCache pageCache,
+            LabelScanStoreProvider labelScanStoreProvider )
+    {
+        // There are no native indexes in stores of earlier versions
+        return StoreMigrationParticipant.NOT_PARTICIPATING;
+    }
+
+    private NativeSchemaIndex index( long indexId )
+    {
+        return new NativeSchemaIndex( pageCache, fs, new File( rootDirectory, String.valueOf( indexId ) ) );
+    }
+}
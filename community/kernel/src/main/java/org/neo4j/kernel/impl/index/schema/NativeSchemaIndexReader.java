@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.gbptree.Hit;
+import org.neo4j.kernel.impl.index.schema.NativeSchemaHitIterator.KeyFilter;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+import org.neo4j.storageengine.api.schema.IndexOrder;
+import org.neo4j.storageengine.api.schema.IndexReader;
+import org.neo4j.storageengine.api.schema.IndexSample;
+import org.neo4j.storageengine.api.schema.IndexSampler;
+
+import static org.neo4j.kernel.impl.index.schema.NativeSchemaHitIterator.KeyFilter.ACCEPT;
+import static org.neo4j.kernel.impl.index.schema.NativeSchemaHitIterator.KeyFilter.END;
+import static org.neo4j.kernel.impl.index.schema.NativeSchemaHitIterator.KeyFilter.SKIP;
+import static org.neo4j.kernel.impl.index.schema.SchemaIndexKey.MAX_STRING_BYTES;
+import static org.neo4j.kernel.impl.index.schema.SchemaIndexKey.TYPE_NUMBER;
+import static org.neo4j.kernel.impl.index.schema.SchemaIndexKey.TYPE_STRING;
+import static org.neo4j.kernel.impl.index.schema.SchemaIndexKey.compareBytes;
+
+/**
+ * {@link IndexReader} of a {@link NativeSchemaIndex}. All seeks return node ids in the order of their values,
+ * numbers before strings, and node id order for equal values. Results are exact for strings, whereas numbers are
+ * compared as doubles, which the kernel compensates for by re-checking number results against the actual values.
+ * <p>
+ * Each seek sees the tree as it was when the seek was made and keeps doing so until exhausted or until this
+ * reader is closed. Iterating over the results doesn't allocate.
+ */
+class NativeSchemaIndexReader implements IndexReader
+{
+    private final NativeSchemaIndex index;
+    private final List<RawCursor<Hit<SchemaIndexKey,SchemaIndexValue>,IOException>> openCursors = new ArrayList<>();
+
+    NativeSchemaIndexReader( NativeSchemaIndex index )
+    {
+        this.index = index;
+    }
+
+    @Override
+    public PrimitiveLongIterator seek( Object value )
+    {
+        if ( !SchemaIndexKey.accepts( value ) )
+        {
+            return PrimitiveLongCollections.emptyIterator();
+        }
+        return seek( new SchemaIndexKey().from( value, Long.MIN_VALUE ),
+                new SchemaIndexKey().from( value, Long.MAX_VALUE ), KeyFilter.ALL );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByNumberInclusive( Number lower, Number upper )
+    {
+        SchemaIndexKey from = new SchemaIndexKey();
+        SchemaIndexKey to = new SchemaIndexKey();
+        if ( lower == null )
+        {
+            from.initAsLowest( TYPE_NUMBER );
+        }
+        else
+        {
+            from.from( lower, Long.MIN_VALUE );
+        }
+        if ( upper == null )
+        {
+            to.initAsHighest( TYPE_NUMBER );
+        }
+        else
+        {
+            // No node has the highest possible id, so this includes all nodes having the upper value
+            to.from( upper, Long.MAX_VALUE );
+        }
+        return seek( from, to, KeyFilter.ALL );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByString( String lower, boolean includeLower,
+            String upper, boolean includeUpper )
+    {
+        // Bounds may be longer than any string in the index, so seek from as close to the lower bound as keys
+        // allow and compare hits to the complete bounds
+        byte[] lowerBytes = lower == null ? null : utf8( lower );
+        byte[] upperBytes = upper == null ? null : utf8( upper );
+        SchemaIndexKey from = new SchemaIndexKey().initAsLowest( TYPE_STRING );
+        if ( lowerBytes != null )
+        {
+            setStringBytes( from, lowerBytes, Math.min( lowerBytes.length, MAX_STRING_BYTES ) );
+        }
+        return seek( from, new SchemaIndexKey().initAsHighest( TYPE_STRING ), key ->
+        {
+            if ( lowerBytes != null )
+            {
+                int comparison = compareBytes( key.stringBytes, key.stringLength, lowerBytes, lowerBytes.length );
+                if ( comparison < 0 || (comparison == 0 && !includeLower) )
+                {
+                    return SKIP;
+                }
+            }
+            if ( upperBytes != null )
+            {
+                int comparison = compareBytes( key.stringBytes, key.stringLength, upperBytes, upperBytes.length );
+                if ( comparison > 0 || (comparison == 0 && !includeUpper) )
+                {
+                    return END;
+                }
+            }
+            return ACCEPT;
+        } );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByPrefix( String prefix )
+    {
+        byte[] prefixBytes = utf8( prefix );
+        if ( prefixBytes.length > MAX_STRING_BYTES )
+        {
+            // No string in this index is long enough to start with it
+            return PrimitiveLongCollections.emptyIterator();
+        }
+        SchemaIndexKey from = new SchemaIndexKey().initAsLowest( TYPE_STRING );
+        setStringBytes( from, prefixBytes, prefixBytes.length );
+        return seek( from, new SchemaIndexKey().initAsHighest( TYPE_STRING ),
+                key -> key.startsWith( prefixBytes, prefixBytes.length ) ? ACCEPT : END );
+    }
+
+    @Override
+    public PrimitiveLongIterator scan()
+    {
+        return seek( new SchemaIndexKey().initAsLowest( TYPE_NUMBER ),
+                new SchemaIndexKey().initAsHighest( TYPE_STRING ), KeyFilter.ALL );
+    }
+
+    @Override
+    public PrimitiveLongIterator containsString( String exactTerm )
+    {
+        byte[] termBytes = utf8( exactTerm );
+        return seekStrings( key -> key.contains( termBytes, termBytes.length ) ? ACCEPT : SKIP );
+    }
+
+    @Override
+    public PrimitiveLongIterator endsWith( String suffix )
+    {
+        byte[] suffixBytes = utf8( suffix );
+        return seekStrings( key -> key.endsWith( suffixBytes, suffixBytes.length ) ? ACCEPT : SKIP );
+    }
+
+    @Override
+    public long countIndexedNodes( long nodeId, Object propertyValue )
+    {
+        if ( !SchemaIndexKey.accepts( propertyValue ) )
+        {
+            return 0;
+        }
+        try ( RawCursor<Hit<SchemaIndexKey,SchemaIndexValue>,IOException> cursor = index.seek(
+                new SchemaIndexKey().from( propertyValue, nodeId ),
+                new SchemaIndexKey().from( propertyValue, nodeId + 1 ) ) )
+        {
+            long count = 0;
+            while ( cursor.next() )
+            {
+                count++;
+            }
+            return count;
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
+    @Override
+    public IndexSampler createSampler()
+    {
+        return this::sample;
+    }
+
+    @Override
+    public IndexOrder rangeSeekOrder()
+    {
+        // Keys are kept in value order, although integral values too large to be told apart as doubles
+        // come in node id order amongst themselves, which the kernel puts in order when re-checking the values
+        return IndexOrder.NUMBERS_AND_STRINGS;
+    }
+
+    /**
+     * Samples the index by looking at all of it, which is cheap enough for keys kept in order since the number of
+     * unique values is then the number of times the value changes from one entry to the next.
+     */
+    IndexSample sample()
+    {
+        SchemaIndexKey previous = new SchemaIndexKey();
+        long indexSize = 0;
+        long uniqueValues = 0;
+        try ( RawCursor<Hit<SchemaIndexKey,SchemaIndexValue>,IOException> cursor = index.seek(
+                new SchemaIndexKey().initAsLowest( TYPE_NUMBER ), new SchemaIndexKey().initAsHighest( TYPE_STRING ) ) )
+        {
+            while ( cursor.next() )
+            {
+                SchemaIndexKey key = cursor.get().key();
+                if ( indexSize == 0 || key.compareValueTo( previous ) != 0 )
+                {
+                    uniqueValues++;
+                    previous.copyFrom( key );
+                }
+                indexSize++;
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+        return new IndexSample( indexSize, uniqueValues, indexSize );
+    }
+
+    private PrimitiveLongIterator seekStrings( KeyFilter filter )
+    {
+        return seek( new SchemaIndexKey().initAsLowest( TYPE_STRING ),
+                new SchemaIndexKey().initAsHighest( TYPE_STRING ), filter );
+    }
+
+    private PrimitiveLongIterator seek( SchemaIndexKey from, SchemaIndexKey to, KeyFilter filter )
+    {
+        RawCursor<Hit<SchemaIndexKey,SchemaIndexValue>,IOException> cursor;
+        try
+        {
+            cursor = index.seek( from, to );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+        openCursors.add( cursor );
+        return new NativeSchemaHitIterator( cursor, filter );
+    }
+
+    private static void setStringBytes( SchemaIndexKey key, byte[] bytes, int length )
+    {
+        System.arraycopy( bytes, 0, key.stringBytes, 0, length );
+        key.stringLength = length;
+    }
+
+    private static byte[] utf8( String value )
+    {
+        byte[] bytes = new byte[SchemaIndexKey.utf8Length( value )];
+        SchemaIndexKey.encodeUtf8( value, bytes );
+        return bytes;
+    }
+
+    @Override
+    public void close()
+    {
+        try
+        {
+            for ( RawCursor<Hit<SchemaIndexKey,SchemaIndexValue>,IOException> cursor : openCursors )
+            {
+                cursor.close();
+            }
+            openCursors.clear();
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.gbptree.Hit;
+import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+
+import static org.neo4j.kernel.impl.index.schema.SchemaIndexKey.TYPE_NUMBER;
+import static org.neo4j.kernel.impl.index.schema.SchemaIndexKey.TYPE_STRING;
+
+/**
+ * {@link IndexUpdater} of a {@link NativeSchemaIndex}, applying updates directly to the tree, through a writer
+ * which is held from the first update until this updater is closed. Values which don't fit in a
+ * {@link SchemaIndexKey} are ignored, it's up to the caller to not send them here.
+ */
+class NativeSchemaIndexUpdater implements IndexUpdater
+{
+    private final NativeSchemaIndex index;
+    private final SchemaIndexKey key = new SchemaIndexKey();
+    private NativeSchemaIndex.LockedWriter writer;
+
+    NativeSchemaIndexUpdater( NativeSchemaIndex index )
+    {
+        this.index = index;
+    }
+
+    @Override
+    public void process( NodePropertyUpdate update ) throws IOException
+    {
+        switch ( update.getUpdateMode() )
+        {
+        case ADDED:
+            add( update.getNodeId(), update.getValueAfter() );
+            break;
+        case CHANGED:
+            remove( update.getNodeId(), update.getValueBefore() );
+            add( update.getNodeId(), update.getValueAfter() );
+            break;
+        case REMOVED:
+            remove( update.getNodeId(), update.getValueBefore() );
+            break;
+        default:
+            throw new UnsupportedOperationException( "Unknown update mode " + update.getUpdateMode() );
+        }
+    }
+
+    void add( long nodeId, Object value ) throws IOException
+    {
+        if ( SchemaIndexKey.accepts( value ) )
+        {
+            writer().add( key.from( value, nodeId ) );
+        }
+    }
+
+    private void remove( long nodeId, Object value ) throws IOException
+    {
+        if ( SchemaIndexKey.accepts( value ) )
+        {
+            writer().remove( key.from( value, nodeId ) );
+        }
+    }
+
+    /**
+     * Removes all entries of the given nodes. Entries are found by their values, so this looks at the whole
+     * index, which is fine for recovery, the only user of this method.
+     */
+    @Override
+    public void remove( PrimitiveLongSet nodeIds ) throws IOException
+    {
+        List<SchemaIndexKey> toRemove = new ArrayList<>();
+        try ( RawCursor<Hit<SchemaIndexKey,SchemaIndexValue>,IOException> cursor = index.seek(
+                new SchemaIndexKey().initAsLowest( TYPE_NUMBER ), new SchemaIndexKey().initAsHighest( TYPE_STRING ) ) )
+        {
+            while ( cursor.next() )
+            {
+                SchemaIndexKey hit = cursor.get().key();
+                if ( nodeIds.contains( hit.entityId ) )
+                {
+                    SchemaIndexKey copy = new SchemaIndexKey();
+                    copy.copyFrom( hit );
+                    toRemove.add( copy );
+                }
+            }
+        }
+        for ( SchemaIndexKey removed : toRemove )
+        {
+            writer().remove( removed );
+        }
+    }
+
+    private NativeSchemaIndex.LockedWriter writer() throws IOException
+    {
+        if ( writer == null )
+        {
+            writer = index.writer();
+        }
+        return writer;
+    }
+
+    @Override
+    public void close() throws IOException, IndexEntryConflictException
+    {
+        if ( writer != null )
+        {
+            writer.close();
+            writer = null;
+        }
+    }
+}
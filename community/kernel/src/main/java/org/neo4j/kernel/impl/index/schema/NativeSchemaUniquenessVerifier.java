@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.gbptree.Hit;
+import org.neo4j.kernel.api.exceptions.KernelException;
+import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.PreexistingIndexEntryConflictException;
+import org.neo4j.kernel.api.index.PropertyAccessor;
+import org.neo4j.kernel.api.properties.Property;
+
+import static org.neo4j.kernel.impl.index.schema.SchemaIndexKey.TYPE_NUMBER;
+import static org.neo4j.kernel.impl.index.schema.SchemaIndexKey.TYPE_STRING;
+
+/**
+ * Verifies that no two nodes in a {@link NativeSchemaIndex} have the same value. Entries are in value order,
+ * so duplicates are next to each other and are found by comparing each entry with the one before it, reusing
+ * the same keys throughout. Only nodes whose entries have equal keys have their actual values looked at,
+ * which tells apart different numbers having the same double value.
+ */
+class NativeSchemaUniquenessVerifier
+{
+    private final NativeSchemaIndex index;
+    private final int propertyKeyId;
+    private final SchemaIndexKey from = new SchemaIndexKey();
+    private final SchemaIndexKey to = new SchemaIndexKey();
+    private final SchemaIndexKey previous = new SchemaIndexKey();
+    private long[] sameKeyNodes = new long[8];
+
+    NativeSchemaUniquenessVerifier( NativeSchemaIndex index, int propertyKeyId )
+    {
+        this.index = index;
+        this.propertyKeyId = propertyKeyId;
+    }
+
+    /**
+     * Verifies the whole index.
+     */
+    void verify( PropertyAccessor accessor ) throws IndexEntryConflictException, IOException
+    {
+        from.initAsLowest( TYPE_NUMBER );
+        to.initAsHighest( TYPE_STRING );
+        verifyRange( accessor );
+    }
+
+    /**
+     * Verifies the entries of the given values only.
+     */
+    void verify( PropertyAccessor accessor, Collection<Object> values ) throws IndexEntryConflictException, IOException
+    {
+        for ( Object value : values )
+        {
+            if ( SchemaIndexKey.accepts( value ) )
+            {
+                from.from( value, Long.MIN_VALUE );
+                to.from( value, Long.MAX_VALUE );
+                verifyRange( accessor );
+            }
+        }
+    }
+
+    private void verifyRange( PropertyAccessor accessor ) throws IndexEntryConflictException, IOException
+    {
+        int sameKeyCount = 0;
+        try ( RawCursor<Hit<SchemaIndexKey,SchemaIndexValue>,IOException> cursor = index.seek( from, to ) )
+        {
+            while ( cursor.next() )
+            {
+                SchemaIndexKey key = cursor.get().key();
+                if ( sameKeyCount > 0 && key.compareValueTo( previous ) == 0 )
+                {
+                    verifyNotEqual( accessor, sameKeyCount, key.entityId );
+                }
+                else
+                {
+                    previous.copyFrom( key );
+                    sameKeyCount = 0;
+                }
+                if ( sameKeyCount == sameKeyNodes.length )
+                {
+                    sameKeyNodes = Arrays.copyOf( sameKeyNodes, sameKeyCount * 2 );
+                }
+                sameKeyNodes[sameKeyCount++] = key.entityId;
+            }
+        }
+    }
+
+    private void verifyNotEqual( PropertyAccessor accessor, int sameKeyCount, long nodeId )
+            throws IndexEntryConflictException
+    {
+        try
+        {
+            Property property = accessor.getProperty( nodeId, propertyKeyId );
+            for ( int i = 0; i < sameKeyCount; i++ )
+            {
+                Property other = accessor.getProperty( sameKeyNodes[i], propertyKeyId );
+                if ( property.valueEquals( other.value() ) )
+                {
+                    throw new PreexistingIndexEntryConflictException( other.value(), sameKeyNodes[i], nodeId );
+                }
+            }
+        }
+        catch ( KernelException e )
+        {
+            throw new IllegalStateException( "Indexed node should exist and have the indexed property.", e );
+        }
+    }
+}
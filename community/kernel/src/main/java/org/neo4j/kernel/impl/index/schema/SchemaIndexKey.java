@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Key of an entry in a {@link NativeSchemaIndex}, i.e. a property value together with the id of the node having it.
+ * <p>
+ * Keys are ordered by value type first, numbers before strings, then by value and lastly by node id, so that all
+ * nodes having one value are next to each other and all values of a type are in order. Numbers are kept as the
+ * bits of their double value, turned into a long that sorts like the double does, and strings as their UTF-8 bytes,
+ * which sort like the code points of the string do. Only strings of at most {@link #MAX_STRING_BYTES} bytes fit in
+ * a key, see {@link #accepts(Object)}.
+ * <p>
+ * Instances are mutable and meant to be reused, so that seeking and updating doesn't allocate per entry.
+ */
+class SchemaIndexKey
+{
+    static final byte TYPE_NUMBER = 1;
+    static final byte TYPE_STRING = 2;
+
+    /**
+     * Size of a key in the tree: type byte, value part and node id.
+     */
+    static final int SIZE = 64;
+    static final int VALUE_SIZE = SIZE - Byte.BYTES - Long.BYTES;
+
+    /**
+     * The value part of a string key holds a length byte followed by the bytes themselves.
+     */
+    static final int MAX_STRING_BYTES = VALUE_SIZE - Byte.BYTES;
+
+    byte type;
+    long numberBits;
+    final byte[] stringBytes = new byte[MAX_STRING_BYTES];
+    int stringLength;
+    long entityId;
+
+    /**
+     * @param value property value.
+     * @return whether or not the value can be kept in a native index key.
+     */
+    static boolean accepts( Object value )
+    {
+        return value instanceof Number ||
+               (value instanceof String && utf8Length( (String) value ) <= MAX_STRING_BYTES) ||
+               (value instanceof Character && utf8Length( value.toString() ) <= MAX_STRING_BYTES);
+    }
+
+    /**
+     * Sets this key to the given value and node id.
+     *
+     * @param value property value, must be {@link #accepts(Object) accepted}.
+     * @param entityId id of the node having the value.
+     * @return this key, for convenience.
+     */
+    SchemaIndexKey from( Object value, long entityId )
+    {
+        if ( value instanceof Number )
+        {
+            setNumber( ((Number) value).doubleValue() );
+        }
+        else if ( value instanceof String )
+        {
+            setString( (String) value );
+        }
+        else if ( value instanceof Character )
+        {
+            setString( value.toString() );
+        }
+        else
+        {
+            throw new IllegalArgumentException( "Unsupported value " + value );
+        }
+        this.entityId = entityId;
+        return this;
+    }
+
+    void setNumber( double value )
+    {
+        type = TYPE_NUMBER;
+        numberBits = sortableBits( value );
+        stringLength = 0;
+    }
+
+    void setString( String value )
+    {
+        int length = encodeUtf8( value, stringBytes );
+        if ( length < 0 )
+        {
+            throw new IllegalArgumentException( format( "String '%s' doesn't fit in a key of %d bytes",
+                    value, MAX_STRING_BYTES ) );
+        }
+        type = TYPE_STRING;
+        numberBits = 0;
+        stringLength = length;
+    }
+
+    /**
+     * Sets this key to be lower than, or equal to, any key of the given type.
+     */
+    SchemaIndexKey initAsLowest( byte type )
+    {
+        this.type = type;
+        numberBits = Long.MIN_VALUE;
+        stringLength = 0;
+        entityId = Long.MIN_VALUE;
+        return this;
+    }
+
+    /**
+     * Sets this key to be higher than any key of the given type.
+     */
+    SchemaIndexKey initAsHighest( byte type )
+    {
+        return initAsLowest( (byte) (type + 1) );
+    }
+
+    /**
+     * Compares the value parts of this and another key, ignoring node ids.
+     */
+    int compareValueTo( SchemaIndexKey other )
+    {
+        int typeComparison = Byte.compare( type, other.type );
+        if ( typeComparison != 0 )
+        {
+            return typeComparison;
+        }
+        if ( type == TYPE_NUMBER )
+        {
+            return Long.compare( numberBits, other.numberBits );
+        }
+        return compareBytes( stringBytes, stringLength, other.stringBytes, other.stringLength );
+    }
+
+    /**
+     * @return whether or not the string of this key starts with the given bytes.
+     */
+    boolean startsWith( byte[] prefix, int prefixLength )
+    {
+        if ( type != TYPE_STRING || stringLength < prefixLength )
+        {
+            return false;
+        }
+        for ( int i = 0; i < prefixLength; i++ )
+        {
+            if ( stringBytes[i] != prefix[i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether or not the string of this key ends with the given bytes.
+     */
+    boolean endsWith( byte[] suffix, int suffixLength )
+    {
+        if ( type != TYPE_STRING || stringLength < suffixLength )
+        {
+            return false;
+        }
+        int offset = stringLength - suffixLength;
+        for ( int i = 0; i < suffixLength; i++ )
+        {
+            if ( stringBytes[offset + i] != suffix[i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether or not the string of this key contains the given bytes. UTF-8 is self-synchronizing,
+     * so this is the same as the string containing the string the bytes were encoded from.
+     */
+    boolean contains( byte[] term, int termLength )
+    {
+        if ( type != TYPE_STRING )
+        {
+            return false;
+        }
+        outer:
+        for ( int start = 0; start <= stringLength - termLength; start++ )
+        {
+            for ( int i = 0; i < termLength; i++ )
+            {
+                if ( stringBytes[start + i] != term[i] )
+                {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the value of this key as an object, allocating it; only meant for exception messages and the like.
+     */
+    Object asValue()
+    {
+        return type == TYPE_NUMBER ? (Object) Double.longBitsToDouble( sortableBits( numberBits ) )
+                                   : new String( stringBytes, 0, stringLength, UTF_8 );
+    }
+
+    void copyFrom( SchemaIndexKey key )
+    {
+        type = key.type;
+        numberBits = key.numberBits;
+        System.arraycopy( key.stringBytes, 0, stringBytes, 0, key.stringLength );
+        stringLength = key.stringLength;
+        entityId = key.entityId;
+    }
+
+    /**
+     * Turns the bits of a double into a long which sorts the way the double does, folding negative zero into zero
+     * so that they are found by the same seek. Applying it to its own result gives back the double bits.
+     */
+    static long sortableBits( double value )
+    {
+        long bits = Double.doubleToLongBits( value == 0d ? 0d : value );
+        return sortableBits( bits );
+    }
+
+    private static long sortableBits( long bits )
+    {
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    static int compareBytes( byte[] left, int leftLength, byte[] right, int rightLength )
+    {
+        int length = Math.min( leftLength, rightLength );
+        for ( int i = 0; i < length; i++ )
+        {
+            int comparison = Integer.compare( left[i] & 0xFF, right[i] & 0xFF );
+            if ( comparison != 0 )
+            {
+                return comparison;
+            }
+        }
+        return Integer.compare( leftLength, rightLength );
+    }
+
+    /**
+     * @return the number of bytes in the UTF-8 encoding of the given string.
+     */
+    static int utf8Length( String value )
+    {
+        int length = 0;
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+            if ( c < 0x80 )
+            {
+                length += 1;
+            }
+            else if ( c < 0x800 )
+            {
+                length += 2;
+            }
+            else if ( Character.isHighSurrogate( c ) && i + 1 < value.length() &&
+                      Character.isLowSurrogate( value.charAt( i + 1 ) ) )
+            {
+                length += 4;
+                i++;
+            }
+            else
+            {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Encodes a string as UTF-8 into the given array, without allocating. Unpaired surrogates are encoded as
+     * three bytes each, like other chars of the basic multilingual plane.
+     *
+     * @return the number of bytes written, or {@code -1} if they don't fit in the array.
+     */
+    static int encodeUtf8( String value, byte[] into )
+    {
+        int length = 0;
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            int c = value.charAt( i );
+            int bytes;
+            if ( c < 0x80 )
+            {
+                bytes = 1;
+            }
+            else if ( c < 0x800 )
+            {
+                bytes = 2;
+            }
+            else if ( Character.isHighSurrogate( (char) c ) && i + 1 < value.length() &&
+                      Character.isLowSurrogate( value.charAt( i + 1 ) ) )
+            {
+                c = Character.toCodePoint( (char) c, value.charAt( ++i ) );
+                bytes = 4;
+            }
+            else
+            {
+                bytes = 3;
+            }
+            if ( length + bytes > into.length )
+            {
+                return -1;
+            }
+            switch ( bytes )
+            {
+            case 1:
+                into[length] = (byte) c;
+                break;
+            case 2:
+                into[length] = (byte) (0xC0 | (c >> 6));
+                into[length + 1] = (byte) (0x80 | (c & 0x3F));
+                break;
+            case 3:
+                into[length] = (byte) (0xE0 | (c >> 12));
+                into[length + 1] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                into[length + 2] = (byte) (0x80 | (c & 0x3F));
+                break;
+            default:
+                into[length] = (byte) (0xF0 | (c >> 18));
+                into[length + 1] = (byte) (0x80 | ((c >> 12) & 0x3F));
+                into[length + 2] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                into[length + 3] = (byte) (0x80 | (c & 0x3F));
+                break;
+            }
+            length += bytes;
+        }
+        return length;
+    }
+
+    @Override
+    public String toString()
+    {
+        return format( "[type:%d,value:%s,entityId:%d]", type, asValue(), entityId );
+    }
+}
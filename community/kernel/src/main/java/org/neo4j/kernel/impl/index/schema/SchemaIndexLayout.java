@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.neo4j.index.gbptree.Layout;
+import org.neo4j.io.pagecache.PageCursor;
+
+import static org.neo4j.kernel.impl.index.schema.SchemaIndexKey.TYPE_NUMBER;
+
+/**
+ * {@link Layout} for a {@link NativeSchemaIndex} tree. Keys are of fixed size, {@link SchemaIndexKey#SIZE},
+ * with the value part written first and padded, so that the node id is always at the same place.
+ */
+class SchemaIndexLayout extends Layout.Adapter<SchemaIndexKey,SchemaIndexValue>
+{
+    private static final long IDENTIFIER = Layout.namedIdentifier( "NSI", SchemaIndexKey.SIZE );
+
+    @Override
+    public int compare( SchemaIndexKey o1, SchemaIndexKey o2 )
+    {
+        int valueComparison = o1.compareValueTo( o2 );
+        return valueComparison != 0 ? valueComparison : Long.compare( o1.entityId, o2.entityId );
+    }
+
+    @Override
+    public SchemaIndexKey newKey()
+    {
+        return new SchemaIndexKey();
+    }
+
+    @Override
+    public SchemaIndexKey copyKey( SchemaIndexKey key, SchemaIndexKey into )
+    {
+        into.copyFrom( key );
+        return into;
+    }
+
+    @Override
+    public SchemaIndexValue newValue()
+    {
+        return SchemaIndexValue.INSTANCE;
+    }
+
+    @Override
+    public int keySize()
+    {
+        return SchemaIndexKey.SIZE;
+    }
+
+    @Override
+    public int valueSize()
+    {
+        return 0;
+    }
+
+    @Override
+    public void writeKey( PageCursor cursor, SchemaIndexKey key )
+    {
+        int valueOffset = cursor.getOffset() + Byte.BYTES;
+        cursor.putByte( key.type );
+        if ( key.type == TYPE_NUMBER )
+        {
+            cursor.putLong( key.numberBits );
+        }
+        else
+        {
+            cursor.putByte( (byte) key.stringLength );
+            cursor.putBytes( key.stringBytes, 0, key.stringLength );
+        }
+        cursor.setOffset( valueOffset + SchemaIndexKey.VALUE_SIZE );
+        cursor.putLong( key.entityId );
+    }
+
+    @Override
+    public void writeValue( PageCursor cursor, SchemaIndexValue value )
+    {   // Values are empty
+    }
+
+    @Override
+    public void readKey( PageCursor cursor, SchemaIndexKey into )
+    {
+        int valueOffset = cursor.getOffset() + Byte.BYTES;
+        into.type = cursor.getByte();
+        if ( into.type == TYPE_NUMBER )
+        {
+            into.numberBits = cursor.getLong();
+            into.stringLength = 0;
+        }
+        else
+        {
+            // A racing writer may have changed the page under an optimistic read, which is then retried,
+            // so make sure to not read past the key whatever the length byte says
+            into.numberBits = 0;
+            into.stringLength = Math.min( cursor.getByte() & 0xFF, SchemaIndexKey.MAX_STRING_BYTES );
+            cursor.getBytes( into.stringBytes, 0, into.stringLength );
+        }
+        cursor.setOffset( valueOffset + SchemaIndexKey.VALUE_SIZE );
+        into.entityId = cursor.getLong();
+    }
+
+    @Override
+    public void readValue( PageCursor cursor, SchemaIndexValue into )
+    {   // Values are empty
+    }
+
+    @Override
+    public long identifier()
+    {
+        return IDENTIFIER;
+    }
+
+    @Override
+    public int majorVersion()
+    {
+        return 0;
+    }
+
+    @Override
+    public int minorVersion()
+    {
+        return 1;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema.fusion;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.helpers.collection.BoundedIterable;
+import org.neo4j.helpers.collection.Iterators;
+import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
+import org.neo4j.storageengine.api.schema.IndexReader;
+
+/**
+ * {@link IndexAccessor} of a fusion index, accessing both parts.
+ */
+class FusionIndexAccessor implements IndexAccessor
+{
+    private final IndexAccessor nativeAccessor;
+    private final IndexAccessor fallbackAccessor;
+
+    FusionIndexAccessor( IndexAccessor nativeAccessor, IndexAccessor fallbackAccessor )
+    {
+        this.nativeAccessor = nativeAccessor;
+        this.fallbackAccessor = fallbackAccessor;
+    }
+
+    @Override
+    public void drop() throws IOException
+    {
+        try
+        {
+            nativeAccessor.drop();
+        }
+        finally
+        {
+            fallbackAccessor.drop();
+        }
+    }
+
+    @Override
+    public IndexUpdater newUpdater( IndexUpdateMode mode )
+    {
+        return new FusionIndexUpdater( nativeAccessor.newUpdater( mode ), fallbackAccessor.newUpdater( mode ) );
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        nativeAccessor.flush();
+        fallbackAccessor.flush();
+    }
+
+    @Override
+    public void force() throws IOException
+    {
+        nativeAccessor.force();
+        fallbackAccessor.force();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            nativeAccessor.close();
+        }
+        finally
+        {
+            fallbackAccessor.close();
+        }
+    }
+
+    @Override
+    public IndexReader newReader()
+    {
+        return new FusionIndexReader( nativeAccessor.newReader(), fallbackAccessor.newReader() );
+    }
+
+    @Override
+    public BoundedIterable<Long> newAllEntriesReader()
+    {
+        BoundedIterable<Long> nativeEntries = nativeAccessor.newAllEntriesReader();
+        BoundedIterable<Long> fallbackEntries = fallbackAccessor.newAllEntriesReader();
+        return new BoundedIterable<Long>()
+        {
+            @Override
+            public long maxCount()
+            {
+                return nativeEntries.maxCount() + fallbackEntries.maxCount();
+            }
+
+            @Override
+            public Iterator<Long> iterator()
+            {
+                return Iterators.concat( nativeEntries.iterator(), fallbackEntries.iterator() );
+            }
+
+            @Override
+            public void close() throws Exception
+            {
+                try
+                {
+                    nativeEntries.close();
+                }
+                finally
+                {
+                    fallbackEntries.close();
+                }
+            }
+        };
+    }
+
+    @Override
+    public ResourceIterator<File> snapshotFiles() throws IOException
+    {
+        return Iterators.concatResourceIterators(
+                Iterators.iterator( nativeAccessor.snapshotFiles(), fallbackAccessor.snapshotFiles() ) );
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[" + nativeAccessor + "," + fallbackAccessor + "]";
+    }
+}
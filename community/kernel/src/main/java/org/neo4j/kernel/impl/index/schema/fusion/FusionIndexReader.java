@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema.fusion;
+
+import java.util.Arrays;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.storageengine.api.schema.IndexOrder;
+import org.neo4j.storageengine.api.schema.IndexReader;
+import org.neo4j.storageengine.api.schema.IndexSampler;
+
+import static org.neo4j.kernel.impl.index.schema.fusion.FusionSchemaIndexProvider.combineSamples;
+import static org.neo4j.kernel.impl.index.schema.fusion.FusionSchemaIndexProvider.isNative;
+
+/**
+ * {@link IndexReader} of a fusion index. Seeks which can only match values of one part only look in that part,
+ * other seeks return the results of the native part followed by those of the fallback part.
+ */
+class FusionIndexReader implements IndexReader
+{
+    private final IndexReader nativeReader;
+    private final IndexReader fallbackReader;
+
+    FusionIndexReader( IndexReader nativeReader, IndexReader fallbackReader )
+    {
+        this.nativeReader = nativeReader;
+        this.fallbackReader = fallbackReader;
+    }
+
+    @Override
+    public PrimitiveLongIterator seek( Object value )
+    {
+        return select( value ).seek( value );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByNumberInclusive( Number lower, Number upper )
+    {
+        // All numbers are in the native part
+        return nativeReader.rangeSeekByNumberInclusive( lower, upper );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByString( String lower, boolean includeLower,
+            String upper, boolean includeUpper )
+    {
+        return concat(
+                nativeReader.rangeSeekByString( lower, includeLower, upper, includeUpper ),
+                fallbackReader.rangeSeekByString( lower, includeLower, upper, includeUpper ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByPrefix( String prefix )
+    {
+        return concat(
+                nativeReader.rangeSeekByPrefix( prefix ),
+                fallbackReader.rangeSeekByPrefix( prefix ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator scan()
+    {
+        return concat( nativeReader.scan(), fallbackReader.scan() );
+    }
+
+    @Override
+    public PrimitiveLongIterator containsString( String exactTerm )
+    {
+        return concat(
+                nativeReader.containsString( exactTerm ),
+                fallbackReader.containsString( exactTerm ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator endsWith( String suffix )
+    {
+        return concat( nativeReader.endsWith( suffix ), fallbackReader.endsWith( suffix ) );
+    }
+
+    @Override
+    public long countIndexedNodes( long nodeId, Object propertyValue )
+    {
+        return select( propertyValue ).countIndexedNodes( nodeId, propertyValue );
+    }
+
+    @Override
+    public IndexSampler createSampler()
+    {
+        IndexSampler nativeSampler = nativeReader.createSampler();
+        IndexSampler fallbackSampler = fallbackReader.createSampler();
+        return () -> combineSamples( nativeSampler.sampleIndex(), fallbackSampler.sampleIndex() );
+    }
+
+    @Override
+    public IndexOrder rangeSeekOrder()
+    {
+        // Number ranges are only looked up in the native part, string ranges concatenate the results of both parts
+        return nativeReader.rangeSeekOrder().ordersNumbers() ? IndexOrder.NUMBERS : IndexOrder.NONE;
+    }
+
+    private static PrimitiveLongIterator concat( PrimitiveLongIterator nativeResult,
+            PrimitiveLongIterator fallbackResult )
+    {
+        return PrimitiveLongCollections.concat( Arrays.asList( nativeResult, fallbackResult ) );
+    }
+
+    private IndexReader select( Object value )
+    {
+        return isNative( value ) ? nativeReader : fallbackReader;
+    }
+
+    @Override
+    public void close()
+    {
+        try
+        {
+            nativeReader.close();
+        }
+        finally
+        {
+            fallbackReader.close();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema.fusion;
+
+import java.io.IOException;
+
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+
+import static org.neo4j.kernel.impl.index.schema.fusion.FusionSchemaIndexProvider.isNative;
+
+/**
+ * {@link IndexUpdater} of a fusion index, sending each update to the part having, or getting, the value.
+ * A change from a value of one part to a value of the other becomes a removal from the first and an addition
+ * to the second.
+ */
+class FusionIndexUpdater implements IndexUpdater
+{
+    private final IndexUpdater nativeUpdater;
+    private final IndexUpdater fallbackUpdater;
+
+    FusionIndexUpdater( IndexUpdater nativeUpdater, IndexUpdater fallbackUpdater )
+    {
+        this.nativeUpdater = nativeUpdater;
+        this.fallbackUpdater = fallbackUpdater;
+    }
+
+    @Override
+    public void process( NodePropertyUpdate update ) throws IOException, IndexEntryConflictException
+    {
+        switch ( update.getUpdateMode() )
+        {
+        case ADDED:
+            select( update.getValueAfter() ).process( update );
+            break;
+        case CHANGED:
+            IndexUpdater from = select( update.getValueBefore() );
+            IndexUpdater to = select( update.getValueAfter() );
+            if ( from == to )
+            {
+                to.process( update );
+            }
+            else
+            {
+                from.process( NodePropertyUpdate.remove( update.getNodeId(), update.getPropertyKeyId(),
+                        update.getValueBefore(), labelsBefore( update ) ) );
+                to.process( NodePropertyUpdate.add( update.getNodeId(), update.getPropertyKeyId(),
+                        update.getValueAfter(), labelsAfter( update ) ) );
+            }
+            break;
+        case REMOVED:
+            select( update.getValueBefore() ).process( update );
+            break;
+        default:
+            throw new UnsupportedOperationException( "Unknown update mode " + update.getUpdateMode() );
+        }
+    }
+
+    private IndexUpdater select( Object value )
+    {
+        return isNative( value ) ? nativeUpdater : fallbackUpdater;
+    }
+
+    private static long[] labelsBefore( NodePropertyUpdate update )
+    {
+        long[] labels = new long[update.getNumberOfLabelsBefore()];
+        for ( int i = 0; i < labels.length; i++ )
+        {
+            labels[i] = update.getLabelBefore( i );
+        }
+        return labels;
+    }
+
+    private static long[] labelsAfter( NodePropertyUpdate update )
+    {
+        long[] labels = new long[update.getNumberOfLabelsAfter()];
+        for ( int i = 0; i < labels.length; i++ )
+        {
+            labels[i] = update.getLabelAfter( i );
+        }
+        return labels;
+    }
+
+    @Override
+    public void remove( PrimitiveLongSet nodeIds ) throws IOException
+    {
+        nativeUpdater.remove( nodeIds );
+        fallbackUpdater.remove( nodeIds );
+    }
+
+    @Override
+    public void close() throws IOException, IndexEntryConflictException
+    {
+        try
+        {
+            nativeUpdater.close();
+        }
+        finally
+        {
+            fallbackUpdater.close();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema.fusion;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.helpers.collection.Iterators;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexConfiguration;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.InternalIndexState;
+import org.neo4j.kernel.api.index.SchemaIndexProvider;
+import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
+import org.neo4j.kernel.impl.api.scan.LabelScanStoreProvider;
+import org.neo4j.kernel.impl.index.schema.NativeSchemaIndexProvider;
+import org.neo4j.kernel.impl.storemigration.StoreMigrationParticipant;
+import org.neo4j.storageengine.api.schema.IndexSample;
+
+/**
+ * {@link SchemaIndexProvider} of indexes made up of two parts, a native index of the provided
+ * {@link NativeSchemaIndexProvider} and an index of a fallback provider. Values which the native index
+ * {@link NativeSchemaIndexProvider#accepts(Object) accepts}, i.e. numbers and short strings, go into the native
+ * part and all other values into the fallback part, so that each value is in exactly one of them.
+ * <p>
+ * Seeks for one value, or for a range of numbers, only have to look in one of the parts, other seeks look in both.
+ */
+public class FusionSchemaIndexProvider extends SchemaIndexProvider
+{
+    private final NativeSchemaIndexProvider nativeProvider;
+    private final SchemaIndexProvider fallbackProvider;
+
+    public FusionSchemaIndexProvider( Descriptor descriptor, int priority,
+            NativeSchemaIndexProvider nativeProvider, SchemaIndexProvider fallbackProvider )
+    {
+        super( descriptor, priority );
+        this.nativeProvider = nativeProvider;
+        this.fallbackProvider = fallbackProvider;
+    }
+
+    static boolean isNative( Object value )
+    {
+        return NativeSchemaIndexProvider.accepts( value );
+    }
+
+    static IndexSample combineSamples( IndexSample nativeSample, IndexSample fallbackSample )
+    {
+        return new IndexSample( nativeSample.indexSize() + fallbackSample.indexSize(),
+                nativeSample.uniqueValues() + fallbackSample.uniqueValues(),
+                nativeSample.sampleSize() + fallbackSample.sampleSize() );
+    }
+
+    @Override
+    public IndexPopulator getPopulator( long indexId, IndexDescriptor descriptor, IndexConfiguration config,
+            IndexSamplingConfig samplingConfig )
+    {
+        return new FusionIndexPopulator(
+                nativeProvider.getPopulator( indexId, descriptor, config, samplingConfig ),
+                fallbackProvider.getPopulator( indexId, descriptor, config, samplingConfig ) );
+    }
+
+    @Override
+    public IndexAccessor getOnlineAccessor( long indexId, IndexConfiguration config,
+            IndexSamplingConfig samplingConfig ) throws IOException
+    {
+        IndexAccessor nativeAccessor = nativeProvider.getOnlineAccessor( indexId, config, samplingConfig );
+        try
+        {
+            return new FusionIndexAccessor( nativeAccessor,
+                    fallbackProvider.getOnlineAccessor( indexId, config, samplingConfig ) );
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            nativeAccessor.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public String getPopulationFailure( long indexId ) throws IllegalStateException
+    {
+        String nativeFailure = populationFailure( nativeProvider, indexId );
+        String fallbackFailure = populationFailure( fallbackProvider, indexId );
+        if ( nativeFailure == null && fallbackFailure == null )
+        {
+            throw new IllegalStateException( "Index " + indexId + " isn't failed" );
+        }
+        if ( nativeFailure == null || fallbackFailure == null )
+        {
+            return nativeFailure != null ? nativeFailure : fallbackFailure;
+        }
+        return nativeFailure + System.lineSeparator() + fallbackFailure;
+    }
+
+    private static String populationFailure( SchemaIndexProvider provider, long indexId )
+    {
+        try
+        {
+            return provider.getPopulationFailure( indexId );
+        }
+        catch ( IllegalStateException e )
+        {
+            return null;
+        }
+    }
+
+    @Override
+    public InternalIndexState getInitialState( long indexId )
+    {
+        InternalIndexState nativeState = nativeProvider.getInitialState( indexId );
+        InternalIndexState fallbackState = fallbackProvider.getInitialState( indexId );
+        if ( nativeState == InternalIndexState.FAILED || fallbackState == InternalIndexState.FAILED )
+        {
+            return InternalIndexState.FAILED;
+        }
+        if ( nativeState == InternalIndexState.POPULATING || fallbackState == InternalIndexState.POPULATING )
+        {
+            return InternalIndexState.POPULATING;
+        }
+        return InternalIndexState.ONLINE;
+    }
+
+    @Override
+    public StoreMigrationParticipant storeMigrationParticipant( FileSystemAbstraction fs, PageCache pageCache,
+            LabelScanStoreProvider labelScanStoreProvider )
+    {
+        // Only the fallback provider may have indexes in stores of earlier versions
+        return fallbackProvider.storeMigrationParticipant( fs, pageCache, labelScanStoreProvider );
+    }
+
+    @Override
+    public ResourceIterator<File> snapshotMetaFiles()
+    {
+        return Iterators.concatResourceIterators(
+                Iterators.iterator( nativeProvider.snapshotMetaFiles(), fallbackProvider.snapshotMetaFiles() ) );
+    }
+
+    @Override
+    public void init() throws Throwable
+    {
+        nativeProvider.init();
+        fallbackProvider.init();
+    }
+
+    @Override
+    public void start() throws Throwable
+    {
+        nativeProvider.start();
+        fallbackProvider.start();
+    }
+
+    @Override
+    public void stop() throws Throwable
+    {
+        fallbackProvider.stop();
+        nativeProvider.stop();
+    }
+
+    @Override
+    public void shutdown() throws Throwable
+    {
+        fallbackProvider.shutdown();
+        nativeProvider.shutdown();
+    }
+}
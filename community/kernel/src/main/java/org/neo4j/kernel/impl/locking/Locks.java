@@ -20,6 +20,7 @@
 package org.neo4j.kernel.impl.locking;
 
 import org.neo4j.helpers.Service;
+import org.neo4j.kernel.configuration.Config;
 import org.neo4j.storageengine.api.lock.AcquireLockTimeoutException;
 import org.neo4j.storageengine.api.lock.ResourceLocker;
 import org.neo4j.storageengine.api.lock.ResourceType;
@@ -54,6 +55,11 @@ public interface Locks
         }
 
         public abstract Locks newInstance( ResourceType[] resourceTypes );
+
+        public Locks newInstance( Config config, ResourceType[] resourceTypes )
+        {
+            return newInstance( resourceTypes );
+        }
     }
 
     /** For introspection and debugging. */
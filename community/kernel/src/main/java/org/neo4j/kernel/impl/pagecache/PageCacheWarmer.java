@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.WarmupEvent;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
+
+/**
+ * Keeps a profile of the pages that are in memory, and uses it to load those pages into memory again when the
+ * database starts, so that the page cache does not start out cold after a restart.
+ * <p>
+ * The profile is written periodically, and when the database stops, to a file in the store directory. For each of
+ * the mapped store files, it holds a compressed bitmap of the file pages that were in memory.
+ * <p>
+ * The warmup happens when this component starts, and the database will not be available until it is done. The
+ * files are warmed up in parallel, and the pages of each file are loaded in file offset order.
+ */
+public class PageCacheWarmer extends LifecycleAdapter
+{
+    public static final String PROFILE_FILE_NAME = "neostore.pagecache.profile";
+    private static final int PROFILE_FORMAT_VERSION = 1;
+
+    private final FileSystemAbstraction fs;
+    private final PageCache pageCache;
+    private final JobScheduler scheduler;
+    private final File storeDir;
+    private final long profileIntervalMillis;
+    private final PageCacheTracer tracer;
+    private final Log log;
+    private volatile JobScheduler.JobHandle profileJob;
+
+    public PageCacheWarmer( FileSystemAbstraction fs, PageCache pageCache, JobScheduler scheduler, File storeDir,
+            long profileIntervalMillis, PageCacheTracer tracer, Log log )
+    {
+        this.fs = fs;
+        this.pageCache = pageCache;
+        this.scheduler = scheduler;
+        this.storeDir = storeDir.getAbsoluteFile();
+        this.profileIntervalMillis = profileIntervalMillis;
+        this.tracer = tracer;
+        this.log = log;
+    }
+
+    @Override
+    public void start() throws Throwable
+    {
+        warmUp();
+        profileJob = scheduler.scheduleRecurring( JobScheduler.Groups.pageCacheWarmer, this::profileQuietly,
+                profileIntervalMillis, profileIntervalMillis, TimeUnit.MILLISECONDS );
+    }
+
+    @Override
+    public void stop() throws Throwable
+    {
+        JobScheduler.JobHandle job = profileJob;
+        if ( job != null )
+        {
+            job.cancel( false );
+            profileJob = null;
+        }
+        profileQuietly();
+    }
+
+    /**
+     * Load the pages in the profile into memory, if there is a profile. This method blocks until all the pages have
+     * been loaded.
+     * @return the number of pages that were loaded.
+     */
+    public long warmUp() throws IOException, InterruptedException
+    {
+        Map<String,long[]> profile = readProfile();
+        if ( profile.isEmpty() )
+        {
+            return 0;
+        }
+
+        long startTime = System.currentTimeMillis();
+        AtomicLong pagesLoaded = new AtomicLong();
+        List<JobScheduler.JobHandle> jobs = new ArrayList<>();
+        for ( PagedFile mapping : pageCache.listExistingMappings() )
+        {
+            long[] bitmap = profile.get( storeFileName( mapping.file() ) );
+            if ( bitmap != null )
+            {
+                File file = mapping.file();
+                int pageSize = mapping.pageSize();
+                jobs.add( scheduler.schedule( JobScheduler.Groups.pageCacheWarmer,
+                        () -> pagesLoaded.addAndGet( warmUpFile( file, pageSize, bitmap ) ) ) );
+            }
+        }
+        for ( JobScheduler.JobHandle job : jobs )
+        {
+            try
+            {
+                job.waitTermination();
+            }
+            catch ( ExecutionException e )
+            {
+                log.warn( "Page cache warmup of a store file failed.", e.getCause() );
+            }
+        }
+        log.info( "Page cache warmup loaded %d pages in %d ms.",
+                pagesLoaded.get(), System.currentTimeMillis() - startTime );
+        return pagesLoaded.get();
+    }
+
+    private long warmUpFile( File file, int pageSize, long[] bitmap )
+    {
+        // Map the file ourselves, so it stays mapped while we are warming it up.
+        try ( PagedFile pagedFile = pageCache.map( file, pageSize );
+              WarmupEvent warmupEvent = tracer.beginWarmup( file, countPages( bitmap ) );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+        {
+            long pagesLoaded = 0;
+            for ( int word = 0; word < bitmap.length; word++ )
+            {
+                long bits = bitmap[word];
+                long pagesLoadedInWord = 0;
+                while ( bits != 0 )
+                {
+                    long pageId = ((long) word << 6) + Long.numberOfTrailingZeros( bits );
+                    bits &= bits - 1;
+                    if ( !cursor.next( pageId ) )
+                    {
+                        // The file has shrunk since the profile was written.
+                        warmupEvent.pagesLoaded( pagesLoadedInWord );
+                        return pagesLoaded + pagesLoadedInWord;
+                    }
+                    pagesLoadedInWord++;
+                }
+                if ( pagesLoadedInWord > 0 )
+                {
+                    warmupEvent.pagesLoaded( pagesLoadedInWord );
+                    pagesLoaded += pagesLoadedInWord;
+                }
+            }
+            return pagesLoaded;
+        }
+        catch ( IOException e )
+        {
+            log.warn( "Page cache warmup of " + file + " failed.", e );
+            return 0;
+        }
+    }
+
+    private static long countPages( long[] bitmap )
+    {
+        long count = 0;
+        for ( long word : bitmap )
+        {
+            count += Long.bitCount( word );
+        }
+        return count;
+    }
+
+    /**
+     * Write a profile of the pages that are currently in memory, replacing any existing profile.
+     */
+    public synchronized void profile() throws IOException
+    {
+        File profileFile = new File( storeDir, PROFILE_FILE_NAME );
+        File tempFile = new File( storeDir, PROFILE_FILE_NAME + ".tmp" );
+        try ( DataOutputStream out = new DataOutputStream(
+                new GZIPOutputStream( fs.openAsOutputStream( tempFile, false ) ) ) )
+        {
+            out.writeInt( PROFILE_FORMAT_VERSION );
+            for ( PagedFile mapping : pageCache.listExistingMappings() )
+            {
+                String fileName = storeFileName( mapping.file() );
+                if ( fileName == null )
+                {
+                    continue;
+                }
+                long[] bitmap;
+                try
+                {
+                    bitmap = residentPages( mapping );
+                }
+                catch ( IllegalStateException e )
+                {
+                    // The file got unmapped while we were looking at it.
+                    continue;
+                }
+                out.writeBoolean( true );
+                out.writeUTF( fileName );
+                out.writeInt( bitmap.length );
+                for ( long word : bitmap )
+                {
+                    out.writeLong( word );
+                }
+            }
+            out.writeBoolean( false );
+        }
+        // The profile is replaced in one atomic move, so that a crash never leaves the store without one
+        fs.renameFile( tempFile, profileFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+    }
+
+    private void profileQuietly()
+    {
+        try
+        {
+            profile();
+        }
+        catch ( Exception e )
+        {
+            log.warn( "Failed to write page cache profile.", e );
+        }
+    }
+
+    private static long[] residentPages( PagedFile pagedFile ) throws IOException
+    {
+        long lastPageId = pagedFile.getLastPageId();
+        if ( lastPageId < 0 )
+        {
+            return new long[0];
+        }
+        long[] bitmap = new long[(int) (lastPageId >>> 6) + 1];
+        // Look at the pages without faulting them in, and without counting it as usage of the pages.
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT | PF_TRANSIENT ) )
+        {
+            while ( cursor.next() )
+            {
+                long pageId = cursor.getCurrentPageId();
+                if ( pageId != PageCursor.UNBOUND_PAGE_ID )
+                {
+                    int word = (int) (pageId >>> 6);
+                    if ( word >= bitmap.length )
+                    {
+                        // The file has grown since we started.
+                        break;
+                    }
+                    bitmap[word] |= 1L << (pageId & 63);
+                }
+            }
+        }
+        return bitmap;
+    }
+
+    private Map<String,long[]> readProfile()
+    {
+        Map<String,long[]> profile = new HashMap<>();
+        File profileFile = new File( storeDir, PROFILE_FILE_NAME );
+        if ( !fs.fileExists( profileFile ) )
+        {
+            return profile;
+        }
+        try ( DataInputStream in = new DataInputStream(
+                new GZIPInputStream( fs.openAsInputStream( profileFile ) ) ) )
+        {
+            int version = in.readInt();
+            if ( version != PROFILE_FORMAT_VERSION )
+            {
+                log.warn( "Ignoring page cache profile with unknown format version %d.", version );
+                return profile;
+            }
+            while ( in.readBoolean() )
+            {
+                String fileName = in.readUTF();
+                long[] bitmap = new long[in.readInt()];
+                for ( int i = 0; i < bitmap.length; i++ )
+                {
+                    bitmap[i] = in.readLong();
+                }
+                profile.put( fileName, bitmap );
+            }
+        }
+        catch ( IOException e )
+        {
+            log.warn( "Ignoring page cache profile that could not be read.", e );
+            profile.clear();
+        }
+        return profile;
+    }
+
+    /**
+     * @return the name of the given file relative to the store directory, or {@code null} if the file is not in the
+     * store directory, since the page cache can be shared with other databases.
+     */
+    private String storeFileName( File file )
+    {
+        Path path = file.getAbsoluteFile().toPath();
+        Path storePath = storeDir.toPath();
+        return path.startsWith( storePath ) ? storePath.relativize( path ).toString() : null;
+    }
+}
@@ -141,12 +141,32 @@ public class Neo4jTransactionalContext implements TransactionalContext
         }
     }
 
+    @Override
+    public TransactionalContext beginInNewThread()
+    {
+        InternalTransaction transaction = graph.beginTransaction( transactionType, mode );
+        Statement statement = txBridge.get();
+        return new Neo4jTransactionalContext( graph, transaction, statement, locker );
+    }
+
     @Override
     public boolean isOpen()
     {
         return isOpen;
     }
 
+    @Override
+    public void terminate()
+    {
+        transaction.terminate();
+    }
+
+    @Override
+    public boolean isTerminated()
+    {
+        return transaction.isTerminated();
+    }
+
     @Override
     public GraphDatabaseQueryService graph()
     {
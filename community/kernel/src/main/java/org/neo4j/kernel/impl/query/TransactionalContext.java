@@ -45,8 +45,21 @@ public interface TransactionalContext
 
     TransactionalContext provideContext();
 
+    /**
+     * Begins a new transaction of the same type and access mode as this one, bound to the calling thread.
+     * Used by queries that read in parallel, where every worker thread needs a transaction of its own.
+     */
+    TransactionalContext beginInNewThread();
+
     boolean isOpen();
 
+    /**
+     * Terminates the transaction of this context. Unlike the other methods, it may be called from any thread.
+     */
+    void terminate();
+
+    boolean isTerminated();
+
     GraphDatabaseQueryService graph();
 
     Statement statement();
@@ -82,6 +82,7 @@ import org.neo4j.kernel.impl.transaction.command.IndexBatchTransactionApplier;
 import org.neo4j.kernel.impl.transaction.command.IndexUpdatesWork;
 import org.neo4j.kernel.impl.transaction.command.LabelUpdateWork;
 import org.neo4j.kernel.impl.transaction.command.NeoStoreBatchTransactionApplier;
+import org.neo4j.kernel.impl.transaction.command.ParallelNeoStoreRecoveryApplier;
 import org.neo4j.kernel.impl.transaction.state.DefaultSchemaIndexProviderMap;
 import org.neo4j.kernel.impl.transaction.state.IntegrityValidator;
 import org.neo4j.kernel.impl.transaction.state.Loaders;
@@ -117,6 +118,7 @@ import org.neo4j.storageengine.api.txstate.TxStateVisitor;
 import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
 
 import static org.neo4j.kernel.impl.locking.LockService.NO_LOCK_SERVICE;
+import static org.neo4j.storageengine.api.TransactionApplicationMode.RECOVERY;
 import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.flag;
 
 public class RecordStorageEngine implements StorageEngine, Lifecycle
@@ -161,6 +163,8 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     private final PropertyCreator propertyCreator;
     private final PropertyDeleter propertyDeleter;
 
+    private final int recoveryWorkers;
+
     public RecordStorageEngine(
             File storeDir,
             Config config,
@@ -197,6 +201,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         this.indexConfigStore = indexConfigStore;
         this.constraintSemantics = constraintSemantics;
         this.legacyIndexTransactionOrdering = legacyIndexTransactionOrdering;
+        this.recoveryWorkers = config.get( GraphDatabaseSettings.recovery_parallel_workers );
 
         if ( safeIdBuffering )
         {
@@ -323,9 +328,15 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     @Override
     public void apply( CommandsToApply batch, TransactionApplicationMode mode ) throws Exception
     {
+        if ( mode == RECOVERY && recoveryWorkers > 1 )
+        {
+            applyRecoveredInParallel( batch );
+            return;
+        }
+
         // Have these command appliers as separate try-with-resource to have better control over
         // point between closing this and the locks above
-        try ( BatchTransactionApplier batchApplier = applier( mode ) )
+        try ( BatchTransactionApplier batchApplier = applier( mode, true ) )
         {
             while ( batch != null )
             {
@@ -346,6 +357,61 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         }
     }
 
+    /**
+     * Applies recovered transactions in two stages. Record updates are applied by a
+     * {@link ParallelNeoStoreRecoveryApplier}, after which the index, legacy index and counts updates of the same
+     * transactions are applied serially, in batch. Transactions that the parallel applier doesn't accept, i.e.
+     * transactions changing tokens or schema, are applied serially in full in between.
+     */
+    private void applyRecoveredInParallel( CommandsToApply batch ) throws Exception
+    {
+        List<CommandsToApply> recordsApplied = new ArrayList<>();
+        try ( ParallelNeoStoreRecoveryApplier storeApplier = new ParallelNeoStoreRecoveryApplier(
+                neoStores, cacheAccess, lockService, recoveryWorkers ) )
+        {
+            for ( ; batch != null; batch = batch.next() )
+            {
+                if ( storeApplier.offer( batch ) )
+                {
+                    recordsApplied.add( batch );
+                }
+                else
+                {
+                    storeApplier.applyWave();
+                    applyRecovered( recordsApplied, false );
+                    recordsApplied.clear();
+                    applyRecovered( Collections.singletonList( batch ), true );
+                }
+            }
+            storeApplier.applyWave();
+            applyRecovered( recordsApplied, false );
+        }
+        catch ( Throwable cause )
+        {
+            databaseHealth.panic( cause );
+            throw cause;
+        }
+    }
+
+    private void applyRecovered( List<CommandsToApply> transactions, boolean includeRecordUpdates ) throws Exception
+    {
+        if ( transactions.isEmpty() )
+        {
+            return;
+        }
+        try ( BatchTransactionApplier batchApplier = applier( RECOVERY, includeRecordUpdates ) )
+        {
+            for ( CommandsToApply transaction : transactions )
+            {
+                try ( LockGroup locks = new LockGroup();
+                      TransactionApplier txApplier = batchApplier.startTx( transaction, locks ) )
+                {
+                    transaction.accept( txApplier );
+                }
+            }
+        }
+    }
+
     /**
      * Creates a {@link BatchTransactionApplierFacade} that is to be used for all transactions
      * in a batch. Each transaction is handled by a {@link TransactionApplierFacade} which wraps the
@@ -353,11 +419,14 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
      *
      * After all transactions have been applied the appliers are closed.
      */
-    private BatchTransactionApplierFacade applier( TransactionApplicationMode mode )
+    private BatchTransactionApplierFacade applier( TransactionApplicationMode mode, boolean includeRecordUpdates )
     {
         ArrayList<BatchTransactionApplier> appliers = new ArrayList<>();
         // Graph store application. The order of the decorated store appliers is irrelevant
-        appliers.add( new NeoStoreBatchTransactionApplier( neoStores, cacheAccess, lockService ) );
+        if ( includeRecordUpdates )
+        {
+            appliers.add( new NeoStoreBatchTransactionApplier( neoStores, cacheAccess, lockService ) );
+        }
         if ( mode.needsHighIdTracking() )
         {
             appliers.add( new HighIdBatchTransactionApplier( neoStores ) );
@@ -396,6 +465,8 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         satisfier.satisfyDependency( indexingService );
         // providing TransactionIdStore, LogVersionRepository
         satisfier.satisfyDependency( neoStores.getMetaDataStore() );
+        // providing the record stores to relationship chain ordering
+        satisfier.satisfyDependency( neoStores );
         satisfier.satisfyDependency( indexStoreView );
     }
 
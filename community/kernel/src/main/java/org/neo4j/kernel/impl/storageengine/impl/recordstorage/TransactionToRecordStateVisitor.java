@@ -103,6 +103,12 @@ public class TransactionToRecordStateVisitor extends TxStateVisitor.Adapter
         recordState.relDelete( id );
     }
 
+    @Override
+    public void visitOrderedRelationshipChains( long nodeId )
+    {
+        recordState.nodeOrderRelationshipChains( nodeId );
+    }
+
     @Override
     public void visitNodePropertyChanges( long id, Iterator<StorageProperty> added,
             Iterator<StorageProperty> changed, Iterator<Integer> removed )
@@ -25,6 +25,9 @@ import java.nio.file.NoSuchFileException;
 import java.nio.file.StandardOpenOption;
 import java.util.Collection;
 
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
 import org.neo4j.graphdb.config.Setting;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.helpers.collection.Visitor;
@@ -72,6 +75,8 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
     protected final String storeVersion;
     protected final RecordFormat<RECORD> recordFormat;
     private IdGenerator idGenerator;
+    // ids of records deleted while recovering, for restoring the id generator with after recovery
+    private PrimitiveLongSet idsFreedDuringRecovery;
     private boolean storeOk = true;
     private Throwable causeOfStoreNotOk;
     private final String typeDescriptor;
@@ -403,8 +408,13 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
             throw new InvalidRecordException( "Illegal blockSize: " + blockSize );
         }
 
-        log.info( "Rebuilding id generator for[" + getStorageFileName() + "] ..." );
         closeIdGenerator();
+        if ( restoreIdGenerator() )
+        {
+            return;
+        }
+
+        log.info( "Rebuilding id generator for[" + getStorageFileName() + "] ..." );
         createIdGenerator( getIdFileName() );
         openIdGenerator();
 
@@ -444,6 +454,52 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
         return config.get( Configuration.rebuild_idgenerators_fast );
     }
 
+    /**
+     * Restores the id generator from the free ids in its file and the ids freed during recovery, as an alternative
+     * to rebuilding it, see {@link IdGeneratorFactory#restore(File, long, long[], java.util.function.LongPredicate)}.
+     * This only reads the records of those ids, instead of the whole store.
+     *
+     * @return {@code true} if the id generator was restored and opened, otherwise it has to be rebuilt.
+     */
+    private boolean restoreIdGenerator()
+    {
+        long[] freedDuringRecovery = drainIdsFreedDuringRecovery();
+        if ( !configuration.get( Configuration.restore_idgenerators ) )
+        {
+            return false;
+        }
+
+        long highId = scanForHighId();
+        long lowestId = getNumberOfReservedLowIds();
+        long restoredCount = idGeneratorFactory.restore( getIdFileName(), highId, freedDuringRecovery,
+                id -> id >= lowestId && !isInUse( id ) );
+        if ( restoredCount == -1 )
+        {
+            return false;
+        }
+
+        openIdGenerator();
+        log.info( getStorageFileName() + " restored id generator, highId=" + getHighId() +
+                  " defragged count=" + restoredCount );
+        return true;
+    }
+
+    private long[] drainIdsFreedDuringRecovery()
+    {
+        PrimitiveLongSet freedIds = idsFreedDuringRecovery;
+        idsFreedDuringRecovery = null;
+        if ( freedIds == null )
+        {
+            return PrimitiveLongCollections.EMPTY_LONG_ARRAY;
+        }
+        synchronized ( freedIds )
+        {
+            long[] ids = PrimitiveLongCollections.asArray( freedIds.iterator() );
+            freedIds.close();
+            return ids;
+        }
+    }
+
     private long rebuildIdGeneratorSlow( PageCursor cursor, int recordsPerPage, int blockSize,
                                          long foundHighId )
             throws IOException
@@ -517,6 +573,10 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
         storeOk = false;
         causeOfStoreNotOk = cause;
         idGenerator = null; // since we will rebuild it later
+        if ( idsFreedDuringRecovery == null && configuration.get( Configuration.restore_idgenerators ) )
+        {
+            idsFreedDuringRecovery = Primitive.longSet();
+        }
     }
 
     /**
@@ -566,8 +626,30 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
         if ( generator != null )
         {
             generator.freeId( id );
+            return;
+        }
+        // else we're deleting records as part of applying transactions during recovery, and that's fine,
+        // but we keep the ids around to restore the id generator with afterwards
+        PrimitiveLongSet freedIds = idsFreedDuringRecovery;
+        if ( freedIds != null )
+        {
+            synchronized ( freedIds )
+            {
+                freedIds.add( id );
+            }
+        }
+    }
+
+    /**
+     * Persists the ids freed so far by this store's {@link IdGenerator}, see {@link IdGenerator#flush()}.
+     */
+    public void flushIdGenerator()
+    {
+        IdGenerator generator = this.idGenerator;
+        if ( generator != null )
+        {
+            generator.flush();
         }
-        // else we're deleting records as part of applying transactions during recovery, and that's fine
     }
 
     /**
@@ -1101,7 +1183,7 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
     @Override
     public <EXCEPTION extends Exception> void scanAllRecords( Visitor<RECORD,EXCEPTION> visitor ) throws EXCEPTION
     {
-        try ( RecordCursor<RECORD> cursor = newRecordCursor( newRecord() ) )
+        try ( RecordCursor<RECORD> cursor = newSequentialRecordCursor( newRecord() ) )
         {
             long highId = getHighId();
             cursor.acquire( getNumberOfReservedLowIds(), CHECK );
@@ -1127,6 +1209,17 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
 
     @Override
     public RecordCursor<RECORD> newRecordCursor( final RECORD record )
+    {
+        return newRecordCursor( record, PF_SHARED_READ_LOCK );
+    }
+
+    @Override
+    public RecordCursor<RECORD> newSequentialRecordCursor( final RECORD record )
+    {
+        return newRecordCursor( record, PF_SHARED_READ_LOCK | PF_READ_AHEAD );
+    }
+
+    private RecordCursor<RECORD> newRecordCursor( final RECORD record, final int pf_flags )
     {
         return new RecordCursor<RECORD>()
         {
@@ -1212,7 +1305,7 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
                 this.mode = mode;
                 try
                 {
-                    this.pageCursor = storeFile.io( pageIdForRecord( id ), PF_SHARED_READ_LOCK );
+                    this.pageCursor = storeFile.io( pageIdForRecord( id ), pf_flags );
                 }
                 catch ( IOException e )
                 {
@@ -1299,5 +1392,8 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
     {
         public static final Setting<Boolean> rebuild_idgenerators_fast =
                 GraphDatabaseSettings.rebuild_idgenerators_fast;
+
+        public static final Setting<Boolean> restore_idgenerators =
+                GraphDatabaseSettings.restore_idgenerators;
     }
 }
@@ -204,6 +204,10 @@ public class NeoStores implements AutoCloseable
                 counts.rotate( getMetaDataStore().getLastCommittedTransactionId() );
             }
             pageCache.flushAndForce( limiter );
+            for ( CommonAbstractStore store : instantiatedRecordStores() )
+            {
+                store.flushIdGenerator();
+            }
         }
         catch ( IOException e )
         {
@@ -42,6 +42,8 @@ public class RecordCursors implements AutoCloseable
     private final RecordCursor<DynamicRecord> propertyString;
     private final RecordCursor<DynamicRecord> propertyArray;
     private final RecordCursor<DynamicRecord> label;
+    private final RecordCursor<NodeRecord> nodeScan;
+    private final RecordCursor<RelationshipRecord> relationshipScan;
 
     public RecordCursors( NeoStores neoStores )
     {
@@ -57,6 +59,8 @@ public class RecordCursors implements AutoCloseable
         propertyString = newCursor( neoStores.getPropertyStore().getStringStore(), mode );
         propertyArray = newCursor( neoStores.getPropertyStore().getArrayStore(), mode );
         label = newCursor( neoStores.getNodeStore().getDynamicLabelStore(), mode );
+        nodeScan = newSequentialCursor( neoStores.getNodeStore(), mode );
+        relationshipScan = newSequentialCursor( neoStores.getRelationshipStore(), mode );
     }
 
     private static <R extends AbstractBaseRecord> RecordCursor<R> newCursor( RecordStore<R> store, RecordLoad mode )
@@ -64,11 +68,18 @@ public class RecordCursors implements AutoCloseable
         return store.newRecordCursor( store.newRecord() ).acquire( store.getNumberOfReservedLowIds(), mode );
     }
 
+    private static <R extends AbstractBaseRecord> RecordCursor<R> newSequentialCursor( RecordStore<R> store,
+            RecordLoad mode )
+    {
+        return store.newSequentialRecordCursor( store.newRecord() ).acquire( store.getNumberOfReservedLowIds(), mode );
+    }
+
     @Override
     public void close()
     {
         IOUtils.closeAll( RuntimeException.class,
-                node, relationship, relationshipGroup, property, propertyArray, propertyString, label );
+                node, relationship, relationshipGroup, property, propertyArray, propertyString, label,
+                nodeScan, relationshipScan );
     }
 
     public RecordCursor<NodeRecord> node()
@@ -76,6 +87,23 @@ public class RecordCursors implements AutoCloseable
         return node;
     }
 
+    /**
+     * @return a cursor for reading node records in increasing id order, such as when scanning all nodes.
+     */
+    public RecordCursor<NodeRecord> nodeScan()
+    {
+        return nodeScan;
+    }
+
+    /**
+     * @return a cursor for reading relationship records in increasing id order, such as when scanning all
+     * relationships.
+     */
+    public RecordCursor<RelationshipRecord> relationshipScan()
+    {
+        return relationshipScan;
+    }
+
     public RecordCursor<RelationshipRecord> relationship()
     {
         return relationship;
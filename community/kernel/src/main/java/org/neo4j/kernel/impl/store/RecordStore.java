@@ -146,6 +146,16 @@ public interface RecordStore<RECORD extends AbstractBaseRecord> extends IdSequen
      */
     RecordCursor<RECORD> newRecordCursor( RECORD record );
 
+    /**
+     * Instantiates a new record cursor, just like {@link #newRecordCursor(AbstractBaseRecord)}, but one that is
+     * intended for reading records in increasing id order. The underlying store file will be read ahead of the
+     * records being read, which makes scans over large parts of the store a lot faster when they are not in memory.
+     *
+     * @param record instance to use when reading record data.
+     * @return a new {@link RecordCursor} instance for scanning records in this store.
+     */
+    RecordCursor<RECORD> newSequentialRecordCursor( RECORD record );
+
     /**
      * Returns another record id which the given {@code record} references and which a {@link RecordCursor}
      * would follow and read next.
@@ -278,6 +288,12 @@ public interface RecordStore<RECORD extends AbstractBaseRecord> extends IdSequen
             return actual.newRecordCursor( record );
         }
 
+        @Override
+        public RecordCursor<R> newSequentialRecordCursor( R record )
+        {
+            return actual.newSequentialRecordCursor( record );
+        }
+
         @Override
         public long getNextRecordReference( R record )
         {
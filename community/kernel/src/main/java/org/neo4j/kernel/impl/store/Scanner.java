@@ -59,7 +59,9 @@ public class Scanner
         {
             this.filters = filters;
             this.ids = new StoreIdIterator( store, forward );
-            this.cursor = store.newRecordCursor( store.newRecord() );
+            this.cursor = forward
+                          ? store.newSequentialRecordCursor( store.newRecord() )
+                          : store.newRecordCursor( store.newRecord() );
             cursor.acquire( 0, RecordLoad.CHECK );
         }
 
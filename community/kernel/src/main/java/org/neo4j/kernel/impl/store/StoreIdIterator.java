@@ -29,6 +29,7 @@ public class StoreIdIterator implements PrimitiveLongIterator
 {
     private final RecordStore<?> store;
     private long targetId, id;
+    private final long upperBound;
     private final boolean forward;
 
     public StoreIdIterator( RecordStore<?> store )
@@ -40,9 +41,22 @@ public class StoreIdIterator implements PrimitiveLongIterator
     {
         this.store = store;
         this.id = forward ? store.getNumberOfReservedLowIds() : store.getHighestPossibleIdInUse();
+        this.upperBound = Long.MAX_VALUE;
         this.forward = forward;
     }
 
+    /**
+     * Iterates forward over the ids in {@code [fromId, toId)}, never going beyond the high id of the store.
+     * Use {@link Long#MAX_VALUE} as {@code toId} to keep following the high id like an unbounded iterator does.
+     */
+    public StoreIdIterator( RecordStore<?> store, long fromId, long toId )
+    {
+        this.store = store;
+        this.id = Math.max( fromId, store.getNumberOfReservedLowIds() );
+        this.upperBound = toId;
+        this.forward = true;
+    }
+
     @Override
     public String toString()
     {
@@ -58,7 +72,7 @@ public class StoreIdIterator implements PrimitiveLongIterator
             {
                 return true;
             }
-            targetId = store.getHighId();
+            targetId = Math.min( store.getHighId(), upperBound );
             return id < targetId;
         }
 
@@ -60,7 +60,9 @@ import static org.neo4j.kernel.impl.store.counts.keys.CountsKeyFactory.relations
  *
  * The counts store is a key/value store, where key/value entries are stored sorted by the key in ascending unsigned
  * (big endian) order. These store files are immutable, and on store-flush the implementation swaps the read and write
- * file in a {@linkplain Rotation.Strategy#LEFT_RIGHT left/right pattern}.
+ * file in a {@linkplain Rotation.Strategy#LEFT_RIGHT left/right pattern}. If
+ * {@link GraphDatabaseSettings#counts_store_delta_threshold delta files} are enabled, a store-flush that changed few
+ * counts only writes the changed counts to a delta file next to the current store file.
  *
  * This class defines {@linkplain KeyFormat the key serialisation format},
  * {@linkplain CountsUpdater the value serialisation format}, and
@@ -118,6 +120,7 @@ public class CountsTracker extends AbstractKeyValueStore<CountsKey>
             }
         }, new RotationTimerFactory( Clock.SYSTEM_CLOCK,
                 config.get( GraphDatabaseSettings.counts_store_rotation_timeout ) ), 16, 16, HEADER_FIELDS );
+        setDeltaThreshold( config.get( GraphDatabaseSettings.counts_store_delta_threshold ) );
     }
 
     public CountsTracker setInitializer( final DataInitializer<Updater> initializer )
@@ -20,19 +20,45 @@
 package org.neo4j.kernel.impl.store.id;
 
 import java.io.File;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.LongPredicate;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
 
 public class DefaultIdGeneratorFactory implements IdGeneratorFactory
 {
+    public static final String THREAD_LOCAL_BATCH_SIZE_NAME = "thread_local_batch_size";
+
+    /**
+     * Id types of the stores which get most of their records created by concurrent transactions. Generators for
+     * these hand out ids in {@link ThreadLocalBatchingIdGenerator thread local batches}, if enabled. The other
+     * stores have few records and some of them a low max id, so batches would only waste ids there.
+     */
+    private static final Set<IdType> BATCHED_ID_TYPES = EnumSet.of( IdType.NODE, IdType.RELATIONSHIP,
+            IdType.RELATIONSHIP_GROUP, IdType.PROPERTY, IdType.STRING_BLOCK, IdType.ARRAY_BLOCK, IdType.NODE_LABELS );
+
     private final Map<IdType, IdGenerator> generators = new HashMap<>();
     private final FileSystemAbstraction fs;
+    private final int threadLocalBatchSize;
 
     public DefaultIdGeneratorFactory( FileSystemAbstraction fs )
+    {
+        this( fs, FeatureToggles.getInteger( DefaultIdGeneratorFactory.class, THREAD_LOCAL_BATCH_SIZE_NAME, 0 ) );
+    }
+
+    /**
+     * @param fs the file system to open id generator files on.
+     * @param threadLocalBatchSize number of ids each thread grabs at a time from generators of frequently
+     * allocated id types, or {@code 0} to have all threads allocate from the generators directly.
+     */
+    public DefaultIdGeneratorFactory( FileSystemAbstraction fs, int threadLocalBatchSize )
     {
         this.fs = fs;
+        this.threadLocalBatchSize = threadLocalBatchSize;
     }
 
     @Override
@@ -40,6 +66,10 @@ public class DefaultIdGeneratorFactory implements IdGeneratorFactory
     {
         boolean aggressiveReuse = idType.allowAggressiveReuse();
         IdGenerator generator = instantiate( fs, fileName, grabSize, maxId, aggressiveReuse, highId );
+        if ( threadLocalBatchSize > 0 && BATCHED_ID_TYPES.contains( idType ) )
+        {
+            generator = new ThreadLocalBatchingIdGenerator( generator, threadLocalBatchSize );
+        }
         generators.put( idType, generator );
         return generator;
     }
@@ -61,4 +91,18 @@ public class DefaultIdGeneratorFactory implements IdGeneratorFactory
     {
         IdGeneratorImpl.createGenerator( fs, fileName, highId, throwIfFileExists );
     }
+
+    /**
+     * Declines to restore when ids are handed out in thread local batches. Ids grabbed by a thread but not yet handed
+     * out are neither in the id file nor in use in the store, so they'd leak, while a rebuild finds them.
+     */
+    @Override
+    public long restore( File fileName, long highId, long[] extraFreeIds, LongPredicate isFree )
+    {
+        if ( threadLocalBatchSize > 0 )
+        {
+            return -1;
+        }
+        return IdGeneratorImpl.restoreGenerator( fs, fileName, highId, extraFreeIds, isFree );
+    }
 }
@@ -175,6 +175,19 @@ public class FreeIdKeeper implements Closeable
         }
     }
 
+    /*
+     * Writes the freeIds list to disk, after what has been written before, and forces the channel. Ids that have
+     * been read from disk and handed out are not removed from the file, so the file holds a superset of the free ids.
+     */
+    public void flush() throws IOException
+    {
+        if ( !freeIds.isEmpty() )
+        {
+            writeIdBatch( ByteBuffer.allocate( threshold * ID_ENTRY_SIZE ) );
+        }
+        channel.force( false );
+    }
+
     /*
      * Writes both freeIds and readFromDisk lists to disk and truncates the channel to size. It forces but does not
      * close the channel.
@@ -33,6 +33,28 @@ public interface IdGenerator extends IdSequence, Closeable
     long getHighestPossibleIdInUse();
     void freeId( long id );
 
+    /**
+     * Frees all the given ids, like calling {@link #freeId(long)} for each one of them. Implementations may
+     * override this to free them all in one go.
+     *
+     * @param ids the ids to free.
+     */
+    default void freeIds( long[] ids )
+    {
+        for ( long id : ids )
+        {
+            freeId( id );
+        }
+    }
+
+    /**
+     * Persists ids freed so far, so that they can be restored if this id generator doesn't get closed cleanly.
+     * Called on every check point. Does nothing for id generators which don't keep their free ids in a file.
+     */
+    default void flush()
+    {
+    }
+
     /**
      * Closes the id generator, marking it as clean.
      */
@@ -92,6 +114,18 @@ public interface IdGenerator extends IdSequence, Closeable
             delegate.freeId( id );
         }
 
+        @Override
+        public void freeIds( long[] ids )
+        {
+            delegate.freeIds( ids );
+        }
+
+        @Override
+        public void flush()
+        {
+            delegate.flush();
+        }
+
         @Override
         public void close()
         {
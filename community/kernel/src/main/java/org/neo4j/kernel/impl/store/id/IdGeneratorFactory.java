@@ -20,6 +20,7 @@
 package org.neo4j.kernel.impl.store.id;
 
 import java.io.File;
+import java.util.function.LongPredicate;
 
 public interface IdGeneratorFactory
 {
@@ -29,6 +30,22 @@ public interface IdGeneratorFactory
 
     IdGenerator get( IdType idType );
 
+    /**
+     * Restores the id generator file of a store after the id generator wasn't closed cleanly, from the free ids
+     * it kept in there. The id generator can then be {@link #open(File, int, IdType, long, long) opened}.
+     *
+     * @param filename the id generator file.
+     * @param highId the high id of the store.
+     * @param extraFreeIds ids known to have been freed, besides those in the file.
+     * @param isFree checks in the store whether or not a record id is free.
+     * @return the number of free ids restored, or {@code -1} if the id generator can't be restored and has to be
+     * rebuilt from the store instead.
+     */
+    default long restore( File filename, long highId, long[] extraFreeIds, LongPredicate isFree )
+    {
+        return -1;
+    }
+
     class Delegate implements IdGeneratorFactory
     {
         private final IdGeneratorFactory delegate;
@@ -55,5 +72,11 @@ public interface IdGeneratorFactory
         {
             return delegate.get( idType );
         }
+
+        @Override
+        public long restore( File filename, long highId, long[] extraFreeIds, LongPredicate isFree )
+        {
+            return delegate.restore( filename, highId, extraFreeIds, isFree );
+        }
     }
 }
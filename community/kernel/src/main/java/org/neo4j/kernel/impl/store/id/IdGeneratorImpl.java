@@ -22,7 +22,9 @@ package org.neo4j.kernel.impl.store.id;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
@@ -263,6 +265,44 @@ public class IdGeneratorImpl implements IdGenerator
         keeper.freeId( id );
     }
 
+    /**
+     * Frees all the given ids while holding the monitor of this id generator only once.
+     *
+     * @param ids the ids to be made available again
+     * @see #freeId(long)
+     */
+    @Override
+    public synchronized void freeIds( long[] ids )
+    {
+        for ( long id : ids )
+        {
+            freeId( id );
+        }
+    }
+
+    /**
+     * Appends the freed ids still in memory to the file and forces it, leaving the file sticky. The file is then a
+     * superset of the free ids, that {@link #restoreGenerator(FileSystemAbstraction, File, long, long[], LongPredicate)}
+     * can restore the id generator from if it isn't closed cleanly.
+     */
+    @Override
+    public synchronized void flush()
+    {
+        if ( isClosed() )
+        {
+            return;
+        }
+
+        try
+        {
+            keeper.flush();
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Unable to flush id generator " + file, e );
+        }
+    }
+
     /**
      * Closes the id generator flushing defragged ids in memory to file. The
      * file will be truncated to the minimal size required to hold all defragged
@@ -372,6 +412,117 @@ public class IdGeneratorImpl implements IdGenerator
         }
     }
 
+    /**
+     * Restores an id generator file which wasn't closed cleanly, without scanning the store it belongs to.
+     * <p>
+     * While an id generator is open, every id it frees ends up in its file, either when enough of them have been
+     * freed or when the id generator is {@link #flush() flushed}. Ids handed out again are not removed from the file
+     * until it is closed. So after a crash the file holds all ids freed up until the last flush, but also ids
+     * which may have been used since. This method keeps each of those ids, and the given extra ids, once if it is
+     * below the given high id and accepted by {@code isFree}. It writes them back, in order, to a clean id
+     * generator file with the given high id.
+     *
+     * @param fs the file system the file is on.
+     * @param fileName the id generator file to restore.
+     * @param highId the high id of the store, found after recovery.
+     * @param extraFreeIds ids freed by recovery, which may not have been written to the file before the crash.
+     * @param isFree checks in the store whether or not a record id is free.
+     * @return the number of free ids restored, or {@code -1} if there is no file to restore from.
+     */
+    public static long restoreGenerator( FileSystemAbstraction fs, File fileName, long highId, long[] extraFreeIds,
+            LongPredicate isFree )
+    {
+        if ( !fs.fileExists( fileName ) )
+        {
+            return -1;
+        }
+
+        try ( StoreChannel channel = fs.open( fileName, "rw" ) )
+        {
+            long size = channel.size();
+            if ( size < HEADER_SIZE )
+            {
+                return -1;
+            }
+
+            // read all ids in the file, ignoring a trailing entry only partially written before the crash
+            long entries = (size - HEADER_SIZE) / FreeIdKeeper.ID_ENTRY_SIZE;
+            if ( entries + extraFreeIds.length > Integer.MAX_VALUE )
+            {
+                return -1;
+            }
+            long[] ids = Arrays.copyOf( extraFreeIds, (int) entries + extraFreeIds.length );
+            int count = extraFreeIds.length;
+            ByteBuffer buffer = ByteBuffer.allocate( 1024 * FreeIdKeeper.ID_ENTRY_SIZE );
+            channel.position( HEADER_SIZE );
+            while ( count < ids.length )
+            {
+                buffer.clear();
+                buffer.limit( Math.min( buffer.capacity(), (ids.length - count) * FreeIdKeeper.ID_ENTRY_SIZE ) );
+                int read;
+                do
+                {
+                    read = channel.read( buffer );
+                }
+                while ( read > 0 && buffer.hasRemaining() );
+                buffer.flip();
+                if ( buffer.remaining() < FreeIdKeeper.ID_ENTRY_SIZE )
+                {
+                    ids = Arrays.copyOf( ids, count );
+                    break;
+                }
+                while ( buffer.remaining() >= FreeIdKeeper.ID_ENTRY_SIZE )
+                {
+                    ids[count++] = buffer.getLong();
+                }
+            }
+
+            // keep each id which is actually free once, in order
+            Arrays.sort( ids );
+            int freeCount = 0;
+            long previous = FreeIdKeeper.NO_RESULT;
+            for ( long id : ids )
+            {
+                if ( id != previous && id >= 0 && id < highId && !IdValidator.isReservedId( id ) && isFree.test( id ) )
+                {
+                    ids[freeCount++] = id;
+                }
+                previous = id;
+            }
+
+            // write them back, keeping the file sticky until completely written
+            channel.truncate( 0 );
+            channel.position( 0 );
+            ByteBuffer header = ByteBuffer.allocate( HEADER_SIZE );
+            header.put( STICKY_GENERATOR ).putLong( highId ).flip();
+            channel.writeAll( header );
+            buffer.clear();
+            for ( int i = 0; i < freeCount; i++ )
+            {
+                buffer.putLong( ids[i] );
+                if ( !buffer.hasRemaining() )
+                {
+                    buffer.flip();
+                    channel.writeAll( buffer );
+                    buffer.clear();
+                }
+            }
+            buffer.flip();
+            channel.writeAll( buffer );
+            channel.force( false );
+
+            header.clear();
+            header.put( CLEAN_GENERATOR ).flip();
+            channel.writeAll( header, 0 );
+            channel.force( false );
+            return freeCount;
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Unable to restore id generator " + fileName, e );
+        }
+    }
+
     // initialize the id generator and performs a simple validation
     private synchronized void initGenerator()
     {
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.kernel.impl.store.id.validation.IdValidator;
+
+/**
+ * {@link IdGenerator} which lets concurrent threads allocate ids without contending on the generator it wraps.
+ * Each thread grabs an {@link IdRange} of {@code batchSize} ids at a time from the delegate, using
+ * {@link #nextIdBatch(int)}, and hands out ids from that batch on its own. The batch contains defragmented ids,
+ * picked up from the delegate in bulk, followed by a range of new ids from its high id. So only one in
+ * {@code batchSize} calls to {@link #nextId()} synchronizes with other threads.
+ * <p>
+ * Ids are no longer handed out in order across threads and the high id of the delegate includes ids that have been
+ * grabbed by a thread but not yet handed out. Those ids are freed back to the delegate when the high id is
+ * {@link #setHighId(long) set}, which invalidates all batches, and when this generator is closed, which must not
+ * happen concurrently with calls to {@link #nextId()}. Each batch is guarded by its own monitor, which is only ever
+ * contended for while the high id is being set.
+ */
+public class ThreadLocalBatchingIdGenerator extends IdGenerator.Delegate
+{
+    private final int batchSize;
+    private final ThreadLocal<Batch> threadBatch = new ThreadLocal<Batch>()
+    {
+        @Override
+        protected Batch initialValue()
+        {
+            Batch batch = new Batch();
+            batches.add( batch );
+            return batch;
+        }
+    };
+    private final Set<Batch> batches = ConcurrentHashMap.newKeySet();
+    // Bumped on every call to setHighId, making batches grabbed before it stale
+    private final AtomicInteger generation = new AtomicInteger();
+
+    public ThreadLocalBatchingIdGenerator( IdGenerator delegate, int batchSize )
+    {
+        super( delegate );
+        if ( batchSize <= 0 )
+        {
+            throw new IllegalArgumentException( "Invalid batch size " + batchSize );
+        }
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public long nextId()
+    {
+        Batch batch = threadBatch.get();
+        synchronized ( batch )
+        {
+            int currentGeneration = generation.get();
+            if ( batch.generation == currentGeneration )
+            {
+                long id = batch.next();
+                if ( id != Batch.NO_ID )
+                {
+                    return id;
+                }
+            }
+            else
+            {
+                // Normally already done by setHighId, unless this batch was grabbed while the high id was being set
+                freeUnused( batch, super.getHighId() );
+            }
+
+            long id;
+            do
+            {
+                batch.reset( super.nextIdBatch( batchSize ), currentGeneration );
+                id = batch.next();
+            }
+            while ( id == Batch.NO_ID );
+            return id;
+        }
+    }
+
+    @Override
+    public void setHighId( long id )
+    {
+        super.setHighId( id );
+        generation.incrementAndGet();
+        for ( Batch batch : batches )
+        {
+            synchronized ( batch )
+            {
+                freeUnused( batch, id );
+            }
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        releaseBatches();
+        super.close();
+    }
+
+    @Override
+    public void delete()
+    {
+        batches.clear();
+        super.delete();
+    }
+
+    private void releaseBatches()
+    {
+        long highId = super.getHighId();
+        for ( Batch batch : batches )
+        {
+            synchronized ( batch )
+            {
+                freeUnused( batch, highId );
+            }
+        }
+        batches.clear();
+    }
+
+    /**
+     * Frees the ids of the given batch that have not been handed out, leaving it empty. Ids at or above the given
+     * high id, which can only be there if the high id was lowered, are not the delegate's to free and are dropped.
+     */
+    private void freeUnused( Batch batch, long highId )
+    {
+        long[] unused = batch.drain();
+        int count = 0;
+        for ( long id : unused )
+        {
+            if ( id < highId )
+            {
+                unused[count++] = id;
+            }
+        }
+        if ( count > 0 )
+        {
+            super.freeIds( count == unused.length ? unused : Arrays.copyOf( unused, count ) );
+        }
+    }
+
+    /**
+     * Ids of one {@link IdRange}, handed out by a single thread. Skips the reserved id if the range spans it.
+     */
+    private static class Batch
+    {
+        static final long NO_ID = -1;
+        private static final long[] NO_DEFRAG_IDS = new long[0];
+
+        private long[] defragIds = NO_DEFRAG_IDS;
+        private int defragCursor;
+        private long rangeCursor;
+        private long rangeEnd;
+        private int generation = -1;
+
+        void reset( IdRange range, int generation )
+        {
+            this.defragIds = range.getDefragIds();
+            this.defragCursor = 0;
+            this.rangeCursor = range.getRangeStart();
+            this.rangeEnd = range.getRangeStart() + range.getRangeLength();
+            this.generation = generation;
+        }
+
+        long next()
+        {
+            if ( defragCursor < defragIds.length )
+            {
+                return defragIds[defragCursor++];
+            }
+            while ( rangeCursor < rangeEnd )
+            {
+                long id = rangeCursor++;
+                if ( !IdValidator.isReservedId( id ) )
+                {
+                    return id;
+                }
+            }
+            return NO_ID;
+        }
+
+        long[] drain()
+        {
+            int defragLeft = defragIds.length - defragCursor;
+            long[] unused = new long[defragLeft + (int) (rangeEnd - rangeCursor)];
+            System.arraycopy( defragIds, defragCursor, unused, 0, defragLeft );
+            int cursor = defragLeft;
+            while ( rangeCursor < rangeEnd )
+            {
+                unused[cursor++] = rangeCursor++;
+            }
+            defragCursor = defragIds.length;
+            return unused;
+        }
+    }
+}
@@ -74,6 +74,18 @@ public abstract class AbstractKeyValueStore<Key> extends LifecycleAdapter
         this.stateInitializer = stateInitializer;
     }
 
+    /**
+     * Makes rotations write only the entries changed since the last compaction of the store to a delta file, as long
+     * as the delta stays within the given percentage of the number of entries of the compacted store file. A rotation
+     * that would exceed the threshold compacts the store into a new file. Must be invoked before the store is started.
+     *
+     * @param threshold the largest delta to write, in percent of the compacted store, {@code 0} disables deltas.
+     */
+    protected final void setDeltaThreshold( int threshold )
+    {
+        rotationStrategy.deltaThreshold( threshold );
+    }
+
     @Override
     public String toString()
     {
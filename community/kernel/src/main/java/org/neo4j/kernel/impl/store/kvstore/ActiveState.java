@@ -109,4 +109,22 @@ public abstract class ActiveState<Key> extends ProgressiveState<Key>
     protected abstract Factory factory();
 
     protected abstract long applied();
+
+    /**
+     * @return the number of entries changed in this state, or {@code -1} if this state cannot provide its changes
+     * separately through {@link #changedData()}.
+     */
+    protected int changedEntryCount()
+    {
+        return -1;
+    }
+
+    /**
+     * The entries changed in this state, sorted by key, without the entries of the underlying store.
+     * This method is expected to be called under a lock preventing modification to the state.
+     */
+    protected DataProvider changedData() throws IOException
+    {
+        throw new UnsupportedOperationException( "Changes are not tracked separately by " + this );
+    }
 }
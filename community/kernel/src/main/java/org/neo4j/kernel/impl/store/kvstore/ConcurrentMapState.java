@@ -363,6 +363,18 @@ class ConcurrentMapState<Key> extends ActiveState<Key>
         return dataProvider( store, changes );
     }
 
+    @Override
+    protected int changedEntryCount()
+    {
+        return changes.size();
+    }
+
+    @Override
+    protected DataProvider changedData() throws IOException
+    {
+        return new UpdateProvider( sortedUpdates( keyFormat(), changes ) );
+    }
+
     private static <Key> DataProvider dataProvider( ReadableState<Key> store, ConcurrentMap<Key, byte[]> changes )
             throws IOException
     {
@@ -127,8 +127,8 @@ abstract class DeadState<Key> extends ProgressiveState<Key>
             {
                 return new NeedsCreation<>( keyFormat(), stateFactory, rotation );
             }
-            return new Prepared<>( stateFactory.open( ReadableState.store( keyFormat(), opened.other() ),
-                                                      opened.first() ) );
+            return new Prepared<>( stateFactory.open(
+                    rotation.state( keyFormat(), opened.first(), opened.other() ), opened.first() ) );
         }
 
         @Override
@@ -169,7 +169,8 @@ abstract class DeadState<Key> extends ProgressiveState<Key>
                 throw new IllegalStateException( "Store needs to be created, and no initializer is given." );
             }
             Pair<File, KeyValueStoreFile> created = initialState( initializer );
-            return stateFactory.open( ReadableState.store( keyFormat(), created.other() ), created.first() );
+            return stateFactory.open( rotation.state( keyFormat(), created.first(), created.other() ),
+                                      created.first() );
         }
 
         private Pair<File, KeyValueStoreFile> initialState( DataInitializer<EntryUpdater<Key>> initializer )
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.kvstore;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+
+import static org.neo4j.kernel.impl.store.kvstore.BigEndianByteArrayBuffer.buffer;
+
+/**
+ * A {@link ReadableState} made up of a compacted base {@link KeyValueStoreFile} and, optionally, a delta file holding
+ * every entry that has changed since the base file was written. Entries of the delta take precedence over entries of
+ * the base, and the delta keeps entries that the {@linkplain KeyFormat#filter(DataProvider) key format} would filter
+ * out, so that they can shadow entries of the base.
+ * <p>
+ * The base file is shared between consecutive states, since a delta rotation leaves it untouched, and is closed
+ * when the last state referencing it is closed.
+ */
+final class LayeredState<Key> extends ReadableState<Key>
+{
+    private final KeyFormat<Key> keys;
+    private final Base base;
+    private final File deltaFile;
+    private final KeyValueStoreFile delta;
+    private volatile int entryCount = -1;
+
+    LayeredState( KeyFormat<Key> keys, KeyValueStoreFile base, File deltaFile, KeyValueStoreFile delta )
+    {
+        this( keys, new Base( base ), deltaFile, delta );
+    }
+
+    private LayeredState( KeyFormat<Key> keys, Base base, File deltaFile, KeyValueStoreFile delta )
+    {
+        this.keys = keys;
+        this.base = base;
+        this.deltaFile = deltaFile;
+        this.delta = delta;
+    }
+
+    /**
+     * Creates a new state sharing the base file of this state, with the given delta file layered on top of it.
+     */
+    LayeredState<Key> withDelta( File deltaFile, KeyValueStoreFile delta )
+    {
+        return new LayeredState<>( keys, base.retain(), deltaFile, delta );
+    }
+
+    /**
+     * @param changes the changes made since this state was written, sorted by key.
+     * @return the unfiltered entries of a delta file holding both the entries of the current delta and the changes.
+     */
+    DataProvider deltaWith( DataProvider changes ) throws IOException
+    {
+        if ( delta == null )
+        {
+            return changes;
+        }
+        return new KeyValueMerger( delta.dataProvider(), changes, keys.keySize(), keys.valueSize() );
+    }
+
+    File deltaFile()
+    {
+        return deltaFile;
+    }
+
+    int baseEntryCount()
+    {
+        return base.file.entryCount();
+    }
+
+    int deltaEntryCount()
+    {
+        return delta == null ? 0 : delta.entryCount();
+    }
+
+    @Override
+    protected KeyFormat<Key> keyFormat()
+    {
+        return keys;
+    }
+
+    @Override
+    protected Headers headers()
+    {
+        return delta == null ? base.file.headers() : delta.headers();
+    }
+
+    @Override
+    protected long version()
+    {
+        return keys.version( headers() );
+    }
+
+    @Override
+    protected boolean lookup( Key key, ValueSink sink ) throws IOException
+    {
+        KeyFormat.Searcher<Key> search = new KeyFormat.Searcher<>( keys, key );
+        return (delta != null && delta.scan( search, sink )) || base.file.scan( search, sink );
+    }
+
+    @Override
+    protected DataProvider dataProvider() throws IOException
+    {
+        if ( delta == null )
+        {
+            return base.file.dataProvider();
+        }
+        return keys.filter( new KeyValueMerger( base.file.dataProvider(), delta.dataProvider(),
+                keys.keySize(), keys.valueSize() ) );
+    }
+
+    @Override
+    protected int storedEntryCount()
+    {
+        if ( delta == null )
+        {
+            return base.file.entryCount();
+        }
+        int count = entryCount;
+        if ( count < 0 )
+        {
+            count = 0;
+            try ( DataProvider entries = dataProvider() )
+            {
+                BigEndianByteArrayBuffer key = buffer( keys.keySize() ), value = buffer( keys.valueSize() );
+                while ( entries.visit( key, value ) )
+                {
+                    count++;
+                }
+            }
+            catch ( IOException e )
+            {
+                throw new UnderlyingStorageException( e );
+            }
+            entryCount = count;
+        }
+        return count;
+    }
+
+    @Override
+    void close() throws IOException
+    {
+        try
+        {
+            if ( delta != null )
+            {
+                delta.close();
+            }
+        }
+        finally
+        {
+            base.release();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[base=" + base.file + ", delta=" + delta + "]";
+    }
+
+    private static final class Base
+    {
+        final KeyValueStoreFile file;
+        private final AtomicInteger references = new AtomicInteger( 1 );
+
+        Base( KeyValueStoreFile file )
+        {
+            this.file = file;
+        }
+
+        Base retain()
+        {
+            references.incrementAndGet();
+            return this;
+        }
+
+        void release() throws IOException
+        {
+            if ( references.decrementAndGet() == 0 )
+            {
+                file.close();
+            }
+        }
+    }
+}
@@ -82,9 +82,38 @@ abstract class RotationState<Key> extends ProgressiveState<Key>
                     }
                 }
             }
+            Headers headers = updateHeaders( headersUpdater );
+            ReadableState<Key> delta = rotateDelta( strategy, headers );
+            if ( delta != null )
+            {
+                return postState.create( delta, file() );
+            }
             Pair<File, KeyValueStoreFile> next = strategy
-                    .next( file(), updateHeaders( headersUpdater ), keyFormat().filter( preState.dataProvider() ) );
-            return postState.create( ReadableState.store( preState.keyFormat(), next.other() ), next.first() );
+                    .next( file(), headers, keyFormat().filter( preState.dataProvider() ) );
+            return postState.create( strategy.state( preState.keyFormat(), next.first(), next.other() ),
+                    next.first() );
+        }
+
+        /**
+         * Writes the entries changed since the base file was written to a new delta file, unless the delta would
+         * be too large compared to the base file, in which case {@code null} is returned, and the caller compacts
+         * base and delta into a new base file.
+         */
+        private ReadableState<Key> rotateDelta( RotationStrategy strategy, Headers headers ) throws IOException
+        {
+            if ( !(preState.store instanceof LayeredState) )
+            {
+                return null;
+            }
+            LayeredState<Key> layers = (LayeredState<Key>) preState.store;
+            int changes = preState.changedEntryCount();
+            if ( changes < 0 || !strategy.writeDelta( layers.baseEntryCount(), layers.deltaEntryCount() + changes ) )
+            {
+                return null;
+            }
+            Pair<File, KeyValueStoreFile> next = strategy.nextDelta(
+                    file(), layers.deltaFile(), headers, layers.deltaWith( preState.changedData() ) );
+            return layers.withDelta( next.first(), next.other() );
         }
 
         @Override
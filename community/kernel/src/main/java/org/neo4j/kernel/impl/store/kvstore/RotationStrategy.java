@@ -31,10 +31,12 @@ import org.neo4j.io.pagecache.PageCache;
 
 abstract class RotationStrategy
 {
+    private static final String[] DELTA_SUFFIXES = {".delta.0", ".delta.1"};
     protected final FileSystemAbstraction fs;
     protected final PageCache pages;
     private final ProgressiveFormat format;
     private final RotationMonitor monitor;
+    private int deltaThreshold;
 
     RotationStrategy( FileSystemAbstraction fs, PageCache pages, ProgressiveFormat format,
                       RotationMonitor monitor )
@@ -90,6 +92,7 @@ abstract class RotationStrategy
     public final Pair<File, KeyValueStoreFile> create( DataProvider initialData, long version ) throws IOException
     {
         File path = initialFile();
+        deleteDeltas( path );
         return Pair.of( path, format.createStore(
                 fs, pages, path, format.keySize(), format.valueSize(), format.initialHeaders( version ),
                 initialData ) );
@@ -111,9 +114,118 @@ abstract class RotationStrategy
             throw e;
         }
         monitor.rotationSucceeded( file, path, headers );
+        deleteDeltas( path );
         return Pair.of( path, store );
     }
 
+    /**
+     * Enables delta rotation. A delta rotation writes only the entries that have changed since the base file was
+     * written to a delta file next to the base file, instead of writing all entries to a new base file.
+     *
+     * @param threshold the largest size of the delta, as a percentage of the number of entries in the base file, that
+     * is written as a delta. A rotation that would produce a larger delta compacts base and delta into a new base file.
+     * Delta rotation is disabled if {@code 0}.
+     */
+    final void deltaThreshold( int threshold )
+    {
+        if ( threshold < 0 )
+        {
+            throw new IllegalArgumentException( "Negative delta threshold: " + threshold );
+        }
+        this.deltaThreshold = threshold;
+    }
+
+    final boolean writeDelta( int baseEntries, int deltaEntries )
+    {
+        return deltaThreshold > 0 && deltaEntries * 100L <= deltaThreshold * (long) baseEntries;
+    }
+
+    /**
+     * Creates the readable state for a base file, layering the most recent delta file of the base file on top of it.
+     * Deltas are layered even if delta rotation is disabled, since they might have been written while it was enabled.
+     */
+    final <Key> ReadableState<Key> state( KeyFormat<Key> keys, File path, KeyValueStoreFile store )
+            throws IOException
+    {
+        KeyValueStoreFile delta = null;
+        File deltaPath = null;
+        for ( String suffix : DELTA_SUFFIXES )
+        {
+            File candidatePath = deltaFile( path, suffix );
+            if ( fs.fileExists( candidatePath ) )
+            {
+                KeyValueStoreFile file;
+                try
+                {
+                    file = format.openStore( fs, pages, candidatePath );
+                }
+                catch ( Exception e )
+                {
+                    monitor.failedToOpenStoreFile( candidatePath, e );
+                    continue;
+                }
+                // a delta is only valid for the base if it was written after it, older deltas are left over from
+                // the time before the base file was last written
+                Headers newest = delta == null ? store.headers() : delta.headers();
+                if ( format.compareHeaders( newest, file.headers() ) < 0 )
+                {
+                    if ( delta != null )
+                    {
+                        delta.close();
+                    }
+                    delta = file;
+                    deltaPath = candidatePath;
+                }
+                else
+                {
+                    file.close();
+                }
+            }
+        }
+        if ( delta == null && deltaThreshold == 0 )
+        {
+            return ReadableState.store( keys, store );
+        }
+        return new LayeredState<>( keys, store, deltaPath, delta );
+    }
+
+    public final Pair<File, KeyValueStoreFile> nextDelta( File base, File previousDelta, Headers headers,
+            DataProvider data ) throws IOException
+    {
+        File path = deltaFile( base, previousDelta == null || previousDelta.getName().endsWith( DELTA_SUFFIXES[1] )
+                                     ? DELTA_SUFFIXES[0] : DELTA_SUFFIXES[1] );
+        monitor.beforeRotation( base, path, headers );
+        KeyValueStoreFile store;
+        try
+        {
+            store = format.createStore( fs, pages, path, format.keySize(), format.valueSize(), headers, data );
+        }
+        catch ( Exception e )
+        {
+            monitor.rotationFailed( base, path, headers, e );
+            throw e;
+        }
+        monitor.rotationSucceeded( base, path, headers );
+        return Pair.of( path, store );
+    }
+
+    /**
+     * Deltas of a newly written base file are left over from the time before the file was last written, and are
+     * never layered on top of the new base file, since they are older than it.
+     */
+    private void deleteDeltas( File base )
+    {
+        for ( String suffix : DELTA_SUFFIXES )
+        {
+            fs.deleteFile( deltaFile( base, suffix ) );
+        }
+    }
+
+    private static File deltaFile( File base, String suffix )
+    {
+        return new File( base.getParent(), base.getName() + suffix );
+    }
+
     final KeyValueStoreFile openStoreFile( File path ) throws IOException
     {
         return format.openStore( fs, pages, path );
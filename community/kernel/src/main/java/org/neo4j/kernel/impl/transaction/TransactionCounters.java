@@ -48,4 +48,10 @@ public interface TransactionCounters
     long getNumberOfRolledBackReadTransactions();
 
     long getNumberOfRolledBackWriteTransactions();
+
+    long getPeakTransactionStateSize();
+
+    long getTotalTransactionStateSize();
+
+    long getNumberOfOffHeapTransactionStates();
 }
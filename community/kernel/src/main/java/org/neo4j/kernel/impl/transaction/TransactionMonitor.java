@@ -33,4 +33,12 @@ public interface TransactionMonitor
     void transactionTerminated( boolean writeTx );
 
     void upgradeToWriteTransaction();
+
+    /**
+     * Called when a transaction that had transaction state finishes, and its state is released.
+     *
+     * @param changedEntities number of entries tracking changed nodes and relationships in the state.
+     * @param offHeap whether or not the state had been moved to off-heap memory.
+     */
+    void transactionStateReleased( long changedEntities, boolean offHeap );
 }
@@ -32,7 +32,10 @@ public class TransactionStats implements TransactionMonitor, TransactionCounters
     private final AtomicLong rolledBackWriteTransactionCount = new AtomicLong();
     private final AtomicLong terminatedReadTransactionCount = new AtomicLong();
     private final AtomicLong terminatedWriteTransactionCount = new AtomicLong();
+    private final AtomicLong totalTransactionStateSize = new AtomicLong();
+    private final AtomicLong offHeapTransactionStateCount = new AtomicLong();
     private volatile long peakTransactionCount;
+    private volatile long peakTransactionStateSize;
 
     @Override
     public void transactionStarted()
@@ -72,6 +75,17 @@ public class TransactionStats implements TransactionMonitor, TransactionCounters
         assert writeCount > 0;
     }
 
+    @Override
+    public void transactionStateReleased( long changedEntities, boolean offHeap )
+    {
+        totalTransactionStateSize.addAndGet( changedEntities );
+        peakTransactionStateSize = Math.max( peakTransactionStateSize, changedEntities );
+        if ( offHeap )
+        {
+            offHeapTransactionStateCount.incrementAndGet();
+        }
+    }
+
     @Override
     public long getPeakConcurrentNumberOfTransactions()
     {
@@ -156,6 +170,24 @@ public class TransactionStats implements TransactionMonitor, TransactionCounters
         return rolledBackWriteTransactionCount.get();
     }
 
+    @Override
+    public long getPeakTransactionStateSize()
+    {
+        return peakTransactionStateSize;
+    }
+
+    @Override
+    public long getTotalTransactionStateSize()
+    {
+        return totalTransactionStateSize.get();
+    }
+
+    @Override
+    public long getNumberOfOffHeapTransactionStates()
+    {
+        return offHeapTransactionStateCount.get();
+    }
+
     private void incrementCounter( AtomicLong readCount, AtomicLong writeCount, boolean write )
     {
         long count = write ? writeCount.incrementAndGet() : readCount.incrementAndGet();
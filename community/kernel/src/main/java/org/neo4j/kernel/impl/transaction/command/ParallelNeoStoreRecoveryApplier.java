@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.command;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIntMap;
+import org.neo4j.helpers.NamedThreadFactory;
+import org.neo4j.kernel.impl.api.CommandVisitor;
+import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
+import org.neo4j.kernel.impl.locking.LockGroup;
+import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.PropertyType;
+import org.neo4j.kernel.impl.store.RecordStore;
+import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.storageengine.api.CommandsToApply;
+
+/**
+ * Applies the record store part of recovered transactions, i.e. what {@link NeoStoreTransactionApplier} does,
+ * using multiple worker threads.
+ * <p>
+ * Node, relationship, property and relationship group commands of {@link #offer(CommandsToApply) offered}
+ * transactions are assigned to workers by the store page of the record they update, so that workers mostly touch
+ * disjoint pages. The assigned commands make up a wave that is applied concurrently on {@link #applyWave()}.
+ * Every record written by a command, including dynamic records and secondary record units, is tracked within
+ * the wave. A command writing a record that another worker already writes in the current wave, e.g. a dynamic
+ * record id that was freed and reused between transactions, first has the wave applied. All writes to any one
+ * record therefore happen in the same order as in serial application, which makes the end result identical.
+ * <p>
+ * Transactions with token, schema or neo store commands are not accepted by {@link #offer(CommandsToApply)},
+ * since applying those also affects caches and schema state. They are meant to be applied serially after the
+ * current wave has been applied.
+ * <p>
+ * Recovery doesn't free ids or track high ids while updating records, since id generators are rebuilt after
+ * recovery, so the records are all the state that is written here.
+ */
+public class ParallelNeoStoreRecoveryApplier implements AutoCloseable
+{
+    private static final int NODE = 0;
+    private static final int RELATIONSHIP = 1;
+    private static final int PROPERTY = 2;
+    private static final int RELATIONSHIP_GROUP = 3;
+    private static final int STRING = 4;
+    private static final int ARRAY = 5;
+    private static final int LABELS = 6;
+    private static final int STORE_SHIFT = 56;
+
+    private final NeoStores neoStores;
+    private final CacheAccessBackDoor cacheAccess;
+    private final LockService lockService;
+    private final RecordStore<?>[] stores;
+    private final ExecutorService executor;
+    private final List<List<Command>> waveCommands;
+    private final PrimitiveLongIntMap recordOwners = Primitive.longIntMap();
+    private final RecordCollector recordCollector = new RecordCollector();
+    private int waveSize;
+
+    public ParallelNeoStoreRecoveryApplier( NeoStores neoStores, CacheAccessBackDoor cacheAccess,
+            LockService lockService, int workers )
+    {
+        this.neoStores = neoStores;
+        this.cacheAccess = cacheAccess;
+        this.lockService = lockService;
+        this.stores = new RecordStore<?>[]{
+                neoStores.getNodeStore(),
+                neoStores.getRelationshipStore(),
+                neoStores.getPropertyStore(),
+                neoStores.getRelationshipGroupStore(),
+                neoStores.getPropertyStore().getStringStore(),
+                neoStores.getPropertyStore().getArrayStore(),
+                neoStores.getNodeStore().getDynamicLabelStore()};
+        this.executor = Executors.newFixedThreadPool( workers, new NamedThreadFactory( "recovery-applier" ) );
+        this.waveCommands = new ArrayList<>( workers );
+        for ( int i = 0; i < workers; i++ )
+        {
+            waveCommands.add( new ArrayList<>() );
+        }
+    }
+
+    /**
+     * Adds the record store updates of the given transaction to the current wave, applying the wave first
+     * if there are conflicting updates in it.
+     *
+     * @param transaction recovered transaction.
+     * @return {@code true} if the store updates of the transaction will be applied by this applier, otherwise
+     * {@code false}, in which case nothing of the transaction has been added to the wave.
+     * @throws Exception on failure applying a wave.
+     */
+    public boolean offer( CommandsToApply transaction ) throws Exception
+    {
+        List<Command> commands = new ArrayList<>();
+        boolean[] parallelizable = {true};
+        transaction.accept( command ->
+        {
+            if ( command instanceof Command.NodeCommand || command instanceof Command.RelationshipCommand ||
+                 command instanceof Command.PropertyCommand || command instanceof Command.RelationshipGroupCommand )
+            {
+                commands.add( (Command) command );
+            }
+            else if ( command instanceof Command.TokenCommand || command instanceof Command.SchemaRuleCommand ||
+                      command instanceof Command.NeoStoreCommand )
+            {
+                parallelizable[0] = false;
+            }
+            // Other commands, like counts and legacy index commands, don't update records
+            return false;
+        } );
+        if ( !parallelizable[0] )
+        {
+            return false;
+        }
+
+        for ( Command command : commands )
+        {
+            add( command );
+        }
+        return true;
+    }
+
+    private void add( Command command ) throws Exception
+    {
+        recordCollector.clear();
+        command.handle( recordCollector );
+        int worker = workerFor( recordCollector.primaryPageKey );
+        for ( int i = 0; i < recordCollector.size; i++ )
+        {
+            int owner = recordOwners.get( recordCollector.records[i] );
+            if ( owner != -1 && owner != worker )
+            {
+                applyWave();
+                break;
+            }
+        }
+        for ( int i = 0; i < recordCollector.size; i++ )
+        {
+            recordOwners.put( recordCollector.records[i], worker );
+        }
+        waveCommands.get( worker ).add( command );
+        waveSize++;
+    }
+
+    /**
+     * Applies all the commands of the current wave, with the commands of each worker applied in the order they
+     * were offered, and waits for that to complete.
+     *
+     * @throws Exception if any command failed to be applied.
+     */
+    public void applyWave() throws Exception
+    {
+        if ( waveSize == 0 )
+        {
+            return;
+        }
+
+        List<Future<Void>> futures = new ArrayList<>( waveCommands.size() );
+        for ( List<Command> commands : waveCommands )
+        {
+            if ( !commands.isEmpty() )
+            {
+                futures.add( executor.submit( () ->
+                {
+                    apply( commands );
+                    return null;
+                } ) );
+            }
+        }
+        Throwable failure = null;
+        for ( Future<Void> future : futures )
+        {
+            try
+            {
+                future.get();
+            }
+            catch ( ExecutionException e )
+            {
+                failure = failure == null ? e.getCause() : failure;
+            }
+        }
+        for ( List<Command> commands : waveCommands )
+        {
+            commands.clear();
+        }
+        recordOwners.clear();
+        waveSize = 0;
+
+        if ( failure != null )
+        {
+            if ( failure instanceof Exception )
+            {
+                throw (Exception) failure;
+            }
+            throw (Error) failure;
+        }
+    }
+
+    private void apply( List<Command> commands ) throws Exception
+    {
+        for ( Command command : commands )
+        {
+            // One lock group per command, so that no worker holds on to a lock while waiting for another
+            try ( NeoStoreTransactionApplier applier = new NeoStoreTransactionApplier( neoStores, cacheAccess,
+                    lockService, -1, new LockGroup() ) )
+            {
+                command.handle( applier );
+            }
+        }
+    }
+
+    private int workerFor( long pageKey )
+    {
+        int hash = (int) (pageKey ^ (pageKey >>> 32)) * 0x9E3779B9;
+        return (hash >>> 1) % waveCommands.size();
+    }
+
+    @Override
+    public void close()
+    {
+        executor.shutdown();
+    }
+
+    /**
+     * Collects keys of all records written when applying a command, and the page key of the primary record.
+     */
+    private class RecordCollector extends CommandVisitor.Adapter
+    {
+        private long[] records = new long[16];
+        private int size;
+        private long primaryPageKey;
+
+        void clear()
+        {
+            size = 0;
+        }
+
+        private void primary( int store, AbstractBaseRecord record )
+        {
+            primaryPageKey = key( store, record.getId() / stores[store].getRecordsPerPage() );
+            add( store, record );
+        }
+
+        private void add( int store, AbstractBaseRecord record )
+        {
+            add( key( store, record.getId() ) );
+            if ( record.hasSecondaryUnitId() )
+            {
+                add( key( store, record.getSecondaryUnitId() ) );
+            }
+        }
+
+        private void add( long key )
+        {
+            if ( size == records.length )
+            {
+                long[] grown = new long[size * 2];
+                System.arraycopy( records, 0, grown, 0, size );
+                records = grown;
+            }
+            records[size++] = key;
+        }
+
+        private long key( int store, long id )
+        {
+            return ((long) store << STORE_SHIFT) | id;
+        }
+
+        private void dynamic( Iterable<DynamicRecord> dynamicRecords )
+        {
+            for ( DynamicRecord record : dynamicRecords )
+            {
+                add( record.getType() == PropertyType.STRING.intValue() ? STRING : ARRAY, record );
+            }
+        }
+
+        @Override
+        public boolean visitNodeCommand( Command.NodeCommand command ) throws IOException
+        {
+            NodeRecord after = command.getAfter();
+            primary( NODE, after );
+            for ( DynamicRecord record : after.getDynamicLabelRecords() )
+            {
+                add( LABELS, record );
+            }
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipCommand( Command.RelationshipCommand command ) throws IOException
+        {
+            primary( RELATIONSHIP, command.getAfter() );
+            return false;
+        }
+
+        @Override
+        public boolean visitPropertyCommand( Command.PropertyCommand command ) throws IOException
+        {
+            PropertyRecord after = command.getAfter();
+            primary( PROPERTY, after );
+            for ( PropertyBlock block : after )
+            {
+                if ( !block.isLight() )
+                {
+                    dynamic( block.getValueRecords() );
+                }
+            }
+            dynamic( after.getDeletedRecords() );
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipGroupCommand( Command.RelationshipGroupCommand command ) throws IOException
+        {
+            primary( RELATIONSHIP_GROUP, command.getAfter() );
+            return false;
+        }
+    }
+}
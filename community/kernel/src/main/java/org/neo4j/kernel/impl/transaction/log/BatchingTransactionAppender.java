@@ -65,6 +65,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     private final LogPositionMarker positionMarker = new LogPositionMarker();
     private final DatabaseHealth databaseHealth;
     private final Lock forceLock = new ReentrantLock();
+    private final GroupCommitWindow groupCommitWindow;
 
     private FlushablePositionAwareChannel writer;
     private TransactionLogWriter transactionLogWriter;
@@ -73,6 +74,15 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     public BatchingTransactionAppender( LogFile logFile, LogRotation logRotation,
             TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
             IdOrderingQueue legacyIndexTransactionOrdering, DatabaseHealth databaseHealth )
+    {
+        this( logFile, logRotation, transactionMetadataCache, transactionIdStore, legacyIndexTransactionOrdering,
+                databaseHealth, GroupCommitWindow.DISABLED );
+    }
+
+    public BatchingTransactionAppender( LogFile logFile, LogRotation logRotation,
+            TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
+            IdOrderingQueue legacyIndexTransactionOrdering, DatabaseHealth databaseHealth,
+            GroupCommitWindow groupCommitWindow )
     {
         this.logFile = logFile;
         this.logRotation = logRotation;
@@ -80,6 +90,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         this.legacyIndexTransactionOrdering = legacyIndexTransactionOrdering;
         this.databaseHealth = databaseHealth;
         this.transactionMetadataCache = transactionMetadataCache;
+        this.groupCommitWindow = groupCommitWindow;
     }
 
     @Override
@@ -121,6 +132,10 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
 
                     TransactionCommitment commitment = appendToLog( tx.transactionRepresentation(), transactionId );
                     tx.commitment( commitment, transactionId );
+                    if ( groupCommitWindow.isEnabled() )
+                    {
+                        groupCommitWindow.transactionAppended();
+                    }
                     tx = tx.next();
                     lastTransactionId = transactionId;
                 }
@@ -274,10 +289,31 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
 
     private void forceLog( LogForceEvents logForceEvents ) throws IOException
     {
+        // When concurrent transactions are arriving fast enough, hold the force back for a little while, so that
+        // more of them can be covered by the force we are about to do. Without adaptive group commit there is
+        // nothing to measure, and the force goes ahead exactly as it always has.
+        boolean adaptive = groupCommitWindow.isEnabled();
+        long windowNanos = adaptive ? groupCommitWindow.windowNanos() : 0;
+        if ( windowNanos > 0 )
+        {
+            holdBackForce( windowNanos );
+        }
+
         ThreadLink links = threadLinkHead.getAndSet( ThreadLink.END );
         try ( LogForceEvent logForceEvent = logForceEvents.beginLogForce() )
         {
-            force();
+            if ( adaptive )
+            {
+                logForceEvent.setGroupCommitWindow( TimeUnit.NANOSECONDS.toMicros( windowNanos ) );
+                logForceEvent.setBatchSize( countLinks( links ) );
+                long startNanos = System.nanoTime();
+                force();
+                groupCommitWindow.logForced( System.nanoTime() - startNanos );
+            }
+            else
+            {
+                force();
+            }
         }
         catch ( final Throwable panic )
         {
@@ -290,6 +326,35 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         }
     }
 
+    private void holdBackForce( long windowNanos )
+    {
+        // We might get unparked by the thread that did the previous force, so keep parking until the window is over.
+        long deadline = System.nanoTime() + windowNanos;
+        long remaining;
+        while ( (remaining = deadline - System.nanoTime()) > 0 )
+        {
+            LockSupport.parkNanos( this, remaining );
+        }
+    }
+
+    private static int countLinks( ThreadLink links )
+    {
+        int count = 0;
+        while ( links != ThreadLink.END )
+        {
+            count++;
+            ThreadLink tmp;
+            do
+            {
+                // Spin because of the race:y update when consing.
+                tmp = links.next;
+            }
+            while ( tmp == null );
+            links = tmp;
+        }
+        return count;
+    }
+
     private void unparkAll( ThreadLink links )
     {
         do
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.helpers.Clock;
+
+/**
+ * Decides for how long the thread that forces the transaction log should hold the force back, such that more of the
+ * concurrently committing transactions can be covered by the same force.
+ *
+ * Holding back a force only pays off if other transactions are likely to be appended while we wait, so the window is
+ * derived from moving averages of the interval between appended transactions, and of the latency of forcing the log.
+ * If transactions arrive further apart than it takes to force the log, then waiting is pure added latency, and the
+ * window is zero. Otherwise the window is the time it takes for a few more transactions to arrive, but never more
+ * than half the force latency, and never more than the configured maximum.
+ *
+ * The {@link #transactionAppended()} method must be called while holding the log file monitor, and the
+ * {@link #logForced(long)} method must be called while holding the force lock, which means that the moving averages
+ * each only have a single writer.
+ */
+public class GroupCommitWindow
+{
+    /**
+     * A window that is always zero, which means that forces are never held back.
+     */
+    public static final GroupCommitWindow DISABLED = new GroupCommitWindow( 0 );
+
+    // The moving averages weigh each new sample by 1/8.
+    private static final int SMOOTHING_SHIFT = 3;
+    // The number of transactions we would like to see arrive during the window.
+    private static final int TARGET_ARRIVALS = 4;
+
+    private final long maxWindowNanos;
+    private final Clock clock;
+    private boolean hasAppended;
+    private long lastAppendNanos;
+    private volatile long appendIntervalNanos = Long.MAX_VALUE;
+    private volatile long forceLatencyNanos;
+
+    /**
+     * @param maxWindowMicros the upper bound of the window, in microseconds. Zero disables the window entirely.
+     */
+    public GroupCommitWindow( long maxWindowMicros )
+    {
+        this( maxWindowMicros, Clock.SYSTEM_CLOCK );
+    }
+
+    public GroupCommitWindow( long maxWindowMicros, Clock clock )
+    {
+        this.maxWindowNanos = TimeUnit.MICROSECONDS.toNanos( maxWindowMicros );
+        this.clock = clock;
+    }
+
+    /**
+     * @return {@code true} if forces may be held back, in which case the appender should also measure its forces and
+     * report their batch sizes. {@code false} for a window that is always zero.
+     */
+    boolean isEnabled()
+    {
+        return maxWindowNanos > 0;
+    }
+
+    /**
+     * Note that a transaction was appended to the log.
+     */
+    void transactionAppended()
+    {
+        if ( maxWindowNanos == 0 )
+        {
+            return;
+        }
+        long now = clock.nanoTime();
+        long previous = lastAppendNanos;
+        lastAppendNanos = now;
+        if ( !hasAppended )
+        {
+            hasAppended = true;
+            return;
+        }
+        // Intervals that are longer than a couple of forces all mean the same thing; that there is nothing to gain
+        // from waiting. Capping them lets the average recover quickly when the load picks up after an idle period.
+        long interval = now - previous;
+        long latency = forceLatencyNanos;
+        if ( latency > 0 )
+        {
+            interval = Math.min( interval, 2 * latency );
+        }
+        long average = appendIntervalNanos;
+        appendIntervalNanos = average == Long.MAX_VALUE ? interval : smooth( average, interval );
+    }
+
+    /**
+     * Note how long it took to force the log.
+     */
+    void logForced( long forceNanos )
+    {
+        if ( maxWindowNanos == 0 )
+        {
+            return;
+        }
+        long average = forceLatencyNanos;
+        forceLatencyNanos = average == 0 ? forceNanos : smooth( average, forceNanos );
+    }
+
+    /**
+     * @return the number of nanoseconds that the next force should be held back for.
+     */
+    long windowNanos()
+    {
+        long interval = appendIntervalNanos;
+        long latency = forceLatencyNanos;
+        if ( maxWindowNanos == 0 || interval >= latency )
+        {
+            return 0;
+        }
+        return Math.min( maxWindowNanos, Math.min( latency / 2, interval * TARGET_ARRIVALS ) );
+    }
+
+    private static long smooth( long average, long sample )
+    {
+        return average - (average >> SMOOTHING_SHIFT) + (sample >> SMOOTHING_SHIFT);
+    }
+}
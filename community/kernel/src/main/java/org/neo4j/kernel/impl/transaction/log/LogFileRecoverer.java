@@ -69,7 +69,8 @@ public class LogFileRecoverer implements Visitor<LogVersionedStoreChannel,Except
             }
 
             // Now that all ok transactions have been read, if needed truncate the position to cut
-            // off any potentially broken transactions
+            // off any potentially broken transactions. The zero-filled tail of a pre-allocated log reads as the
+            // end of the log and is cut off as well, it's filled in again when the log file is started.
             long lastKnownGoodPosition = physicalTransactionCursor.lastKnownGoodPosition();
             if ( channel.position() > lastKnownGoodPosition )
             {
@@ -20,6 +20,7 @@
 package org.neo4j.kernel.impl.transaction.log;
 
 import java.io.File;
+import java.util.concurrent.TimeUnit;
 
 import org.neo4j.kernel.recovery.Recovery;
 import org.neo4j.kernel.impl.transaction.log.rotation.LogRotation;
@@ -33,6 +34,7 @@ public class LoggingLogFileMonitor implements PhysicalLogFile.Monitor, RecoveryV
 {
     private int numberOfRecoveredTransactions;
     private long firstTransactionRecovered, lastTransactionRecovered;
+    private long recoveryStartNanos;
     private final Log log;
 
     public LoggingLogFileMonitor( Log log )
@@ -44,11 +46,15 @@ public class LoggingLogFileMonitor implements PhysicalLogFile.Monitor, RecoveryV
     public void recoveryRequired( LogPosition startPosition )
     {
         log.info( "Recovery required from position " + startPosition );
+        recoveryStartNanos = System.nanoTime();
     }
 
     @Override
     public void logRecovered( LogPosition endPosition )
     {
+        long millis = Math.max( 1, TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - recoveryStartNanos ) );
+        log.info( format( "Replayed %d transactions up to position %s in %d ms (%d transactions/s)",
+                numberOfRecoveredTransactions, endPosition, millis, numberOfRecoveredTransactions * 1000L / millis ) );
     }
 
     @Override
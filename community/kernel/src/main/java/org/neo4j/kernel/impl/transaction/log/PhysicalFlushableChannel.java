@@ -46,9 +46,19 @@ public class PhysicalFlushableChannel implements FlushableChannel
     }
 
     public PhysicalFlushableChannel( StoreChannel channel, int bufferSize )
+    {
+        this( channel, ByteBuffer.allocate( bufferSize ) );
+    }
+
+    /**
+     * @param channel the channel to write through to.
+     * @param buffer the buffer to use for writes. A direct buffer saves the copy into a temporary
+     * direct buffer that the JDK otherwise does for every write of a heap buffer to a file channel.
+     */
+    public PhysicalFlushableChannel( StoreChannel channel, ByteBuffer buffer )
     {
         this.channel = channel;
-        this.buffer = ByteBuffer.allocate( bufferSize );
+        this.buffer = buffer;
     }
 
     void setChannel( LogVersionedStoreChannel channel )
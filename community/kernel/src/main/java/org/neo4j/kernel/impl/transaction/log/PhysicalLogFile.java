@@ -23,14 +23,21 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.function.Supplier;
 
 import org.neo4j.helpers.Exceptions;
+import org.neo4j.io.ByteUnit;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
+import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
 import org.neo4j.kernel.lifecycle.Lifecycle;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
+import static java.lang.Math.min;
+
+import static org.neo4j.kernel.impl.transaction.log.LogVersionBridge.NO_MORE_CHANNELS;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderReader.readLogHeader;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderWriter.writeLogHeader;
@@ -58,6 +65,7 @@ public class PhysicalLogFile implements LogFile, Lifecycle
     public static final String REGEX_DEFAULT_NAME = "neostore\\.transaction\\.db";
     public static final String DEFAULT_VERSION_SUFFIX = ".";
     public static final String REGEX_DEFAULT_VERSION_SUFFIX = "\\.";
+    private static final int WRITE_BUFFER_SIZE = (int) ByteUnit.kibiBytes( 512 );
     private final long rotateAtSize;
     private final FileSystemAbstraction fileSystem;
     private final Supplier<Long> lastCommittedId;
@@ -68,14 +76,36 @@ public class PhysicalLogFile implements LogFile, Lifecycle
     private PositionAwarePhysicalFlushableChannel writer;
     private final LogVersionRepository logVersionRepository;
     private final LogVersionBridge readerLogVersionBridge;
+    private final boolean preallocate;
+    private final RecycledLogFiles recycledLogFiles;
 
     private volatile PhysicalLogVersionedStoreChannel channel;
+    private long writeBufferAddress;
 
     public PhysicalLogFile( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles, long rotateAtSize,
                             Supplier<Long> lastCommittedId, LogVersionRepository logVersionRepository,
                             Monitor monitor, LogHeaderCache logHeaderCache
     )
     {
+        this( fileSystem, logFiles, rotateAtSize, lastCommittedId, logVersionRepository, monitor, logHeaderCache,
+                false, RecycledLogFiles.none( fileSystem ) );
+    }
+
+    /**
+     * @param preallocate whether or not to pre-allocate log versions to {@code rotateAtSize}, and to append to them
+     * through a direct buffer. The current version is zero-filled up to {@code rotateAtSize} on start if it is
+     * shorter than that, and rotation reuses a file from
+     * {@code recycledLogFiles} when there is one, or otherwise lets the new version grow as it is appended to.
+     * Readers see the zero-filled tail of a pre-allocated log as the end of it.
+     * @param recycledLogFiles pool of retired log files to reuse as new log versions when pre-allocating.
+     */
+    public PhysicalLogFile( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles, long rotateAtSize,
+                            Supplier<Long> lastCommittedId, LogVersionRepository logVersionRepository,
+                            Monitor monitor, LogHeaderCache logHeaderCache, boolean preallocate,
+                            RecycledLogFiles recycledLogFiles )
+    {
+        this.preallocate = preallocate && rotateAtSize > 0;
+        this.recycledLogFiles = recycledLogFiles;
         this.fileSystem = fileSystem;
         this.rotateAtSize = rotateAtSize;
         this.lastCommittedId = lastCommittedId;
@@ -90,6 +120,7 @@ public class PhysicalLogFile implements LogFile, Lifecycle
     public void init() throws IOException
     {
         // Make sure at least a bare bones log file is available before recovery
+        recycledLogFiles.init();
         long lastLogVersionUsed = logVersionRepository.getCurrentLogVersion();
         channel = openLogChannelForVersion( lastLogVersionUsed );
         channel.close();
@@ -103,10 +134,73 @@ public class PhysicalLogFile implements LogFile, Lifecycle
 
         long lastLogVersionUsed = logVersionRepository.getCurrentLogVersion();
         channel = openLogChannelForVersion( lastLogVersionUsed );
-        // Move to the end
-        channel.position( channel.size() );
+        if ( preallocate )
+        {
+            // Move to the end of the entries, which is where the zero-filled tail begins. Recovery has already cut
+            // off anything after the last complete transaction if it was needed, but the tail of a pre-allocated log
+            // can look clean to recovery even after a crash.
+            long endOfLog = findEndOfLog( lastLogVersionUsed );
+            long size = channel.size();
+            if ( !RecycledLogFiles.isZero( channel, endOfLog, min( size, endOfLog + WRITE_BUFFER_SIZE ) ) )
+            {
+                // What follows the last complete transaction was written before a crash; readers must not see it
+                RecycledLogFiles.zeroFill( channel, endOfLog, size );
+            }
+            if ( size < rotateAtSize )
+            {
+                // Either this version was never pre-allocated, or it grew without pre-allocation on rotation
+                RecycledLogFiles.zeroFill( channel, size, rotateAtSize );
+            }
+            channel.position( endOfLog );
+            writer = new PositionAwarePhysicalFlushableChannel( channel, allocateWriteBuffer() );
+        }
+        else
+        {
+            // Move to the end
+            channel.position( channel.size() );
+            writer = new PositionAwarePhysicalFlushableChannel( channel );
+        }
+    }
 
-        writer = new PositionAwarePhysicalFlushableChannel( channel );
+    private ByteBuffer allocateWriteBuffer() throws IOException
+    {
+        // Direct buffers are only freed once they are garbage collected, so this one is allocated by hand and freed
+        // on shutdown
+        freeWriteBuffer();
+        writeBufferAddress = UnsafeUtil.allocateMemory( WRITE_BUFFER_SIZE );
+        try
+        {
+            return UnsafeUtil.newDirectByteBuffer( writeBufferAddress, WRITE_BUFFER_SIZE ).order( ByteOrder.BIG_ENDIAN );
+        }
+        catch ( Exception e )
+        {
+            freeWriteBuffer();
+            throw new IOException( e );
+        }
+    }
+
+    private void freeWriteBuffer()
+    {
+        if ( writeBufferAddress != 0 )
+        {
+            UnsafeUtil.free( writeBufferAddress );
+            writeBufferAddress = 0;
+        }
+    }
+
+    private long findEndOfLog( long version ) throws IOException
+    {
+        PhysicalLogVersionedStoreChannel logChannel = openForVersion( logFiles, fileSystem, version );
+        ReadableLogChannel reader = new ReadAheadLogChannel( logChannel, NO_MORE_CHANNELS );
+        try ( PhysicalTransactionCursor<ReadableLogChannel> cursor =
+                      new PhysicalTransactionCursor<>( reader, new VersionAwareLogEntryReader<>() ) )
+        {
+            while ( cursor.next() )
+            {
+                // Just find the position after the last complete transaction or check point
+            }
+            return cursor.lastKnownGoodPosition();
+        }
     }
 
     @Override
@@ -129,6 +223,7 @@ public class PhysicalLogFile implements LogFile, Lifecycle
         {
             channel.close();
         }
+        freeWriteBuffer();
     }
 
     @Override
@@ -155,6 +250,13 @@ public class PhysicalLogFile implements LogFile, Lifecycle
          * current log file and replay everything. That's unnecessary but totally ok.
          */
         long newLogVersion = logVersionRepository.incrementAndGetVersion();
+        if ( preallocate )
+        {
+            // Readers move on to the next log version when they reach the end of the file, not when they reach
+            // the zero-filled tail, so cut the tail off from the log we're rotating away from
+            writer.prepareForFlush();
+            currentLog.truncate( currentLog.position() );
+        }
         currentLog.flush();
         /*
          * The log version is now in the store, flushed and persistent. If we crash
@@ -164,6 +266,13 @@ public class PhysicalLogFile implements LogFile, Lifecycle
          * Note that by this point, rotation is done. The next few lines are
          * "simply overhead" for continuing to work with the new file.
          */
+        if ( preallocate )
+        {
+            // A recycled file has already been zero-filled to the full size, off the commit path. If there is none,
+            // zero-filling a new file here would stall every committer behind the rotation, so the new version
+            // simply grows as it is appended to, the way it does without pre-allocation.
+            recycledLogFiles.take( logFiles.getLogFileForVersion( newLogVersion ) );
+        }
         PhysicalLogVersionedStoreChannel newLog = openLogChannelForVersion( newLogVersion );
         currentLog.close();
         return newLog;
@@ -180,7 +289,9 @@ public class PhysicalLogFile implements LogFile, Lifecycle
             long lastTxId = lastCommittedId.get();
             writeLogHeader( headerBuffer, forVersion, lastTxId );
             logHeaderCache.putHeader( forVersion, lastTxId );
-            storeChannel.writeAll( headerBuffer );
+            // Write at the very beginning, since a recycled, zero-filled, file has already been read past it
+            storeChannel.writeAll( headerBuffer, 0 );
+            storeChannel.position( LOG_HEADER_SIZE );
             monitor.opened( toOpen, forVersion, lastTxId, true );
         }
         byte formatVersion = header == null ? CURRENT_LOG_VERSION : header.logFormatVersion;
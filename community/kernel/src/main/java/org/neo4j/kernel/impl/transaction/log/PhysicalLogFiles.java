@@ -21,9 +21,11 @@ package org.neo4j.kernel.impl.transaction.log;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.regex.Pattern;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
 
 import static java.lang.Math.max;
@@ -91,7 +93,23 @@ public class PhysicalLogFiles
 
     public boolean hasAnyEntries( long version )
     {
-        return fileSystem.getFileSize( getLogFileForVersion( version ) ) > LOG_HEADER_SIZE;
+        File file = getLogFileForVersion( version );
+        if ( fileSystem.getFileSize( file ) <= LOG_HEADER_SIZE )
+        {
+            return false;
+        }
+
+        // A pre-allocated log is zero-filled after its last entry, whereas every entry begins with a non-zero byte
+        try ( StoreChannel channel = fileSystem.open( file, "r" ) )
+        {
+            ByteBuffer firstByte = ByteBuffer.allocate( 1 );
+            return channel.read( firstByte, LOG_HEADER_SIZE ) != 1 || firstByte.get( 0 ) != 0;
+        }
+        catch ( IOException e )
+        {
+            // Same answer as if we'd only looked at the size
+            return true;
+        }
     }
 
     public long getHighestLogVersion()
@@ -50,13 +50,14 @@ public class PhysicalLogVersionedStoreChannel implements LogVersionedStoreChanne
     @Override
     public int write( ByteBuffer src, long position ) throws IOException
     {
-        throw new UnsupportedOperationException( "Not needed" );
+        // Positional writes leave the position of the channel where it is
+        return delegateChannel.write( src, position );
     }
 
     @Override
     public void writeAll( ByteBuffer src, long position ) throws IOException
     {
-        throw new UnsupportedOperationException( "Not needed" );
+        delegateChannel.writeAll( src, position );
     }
 
     @Override
@@ -69,7 +70,7 @@ public class PhysicalLogVersionedStoreChannel implements LogVersionedStoreChanne
     @Override
     public int read( ByteBuffer dst, long position ) throws IOException
     {
-        throw new UnsupportedOperationException( "Not needed" );
+        return delegateChannel.read( dst, position );
     }
 
     @Override
@@ -65,6 +65,7 @@ public class PhysicalTransactionCursor<T extends ReadableClosablePositionAwareCh
     {
         while ( true )
         {
+            // The entry reader also sees the zero-filled tail of a pre-allocated log as the end of the log
             if ( !logEntryCursor.next() )
             {
                 return false;
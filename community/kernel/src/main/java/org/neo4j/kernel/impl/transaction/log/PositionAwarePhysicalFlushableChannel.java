@@ -21,6 +21,7 @@ package org.neo4j.kernel.impl.transaction.log;
 
 import java.io.Flushable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Decorator around a {@link LogVersionedStoreChannel} making it expose {@link FlushablePositionAwareChannel}. This
@@ -43,6 +44,13 @@ public class PositionAwarePhysicalFlushableChannel implements FlushablePositionA
         this.channel = new PhysicalFlushableChannel( logVersionedStoreChannel, bufferSize );
     }
 
+    public PositionAwarePhysicalFlushableChannel( LogVersionedStoreChannel logVersionedStoreChannel,
+            ByteBuffer buffer )
+    {
+        this.logVersionedStoreChannel = logVersionedStoreChannel;
+        this.channel = new PhysicalFlushableChannel( logVersionedStoreChannel, buffer );
+    }
+
     @Override
     public LogPositionMarker getCurrentPosition( LogPositionMarker positionMarker ) throws IOException
     {
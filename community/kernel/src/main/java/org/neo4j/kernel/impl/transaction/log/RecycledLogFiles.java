@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+
+import static java.lang.Math.min;
+
+/**
+ * Keeps retired transaction log files around so that they can be reused as new log versions, instead of deleting
+ * them on pruning and allocating new files on rotation.
+ *
+ * A retired file is zero-filled up to the pre-allocated log file size before it is made available for reuse.
+ * That happens when the file is pruned, outside of the commit path, so that taking a recycled file on rotation is
+ * only a rename. The file is first renamed to a "recycling" name, is then overwritten and forced, and only then
+ * renamed into the pool, so a crash can never leave stale log entries in a file that is later taken from the pool.
+ * Leftovers of such an interrupted recycling are deleted by {@link #init()}.
+ *
+ * Neither pooled nor recycling files match the name pattern of {@link PhysicalLogFiles}, nor do they begin with
+ * the name of the logs, so they are not mistaken for log versions or included in store file listings.
+ */
+public class RecycledLogFiles
+{
+    public static final String RECYCLED_PREFIX = "recycled.";
+    public static final String RECYCLING_PREFIX = "recycling.";
+
+    private static final int ZERO_FILL_CHUNK_SIZE = (int) ByteUnit.kibiBytes( 512 );
+
+    private final FileSystemAbstraction fileSystem;
+    private final File directory;
+    private final String logName;
+    private final long fileSize;
+    private final int capacity;
+
+    /**
+     * @param fileSystem the file system the log files live in.
+     * @param directory the directory of the log files.
+     * @param logName the base name of the log files, e.g. {@link PhysicalLogFile#DEFAULT_NAME}.
+     * @param fileSize the size that recycled files are zero-filled to.
+     * @param capacity the max number of files to keep around, files retired beyond that are deleted.
+     */
+    public RecycledLogFiles( FileSystemAbstraction fileSystem, File directory, String logName, long fileSize,
+            int capacity )
+    {
+        this.fileSystem = fileSystem;
+        this.directory = directory;
+        this.logName = logName;
+        this.fileSize = fileSize;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return {@link RecycledLogFiles} that deletes all retired log files.
+     */
+    public static RecycledLogFiles none( FileSystemAbstraction fileSystem )
+    {
+        return new RecycledLogFiles( fileSystem, null, null, 0, 0 );
+    }
+
+    /**
+     * Deletes files left behind by a recycling that was interrupted by a crash.
+     */
+    public void init()
+    {
+        if ( capacity == 0 )
+        {
+            return;
+        }
+        File[] files = fileSystem.listFiles( directory );
+        if ( files != null )
+        {
+            for ( File file : files )
+            {
+                if ( file.getName().startsWith( RECYCLING_PREFIX + logName ) )
+                {
+                    fileSystem.deleteFile( file );
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes ownership of a retired log file, either keeping it for reuse or deleting it.
+     *
+     * @param retiredLogFile log file that has been pruned.
+     */
+    public void retire( File retiredLogFile )
+    {
+        int slot = capacity == 0 ? -1 : freeSlot();
+        if ( slot == -1 )
+        {
+            fileSystem.deleteFile( retiredLogFile );
+            return;
+        }
+
+        File recycling = new File( directory, RECYCLING_PREFIX + logName + PhysicalLogFile.DEFAULT_VERSION_SUFFIX +
+                slot );
+        try
+        {
+            fileSystem.renameFile( retiredLogFile, recycling );
+            zeroFill( recycling );
+            fileSystem.renameFile( recycling, recycledFile( slot ) );
+        }
+        catch ( IOException e )
+        {
+            // Recycling is only an optimization, the retired file is gone either way
+            fileSystem.deleteFile( retiredLogFile );
+            fileSystem.deleteFile( recycling );
+        }
+    }
+
+    /**
+     * Moves a recycled, zero-filled, file into place as the given new log file, if there is one.
+     *
+     * @param newLogFile the log file to create.
+     * @return {@code true} if a recycled file was moved into place, otherwise {@code false}.
+     * @throws IOException if the rename failed.
+     */
+    public boolean take( File newLogFile ) throws IOException
+    {
+        for ( int slot = 0; slot < capacity; slot++ )
+        {
+            File recycled = recycledFile( slot );
+            if ( fileSystem.fileExists( recycled ) )
+            {
+                return fileSystem.renameFile( recycled, newLogFile );
+            }
+        }
+        return false;
+    }
+
+    private int freeSlot()
+    {
+        for ( int slot = 0; slot < capacity; slot++ )
+        {
+            if ( !fileSystem.fileExists( recycledFile( slot ) ) )
+            {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private File recycledFile( int slot )
+    {
+        return new File( directory, RECYCLED_PREFIX + logName + PhysicalLogFile.DEFAULT_VERSION_SUFFIX + slot );
+    }
+
+    private void zeroFill( File file ) throws IOException
+    {
+        try ( StoreChannel channel = fileSystem.open( file, "rw" ) )
+        {
+            if ( channel.size() > fileSize )
+            {
+                channel.truncate( fileSize );
+            }
+            zeroFill( channel, 0, fileSize );
+            channel.force( false );
+        }
+    }
+
+    /**
+     * @return {@code true} if the given range of the channel holds nothing but zeros.
+     */
+    static boolean isZero( StoreChannel channel, long from, long to ) throws IOException
+    {
+        if ( from >= to )
+        {
+            return true;
+        }
+        ByteBuffer chunk = ByteBuffer.allocate( (int) min( ZERO_FILL_CHUNK_SIZE, to - from ) );
+        for ( long position = from; position < to; position += chunk.capacity() )
+        {
+            chunk.clear();
+            chunk.limit( (int) min( chunk.capacity(), to - position ) );
+            while ( chunk.hasRemaining() && channel.read( chunk, position + chunk.position() ) != -1 )
+            {
+                // Read until the chunk is full or the end of the file is reached
+            }
+            chunk.flip();
+            while ( chunk.hasRemaining() )
+            {
+                if ( chunk.get() != 0 )
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Overwrites the given range of the channel with zeros, growing the file if needed.
+     */
+    static void zeroFill( StoreChannel channel, long from, long to ) throws IOException
+    {
+        if ( from >= to )
+        {
+            return;
+        }
+        ByteBuffer zeros = ByteBuffer.allocateDirect( (int) min( ZERO_FILL_CHUNK_SIZE, to - from ) );
+        for ( long position = from; position < to; position += zeros.capacity() )
+        {
+            zeros.clear();
+            zeros.limit( (int) min( zeros.capacity(), to - position ) );
+            channel.writeAll( zeros, position );
+        }
+    }
+}
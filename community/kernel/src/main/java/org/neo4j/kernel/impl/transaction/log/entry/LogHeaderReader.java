@@ -72,6 +72,15 @@ public class LogHeaderReader
         }
         buffer.flip();
         long encodedLogVersions = buffer.getLong();
+        if ( encodedLogVersions == 0 )
+        {
+            // A recycled, zero-filled, log file that hasn't had its header written yet
+            if ( strict )
+            {
+                throw new IOException( "Unable to read log version and last committed tx" );
+            }
+            return null;
+        }
         byte logFormatVersion = decodeLogFormatVersion( encodedLogVersions );
         long logVersion = decodeLogVersion( encodedLogVersions );
         long previousCommittedTx = buffer.getLong();
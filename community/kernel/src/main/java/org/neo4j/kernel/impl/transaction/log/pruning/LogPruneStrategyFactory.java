@@ -26,6 +26,7 @@ import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.impl.transaction.log.IllegalLogFormatException;
 import org.neo4j.kernel.impl.transaction.log.LogFileInformation;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogFiles;
+import org.neo4j.kernel.impl.transaction.log.RecycledLogFiles;
 import org.neo4j.kernel.impl.transaction.log.pruning.ThresholdConfigParser.ThresholdConfigValue;
 
 import static org.neo4j.kernel.impl.transaction.log.pruning.ThresholdConfigParser.parse;
@@ -77,6 +78,20 @@ public class LogPruneStrategyFactory
                                                     LogFileInformation logFileInformation,
                                                     PhysicalLogFiles files,
                                                     String configValue )
+    {
+        return fromConfigValue( fileSystem, logFileInformation, files, configValue,
+                RecycledLogFiles.none( fileSystem ) );
+    }
+
+    /**
+     * Like {@link #fromConfigValue(FileSystemAbstraction, LogFileInformation, PhysicalLogFiles, String)}, but
+     * pruned log files are handed to the given {@link RecycledLogFiles} instead of being deleted.
+     */
+    public static LogPruneStrategy fromConfigValue( FileSystemAbstraction fileSystem,
+                                                    LogFileInformation logFileInformation,
+                                                    PhysicalLogFiles files,
+                                                    String configValue,
+                                                    RecycledLogFiles recycledLogFiles )
     {
         ThresholdConfigValue value = parse( configValue );
 
@@ -86,7 +101,8 @@ public class LogPruneStrategyFactory
         }
 
         Threshold thresholdToUse = getThresholdByType( fileSystem, value, configValue );
-        return new ThresholdBasedPruneStrategy( fileSystem, logFileInformation, files, thresholdToUse );
+        return new ThresholdBasedPruneStrategy( fileSystem, logFileInformation, files, thresholdToUse,
+                recycledLogFiles );
     }
 
     // visible for testing
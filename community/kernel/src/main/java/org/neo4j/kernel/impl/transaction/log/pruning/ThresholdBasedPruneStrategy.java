@@ -24,6 +24,7 @@ import java.io.File;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.impl.transaction.log.LogFileInformation;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogFiles;
+import org.neo4j.kernel.impl.transaction.log.RecycledLogFiles;
 
 import static org.neo4j.kernel.impl.transaction.log.LogVersionRepository.INITIAL_LOG_VERSION;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
@@ -34,14 +35,23 @@ public class ThresholdBasedPruneStrategy implements LogPruneStrategy
     private final LogFileInformation logFileInformation;
     private final PhysicalLogFiles files;
     private final Threshold threshold;
+    private final RecycledLogFiles recycledLogFiles;
 
     public ThresholdBasedPruneStrategy( FileSystemAbstraction fileSystem, LogFileInformation logFileInformation,
                                         PhysicalLogFiles files, Threshold threshold )
+    {
+        this( fileSystem, logFileInformation, files, threshold, RecycledLogFiles.none( fileSystem ) );
+    }
+
+    public ThresholdBasedPruneStrategy( FileSystemAbstraction fileSystem, LogFileInformation logFileInformation,
+                                        PhysicalLogFiles files, Threshold threshold,
+                                        RecycledLogFiles recycledLogFiles )
     {
         this.fileSystem = fileSystem;
         this.logFileInformation = logFileInformation;
         this.files = files;
         this.threshold = threshold;
+        this.recycledLogFiles = recycledLogFiles;
     }
 
     @Override
@@ -106,7 +116,7 @@ public class ThresholdBasedPruneStrategy implements LogPruneStrategy
         // we can be sure that no holes are created
         for ( long version = lower; version <= upper; version++ )
         {
-            fileSystem.deleteFile( files.getLogFileForVersion( version ) );
+            recycledLogFiles.retire( files.getLogFileForVersion( version ) );
         }
     }
 }
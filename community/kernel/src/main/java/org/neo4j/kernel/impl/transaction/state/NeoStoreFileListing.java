@@ -32,6 +32,7 @@ import org.neo4j.kernel.api.labelscan.LabelScanStore;
 import org.neo4j.kernel.impl.api.LegacyIndexProviderLookup;
 import org.neo4j.kernel.impl.api.index.IndexingService;
 import org.neo4j.kernel.impl.index.IndexConfigStore;
+import org.neo4j.kernel.impl.index.labelscan.NativeLabelScanStore;
 import org.neo4j.kernel.impl.store.MetaDataStore;
 import org.neo4j.kernel.spi.legacyindex.IndexImplementation;
 
@@ -135,6 +136,11 @@ public class NeoStoreFileListing
             return true;
         }
 
+        if ( name.equals( NativeLabelScanStore.FILE_NAME ) )
+        {   // Listed by the label scan store itself, if it's the one in use
+            return false;
+        }
+
         return name.startsWith( MetaDataStore.DEFAULT_NAME ) &&
                 !name.startsWith( MetaDataStore.DEFAULT_NAME + ".transaction" );
     }
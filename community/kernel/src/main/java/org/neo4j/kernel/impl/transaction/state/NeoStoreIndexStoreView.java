@@ -116,6 +116,21 @@ public class NeoStoreIndexStoreView implements IndexStoreView
                 propertyUpdatesVisitor, labelIdFilter, propertyKeyIdFilter );
     }
 
+    @Override
+    public <FAILURE extends Exception> StoreScan<FAILURE> visitNodes( IntPredicate labelIdFilter,
+            IntPredicate propertyKeyIdFilter, Visitor<NodePropertyUpdates,FAILURE> propertyUpdatesVisitor,
+            long fromNodeId, long toNodeId )
+    {
+        return new StoreViewNodeStoreScan<>( nodeStore, locks, propertyStore, null, propertyUpdatesVisitor,
+                labelIdFilter, propertyKeyIdFilter, fromNodeId, toNodeId );
+    }
+
+    @Override
+    public long nodeHighId()
+    {
+        return nodeStore.getHighId();
+    }
+
     @Override
     public void nodeAsUpdates( long nodeId, Collection<NodePropertyUpdate> target )
     {
@@ -188,23 +203,32 @@ public class NeoStoreIndexStoreView implements IndexStoreView
         protected final NodeStore nodeStore;
         protected final LockService locks;
         private final long totalCount;
+        private final long fromNodeId;
+        private final long toNodeId;
 
         private long count = 0;
 
         protected abstract void process( NodeRecord loaded ) throws FAILURE;
 
         public NodeStoreScan( NodeStore nodeStore, LockService locks, long totalCount )
+        {
+            this( nodeStore, locks, totalCount, 0, Long.MAX_VALUE );
+        }
+
+        NodeStoreScan( NodeStore nodeStore, LockService locks, long totalCount, long fromNodeId, long toNodeId )
         {
             this.nodeStore = nodeStore;
             this.record = nodeStore.newRecord();
             this.locks = locks;
             this.totalCount = totalCount;
+            this.fromNodeId = fromNodeId;
+            this.toNodeId = toNodeId;
         }
 
         @Override
         public void run() throws FAILURE
         {
-            PrimitiveLongIterator nodeIds = new StoreIdIterator( nodeStore );
+            PrimitiveLongIterator nodeIds = new StoreIdIterator( nodeStore, fromNodeId, toNodeId );
             continueScanning = true;
             while ( continueScanning && nodeIds.hasNext() )
             {
@@ -253,7 +277,16 @@ public class NeoStoreIndexStoreView implements IndexStoreView
                 labelUpdateVisitor, Visitor<NodePropertyUpdates,FAILURE> propertyUpdatesVisitor,
                 IntPredicate labelIdFilter, IntPredicate propertyKeyIdFilter )
         {
-            super( nodeStore, locks, nodeStore.getHighId() );
+            this( nodeStore, locks, propertyStore, labelUpdateVisitor, propertyUpdatesVisitor, labelIdFilter,
+                    propertyKeyIdFilter, 0, Long.MAX_VALUE );
+        }
+
+        StoreViewNodeStoreScan( NodeStore nodeStore, LockService locks, PropertyStore propertyStore,
+                Visitor<NodeLabelUpdate,FAILURE> labelUpdateVisitor,
+                Visitor<NodePropertyUpdates,FAILURE> propertyUpdatesVisitor,
+                IntPredicate labelIdFilter, IntPredicate propertyKeyIdFilter, long fromNodeId, long toNodeId )
+        {
+            super( nodeStore, locks, Math.min( nodeStore.getHighId(), toNodeId ) - fromNodeId, fromNodeId, toNodeId );
             this.propertyStore = propertyStore;
             this.labelUpdateVisitor = labelUpdateVisitor;
             this.propertyUpdatesVisitor = propertyUpdatesVisitor;
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.state;
+
+import java.util.Arrays;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.kernel.impl.store.RecordStore;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RecordLoad;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.transaction.state.RecordAccess.RecordProxy;
+import org.neo4j.storageengine.api.lock.ResourceLocker;
+
+import static org.neo4j.kernel.impl.transaction.state.RelationshipCreator.relCount;
+
+/**
+ * Relinks the relationship chains of a dense node so that each chain is traversed in ascending record id order.
+ * Relationships are prepended to their chains as they are created, so over time the chains of a busy node jump back
+ * and forth across the relationship store. Once the records of a chain are linked in id order, traversing the chain
+ * reads the store pages it touches sequentially, and each of them only once.
+ * <p>
+ * Only the pointers on the side of the given node are rewritten. No records are moved, since relationship ids are
+ * visible to users, and the chains of the other nodes the relationships are connected to are left as they are.
+ * The node must be exclusively locked by the transaction, which keeps the chains of the node from changing. The ids
+ * of a chain are collected straight from the store, without loading the records into the transaction, and then all
+ * of them are locked before they are loaded and changed, just like {@link RelationshipCreator} and
+ * {@link RelationshipDeleter} do, since the other node of a relationship can still change the other side of the record.
+ */
+public class RelationshipChainOrderer
+{
+    private final RecordStore<RelationshipRecord> relationshipStore;
+    private final RelationshipRecord scratch;
+
+    public RelationshipChainOrderer( RecordStore<RelationshipRecord> relationshipStore )
+    {
+        this.relationshipStore = relationshipStore;
+        this.scratch = relationshipStore.newRecord();
+    }
+
+    public void orderRelationshipChains( long nodeId, RecordAccessSet recordChanges, ResourceLocker locks )
+    {
+        NodeRecord node = recordChanges.getNodeRecords().getOrLoad( nodeId, null ).forReadingLinkage();
+        if ( !node.inUse() || !node.isDense() )
+        {
+            return;
+        }
+
+        RecordAccess<Long,RelationshipGroupRecord,Integer> relGroupRecords = recordChanges.getRelGroupRecords();
+        long groupId = node.getNextRel();
+        while ( groupId != Record.NO_NEXT_RELATIONSHIP.intValue() )
+        {
+            RecordProxy<Long,RelationshipGroupRecord,Integer> groupChange = relGroupRecords.getOrLoad( groupId, null );
+            RelationshipGroupRecord group = groupChange.forReadingData();
+            long firstOut = orderChain( nodeId, group.getFirstOut(), recordChanges.getRelRecords(), locks );
+            long firstIn = orderChain( nodeId, group.getFirstIn(), recordChanges.getRelRecords(), locks );
+            long firstLoop = orderChain( nodeId, group.getFirstLoop(), recordChanges.getRelRecords(), locks );
+            if ( firstOut != group.getFirstOut() || firstIn != group.getFirstIn() ||
+                 firstLoop != group.getFirstLoop() )
+            {
+                group = groupChange.forChangingData();
+                group.setFirstOut( firstOut );
+                group.setFirstIn( firstIn );
+                group.setFirstLoop( firstLoop );
+            }
+            groupId = group.getNext();
+        }
+    }
+
+    /**
+     * Links the records of the chain starting at {@code firstRelId} in ascending id order.
+     *
+     * @return the id of the record that the chain now starts with.
+     */
+    private long orderChain( long nodeId, long firstRelId, RecordAccess<Long,RelationshipRecord,Void> relRecords,
+            ResourceLocker locks )
+    {
+        long[] chain = chain( nodeId, firstRelId, relRecords );
+        if ( isSorted( chain ) )
+        {
+            return firstRelId;
+        }
+
+        long[] ordered = chain.clone();
+        Arrays.sort( ordered );
+        for ( long relId : ordered )
+        {
+            locks.acquireExclusive( ResourceTypes.RELATIONSHIP, relId );
+        }
+
+        long degree = relCount( nodeId, relRecords.getOrLoad( firstRelId, null ).forReadingLinkage() );
+        for ( int i = 0; i < ordered.length; i++ )
+        {
+            long prev = i == 0 ? degree : ordered[i - 1];
+            long next = i == ordered.length - 1 ? Record.NO_NEXT_RELATIONSHIP.intValue() : ordered[i + 1];
+            RecordProxy<Long,RelationshipRecord,Void> relChange = relRecords.getOrLoad( ordered[i], null );
+            RelationshipRecord rel = relChange.forReadingLinkage();
+            if ( rel.getFirstNode() == nodeId )
+            {
+                relink( relChange, RelationshipConnection.START_PREV, RelationshipConnection.START_NEXT,
+                        prev, next, i == 0 );
+            }
+            if ( rel.getSecondNode() == nodeId )
+            {
+                relink( relChange, RelationshipConnection.END_PREV, RelationshipConnection.END_NEXT,
+                        prev, next, i == 0 );
+            }
+        }
+        return ordered[0];
+    }
+
+    private static void relink( RecordProxy<Long,RelationshipRecord,Void> relChange,
+            RelationshipConnection prevPointer, RelationshipConnection nextPointer, long prev, long next,
+            boolean first )
+    {
+        RelationshipRecord rel = relChange.forReadingLinkage();
+        boolean wasFirst = prevPointer == RelationshipConnection.START_PREV
+                           ? rel.isFirstInFirstChain() : rel.isFirstInSecondChain();
+        long currentPrev = prevPointer == RelationshipConnection.START_PREV
+                           ? rel.getFirstPrevRel() : rel.getSecondPrevRel();
+        if ( wasFirst != first || currentPrev != prev || nextPointer.get( rel ) != next )
+        {
+            rel = relChange.forChangingLinkage();
+            prevPointer.set( rel, prev, first );
+            nextPointer.set( rel, next, first );
+        }
+    }
+
+    private long[] chain( long nodeId, long firstRelId, RecordAccess<Long,RelationshipRecord,Void> relRecords )
+    {
+        if ( firstRelId == Record.NO_NEXT_RELATIONSHIP.intValue() )
+        {
+            return PrimitiveLongCollections.EMPTY_LONG_ARRAY;
+        }
+        long[] chain = new long[(int) relCount( nodeId, peek( firstRelId, relRecords ) )];
+        int length = 0;
+        long relId = firstRelId;
+        while ( relId != Record.NO_NEXT_RELATIONSHIP.intValue() )
+        {
+            if ( length == chain.length )
+            {
+                chain = Arrays.copyOf( chain, length * 2 + 1 );
+            }
+            chain[length++] = relId;
+            RelationshipRecord rel = peek( relId, relRecords );
+            relId = rel.getFirstNode() == nodeId ? rel.getFirstNextRel() : rel.getSecondNextRel();
+        }
+        return length == chain.length ? chain : Arrays.copyOf( chain, length );
+    }
+
+    /**
+     * Reads a relationship record without loading it into the transaction, unless the transaction already has, so
+     * that a record is never loaded before it is locked. Only the pointers on the side of the exclusively locked node
+     * can be relied upon in the returned record, which is only valid until the next call.
+     */
+    private RelationshipRecord peek( long relId, RecordAccess<Long,RelationshipRecord,Void> relRecords )
+    {
+        RecordProxy<Long,RelationshipRecord,Void> loaded = relRecords.getIfLoaded( relId );
+        if ( loaded != null )
+        {
+            return loaded.forReadingLinkage();
+        }
+        return relationshipStore.getRecord( relId, scratch, RecordLoad.NORMAL );
+    }
+
+    private static boolean isSorted( long[] chain )
+    {
+        for ( int i = 1; i < chain.length; i++ )
+        {
+            if ( chain[i - 1] > chain[i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.state;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.graphdb.TransientFailureException;
+import org.neo4j.kernel.api.KernelAPI;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.api.Statement;
+import org.neo4j.kernel.api.exceptions.KernelException;
+import org.neo4j.kernel.api.security.AccessMode;
+import org.neo4j.kernel.impl.api.KernelStatement;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.RecordStore;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.storageengine.api.lock.AcquireLockTimeoutException;
+
+import static org.neo4j.kernel.impl.store.record.RecordLoad.CHECK;
+
+/**
+ * Goes through the dense nodes in the store in the background, a batch of node ids at a time, and measures how
+ * scattered the relationship chains of each node are. The relationship chains of a node whose chains visit some
+ * store page more than once are relinked in record id order, see {@link RelationshipChainOrderer}, in a transaction
+ * of its own, which exclusively locks the node.
+ * <p>
+ * The locality of a chain is the number of distinct relationship store pages it touches, divided by the number of
+ * times traversing it moves on to a different page. A chain that reads each of its pages only once has a locality
+ * of 1. When a pass over all the nodes completes, the locality of all the chains that were looked at is reported to
+ * the {@link Monitor}.
+ */
+public class RelationshipChainOrdering extends LifecycleAdapter
+{
+    public interface Monitor
+    {
+        /**
+         * The relationship chains of a node have been relinked in record id order.
+         */
+        void relationshipChainsOrdered( long nodeId );
+
+        /**
+         * A pass over all the nodes in the store has completed.
+         *
+         * @param chains the number of relationship chains that were looked at.
+         * @param pages the sum of the number of distinct pages each chain touches.
+         * @param pageVisits the sum of the number of times traversing each chain moves on to a different page.
+         */
+        void passCompleted( long chains, long pages, long pageVisits );
+    }
+
+    private final RecordStore<NodeRecord> nodeStore;
+    private final RecordStore<RelationshipGroupRecord> relationshipGroupStore;
+    private final RecordStore<RelationshipRecord> relationshipStore;
+    private final KernelAPI kernel;
+    private final JobScheduler scheduler;
+    private final long intervalMillis;
+    private final int batchSize;
+    private final int maxChainLength;
+    private final Monitor monitor;
+    private final Log log;
+
+    private final NodeRecord nodeRecord;
+    private final RelationshipGroupRecord groupRecord;
+    private final RelationshipRecord relationshipRecord;
+    private final PrimitiveLongSet chainPages = Primitive.longSet();
+    private long nextNodeId;
+    private long chains;
+    private long pages;
+    private long pageVisits;
+    private volatile JobScheduler.JobHandle job;
+
+    public RelationshipChainOrdering( NeoStores neoStores, KernelAPI kernel, JobScheduler scheduler,
+            long intervalMillis, int batchSize, int maxChainLength, Monitor monitor, Log log )
+    {
+        this.nodeStore = neoStores.getNodeStore();
+        this.relationshipGroupStore = neoStores.getRelationshipGroupStore();
+        this.relationshipStore = neoStores.getRelationshipStore();
+        this.kernel = kernel;
+        this.scheduler = scheduler;
+        this.intervalMillis = intervalMillis;
+        this.batchSize = batchSize;
+        this.maxChainLength = maxChainLength;
+        this.monitor = monitor;
+        this.log = log;
+        this.nodeRecord = nodeStore.newRecord();
+        this.groupRecord = relationshipGroupStore.newRecord();
+        this.relationshipRecord = relationshipStore.newRecord();
+    }
+
+    @Override
+    public void start() throws Throwable
+    {
+        job = scheduler.scheduleRecurring( JobScheduler.Groups.storageMaintenance, this::orderQuietly,
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS );
+    }
+
+    @Override
+    public void stop() throws Throwable
+    {
+        JobScheduler.JobHandle job = this.job;
+        if ( job != null )
+        {
+            job.cancel( false );
+            this.job = null;
+        }
+    }
+
+    /**
+     * Looks at the next batch of nodes, relinking the relationship chains of the ones whose chains are scattered.
+     *
+     * @return the number of nodes whose relationship chains were relinked.
+     */
+    public synchronized int orderNextBatch()
+    {
+        long highId = nodeStore.getHighId();
+        long endNodeId = Math.min( nextNodeId + batchSize, highId );
+        int ordered = 0;
+        for ( long nodeId = nextNodeId; nodeId < endNodeId; nodeId++ )
+        {
+            if ( visitNode( nodeId ) )
+            {
+                ordered++;
+            }
+        }
+        nextNodeId = endNodeId;
+        if ( nextNodeId >= highId )
+        {
+            monitor.passCompleted( chains, pages, pageVisits );
+            nextNodeId = 0;
+            chains = pages = pageVisits = 0;
+        }
+        return ordered;
+    }
+
+    private void orderQuietly()
+    {
+        try
+        {
+            orderNextBatch();
+        }
+        catch ( Exception e )
+        {
+            log.warn( "Failed to order relationship chains.", e );
+        }
+    }
+
+    private boolean visitNode( long nodeId )
+    {
+        nodeStore.getRecord( nodeId, nodeRecord, CHECK );
+        if ( !nodeRecord.inUse() || !nodeRecord.isDense() )
+        {
+            return false;
+        }
+
+        long nodeChains = 0;
+        long nodePages = 0;
+        long nodePageVisits = 0;
+        long groupId = nodeRecord.getNextRel();
+        while ( groupId != Record.NO_NEXT_RELATIONSHIP.intValue() )
+        {
+            relationshipGroupStore.getRecord( groupId, groupRecord, CHECK );
+            if ( !groupRecord.inUse() || groupRecord.getOwningNode() != nodeId )
+            {   // The node changed while we were looking at it
+                return false;
+            }
+            for ( long firstRelId : new long[]{groupRecord.getFirstOut(), groupRecord.getFirstIn(),
+                    groupRecord.getFirstLoop()} )
+            {
+                if ( firstRelId == Record.NO_NEXT_RELATIONSHIP.intValue() )
+                {
+                    continue;
+                }
+                long chainPageVisits = pageVisits( nodeId, firstRelId );
+                if ( chainPageVisits < 0 )
+                {   // Too long to be relinked, or changed while we were looking at it
+                    return false;
+                }
+                nodeChains++;
+                nodePages += chainPages.size();
+                nodePageVisits += chainPageVisits;
+            }
+            groupId = groupRecord.getNext();
+        }
+
+        boolean ordered = nodePageVisits > nodePages && order( nodeId );
+        chains += nodeChains;
+        pages += nodePages;
+        // Once relinked in record id order, the chains visit each of their pages once
+        pageVisits += ordered ? nodePages : nodePageVisits;
+        return ordered;
+    }
+
+    /**
+     * Traverses the chain starting at {@code firstRelId}, collecting the pages it touches in {@link #chainPages}.
+     *
+     * @return the number of times traversing the chain moves on to a different page, or -1 if the chain is longer
+     * than {@link #maxChainLength}, or if it is not a chain of the given node.
+     */
+    private long pageVisits( long nodeId, long firstRelId )
+    {
+        chainPages.clear();
+        int recordsPerPage = relationshipStore.getRecordsPerPage();
+        long visits = 0;
+        long currentPage = -1;
+        int length = 0;
+        long relId = firstRelId;
+        while ( relId != Record.NO_NEXT_RELATIONSHIP.intValue() )
+        {
+            relationshipStore.getRecord( relId, relationshipRecord, CHECK );
+            if ( ++length > maxChainLength || !relationshipRecord.inUse() )
+            {
+                return -1;
+            }
+            long page = relId / recordsPerPage;
+            if ( page != currentPage )
+            {
+                visits++;
+                currentPage = page;
+                chainPages.add( page );
+            }
+            if ( relationshipRecord.getFirstNode() == nodeId )
+            {
+                relId = relationshipRecord.getFirstNextRel();
+            }
+            else if ( relationshipRecord.getSecondNode() == nodeId )
+            {
+                relId = relationshipRecord.getSecondNextRel();
+            }
+            else
+            {
+                return -1;
+            }
+        }
+        return visits;
+    }
+
+    private boolean order( long nodeId )
+    {
+        try ( KernelTransaction transaction =
+                      kernel.newTransaction( KernelTransaction.Type.implicit, AccessMode.Static.FULL );
+              Statement statement = transaction.acquireStatement() )
+        {
+            statement.readOperations().acquireExclusive( ResourceTypes.NODE, nodeId );
+            if ( !statement.readOperations().nodeExists( nodeId ) )
+            {
+                return false;
+            }
+            // There is no operation for this in the kernel API, since it changes nothing but the linkage of records
+            ((KernelStatement) statement).txState().nodeDoOrderRelationshipChains( nodeId );
+            transaction.success();
+        }
+        catch ( KernelException | TransientFailureException | AcquireLockTimeoutException e )
+        {
+            // We will get another chance to order the chains of this node in the next pass
+            log.debug( "Failed to order the relationship chains of node " + nodeId + ".", e );
+            return false;
+        }
+        monitor.relationshipChainsOrdered( nodeId );
+        return true;
+    }
+}
@@ -93,6 +93,7 @@ public class TransactionRecordState implements RecordState
     private final RelationshipDeleter relationshipDeleter;
     private final PropertyCreator propertyCreator;
     private final PropertyDeleter propertyDeleter;
+    private final RelationshipChainOrderer relationshipChainOrderer;
 
     private RecordChanges<Long,NeoStoreRecord, Void> neoStoreRecord;
     private boolean prepared;
@@ -120,6 +121,7 @@ public class TransactionRecordState implements RecordState
         this.relationshipDeleter = relationshipDeleter;
         this.propertyCreator = propertyCreator;
         this.propertyDeleter = propertyDeleter;
+        this.relationshipChainOrderer = new RelationshipChainOrderer( relationshipStore );
     }
 
     @Override
@@ -279,6 +281,11 @@ public class TransactionRecordState implements RecordState
         relationshipDeleter.relDelete( relId, recordChangeSet, locks );
     }
 
+    public void nodeOrderRelationshipChains( long nodeId )
+    {
+        relationshipChainOrderer.orderRelationshipChains( nodeId, recordChangeSet, locks );
+    }
+
     @SafeVarargs
     private final void addFiltered( Collection<StorageCommand> target, Mode mode,
                                     Command[]... commands )
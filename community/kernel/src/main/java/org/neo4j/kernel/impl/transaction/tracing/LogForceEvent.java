@@ -32,6 +32,16 @@ public interface LogForceEvent extends AutoCloseable
         public void close()
         {
         }
+
+        @Override
+        public void setBatchSize( int batchSize )
+        {
+        }
+
+        @Override
+        public void setGroupCommitWindow( long windowMicros )
+        {
+        }
     };
 
     /**
@@ -39,4 +49,14 @@ public interface LogForceEvent extends AutoCloseable
      */
     @Override
     void close();
+
+    /**
+     * Note the number of committing transactions, or check points, that are covered by this force.
+     */
+    void setBatchSize( int batchSize );
+
+    /**
+     * Note for how many microseconds this force was held back, to let more transactions join the batch.
+     */
+    void setGroupCommitWindow( long windowMicros );
 }
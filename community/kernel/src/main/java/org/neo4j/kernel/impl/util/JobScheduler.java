@@ -166,6 +166,11 @@ public interface JobScheduler extends Lifecycle
          * Storage maintenance.
          */
         public static Group storageMaintenance = new Group( "StorageMaintenance", POOLED );
+
+        /**
+         * Page cache profiling and warmup.
+         */
+        public static Group pageCacheWarmer = new Group( "PageCacheWarmer", POOLED );
     }
 
     interface JobHandle
@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.util.diffsets;
 import java.util.Collections;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
@@ -50,6 +51,11 @@ public class DiffSets<T> extends SuperDiffSets<T,PrimitiveLongIterator> implemen
         super( addedElements, removedElements );
     }
 
+    public DiffSets( Supplier<Set<T>> setFactory )
+    {
+        super( setFactory, null, null );
+    }
+
     @Override
     public PrimitiveLongIterator augment( final PrimitiveLongIterator source )
     {
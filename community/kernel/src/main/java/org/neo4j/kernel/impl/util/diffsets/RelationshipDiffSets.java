@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.util.diffsets;
 import java.util.Collections;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.helpers.collection.Iterables;
@@ -57,6 +58,12 @@ public class RelationshipDiffSets<T> extends SuperDiffSets<T,RelationshipIterato
         this.txStateRelationshipHome = txStateRelationshipHome;
     }
 
+    public RelationshipDiffSets( RelationshipVisitor.Home txStateRelationshipHome, Supplier<Set<T>> setFactory )
+    {
+        super( setFactory, null, null );
+        this.txStateRelationshipHome = txStateRelationshipHome;
+    }
+
     @Override
     public RelationshipIterator augment( final RelationshipIterator source )
     {
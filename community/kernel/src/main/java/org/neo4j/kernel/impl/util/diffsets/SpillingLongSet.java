@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.diffsets;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.collection.primitive.PrimitiveLongVisitor;
+import org.neo4j.graphdb.Resource;
+import org.neo4j.kernel.impl.util.VersionedHashMap;
+
+import static java.util.Collections.newSetFromMap;
+
+/**
+ * A set of entity ids that starts out on the heap, like any other set used by {@link DiffSets}, and moves its
+ * contents to an off-heap {@link PrimitiveLongSet} once it grows beyond a given number of ids. Large transactions
+ * tracking millions of created or deleted entities thereby keep them in memory the garbage collector never has to
+ * look at, instead of in millions of small on-heap objects.
+ *
+ * Iterators have the same semantics as those of {@link VersionedHashMap}, regardless of where the ids live: ids
+ * added after an iterator was created will not be returned by it, and ids removed while iterating will not be
+ * returned either. Iterating over off-heap ids takes a snapshot of the ids, as a primitive array, which is cheap
+ * for the garbage collector to deal with.
+ *
+ * Off-heap memory is only released by {@link #close()}, which must be called once the set is no longer in use.
+ */
+public class SpillingLongSet extends AbstractSet<Long> implements Resource
+{
+    private final int offHeapThreshold;
+    private Set<Long> heapIds = newSetFromMap( new VersionedHashMap<>() );
+    private PrimitiveLongSet offHeapIds;
+
+    /**
+     * @param offHeapThreshold number of ids this set can hold before moving them off heap.
+     */
+    public SpillingLongSet( int offHeapThreshold )
+    {
+        this.offHeapThreshold = offHeapThreshold;
+    }
+
+    /**
+     * @return whether or not the ids of this set have been moved off heap.
+     */
+    public boolean isOffHeap()
+    {
+        return offHeapIds != null;
+    }
+
+    @Override
+    public boolean add( Long id )
+    {
+        if ( offHeapIds != null )
+        {
+            return offHeapIds.add( id );
+        }
+        boolean added = heapIds.add( id );
+        if ( added && heapIds.size() > offHeapThreshold )
+        {
+            moveOffHeap();
+        }
+        return added;
+    }
+
+    @Override
+    public boolean remove( Object id )
+    {
+        if ( offHeapIds != null )
+        {
+            return id instanceof Long && offHeapIds.remove( (Long) id );
+        }
+        return heapIds.remove( id );
+    }
+
+    @Override
+    public boolean contains( Object id )
+    {
+        if ( offHeapIds != null )
+        {
+            return id instanceof Long && offHeapIds.contains( (Long) id );
+        }
+        return heapIds.contains( id );
+    }
+
+    @Override
+    public int size()
+    {
+        return offHeapIds != null ? offHeapIds.size() : heapIds.size();
+    }
+
+    @Override
+    public void clear()
+    {
+        if ( offHeapIds != null )
+        {
+            offHeapIds.clear();
+        }
+        else
+        {
+            heapIds.clear();
+        }
+    }
+
+    @Override
+    public Iterator<Long> iterator()
+    {
+        return offHeapIds != null ? new LiveIdIterator( snapshotOfOffHeapIds() ) : new LiveIdIterator( heapIds.iterator() );
+    }
+
+    @Override
+    public void close()
+    {
+        if ( offHeapIds != null )
+        {
+            offHeapIds.close();
+            offHeapIds = null;
+            heapIds = newSetFromMap( new VersionedHashMap<>() );
+        }
+    }
+
+    private void moveOffHeap()
+    {
+        PrimitiveLongSet ids = Primitive.offHeapLongSet( (int) Math.min( offHeapThreshold * 2L, 1 << 30 ) );
+        for ( Long id : heapIds )
+        {
+            ids.add( id );
+        }
+        offHeapIds = ids;
+        // Iterators created before this point keep iterating over the heap ids, so leave them be
+        heapIds = null;
+    }
+
+    private Iterator<Long> snapshotOfOffHeapIds()
+    {
+        long[] ids = new long[offHeapIds.size()];
+        offHeapIds.visitKeys( new SnapshotVisitor( ids ) );
+        return new Iterator<Long>()
+        {
+            private int cursor;
+
+            @Override
+            public boolean hasNext()
+            {
+                return cursor < ids.length;
+            }
+
+            @Override
+            public Long next()
+            {
+                if ( !hasNext() )
+                {
+                    throw new NoSuchElementException();
+                }
+                return ids[cursor++];
+            }
+        };
+    }
+
+    private static class SnapshotVisitor implements PrimitiveLongVisitor<RuntimeException>
+    {
+        private final long[] ids;
+        private int cursor;
+
+        SnapshotVisitor( long[] ids )
+        {
+            this.ids = ids;
+        }
+
+        @Override
+        public boolean visited( long id )
+        {
+            ids[cursor++] = id;
+            return false;
+        }
+    }
+
+    /**
+     * Iterates over ids as they were when the iterator was created, skipping those that have been removed since,
+     * also across the ids being moved off heap.
+     */
+    private class LiveIdIterator implements Iterator<Long>
+    {
+        private final Iterator<Long> ids;
+        private Long next;
+        private Long current;
+
+        LiveIdIterator( Iterator<Long> ids )
+        {
+            this.ids = ids;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while ( next == null && ids.hasNext() )
+            {
+                Long candidate = ids.next();
+                if ( contains( candidate ) )
+                {
+                    next = candidate;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Long next()
+        {
+            if ( !hasNext() )
+            {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            next = null;
+            return current;
+        }
+
+        @Override
+        public void remove()
+        {
+            if ( current == null )
+            {
+                throw new IllegalStateException();
+            }
+            SpillingLongSet.this.remove( current );
+            current = null;
+        }
+    }
+}
@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.helpers.collection.Iterators;
@@ -42,6 +43,7 @@ import static java.util.Collections.newSetFromMap;
 abstract class SuperDiffSets<T,LONGITERATOR extends PrimitiveLongIterator>
         implements SuperReadableDiffSets<T,LONGITERATOR>
 {
+    private final Supplier<Set<T>> setFactory;
     private Set<T> addedElements;
     private Set<T> removedElements;
     private Predicate<T> filter;
@@ -53,6 +55,15 @@ abstract class SuperDiffSets<T,LONGITERATOR extends PrimitiveLongIterator>
 
     public SuperDiffSets( Set<T> addedElements, Set<T> removedElements )
     {
+        this( SuperDiffSets::newSet, addedElements, removedElements );
+    }
+
+    /**
+     * @param setFactory creates the sets holding added and removed elements, when first needed.
+     */
+    public SuperDiffSets( Supplier<Set<T>> setFactory, Set<T> addedElements, Set<T> removedElements )
+    {
+        this.setFactory = setFactory;
         this.addedElements = addedElements;
         this.removedElements = removedElements;
     }
@@ -169,7 +180,7 @@ abstract class SuperDiffSets<T,LONGITERATOR extends PrimitiveLongIterator>
             {
                 return Collections.emptySet();
             }
-            addedElements = newSet();
+            addedElements = setFactory.get();
         }
         return addedElements;
     }
@@ -182,7 +193,7 @@ abstract class SuperDiffSets<T,LONGITERATOR extends PrimitiveLongIterator>
             {
                 return Collections.emptySet();
             }
-            removedElements = newSet();
+            removedElements = setFactory.get();
         }
         return removedElements;
     }
@@ -201,7 +212,7 @@ abstract class SuperDiffSets<T,LONGITERATOR extends PrimitiveLongIterator>
         return added( false ).size() - removed( false ).size();
     }
 
-    private Set<T> newSet()
+    private static <T> Set<T> newSet()
     {
         return newSetFromMap( new VersionedHashMap<>() );
     }
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.storageengine.api.schema;
+
+/**
+ * Which range seeks of an {@link IndexReader} return their results in ascending order of the indexed values.
+ * Nodes having equal values come in no particular order.
+ */
+public enum IndexOrder
+{
+    /**
+     * No range seek results are ordered.
+     */
+    NONE( false, false ),
+
+    /**
+     * Range seeks by number are ordered, range seeks by string are not.
+     */
+    NUMBERS( true, false ),
+
+    /**
+     * Range seeks by number, by string and by string prefix are all ordered.
+     */
+    NUMBERS_AND_STRINGS( true, true );
+
+    private final boolean numbers;
+    private final boolean strings;
+
+    IndexOrder( boolean numbers, boolean strings )
+    {
+        this.numbers = numbers;
+        this.strings = strings;
+    }
+
+    /**
+     * @return whether or not {@link IndexReader#rangeSeekByNumberInclusive(Number, Number)} returns nodes in
+     * value order.
+     */
+    public boolean ordersNumbers()
+    {
+        return numbers;
+    }
+
+    /**
+     * @return whether or not {@link IndexReader#rangeSeekByString(String, boolean, String, boolean)} and
+     * {@link IndexReader#rangeSeekByPrefix(String)} return nodes in value order.
+     */
+    public boolean ordersStrings()
+    {
+        return strings;
+    }
+}
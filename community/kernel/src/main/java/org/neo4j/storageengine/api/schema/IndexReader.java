@@ -99,6 +99,16 @@ public interface IndexReader extends Resource
 
     IndexSampler createSampler();
 
+    /**
+     * Range seeks of this reader may return nodes in any order, unless declared otherwise by this method.
+     *
+     * @return which range seeks of this reader return nodes in ascending order of their values.
+     */
+    default IndexOrder rangeSeekOrder()
+    {
+        return IndexOrder.NONE;
+    }
+
     IndexReader EMPTY = new IndexReader()
     {
         @Override
@@ -44,6 +44,8 @@ public interface TxStateVisitor extends AutoCloseable
 
     void visitDeletedRelationship( long id );
 
+    void visitOrderedRelationshipChains( long nodeId );
+
     void visitNodePropertyChanges( long id, Iterator<StorageProperty> added, Iterator<StorageProperty> changed,
                                    Iterator<Integer> removed ) throws ConstraintValidationKernelException;
 
@@ -106,6 +108,11 @@ public interface TxStateVisitor extends AutoCloseable
         {
         }
 
+        @Override
+        public void visitOrderedRelationshipChains( long nodeId )
+        {
+        }
+
         @Override
         public void visitNodePropertyChanges( long id, Iterator<StorageProperty> added,
                 Iterator<StorageProperty> changed, Iterator<Integer> removed )
@@ -233,6 +240,12 @@ public interface TxStateVisitor extends AutoCloseable
             actual.visitDeletedRelationship( id );
         }
 
+        @Override
+        public void visitOrderedRelationshipChains( long nodeId )
+        {
+            actual.visitOrderedRelationshipChains( nodeId );
+        }
+
         @Override
         public void visitNodePropertyChanges( long id, Iterator<StorageProperty> added,
                 Iterator<StorageProperty> changed, Iterator<Integer> removed )
@@ -38,7 +38,7 @@ public class NodeCountsStage extends Stage
             int highLabelId, CountsAccessor.Updater countsUpdater, StatsProvider... additionalStatsProviders )
     {
         super( "Node counts", config );
-        add( new ReadRecordsStep<>( control(), config, nodeStore, allIn( nodeStore ) ) );
+        add( new ReadRecordsStep<>( control(), config, nodeStore, allIn( nodeStore ), true ) );
         add( new RecordProcessorStep<>( control(), "COUNT", config, new NodeCountsProcessor(
                 nodeStore, cache, highLabelId, countsUpdater ), true, additionalStatsProviders ) );
     }
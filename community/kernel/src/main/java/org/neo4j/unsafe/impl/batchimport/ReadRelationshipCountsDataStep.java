@@ -39,7 +39,7 @@ public class ReadRelationshipCountsDataStep extends ReadRecordsStep<Relationship
 
     public ReadRelationshipCountsDataStep( StageControl control, Configuration config, RelationshipStore store )
     {
-        super( control, config, store, allIn( store ) );
+        super( control, config, store, allIn( store ), true );
         this.highestId = highId - 1;
     }
 
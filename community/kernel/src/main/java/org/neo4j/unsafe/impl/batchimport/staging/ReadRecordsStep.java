@@ -53,12 +53,22 @@ public class ReadRecordsStep<RECORD extends AbstractBaseRecord> extends IoProduc
     public ReadRecordsStep( StageControl control, Configuration config, RecordStore<RECORD> store,
             PrimitiveLongIterator ids )
     {
-        this( control, config, store, ids, all -> true );
+        this( control, config, store, ids, false );
+    }
+
+    /**
+     * @param sequential whether or not the given ids are in increasing order, such that the store can be read ahead
+     * of the records being read.
+     */
+    public ReadRecordsStep( StageControl control, Configuration config, RecordStore<RECORD> store,
+            PrimitiveLongIterator ids, boolean sequential )
+    {
+        this( control, config, store, ids, all -> true, sequential );
     }
 
     @SuppressWarnings( "unchecked" )
     public ReadRecordsStep( StageControl control, Configuration config, RecordStore<RECORD> store,
-            PrimitiveLongIterator ids, Predicate<RECORD> filter )
+            PrimitiveLongIterator ids, Predicate<RECORD> filter, boolean sequential )
     {
         super( control, config );
         this.store = store;
@@ -66,7 +76,9 @@ public class ReadRecordsStep<RECORD extends AbstractBaseRecord> extends IoProduc
         this.filter = filter;
         this.klass = (Class<RECORD>) store.newRecord().getClass();
         this.recordSize = store.getRecordSize();
-        this.cursor = store.newRecordCursor( record = store.newRecord() );
+        this.cursor = sequential
+                      ? store.newSequentialRecordCursor( record = store.newRecord() )
+                      : store.newRecordCursor( record = store.newRecord() );
         this.highId = store.getHighId();
     }
 
@@ -24,6 +24,9 @@ import org.junit.Test;
 
 import java.util.Set;
 
+import org.neo4j.graphdb.factory.GraphDatabaseBuilder;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings.LabelIndex;
 import org.neo4j.helpers.collection.Iterables;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.test.rule.DatabaseRule;
@@ -41,7 +44,20 @@ public class LabelScanStoreIT
 {
 
     @Rule
-    public final DatabaseRule dbRule = new EmbeddedDatabaseRule();
+    public final DatabaseRule dbRule = new EmbeddedDatabaseRule()
+    {
+        @Override
+        protected void configure( GraphDatabaseBuilder builder )
+        {
+            super.configure( builder );
+            builder.setConfig( GraphDatabaseSettings.label_index, labelIndex().name() );
+        }
+    };
+
+    protected LabelIndex labelIndex()
+    {
+        return LabelIndex.NATIVE;
+    }
 
     @Test
     public void shouldGetNodesWithCreatedLabel() throws Exception
@@ -0,0 +1,515 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.graphdb.Resource;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.TargetDirectory;
+import org.neo4j.test.rule.concurrent.OtherThreadRule;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+public class GBPTreeTest
+{
+    private static final int PAGE_SIZE = 256;
+
+    @Rule
+    public final DefaultFileSystemRule fs = new DefaultFileSystemRule();
+    @Rule
+    public final TargetDirectory.TestDirectory directory = TargetDirectory.testDirForTest( getClass(), fs.get() );
+    @Rule
+    public final PageCacheRule pageCacheRule = new PageCacheRule();
+    @Rule
+    public final OtherThreadRule<Void> t2 = new OtherThreadRule<>();
+
+    private final Layout<MutableLong,MutableLong> layout = new SimpleLongLayout();
+    private final Random random = new Random();
+    private PageCache pageCache;
+    private GBPTree<MutableLong,MutableLong> index;
+
+    @After
+    public void closeIndex() throws IOException
+    {
+        if ( index != null )
+        {
+            index.close();
+        }
+    }
+
+    private GBPTree<MutableLong,MutableLong> createIndex() throws IOException
+    {
+        if ( pageCache == null )
+        {
+            Map<String,String> config = new HashMap<>();
+            config.put( GraphDatabaseSettings.pagecache_memory.name(), "8M" );
+            config.put( GraphDatabaseSettings.mapped_memory_page_size.name(), String.valueOf( PAGE_SIZE ) );
+            pageCache = pageCacheRule.getPageCache( fs.get(), new Config( config ) );
+        }
+        return index = new GBPTree<>( pageCache, directory.file( "index" ), layout );
+    }
+
+    @Test
+    public void shouldSeeInsertedEntriesInOrder() throws Exception
+    {
+        // GIVEN
+        createIndex();
+        TreeMap<Long,Long> expected = new TreeMap<>();
+
+        // WHEN
+        try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+        {
+            for ( int i = 0; i < 1_000; i++ )
+            {
+                long key = random.nextInt( 10_000 );
+                writer.put( new MutableLong( key ), new MutableLong( key * 10 ) );
+                expected.put( key, key * 10 );
+            }
+        }
+
+        // THEN
+        assertSeek( expected, Long.MIN_VALUE, Long.MAX_VALUE );
+        assertSeek( expected, 2_000, 7_000 );
+        assertSeek( expected, Long.MAX_VALUE, Long.MIN_VALUE );
+        assertSeek( expected, 7_000, 2_000 );
+    }
+
+    @Test
+    public void shouldMatchTreeMapUnderRandomPutsAndRemoves() throws Exception
+    {
+        // GIVEN
+        createIndex();
+        TreeMap<Long,Long> expected = new TreeMap<>();
+
+        // WHEN
+        for ( int round = 0; round < 20; round++ )
+        {
+            try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+            {
+                for ( int i = 0; i < 500; i++ )
+                {
+                    long key = random.nextInt( 2_000 );
+                    if ( random.nextInt( 3 ) == 0 )
+                    {
+                        MutableLong removed = writer.remove( new MutableLong( key ) );
+                        Long expectedRemoved = expected.remove( key );
+                        assertEquals( expectedRemoved, removed == null ? null : removed.getValue() );
+                    }
+                    else
+                    {
+                        long value = random.nextLong();
+                        writer.put( new MutableLong( key ), new MutableLong( value ) );
+                        expected.put( key, value );
+                    }
+                }
+            }
+
+            // THEN
+            assertSeek( expected, Long.MIN_VALUE, Long.MAX_VALUE );
+            long from = random.nextInt( 2_000 );
+            long to = random.nextInt( 2_000 );
+            assertSeek( expected, from, to );
+        }
+    }
+
+    @Test
+    public void shouldRemoveEverything() throws Exception
+    {
+        // GIVEN
+        createIndex();
+        try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+        {
+            for ( long i = 0; i < 1_000; i++ )
+            {
+                writer.put( new MutableLong( i ), new MutableLong( i ) );
+            }
+        }
+
+        // WHEN
+        try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+        {
+            for ( long i = 0; i < 1_000; i++ )
+            {
+                assertEquals( i, writer.remove( new MutableLong( i ) ).longValue() );
+            }
+        }
+
+        // THEN
+        assertSeek( new TreeMap<>(), Long.MIN_VALUE, Long.MAX_VALUE );
+        try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+        {
+            writer.put( new MutableLong( 5 ), new MutableLong( 50 ) );
+        }
+        TreeMap<Long,Long> expected = new TreeMap<>();
+        expected.put( 5L, 50L );
+        assertSeek( expected, Long.MIN_VALUE, Long.MAX_VALUE );
+    }
+
+    @Test
+    public void shouldMergeValues() throws Exception
+    {
+        // GIVEN
+        createIndex();
+        ValueMerger<MutableLong> adder = ( existing, value ) ->
+        {
+            long sum = (existing == null ? 0 : existing.longValue()) + value.longValue();
+            return sum == 0 ? null : new MutableLong( sum );
+        };
+
+        // WHEN
+        try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+        {
+            writer.merge( new MutableLong( 1 ), new MutableLong( 5 ), adder );
+            writer.merge( new MutableLong( 1 ), new MutableLong( 3 ), adder );
+            writer.merge( new MutableLong( 2 ), new MutableLong( 4 ), adder );
+            writer.merge( new MutableLong( 2 ), new MutableLong( -4 ), adder );
+        }
+
+        // THEN
+        TreeMap<Long,Long> expected = new TreeMap<>();
+        expected.put( 1L, 8L );
+        assertSeek( expected, Long.MIN_VALUE, Long.MAX_VALUE );
+    }
+
+    @Test
+    public void shouldKeepSeeingTheTreeAsOfWhenSeekStarted() throws Exception
+    {
+        // GIVEN
+        createIndex();
+        TreeMap<Long,Long> expected = new TreeMap<>();
+        try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+        {
+            for ( long i = 0; i < 500; i++ )
+            {
+                writer.put( new MutableLong( i ), new MutableLong( i ) );
+                expected.put( i, i );
+            }
+        }
+
+        // WHEN
+        try ( RawCursor<Hit<MutableLong,MutableLong>,IOException> cursor =
+                index.seek( new MutableLong( Long.MIN_VALUE ), new MutableLong( Long.MAX_VALUE ) ) )
+        {
+            try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+            {
+                for ( long i = 0; i < 500; i += 2 )
+                {
+                    writer.remove( new MutableLong( i ) );
+                }
+                for ( long i = 500; i < 1_000; i++ )
+                {
+                    writer.put( new MutableLong( i ), new MutableLong( i ) );
+                }
+            }
+
+            // THEN
+            assertHits( expected, cursor );
+        }
+    }
+
+    @Test
+    public void shouldOpenWithContentsAsOfLastCheckpoint() throws Exception
+    {
+        // GIVEN
+        createIndex();
+        TreeMap<Long,Long> expected = new TreeMap<>();
+        try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+        {
+            for ( long i = 0; i < 1_000; i++ )
+            {
+                writer.put( new MutableLong( i ), new MutableLong( i ) );
+                expected.put( i, i );
+            }
+        }
+        index.checkpoint();
+        try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+        {
+            for ( long i = 0; i < 1_000; i += 3 )
+            {
+                writer.remove( new MutableLong( i ) );
+            }
+            writer.put( new MutableLong( 5_000 ), new MutableLong( 1 ) );
+        }
+
+        // WHEN
+        index.close();
+        createIndex();
+
+        // THEN
+        assertSeek( expected, Long.MIN_VALUE, Long.MAX_VALUE );
+
+        // and WHEN writing more, reusing pages written after the checkpoint
+        try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+        {
+            for ( long i = 1_000; i < 2_000; i++ )
+            {
+                writer.put( new MutableLong( i ), new MutableLong( i ) );
+                expected.put( i, i );
+            }
+        }
+        index.checkpoint();
+        index.close();
+        createIndex();
+        assertSeek( expected, Long.MIN_VALUE, Long.MAX_VALUE );
+    }
+
+    @Test
+    public void shouldNotGrowWhenRewritingSameEntries() throws Exception
+    {
+        // GIVEN
+        createIndex();
+        File file = directory.file( "index" );
+        for ( int round = 0; round < 100; round++ )
+        {
+            // WHEN
+            try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+            {
+                for ( long i = 0; i < 200; i++ )
+                {
+                    writer.put( new MutableLong( i ), new MutableLong( round ) );
+                }
+            }
+            index.checkpoint();
+        }
+
+        // THEN
+        long pagesForEntries = 200 / ((PAGE_SIZE - TreeNode.HEADER_LENGTH) / 16) + 1;
+        assertTrue( fs.get().getFileSize( file ) / PAGE_SIZE < pagesForEntries * 5 );
+    }
+
+    @Test
+    public void shouldAllowOnlyOneWriterAtATime() throws Exception
+    {
+        // GIVEN
+        createIndex();
+
+        // WHEN
+        try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+        {
+            index.writer();
+            fail( "Should have failed" );
+        }
+        catch ( IllegalStateException e )
+        {
+            // THEN good
+        }
+        index.writer().close();
+    }
+
+    @Test
+    public void shouldFailOpeningWithDifferentLayout() throws Exception
+    {
+        // GIVEN
+        createIndex().checkpoint();
+        index.close();
+        index = null;
+
+        // WHEN
+        try
+        {
+            new GBPTree<>( pageCache, directory.file( "index" ), new SimpleLongLayout()
+            {
+                @Override
+                public int majorVersion()
+                {
+                    return super.majorVersion() + 1;
+                }
+            } );
+            fail( "Should have failed" );
+        }
+        catch ( MetadataMismatchException e )
+        {
+            // THEN good
+        }
+    }
+
+    @Test
+    public void shouldFailOpeningTreeThatWasNeverCheckpointed() throws Exception
+    {
+        // GIVEN
+        try ( Writer<MutableLong,MutableLong> writer = createIndex().writer() )
+        {
+            writer.put( new MutableLong( 1 ), new MutableLong( 1 ) );
+        }
+        index.close();
+        index = null;
+
+        // WHEN
+        try
+        {
+            createIndex();
+            fail( "Should have failed" );
+        }
+        catch ( MetadataMismatchException e )
+        {
+            // THEN good
+        }
+    }
+
+    @Test
+    public void shouldFailOpeningTreeReachingPageMoreThanOnce() throws Exception
+    {
+        // GIVEN a checkpointed tree of more than one leaf
+        try ( Writer<MutableLong,MutableLong> writer = createIndex().writer() )
+        {
+            for ( long i = 0; i < 1_000; i++ )
+            {
+                writer.put( new MutableLong( i ), new MutableLong( i ) );
+            }
+        }
+        index.checkpoint();
+        index.close();
+        index = null;
+
+        // whose root points to its first child twice
+        TreeNode<MutableLong,MutableLong> treeNode = new TreeNode<>( PAGE_SIZE, layout );
+        try ( PagedFile pagedFile = pageCache.map( directory.file( "index" ), PAGE_SIZE ) )
+        {
+            TreeState state = TreeState.selectNewest( TreeState.read( pagedFile, TreeState.STATE_PAGE_A ),
+                    TreeState.read( pagedFile, TreeState.STATE_PAGE_B ) );
+            try ( PageCursor cursor = pagedFile.io( state.rootId(), PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                assertTrue( treeNode.isInternal( cursor ) );
+                treeNode.setChildAt( cursor, treeNode.childAt( cursor, 0 ), 1 );
+            }
+        }
+
+        // WHEN
+        try
+        {
+            createIndex();
+            fail( "Should have failed" );
+        }
+        catch ( MetadataMismatchException e )
+        {
+            // THEN good
+        }
+    }
+
+    @Test
+    public void shouldOpenCopyTakenWhileCheckpointsArePausedWithContentsAsOfLastCheckpoint() throws Exception
+    {
+        // GIVEN
+        createIndex();
+        TreeMap<Long,Long> expected = new TreeMap<>();
+        try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+        {
+            for ( long i = 0; i < 1_000; i++ )
+            {
+                writer.put( new MutableLong( i ), new MutableLong( i ) );
+                expected.put( i, i );
+            }
+        }
+        index.checkpoint();
+
+        // WHEN copying the file while the tree keeps changing
+        File copy = directory.file( "copy" );
+        Future<Void> checkpoint;
+        try ( Resource paused = index.pauseCheckpoints() )
+        {
+            try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+            {
+                for ( long i = 0; i < 2_000; i += 3 )
+                {
+                    writer.remove( new MutableLong( i ) );
+                    writer.put( new MutableLong( i + 1 ), new MutableLong( -1 ) );
+                }
+            }
+            checkpoint = t2.execute( state ->
+            {
+                index.checkpoint();
+                return null;
+            } );
+            try
+            {
+                checkpoint.get( 100, MILLISECONDS );
+                fail( "Checkpoint should wait while checkpoints are paused" );
+            }
+            catch ( TimeoutException e )
+            {
+                // good
+            }
+            // Pages written since the last checkpoint may reach the file at any time
+            pageCache.flushAndForce();
+            fs.get().copyFile( directory.file( "index" ), copy );
+        }
+        checkpoint.get();
+
+        // THEN
+        index.close();
+        index = new GBPTree<>( pageCache, copy, layout );
+        assertSeek( expected, Long.MIN_VALUE, Long.MAX_VALUE );
+    }
+
+    private void assertSeek( TreeMap<Long,Long> expected, long from, long to ) throws IOException
+    {
+        Map<Long,Long> range = from <= to
+                ? expected.subMap( from, true, to, false )
+                : expected.descendingMap().subMap( from, true, to, false );
+        try ( RawCursor<Hit<MutableLong,MutableLong>,IOException> cursor =
+                index.seek( new MutableLong( from ), new MutableLong( to ) ) )
+        {
+            assertHits( range, cursor );
+        }
+    }
+
+    private void assertHits( Map<Long,Long> expected, RawCursor<Hit<MutableLong,MutableLong>,IOException> cursor )
+            throws IOException
+    {
+        List<Long> keys = new ArrayList<>();
+        List<Long> values = new ArrayList<>();
+        while ( cursor.next() )
+        {
+            keys.add( cursor.get().key().longValue() );
+            values.add( cursor.get().value().longValue() );
+        }
+        assertEquals( new ArrayList<>( expected.keySet() ), keys );
+        assertEquals( new ArrayList<>( expected.values() ), values );
+        assertFalse( cursor.next() );
+    }
+}
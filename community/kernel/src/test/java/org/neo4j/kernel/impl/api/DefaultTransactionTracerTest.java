@@ -28,6 +28,7 @@ import org.neo4j.helpers.FakeClock;
 import org.neo4j.kernel.impl.api.DefaultTransactionTracer.Monitor;
 import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LogForceEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogRotateEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionEvent;
 import org.neo4j.test.OnDemandJobScheduler;
@@ -75,6 +76,31 @@ public class DefaultTransactionTracerTest
         verifyZeroInteractions( monitor );
     }
 
+    @Test
+    public void shouldCountLogForcesAndTheirBatchSizes() throws Throwable
+    {
+        DefaultTransactionTracer tracer = new DefaultTransactionTracer( clock, monitor, jobScheduler );
+
+        triggerLogForce( tracer, 3, 0 );
+        triggerLogForce( tracer, 5, 250 );
+
+        assertEquals( 2, tracer.numberOfLogForceEvents() );
+        assertEquals( 8, tracer.logForceAccumulatedBatchSize() );
+        assertEquals( 250, tracer.lastGroupCommitWindowMicros() );
+    }
+
+    private void triggerLogForce( DefaultTransactionTracer tracer, int batchSize, long windowMicros )
+    {
+        try ( TransactionEvent txEvent = tracer.beginTransaction();
+              CommitEvent commitEvent = txEvent.beginCommitEvent();
+              LogAppendEvent logAppendEvent = commitEvent.beginLogAppend();
+              LogForceEvent logForceEvent = logAppendEvent.beginLogForce() )
+        {
+            logForceEvent.setGroupCommitWindow( windowMicros );
+            logForceEvent.setBatchSize( batchSize );
+        }
+    }
+
     private void triggerEvent( DefaultTransactionTracer tracer, int eventDuration )
     {
         try ( TransactionEvent txEvent = tracer.beginTransaction() )
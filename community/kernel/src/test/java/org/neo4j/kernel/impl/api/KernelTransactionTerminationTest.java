@@ -351,7 +351,7 @@ public class KernelTransactionTerminationTest
                     mock( ConstraintIndexCreator.class ), new Procedures(), TransactionHeaderInformationFactory.DEFAULT,
                     mock( TransactionCommitProcess.class ), monitor, () -> mock( LegacyIndexTransactionState.class ),
                     mock( Pool.class ), new FakeClock(), TransactionTracer.NULL,
-                    mock( StorageEngine.class, RETURNS_MOCKS ), true );
+                    mock( StorageEngine.class, RETURNS_MOCKS ), true, 0 );
 
             this.monitor = monitor;
         }
@@ -426,6 +426,11 @@ public class KernelTransactionTerminationTest
         {
         }
 
+        @Override
+        public void transactionStateReleased( long changedEntities, boolean offHeap )
+        {
+        }
+
         void reset()
         {
             committed = false;
@@ -53,6 +53,8 @@ import static org.mockito.Mockito.when;
 import static org.neo4j.kernel.impl.api.index.BatchingMultipleIndexPopulator.AWAIT_TIMEOUT_MINUTES_NAME;
 import static org.neo4j.kernel.impl.api.index.BatchingMultipleIndexPopulator.BATCH_SIZE_NAME;
 import static org.neo4j.kernel.impl.api.index.BatchingMultipleIndexPopulator.QUEUE_THRESHOLD_NAME;
+import static org.neo4j.kernel.impl.api.index.BatchingMultipleIndexPopulator.SCAN_PARTITIONS_NAME;
+import static org.neo4j.kernel.impl.api.index.BatchingMultipleIndexPopulator.SCAN_PARTITION_SIZE_NAME;
 import static org.neo4j.kernel.impl.api.index.BatchingMultipleIndexPopulator.TASK_QUEUE_SIZE_NAME;
 import static org.neo4j.kernel.impl.api.index.IndexPopulationFailure.failure;
 
@@ -65,6 +67,8 @@ public class BatchingMultipleIndexPopulatorTest
         clearProperty( TASK_QUEUE_SIZE_NAME );
         clearProperty( AWAIT_TIMEOUT_MINUTES_NAME );
         clearProperty( BATCH_SIZE_NAME );
+        clearProperty( SCAN_PARTITIONS_NAME );
+        clearProperty( SCAN_PARTITION_SIZE_NAME );
     }
 
     @Test
@@ -275,6 +279,63 @@ public class BatchingMultipleIndexPopulatorTest
         verify( populator, never() ).add( singletonList( update5 ) );
     }
 
+    @Test
+    public void partitionedScanBatchesEachPartitionSeparately() throws Exception
+    {
+        setProperty( SCAN_PARTITIONS_NAME, 2 );
+        setProperty( SCAN_PARTITION_SIZE_NAME, 2 );
+
+        NodePropertyUpdate update0 = NodePropertyUpdate.add( 0, 1, "foo", new long[]{1} );
+        NodePropertyUpdate update1 = NodePropertyUpdate.add( 1, 1, "bar", new long[]{1} );
+        NodePropertyUpdate update2 = NodePropertyUpdate.add( 2, 1, "baz", new long[]{1} );
+        NodePropertyUpdate update3 = NodePropertyUpdate.add( 3, 1, "qux", new long[]{1} );
+        IndexStoreView storeView = newPartitionedStoreView( 4, update0, update1, update2, update3 );
+
+        BatchingMultipleIndexPopulator batchingPopulator = new BatchingMultipleIndexPopulator( storeView,
+                sameThreadExecutor(), NullLogProvider.getInstance() );
+
+        IndexPopulator populator = addPopulator( batchingPopulator, 1 );
+
+        batchingPopulator.indexAllNodes().run();
+
+        verify( populator ).add( Arrays.asList( update0, update1 ) );
+        verify( populator ).add( Arrays.asList( update2, update3 ) );
+        verify( populator ).includeSample( update0 );
+        verify( populator ).includeSample( update3 );
+        verify( storeView, never() ).visitNodes( any(), any(), any(), any() );
+    }
+
+    @Test
+    public void updatesQueuedDuringPartitionedScanAppliedByPartition() throws Exception
+    {
+        setProperty( SCAN_PARTITIONS_NAME, 2 );
+        setProperty( SCAN_PARTITION_SIZE_NAME, 2 );
+
+        NodePropertyUpdate update0 = NodePropertyUpdate.add( 0, 1, "foo", new long[]{1} );
+        NodePropertyUpdate update2 = NodePropertyUpdate.add( 2, 1, "bar", new long[]{1} );
+        NodePropertyUpdate queuedUpdate = NodePropertyUpdate.change( 0, 1, "foo", new long[]{1}, "baz",
+                new long[]{1} );
+        IndexStoreView storeView = newPartitionedStoreView( 4, update0, update2 );
+
+        BatchingMultipleIndexPopulator batchingPopulator = new BatchingMultipleIndexPopulator( storeView,
+                sameThreadExecutor(), NullLogProvider.getInstance() );
+
+        IndexPopulator populator = addPopulator( batchingPopulator, 1 );
+        IndexUpdater updater = mock( IndexUpdater.class );
+        when( populator.newPopulatingUpdater( any() ) ).thenReturn( updater );
+
+        // queued before the scan started, so the scan sees its effects in the store
+        batchingPopulator.queue( NodePropertyUpdate.add( 2, 1, "stale", new long[]{1} ) );
+        storeViewQueuesBeforeScan( storeView, batchingPopulator, queuedUpdate, update0, update2 );
+
+        batchingPopulator.indexAllNodes().run();
+
+        verify( populator ).add( singletonList( update0 ) );
+        verify( populator ).add( singletonList( update2 ) );
+        verify( updater ).process( queuedUpdate );
+        verify( updater, never() ).process( NodePropertyUpdate.add( 2, 1, "stale", new long[]{1} ) );
+    }
+
     private static IndexPopulator addPopulator( BatchingMultipleIndexPopulator batchingPopulator, int id )
     {
         IndexPopulator populator = mock( IndexPopulator.class );
@@ -304,6 +365,43 @@ public class BatchingMultipleIndexPopulatorTest
         return storeView;
     }
 
+    private static IndexStoreView newPartitionedStoreView( long highId, NodePropertyUpdate... updates )
+    {
+        IndexStoreView storeView = mock( IndexStoreView.class );
+        when( storeView.nodeHighId() ).thenReturn( highId );
+        storeViewQueuesBeforeScan( storeView, null, null, updates );
+        return storeView;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static void storeViewQueuesBeforeScan( IndexStoreView storeView,
+            BatchingMultipleIndexPopulator batchingPopulator, NodePropertyUpdate queuedUpdate,
+            NodePropertyUpdate... updates )
+    {
+        when( storeView.visitNodes( any(), any(), any(), anyLong(), anyLong() ) ).thenAnswer( invocation -> {
+            Visitor<NodePropertyUpdates,IndexPopulationFailedKernelException> visitor =
+                    (Visitor<NodePropertyUpdates,IndexPopulationFailedKernelException>) invocation.getArguments()[2];
+            long fromNodeId = (Long) invocation.getArguments()[3];
+            long toNodeId = (Long) invocation.getArguments()[4];
+            NodePropertyUpdate[] range = Arrays.stream( updates )
+                    .filter( update -> update.getNodeId() >= fromNodeId && update.getNodeId() < toNodeId )
+                    .toArray( NodePropertyUpdate[]::new );
+            return new NodePropertyUpdatesScan( range, visitor )
+            {
+                @Override
+                public void run() throws IndexPopulationFailedKernelException
+                {
+                    if ( queuedUpdate != null && queuedUpdate.getNodeId() >= fromNodeId &&
+                         queuedUpdate.getNodeId() < toNodeId )
+                    {
+                        batchingPopulator.queue( queuedUpdate );
+                    }
+                    super.run();
+                }
+            };
+        } );
+    }
+
     private static ExecutorService sameThreadExecutor() throws InterruptedException
     {
         ExecutorService executor = mock( ExecutorService.class );
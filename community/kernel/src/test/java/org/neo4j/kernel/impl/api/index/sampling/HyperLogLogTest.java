@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index.sampling;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HyperLogLogTest
+{
+    @Test
+    public void shouldEstimateNothingWhenEmpty()
+    {
+        // given
+        HyperLogLog hyperLogLog = new HyperLogLog( 14 );
+
+        // then
+        assertEquals( 0, hyperLogLog.estimate() );
+    }
+
+    @Test
+    public void shouldCountDuplicatesOnce()
+    {
+        // given
+        HyperLogLog hyperLogLog = new HyperLogLog( 14 );
+
+        // when
+        for ( int i = 0; i < 1_000; i++ )
+        {
+            hyperLogLog.add( IndexUpdateSketch.hash( "value" + (i % 10) ) );
+        }
+
+        // then
+        assertEquals( 10, hyperLogLog.estimate() );
+    }
+
+    @Test
+    public void shouldEstimateLargeCardinalitiesWithinFewPercent()
+    {
+        // given
+        HyperLogLog hyperLogLog = new HyperLogLog( 14 );
+        int distinct = 1_000_000;
+
+        // when
+        for ( int i = 0; i < distinct; i++ )
+        {
+            hyperLogLog.add( IndexUpdateSketch.hash( (long) i ) );
+        }
+
+        // then
+        long estimate = hyperLogLog.estimate();
+        assertTrue( "Estimate " + estimate + " too far off " + distinct, Math.abs( estimate - distinct ) < distinct / 25 );
+    }
+
+    @Test
+    public void shouldEstimateNothingAfterClear()
+    {
+        // given
+        HyperLogLog hyperLogLog = new HyperLogLog( 14 );
+        hyperLogLog.add( IndexUpdateSketch.hash( 42 ) );
+
+        // when
+        hyperLogLog.clear();
+
+        // then
+        assertEquals( 0, hyperLogLog.estimate() );
+    }
+}
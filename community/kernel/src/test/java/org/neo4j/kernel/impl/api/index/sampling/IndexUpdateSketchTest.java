@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index.sampling;
+
+import org.junit.Test;
+
+import org.neo4j.storageengine.api.schema.IndexSample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+public class IndexUpdateSketchTest
+{
+    private final IndexUpdateSketch sketch = new IndexUpdateSketch();
+
+    @Test
+    public void shouldNotEstimateWithoutSeed()
+    {
+        // given
+        IndexSample stored = new IndexSample( 100, 10, 100 );
+
+        // when
+        sketch.include( new long[0], 0, 0, 1 );
+
+        // then
+        assertNull( sketch.estimate( stored, false ) );
+    }
+
+    @Test
+    public void shouldNotEstimateOnTopOfAnotherStoredSample()
+    {
+        // given
+        sketch.seed( new IndexSample( 100, 10, 100 ) );
+
+        // then
+        assertNull( sketch.estimate( new IndexSample( 200, 10, 100 ), false ) );
+    }
+
+    @Test
+    public void shouldNotEstimateWhenMoreEntriesUpdatedThanIndexed()
+    {
+        // given
+        IndexSample stored = new IndexSample( 10, 5, 10 );
+        sketch.seed( stored );
+
+        // when
+        sketch.include( hashes( 1, 2, 3, 4, 5, 6 ), 6, 6, 5 );
+
+        // then
+        assertNull( sketch.estimate( stored, false ) );
+    }
+
+    @Test
+    public void shouldEstimateFromStoredSampleAndUpdates()
+    {
+        // given
+        IndexSample stored = new IndexSample( 100, 10, 50 );
+        sketch.seed( stored );
+
+        // when
+        sketch.include( hashes( 1, 2, 2, 3 ), 4, 4, 0 );
+        sketch.include( new long[0], 0, 0, 20 );
+
+        // then 80 retained entries at a selectivity of 0.2 plus 3 new distinct values
+        assertEquals( new IndexSample( 84, 19, 84 ), sketch.estimate( stored, false ) );
+    }
+
+    @Test
+    public void shouldEstimateAllValuesDistinctInUniqueIndexes()
+    {
+        // given
+        IndexSample stored = new IndexSample( 100, 100, 100 );
+        sketch.seed( stored );
+
+        // when
+        sketch.include( hashes( 1, 2 ), 2, 2, 1 );
+
+        // then
+        assertEquals( new IndexSample( 101, 101, 101 ), sketch.estimate( stored, true ) );
+    }
+
+    @Test
+    public void shouldContinueOnTopOfEstimate()
+    {
+        // given
+        IndexSample stored = new IndexSample( 100, 10, 100 );
+        sketch.seed( stored );
+        sketch.include( hashes( 1 ), 1, 1, 0 );
+        IndexSample estimate = sketch.estimate( stored, false );
+
+        // when
+        sketch.include( hashes( 2 ), 1, 1, 0 );
+
+        // then
+        assertNull( sketch.estimate( stored, false ) );
+        assertEquals( new IndexSample( 102, 12, 102 ), sketch.estimate( estimate, false ) );
+    }
+
+    @Test
+    public void shouldKeepUpdatesIncludedWhileSeeding()
+    {
+        // given
+        sketch.beginSeeding();
+        sketch.include( hashes( 1, 2 ), 2, 2, 1 );
+
+        // when
+        IndexSample stored = new IndexSample( 100, 10, 100 );
+        sketch.seed( stored );
+
+        // then 99 retained entries at a selectivity of 0.1 plus 2 new distinct values
+        assertEquals( new IndexSample( 101, 12, 101 ), sketch.estimate( stored, false ) );
+    }
+
+    @Test
+    public void shouldKeepUpdatesIncludedWhileSeedingWhenNoSampleIsSeeded()
+    {
+        // given
+        IndexSample stored = new IndexSample( 100, 10, 100 );
+        sketch.seed( stored );
+        sketch.include( hashes( 1 ), 1, 1, 0 );
+        sketch.beginSeeding();
+        sketch.include( hashes( 2 ), 1, 1, 0 );
+
+        // when
+        sketch.endSeeding();
+
+        // then
+        assertEquals( new IndexSample( 102, 12, 102 ), sketch.estimate( stored, false ) );
+    }
+
+    @Test
+    public void shouldNotEstimateAfterDiscard()
+    {
+        // given
+        IndexSample stored = new IndexSample( 100, 10, 100 );
+        sketch.seed( stored );
+
+        // when
+        sketch.discard();
+
+        // then
+        assertNull( sketch.estimate( stored, false ) );
+    }
+
+    @Test
+    public void shouldHashEqualNumbersOfDifferentTypesEqually()
+    {
+        assertEquals( IndexUpdateSketch.hash( 42 ), IndexUpdateSketch.hash( 42L ) );
+        assertEquals( IndexUpdateSketch.hash( 42 ), IndexUpdateSketch.hash( 42.0d ) );
+        assertEquals( IndexUpdateSketch.hash( 0.0d ), IndexUpdateSketch.hash( -0.0d ) );
+        assertEquals( IndexUpdateSketch.hash( 'a' ), IndexUpdateSketch.hash( "a" ) );
+        assertEquals( IndexUpdateSketch.hash( new int[]{1, 2} ), IndexUpdateSketch.hash( new long[]{1, 2} ) );
+        assertNotEquals( IndexUpdateSketch.hash( "42" ), IndexUpdateSketch.hash( 42 ) );
+    }
+
+    private static long[] hashes( Object... values )
+    {
+        long[] hashes = new long[values.length];
+        for ( int i = 0; i < values.length; i++ )
+        {
+            hashes[i] = IndexUpdateSketch.hash( values[i] );
+        }
+        return hashes;
+    }
+}
@@ -24,6 +24,8 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 import org.neo4j.collection.primitive.PrimitiveLongCollections;
@@ -50,9 +52,11 @@ import org.neo4j.storageengine.api.LabelItem;
 import org.neo4j.storageengine.api.NodeItem;
 import org.neo4j.storageengine.api.StorageStatement;
 import org.neo4j.storageengine.api.StoreReadLayer;
+import org.neo4j.storageengine.api.schema.IndexOrder;
 import org.neo4j.storageengine.api.schema.IndexReader;
 import org.neo4j.storageengine.api.schema.LabelScanReader;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
@@ -66,6 +70,7 @@ import static org.mockito.Mockito.when;
 import static org.neo4j.helpers.collection.Iterators.asIterable;
 import static org.neo4j.helpers.collection.Iterators.asSet;
 import static org.neo4j.kernel.api.properties.Property.intProperty;
+import static org.neo4j.kernel.api.properties.Property.longProperty;
 import static org.neo4j.kernel.impl.api.StatementOperationsTestHelper.mockedState;
 import static org.neo4j.kernel.impl.api.state.StubCursors.asNodeCursor;
 import static org.neo4j.kernel.impl.api.state.StubCursors.asPropertyCursor;
@@ -350,6 +355,44 @@ public class StateHandlingStatementOperationsTest
         assertEquals( asSet( 42L, 43L ), PrimitiveLongCollections.toSet( results ) );
     }
 
+    @Test
+    public void shouldOrderNumbersWithSameDoubleValueByExactValueForOrderedRangeSeekByNumber() throws Exception
+    {
+        // Given an ordered index, in which numbers too large to be told apart as doubles come in node id order
+        final int propertyKey = 2;
+        long large = 1L << 53;
+        Map<Long,Long> values = new HashMap<>();
+        values.put( 3L, 5L );
+        values.put( 1L, large + 1 );
+        values.put( 2L, large );
+        values.put( 4L, large + 4 );
+
+        KernelStatement statement = mock( KernelStatement.class );
+        StorageStatement storageStatement = mock( StorageStatement.class );
+        when( statement.getStoreStatement() ).thenReturn( storageStatement );
+        IndexDescriptor index = new IndexDescriptor( 1, propertyKey );
+        IndexReader indexReader = addMockedIndexReader( storageStatement );
+        when( indexReader.rangeSeekOrder() ).thenReturn( IndexOrder.NUMBERS );
+        when( indexReader.rangeSeekByNumberInclusive( 0, null ) ).thenReturn(
+                PrimitiveLongCollections.resourceIterator( PrimitiveLongCollections.iterator( 3L, 1L, 2L, 4L ), null )
+        );
+        when( storageStatement.acquireSingleNodeCursor( anyLong() ) ).thenAnswer( invocation ->
+        {
+            long nodeId = (long) invocation.getArguments()[0];
+            return asNodeCursor( nodeId, asPropertyCursor( longProperty( propertyKey, values.get( nodeId ) ) ),
+                    Cursors.<LabelItem>empty() );
+        } );
+
+        StateHandlingStatementOperations context = newTxStateOps( mock( StoreReadLayer.class ) );
+
+        // When
+        PrimitiveLongIterator results = context.nodesGetFromIndexRangeSeekByNumber( statement, index, 0, true,
+                null, false );
+
+        // Then
+        assertArrayEquals( new long[]{3L, 2L, 1L, 4L}, PrimitiveLongCollections.asArray( results ) );
+    }
+
     @Test
     public void shouldConsiderTransactionStateDuringIndexBetweenRangeSeekByString() throws Exception
     {
@@ -440,6 +483,7 @@ public class StateHandlingStatementOperationsTest
             throws IndexNotFoundKernelException
     {
         IndexReader indexReader = mock( IndexReader.class );
+        when( indexReader.rangeSeekOrder() ).thenReturn( IndexOrder.NONE );
         when( storeStatement.getIndexReader( any( IndexDescriptor.class ) ) ).thenReturn( indexReader );
         return indexReader;
     }
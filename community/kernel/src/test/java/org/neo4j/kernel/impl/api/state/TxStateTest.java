@@ -1397,6 +1397,36 @@ public class TxStateTest
         } );
     }
 
+    @Test
+    public void shouldMoveLargeStateOffHeapAndStillSeeIt() throws Exception
+    {
+        // GIVEN
+        TxState state = new TxState( 10 );
+        try
+        {
+            // WHEN
+            for ( long nodeId = 0; nodeId < 100; nodeId++ )
+            {
+                state.nodeDoCreate( nodeId );
+                state.nodeDoAddLabel( 1, nodeId );
+            }
+            state.nodeDoDelete( 42 );
+
+            // THEN
+            assertTrue( state.isOffHeap() );
+            assertEquals( 99, state.addedAndRemovedNodes().getAdded().size() );
+            assertTrue( state.nodeIsAddedInThisTx( 41 ) );
+            assertFalse( state.nodeIsAddedInThisTx( 42 ) );
+            assertTrue( state.nodesWithLabelChanged( 1 ).isAdded( 41L ) );
+            assertFalse( state.nodesWithLabelChanged( 1 ).isAdded( 42L ) );
+        }
+        finally
+        {
+            state.close();
+        }
+        assertFalse( state.isOffHeap() );
+    }
+
     @Test
     public void shouldObserveCorrectAugmentedNodeRelationshipsState() throws Exception
     {
@@ -29,10 +29,12 @@ import org.junit.runners.Parameterized;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import org.neo4j.cursor.Cursor;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
@@ -43,13 +45,18 @@ import org.neo4j.graphdb.factory.GraphDatabaseBuilder;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.helpers.collection.IterableWrapper;
 import org.neo4j.helpers.collection.Iterables;
+import org.neo4j.kernel.api.ReadOperations;
+import org.neo4j.kernel.api.Statement;
 import org.neo4j.kernel.impl.MyRelTypes;
+import org.neo4j.storageengine.api.DegreeItem;
+import org.neo4j.storageengine.api.NodeItem;
 import org.neo4j.test.rule.DatabaseRule;
 import org.neo4j.test.rule.ImpermanentDatabaseRule;
 
 import static java.lang.Integer.parseInt;
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 @RunWith( Parameterized.class )
@@ -195,6 +202,71 @@ public class TestRelationshipCount
         };
     }
 
+    @Test
+    public void degreesShouldReflectRelationshipsAddedAndDeletedInTransaction() throws Exception
+    {
+        // given a node with relationships of a few types, one of them a loop
+        GraphDatabaseService db = getGraphDb();
+        Node node = db.createNode();
+        for ( int i = 0; i < 3; i++ )
+        {
+            node.createRelationshipTo( db.createNode(), RelType.TYPE1 );
+        }
+        for ( int i = 0; i < 2; i++ )
+        {
+            db.createNode().createRelationshipTo( node, RelType.TYPE2 );
+        }
+        node.createRelationshipTo( node, MyRelTypes.TEST );
+        newTransaction();
+
+        // when adding relationships of existing and new types, another loop, and deleting all of one type
+        node.createRelationshipTo( db.createNode(), RelType.TYPE1 );
+        db.createNode().createRelationshipTo( node, RelType.INITIAL );
+        node.createRelationshipTo( node, MyRelTypes.TEST );
+        for ( Relationship relationship : node.getRelationships( RelType.TYPE2 ) )
+        {
+            relationship.delete();
+        }
+
+        // then
+        Map<String,int[]> degrees = degrees( node );
+        assertEquals( new HashSet<>( asList( RelType.TYPE1.name(), RelType.INITIAL.name(), MyRelTypes.TEST.name() ) ),
+                degrees.keySet() );
+        assertEquals( degrees.keySet(), Iterables.asSet( asStrings( node.getRelationshipTypes() ) ) );
+        assertEquals( 4, node.getDegree( RelType.TYPE1, Direction.OUTGOING ) );
+        assertEquals( 1, node.getDegree( RelType.INITIAL, Direction.INCOMING ) );
+        assertEquals( 2, node.getDegree( MyRelTypes.TEST, Direction.BOTH ) );
+        assertEquals( 0, node.getDegree( RelType.TYPE2 ) );
+        for ( RelationshipType type : node.getRelationshipTypes() )
+        {
+            int[] degree = degrees.get( type.name() );
+            assertEquals( type.name(), node.getDegree( type, Direction.OUTGOING ), degree[0] );
+            assertEquals( type.name(), node.getDegree( type, Direction.INCOMING ), degree[1] );
+        }
+    }
+
+    private Map<String,int[]> degrees( Node node ) throws Exception
+    {
+        Map<String,int[]> degrees = new HashMap<>();
+        try ( Statement statement = dbRule.getGraphDatabaseAPI().getDependencyResolver()
+                .resolveDependency( ThreadToStatementContextBridge.class ).get();
+              Cursor<NodeItem> nodeCursor = statement.readOperations().nodeCursor( node.getId() ) )
+        {
+            ReadOperations read = statement.readOperations();
+            assertTrue( nodeCursor.next() );
+            try ( Cursor<DegreeItem> degreeCursor = nodeCursor.get().degrees() )
+            {
+                while ( degreeCursor.next() )
+                {
+                    DegreeItem degree = degreeCursor.get();
+                    degrees.put( read.relationshipTypeGetName( degree.type() ),
+                            new int[]{(int) degree.outgoing(), (int) degree.incoming()} );
+                }
+            }
+        }
+        return degrees;
+    }
+
     @Test
     public void withoutLoops() throws Exception
     {
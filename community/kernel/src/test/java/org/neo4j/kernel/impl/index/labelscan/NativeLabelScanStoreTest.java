@@ -0,0 +1,464 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.labelscan;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.labelscan.AllEntriesLabelScanReader;
+import org.neo4j.kernel.api.labelscan.LabelScanWriter;
+import org.neo4j.kernel.api.labelscan.NodeLabelRange;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.scan.LabelScanStoreProvider.FullStoreChangeStream;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.storageengine.api.schema.LabelScanReader;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.TargetDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.api.labelscan.NodeLabelUpdate.labelChanges;
+
+public class NativeLabelScanStoreTest
+{
+    private static final long[] NO_LABELS = new long[0];
+
+    @Rule
+    public final DefaultFileSystemRule fs = new DefaultFileSystemRule();
+    @Rule
+    public final TargetDirectory.TestDirectory directory = TargetDirectory.testDirForTest( getClass(), fs.get() );
+    @Rule
+    public final PageCacheRule pageCacheRule = new PageCacheRule();
+
+    private final Random random = new Random();
+    private final TrackingMonitor monitor = new TrackingMonitor();
+    private final List<NodeLabelUpdate> existingData = new ArrayList<>();
+    private PageCache pageCache;
+    private NativeLabelScanStore store;
+
+    @Before
+    public void setUp()
+    {
+        Map<String,String> config = new HashMap<>();
+        config.put( GraphDatabaseSettings.pagecache_memory.name(), "8M" );
+        config.put( GraphDatabaseSettings.mapped_memory_page_size.name(), "512" );
+        pageCache = pageCacheRule.getPageCache( fs.get(), new Config( config ) );
+    }
+
+    @After
+    public void shutdown() throws IOException
+    {
+        if ( store != null )
+        {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldUpdateIndexOnLabelChange() throws Exception
+    {
+        // GIVEN
+        int labelId = 1;
+        long nodeId = 10;
+        start();
+
+        // WHEN
+        write( labelChanges( nodeId, NO_LABELS, new long[]{labelId} ) );
+
+        // THEN
+        assertNodesForLabel( labelId, nodeId );
+    }
+
+    @Test
+    public void shouldUpdateIndexOnAddedLabels() throws Exception
+    {
+        // GIVEN
+        int labelId1 = 1, labelId2 = 2;
+        long nodeId = 10;
+        start();
+        write( labelChanges( nodeId, NO_LABELS, new long[]{labelId1} ) );
+        assertNodesForLabel( labelId2 );
+
+        // WHEN
+        write( labelChanges( nodeId, new long[]{labelId1}, new long[]{labelId1, labelId2} ) );
+
+        // THEN
+        assertNodesForLabel( labelId1, nodeId );
+        assertNodesForLabel( labelId2, nodeId );
+    }
+
+    @Test
+    public void shouldUpdateIndexOnRemovedLabels() throws Exception
+    {
+        // GIVEN
+        int labelId1 = 1, labelId2 = 2;
+        long nodeId = 10;
+        start();
+        write( labelChanges( nodeId, NO_LABELS, new long[]{labelId1, labelId2} ) );
+
+        // WHEN
+        write( labelChanges( nodeId, new long[]{labelId1, labelId2}, new long[]{labelId2} ) );
+
+        // THEN
+        assertNodesForLabel( labelId1 );
+        assertNodesForLabel( labelId2, nodeId );
+    }
+
+    @Test
+    public void shouldApplyChangesToSameNodeInOrderWithinOneWriter() throws Exception
+    {
+        // GIVEN
+        int labelId = 1;
+        long nodeId = 10;
+        start();
+
+        // WHEN
+        try ( LabelScanWriter writer = store.newWriter() )
+        {
+            writer.write( labelChanges( nodeId, NO_LABELS, new long[]{labelId} ) );
+            writer.write( labelChanges( nodeId + 1, NO_LABELS, new long[]{labelId} ) );
+            writer.write( labelChanges( nodeId, new long[]{labelId}, NO_LABELS ) );
+        }
+
+        // THEN
+        assertNodesForLabel( labelId, nodeId + 1 );
+    }
+
+    @Test
+    public void shouldScanMultipleRanges() throws Exception
+    {
+        // GIVEN
+        int labelId1 = 1, labelId2 = 2;
+        long nodeId1 = 10, nodeId2 = 1280;
+        start();
+        write( labelChanges( nodeId1, NO_LABELS, new long[]{labelId1} ),
+               labelChanges( nodeId2, NO_LABELS, new long[]{labelId1, labelId2} ) );
+
+        // WHEN
+        List<NodeLabelRange> ranges = new ArrayList<>();
+        try ( AllEntriesLabelScanReader reader = store.allNodeLabelRanges() )
+        {
+            assertEquals( LabelScanValue.rangeOf( nodeId2 ) + 1, reader.maxCount() );
+            for ( NodeLabelRange range : reader )
+            {
+                ranges.add( range );
+            }
+        }
+
+        // THEN
+        assertEquals( 2, ranges.size() );
+        assertArrayEquals( new long[]{nodeId1}, ranges.get( 0 ).nodes() );
+        assertArrayEquals( new long[]{labelId1}, ranges.get( 0 ).labels( nodeId1 ) );
+        assertArrayEquals( new long[]{nodeId2}, ranges.get( 1 ).nodes() );
+        assertArrayEquals( new long[]{labelId1, labelId2}, ranges.get( 1 ).labels( nodeId2 ) );
+    }
+
+    @Test
+    public void shouldFindAllLabelsForGivenNode() throws Exception
+    {
+        // GIVEN
+        long nodeId = 70;
+        start();
+        write( labelChanges( 3, NO_LABELS, new long[]{1, 5} ),
+               labelChanges( nodeId, NO_LABELS, new long[]{2, 5, 9} ),
+               labelChanges( 200, NO_LABELS, new long[]{1, 3} ) );
+
+        // WHEN
+        TreeSet<Long> labels = new TreeSet<>();
+        try ( LabelScanReader reader = store.newReader() )
+        {
+            PrimitiveLongIterator iterator = reader.labelsForNode( nodeId );
+            while ( iterator.hasNext() )
+            {
+                labels.add( iterator.next() );
+            }
+        }
+
+        // THEN
+        assertEquals( new TreeSet<>( Arrays.asList( 2L, 5L, 9L ) ), labels );
+    }
+
+    @Test
+    public void shouldMatchRandomChanges() throws Exception
+    {
+        // GIVEN
+        start();
+        Map<Long,TreeSet<Long>> expected = new TreeMap<>();
+
+        // WHEN
+        for ( int round = 0; round < 10; round++ )
+        {
+            try ( LabelScanWriter writer = store.newWriter() )
+            {
+                for ( long nodeId = round; nodeId < 5_000; nodeId += 1 + random.nextInt( 20 ) )
+                {
+                    TreeSet<Long> before = expected.getOrDefault( nodeId, new TreeSet<>() );
+                    TreeSet<Long> after = new TreeSet<>();
+                    for ( long labelId = 0; labelId < 5; labelId++ )
+                    {
+                        if ( random.nextBoolean() )
+                        {
+                            after.add( labelId );
+                        }
+                    }
+                    writer.write( labelChanges( nodeId, toArray( before ), toArray( after ) ) );
+                    expected.put( nodeId, after );
+                }
+            }
+        }
+
+        // THEN
+        for ( long labelId = 0; labelId < 5; labelId++ )
+        {
+            List<Long> expectedNodes = new ArrayList<>();
+            for ( Map.Entry<Long,TreeSet<Long>> entry : expected.entrySet() )
+            {
+                if ( entry.getValue().contains( labelId ) )
+                {
+                    expectedNodes.add( entry.getKey() );
+                }
+            }
+            assertNodesForLabel( (int) labelId, toArray( expectedNodes ) );
+        }
+    }
+
+    @Test
+    public void shouldRebuildFromScratchIfIndexMissing() throws Exception
+    {
+        // GIVEN
+        existingData.add( labelChanges( 1, NO_LABELS, new long[]{1} ) );
+        existingData.add( labelChanges( 2, NO_LABELS, new long[]{1, 2} ) );
+
+        // WHEN
+        start();
+
+        // THEN
+        assertTrue( monitor.noIndexCalled );
+        assertTrue( monitor.rebuiltCalled );
+        assertNodesForLabel( 1, 1, 2 );
+        assertNodesForLabel( 2, 2 );
+    }
+
+    @Test
+    public void shouldRebuildIfIndexWasNeverCompletelyBuilt() throws Exception
+    {
+        // GIVEN a store which crashed before it was rebuilt
+        existingData.add( labelChanges( 1, NO_LABELS, new long[]{1} ) );
+        NativeLabelScanStore crashed = newStore();
+        crashed.init();
+        crashed.force();
+        crashed.shutdown();
+
+        // WHEN
+        start();
+
+        // THEN
+        assertTrue( monitor.corruptedIndexCalled );
+        assertTrue( monitor.rebuiltCalled );
+        assertNodesForLabel( 1, 1 );
+    }
+
+    @Test
+    public void shouldEndUpInSameStateWhenChangesAreRedone() throws Exception
+    {
+        // GIVEN
+        start();
+        NodeLabelUpdate first = labelChanges( 1, NO_LABELS, new long[]{1} );
+        NodeLabelUpdate second = labelChanges( 2, NO_LABELS, new long[]{1, 2} );
+        NodeLabelUpdate third = labelChanges( 1, new long[]{1}, new long[]{2} );
+        write( first );
+        store.force();
+        write( second, third );
+
+        // WHEN redoing changes made after the last force, as recovery would after a crash
+        write( second, third );
+
+        // THEN
+        assertNodesForLabel( 1, 2 );
+        assertNodesForLabel( 2, 1, 2 );
+    }
+
+    @Test
+    public void shouldKeepContentsAfterRestart() throws Exception
+    {
+        // GIVEN
+        start();
+        write( labelChanges( 1, NO_LABELS, new long[]{1} ), labelChanges( 100, NO_LABELS, new long[]{1} ) );
+
+        // WHEN
+        store.shutdown();
+        start();
+
+        // THEN
+        assertFalse( monitor.rebuiltCalled );
+        assertNodesForLabel( 1, 1, 100 );
+    }
+
+    @Test
+    public void shouldSnapshotFileWithContentsAsOfLastForce() throws Exception
+    {
+        // GIVEN
+        start();
+        write( labelChanges( 1, NO_LABELS, new long[]{1} ) );
+        store.force();
+
+        // WHEN copying the snapshot while the store keeps changing and being forced
+        File backupDir = directory.directory( "backup" );
+        try ( ResourceIterator<File> snapshot = store.snapshotStoreFiles() )
+        {
+            File file = snapshot.next();
+            assertFalse( snapshot.hasNext() );
+            write( labelChanges( 1, new long[]{1}, NO_LABELS ), labelChanges( 2, NO_LABELS, new long[]{1} ) );
+            pageCache.flushAndForce();
+            fs.get().copyFile( file, new File( backupDir, NativeLabelScanStore.FILE_NAME ) );
+        }
+        store.force();
+
+        // THEN
+        store.shutdown();
+        monitor.reset();
+        store = new NativeLabelScanStore( pageCache, fs.get(), backupDir, writer -> 0,
+                NullLogProvider.getInstance(), monitor );
+        store.init();
+        store.start();
+        assertFalse( monitor.rebuiltCalled );
+        assertNodesForLabel( 1, 1 );
+    }
+
+    private void start() throws IOException
+    {
+        monitor.reset();
+        store = newStore();
+        store.init();
+        store.start();
+    }
+
+    private NativeLabelScanStore newStore()
+    {
+        FullStoreChangeStream fullStoreStream = writer ->
+        {
+            for ( NodeLabelUpdate update : existingData )
+            {
+                writer.write( update );
+            }
+            return existingData.size();
+        };
+        File storeDir = directory.directory( "store" );
+        return new NativeLabelScanStore( pageCache, fs.get(), storeDir, fullStoreStream,
+                NullLogProvider.getInstance(), monitor );
+    }
+
+    private void write( NodeLabelUpdate... updates ) throws IOException
+    {
+        try ( LabelScanWriter writer = store.newWriter() )
+        {
+            for ( NodeLabelUpdate update : updates )
+            {
+                writer.write( update );
+            }
+        }
+    }
+
+    private void assertNodesForLabel( int labelId, long... expectedNodeIds )
+    {
+        try ( LabelScanReader reader = store.newReader() )
+        {
+            assertArrayEquals( expectedNodeIds, PrimitiveLongCollections.asArray( reader.nodesWithLabel( labelId ) ) );
+        }
+    }
+
+    private static long[] toArray( Iterable<Long> values )
+    {
+        List<Long> list = new ArrayList<>();
+        values.forEach( list::add );
+        long[] array = new long[list.size()];
+        for ( int i = 0; i < array.length; i++ )
+        {
+            array[i] = list.get( i );
+        }
+        return array;
+    }
+
+    private static class TrackingMonitor implements NativeLabelScanStore.Monitor
+    {
+        boolean initCalled;
+        boolean noIndexCalled;
+        boolean corruptedIndexCalled;
+        boolean rebuildingCalled;
+        boolean rebuiltCalled;
+
+        void reset()
+        {
+            initCalled = noIndexCalled = corruptedIndexCalled = rebuildingCalled = rebuiltCalled = false;
+        }
+
+        @Override
+        public void init()
+        {
+            initCalled = true;
+        }
+
+        @Override
+        public void noIndex()
+        {
+            noIndexCalled = true;
+        }
+
+        @Override
+        public void corruptedIndex()
+        {
+            corruptedIndexCalled = true;
+        }
+
+        @Override
+        public void rebuilding()
+        {
+            rebuildingCalled = true;
+        }
+
+        @Override
+        public void rebuilt( long roughNodeCount )
+        {
+            rebuiltCalled = true;
+        }
+    }
+}
@@ -0,0 +1,425 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexConfiguration;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.index.InternalIndexState;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+import org.neo4j.kernel.api.index.PropertyAccessor;
+import org.neo4j.kernel.api.properties.Property;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
+import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
+import org.neo4j.storageengine.api.schema.IndexReader;
+import org.neo4j.storageengine.api.schema.IndexSample;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.TargetDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class NativeSchemaIndexProviderTest
+{
+    private static final long INDEX_ID = 1;
+    private static final int LABEL_ID = 2;
+    private static final int PROPERTY_KEY_ID = 3;
+    private static final long[] LABELS = {LABEL_ID};
+
+    @Rule
+    public final DefaultFileSystemRule fs = new DefaultFileSystemRule();
+    @Rule
+    public final TargetDirectory.TestDirectory directory = TargetDirectory.testDirForTest( getClass(), fs.get() );
+    @Rule
+    public final PageCacheRule pageCacheRule = new PageCacheRule();
+
+    private final Map<Long,Object> nodeValues = new HashMap<>();
+    private final PropertyAccessor propertyAccessor =
+            ( nodeId, propertyKeyId ) -> Property.property( propertyKeyId, nodeValues.get( nodeId ) );
+    private final IndexSamplingConfig samplingConfig = new IndexSamplingConfig( Config.empty() );
+    private PageCache pageCache;
+    private NativeSchemaIndexProvider provider;
+    private IndexAccessor accessor;
+
+    @Before
+    public void setUp()
+    {
+        Map<String,String> config = new HashMap<>();
+        config.put( GraphDatabaseSettings.pagecache_memory.name(), "8M" );
+        config.put( GraphDatabaseSettings.mapped_memory_page_size.name(), "512" );
+        pageCache = pageCacheRule.getPageCache( fs.get(), new Config( config ) );
+        provider = new NativeSchemaIndexProvider( pageCache, fs.get(), directory.directory() );
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        if ( accessor != null )
+        {
+            accessor.close();
+        }
+    }
+
+    @Test
+    public void shouldBePopulatingUntilPopulationCompletes() throws Exception
+    {
+        // GIVEN
+        IndexPopulator populator = populator( false );
+        populator.create();
+        populator.add( Arrays.asList( add( 1, "a" ), add( 2, 5 ) ) );
+        assertEquals( InternalIndexState.POPULATING, provider.getInitialState( INDEX_ID ) );
+
+        // WHEN
+        populator.close( true );
+
+        // THEN
+        assertEquals( InternalIndexState.ONLINE, provider.getInitialState( INDEX_ID ) );
+        accessor = provider.getOnlineAccessor( INDEX_ID, IndexConfiguration.NON_UNIQUE, samplingConfig );
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            assertNodes( reader.scan(), 2, 1 );
+        }
+    }
+
+    @Test
+    public void shouldStayPopulatingIfPopulationNeverCompleted() throws Exception
+    {
+        // GIVEN
+        IndexPopulator populator = populator( false );
+        populator.create();
+        populator.add( Arrays.asList( add( 1, "a" ), add( 2, 5 ) ) );
+
+        // WHEN
+        populator.close( false );
+
+        // THEN
+        assertEquals( InternalIndexState.POPULATING, provider.getInitialState( INDEX_ID ) );
+    }
+
+    @Test
+    public void shouldStoreFailure() throws Exception
+    {
+        // GIVEN
+        IndexPopulator populator = populator( false );
+        populator.create();
+
+        // WHEN
+        populator.markAsFailed( "Broken" );
+        populator.close( false );
+
+        // THEN
+        assertEquals( InternalIndexState.FAILED, provider.getInitialState( INDEX_ID ) );
+        assertEquals( "Broken", provider.getPopulationFailure( INDEX_ID ) );
+    }
+
+    @Test
+    public void shouldSeekExactValues() throws Exception
+    {
+        // GIVEN
+        online( false, add( 1, "a" ), add( 2, 1 ), add( 3, 1.0d ), add( 4, "a" ), add( 5, "b" ), add( 6, -0d ) );
+
+        // THEN
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            assertNodes( reader.seek( "a" ), 1, 4 );
+            assertNodes( reader.seek( 1L ), 2, 3 );
+            assertNodes( reader.seek( 0 ), 6 );
+            assertNodes( reader.seek( "c" ) );
+            assertNodes( reader.seek( true ) );
+            assertEquals( 1, reader.countIndexedNodes( 4, "a" ) );
+            assertEquals( 0, reader.countIndexedNodes( 5, "a" ) );
+        }
+    }
+
+    @Test
+    public void shouldSeekRangesInValueOrder() throws Exception
+    {
+        // GIVEN
+        online( false, add( 1, 10 ), add( 2, -5.5d ), add( 3, 3 ), add( 4, "c" ), add( 5, "a" ), add( 6, "b" ),
+                add( 7, "bb" ), add( 8, 3 ) );
+
+        // THEN
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            assertNodes( reader.rangeSeekByNumberInclusive( null, null ), 2, 3, 8, 1 );
+            assertNodes( reader.rangeSeekByNumberInclusive( 3, 10 ), 3, 8, 1 );
+            assertNodes( reader.rangeSeekByNumberInclusive( -10, 2.9 ), 2 );
+            assertNodes( reader.rangeSeekByString( null, false, null, false ), 5, 6, 7, 4 );
+            assertNodes( reader.rangeSeekByString( "a", false, "c", false ), 6, 7 );
+            assertNodes( reader.rangeSeekByString( "a", true, "bb", true ), 5, 6, 7 );
+            assertNodes( reader.rangeSeekByString( "b", true, null, false ), 6, 7, 4 );
+            assertNodes( reader.scan(), 2, 3, 8, 1, 5, 6, 7, 4 );
+        }
+    }
+
+    @Test
+    public void shouldSeekStringRangesWithBoundsLongerThanKeys() throws Exception
+    {
+        // GIVEN
+        char[] chars = new char[SchemaIndexKey.MAX_STRING_BYTES];
+        Arrays.fill( chars, 'b' );
+        String longest = new String( chars );
+        online( false, add( 1, "a" ), add( 2, longest ), add( 3, "c" ) );
+
+        // THEN
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            assertNodes( reader.rangeSeekByString( longest + "a", true, null, false ), 3 );
+            assertNodes( reader.rangeSeekByString( longest.substring( 1 ) + "a", true, longest + "a", false ), 2 );
+            assertNodes( reader.rangeSeekByPrefix( longest + "a" ) );
+        }
+    }
+
+    @Test
+    public void shouldSeekStringsByParts() throws Exception
+    {
+        // GIVEN
+        online( false, add( 1, "abc" ), add( 2, "abd" ), add( 3, "bcd" ), add( 4, "ab" ), add( 5, 12 ) );
+
+        // THEN
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            assertNodes( reader.rangeSeekByPrefix( "ab" ), 4, 1, 2 );
+            assertNodes( reader.rangeSeekByPrefix( "" ), 4, 1, 2, 3 );
+            assertNodes( reader.containsString( "bc" ), 1, 3 );
+            assertNodes( reader.endsWith( "d" ), 2, 3 );
+        }
+    }
+
+    @Test
+    public void shouldApplyUpdatesToOnlineIndex() throws Exception
+    {
+        // GIVEN
+        online( false, add( 1, "a" ), add( 2, 2 ), add( 3, "c" ) );
+
+        // WHEN
+        try ( IndexUpdater updater = accessor.newUpdater( IndexUpdateMode.ONLINE ) )
+        {
+            updater.process( NodePropertyUpdate.change( 1, PROPERTY_KEY_ID, "a", LABELS, "b", LABELS ) );
+            updater.process( NodePropertyUpdate.remove( 2, PROPERTY_KEY_ID, 2, LABELS ) );
+            updater.process( add( 4, 4 ) );
+        }
+
+        // THEN
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            assertNodes( reader.scan(), 4, 1, 3 );
+            assertNodes( reader.seek( "a" ) );
+            assertNodes( reader.seek( "b" ), 1 );
+        }
+    }
+
+    @Test
+    public void shouldRemoveNodesDuringRecovery() throws Exception
+    {
+        // GIVEN
+        online( false, add( 1, "a" ), add( 2, 2 ), add( 3, "c" ) );
+        PrimitiveLongSet nodes = Primitive.longSet();
+        nodes.add( 1 );
+        nodes.add( 2 );
+
+        // WHEN
+        try ( IndexUpdater updater = accessor.newUpdater( IndexUpdateMode.RECOVERY ) )
+        {
+            updater.remove( nodes );
+        }
+
+        // THEN
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            assertNodes( reader.scan(), 3 );
+        }
+    }
+
+    @Test
+    public void shouldSurviveRestart() throws Exception
+    {
+        // GIVEN
+        online( false, add( 1, "a" ), add( 2, 2 ) );
+        try ( IndexUpdater updater = accessor.newUpdater( IndexUpdateMode.ONLINE ) )
+        {
+            updater.process( add( 3, 3 ) );
+        }
+        accessor.force();
+        accessor.close();
+
+        // WHEN
+        accessor = provider.getOnlineAccessor( INDEX_ID, IndexConfiguration.NON_UNIQUE, samplingConfig );
+
+        // THEN
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            assertNodes( reader.scan(), 2, 3, 1 );
+        }
+    }
+
+    @Test
+    public void shouldSnapshotFilesWithContentsAsOfLastForce() throws Exception
+    {
+        // GIVEN
+        online( false, add( 1, "a" ), add( 2, 2 ) );
+
+        // WHEN copying the snapshot while the index keeps changing
+        File copy = directory.file( "copy" );
+        File file;
+        try ( ResourceIterator<File> snapshot = accessor.snapshotFiles() )
+        {
+            file = snapshot.next();
+            try ( IndexUpdater updater = accessor.newUpdater( IndexUpdateMode.ONLINE ) )
+            {
+                updater.process( NodePropertyUpdate.remove( 1, PROPERTY_KEY_ID, "a", LABELS ) );
+                updater.process( add( 3, 3 ) );
+            }
+            pageCache.flushAndForce();
+            fs.get().copyFile( file, copy );
+        }
+        accessor.force();
+        accessor.close();
+
+        // THEN restoring the copy gives the index as of the last force
+        fs.get().copyFile( copy, file );
+        accessor = provider.getOnlineAccessor( INDEX_ID, IndexConfiguration.NON_UNIQUE, samplingConfig );
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            assertNodes( reader.scan(), 2, 1 );
+        }
+    }
+
+    @Test
+    public void shouldFindDuplicatesWhenVerifyingUniqueIndex() throws Exception
+    {
+        // GIVEN
+        IndexPopulator populator = populator( true );
+        populator.create();
+        populator.add( Arrays.asList( add( 1, "a" ), add( 2, 10 ), add( 3, "b" ), add( 4, 10L ) ) );
+
+        // WHEN
+        try
+        {
+            populator.verifyDeferredConstraints( propertyAccessor );
+            fail( "Should have found duplicates" );
+        }
+        catch ( IndexEntryConflictException e )
+        {
+            // THEN
+            assertEquals( 10, e.getPropertyValue() );
+        }
+        finally
+        {
+            populator.close( false );
+        }
+    }
+
+    @Test
+    public void shouldNotSeeDifferentNumbersWithSameDoubleValueAsDuplicates() throws Exception
+    {
+        // GIVEN
+        long large = 1L << 60;
+        IndexPopulator populator = populator( true );
+        populator.create();
+        populator.add( Arrays.asList( add( 1, large ), add( 2, large + 1 ), add( 3, large + 2 ) ) );
+
+        // WHEN
+        populator.verifyDeferredConstraints( propertyAccessor );
+
+        // THEN
+        IndexUpdater updater = populator.newPopulatingUpdater( propertyAccessor );
+        updater.process( add( 4, large + 1 ) );
+        try
+        {
+            updater.close();
+            fail( "Should have found duplicates" );
+        }
+        catch ( IndexEntryConflictException e )
+        {
+            assertEquals( large + 1, e.getPropertyValue() );
+        }
+        finally
+        {
+            populator.close( false );
+        }
+    }
+
+    @Test
+    public void shouldSampleIndex() throws Exception
+    {
+        // GIVEN
+        IndexPopulator populator = populator( false );
+        populator.create();
+        populator.add( Arrays.asList( add( 1, "a" ), add( 2, 10 ), add( 3, "a" ), add( 4, 10L ), add( 5, 11 ) ) );
+
+        // WHEN
+        IndexSample sample = populator.sampleResult();
+        populator.close( true );
+
+        // THEN
+        assertEquals( new IndexSample( 5, 3, 5 ), sample );
+    }
+
+    private IndexPopulator populator( boolean unique )
+    {
+        return provider.getPopulator( INDEX_ID, new IndexDescriptor( LABEL_ID, PROPERTY_KEY_ID ),
+                IndexConfiguration.of( unique ), samplingConfig );
+    }
+
+    private void online( boolean unique, NodePropertyUpdate... updates ) throws Exception
+    {
+        IndexPopulator populator = populator( unique );
+        populator.create();
+        populator.add( Arrays.asList( updates ) );
+        populator.close( true );
+        accessor = provider.getOnlineAccessor( INDEX_ID, IndexConfiguration.of( unique ), samplingConfig );
+    }
+
+    private NodePropertyUpdate add( long nodeId, Object value )
+    {
+        nodeValues.put( nodeId, value );
+        return NodePropertyUpdate.add( nodeId, PROPERTY_KEY_ID, value, LABELS );
+    }
+
+    private static void assertNodes( PrimitiveLongIterator nodes, long... expected )
+    {
+        assertArrayEquals( expected, PrimitiveLongCollections.asArray( nodes ) );
+    }
+}
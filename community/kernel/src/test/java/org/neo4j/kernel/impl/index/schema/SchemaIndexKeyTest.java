@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.index.schema.SchemaIndexKey.TYPE_NUMBER;
+import static org.neo4j.kernel.impl.index.schema.SchemaIndexKey.TYPE_STRING;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public class SchemaIndexKeyTest
+{
+    private final SchemaIndexLayout layout = new SchemaIndexLayout();
+
+    @Test
+    public void shouldOrderNumbersLikeTheirDoubleValues() throws Exception
+    {
+        // GIVEN
+        Object[] values = {Double.NEGATIVE_INFINITY, -Double.MAX_VALUE, -10L, -1.5f, -Double.MIN_VALUE, 0,
+                Double.MIN_VALUE, (byte) 1, 1.5d, (short) 2, 10L, Integer.MAX_VALUE, Double.MAX_VALUE,
+                Double.POSITIVE_INFINITY};
+
+        // THEN
+        assertSortedInOrder( values );
+    }
+
+    @Test
+    public void shouldOrderStringsByCodePointsAfterNumbers() throws Exception
+    {
+        // GIVEN
+        Object[] values = {Long.MAX_VALUE, "", "A", "AB", "B", "a", "å", "世", "😀"};
+
+        // THEN
+        assertSortedInOrder( values );
+    }
+
+    @Test
+    public void shouldSeeNegativeZeroAsZero() throws Exception
+    {
+        assertEquals( 0, key( -0d, 1 ).compareValueTo( key( 0, 1 ) ) );
+        assertEquals( 0, key( 1, 1 ).compareValueTo( key( 1.0d, 1 ) ) );
+    }
+
+    @Test
+    public void shouldOrderSameValuesByNodeId() throws Exception
+    {
+        assertTrue( layout.compare( key( "value", 1 ), key( "value", 2 ) ) < 0 );
+        assertTrue( layout.compare( key( 5, 3 ), key( 5, 2 ) ) > 0 );
+    }
+
+    @Test
+    public void shouldEncodeStringsAsUtf8() throws Exception
+    {
+        for ( String string : new String[]{"", "abc", "åäö", "世界", "😀!"} )
+        {
+            byte[] expected = string.getBytes( UTF_8 );
+            byte[] encoded = new byte[SchemaIndexKey.MAX_STRING_BYTES];
+
+            int length = SchemaIndexKey.encodeUtf8( string, encoded );
+
+            assertEquals( expected.length, length );
+            assertEquals( expected.length, SchemaIndexKey.utf8Length( string ) );
+            assertArrayEquals( expected, Arrays.copyOf( encoded, length ) );
+            assertEquals( string, key( string, 0 ).asValue() );
+        }
+    }
+
+    @Test
+    public void shouldOnlyAcceptNumbersAndStringsWhichFit() throws Exception
+    {
+        assertTrue( SchemaIndexKey.accepts( 1 ) );
+        assertTrue( SchemaIndexKey.accepts( 1.5f ) );
+        assertTrue( SchemaIndexKey.accepts( 'c' ) );
+        assertTrue( SchemaIndexKey.accepts( repeat( 'a', SchemaIndexKey.MAX_STRING_BYTES ) ) );
+        assertFalse( SchemaIndexKey.accepts( repeat( 'a', SchemaIndexKey.MAX_STRING_BYTES + 1 ) ) );
+        assertFalse( SchemaIndexKey.accepts( repeat( 'å', SchemaIndexKey.MAX_STRING_BYTES / 2 + 1 ) ) );
+        assertFalse( SchemaIndexKey.accepts( true ) );
+        assertFalse( SchemaIndexKey.accepts( new int[]{1} ) );
+    }
+
+    @Test
+    public void shouldMatchStringPartsOnBytes() throws Exception
+    {
+        SchemaIndexKey key = key( "abcådef", 0 );
+
+        assertTrue( key.startsWith( utf8( "abcå" ), utf8( "abcå" ).length ) );
+        assertFalse( key.startsWith( utf8( "abd" ), 3 ) );
+        assertTrue( key.endsWith( utf8( "ådef" ), utf8( "ådef" ).length ) );
+        assertFalse( key.endsWith( utf8( "dee" ), 3 ) );
+        assertTrue( key.contains( utf8( "cåd" ), utf8( "cåd" ).length ) );
+        assertTrue( key.contains( utf8( "" ), 0 ) );
+        assertFalse( key.contains( utf8( "cd" ), 2 ) );
+        assertFalse( key( 10, 0 ).contains( utf8( "" ), 0 ) );
+    }
+
+    private void assertSortedInOrder( Object[] values )
+    {
+        List<SchemaIndexKey> keys = new ArrayList<>();
+        for ( Object value : values )
+        {
+            keys.add( key( value, 0 ) );
+        }
+        for ( int i = 1; i < keys.size(); i++ )
+        {
+            assertTrue( keys.get( i - 1 ) + " should be before " + keys.get( i ),
+                    layout.compare( keys.get( i - 1 ), keys.get( i ) ) < 0 );
+        }
+        assertTrue( layout.compare( new SchemaIndexKey().initAsLowest( TYPE_NUMBER ), keys.get( 0 ) ) < 0 );
+        assertTrue( layout.compare( keys.get( keys.size() - 1 ), new SchemaIndexKey().initAsHighest( TYPE_STRING ) ) < 0 );
+    }
+
+    private static SchemaIndexKey key( Object value, long nodeId )
+    {
+        return new SchemaIndexKey().from( value, nodeId );
+    }
+
+    private static byte[] utf8( String string )
+    {
+        return string.getBytes( UTF_8 );
+    }
+
+    private static String repeat( char c, int times )
+    {
+        char[] chars = new char[times];
+        Arrays.fill( chars, c );
+        return new String( chars );
+    }
+}
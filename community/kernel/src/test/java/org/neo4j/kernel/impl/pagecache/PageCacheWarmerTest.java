@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.StandardOpenOption;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.kernel.impl.util.Neo4jJobScheduler;
+import org.neo4j.logging.NullLog;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+public class PageCacheWarmerTest
+{
+    private static final int PAGE_SIZE = 8192;
+
+    @Rule
+    public final EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+
+    private FileSystemAbstraction fs;
+    private JobScheduler scheduler;
+    private File storeDir;
+    private File file;
+
+    @Before
+    public void setUp() throws Throwable
+    {
+        fs = fsRule.get();
+        scheduler = new Neo4jJobScheduler();
+        scheduler.init();
+        storeDir = new File( "store" ).getAbsoluteFile();
+        fs.mkdirs( storeDir );
+        file = new File( storeDir, "neostore.nodestore.db" );
+        try ( PageCache pageCache = StandalonePageCacheFactory.createPageCache( fs );
+              PagedFile pagedFile = pageCache.map( file, PAGE_SIZE, StandardOpenOption.CREATE );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            for ( int i = 0; i < 100; i++ )
+            {
+                assertTrue( cursor.next() );
+                cursor.putInt( i );
+            }
+        }
+    }
+
+    @After
+    public void tearDown() throws Throwable
+    {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void mustLoadProfiledPagesOnWarmup() throws Exception
+    {
+        try ( PageCache pageCache = StandalonePageCacheFactory.createPageCache( fs );
+              PagedFile pagedFile = pageCache.map( file, PAGE_SIZE ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next( 3 ) );
+                assertTrue( cursor.next( 10 ) );
+                assertTrue( cursor.next( 42 ) );
+            }
+            newWarmer( pageCache ).profile();
+        }
+
+        try ( PageCache pageCache = StandalonePageCacheFactory.createPageCache( fs );
+              PagedFile pagedFile = pageCache.map( file, PAGE_SIZE ) )
+        {
+            assertFalse( isResident( pagedFile, 42 ) );
+            assertEquals( 3, newWarmer( pageCache ).warmUp() );
+            assertTrue( isResident( pagedFile, 3 ) );
+            assertTrue( isResident( pagedFile, 10 ) );
+            assertTrue( isResident( pagedFile, 42 ) );
+        }
+    }
+
+    @Test
+    public void mustIgnoreFilesThatAreNotMapped() throws Exception
+    {
+        try ( PageCache pageCache = StandalonePageCacheFactory.createPageCache( fs );
+              PagedFile pagedFile = pageCache.map( file, PAGE_SIZE ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next( 3 ) );
+            }
+            newWarmer( pageCache ).profile();
+        }
+
+        try ( PageCache pageCache = StandalonePageCacheFactory.createPageCache( fs ) )
+        {
+            assertEquals( 0, newWarmer( pageCache ).warmUp() );
+        }
+    }
+
+    @Test
+    public void mustIgnoreCorruptProfile() throws Exception
+    {
+        File profileFile = new File( storeDir, PageCacheWarmer.PROFILE_FILE_NAME );
+        try ( OutputStream out = fs.openAsOutputStream( profileFile, false ) )
+        {
+            out.write( new byte[]{1, 2, 3, 4, 5} );
+        }
+
+        try ( PageCache pageCache = StandalonePageCacheFactory.createPageCache( fs );
+              PagedFile ignore = pageCache.map( file, PAGE_SIZE ) )
+        {
+            assertEquals( 0, newWarmer( pageCache ).warmUp() );
+        }
+    }
+
+    private PageCacheWarmer newWarmer( PageCache pageCache )
+    {
+        return new PageCacheWarmer( fs, pageCache, scheduler, storeDir, 1000, PageCacheTracer.NULL,
+                NullLog.getInstance() );
+    }
+
+    private static boolean isResident( PagedFile pagedFile, long pageId ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+        {
+            assertTrue( cursor.next() );
+            return cursor.getCurrentPageId() != PageCursor.UNBOUND_PAGE_ID;
+        }
+    }
+}
@@ -73,6 +73,8 @@ public class RecordCursorsTest
         verify( recordCursors.propertyString() ).close();
         verify( recordCursors.propertyArray() ).close();
         verify( recordCursors.label() ).close();
+        verify( recordCursors.nodeScan() ).close();
+        verify( recordCursors.relationshipScan() ).close();
     }
 
     private static RecordCursors newRecordCursorsWithMockedNeoStores()
@@ -103,6 +105,8 @@ public class RecordCursorsTest
         S storeMock = mock( storeClass );
         RecordCursor<R> cursor = newCursorMock();
         when( storeMock.newRecordCursor( any() ) ).thenReturn( cursor );
+        RecordCursor<R> sequentialCursor = newCursorMock();
+        when( storeMock.newSequentialRecordCursor( any() ) ).thenReturn( sequentialCursor );
         return storeMock;
     }
 
@@ -28,6 +28,7 @@ import java.util.concurrent.Future;
 
 import org.neo4j.function.IOFunction;
 import org.neo4j.function.ThrowingFunction;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.api.CountsAccessor;
 import org.neo4j.kernel.impl.api.CountsVisitor;
@@ -43,12 +44,14 @@ import org.neo4j.test.rule.concurrent.ThreadingRule;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.neo4j.helpers.collection.MapUtil.stringMap;
 import static org.neo4j.test.rule.Resources.InitialLifecycle.STARTED;
 import static org.neo4j.test.rule.Resources.TestPath.FILE_IN_EXISTING_DIRECTORY;
 
@@ -174,6 +177,119 @@ public class CountsTrackerTest
         }
     }
 
+    @Test
+    public void shouldOnlyWriteChangedCountsToDeltaFileOnRotation() throws Exception
+    {
+        // given
+        CountsOracle oracle = someData();
+        File baseFile;
+        try ( Lifespan life = new Lifespan() )
+        {
+            CountsTracker tracker = life.add( newTracker( 100 ) );
+            oracle.update( tracker, 2 );
+            tracker.rotate( 2 );
+            baseFile = tracker.currentFile();
+
+            // when
+            CountsOracle delta = new CountsOracle();
+            delta.node( 2 );
+            delta.update( tracker, 3 );
+            delta.update( oracle );
+            tracker.rotate( 3 );
+
+            // then
+            assertEquals( baseFile, tracker.currentFile() );
+            assertTrue( resourceManager.fileSystem().fileExists( deltaFile( baseFile, 0 ) ) );
+            oracle.verify( tracker );
+        }
+
+        // then
+        try ( Lifespan life = new Lifespan() )
+        {
+            CountsTracker tracker = life.add( newTracker( 100 ) );
+            assertEquals( 3, tracker.txId() );
+            oracle.verify( tracker );
+        }
+    }
+
+    @Test
+    public void shouldCompactDeltaFileIntoNewStoreFileWhenDeltaThresholdIsExceeded() throws Exception
+    {
+        // given
+        CountsOracle oracle = someData();
+        File baseFile;
+        try ( Lifespan life = new Lifespan() )
+        {
+            CountsTracker tracker = life.add( newTracker( 100 ) );
+            oracle.update( tracker, 2 );
+            tracker.rotate( 2 );
+            CountsOracle delta = new CountsOracle();
+            delta.node( 2 );
+            delta.update( tracker, 3 );
+            delta.update( oracle );
+            tracker.rotate( 3 );
+            baseFile = tracker.currentFile();
+        }
+
+        // when
+        try ( Lifespan life = new Lifespan() )
+        {
+            // deltas are disabled, so the next rotation compacts the store
+            CountsTracker tracker = life.add( newTracker() );
+            oracle.verify( tracker );
+            CountsOracle delta = new CountsOracle();
+            delta.node( 5 );
+            delta.update( tracker, 4 );
+            delta.update( oracle );
+            tracker.rotate( 4 );
+
+            // then
+            assertNotEquals( baseFile, tracker.currentFile() );
+            assertFalse( resourceManager.fileSystem().fileExists( deltaFile( tracker.currentFile(), 0 ) ) );
+            oracle.verify( tracker );
+        }
+
+        // then
+        try ( Lifespan life = new Lifespan() )
+        {
+            oracle.verify( life.add( newTracker( 100 ) ) );
+        }
+    }
+
+    @Test
+    public void shouldNotVisitCountsThatDroppedToZeroInDeltaFile() throws Exception
+    {
+        // given
+        try ( Lifespan life = new Lifespan() )
+        {
+            CountsTracker tracker = life.add( newTracker( 100 ) );
+            someData().update( tracker, 2 );
+            tracker.rotate( 2 );
+
+            // when
+            try ( CountsAccessor.Updater tx = tracker.apply( 3 ).get() )
+            {
+                tx.incrementNodeCount( 2, -2 );
+            }
+            tracker.rotate( 3 );
+        }
+
+        // then
+        try ( Lifespan life = new Lifespan() )
+        {
+            CountsTracker tracker = life.add( newTracker( 100 ) );
+            assertEquals( 0, tracker.nodeCount( 2, Registers.newDoubleLongRegister() ).readSecond() );
+            tracker.accept( new CountsVisitor.Adapter()
+            {
+                @Override
+                public void visitNodeCount( int labelId, long count )
+                {
+                    assertNotEquals( "label", 2, labelId );
+                }
+            } );
+        }
+    }
+
     @Test
     public void shouldBeAbleToReadUpToDateValueWhileAnotherThreadIsPerformingRotation() throws Exception
     {
@@ -335,9 +451,20 @@ public class CountsTrackerTest
     }
 
     private CountsTracker newTracker()
+    {
+        return newTracker( Config.empty() );
+    }
+
+    private CountsTracker newTracker( int deltaThreshold )
+    {
+        return newTracker( new Config( stringMap(
+                GraphDatabaseSettings.counts_store_delta_threshold.name(), String.valueOf( deltaThreshold ) ) ) );
+    }
+
+    private CountsTracker newTracker( Config config )
     {
         return new CountsTracker( resourceManager.logProvider(), resourceManager.fileSystem(),
-                resourceManager.pageCache(), Config.empty(), resourceManager.testPath() )
+                resourceManager.pageCache(), config, resourceManager.testPath() )
                 .setInitializer( new DataInitializer<CountsAccessor.Updater>()
                 {
                     @Override
@@ -353,6 +480,11 @@ public class CountsTrackerTest
                 } );
     }
 
+    private static File deltaFile( File storeFile, int slot )
+    {
+        return new File( storeFile.getParent(), storeFile.getName() + ".delta." + slot );
+    }
+
     private CountsOracle someData()
     {
         CountsOracle oracle = new CountsOracle();
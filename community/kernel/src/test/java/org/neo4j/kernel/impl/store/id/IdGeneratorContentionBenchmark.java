@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+
+/**
+ * Measures how many ids per second concurrent threads can allocate from a node id generator.
+ *
+ * The {@code threadLocalBatchSize} parameter is the number of ids each thread grabs at a time, where {@code 0} is
+ * the same as all threads allocating from the synchronized {@link IdGeneratorImpl} directly.
+ *
+ * Run the main method with the test classpath of this module, to run the benchmark with 1 to 64 threads.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 10 )
+@Fork( 1 )
+public class IdGeneratorContentionBenchmark
+{
+    @Param( {"0", "64", "1024"} )
+    public int threadLocalBatchSize;
+
+    private FileSystemAbstraction fs;
+    private File file;
+    private IdGenerator idGenerator;
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        fs = new DefaultFileSystemAbstraction();
+        file = File.createTempFile( "neostore.nodestore.db", ".id" );
+        fs.deleteFile( file );
+        IdGeneratorFactory factory = new DefaultIdGeneratorFactory( fs, threadLocalBatchSize );
+        factory.create( file, 0, true );
+        idGenerator = factory.open( file, IdType.NODE.getGrabSize(), IdType.NODE, 0, Long.MAX_VALUE );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown()
+    {
+        idGenerator.close();
+        fs.deleteFile( file );
+    }
+
+    @Benchmark
+    public long nextId()
+    {
+        return idGenerator.nextId();
+    }
+
+    public static void main( String[] args ) throws RunnerException
+    {
+        for ( int threads = 1; threads <= 64; threads *= 2 )
+        {
+            new Runner( new OptionsBuilder()
+                    .include( IdGeneratorContentionBenchmark.class.getSimpleName() )
+                    .threads( threads )
+                    .build() ).run();
+        }
+    }
+}
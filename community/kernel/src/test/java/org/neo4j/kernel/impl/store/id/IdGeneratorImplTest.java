@@ -245,6 +245,42 @@ public class IdGeneratorImplTest
         assertEquals( 30, idGenerator.nextId() );
     }
 
+    @Test
+    public void shouldRestoreFlushedFreeIdsOfGeneratorNotClosedCleanly() throws Exception
+    {
+        // GIVEN
+        IdGeneratorImpl.createGenerator( fsr.get(), file, 20, false );
+        IdGeneratorImpl idGenerator = new IdGeneratorImpl( fsr.get(), file, 100, 100, false, 20 );
+        idGenerator.freeId( 3 );
+        idGenerator.freeId( 7 );
+        idGenerator.freeId( 5 );
+        idGenerator.flush();
+        // and then crash, i.e. don't close it
+
+        // WHEN
+        long restored = IdGeneratorImpl.restoreGenerator( fsr.get(), file, 20, new long[] {9, 7, 25},
+                id -> id != 5 );
+
+        // THEN
+        assertEquals( 3, restored );
+        IdGeneratorImpl restoredGenerator = new IdGeneratorImpl( fsr.get(), file, 100, 100, false, 20 );
+        assertEquals( 3, restoredGenerator.nextId() );
+        assertEquals( 7, restoredGenerator.nextId() );
+        assertEquals( 9, restoredGenerator.nextId() );
+        assertEquals( 20, restoredGenerator.nextId() );
+    }
+
+    @Test
+    public void shouldNotRestoreGeneratorWithoutFile() throws Exception
+    {
+        // WHEN
+        long restored = IdGeneratorImpl.restoreGenerator( fsr.get(), file, 20, new long[] {9}, id -> true );
+
+        // THEN
+        assertEquals( -1, restored );
+        assertFalse( fsr.get().fileExists( file ) );
+    }
+
     public static void main( String[] args )
     {
         // Leave it opened
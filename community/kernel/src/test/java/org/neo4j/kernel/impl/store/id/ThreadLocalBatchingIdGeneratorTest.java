@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ThreadLocalBatchingIdGeneratorTest
+{
+    @Rule
+    public final EphemeralFileSystemRule fsr = new EphemeralFileSystemRule();
+    private final File file = new File( "ids" );
+
+    @Test
+    public void shouldHandOutUniqueIdsToConcurrentThreads() throws Exception
+    {
+        // given
+        IdGenerator idGenerator = newGenerator( 0, 10 );
+        int threads = 8;
+        int idsPerThread = 1_005;
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+
+        // when
+        List<Future<long[]>> futures = new ArrayList<>();
+        try
+        {
+            for ( int i = 0; i < threads; i++ )
+            {
+                futures.add( executor.submit( () ->
+                {
+                    long[] ids = new long[idsPerThread];
+                    for ( int j = 0; j < ids.length; j++ )
+                    {
+                        ids[j] = idGenerator.nextId();
+                    }
+                    return ids;
+                } ) );
+            }
+
+            // then
+            Set<Long> allIds = new HashSet<>();
+            for ( Future<long[]> future : futures )
+            {
+                for ( long id : future.get() )
+                {
+                    assertTrue( "Id " + id + " handed out twice", allIds.add( id ) );
+                }
+            }
+            assertEquals( threads * idsPerThread, allIds.size() );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldFreeIdsLeftInBatchesOnClose() throws Exception
+    {
+        // given
+        IdGenerator idGenerator = newGenerator( 0, 10 );
+        assertEquals( 0, idGenerator.nextId() );
+        assertEquals( 1, idGenerator.nextId() );
+        assertEquals( 10, idGenerator.getHighId() );
+
+        // when
+        idGenerator.close();
+
+        // then
+        IdGenerator reopened = new IdGeneratorImpl( fsr.get(), file, 100, Long.MAX_VALUE, true, 0 );
+        assertEquals( 10, reopened.getHighId() );
+        assertEquals( 8, reopened.getDefragCount() );
+    }
+
+    @Test
+    public void shouldHandOutFreedIdsBeforeNewOnes() throws Exception
+    {
+        // given
+        IdGenerator idGenerator = newGenerator( 100, 10 );
+        idGenerator.freeIds( new long[] {3, 5} );
+
+        // when
+        long first = idGenerator.nextId();
+        long second = idGenerator.nextId();
+        long third = idGenerator.nextId();
+
+        // then
+        assertEquals( 3, first );
+        assertEquals( 5, second );
+        assertEquals( 100, third );
+    }
+
+    @Test
+    public void shouldNeverHandOutReservedId() throws Exception
+    {
+        // given
+        IdGenerator idGenerator = newGenerator( IdGeneratorImpl.INTEGER_MINUS_ONE - 5, 10 );
+
+        // when/then
+        for ( int i = 0; i < 20; i++ )
+        {
+            assertNotEquals( IdGeneratorImpl.INTEGER_MINUS_ONE, idGenerator.nextId() );
+        }
+    }
+
+    @Test
+    public void shouldFreeIdsLeftInBatchesWhenHighIdChanged() throws Exception
+    {
+        // given
+        IdGenerator idGenerator = newGenerator( 0, 10 );
+        assertEquals( 0, idGenerator.nextId() );
+
+        // when
+        idGenerator.setHighId( 50 );
+
+        // then
+        assertEquals( 9, idGenerator.getDefragCount() );
+        assertEquals( 1, idGenerator.nextId() );
+        assertEquals( 51, idGenerator.getHighId() );
+    }
+
+    @Test
+    public void shouldFreeIdsLeftInBatchesOfOtherThreadsWhenHighIdChanged() throws Exception
+    {
+        // given
+        IdGenerator idGenerator = newGenerator( 0, 10 );
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            assertEquals( 0L, (long) executor.submit( idGenerator::nextId ).get() );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // when
+        idGenerator.setHighId( 50 );
+
+        // then
+        assertEquals( 9, idGenerator.getDefragCount() );
+        assertEquals( 50 - 9, idGenerator.getNumberOfIdsInUse() );
+    }
+
+    @Test
+    public void shouldNotFreeIdsAboveLoweredHighId() throws Exception
+    {
+        // given
+        IdGenerator idGenerator = newGenerator( 0, 10 );
+        assertEquals( 0, idGenerator.nextId() );
+
+        // when
+        idGenerator.setHighId( 5 );
+
+        // then
+        assertEquals( 4, idGenerator.getDefragCount() );
+    }
+
+    @Test
+    public void shouldNotRestoreGeneratorsWhenBatchingIds() throws Exception
+    {
+        // given a generator which has grabbed a batch and then crashed, i.e. wasn't closed
+        DefaultIdGeneratorFactory factory = new DefaultIdGeneratorFactory( fsr.get(), 10 );
+        factory.create( file, 0, false );
+        IdGenerator idGenerator = factory.open( file, 100, IdType.NODE, 0, Long.MAX_VALUE );
+        assertEquals( 0, idGenerator.nextId() );
+        idGenerator.flush();
+
+        // when
+        long restored = factory.restore( file, 10, new long[0], id -> id > 0 );
+
+        // then the generator has to be rebuilt, since restoring it would not find the unused ids 1-9 of the batch
+        assertEquals( -1, restored );
+        assertEquals( 0, new DefaultIdGeneratorFactory( fsr.get(), 0 )
+                .restore( file, 10, new long[0], id -> id > 0 ) );
+    }
+
+    private IdGenerator newGenerator( long highId, int batchSize )
+    {
+        IdGeneratorImpl.createGenerator( fsr.get(), file, highId, false );
+        IdGenerator delegate = new IdGeneratorImpl( fsr.get(), file, 100, Long.MAX_VALUE, true, highId );
+        return new ThreadLocalBatchingIdGenerator( delegate, batchSize );
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.command;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Matchers;
+
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
+import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.store.DynamicArrayStore;
+import org.neo4j.kernel.impl.store.DynamicStringStore;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.RelationshipGroupStore;
+import org.neo4j.kernel.impl.store.RelationshipStore;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.neo4j.kernel.impl.transaction.command.Commands.createLabelToken;
+import static org.neo4j.kernel.impl.transaction.command.Commands.createNode;
+import static org.neo4j.kernel.impl.transaction.command.Commands.createRelationship;
+import static org.neo4j.kernel.impl.transaction.command.Commands.transactionRepresentation;
+
+public class ParallelNeoStoreRecoveryApplierTest
+{
+    private final NeoStores neoStores = mock( NeoStores.class );
+    private final NodeStore nodeStore = mock( NodeStore.class );
+    private final RelationshipStore relationshipStore = mock( RelationshipStore.class );
+    private final PropertyStore propertyStore = mock( PropertyStore.class );
+    private final RelationshipGroupStore relationshipGroupStore = mock( RelationshipGroupStore.class );
+    private final LockService lockService = mock( LockService.class );
+    private ParallelNeoStoreRecoveryApplier applier;
+
+    @Before
+    public void setUp()
+    {
+        when( neoStores.getNodeStore() ).thenReturn( nodeStore );
+        when( neoStores.getRelationshipStore() ).thenReturn( relationshipStore );
+        when( neoStores.getPropertyStore() ).thenReturn( propertyStore );
+        when( neoStores.getRelationshipGroupStore() ).thenReturn( relationshipGroupStore );
+        when( propertyStore.getStringStore() ).thenReturn( mock( DynamicStringStore.class ) );
+        when( propertyStore.getArrayStore() ).thenReturn( mock( DynamicArrayStore.class ) );
+        when( nodeStore.getDynamicLabelStore() ).thenReturn( mock( DynamicArrayStore.class ) );
+        when( nodeStore.getRecordsPerPage() ).thenReturn( 10 );
+        when( relationshipStore.getRecordsPerPage() ).thenReturn( 10 );
+        when( lockService.acquireNodeLock( anyLong(), Matchers.<LockService.LockType>any() ) )
+                .thenReturn( LockService.NO_LOCK );
+        when( lockService.acquireRelationshipLock( anyLong(), Matchers.<LockService.LockType>any() ) )
+                .thenReturn( LockService.NO_LOCK );
+        applier = new ParallelNeoStoreRecoveryApplier( neoStores, mock( CacheAccessBackDoor.class ), lockService, 4 );
+    }
+
+    @After
+    public void tearDown()
+    {
+        applier.close();
+    }
+
+    @Test
+    public void shouldApplyRecordCommandsOfAllOfferedTransactions() throws Exception
+    {
+        // given
+        Command.NodeCommand[] nodeCommands = new Command.NodeCommand[100];
+        for ( int i = 0; i < nodeCommands.length; i++ )
+        {
+            nodeCommands[i] = createNode( i );
+        }
+        Command.RelationshipCommand relationshipCommand = createRelationship( 5, 0, 1, 0 );
+
+        // when
+        assertTrue( applier.offer( new TransactionToApply( transactionRepresentation( nodeCommands ) ) ) );
+        assertTrue( applier.offer( new TransactionToApply( transactionRepresentation( relationshipCommand ) ) ) );
+        applier.applyWave();
+
+        // then
+        for ( Command.NodeCommand command : nodeCommands )
+        {
+            verify( nodeStore ).updateRecord( command.getAfter() );
+        }
+        verify( relationshipStore ).updateRecord( relationshipCommand.getAfter() );
+    }
+
+    @Test
+    public void shouldNotAcceptTransactionsWithTokenCommands() throws Exception
+    {
+        // given
+        Command.NodeCommand nodeCommand = createNode( 1 );
+
+        // when
+        boolean accepted = applier.offer( new TransactionToApply(
+                transactionRepresentation( nodeCommand, createLabelToken( 1, 2 ) ) ) );
+        applier.applyWave();
+
+        // then
+        assertFalse( accepted );
+        verify( nodeStore, never() ).updateRecord( any( NodeRecord.class ) );
+    }
+
+    @Test
+    public void shouldApplyUpdatesToSharedRecordsInTransactionOrder() throws Exception
+    {
+        // given two nodes on different pages, sharing a dynamic label record that got reused in between
+        Command.NodeCommand first = createNode( 1, 7 );
+        Command.NodeCommand second = createNode( 1_001, 7 );
+        Command.NodeCommand third = createNode( 1 );
+
+        // when
+        applier.offer( new TransactionToApply( transactionRepresentation( first ) ) );
+        applier.offer( new TransactionToApply( transactionRepresentation( second ) ) );
+        applier.offer( new TransactionToApply( transactionRepresentation( third ) ) );
+        applier.applyWave();
+
+        // then
+        InOrder inOrder = inOrder( nodeStore );
+        inOrder.verify( nodeStore ).updateRecord( first.getAfter() );
+        inOrder.verify( nodeStore ).updateRecord( second.getAfter() );
+        inOrder.verify( nodeStore ).updateRecord( third.getAfter() );
+    }
+}
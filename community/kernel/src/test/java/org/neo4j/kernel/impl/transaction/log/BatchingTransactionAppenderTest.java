@@ -42,6 +42,9 @@ import org.neo4j.kernel.impl.transaction.log.entry.OnePhaseCommit;
 import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogCheckPointEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LogForceEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LogForceWaitEvent;
+import org.neo4j.kernel.impl.transaction.tracing.SerializeTransactionEvent;
 import org.neo4j.kernel.internal.DatabaseHealth;
 import org.neo4j.kernel.lifecycle.LifeRule;
 import org.neo4j.storageengine.api.StorageCommand;
@@ -62,6 +65,7 @@ import static org.mockito.Mockito.RETURNS_MOCKS;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -116,6 +120,54 @@ public class BatchingTransactionAppenderTest
         }
     }
 
+    @Test
+    public void shouldReportBatchSizeAndGroupCommitWindowOfLogForce() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( channel );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 2L );
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFile, NO_ROTATION, positionCache,
+                transactionIdStore, BYPASS, databaseHealth, new GroupCommitWindow( 1000 ) ) );
+        LogForceEvent logForceEvent = mock( LogForceEvent.class );
+        LogAppendEvent appendEvent = mock( LogAppendEvent.class );
+        when( appendEvent.beginSerializeTransaction() ).thenReturn( SerializeTransactionEvent.NULL );
+        when( appendEvent.beginLogForceWait() ).thenReturn( LogForceWaitEvent.NULL );
+        when( appendEvent.beginLogForce() ).thenReturn( logForceEvent );
+
+        // WHEN
+        appender.append( new TransactionToApply(
+                transaction( singleCreateNodeCommand( 0 ), new byte[0], 0, 0, 0, 1, 0 ) ), appendEvent );
+
+        // THEN nothing has been observed yet, so the force must not have been held back
+        verify( logForceEvent ).setBatchSize( 1 );
+        verify( logForceEvent ).setGroupCommitWindow( 0 );
+        verify( logForceEvent ).close();
+    }
+
+    @Test
+    public void shouldNotMeasureLogForceWhenGroupCommitWindowIsDisabled() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( channel );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 2L );
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFile, NO_ROTATION, positionCache,
+                transactionIdStore, BYPASS, databaseHealth, GroupCommitWindow.DISABLED ) );
+        LogForceEvent logForceEvent = mock( LogForceEvent.class );
+        LogAppendEvent appendEvent = mock( LogAppendEvent.class );
+        when( appendEvent.beginSerializeTransaction() ).thenReturn( SerializeTransactionEvent.NULL );
+        when( appendEvent.beginLogForceWait() ).thenReturn( LogForceWaitEvent.NULL );
+        when( appendEvent.beginLogForce() ).thenReturn( logForceEvent );
+
+        // WHEN
+        appender.append( new TransactionToApply(
+                transaction( singleCreateNodeCommand( 0 ), new byte[0], 0, 0, 0, 1, 0 ) ), appendEvent );
+
+        // THEN the force was neither held back nor measured
+        verify( logForceEvent, never() ).setBatchSize( anyInt() );
+        verify( logForceEvent, never() ).setGroupCommitWindow( anyLong() );
+        verify( logForceEvent ).close();
+    }
+
     @Test
     public void shouldAppendBatchOfTransactions() throws Exception
     {
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.helpers.FakeClock;
+
+import static org.junit.Assert.assertEquals;
+
+public class GroupCommitWindowTest
+{
+    private final FakeClock clock = new FakeClock();
+
+    @Test
+    public void disabledWindowMustAlwaysBeZero() throws Exception
+    {
+        GroupCommitWindow window = GroupCommitWindow.DISABLED;
+
+        window.logForced( TimeUnit.MILLISECONDS.toNanos( 10 ) );
+        window.transactionAppended();
+        window.transactionAppended();
+
+        assertEquals( 0, window.windowNanos() );
+    }
+
+    @Test
+    public void windowMustBeZeroBeforeAnythingHasBeenObserved() throws Exception
+    {
+        assertEquals( 0, new GroupCommitWindow( 1000, clock ).windowNanos() );
+    }
+
+    @Test
+    public void windowMustBeZeroWhenTransactionsArriveSlowerThanTheLogCanBeForced() throws Exception
+    {
+        GroupCommitWindow window = new GroupCommitWindow( 1000, clock );
+        window.logForced( TimeUnit.MICROSECONDS.toNanos( 100 ) );
+
+        appendTransactions( window, 10, 1000 );
+
+        assertEquals( 0, window.windowNanos() );
+    }
+
+    @Test
+    public void windowMustCoverAFewArrivalsWhenTransactionsArriveFasterThanTheLogCanBeForced() throws Exception
+    {
+        GroupCommitWindow window = new GroupCommitWindow( 1000, clock );
+        window.logForced( TimeUnit.MILLISECONDS.toNanos( 2 ) );
+
+        appendTransactions( window, 10, 50 );
+
+        assertEquals( TimeUnit.MICROSECONDS.toNanos( 200 ), window.windowNanos() );
+    }
+
+    @Test
+    public void windowMustNotExceedHalfTheForceLatency() throws Exception
+    {
+        GroupCommitWindow window = new GroupCommitWindow( 1000, clock );
+        window.logForced( TimeUnit.MICROSECONDS.toNanos( 400 ) );
+
+        appendTransactions( window, 10, 100 );
+
+        assertEquals( TimeUnit.MICROSECONDS.toNanos( 200 ), window.windowNanos() );
+    }
+
+    @Test
+    public void windowMustNotExceedConfiguredMaximum() throws Exception
+    {
+        GroupCommitWindow window = new GroupCommitWindow( 100, clock );
+        window.logForced( TimeUnit.MILLISECONDS.toNanos( 10 ) );
+
+        appendTransactions( window, 10, 500 );
+
+        assertEquals( TimeUnit.MICROSECONDS.toNanos( 100 ), window.windowNanos() );
+    }
+
+    @Test
+    public void windowMustAdaptWhenTheArrivalRateDrops() throws Exception
+    {
+        GroupCommitWindow window = new GroupCommitWindow( 1000, clock );
+        window.logForced( TimeUnit.MILLISECONDS.toNanos( 1 ) );
+        appendTransactions( window, 10, 50 );
+        assertEquals( TimeUnit.MICROSECONDS.toNanos( 200 ), window.windowNanos() );
+
+        appendTransactions( window, 100, 5000 );
+
+        assertEquals( 0, window.windowNanos() );
+    }
+
+    private void appendTransactions( GroupCommitWindow window, int count, long intervalMicros )
+    {
+        for ( int i = 0; i < count; i++ )
+        {
+            clock.forward( intervalMicros, TimeUnit.MICROSECONDS );
+            window.transactionAppended();
+        }
+    }
+}
@@ -24,13 +24,17 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.ByteUnit;
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.kernel.impl.transaction.DeadSimpleLogVersionRepository;
 import org.neo4j.kernel.impl.transaction.DeadSimpleTransactionIdStore;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogFile.Monitor;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
 import org.neo4j.kernel.lifecycle.LifeSupport;
 import org.neo4j.test.rule.TargetDirectory;
@@ -38,8 +42,10 @@ import org.neo4j.test.rule.TargetDirectory.TestDirectory;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderReader.readLogHeader;
 
 public class PhysicalLogFileTest
@@ -196,6 +202,203 @@ public class PhysicalLogFileTest
         life.shutdown();
     }
 
+    @Test
+    public void shouldPreallocateLogFilesAndCutOffZeroFilledTailOnRotation() throws Exception
+    {
+        // GIVEN
+        String name = "log";
+        LifeSupport life = new LifeSupport();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), name, fs );
+        PhysicalLogFile logFile = life.add( new PhysicalLogFile( fs, logFiles, 1000,
+                transactionIdStore::getLastCommittedTransactionId, logVersionRepository, mock( Monitor.class ),
+                new LogHeaderCache( 10 ), true, RecycledLogFiles.none( fs ) ) );
+        life.start();
+        try
+        {
+            assertEquals( 1000, fs.getFileSize( logFiles.getLogFileForVersion( 1L ) ) );
+            assertFalse( logFiles.hasAnyEntries( 1L ) );
+
+            // WHEN
+            FlushablePositionAwareChannel writer = logFile.getWriter();
+            new LogEntryWriter( writer ).writeCheckPointEntry( new LogPosition( 1L, LOG_HEADER_SIZE ) );
+            LogPositionMarker positionMarker = new LogPositionMarker();
+            writer.getCurrentPosition( positionMarker );
+            logFile.rotate();
+
+            // THEN
+            assertTrue( logFiles.hasAnyEntries( 1L ) );
+            assertEquals( positionMarker.getByteOffset(), fs.getFileSize( logFiles.getLogFileForVersion( 1L ) ) );
+            // No recycled file was ready, so the new version is not zero-filled on the commit path
+            assertEquals( LOG_HEADER_SIZE, fs.getFileSize( logFiles.getLogFileForVersion( 2L ) ) );
+            assertEquals( 2L, readLogHeader( fs, logFiles.getLogFileForVersion( 2L ) ).logVersion );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldRotateToRecycledLogFileWhenOneIsReady() throws Exception
+    {
+        // GIVEN
+        String name = "log";
+        LifeSupport life = new LifeSupport();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), name, fs );
+        RecycledLogFiles recycledLogFiles = new RecycledLogFiles( fs, directory.directory(), name, 1000, 1 );
+        PhysicalLogFile logFile = life.add( new PhysicalLogFile( fs, logFiles, 1000,
+                transactionIdStore::getLastCommittedTransactionId, logVersionRepository, mock( Monitor.class ),
+                new LogHeaderCache( 10 ), true, recycledLogFiles ) );
+        life.start();
+        try
+        {
+            File retired = new File( directory.directory(), name + ".0" );
+            fs.create( retired ).close();
+            recycledLogFiles.retire( retired );
+
+            // WHEN
+            logFile.rotate();
+
+            // THEN
+            assertEquals( 1000, fs.getFileSize( logFiles.getLogFileForVersion( 2L ) ) );
+            assertEquals( 2L, readLogHeader( fs, logFiles.getLogFileForVersion( 2L ) ).logVersion );
+            assertFalse( logFiles.hasAnyEntries( 2L ) );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldContinueAfterLastEntryOfPreallocatedLogOnRestart() throws Exception
+    {
+        // GIVEN
+        String name = "log";
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), name, fs );
+        LogPosition endOfLog;
+        LifeSupport life = new LifeSupport();
+        PhysicalLogFile logFile = life.add( new PhysicalLogFile( fs, logFiles, 1000,
+                transactionIdStore::getLastCommittedTransactionId, logVersionRepository, mock( Monitor.class ),
+                new LogHeaderCache( 10 ), true, RecycledLogFiles.none( fs ) ) );
+        life.start();
+        try
+        {
+            FlushablePositionAwareChannel writer = logFile.getWriter();
+            new LogEntryWriter( writer ).writeCheckPointEntry( new LogPosition( 1L, LOG_HEADER_SIZE ) );
+            endOfLog = writer.getCurrentPosition( new LogPositionMarker() ).newPosition();
+        }
+        finally
+        {
+            life.shutdown();
+        }
+        assertEquals( 1000, fs.getFileSize( logFiles.getLogFileForVersion( 1L ) ) );
+
+        // WHEN
+        life = new LifeSupport();
+        logFile = life.add( new PhysicalLogFile( fs, logFiles, 1000,
+                transactionIdStore::getLastCommittedTransactionId, logVersionRepository, mock( Monitor.class ),
+                new LogHeaderCache( 10 ), true, RecycledLogFiles.none( fs ) ) );
+        life.start();
+        try
+        {
+            // THEN
+            assertEquals( endOfLog, logFile.getWriter().getCurrentPosition( new LogPositionMarker() ).newPosition() );
+            assertEquals( 1000, fs.getFileSize( logFiles.getLogFileForVersion( 1L ) ) );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldNotRewriteCleanPreallocatedLogOnRestart() throws Exception
+    {
+        // GIVEN
+        String name = "log";
+        long rotateAtSize = ByteUnit.mebiBytes( 1 );
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), name, fs );
+        LifeSupport life = new LifeSupport();
+        life.add( new PhysicalLogFile( fs, logFiles, rotateAtSize,
+                transactionIdStore::getLastCommittedTransactionId, logVersionRepository, mock( Monitor.class ),
+                new LogHeaderCache( 10 ), true, RecycledLogFiles.none( fs ) ) );
+        life.start();
+        life.shutdown();
+        // A byte well past the end of the log, which a start that zero-fills the whole tail would overwrite
+        File file = logFiles.getLogFileForVersion( 1L );
+        long farPosition = rotateAtSize - 10;
+        writeByte( file, farPosition, (byte) 7 );
+
+        // WHEN
+        life = new LifeSupport();
+        life.add( new PhysicalLogFile( fs, logFiles, rotateAtSize,
+                transactionIdStore::getLastCommittedTransactionId, logVersionRepository, mock( Monitor.class ),
+                new LogHeaderCache( 10 ), true, RecycledLogFiles.none( fs ) ) );
+        life.start();
+        life.shutdown();
+
+        // THEN
+        assertEquals( rotateAtSize, fs.getFileSize( file ) );
+        assertEquals( 7, readByte( file, farPosition ) );
+    }
+
+    @Test
+    public void shouldZeroLeftoversAfterLastEntryOfPreallocatedLogOnRestart() throws Exception
+    {
+        // GIVEN
+        String name = "log";
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), name, fs );
+        LifeSupport life = new LifeSupport();
+        life.add( new PhysicalLogFile( fs, logFiles, 1000,
+                transactionIdStore::getLastCommittedTransactionId, logVersionRepository, mock( Monitor.class ),
+                new LogHeaderCache( 10 ), true, RecycledLogFiles.none( fs ) ) );
+        life.start();
+        life.shutdown();
+        // Bytes of a transaction that was being written when the database crashed
+        File file = logFiles.getLogFileForVersion( 1L );
+        writeByte( file, LOG_HEADER_SIZE + 1, (byte) 7 );
+        writeByte( file, 900, (byte) 7 );
+
+        // WHEN
+        life = new LifeSupport();
+        PhysicalLogFile logFile = life.add( new PhysicalLogFile( fs, logFiles, 1000,
+                transactionIdStore::getLastCommittedTransactionId, logVersionRepository, mock( Monitor.class ),
+                new LogHeaderCache( 10 ), true, RecycledLogFiles.none( fs ) ) );
+        life.start();
+        try
+        {
+            // THEN
+            assertEquals( new LogPosition( 1L, LOG_HEADER_SIZE ),
+                    logFile.getWriter().getCurrentPosition( new LogPositionMarker() ).newPosition() );
+            assertEquals( 1000, fs.getFileSize( file ) );
+            assertEquals( 0, readByte( file, LOG_HEADER_SIZE + 1 ) );
+            assertEquals( 0, readByte( file, 900 ) );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
+
+    private void writeByte( File file, long position, byte value ) throws IOException
+    {
+        try ( StoreChannel channel = fs.open( file, "rw" ) )
+        {
+            channel.writeAll( ByteBuffer.wrap( new byte[]{value} ), position );
+        }
+    }
+
+    private byte readByte( File file, long position ) throws IOException
+    {
+        try ( StoreChannel channel = fs.open( file, "r" ) )
+        {
+            ByteBuffer buffer = ByteBuffer.allocate( 1 );
+            channel.read( buffer, position );
+            return buffer.get( 0 );
+        }
+    }
+
     private byte[] readBytes( ReadableClosableChannel reader, int length ) throws IOException
     {
         byte[] result = new byte[length];
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RecycledLogFilesTest
+{
+    @Rule
+    public final EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+
+    private final File directory = new File( "dir" );
+    private final String name = "log";
+
+    @Test
+    public void shouldKeepZeroFilledRetiredFilesUpToCapacityAndDeleteTheRest() throws Exception
+    {
+        // GIVEN
+        FileSystemAbstraction fs = fsRule.get();
+        fs.mkdirs( directory );
+        RecycledLogFiles recycledLogFiles = new RecycledLogFiles( fs, directory, name, 100, 1 );
+        File first = logFileWithContent( fs, 0, 150 );
+        File second = logFileWithContent( fs, 1, 150 );
+
+        // WHEN
+        recycledLogFiles.retire( first );
+        recycledLogFiles.retire( second );
+
+        // THEN
+        assertFalse( fs.fileExists( first ) );
+        assertFalse( fs.fileExists( second ) );
+        File recycled = new File( directory, RecycledLogFiles.RECYCLED_PREFIX + name + ".0" );
+        assertEquals( 100, fs.getFileSize( recycled ) );
+        assertAllZeros( fs, recycled );
+    }
+
+    @Test
+    public void shouldMoveRecycledFileIntoPlaceAsNewLogFile() throws Exception
+    {
+        // GIVEN
+        FileSystemAbstraction fs = fsRule.get();
+        fs.mkdirs( directory );
+        RecycledLogFiles recycledLogFiles = new RecycledLogFiles( fs, directory, name, 100, 2 );
+        recycledLogFiles.retire( logFileWithContent( fs, 0, 50 ) );
+        File newLogFile = new File( directory, name + ".5" );
+
+        // WHEN
+        boolean tookFirst = recycledLogFiles.take( newLogFile );
+        boolean tookSecond = recycledLogFiles.take( new File( directory, name + ".6" ) );
+
+        // THEN
+        assertTrue( tookFirst );
+        assertFalse( tookSecond );
+        assertEquals( 100, fs.getFileSize( newLogFile ) );
+        assertAllZeros( fs, newLogFile );
+    }
+
+    @Test
+    public void shouldDeleteLeftoversOfInterruptedRecyclingOnInit() throws Exception
+    {
+        // GIVEN
+        FileSystemAbstraction fs = fsRule.get();
+        fs.mkdirs( directory );
+        File leftover = new File( directory, RecycledLogFiles.RECYCLING_PREFIX + name + ".0" );
+        fs.create( leftover ).close();
+        RecycledLogFiles recycledLogFiles = new RecycledLogFiles( fs, directory, name, 100, 2 );
+
+        // WHEN
+        recycledLogFiles.init();
+
+        // THEN
+        assertFalse( fs.fileExists( leftover ) );
+        assertFalse( recycledLogFiles.take( new File( directory, name + ".1" ) ) );
+    }
+
+    private File logFileWithContent( FileSystemAbstraction fs, long version, int size ) throws IOException
+    {
+        File file = new File( directory, name + "." + version );
+        try ( StoreChannel channel = fs.create( file ) )
+        {
+            ByteBuffer buffer = ByteBuffer.allocate( size );
+            while ( buffer.hasRemaining() )
+            {
+                buffer.put( (byte) 7 );
+            }
+            buffer.flip();
+            channel.writeAll( buffer );
+        }
+        return file;
+    }
+
+    private void assertAllZeros( FileSystemAbstraction fs, File file ) throws IOException
+    {
+        try ( StoreChannel channel = fs.open( file, "r" ) )
+        {
+            ByteBuffer buffer = ByteBuffer.allocate( (int) channel.size() );
+            channel.read( buffer, 0 );
+            buffer.flip();
+            while ( buffer.hasRemaining() )
+            {
+                assertEquals( 0, buffer.get() );
+            }
+        }
+    }
+}
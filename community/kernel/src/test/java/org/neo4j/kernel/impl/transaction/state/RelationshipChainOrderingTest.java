@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.state;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseBuilder;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.helpers.collection.Iterables;
+import org.neo4j.kernel.api.KernelAPI;
+import org.neo4j.kernel.impl.locking.NoOpClient;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.logging.NullLog;
+import org.neo4j.storageengine.api.lock.ResourceType;
+import org.neo4j.test.rule.DatabaseRule;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+import org.neo4j.unsafe.batchinsert.DirectRecordAccessSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+public class RelationshipChainOrderingTest
+{
+    private static final int DENSE_NODE_THRESHOLD = 5;
+
+    @Rule
+    public final DatabaseRule dbRule = new ImpermanentDatabaseRule()
+    {
+        @Override
+        protected void configure( GraphDatabaseBuilder builder )
+        {
+            builder.setConfig( GraphDatabaseSettings.dense_node_threshold, String.valueOf( DENSE_NODE_THRESHOLD ) );
+        }
+    };
+
+    private NeoStores neoStores;
+    private long node;
+    private long otherNode;
+
+    @Before
+    public void before()
+    {
+        neoStores = dbRule.getGraphDatabaseAPI().getDependencyResolver().resolveDependency( NeoStores.class );
+        GraphDatabaseService db = dbRule.getGraphDatabaseAPI();
+        try ( Transaction tx = db.beginTx() )
+        {
+            node = db.createNode().getId();
+            otherNode = db.createNode().getId();
+            tx.success();
+        }
+    }
+
+    @Test
+    public void shouldLinkTheRelationshipChainsOfADenseNodeInRecordIdOrder() throws Exception
+    {
+        // given
+        long[] outgoing = {5_000, 10, 2_500, 40, 7_000, 300};
+        long[] incoming = {1_200, 20, 6_000, 30};
+        long[] loops = {8_000, 50, 4_000};
+        createRelationships( node, otherNode, outgoing );
+        createRelationships( otherNode, node, incoming );
+        createRelationships( node, node, loops );
+        long[] otherNodeOutgoingBefore = chain( otherNode, group( otherNode, 0 ).getFirstOut(), records() );
+        long[] otherNodeIncomingBefore = chain( otherNode, group( otherNode, 0 ).getFirstIn(), records() );
+
+        // when
+        RelationshipCreatorTest.Tracker tracker = new RelationshipCreatorTest.Tracker( neoStores );
+        orderer().orderRelationshipChains( node, tracker, tracker );
+        tracker.close();
+
+        // then
+        RelationshipGroupRecord group = group( node, 0 );
+        assertArrayEquals( sorted( outgoing ), chain( node, group.getFirstOut(), records() ) );
+        assertArrayEquals( sorted( incoming ), chain( node, group.getFirstIn(), records() ) );
+        assertArrayEquals( sorted( loops ), chain( node, group.getFirstLoop(), records() ) );
+        assertEquals( outgoing.length,
+                RelationshipCreator.relCount( node, records().getRelRecords().getOrLoad( 10L, null ).forReadingData() ) );
+        // and the chains of the other node are left as they were
+        assertArrayEquals( otherNodeOutgoingBefore,
+                chain( otherNode, group( otherNode, 0 ).getFirstOut(), records() ) );
+        assertArrayEquals( otherNodeIncomingBefore,
+                chain( otherNode, group( otherNode, 0 ).getFirstIn(), records() ) );
+    }
+
+    @Test
+    public void shouldNotChangeChainsThatAreAlreadyInRecordIdOrder() throws Exception
+    {
+        // given
+        createRelationships( node, otherNode, new long[]{700, 100, 600, 200, 500, 300, 400} );
+        RelationshipCreatorTest.Tracker tracker = new RelationshipCreatorTest.Tracker( neoStores );
+        orderer().orderRelationshipChains( node, tracker, tracker );
+        tracker.close();
+
+        // when
+        tracker = new RelationshipCreatorTest.Tracker( neoStores );
+        orderer().orderRelationshipChains( node, tracker, tracker );
+
+        // then
+        assertFalse( tracker.hasChanges() );
+    }
+
+    @Test
+    public void shouldNotOverwriteChangesToTheChainOfTheOtherNodeMadeBeforeLocksWereAcquired() throws Exception
+    {
+        // given
+        long[] outgoing = {5_000, 10, 2_500, 40, 7_000, 300};
+        createRelationships( node, otherNode, outgoing );
+        long thirdNode;
+        try ( Transaction tx = dbRule.getGraphDatabaseAPI().beginTx() )
+        {
+            thirdNode = dbRule.getGraphDatabaseAPI().createNode().getId();
+            tx.success();
+        }
+        long firstIncomingOfOtherNode = group( otherNode, 0 ).getFirstIn();
+        long[] otherNodeIncomingBefore = chain( otherNode, firstIncomingOfOtherNode, records() );
+        long concurrentRelationship = 9_000;
+
+        // when another transaction prepends a relationship to the chain of the other node, and commits, right
+        // before this transaction gets its relationship locks
+        RelationshipCreatorTest.Tracker tracker = new RelationshipCreatorTest.Tracker( neoStores )
+        {
+            private boolean concurrentTransactionCommitted;
+
+            @Override
+            public void acquireExclusive( ResourceType resourceType, long resourceId )
+            {
+                if ( !concurrentTransactionCommitted )
+                {
+                    concurrentTransactionCommitted = true;
+                    createRelationships( thirdNode, otherNode, new long[]{concurrentRelationship} );
+                }
+                super.acquireExclusive( resourceType, resourceId );
+            }
+        };
+        orderer().orderRelationshipChains( node, tracker, tracker );
+        tracker.close();
+
+        // then the chain of this node is ordered
+        assertArrayEquals( sorted( outgoing ), chain( node, group( node, 0 ).getFirstOut(), records() ) );
+        // and the change to the chain of the other node is kept
+        long[] otherNodeIncomingAfter = chain( otherNode, group( otherNode, 0 ).getFirstIn(), records() );
+        assertEquals( concurrentRelationship, otherNodeIncomingAfter[0] );
+        assertArrayEquals( otherNodeIncomingBefore,
+                Arrays.copyOfRange( otherNodeIncomingAfter, 1, otherNodeIncomingAfter.length ) );
+        RelationshipRecord formerFirst =
+                records().getRelRecords().getOrLoad( firstIncomingOfOtherNode, null ).forReadingLinkage();
+        assertFalse( formerFirst.isFirstInSecondChain() );
+        assertEquals( concurrentRelationship, formerFirst.getSecondPrevRel() );
+    }
+
+    @Test
+    public void shouldOrderScatteredChainsInTheBackgroundAndReportTheirLocality() throws Exception
+    {
+        // given chains that go back and forth between the first page of the store and later pages
+        long[] relationships = {10, 5_000, 20, 6_000, 30, 7_000};
+        createRelationships( node, otherNode, relationships );
+        RecordingMonitor monitor = new RecordingMonitor();
+        RelationshipChainOrdering ordering = new RelationshipChainOrdering( neoStores,
+                dbRule.getGraphDatabaseAPI().getDependencyResolver().resolveDependency( KernelAPI.class ),
+                dbRule.getGraphDatabaseAPI().getDependencyResolver().resolveDependency( JobScheduler.class ),
+                1_000, 1_000, 1_000, monitor, NullLog.getInstance() );
+
+        // when
+        int ordered = ordering.orderNextBatch();
+
+        // then both nodes are dense, and have their chains relinked
+        assertEquals( 2, ordered );
+        assertEquals( 2, monitor.orderedNodes );
+        assertEquals( monitor.pages, monitor.pageVisits );
+        assertArrayEquals( sorted( relationships ), chain( node, group( node, 0 ).getFirstOut(), records() ) );
+        assertArrayEquals( sorted( relationships ),
+                chain( otherNode, group( otherNode, 0 ).getFirstIn(), records() ) );
+        try ( Transaction tx = dbRule.getGraphDatabaseAPI().beginTx() )
+        {
+            Node dense = dbRule.getGraphDatabaseAPI().getNodeById( node );
+            assertEquals( relationships.length, dense.getDegree() );
+            assertEquals( relationships.length, Iterables.count( dense.getRelationships() ) );
+            tx.success();
+        }
+
+        // and when
+        ordered = ordering.orderNextBatch();
+
+        // then the chains are not relinked again
+        assertEquals( 0, ordered );
+        assertEquals( 2, monitor.orderedNodes );
+        assertNotEquals( 0, monitor.pages );
+        assertEquals( monitor.pages, monitor.pageVisits );
+    }
+
+    private RelationshipChainOrderer orderer()
+    {
+        return new RelationshipChainOrderer( neoStores.getRelationshipStore() );
+    }
+
+    private void createRelationships( long startNode, long endNode, long[] ids )
+    {
+        DirectRecordAccessSet records = new DirectRecordAccessSet( neoStores );
+        RelationshipCreator creator = new RelationshipCreator(
+                new RelationshipGroupGetter( neoStores.getRelationshipGroupStore() ), DENSE_NODE_THRESHOLD );
+        for ( long id : ids )
+        {
+            creator.relationshipCreate( id, 0, startNode, endNode, records, new NoOpClient() );
+        }
+        records.close();
+    }
+
+    private DirectRecordAccessSet records()
+    {
+        return new DirectRecordAccessSet( neoStores );
+    }
+
+    private RelationshipGroupRecord group( long nodeId, int type )
+    {
+        DirectRecordAccessSet records = records();
+        NodeRecord nodeRecord = records.getNodeRecords().getOrLoad( nodeId, null ).forReadingLinkage();
+        long groupId = nodeRecord.getNextRel();
+        while ( groupId != Record.NO_NEXT_RELATIONSHIP.intValue() )
+        {
+            RelationshipGroupRecord group = records.getRelGroupRecords().getOrLoad( groupId, null ).forReadingData();
+            if ( group.getType() == type )
+            {
+                return group;
+            }
+            groupId = group.getNext();
+        }
+        throw new IllegalArgumentException( "Node " + nodeId + " has no relationships of type " + type );
+    }
+
+    private static long[] chain( long nodeId, long firstRelId, RecordAccessSet records )
+    {
+        long[] chain = PrimitiveLongCollections.EMPTY_LONG_ARRAY;
+        long relId = firstRelId;
+        while ( relId != Record.NO_NEXT_RELATIONSHIP.intValue() )
+        {
+            chain = Arrays.copyOf( chain, chain.length + 1 );
+            chain[chain.length - 1] = relId;
+            RelationshipRecord rel = records.getRelRecords().getOrLoad( relId, null ).forReadingLinkage();
+            relId = rel.getFirstNode() == nodeId ? rel.getFirstNextRel() : rel.getSecondNextRel();
+        }
+        return chain;
+    }
+
+    private static long[] sorted( long[] ids )
+    {
+        long[] sorted = ids.clone();
+        Arrays.sort( sorted );
+        return sorted;
+    }
+
+    private static class RecordingMonitor implements RelationshipChainOrdering.Monitor
+    {
+        private int orderedNodes;
+        private long pages;
+        private long pageVisits;
+
+        @Override
+        public void relationshipChainsOrdered( long nodeId )
+        {
+            orderedNodes++;
+        }
+
+        @Override
+        public void passCompleted( long chains, long pages, long pageVisits )
+        {
+            this.pages = pages;
+            this.pageVisits = pageVisits;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.diffsets;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpillingLongSetTest
+{
+    private final SpillingLongSet set = new SpillingLongSet( 4 );
+
+    @After
+    public void closeSet()
+    {
+        set.close();
+    }
+
+    @Test
+    public void shouldMoveIdsOffHeapWhenPassingThreshold() throws Exception
+    {
+        // WHEN
+        for ( long id = 0; id < 4; id++ )
+        {
+            set.add( id );
+        }
+        assertFalse( set.isOffHeap() );
+        set.add( 4L );
+
+        // THEN
+        assertTrue( set.isOffHeap() );
+        assertEquals( 5, set.size() );
+        for ( long id = 0; id < 5; id++ )
+        {
+            assertTrue( set.contains( id ) );
+        }
+        assertFalse( set.contains( 5L ) );
+        assertFalse( set.add( 2L ) );
+        assertTrue( set.remove( 2L ) );
+        assertFalse( set.contains( 2L ) );
+        assertEquals( asList( 0L, 1L, 3L, 4L ), sorted( set.iterator() ) );
+    }
+
+    @Test
+    public void shouldNotReturnIdsRemovedWhileIteratingOffHeap() throws Exception
+    {
+        // GIVEN
+        addIds( 0, 10 );
+        Iterator<Long> iterator = set.iterator();
+
+        // WHEN
+        set.remove( 3L );
+        set.remove( 7L );
+        set.add( 42L );
+
+        // THEN
+        assertEquals( asList( 0L, 1L, 2L, 4L, 5L, 6L, 8L, 9L ), sorted( iterator ) );
+    }
+
+    @Test
+    public void shouldKeepIteratingOverIdsThatWereMovedOffHeap() throws Exception
+    {
+        // GIVEN
+        addIds( 0, 3 );
+        Iterator<Long> iterator = set.iterator();
+
+        // WHEN
+        addIds( 3, 10 );
+        set.remove( 1L );
+
+        // THEN
+        assertTrue( set.isOffHeap() );
+        assertEquals( asList( 0L, 2L ), sorted( iterator ) );
+    }
+
+    @Test
+    public void shouldRemoveThroughIterator() throws Exception
+    {
+        // GIVEN
+        addIds( 0, 10 );
+
+        // WHEN
+        Iterator<Long> iterator = set.iterator();
+        while ( iterator.hasNext() )
+        {
+            if ( iterator.next() % 2 == 0 )
+            {
+                iterator.remove();
+            }
+        }
+
+        // THEN
+        assertEquals( asList( 1L, 3L, 5L, 7L, 9L ), sorted( set.iterator() ) );
+    }
+
+    @Test
+    public void shouldGoBackOnHeapWhenClosed() throws Exception
+    {
+        // GIVEN
+        addIds( 0, 10 );
+
+        // WHEN
+        set.close();
+
+        // THEN
+        assertFalse( set.isOffHeap() );
+        assertTrue( set.isEmpty() );
+    }
+
+    private void addIds( long from, long to )
+    {
+        for ( long id = from; id < to; id++ )
+        {
+            set.add( id );
+        }
+    }
+
+    private static List<Long> sorted( Iterator<Long> iterator )
+    {
+        List<Long> ids = new ArrayList<>();
+        while ( iterator.hasNext() )
+        {
+            ids.add( iterator.next() );
+        }
+        ids.sort( null );
+        return ids;
+    }
+}
@@ -48,6 +48,7 @@ public class MockedNeoStores
         // NodeStore - DynamicLabelStore
         NodeStore nodeStore = mock( NodeStore.class );
         when( nodeStore.newRecordCursor( any() ) ).thenReturn( cursor );
+        when( nodeStore.newSequentialRecordCursor( any() ) ).thenReturn( cursor );
         when( neoStores.getNodeStore() ).thenReturn( nodeStore );
 
         // NodeStore - DynamicLabelStore
@@ -58,6 +59,7 @@ public class MockedNeoStores
         // RelationshipStore
         RelationshipStore relationshipStore = mock( RelationshipStore.class );
         when( relationshipStore.newRecordCursor( any() ) ).thenReturn( cursor );
+        when( relationshipStore.newSequentialRecordCursor( any() ) ).thenReturn( cursor );
         when( neoStores.getRelationshipStore() ).thenReturn( relationshipStore );
 
         // RelationshipGroupStore
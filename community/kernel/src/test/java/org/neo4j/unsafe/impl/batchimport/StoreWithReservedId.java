@@ -73,6 +73,7 @@ public final class StoreWithReservedId
 
         RecordCursor<R> cursor = newReservedIdReturningRecordCursor( highId, record );
         when( store.newRecordCursor( any() ) ).thenReturn( cursor );
+        when( store.newSequentialRecordCursor( any() ) ).thenReturn( cursor );
 
         return store;
     }
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.impl.schema;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings.SchemaIndex;
+import org.neo4j.helpers.Service;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.impl.index.storage.DirectoryFactory;
+import org.neo4j.kernel.api.index.SchemaIndexProvider;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.extension.KernelExtensionFactory;
+import org.neo4j.kernel.impl.factory.GraphDatabaseFacadeFactory;
+import org.neo4j.kernel.impl.index.schema.NativeSchemaIndexProvider;
+import org.neo4j.kernel.impl.index.schema.fusion.FusionSchemaIndexProvider;
+import org.neo4j.kernel.impl.spi.KernelContext;
+
+import static org.neo4j.kernel.api.impl.index.LuceneKernelExtensions.directoryFactory;
+
+/**
+ * Provides schema indexes keeping numbers and short strings in native indexes and other values in Lucene indexes,
+ * see {@link FusionSchemaIndexProvider}. Takes precedence over the Lucene provider when selected by
+ * {@link GraphDatabaseSettings#default_schema_provider}.
+ */
+@Service.Implementation(KernelExtensionFactory.class)
+public class NativeLuceneFusionSchemaIndexProviderFactory extends
+        KernelExtensionFactory<NativeLuceneFusionSchemaIndexProviderFactory.Dependencies>
+{
+    public static final String KEY = LuceneSchemaIndexProviderFactory.KEY + "+" + NativeSchemaIndexProvider.KEY;
+
+    public static final SchemaIndexProvider.Descriptor PROVIDER_DESCRIPTOR =
+            new SchemaIndexProvider.Descriptor( KEY, "1.0" );
+
+    public interface Dependencies
+    {
+        Config getConfig();
+
+        PageCache pageCache();
+    }
+
+    public NativeLuceneFusionSchemaIndexProviderFactory()
+    {
+        super( KEY );
+    }
+
+    @Override
+    public FusionSchemaIndexProvider newInstance( KernelContext context, Dependencies dependencies ) throws Throwable
+    {
+        Config config = dependencies.getConfig();
+        boolean ephemeral = config.get( GraphDatabaseFacadeFactory.Configuration.ephemeral );
+
+        FileSystemAbstraction fileSystem = context.fileSystem();
+        DirectoryFactory directoryFactory = directoryFactory( ephemeral, fileSystem );
+
+        NativeSchemaIndexProvider nativeProvider =
+                new NativeSchemaIndexProvider( dependencies.pageCache(), fileSystem, context.storeDir() );
+        LuceneSchemaIndexProvider luceneProvider =
+                new LuceneSchemaIndexProvider( fileSystem, directoryFactory, context.storeDir() );
+        // Above the Lucene provider when selected, below it otherwise
+        int priority = config.get( GraphDatabaseSettings.default_schema_provider ) == SchemaIndex.LUCENE_NATIVE ? 2 : 0;
+        return new FusionSchemaIndexProvider( PROVIDER_DESCRIPTOR, priority, nativeProvider, luceneProvider );
+    }
+}
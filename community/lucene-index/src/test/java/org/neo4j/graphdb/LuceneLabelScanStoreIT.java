@@ -31,6 +31,7 @@ import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 
 import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings.LabelIndex;
 import org.neo4j.io.fs.FileUtils;
 import org.neo4j.kernel.NeoStoreDataSource;
 import org.neo4j.kernel.api.labelscan.LabelScanStore;
@@ -45,6 +46,11 @@ import static org.junit.Assert.assertEquals;
 
 public class LuceneLabelScanStoreIT extends LabelScanStoreIT
 {
+    @Override
+    protected LabelIndex labelIndex()
+    {
+        return LabelIndex.LUCENE;
+    }
 
     @Test
     public void scanStoreStartWithoutExistentIndex() throws IOException
@@ -22,6 +22,7 @@ package org.neo4j.com.storecopy;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.OpenOption;
+import java.util.List;
 import java.util.Map;
 
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -79,6 +80,12 @@ public class ExternallyManagedPageCache implements PageCache
         delegate.flushAndForce( limiter );
     }
 
+    @Override
+    public List<PagedFile> listExistingMappings() throws IOException
+    {
+        return delegate.listExistingMappings();
+    }
+
     @Override
     public int pageSize()
     {
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.storageengine.api.lock.ResourceType;
+
+/**
+ * Escalated locks of a single resource type. An escalated lock is an exclusive lock on a whole range of resource
+ * ids, taken by a client that holds too many exclusive locks of the type to keep tracking them one by one. The ranges
+ * are fixed, and are made up of the ids that share all but the lowest {@code rangeBits} bits.
+ * <p/>
+ * Clients that grab locks in the global lock map must check for escalated locks covering the resource, which is
+ * cheap as long as there are none, since the number of escalated locks is checked first.
+ */
+class EscalatedLocks
+{
+    private final int rangeBits;
+    private final ConcurrentMap<Long,ForsetiLockManager.Lock> locks = new ConcurrentHashMap<>();
+    private final AtomicInteger lockCount = new AtomicInteger();
+
+    EscalatedLocks( int rangeBits )
+    {
+        this.rangeBits = rangeBits;
+    }
+
+    long rangeOf( long resourceId )
+    {
+        return resourceId >> rangeBits;
+    }
+
+    /**
+     * @return the escalated lock covering the given resource, or {@code null} if there is none.
+     */
+    ForsetiLockManager.Lock lockCovering( long resourceId )
+    {
+        return lockCount.get() == 0 ? null : locks.get( rangeOf( resourceId ) );
+    }
+
+    /**
+     * Try to grab the escalated lock of the given range.
+     *
+     * @return {@code null} if the lock was grabbed, otherwise the lock currently held on the range.
+     */
+    ForsetiLockManager.Lock tryAcquire( long range, ExclusiveLock lock )
+    {
+        // Count the lock before publishing it, so that clients that see no escalated locks can trust that
+        lockCount.incrementAndGet();
+        ForsetiLockManager.Lock existingLock = locks.putIfAbsent( range, lock );
+        if ( existingLock != null )
+        {
+            lockCount.decrementAndGet();
+        }
+        return existingLock;
+    }
+
+    void release( long range )
+    {
+        locks.remove( range );
+        lockCount.decrementAndGet();
+    }
+
+    void accept( ResourceType resourceType, Locks.Visitor out )
+    {
+        for ( Map.Entry<Long,ForsetiLockManager.Lock> entry : locks.entrySet() )
+        {
+            ForsetiLockManager.Lock lock = entry.getValue();
+            out.visit( resourceType, entry.getKey() << rangeBits, "Escalated" + lock.describeWaitList(), 0,
+                    System.identityHashCode( lock ) );
+        }
+    }
+}
@@ -19,13 +19,17 @@
  */
 package org.neo4j.kernel.impl.enterprise.lock.forseti;
 
+import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.IntFunction;
 
 import org.neo4j.collection.pool.Pool;
 import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.collection.primitive.PrimitiveLongIntMap;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
 import org.neo4j.collection.primitive.PrimitiveLongVisitor;
 import org.neo4j.kernel.DeadlockDetectedException;
 import org.neo4j.kernel.impl.enterprise.lock.forseti.ForsetiLockManager.DeadlockResolutionStrategy;
@@ -54,12 +58,27 @@ import static java.lang.String.format;
  */
 public class ForsetiClient implements Locks.Client
 {
+    /** Number of shared locks a client can hold through the fast path at the same time. */
+    private static final int FAST_SHARED_LOCK_SLOTS = 8;
+
     /** Id for this client */
     private final int clientId;
 
     /** resourceType -> lock map. These are the global lock maps, shared across all clients. */
     private final ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps;
 
+    /** resourceType -> shared lock fast path state, or null if the fast path is disabled. */
+    private final SharedLockBias[] sharedLockBiases;
+
+    /** resourceType -> escalated locks, shared across all clients. */
+    private final EscalatedLocks[] escalatedLocks;
+
+    /**
+     * Number of exclusive locks of a single resource type this client may hold before it escalates to locking
+     * whole ranges of resources of that type, or 0 if locks are never escalated.
+     */
+    private final int escalationThreshold;
+
     /** resourceType -> wait strategy */
     private final WaitStrategy<AcquireLockTimeoutException>[] waitStrategies;
 
@@ -84,6 +103,22 @@ public class ForsetiClient implements Locks.Client
     /** @see {@link #sharedLockCounts} */
     private final PrimitiveLongIntMap[] exclusiveLockCounts;
 
+    /**
+     * Shared locks held through the fast path, see {@link SharedLockBias}. Each slot is a pair of longs, the first
+     * being a marker of the resource type, and the second being the resource id. The marker is 0 for a free slot,
+     * {@code typeId + 1} for a fast lock and {@code -(typeId + 1)} for a fast lock that a revoking client has moved
+     * into the global lock map on our behalf.
+     * <p/>
+     * Only this client publishes and releases fast locks, while revoking clients may inflate them concurrently.
+     */
+    private final AtomicLongArray fastSharedLocks = new AtomicLongArray( FAST_SHARED_LOCK_SLOTS * 2 );
+
+    /** resourceType -> ranges this client holds escalated locks on, or null if it holds none of that type. */
+    private final PrimitiveLongSet[] escalatedRanges;
+
+    /** resourceType -> whether this client is registered as a writer in the {@link SharedLockBias} of that type. */
+    private final boolean[] registeredWriters;
+
     /** List of other clients this client is waiting for. */
     private final SimpleBitSet waitList = new SimpleBitSet( 64 );
 
@@ -106,6 +141,9 @@ public class ForsetiClient implements Locks.Client
     public ForsetiClient( int id,
                           ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps,
                           WaitStrategy<AcquireLockTimeoutException>[] waitStrategies,
+                          SharedLockBias[] sharedLockBiases,
+                          EscalatedLocks[] escalatedLocks,
+                          int escalationThreshold,
                           Pool<ForsetiClient> clientPool,
                           DeadlockResolutionStrategy deadlockResolutionStrategy,
                           IntFunction<ForsetiClient> clientById )
@@ -113,11 +151,16 @@ public class ForsetiClient implements Locks.Client
         this.clientId = id;
         this.lockMaps = lockMaps;
         this.waitStrategies = waitStrategies;
+        this.sharedLockBiases = sharedLockBiases;
+        this.escalatedLocks = escalatedLocks;
+        this.escalationThreshold = escalationThreshold;
         this.deadlockResolutionStrategy = deadlockResolutionStrategy;
         this.clientPool = clientPool;
         this.clientById = clientById;
         this.sharedLockCounts = new PrimitiveLongIntMap[lockMaps.length];
         this.exclusiveLockCounts = new PrimitiveLongIntMap[lockMaps.length];
+        this.escalatedRanges = new PrimitiveLongSet[lockMaps.length];
+        this.registeredWriters = new boolean[lockMaps.length];
 
         for ( int i = 0; i < sharedLockCounts.length; i++ )
         {
@@ -168,74 +211,103 @@ public class ForsetiClient implements Locks.Client
                 return;
             }
 
-            // We don't hold the lock, so we need to grab it via the global lock map
-            int tries = 0;
-            SharedLock mySharedLock = null;
+            // Third, check if we hold an escalated lock covering it, which we then hold until we release all locks
+            if ( holdsEscalatedLockCovering( resourceType.typeId(), resourceId ) )
+            {
+                return;
+            }
 
-            // Retry loop
             while ( true )
             {
-                assertNotStopped();
-
-                // Check if there is a lock for this entity in the map
-                ForsetiLockManager.Lock existingLock = lockMap.get( resourceId );
+                awaitEscalatedLocksOfOtherClients( resourceType, resourceId );
+                acquireSharedLock( resourceType, lockMap, resourceId );
 
-                // No lock
-                if ( existingLock == null )
+                // Make sure no other client escalated a lock covering this one while we were acquiring it
+                if ( escalatedLockOfOtherClientCovering( resourceType.typeId(), resourceId ) == null )
                 {
-                    // Try to create a new shared lock
-                    if ( mySharedLock == null )
-                    {
-                        mySharedLock = new SharedLock( this );
-                    }
-
-                    if ( lockMap.putIfAbsent( resourceId, mySharedLock ) == null )
-                    {
-                        // Success, we now hold the shared lock.
-                        break;
-                    }
-                    else
-                    {
-                        continue;
-                    }
+                    break;
                 }
+                releaseSharedLock( resourceType.typeId(), lockMap, resourceId );
+            }
+
+            // Make a local note about the fact that we now hold this lock
+            heldShareLocks.put( resourceId, 1 );
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
 
-                // Someone holds shared lock on this entity, try and get in on that action
-                else if ( existingLock instanceof SharedLock )
+    private void acquireSharedLock( ResourceType resourceType, ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap,
+            long resourceId ) throws AcquireLockTimeoutException
+    {
+        // See if we can get away with a fast lock, that other clients only see if they try to write
+        if ( tryAcquireFastSharedLock( resourceType.typeId(), resourceId ) )
+        {
+            return;
+        }
+
+        // We don't hold the lock, so we need to grab it via the global lock map
+        int tries = 0;
+        SharedLock mySharedLock = null;
+
+        // Retry loop
+        while ( true )
+        {
+            assertNotStopped();
+
+            // Check if there is a lock for this entity in the map
+            ForsetiLockManager.Lock existingLock = lockMap.get( resourceId );
+
+            // No lock
+            if ( existingLock == null )
+            {
+                // Try to create a new shared lock
+                if ( mySharedLock == null )
                 {
-                    if ( ((SharedLock) existingLock).acquire( this ) )
-                    {
-                        // Success!
-                        break;
-                    }
+                    mySharedLock = new SharedLock( this );
                 }
 
-                // Someone holds an exclusive lock on this entity
-                else if ( existingLock instanceof ExclusiveLock )
+                if ( lockMap.putIfAbsent( resourceId, mySharedLock ) == null )
                 {
-                    // We need to wait, just let the loop run.
+                    // Success, we now hold the shared lock.
+                    break;
                 }
                 else
                 {
-                    throw new UnsupportedOperationException( "Unknown lock type: " + existingLock );
+                    continue;
                 }
+            }
 
-                applyWaitStrategy( resourceType, tries++ );
+            // Someone holds shared lock on this entity, try and get in on that action
+            else if ( existingLock instanceof SharedLock )
+            {
+                if ( ((SharedLock) existingLock).acquire( this ) )
+                {
+                    // Success!
+                    break;
+                }
+            }
 
-                // And take note of who we are waiting for. This is used for deadlock detection.
-                markAsWaitingFor( existingLock, resourceType, resourceId );
+            // Someone holds an exclusive lock on this entity
+            else if ( existingLock instanceof ExclusiveLock )
+            {
+                // We need to wait, just let the loop run.
+            }
+            else
+            {
+                throw new UnsupportedOperationException( "Unknown lock type: " + existingLock );
             }
 
-            // Got the lock, no longer waiting for anyone.
-            clearWaitList();
+            applyWaitStrategy( resourceType, tries++ );
 
-            // Make a local note about the fact that we now hold this lock
-            heldShareLocks.put( resourceId, 1 );
-        }
-        finally
-        {
-            stateHolder.decrementActiveClients();
+            // And take note of who we are waiting for. This is used for deadlock detection.
+            markAsWaitingFor( existingLock, resourceType, resourceId );
         }
+
+        // Got the lock, no longer waiting for anyone.
+        clearWaitList();
     }
 
     @Override
@@ -257,31 +329,34 @@ public class ForsetiClient implements Locks.Client
                 return;
             }
 
-            // Grab the global lock
-            ForsetiLockManager.Lock existingLock;
-            int tries = 0;
-            while ( (existingLock = lockMap.putIfAbsent( resourceId, myExclusiveLock )) != null )
+            if ( holdsEscalatedLockCovering( resourceType.typeId(), resourceId ) )
             {
-                assertNotStopped();
+                return;
+            }
 
-                // If this is a shared lock:
-                // Given a grace period of tries (to try and not starve readers), grab an update lock and wait for it
-                // to convert to an exclusive lock.
-                if ( tries > 50 && existingLock instanceof SharedLock )
+            // Make sure no shared locks of this type are hidden from us in fast lock slots
+            registerAsWriter( resourceType.typeId() );
+
+            // Past the escalation threshold, lock the whole range of resources instead of this one
+            if ( escalationThreshold > 0 && heldLocks.size() >= escalationThreshold )
+            {
+                acquireEscalatedLock( resourceType, resourceId );
+                return;
+            }
+
+            while ( true )
+            {
+                awaitEscalatedLocksOfOtherClients( resourceType, resourceId );
+                acquireExclusiveLock( resourceType, lockMap, resourceId );
+
+                // Make sure no other client escalated a lock covering this one while we were acquiring it
+                if ( escalatedLockOfOtherClientCovering( resourceType.typeId(), resourceId ) == null )
                 {
-                    // Then we should upgrade that lock
-                    SharedLock sharedLock = (SharedLock) existingLock;
-                    if ( tryUpgradeSharedToExclusive( resourceType, lockMap, resourceId, sharedLock ) )
-                    {
-                        break;
-                    }
+                    break;
                 }
-
-                applyWaitStrategy( resourceType, tries++ );
-                markAsWaitingFor( existingLock, resourceType, resourceId );
+                releaseExclusiveLock( resourceType.typeId(), resourceId );
             }
 
-            clearWaitList();
             heldLocks.put( resourceId, 1 );
         }
         finally
@@ -290,6 +365,36 @@ public class ForsetiClient implements Locks.Client
         }
     }
 
+    private void acquireExclusiveLock( ResourceType resourceType, ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap,
+            long resourceId ) throws AcquireLockTimeoutException
+    {
+        // Grab the global lock
+        ForsetiLockManager.Lock existingLock;
+        int tries = 0;
+        while ( (existingLock = lockMap.putIfAbsent( resourceId, myExclusiveLock )) != null )
+        {
+            assertNotStopped();
+
+            // If this is a shared lock:
+            // Given a grace period of tries (to try and not starve readers), grab an update lock and wait for it
+            // to convert to an exclusive lock.
+            if ( tries > 50 && existingLock instanceof SharedLock )
+            {
+                // Then we should upgrade that lock
+                SharedLock sharedLock = (SharedLock) existingLock;
+                if ( tryUpgradeSharedToExclusive( resourceType, lockMap, resourceId, sharedLock ) )
+                {
+                    break;
+                }
+            }
+
+            applyWaitStrategy( resourceType, tries++ );
+            markAsWaitingFor( existingLock, resourceType, resourceId );
+        }
+
+        clearWaitList();
+    }
+
     @Override
     public boolean tryExclusiveLock( ResourceType resourceType, long resourceId )
     {
@@ -298,7 +403,6 @@ public class ForsetiClient implements Locks.Client
 
         try
         {
-            ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap = lockMaps[resourceType.typeId()];
             PrimitiveLongIntMap heldLocks = exclusiveLockCounts[resourceType.typeId()];
 
             int heldCount = heldLocks.get( resourceId );
@@ -309,27 +413,24 @@ public class ForsetiClient implements Locks.Client
                 return true;
             }
 
-            // Grab the global lock
-            ForsetiLockManager.Lock lock;
-            if ( (lock = lockMap.putIfAbsent( resourceId, myExclusiveLock )) != null )
+            if ( holdsEscalatedLockCovering( resourceType.typeId(), resourceId ) )
             {
-                if ( lock instanceof SharedLock && sharedLockCounts[resourceType.typeId()].containsKey( resourceId ) )
-                {
-                    SharedLock sharedLock = (SharedLock) lock;
-                    if ( sharedLock.tryAcquireUpdateLock( this ) )
-                    {
-                        if ( sharedLock.numberOfHolders() == 1 )
-                        {
-                            heldLocks.put( resourceId, 1 );
-                            return true;
-                        }
-                        else
-                        {
-                            sharedLock.releaseUpdateLock( this );
-                            return false;
-                        }
-                    }
-                }
+                return true;
+            }
+
+            // Make sure no shared locks of this type are hidden from us in fast lock slots
+            registerAsWriter( resourceType.typeId() );
+
+            if ( escalatedLockOfOtherClientCovering( resourceType.typeId(), resourceId ) != null ||
+                 !tryExclusiveLock( resourceType.typeId(), resourceId ) )
+            {
+                return false;
+            }
+
+            // Make sure no other client escalated a lock covering this one while we were acquiring it
+            if ( escalatedLockOfOtherClientCovering( resourceType.typeId(), resourceId ) != null )
+            {
+                releaseExclusiveLock( resourceType.typeId(), resourceId );
                 return false;
             }
 
@@ -342,6 +443,33 @@ public class ForsetiClient implements Locks.Client
         }
     }
 
+    private boolean tryExclusiveLock( int typeId, long resourceId )
+    {
+        // Grab the global lock
+        ForsetiLockManager.Lock lock;
+        if ( (lock = lockMaps[typeId].putIfAbsent( resourceId, myExclusiveLock )) != null )
+        {
+            if ( lock instanceof SharedLock && sharedLockCounts[typeId].containsKey( resourceId ) )
+            {
+                SharedLock sharedLock = (SharedLock) lock;
+                if ( sharedLock.tryAcquireUpdateLock( this ) )
+                {
+                    if ( sharedLock.numberOfHolders() == 1 )
+                    {
+                        return true;
+                    }
+                    else
+                    {
+                        sharedLock.releaseUpdateLock( this );
+                        return false;
+                    }
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
     @Override
     public boolean trySharedLock( ResourceType resourceType, long resourceId )
     {
@@ -370,50 +498,77 @@ public class ForsetiClient implements Locks.Client
                 return true;
             }
 
-            while ( true )
+            if ( holdsEscalatedLockCovering( resourceType.typeId(), resourceId ) )
             {
-                assertNotStopped();
+                return true;
+            }
 
-                ForsetiLockManager.Lock existingLock = lockMap.get( resourceId );
-                if ( existingLock == null )
+            if ( escalatedLockOfOtherClientCovering( resourceType.typeId(), resourceId ) != null ||
+                 !trySharedLock( resourceType.typeId(), lockMap, resourceId ) )
+            {
+                return false;
+            }
+
+            // Make sure no other client escalated a lock covering this one while we were acquiring it
+            if ( escalatedLockOfOtherClientCovering( resourceType.typeId(), resourceId ) != null )
+            {
+                releaseSharedLock( resourceType.typeId(), lockMap, resourceId );
+                return false;
+            }
+
+            heldShareLocks.put( resourceId, 1 );
+            return true;
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    private boolean trySharedLock( int typeId, ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap, long resourceId )
+    {
+        if ( tryAcquireFastSharedLock( typeId, resourceId ) )
+        {
+            return true;
+        }
+
+        while ( true )
+        {
+            assertNotStopped();
+
+            ForsetiLockManager.Lock existingLock = lockMap.get( resourceId );
+            if ( existingLock == null )
+            {
+                // Try to create a new shared lock
+                if ( lockMap.putIfAbsent( resourceId, new SharedLock( this ) ) == null )
                 {
-                    // Try to create a new shared lock
-                    if ( lockMap.putIfAbsent( resourceId, new SharedLock( this ) ) == null )
-                    {
-                        // Success!
-                        break;
-                    }
+                    // Success!
+                    return true;
                 }
-                else if ( existingLock instanceof SharedLock )
+            }
+            else if ( existingLock instanceof SharedLock )
+            {
+                // Note that there is a "safe" race here where someone may be releasing the last reference to a lock
+                // and thus removing that lock instance (making it unacquirable). In this case, we allow retrying,
+                // even though this is a try-lock call.
+                if ( ((SharedLock) existingLock).acquire( this ) )
                 {
-                    // Note that there is a "safe" race here where someone may be releasing the last reference to a lock
-                    // and thus removing that lock instance (making it unacquirable). In this case, we allow retrying,
-                    // even though this is a try-lock call.
-                    if ( ((SharedLock) existingLock).acquire( this ) )
-                    {
-                        // Success!
-                        break;
-                    }
-                    else if ( ((SharedLock) existingLock).isUpdateLock() )
-                    {
-                        return false;
-                    }
+                    // Success!
+                    return true;
                 }
-                else if ( existingLock instanceof ExclusiveLock )
+                else if ( ((SharedLock) existingLock).isUpdateLock() )
                 {
                     return false;
                 }
-                else
-                {
-                    throw new UnsupportedOperationException( "Unknown lock type: " + existingLock );
-                }
             }
-            heldShareLocks.put( resourceId, 1 );
-            return true;
-        }
-        finally
-        {
-            stateHolder.decrementActiveClients();
+            else if ( existingLock instanceof ExclusiveLock )
+            {
+                return false;
+            }
+            else
+            {
+                throw new UnsupportedOperationException( "Unknown lock type: " + existingLock );
+            }
         }
     }
 
@@ -432,7 +587,7 @@ public class ForsetiClient implements Locks.Client
             // Only release if we were not holding an exclusive lock as well
             if ( !exclusiveLockCounts[resourceType.typeId()].containsKey( resourceId ) )
             {
-                releaseGlobalLock( lockMaps[resourceType.typeId()], resourceId );
+                releaseSharedLock( resourceType.typeId(), lockMaps[resourceType.typeId()], resourceId );
             }
         }
         finally
@@ -441,6 +596,15 @@ public class ForsetiClient implements Locks.Client
         }
     }
 
+    /** Release a shared lock that we hold, either as a fast lock or in the global lock map. */
+    private void releaseSharedLock( int typeId, ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap, long resourceId )
+    {
+        if ( !releaseFastSharedLock( typeId, resourceId ) )
+        {
+            releaseGlobalLock( lockMap, resourceId );
+        }
+    }
+
     @Override
     public void releaseExclusive( ResourceType resourceType, long resourceId )
     {
@@ -453,40 +617,46 @@ public class ForsetiClient implements Locks.Client
                 return;
             }
 
-            ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap = lockMaps[resourceType.typeId()];
-            if ( sharedLockCounts[resourceType.typeId()].containsKey( resourceId ) )
+            releaseExclusiveLock( resourceType.typeId(), resourceId );
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    /** Release an exclusive lock that we hold in the global lock map, downgrading it if we also hold it shared. */
+    private void releaseExclusiveLock( int typeId, long resourceId )
+    {
+        ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap = lockMaps[typeId];
+        if ( sharedLockCounts[typeId].containsKey( resourceId ) )
+        {
+            // We are still holding a shared lock, so we will release it to be reused
+            ForsetiLockManager.Lock lock = lockMap.get( resourceId );
+            if ( lock instanceof SharedLock )
             {
-                // We are still holding a shared lock, so we will release it to be reused
-                ForsetiLockManager.Lock lock = lockMap.get( resourceId );
-                if ( lock instanceof SharedLock )
+                SharedLock sharedLock = (SharedLock) lock;
+                if ( sharedLock.isUpdateLock() )
                 {
-                    SharedLock sharedLock = (SharedLock) lock;
-                    if ( sharedLock.isUpdateLock() )
-                    {
-                        sharedLock.releaseUpdateLock( this );
-                    }
-                    else
-                    {
-                        throw new IllegalStateException( "Incorrect state of exclusive lock. Lock should be updated " +
-                                                         "to exclusive before attempt to release it. Lock: " + this );
-                    }
+                    sharedLock.releaseUpdateLock( this );
                 }
                 else
                 {
-                    // in case if current lock is exclusive we swap it to new shared lock
-                    SharedLock sharedLock = new SharedLock( this );
-                    lockMap.put( resourceId, sharedLock );
+                    throw new IllegalStateException( "Incorrect state of exclusive lock. Lock should be updated " +
+                                                     "to exclusive before attempt to release it. Lock: " + this );
                 }
             }
             else
             {
-                // we do not hold shared lock so we just releasing it
-                releaseGlobalLock( lockMap, resourceId );
+                // in case if current lock is exclusive we swap it to new shared lock
+                SharedLock sharedLock = new SharedLock( this );
+                lockMap.put( resourceId, sharedLock );
             }
         }
-        finally
+        else
         {
-            stateHolder.decrementActiveClients();
+            // we do not hold shared lock so we just releasing it
+            releaseGlobalLock( lockMap, resourceId );
         }
     }
 
@@ -526,7 +696,7 @@ public class ForsetiClient implements Locks.Client
             if ( sharedLocks != null )
             {
                 int size = sharedLocks.size();
-                sharedLocks.visitKeys( releaseSharedDontCheckExclusiveVisitor.initialize( lockMaps[i] ) );
+                sharedLocks.visitKeys( releaseSharedDontCheckExclusiveVisitor.initialize( i, lockMaps[i] ) );
                 if ( size <= 32 )
                 {
                     // If the map is small, its fast and nice to GC to clear it. However, if its large, it is
@@ -542,6 +712,34 @@ public class ForsetiClient implements Locks.Client
                     sharedLockCounts[i] = Primitive.longIntMap();
                 }
             }
+
+            // Escalated locks go last, since they cover locks that other clients may be waiting to grab in the
+            // global lock maps, only to find they must wait for the escalated lock as well.
+            PrimitiveLongSet ranges = escalatedRanges[i];
+            if ( ranges != null )
+            {
+                for ( PrimitiveLongIterator iterator = ranges.iterator(); iterator.hasNext(); )
+                {
+                    escalatedLocks[i].release( iterator.next() );
+                }
+                escalatedRanges[i] = null;
+            }
+
+            if ( registeredWriters[i] )
+            {
+                sharedLockBiases[i].unregisterWriter();
+                registeredWriters[i] = false;
+            }
+        }
+
+        // Shared locks that we also held exclusively were dropped without being released, clear any fast lock slots
+        // that still refer to them. They have all been inflated when we registered as writers.
+        for ( int slot = 0; slot < FAST_SHARED_LOCK_SLOTS; slot++ )
+        {
+            if ( fastSharedLocks.get( slot * 2 ) != 0 )
+            {
+                fastSharedLocks.set( slot * 2, 0 );
+            }
         }
     }
 
@@ -648,12 +846,279 @@ public class ForsetiClient implements Locks.Client
         }
     }
 
+    /**
+     * Try to take a shared lock without involving the global lock map, which is possible as long as the resource type
+     * is biased towards shared locks. See {@link SharedLockBias}.
+     *
+     * @return {@code true} if we now hold the shared lock, either as a fast lock or, if the bias was revoked while we
+     * published it, inflated into the global lock map.
+     */
+    private boolean tryAcquireFastSharedLock( int typeId, long resourceId )
+    {
+        SharedLockBias bias = sharedLockBiases[typeId];
+        if ( bias == null || !bias.tryBias() )
+        {
+            return false;
+        }
+
+        int slot = 0;
+        while ( fastSharedLocks.get( slot * 2 ) != 0 )
+        {
+            if ( ++slot == FAST_SHARED_LOCK_SLOTS )
+            {
+                return false;
+            }
+        }
+
+        long marker = typeId + 1;
+        fastSharedLocks.set( slot * 2 + 1, resourceId );
+        fastSharedLocks.set( slot * 2, marker );
+        if ( bias.isBiased() )
+        {
+            return true;
+        }
+
+        // The bias is being revoked. Take our lock back, unless the revoking client already moved it into the lock map
+        if ( fastSharedLocks.compareAndSet( slot * 2, marker, 0 ) )
+        {
+            return false;
+        }
+        fastSharedLocks.set( slot * 2, 0 );
+        return true;
+    }
+
+    /**
+     * Release a shared lock held through the fast path.
+     *
+     * @return {@code true} if the lock was released, {@code false} if it wasn't a fast lock, or if it has been
+     * inflated and so needs to be released from the global lock map.
+     */
+    private boolean releaseFastSharedLock( int typeId, long resourceId )
+    {
+        long marker = typeId + 1;
+        for ( int slot = 0; slot < FAST_SHARED_LOCK_SLOTS; slot++ )
+        {
+            long slotMarker = fastSharedLocks.get( slot * 2 );
+            if ( (slotMarker == marker || slotMarker == -marker) && fastSharedLocks.get( slot * 2 + 1 ) == resourceId )
+            {
+                if ( slotMarker == marker && fastSharedLocks.compareAndSet( slot * 2, marker, 0 ) )
+                {
+                    return true;
+                }
+                fastSharedLocks.set( slot * 2, 0 );
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Move the fast shared locks of the given type that this client holds into the global lock map. Called by the
+     * client revoking the bias of the type, which may be another client than this one.
+     */
+    void inflateFastSharedLocks( int typeId, ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap )
+    {
+        long marker = typeId + 1;
+        for ( int slot = 0; slot < FAST_SHARED_LOCK_SLOTS; slot++ )
+        {
+            if ( fastSharedLocks.get( slot * 2 ) != marker )
+            {
+                continue;
+            }
+
+            long resourceId = fastSharedLocks.get( slot * 2 + 1 );
+            if ( inflateFastSharedLock( slot, marker, resourceId, lockMap ) &&
+                 !fastSharedLocks.compareAndSet( slot * 2, marker, -marker ) )
+            {
+                // We raced with this client giving the fast lock up, so it doesn't hold the lock after all
+                releaseGlobalLock( lockMap, resourceId );
+            }
+        }
+    }
+
+    private boolean inflateFastSharedLock( int slot, long marker, long resourceId,
+                                           ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap )
+    {
+        SharedLock sharedLock = null;
+        while ( fastSharedLocks.get( slot * 2 ) == marker )
+        {
+            ForsetiLockManager.Lock existingLock = lockMap.get( resourceId );
+            if ( existingLock == null )
+            {
+                if ( sharedLock == null )
+                {
+                    sharedLock = new SharedLock( this );
+                }
+                if ( lockMap.putIfAbsent( resourceId, sharedLock ) == null )
+                {
+                    return true;
+                }
+            }
+            else if ( existingLock instanceof SharedLock && ((SharedLock) existingLock).acquire( this ) )
+            {
+                return true;
+            }
+            // There can be no exclusive locks of a type while it's biased, so this is a shared lock that is either
+            // being removed from the map, or that this client is already a holder of after giving the fast lock up.
+        }
+        return false;
+    }
+
+    private boolean holdsEscalatedLockCovering( int typeId, long resourceId )
+    {
+        PrimitiveLongSet ranges = escalatedRanges[typeId];
+        return ranges != null && ranges.contains( escalatedLocks[typeId].rangeOf( resourceId ) );
+    }
+
+    /**
+     * @return the escalated lock covering the given resource if another client holds it, otherwise {@code null}.
+     */
+    private ForsetiLockManager.Lock escalatedLockOfOtherClientCovering( int typeId, long resourceId )
+    {
+        EscalatedLocks locks = escalatedLocks[typeId];
+        return locks == null ? null : locks.lockCovering( resourceId );
+    }
+
+    private void awaitEscalatedLocksOfOtherClients( ResourceType resourceType, long resourceId )
+    {
+        ForsetiLockManager.Lock escalatedLock;
+        int tries = 0;
+        while ( (escalatedLock = escalatedLockOfOtherClientCovering( resourceType.typeId(), resourceId )) != null )
+        {
+            assertNotStopped();
+            applyWaitStrategy( resourceType, tries++ );
+            markAsWaitingFor( escalatedLock, resourceType, resourceId );
+        }
+        if ( tries > 0 )
+        {
+            clearWaitList();
+        }
+    }
+
+    /**
+     * Grab an exclusive lock on the whole range of resources that the given resource belongs to. Once we hold the
+     * escalated lock, we wait for other clients to release the locks they hold within the range, and then drop our own
+     * exclusive locks within it, since the escalated lock covers them.
+     * <p/>
+     * Other clients check for escalated locks after grabbing a lock in the global lock map, and back off if they find
+     * one, while we check the global lock map for locks of other clients after grabbing the escalated lock. That way,
+     * either they see our escalated lock, or we see their lock.
+     */
+    private void acquireEscalatedLock( ResourceType resourceType, long resourceId )
+    {
+        int typeId = resourceType.typeId();
+        EscalatedLocks locks = escalatedLocks[typeId];
+        long range = locks.rangeOf( resourceId );
+
+        ForsetiLockManager.Lock existingLock;
+        int tries = 0;
+        while ( (existingLock = locks.tryAcquire( range, myExclusiveLock )) != null )
+        {
+            assertNotStopped();
+            applyWaitStrategy( resourceType, tries++ );
+            markAsWaitingFor( existingLock, resourceType, resourceId );
+        }
+
+        try
+        {
+            while ( (existingLock = lockOfOtherClientWithin( typeId, range )) != null )
+            {
+                assertNotStopped();
+                applyWaitStrategy( resourceType, tries++ );
+                markAsWaitingFor( existingLock, resourceType, resourceId );
+            }
+        }
+        catch ( Throwable e )
+        {
+            locks.release( range );
+            throw e;
+        }
+        clearWaitList();
+
+        if ( escalatedRanges[typeId] == null )
+        {
+            escalatedRanges[typeId] = Primitive.longSet();
+        }
+        escalatedRanges[typeId].add( range );
+
+        // Drop our own exclusive locks within the range, unless we also hold them shared, in which case they follow
+        // the usual down-grade protocol on release
+        PrimitiveLongIntMap heldLocks = exclusiveLockCounts[typeId];
+        PrimitiveLongIntMap heldShareLocks = sharedLockCounts[typeId];
+        PrimitiveLongSet covered = Primitive.longSet();
+        heldLocks.visitKeys( heldResourceId ->
+        {
+            if ( locks.rangeOf( heldResourceId ) == range && !heldShareLocks.containsKey( heldResourceId ) )
+            {
+                covered.add( heldResourceId );
+            }
+            return false;
+        } );
+        for ( PrimitiveLongIterator iterator = covered.iterator(); iterator.hasNext(); )
+        {
+            long coveredResourceId = iterator.next();
+            heldLocks.remove( coveredResourceId );
+            releaseGlobalLock( lockMaps[typeId], coveredResourceId );
+        }
+    }
+
+    /**
+     * Scan the global lock map for a lock held by another client within the given range. This is linear in the
+     * number of locks of the resource type, but only happens once per escalated range.
+     */
+    private ForsetiLockManager.Lock lockOfOtherClientWithin( int typeId, long range )
+    {
+        EscalatedLocks locks = escalatedLocks[typeId];
+        PrimitiveLongIntMap heldShareLocks = sharedLockCounts[typeId];
+        for ( Map.Entry<Long,ForsetiLockManager.Lock> entry : lockMaps[typeId].entrySet() )
+        {
+            long lockedResourceId = entry.getKey();
+            if ( locks.rangeOf( lockedResourceId ) != range )
+            {
+                continue;
+            }
+            ForsetiLockManager.Lock lock = entry.getValue();
+            if ( lock instanceof ExclusiveLock )
+            {
+                if ( lock != myExclusiveLock )
+                {
+                    return lock;
+                }
+            }
+            else if ( lock instanceof SharedLock )
+            {
+                // We may hold it ourselves, either shared or as an upgraded exclusive lock
+                int ourHolds = heldShareLocks.containsKey( lockedResourceId ) ||
+                               exclusiveLockCounts[typeId].containsKey( lockedResourceId ) ? 1 : 0;
+                if ( ((SharedLock) lock).numberOfHolders() > ourHolds )
+                {
+                    return lock;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void registerAsWriter( int typeId )
+    {
+        if ( !registeredWriters[typeId] && sharedLockBiases[typeId] != null )
+        {
+            sharedLockBiases[typeId].registerWriter();
+            registeredWriters[typeId] = true;
+        }
+    }
+
     /** Release a lock locally, and return true if we still hold more references to that lock. */
     private boolean releaseLocalLock( ResourceType type, long resourceId, PrimitiveLongIntMap localLocks )
     {
         int lockCount = localLocks.remove( resourceId );
         if ( lockCount == -1 )
         {
+            if ( holdsEscalatedLockCovering( type.typeId(), resourceId ) )
+            {
+                // Locks covered by escalated locks are held until all locks are released
+                return true;
+            }
             throw new IllegalStateException( this + " cannot release lock that it does not hold: " +
                                              type + "[" + resourceId + "]." );
         }
@@ -805,6 +1270,10 @@ public class ForsetiClient implements Locks.Client
         {
             count += exclusiveLockCount.size();
         }
+        for ( PrimitiveLongSet ranges : escalatedRanges )
+        {
+            count += ranges == null ? 0 : ranges.size();
+        }
         return count;
     }
 
@@ -856,10 +1325,13 @@ public class ForsetiClient implements Locks.Client
      */
     private class ReleaseSharedDontCheckExclusiveVisitor implements PrimitiveLongVisitor<RuntimeException>
     {
+        private int typeId;
         private ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap;
 
-        private PrimitiveLongVisitor<RuntimeException> initialize( ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap )
+        private PrimitiveLongVisitor<RuntimeException> initialize( int typeId,
+                                                                   ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap )
         {
+            this.typeId = typeId;
             this.lockMap = lockMap;
             return this;
         }
@@ -867,7 +1339,10 @@ public class ForsetiClient implements Locks.Client
         @Override
         public boolean visited( long resourceId )
         {
-            releaseGlobalLock( lockMap, resourceId );
+            if ( !releaseFastSharedLock( typeId, resourceId ) )
+            {
+                releaseGlobalLock( lockMap, resourceId );
+            }
             return false;
         }
     }
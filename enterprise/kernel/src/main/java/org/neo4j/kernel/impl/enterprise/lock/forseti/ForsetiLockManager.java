@@ -28,11 +28,14 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.neo4j.collection.pool.LinkedQueuePool;
 import org.neo4j.collection.pool.Pool;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.util.collection.SimpleBitSet;
 import org.neo4j.storageengine.api.lock.AcquireLockTimeoutException;
 import org.neo4j.storageengine.api.lock.ResourceType;
 import org.neo4j.storageengine.api.lock.WaitStrategy;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
 
 /**
  * <h1>Forseti, the Nordic god of justice</h1>
@@ -85,6 +88,20 @@ import org.neo4j.storageengine.api.lock.WaitStrategy;
  * As it performs this union, B will find itself in A's waiting list, and when it does, it has detected a deadlock.
  * <p/>
  * <p/>
+ * <h2>Shared lock fast path</h2>
+ * <p/>
+ * Shared locks are often taken by many clients on the same few resources, while nobody asks for exclusive locks on
+ * them. Putting each such client in the holder list of the lock is contended, so as long as no client takes exclusive
+ * locks of a resource type, clients keep their shared locks of that type to themselves instead. Once a client wants
+ * an exclusive lock of the type, it first moves all of those locks into the lock map, so that they are visible to it
+ * and to deadlock detection. See {@link SharedLockBias} for how that works.
+ * <p/>
+ * <h2>Lock escalation</h2>
+ * <p/>
+ * A client that holds a large number of exclusive locks of one resource type, as bulk updating transactions do, can be
+ * configured to escalate to locking whole ranges of resource ids instead of single resources, so that the memory
+ * used for its locks stays bounded. See {@link EscalatedLocks}.
+ * <p/>
  * <h2>Future work</h2>
  * <p/>
  * We have at least one type of lock (SchemaLock) that can be held concurrently by several hundred transactions. It may
@@ -96,6 +113,13 @@ import org.neo4j.storageengine.api.lock.WaitStrategy;
  */
 public class ForsetiLockManager implements Locks
 {
+    private static final boolean BIASED_SHARED_LOCKS =
+            FeatureToggles.flag( ForsetiLockManager.class, "biasedSharedLocks", true );
+
+    /** Escalated locks cover ranges of 2^bits resource ids. */
+    private static final int ESCALATED_LOCK_RANGE_BITS =
+            FeatureToggles.getInteger( ForsetiLockManager.class, "escalatedLockRangeBits", 14 );
+
     /** This is Forsetis internal lock API, which it uses to do deadlock detection. */
     interface Lock
     {
@@ -164,6 +188,12 @@ public class ForsetiLockManager implements Locks
     /** Pointers to lock maps, one array per resource type. */
     private final ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps;
 
+    /** Shared lock fast path state, one per resource type, or null if the fast path is disabled. */
+    private final SharedLockBias[] sharedLockBiases;
+
+    /** Escalated locks, one per resource type. */
+    private final EscalatedLocks[] escalatedLocks;
+
     /** Reverse lookup resource types by id, used for introspection */
     private final ResourceType[] resourceTypes;
 
@@ -172,12 +202,30 @@ public class ForsetiLockManager implements Locks
 
     private volatile boolean closed;
 
-    @SuppressWarnings( "unchecked" )
     public ForsetiLockManager( ResourceType... resourceTypes )
+    {
+        this( BIASED_SHARED_LOCKS, 0, resourceTypes );
+    }
+
+    public ForsetiLockManager( Config config, ResourceType... resourceTypes )
+    {
+        this( BIASED_SHARED_LOCKS, config.get( GraphDatabaseSettings.lock_escalation_threshold ), resourceTypes );
+    }
+
+    ForsetiLockManager( boolean biasedSharedLocks, ResourceType... resourceTypes )
+    {
+        this( biasedSharedLocks, 0, resourceTypes );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    ForsetiLockManager( boolean biasedSharedLocks, int escalationThreshold, ResourceType... resourceTypes )
     {
         int maxResourceId = findMaxResourceId( resourceTypes );
         this.lockMaps = new ConcurrentMap[maxResourceId];
+        this.sharedLockBiases = new SharedLockBias[maxResourceId];
+        this.escalatedLocks = new EscalatedLocks[maxResourceId];
         this.resourceTypes = new ResourceType[maxResourceId];
+        ConcurrentMap<Integer,ForsetiClient> clientsById = new ConcurrentHashMap<>();
 
         /* Wait strategies per resource type */
         WaitStrategy<AcquireLockTimeoutException>[] waitStrategies = new WaitStrategy[maxResourceId];
@@ -187,13 +235,20 @@ public class ForsetiLockManager implements Locks
             this.lockMaps[type.typeId()] = new ConcurrentHashMap<>( 16, 0.6f, 512 );
             waitStrategies[type.typeId()] = type.waitStrategy();
             this.resourceTypes[type.typeId()] = type;
+            this.escalatedLocks[type.typeId()] = new EscalatedLocks( ESCALATED_LOCK_RANGE_BITS );
+            if ( biasedSharedLocks )
+            {
+                this.sharedLockBiases[type.typeId()] =
+                        new SharedLockBias( type.typeId(), lockMaps[type.typeId()], clientsById.values() );
+            }
         }
         // TODO Using a FlyweightPool here might still be more than what we actually need.
         // TODO We should investigate if a simple concurrent stack (aka. free-list) would
         // TODO be good enough. In fact, we could add the required fields for such a stack
         // TODO to the ForsetiClient objects themselves, making the stack garbage-free in
         // TODO the (presumably) common case of client re-use.
-        clientPool = new ForsetiClientFlyweightPool( lockMaps, waitStrategies );
+        clientPool = new ForsetiClientFlyweightPool( lockMaps, waitStrategies, sharedLockBiases, escalatedLocks,
+                escalationThreshold, clientsById );
     }
 
     /**
@@ -222,12 +277,18 @@ public class ForsetiLockManager implements Locks
         {
             if ( lockMaps[i] != null )
             {
+                if ( sharedLockBiases[i] != null )
+                {
+                    // Make all shared locks of this type show up in the lock map
+                    sharedLockBiases[i].revokeBias();
+                }
                 ResourceType type = resourceTypes[i];
                 for ( Map.Entry<Long,Lock> entry : lockMaps[i].entrySet() )
                 {
                     Lock lock = entry.getValue();
                     out.visit( type, entry.getKey(), lock.describeWaitList(), 0, System.identityHashCode( lock ) );
                 }
+                escalatedLocks[i].accept( type, out );
             }
         }
     }
@@ -257,18 +318,29 @@ public class ForsetiLockManager implements Locks
         // TODO we could use a synchronised SimpleBitSet instead, since we know that we only care about reusing a
         // very limited set of integers.
         private final Queue<Integer> unusedIds = new ConcurrentLinkedQueue<>();
-        private final ConcurrentMap<Integer,ForsetiClient> clientsById = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Integer,ForsetiClient> clientsById;
         private final ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps;
         private final WaitStrategy<AcquireLockTimeoutException>[] waitStrategies;
+        private final SharedLockBias[] sharedLockBiases;
+        private final EscalatedLocks[] escalatedLocks;
+        private final int escalationThreshold;
         private final DeadlockResolutionStrategy deadlockResolutionStrategy = DeadlockStrategies.DEFAULT;
 
         public ForsetiClientFlyweightPool(
                 ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps,
-                WaitStrategy<AcquireLockTimeoutException>[] waitStrategies )
+                WaitStrategy<AcquireLockTimeoutException>[] waitStrategies,
+                SharedLockBias[] sharedLockBiases,
+                EscalatedLocks[] escalatedLocks,
+                int escalationThreshold,
+                ConcurrentMap<Integer,ForsetiClient> clientsById )
         {
             super( 128, null );
             this.lockMaps = lockMaps;
             this.waitStrategies = waitStrategies;
+            this.sharedLockBiases = sharedLockBiases;
+            this.escalatedLocks = escalatedLocks;
+            this.escalationThreshold = escalationThreshold;
+            this.clientsById = clientsById;
         }
 
         @Override
@@ -280,7 +352,8 @@ public class ForsetiLockManager implements Locks
                 id = clientIds.getAndIncrement();
             }
             ForsetiClient client = new ForsetiClient(
-                    id, lockMaps, waitStrategies, this, deadlockResolutionStrategy, clientsById::get );
+                    id, lockMaps, waitStrategies, sharedLockBiases, escalatedLocks, escalationThreshold, this,
+                    deadlockResolutionStrategy, clientsById::get );
             clientsById.put( id, client );
             return client;
         }
@@ -20,6 +20,7 @@
 package org.neo4j.kernel.impl.enterprise.lock.forseti;
 
 import org.neo4j.helpers.Service;
+import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.ResourceTypes;
 import org.neo4j.storageengine.api.lock.ResourceType;
@@ -37,4 +38,10 @@ public class ForsetiLocksFactory extends Locks.Factory
     {
         return new ForsetiLockManager( ResourceTypes.values() );
     }
+
+    @Override
+    public Locks newInstance( Config config, ResourceType[] resourceTypes )
+    {
+        return new ForsetiLockManager( config, ResourceTypes.values() );
+    }
 }
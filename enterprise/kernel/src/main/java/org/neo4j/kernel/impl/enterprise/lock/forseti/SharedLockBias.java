@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Controls the shared lock fast path of a single resource type.
+ * <p/>
+ * While the type is <em>biased</em>, clients take shared locks of that type without touching the global lock map, by
+ * publishing the resource id in one of their own {@link ForsetiClient fast lock slots}. This is only allowed as long as
+ * no client may take exclusive locks of the type, so a client registers as a writer before it grabs its first exclusive
+ * lock of a type, and stays registered until it releases all of its locks.
+ * <p/>
+ * The first writer to register while the type is biased revokes the bias: it moves every published fast lock of the
+ * type into the global lock map, as a regular {@link SharedLock} held by the publishing client, before it, or any
+ * other writer, goes on to grab exclusive locks. From then on, locks of the type are exactly what the lock map says,
+ * which is what exclusive lock acquisition and deadlock detection rely on.
+ * <p/>
+ * Clients taking shared locks re-enable the bias once there are no registered writers left, but not until some time
+ * after the last revocation, proportional to how long that revocation took. This keeps write-heavy workloads from
+ * paying for revocations over and over.
+ * <p/>
+ * Publishing a fast lock and revoking the bias follows the same protocol as Dekker's algorithm: a client first
+ * publishes its lock, and then checks that the type is still biased, while a revoker first marks the bias as revoked,
+ * and then looks for published locks. Either the client sees the revocation and takes the lock the slow way, or the
+ * revoker sees the published lock and moves it into the lock map.
+ */
+class SharedLockBias
+{
+    /** State of a biased type. Equal to no registered writers, with the sign bit set. */
+    private static final int BIASED = Integer.MIN_VALUE;
+
+    /** Set in the state while a revocation is in progress, in addition to the number of registered writers. */
+    private static final int REVOKING = 1 << 30;
+
+    /**
+     * After a revocation, the bias will not be re-enabled for this many times the duration of the revocation.
+     */
+    private static final int INHIBIT_MULTIPLIER = 9;
+
+    private final int typeId;
+    private final ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap;
+    private final Iterable<ForsetiClient> clients;
+
+    /**
+     * Either {@link #BIASED}, or the number of clients registered as writers of this type, possibly along with the
+     * {@link #REVOKING} flag.
+     */
+    private final AtomicInteger state = new AtomicInteger();
+
+    private volatile long inhibitUntilNanos;
+
+    SharedLockBias( int typeId, ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap, Iterable<ForsetiClient> clients )
+    {
+        this.typeId = typeId;
+        this.lockMap = lockMap;
+        this.clients = clients;
+    }
+
+    /**
+     * @return {@code true} if shared locks of this type may currently be taken without the global lock map.
+     */
+    boolean isBiased()
+    {
+        return state.get() == BIASED;
+    }
+
+    /**
+     * Check if the type is biased, and try to bias it if it has no registered writers.
+     *
+     * @return {@code true} if shared locks of this type may currently be taken without the global lock map.
+     */
+    boolean tryBias()
+    {
+        int current = state.get();
+        if ( current == BIASED )
+        {
+            return true;
+        }
+        return current == 0 && System.nanoTime() - inhibitUntilNanos >= 0 && state.compareAndSet( 0, BIASED );
+    }
+
+    /**
+     * Register as a writer of this type, revoking the bias if needed. When this method returns, there are no fast
+     * locks of this type, and there won't be any until the writer {@link #unregisterWriter() unregisters}.
+     */
+    void registerWriter()
+    {
+        while ( true )
+        {
+            int current = state.get();
+            if ( current == BIASED )
+            {
+                if ( state.compareAndSet( BIASED, REVOKING | 1 ) )
+                {
+                    revoke();
+                    return;
+                }
+            }
+            else if ( state.compareAndSet( current, current + 1 ) )
+            {
+                awaitRevocation();
+                return;
+            }
+        }
+    }
+
+    void unregisterWriter()
+    {
+        state.decrementAndGet();
+    }
+
+    /**
+     * Revoke the bias, if the type is biased, so that all shared locks of the type show up in the global lock map.
+     */
+    void revokeBias()
+    {
+        if ( state.compareAndSet( BIASED, REVOKING ) )
+        {
+            revoke();
+        }
+        else
+        {
+            awaitRevocation();
+        }
+    }
+
+    private void revoke()
+    {
+        long startNanos = System.nanoTime();
+        for ( ForsetiClient client : clients )
+        {
+            client.inflateFastSharedLocks( typeId, lockMap );
+        }
+        long endNanos = System.nanoTime();
+        inhibitUntilNanos = endNanos + (endNanos - startNanos) * INHIBIT_MULTIPLIER;
+
+        int current;
+        do
+        {
+            current = state.get();
+        }
+        while ( !state.compareAndSet( current, current & ~REVOKING ) );
+    }
+
+    private void awaitRevocation()
+    {
+        while ( (state.get() & REVOKING) != 0 )
+        {
+            Thread.yield();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        int current = state.get();
+        return "SharedLockBias{" +
+               "typeId=" + typeId +
+               ", biased=" + (current == BIASED) +
+               ", writers=" + (current == BIASED ? 0 : current & ~REVOKING) +
+               ", revoking=" + (current != BIASED && (current & REVOKING) != 0) +
+               '}';
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.neo4j.kernel.impl.locking.LockClientStoppedException;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+
+import static org.junit.Assert.assertEquals;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ForsetiLockEscalationTest
+{
+    private static final int THRESHOLD = 4;
+    private static final long NEXT_RANGE = 1 << 14;
+
+    private final ForsetiLockManager locks = new ForsetiLockManager( true, THRESHOLD, ResourceTypes.values() );
+    private final Locks.Client clientA = locks.newClient();
+    private final Locks.Client clientB = locks.newClient();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        clientA.close();
+        clientB.close();
+        locks.close();
+    }
+
+    @Test
+    public void shouldEscalateToRangeLockPastThreshold() throws Exception
+    {
+        // when
+        for ( int i = 0; i < 100; i++ )
+        {
+            clientA.acquireExclusive( ResourceTypes.NODE, i );
+        }
+
+        // then
+        assertEquals( 1, lockEntries() );
+        assertEquals( 1, ((ForsetiClient) clientA).lockCount() );
+    }
+
+    @Test
+    public void shouldBlockOtherClientsWithinEscalatedRange() throws Exception
+    {
+        // given
+        for ( int i = 0; i <= THRESHOLD; i++ )
+        {
+            clientA.acquireExclusive( ResourceTypes.NODE, i );
+        }
+
+        // then
+        assertFalse( clientB.tryExclusiveLock( ResourceTypes.NODE, 1000 ) );
+        assertFalse( clientB.trySharedLock( ResourceTypes.NODE, 2000 ) );
+        assertTrue( clientB.tryExclusiveLock( ResourceTypes.NODE, NEXT_RANGE ) );
+        assertTrue( clientB.trySharedLock( ResourceTypes.RELATIONSHIP, 1000 ) );
+    }
+
+    @Test
+    public void shouldReleaseEscalatedLocksOnClose() throws Exception
+    {
+        // given
+        Locks.Client clientC = locks.newClient();
+        for ( int i = 0; i <= THRESHOLD; i++ )
+        {
+            clientC.acquireExclusive( ResourceTypes.NODE, i );
+        }
+
+        // when
+        clientC.close();
+
+        // then
+        assertTrue( clientB.tryExclusiveLock( ResourceTypes.NODE, 1000 ) );
+        clientB.releaseExclusive( ResourceTypes.NODE, 1000 );
+        assertEquals( 0, lockEntries() );
+    }
+
+    @Test
+    public void shouldAllowReleasingLocksCoveredByEscalatedLock() throws Exception
+    {
+        // given
+        for ( int i = 0; i <= THRESHOLD; i++ )
+        {
+            clientA.acquireExclusive( ResourceTypes.NODE, i );
+        }
+
+        // when
+        clientA.releaseExclusive( ResourceTypes.NODE, 0 );
+        clientA.releaseExclusive( ResourceTypes.NODE, THRESHOLD );
+
+        // then the escalated lock is held until all locks are released
+        assertFalse( clientB.trySharedLock( ResourceTypes.NODE, 0 ) );
+    }
+
+    @Test
+    public void shouldWaitForLocksOfOtherClientsWithinRangeWhenEscalating() throws Exception
+    {
+        // given
+        clientB.acquireShared( ResourceTypes.NODE, 10 );
+        for ( int i = 0; i < THRESHOLD; i++ )
+        {
+            clientA.acquireExclusive( ResourceTypes.NODE, i );
+        }
+
+        // when
+        Future<Object> escalation = executor.submit( () ->
+        {
+            clientA.acquireExclusive( ResourceTypes.NODE, THRESHOLD );
+            return null;
+        } );
+
+        // then
+        try
+        {
+            escalation.get( 100, TimeUnit.MILLISECONDS );
+            fail( "Should have waited for the shared lock within the range to be released" );
+        }
+        catch ( TimeoutException e )
+        {
+            // Good
+        }
+        clientB.releaseShared( ResourceTypes.NODE, 10 );
+        escalation.get( 10, TimeUnit.SECONDS );
+        assertFalse( clientB.trySharedLock( ResourceTypes.NODE, 10 ) );
+    }
+
+    @Test
+    public void shouldStopWaitingForEscalatedLockOfOtherClientWhenStopped() throws Exception
+    {
+        // given
+        for ( int i = 0; i <= THRESHOLD; i++ )
+        {
+            clientA.acquireExclusive( ResourceTypes.NODE, i );
+        }
+        Future<Object> acquisition = executor.submit( () ->
+        {
+            clientB.acquireExclusive( ResourceTypes.NODE, 1000 );
+            return null;
+        } );
+        assertWaiting( acquisition );
+
+        // when
+        clientB.stop();
+
+        // then
+        assertStopped( acquisition );
+    }
+
+    @Test
+    public void shouldStopWaitingToEscalateWhenStopped() throws Exception
+    {
+        // given another client holds the escalated lock of the range we are about to escalate to
+        Locks.Client clientC = locks.newClient();
+        try
+        {
+            for ( int i = 0; i <= THRESHOLD; i++ )
+            {
+                clientC.acquireExclusive( ResourceTypes.NODE, i );
+            }
+            for ( int i = 0; i < THRESHOLD; i++ )
+            {
+                clientA.acquireExclusive( ResourceTypes.NODE, NEXT_RANGE + i );
+            }
+            Future<Object> escalation = executor.submit( () ->
+            {
+                clientA.acquireExclusive( ResourceTypes.NODE, 1000 );
+                return null;
+            } );
+            assertWaiting( escalation );
+
+            // when
+            clientA.stop();
+
+            // then
+            assertStopped( escalation );
+        }
+        finally
+        {
+            clientC.close();
+        }
+    }
+
+    private void assertWaiting( Future<Object> acquisition ) throws Exception
+    {
+        try
+        {
+            acquisition.get( 100, TimeUnit.MILLISECONDS );
+            fail( "Should have waited for the escalated lock of the other client" );
+        }
+        catch ( TimeoutException e )
+        {
+            // Good
+        }
+    }
+
+    private void assertStopped( Future<Object> acquisition ) throws Exception
+    {
+        try
+        {
+            acquisition.get( 10, TimeUnit.SECONDS );
+            fail( "Should have stopped waiting when the client was stopped" );
+        }
+        catch ( ExecutionException e )
+        {
+            assertThat( e.getCause(), instanceOf( LockClientStoppedException.class ) );
+        }
+    }
+
+    private int lockEntries()
+    {
+        int[] count = new int[1];
+        locks.accept( ( resourceType, resourceId, description, estimatedWaitTime, lockIdentityHashCode ) ->
+                count[0]++ );
+        return count[0];
+    }
+}
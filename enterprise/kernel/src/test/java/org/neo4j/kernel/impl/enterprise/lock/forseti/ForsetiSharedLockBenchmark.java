@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+
+/**
+ * Measures how many shared locks per second concurrent clients can acquire and release, when nobody takes exclusive
+ * locks. Each operation takes and releases a shared lock on a resource that all threads share, like the schema lock,
+ * and on a resource of its own.
+ *
+ * The {@code biasedSharedLocks} parameter controls whether the shared lock fast path is used, where {@code false} is
+ * the same as always going through the global lock maps.
+ *
+ * Run the main method with the test classpath of this module, to run the benchmark with 1 to 64 threads.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 10 )
+@Fork( 1 )
+public class ForsetiSharedLockBenchmark
+{
+    private static final long SHARED_RESOURCE = 0;
+
+    @Param( {"false", "true"} )
+    public boolean biasedSharedLocks;
+
+    private ForsetiLockManager lockManager;
+
+    @State( Scope.Thread )
+    public static class Client
+    {
+        private static long nextResource = 1;
+
+        private Locks.Client client;
+        private long ownResource;
+
+        @Setup( Level.Trial )
+        public void setUp( ForsetiSharedLockBenchmark benchmark )
+        {
+            client = benchmark.lockManager.newClient();
+            synchronized ( Client.class )
+            {
+                ownResource = nextResource++;
+            }
+        }
+
+        @TearDown( Level.Trial )
+        public void tearDown()
+        {
+            client.close();
+        }
+    }
+
+    @Setup( Level.Trial )
+    public void setUp()
+    {
+        lockManager = new ForsetiLockManager( biasedSharedLocks, ResourceTypes.values() );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown()
+    {
+        lockManager.close();
+    }
+
+    @Benchmark
+    public void acquireAndReleaseSharedLocks( Client client )
+    {
+        Locks.Client locks = client.client;
+        locks.acquireShared( ResourceTypes.SCHEMA, SHARED_RESOURCE );
+        locks.acquireShared( ResourceTypes.NODE, client.ownResource );
+        locks.releaseShared( ResourceTypes.NODE, client.ownResource );
+        locks.releaseShared( ResourceTypes.SCHEMA, SHARED_RESOURCE );
+    }
+
+    public static void main( String[] args ) throws RunnerException
+    {
+        for ( int threads = 1; threads <= 64; threads *= 2 )
+        {
+            new Runner( new OptionsBuilder()
+                    .include( ForsetiSharedLockBenchmark.class.getSimpleName() )
+                    .threads( threads )
+                    .build() ).run();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SharedLockBiasTest
+{
+    private final ForsetiLockManager locks = new ForsetiLockManager( true, ResourceTypes.values() );
+    private final Locks.Client clientA = locks.newClient();
+    private final Locks.Client clientB = locks.newClient();
+
+    @After
+    public void tearDown()
+    {
+        clientA.close();
+        clientB.close();
+        locks.close();
+    }
+
+    @Test
+    public void shouldNotGrantExclusiveLockWhileSharedLockIsHeldThroughFastPath() throws Exception
+    {
+        // given
+        clientA.acquireShared( ResourceTypes.NODE, 1 );
+
+        // when
+        boolean locked = clientB.tryExclusiveLock( ResourceTypes.NODE, 1 );
+
+        // then
+        assertFalse( locked );
+    }
+
+    @Test
+    public void shouldGrantExclusiveLockAfterFastSharedLockIsReleased() throws Exception
+    {
+        // given
+        clientA.acquireShared( ResourceTypes.NODE, 1 );
+        clientA.releaseShared( ResourceTypes.NODE, 1 );
+
+        // when
+        boolean locked = clientB.tryExclusiveLock( ResourceTypes.NODE, 1 );
+
+        // then
+        assertTrue( locked );
+    }
+
+    @Test
+    public void shouldUpgradeOwnFastSharedLock() throws Exception
+    {
+        // given
+        clientA.acquireShared( ResourceTypes.NODE, 1 );
+
+        // when
+        boolean locked = clientA.tryExclusiveLock( ResourceTypes.NODE, 1 );
+
+        // then
+        assertTrue( locked );
+        assertFalse( clientB.trySharedLock( ResourceTypes.NODE, 1 ) );
+    }
+
+    @Test
+    public void shouldShowFastSharedLocksToVisitors() throws Exception
+    {
+        // given
+        clientA.acquireShared( ResourceTypes.NODE, 1 );
+        clientB.acquireShared( ResourceTypes.NODE, 1 );
+        clientB.acquireShared( ResourceTypes.NODE, 2 );
+
+        // when
+        List<Long> lockedIds = lockedResourceIds();
+
+        // then
+        assertEquals( asList( 1L, 2L ), lockedIds );
+    }
+
+    @Test
+    public void shouldReleaseInflatedFastSharedLocksOnClose() throws Exception
+    {
+        // given
+        Locks.Client clientC = locks.newClient();
+        clientC.acquireShared( ResourceTypes.NODE, 1 );
+        assertFalse( clientB.tryExclusiveLock( ResourceTypes.NODE, 1 ) );
+
+        // when
+        clientC.close();
+
+        // then
+        assertTrue( clientB.tryExclusiveLock( ResourceTypes.NODE, 1 ) );
+        clientB.releaseExclusive( ResourceTypes.NODE, 1 );
+        assertEquals( emptyList(), lockedResourceIds() );
+    }
+
+    private List<Long> lockedResourceIds()
+    {
+        List<Long> lockedIds = new ArrayList<>();
+        locks.accept( ( resourceType, resourceId, description, estimatedWaitTime, lockIdentityHashCode ) ->
+                lockedIds.add( resourceId ) );
+        lockedIds.sort( Long::compare );
+        return lockedIds;
+    }
+}
@@ -61,6 +61,10 @@ public class MetricsSettings
                   "relationships, properties, etc." )
     public static Setting<Boolean> neoCountsEnabled = setting(
             "metrics.neo4j.counts.enabled", Settings.BOOLEAN, neoEnabled );
+    @Description( "Enable reporting metrics about the locality of the relationship chains of dense nodes, as measured " +
+                  "by relationship chain ordering." )
+    public static Setting<Boolean> neoRelationshipChainsEnabled = setting(
+            "metrics.neo4j.relationship_chains.enabled", Settings.BOOLEAN, neoEnabled );
     @Description( "Enable reporting metrics about the network usage." )
     public static Setting<Boolean> neoNetworkEnabled = setting(
             "metrics.neo4j.network.enabled", Settings.BOOLEAN, neoEnabled );
@@ -75,6 +79,10 @@ public class MetricsSettings
                   + "complete." )
     public static Setting<Boolean> neoLogRotationEnabled = setting(
             "metrics.neo4j.logrotation.enabled", Settings.BOOLEAN, neoEnabled );
+    @Description( "Enable reporting metrics about forcing the Neo4j transaction log; how often it happens, how many " +
+                  "transactions each force covers, and the adaptive group commit window." )
+    public static Setting<Boolean> neoLogForceEnabled = setting(
+            "metrics.neo4j.logforce.enabled", Settings.BOOLEAN, neoEnabled );
     @Description( "Enable reporting metrics about HA cluster info." )
     public static Setting<Boolean> neoClusterEnabled = setting(
             "metrics.neo4j.cluster.enabled", Settings.BOOLEAN, neoEnabled );
@@ -27,6 +27,7 @@ import org.neo4j.coreedge.raft.CoreMetaData;
 import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.ha.cluster.member.ClusterMembers;
+import org.neo4j.kernel.impl.api.LogForceMonitor;
 import org.neo4j.kernel.impl.api.LogRotationMonitor;
 import org.neo4j.kernel.impl.factory.OperationalMode;
 import org.neo4j.kernel.impl.logging.LogService;
@@ -47,8 +48,10 @@ import org.neo4j.metrics.source.db.BoltMetrics;
 import org.neo4j.metrics.source.db.CheckPointingMetrics;
 import org.neo4j.metrics.source.db.CypherMetrics;
 import org.neo4j.metrics.source.db.EntityCountMetrics;
+import org.neo4j.metrics.source.db.LogForceMetrics;
 import org.neo4j.metrics.source.db.LogRotationMetrics;
 import org.neo4j.metrics.source.db.PageCacheMetrics;
+import org.neo4j.metrics.source.db.RelationshipChainMetrics;
 import org.neo4j.metrics.source.db.TransactionMetrics;
 import org.neo4j.metrics.source.jvm.GCMetrics;
 import org.neo4j.metrics.source.jvm.MemoryBuffersMetrics;
@@ -78,6 +81,8 @@ public class Neo4jMetricsBuilder
 
         LogRotationMonitor logRotationMonitor();
 
+        LogForceMonitor logForceMonitor();
+
         StoreEntityCounters entityCountStats();
 
         Supplier<ClusterMembers> clusterMembers();
@@ -129,12 +134,24 @@ public class Neo4jMetricsBuilder
             result = true;
         }
 
+        if ( config.get( MetricsSettings.neoLogForceEnabled ) )
+        {
+            life.add( new LogForceMetrics( registry, dependencies.logForceMonitor() ) );
+            result = true;
+        }
+
         if ( config.get( MetricsSettings.neoCountsEnabled ) )
         {
             life.add( new EntityCountMetrics( registry, dependencies.entityCountStats() ) );
             result = true;
         }
 
+        if ( config.get( MetricsSettings.neoRelationshipChainsEnabled ) )
+        {
+            life.add( new RelationshipChainMetrics( registry, dependencies.monitors() ) );
+            result = true;
+        }
+
         if ( config.get( MetricsSettings.neoNetworkEnabled ) )
         {
             life.add( new NetworkMetrics( registry, dependencies.monitors() ) );
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.metrics.source.db;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.kernel.impl.annotations.Documented;
+import org.neo4j.kernel.impl.api.LogForceMonitor;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+@Documented( ".Database Transaction Log Force Metrics" )
+public class LogForceMetrics extends LifecycleAdapter
+{
+    private static final String LOG_FORCE_PREFIX = "neo4j.log_force";
+
+    @Documented( "The total number of transaction log forces executed so far" )
+    public static final String LOG_FORCE_EVENTS = name( LOG_FORCE_PREFIX, "events" );
+    @Documented( "The number of transaction log forces per second, since the last time this metric was reported" )
+    public static final String LOG_FORCES_PER_SECOND = name( LOG_FORCE_PREFIX, "events_per_second" );
+    @Documented( "The average number of committing transactions covered by each transaction log force, since the " +
+                 "last time this metric was reported" )
+    public static final String LOG_FORCE_BATCH_SIZE = name( LOG_FORCE_PREFIX, "batch_size" );
+    @Documented( "The number of microseconds that the most recent transaction log force was held back, by adaptive " +
+                 "group commit, to let more transactions join the batch" )
+    public static final String GROUP_COMMIT_WINDOW = name( LOG_FORCE_PREFIX, "group_commit_window" );
+
+    private final MetricRegistry registry;
+    private final LogForceMonitor logForceMonitor;
+
+    public LogForceMetrics( MetricRegistry registry, LogForceMonitor logForceMonitor )
+    {
+        this.registry = registry;
+        this.logForceMonitor = logForceMonitor;
+    }
+
+    @Override
+    public void start()
+    {
+        registry.register( LOG_FORCE_EVENTS, (Gauge<Long>) logForceMonitor::numberOfLogForceEvents );
+        registry.register( LOG_FORCES_PER_SECOND, new LogForcesPerSecond() );
+        registry.register( LOG_FORCE_BATCH_SIZE, new AverageBatchSize() );
+        registry.register( GROUP_COMMIT_WINDOW, (Gauge<Long>) logForceMonitor::lastGroupCommitWindowMicros );
+    }
+
+    @Override
+    public void stop()
+    {
+        registry.remove( LOG_FORCE_EVENTS );
+        registry.remove( LOG_FORCES_PER_SECOND );
+        registry.remove( LOG_FORCE_BATCH_SIZE );
+        registry.remove( GROUP_COMMIT_WINDOW );
+    }
+
+    private class LogForcesPerSecond implements Gauge<Double>
+    {
+        private long lastEvents = logForceMonitor.numberOfLogForceEvents();
+        private long lastNanos = System.nanoTime();
+
+        @Override
+        public synchronized Double getValue()
+        {
+            long events = logForceMonitor.numberOfLogForceEvents();
+            long nanos = System.nanoTime();
+            long elapsedNanos = nanos - lastNanos;
+            double rate = elapsedNanos == 0 ? 0.0 :
+                          (events - lastEvents) * (double) TimeUnit.SECONDS.toNanos( 1 ) / elapsedNanos;
+            lastEvents = events;
+            lastNanos = nanos;
+            return rate;
+        }
+    }
+
+    private class AverageBatchSize implements Gauge<Double>
+    {
+        private long lastEvents = logForceMonitor.numberOfLogForceEvents();
+        private long lastBatchSize = logForceMonitor.logForceAccumulatedBatchSize();
+
+        @Override
+        public synchronized Double getValue()
+        {
+            long events = logForceMonitor.numberOfLogForceEvents();
+            long batchSize = logForceMonitor.logForceAccumulatedBatchSize();
+            double average = events == lastEvents ? 0.0 : (batchSize - lastBatchSize) / (double) (events - lastEvents);
+            lastEvents = events;
+            lastBatchSize = batchSize;
+            return average;
+        }
+    }
+}
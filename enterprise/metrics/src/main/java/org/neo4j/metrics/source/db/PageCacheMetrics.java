@@ -21,6 +21,7 @@ package org.neo4j.metrics.source.db;
 
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
 
 import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
 import org.neo4j.kernel.impl.annotations.Documented;
@@ -45,6 +46,12 @@ public class PageCacheMetrics extends LifecycleAdapter
     public static final String PC_EVICTIONS = name( PAGE_CACHE_PREFIX, "evictions" );
     @Documented( "The total number of page faults happened in the page cache" )
     public static final String PC_PAGE_FAULTS = name( PAGE_CACHE_PREFIX, "page_faults" );
+    @Documented( "The total number of page pins that did not need a page fault" )
+    public static final String PC_HITS = name( PAGE_CACHE_PREFIX, "hits" );
+    @Documented( "The ratio of hits to the total number of lookups in the page cache" )
+    public static final String PC_HIT_RATIO = name( PAGE_CACHE_PREFIX, "hit_ratio" );
+    @Documented( "The total number of page faults of pages that had recently been evicted" )
+    public static final String PC_REFAULTS = name( PAGE_CACHE_PREFIX, "refaults" );
 
     private final MetricRegistry registry;
     private final PageCacheCounters pageCacheCounters;
@@ -64,6 +71,9 @@ public class PageCacheMetrics extends LifecycleAdapter
         registry.register( PC_UNPINS, (Gauge<Long>) pageCacheCounters::unpins );
         registry.register( PC_FLUSHES, (Gauge<Long>) pageCacheCounters::flushes );
         registry.register( PC_EVICTION_EXCEPTIONS, (Gauge<Long>) pageCacheCounters::evictionExceptions );
+        registry.register( PC_HITS, (Gauge<Long>) pageCacheCounters::hits );
+        registry.register( PC_HIT_RATIO, new HitRatioGauge( pageCacheCounters ) );
+        registry.register( PC_REFAULTS, (Gauge<Long>) pageCacheCounters::refaults );
     }
 
     @Override
@@ -75,5 +85,25 @@ public class PageCacheMetrics extends LifecycleAdapter
         registry.remove( PC_UNPINS );
         registry.remove( PC_FLUSHES );
         registry.remove( PC_EVICTION_EXCEPTIONS );
+        registry.remove( PC_HITS );
+        registry.remove( PC_HIT_RATIO );
+        registry.remove( PC_REFAULTS );
+    }
+
+    private static class HitRatioGauge extends RatioGauge
+    {
+        private final PageCacheCounters pageCacheCounters;
+
+        HitRatioGauge( PageCacheCounters pageCacheCounters )
+        {
+            this.pageCacheCounters = pageCacheCounters;
+        }
+
+        @Override
+        protected Ratio getRatio()
+        {
+            long hits = pageCacheCounters.hits();
+            return Ratio.of( hits, hits + pageCacheCounters.faults() );
+        }
     }
 }
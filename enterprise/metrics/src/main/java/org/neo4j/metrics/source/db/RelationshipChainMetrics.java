@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.metrics.source.db;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.kernel.impl.annotations.Documented;
+import org.neo4j.kernel.impl.transaction.state.RelationshipChainOrdering;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.kernel.monitoring.Monitors;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+@Documented( ".Relationship Chain Metrics" )
+public class RelationshipChainMetrics extends LifecycleAdapter
+{
+    private static final String NAME_PREFIX = "neo4j.relationship_chains";
+
+    @Documented( "The locality of the relationship chains of the dense nodes, as of the most recently completed pass " +
+                 "of relationship chain ordering; the number of distinct store pages the chains touch, divided by " +
+                 "the number of times traversing them moves on to a different page. " +
+                 "A locality of 1 means that every chain reads each of its pages only once" )
+    public static final String LOCALITY = name( NAME_PREFIX, "locality" );
+    @Documented( "The total number of nodes whose relationship chains have been relinked in record id order" )
+    public static final String ORDERED_NODES = name( NAME_PREFIX, "ordered_nodes" );
+
+    private final MetricRegistry registry;
+    private final Monitors monitors;
+    private final LocalityMonitor localityMonitor = new LocalityMonitor();
+
+    public RelationshipChainMetrics( MetricRegistry registry, Monitors monitors )
+    {
+        this.registry = registry;
+        this.monitors = monitors;
+    }
+
+    @Override
+    public void start()
+    {
+        monitors.addMonitorListener( localityMonitor );
+        registry.register( LOCALITY, (Gauge<Double>) () -> localityMonitor.locality );
+        registry.register( ORDERED_NODES, (Gauge<Long>) localityMonitor.orderedNodes::get );
+    }
+
+    @Override
+    public void stop()
+    {
+        registry.remove( LOCALITY );
+        registry.remove( ORDERED_NODES );
+        monitors.removeMonitorListener( localityMonitor );
+    }
+
+    private static class LocalityMonitor implements RelationshipChainOrdering.Monitor
+    {
+        private final AtomicLong orderedNodes = new AtomicLong();
+        private volatile double locality = 1.0;
+
+        @Override
+        public void relationshipChainsOrdered( long nodeId )
+        {
+            orderedNodes.incrementAndGet();
+        }
+
+        @Override
+        public void passCompleted( long chains, long pages, long pageVisits )
+        {
+            locality = pageVisits == 0 ? 1.0 : (double) pages / pageVisits;
+        }
+    }
+}
@@ -69,6 +69,13 @@ public class TransactionMetrics extends LifecycleAdapter
     @Documented( "The total number of terminated write transactions" )
     public static final String WRITE_TX_TERMINATED = name( TRANSACTION_PREFIX, "terminated_write" );
 
+    @Documented( "The highest number of changed nodes and relationships tracked by the state of a single transaction" )
+    public static final String TX_STATE_PEAK_SIZE = name( TRANSACTION_PREFIX, "tx_state_peak_size" );
+    @Documented( "The total number of changed nodes and relationships tracked by the state of finished transactions" )
+    public static final String TX_STATE_TOTAL_SIZE = name( TRANSACTION_PREFIX, "tx_state_total_size" );
+    @Documented( "The total number of transactions whose state was moved to off-heap memory" )
+    public static final String TX_STATE_OFF_HEAP = name( TRANSACTION_PREFIX, "tx_state_off_heap" );
+
     @Documented( "The ID of the last committed transaction" )
     public static final String LAST_COMMITTED_TX_ID = name( TRANSACTION_PREFIX, "last_committed_tx_id" );
     @Documented( "The ID of the last closed transaction" )
@@ -114,6 +121,11 @@ public class TransactionMetrics extends LifecycleAdapter
         registry.register( WRITE_TX_TERMINATED,
                 (Gauge<Long>) transactionCounters::getNumberOfTerminatedWriteTransactions );
 
+        registry.register( TX_STATE_PEAK_SIZE, (Gauge<Long>) transactionCounters::getPeakTransactionStateSize );
+        registry.register( TX_STATE_TOTAL_SIZE, (Gauge<Long>) transactionCounters::getTotalTransactionStateSize );
+        registry.register( TX_STATE_OFF_HEAP,
+                (Gauge<Long>) transactionCounters::getNumberOfOffHeapTransactionStates );
+
         registry.register( LAST_COMMITTED_TX_ID, (Gauge<Long>) () ->
                 transactionIdStore.get().getLastCommittedTransactionId() );
         registry.register( LAST_CLOSED_TX_ID, (Gauge<Long>) () ->
@@ -142,6 +154,10 @@ public class TransactionMetrics extends LifecycleAdapter
         registry.remove( READ_TX_TERMINATED );
         registry.remove( WRITE_TX_TERMINATED );
 
+        registry.remove( TX_STATE_PEAK_SIZE );
+        registry.remove( TX_STATE_TOTAL_SIZE );
+        registry.remove( TX_STATE_OFF_HEAP );
+
         registry.remove( LAST_COMMITTED_TX_ID );
         registry.remove( LAST_CLOSED_TX_ID );
     }
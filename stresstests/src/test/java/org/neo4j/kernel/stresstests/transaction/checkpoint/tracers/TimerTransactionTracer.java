@@ -67,6 +67,16 @@ public class TimerTransactionTracer implements TransactionTracer, CheckPointTrac
             long elapsedNanos = System.nanoTime() - logForceBegin;
             logForceTimes.recordValue( elapsedNanos );
         }
+
+        @Override
+        public void setBatchSize( int batchSize )
+        {
+        }
+
+        @Override
+        public void setGroupCommitWindow( long windowMicros )
+        {
+        }
     };
 
     private static final LogCheckPointEvent LOG_CHECK_POINT_EVENT = new LogCheckPointEvent()